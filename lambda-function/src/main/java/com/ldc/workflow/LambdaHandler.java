@@ -4,6 +4,7 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ldc.workflow.util.InvocationDeadline;
 import org.springframework.boot.SpringApplication;
 import org.springframework.context.ApplicationContext;
 import org.slf4j.Logger;
@@ -38,6 +39,9 @@ public class LambdaHandler implements RequestStreamHandler {
 
     @Override
     public void handleRequest(InputStream input, OutputStream output, Context context) {
+        if (context != null) {
+            InvocationDeadline.begin(context.getRemainingTimeInMillis());
+        }
         try {
             // Read input stream and parse JSON
             String inputStr = new String(input.readAllBytes(), StandardCharsets.UTF_8);
@@ -70,6 +74,8 @@ public class LambdaHandler implements RequestStreamHandler {
             } catch (Exception ex) {
                 logger.error("Failed to write error response", ex);
             }
+        } finally {
+            InvocationDeadline.clear();
         }
     }
 }
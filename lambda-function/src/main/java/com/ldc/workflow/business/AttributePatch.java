@@ -0,0 +1,103 @@
+package com.ldc.workflow.business;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.ldc.workflow.types.LoanAttribute;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Attribute decisions to change on a loan, keyed by attributeName, instead of the
+ * whole attribute list. A name the loan already has takes the new decision in
+ * place; a new name is appended. When a name is listed twice the last entry wins.
+ */
+public final class AttributePatch {
+
+    private final List<LoanAttribute> updates;
+
+    private AttributePatch(List<LoanAttribute> updates) {
+        this.updates = updates;
+    }
+
+    /**
+     * Read a patch from an array of {"attributeName", "attributeDecision"} objects.
+     *
+     * @throws IllegalArgumentException when the node is not an array or an entry has no attributeName
+     */
+    public static AttributePatch parse(JsonNode node) {
+        if (!node.isArray()) {
+            throw new IllegalArgumentException("attributeUpdates must be an array");
+        }
+        Map<String, LoanAttribute> byName = new LinkedHashMap<>();
+        for (JsonNode entry : node) {
+            JsonNode name = entry.get("attributeName");
+            if (name == null || !name.isTextual()) {
+                throw new IllegalArgumentException("Attribute update without attributeName");
+            }
+            JsonNode decision = entry.get("attributeDecision");
+            byName.put(name.asText(), new LoanAttribute(name.asText(),
+                    decision == null || decision.isNull() ? null : decision.asText()));
+        }
+        return new AttributePatch(new ArrayList<>(byName.values()));
+    }
+
+    public List<LoanAttribute> getUpdates() {
+        return Collections.unmodifiableList(updates);
+    }
+
+    /**
+     * Merge the patch into a loan's attributes through a name index of the current
+     * list. The current list is not modified.
+     */
+    public Merge mergeInto(List<LoanAttribute> attributes) {
+        List<LoanAttribute> merged = attributes == null ? new ArrayList<>(updates.size())
+                : new ArrayList<>(attributes);
+        Map<String, Integer> index = new HashMap<>(merged.size() * 4 / 3 + 1);
+        for (int i = 0; i < merged.size(); i++) {
+            index.putIfAbsent(merged.get(i).getAttributeName(), i);
+        }
+        List<LoanAttribute> changed = new ArrayList<>(updates.size());
+        for (LoanAttribute update : updates) {
+            Integer position = index.get(update.getAttributeName());
+            if (position == null) {
+                index.put(update.getAttributeName(), merged.size());
+                merged.add(update);
+                changed.add(update);
+            } else if (!Objects.equals(merged.get(position).getAttributeDecision(), update.getAttributeDecision())) {
+                merged.set(position, update);
+                changed.add(update);
+            }
+        }
+        return new Merge(merged, changed);
+    }
+
+    /**
+     * The attributes after a merge and the updates that actually changed something.
+     */
+    public static final class Merge {
+        private final List<LoanAttribute> attributes;
+        private final List<LoanAttribute> changed;
+
+        private Merge(List<LoanAttribute> attributes, List<LoanAttribute> changed) {
+            this.attributes = attributes;
+            this.changed = changed;
+        }
+
+        public List<LoanAttribute> getAttributes() {
+            return attributes;
+        }
+
+        /**
+         * Updates that set a different decision or add an attribute; repeats of the
+         * stored decision are left out.
+         */
+        public List<LoanAttribute> getChanged() {
+            return changed;
+        }
+    }
+}
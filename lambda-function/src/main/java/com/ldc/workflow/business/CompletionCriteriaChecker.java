@@ -1,5 +1,6 @@
 package com.ldc.workflow.business;
 
+import com.ldc.workflow.types.AttributeDecision;
 import com.ldc.workflow.types.LoanAttribute;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,6 +26,13 @@ public class CompletionCriteriaChecker {
      * - Loan decision is non-null
      */
     public boolean isLoanDecisionComplete(String loanDecision, List<LoanAttribute> attributes) {
+        return isLoanDecisionComplete(loanDecision, DecisionSummary.of(attributes));
+    }
+
+    /**
+     * Check if loan decision is complete from an already built summary of its attributes.
+     */
+    public boolean isLoanDecisionComplete(String loanDecision, DecisionSummary summary) {
         // Check if loan decision is non-null
         if (loanDecision == null || loanDecision.trim().isEmpty()) {
             logger.debug("Loan decision is null or empty");
@@ -32,18 +40,12 @@ public class CompletionCriteriaChecker {
         }
 
         // Check if all attributes are non-null and non-Pending
-        if (attributes == null || attributes.isEmpty()) {
+        if (summary.isEmpty()) {
             logger.debug("No attributes provided");
             return false;
         }
 
-        boolean allAttributesComplete = attributes.stream()
-                .allMatch(attr -> {
-                    String decision = attr.getAttributeDecision();
-                    return decision != null && !"Pending".equals(decision);
-                });
-
-        if (!allAttributesComplete) {
+        if (!summary.isComplete()) {
             logger.debug("Not all attributes are complete (some are null or Pending)");
             return false;
         }
@@ -61,10 +63,7 @@ public class CompletionCriteriaChecker {
         }
 
         return attributes.stream()
-                .filter(attr -> {
-                    String decision = attr.getAttributeDecision();
-                    return decision == null || "Pending".equals(decision);
-                })
+                .filter(attr -> AttributeDecision.fromValue(attr.getAttributeDecision()) == AttributeDecision.PENDING)
                 .toList();
     }
 
@@ -87,4 +86,22 @@ public class CompletionCriteriaChecker {
 
         return "Loan decision is complete";
     }
+
+    /**
+     * Get a reason the loan decision is not complete from its attribute counts alone;
+     * without the attributes it can say how many are incomplete but not which.
+     */
+    public String getIncompleteReason(String loanDecision, DecisionSummary summary) {
+        if (loanDecision == null || loanDecision.trim().isEmpty()) {
+            return "Loan decision is not set";
+        }
+        int pending = summary.count(AttributeDecision.PENDING);
+        if (pending > 0) {
+            return pending + " of " + summary.size() + " attributes are incomplete (Pending or null)";
+        }
+        if (summary.isEmpty()) {
+            return "No attributes recorded";
+        }
+        return "Loan decision is complete";
+    }
 }
@@ -0,0 +1,198 @@
+package com.ldc.workflow.business;
+
+import com.ldc.workflow.types.AttributeDecision;
+import com.ldc.workflow.types.DecisionProgress;
+import com.ldc.workflow.types.LoanAttribute;
+
+import java.util.List;
+
+/**
+ * Per-decision counts and a presence mask for a loan's attributes, built in one
+ * pass. Build it once per state load and hand it to both CompletionCriteriaChecker
+ * and LoanStatusDeterminer instead of letting each walk the attributes.
+ *
+ * Null decisions count as PENDING. Values that are not an AttributeDecision are
+ * counted as unrecognized and set no bit; they are neither pending nor any decision.
+ */
+public final class DecisionSummary {
+
+    private static final AttributeDecision[] DECISIONS = AttributeDecision.values();
+    private static final DecisionSummary EMPTY = new DecisionSummary(0, 0, 0, 0, 0, 0, 0);
+
+    private final int pending;
+    private final int approved;
+    private final int rejected;
+    private final int reclass;
+    private final int repurchase;
+    private final int unrecognized;
+    private final int mask;
+
+    private DecisionSummary(int pending, int approved, int rejected, int reclass, int repurchase,
+                            int unrecognized, int mask) {
+        this.pending = pending;
+        this.approved = approved;
+        this.rejected = rejected;
+        this.reclass = reclass;
+        this.repurchase = repurchase;
+        this.unrecognized = unrecognized;
+        this.mask = mask;
+    }
+
+    public static DecisionSummary of(List<LoanAttribute> attributes) {
+        if (attributes == null || attributes.isEmpty()) {
+            return EMPTY;
+        }
+        int pending = 0;
+        int approved = 0;
+        int rejected = 0;
+        int reclass = 0;
+        int repurchase = 0;
+        int unrecognized = 0;
+        for (int i = 0, n = attributes.size(); i < n; i++) {
+            AttributeDecision decision = AttributeDecision.fromValue(attributes.get(i).getAttributeDecision());
+            if (decision == null) {
+                unrecognized++;
+                continue;
+            }
+            switch (decision) {
+                case PENDING -> pending++;
+                case APPROVED -> approved++;
+                case REJECTED -> rejected++;
+                case RECLASS -> reclass++;
+                case REPURCHASE -> repurchase++;
+            }
+        }
+        return create(pending, approved, rejected, reclass, repurchase, unrecognized);
+    }
+
+    /**
+     * Rebuild a summary from the counters stored on the workflow state item, without
+     * reading the attributes. Whatever part of TotalCount is not covered by a decision
+     * count is unrecognized.
+     *
+     * @throws IllegalArgumentException when the progress carries no counters
+     */
+    public static DecisionSummary fromCounters(DecisionProgress progress) {
+        if (!progress.hasCounters()) {
+            throw new IllegalArgumentException("Workflow state has no decision counters");
+        }
+        int pending = progress.getCount(AttributeDecision.PENDING);
+        int approved = progress.getCount(AttributeDecision.APPROVED);
+        int rejected = progress.getCount(AttributeDecision.REJECTED);
+        int reclass = progress.getCount(AttributeDecision.RECLASS);
+        int repurchase = progress.getCount(AttributeDecision.REPURCHASE);
+        int unrecognized = Math.max(0, progress.getTotalCount() - pending - approved - rejected - reclass - repurchase);
+        return create(pending, approved, rejected, reclass, repurchase, unrecognized);
+    }
+
+    /**
+     * A summary from counts tallied elsewhere, e.g. by AttributeCodec straight from
+     * encoded attribute data.
+     */
+    public static DecisionSummary fromCounts(int pending, int approved, int rejected, int reclass, int repurchase,
+                                             int unrecognized) {
+        return create(pending, approved, rejected, reclass, repurchase, unrecognized);
+    }
+
+    private static DecisionSummary create(int pending, int approved, int rejected, int reclass, int repurchase,
+                                          int unrecognized) {
+        int mask = (pending > 0 ? AttributeDecision.PENDING.bit() : 0)
+                | (approved > 0 ? AttributeDecision.APPROVED.bit() : 0)
+                | (rejected > 0 ? AttributeDecision.REJECTED.bit() : 0)
+                | (reclass > 0 ? AttributeDecision.RECLASS.bit() : 0)
+                | (repurchase > 0 ? AttributeDecision.REPURCHASE.bit() : 0);
+        return new DecisionSummary(pending, approved, rejected, reclass, repurchase, unrecognized, mask);
+    }
+
+    public int count(AttributeDecision decision) {
+        return switch (decision) {
+            case PENDING -> pending;
+            case APPROVED -> approved;
+            case REJECTED -> rejected;
+            case RECLASS -> reclass;
+            case REPURCHASE -> repurchase;
+        };
+    }
+
+    public boolean has(AttributeDecision decision) {
+        return (mask & decision.bit()) != 0;
+    }
+
+    /**
+     * @return true when there is at least one attribute and every one carries this decision
+     */
+    public boolean allMatch(AttributeDecision decision) {
+        return size() > 0 && count(decision) == size();
+    }
+
+    /**
+     * @return true when there is at least one attribute and none is pending
+     */
+    public boolean isComplete() {
+        return size() > 0 && pending == 0;
+    }
+
+    /**
+     * One bit per AttributeDecision present (see {@link AttributeDecision#bit()}), 0-31.
+     */
+    public int getMask() {
+        return mask;
+    }
+
+    public int getUnrecognized() {
+        return unrecognized;
+    }
+
+    public int size() {
+        return pending + approved + rejected + reclass + repurchase + unrecognized;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Counts decisions as they stream in, e.g. one row per decision and count from a
+     * grouped query, and builds the summary at the end. Not thread-safe.
+     */
+    public static final class Accumulator {
+        private int pending;
+        private int approved;
+        private int rejected;
+        private int reclass;
+        private int repurchase;
+        private int unrecognized;
+
+        /**
+         * @param decision a stored decision value; null counts as PENDING
+         */
+        public Accumulator add(String decision, int count) {
+            AttributeDecision parsed = AttributeDecision.fromValue(decision);
+            if (parsed == null) {
+                unrecognized += count;
+                return this;
+            }
+            switch (parsed) {
+                case PENDING -> pending += count;
+                case APPROVED -> approved += count;
+                case REJECTED -> rejected += count;
+                case RECLASS -> reclass += count;
+                case REPURCHASE -> repurchase += count;
+            }
+            return this;
+        }
+
+        public DecisionSummary toSummary() {
+            return create(pending, approved, rejected, reclass, repurchase, unrecognized);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("DecisionSummary{");
+        for (AttributeDecision decision : DECISIONS) {
+            builder.append(decision.getValue()).append('=').append(count(decision)).append(", ");
+        }
+        return builder.append("unrecognized=").append(unrecognized).append('}').toString();
+    }
+}
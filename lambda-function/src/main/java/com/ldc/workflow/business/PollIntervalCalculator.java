@@ -0,0 +1,120 @@
+package com.ldc.workflow.business;
+
+import com.ldc.workflow.types.WorkflowState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Computes how long a polling state should wait before checking a loan again.
+ *
+ * The interval grows with the time the loan has been idle (since UpdatedAt, or
+ * since CreatedAt when it has never changed):
+ *
+ *   next = clamp(min + (growth - 1) * idle, min, max)
+ *
+ * which is what multiplying the interval by {@code growth} after every
+ * unproductive poll converges to, without having to carry a poll counter
+ * through the execution. A loan somebody is actively working on is re-checked
+ * within {@code min} seconds; one that has sat untouched for a day backs off to
+ * {@code max}. The resume delay stays within (growth - 1) of the idle time.
+ *
+ * Environment variables:
+ * POLL_MIN_SECONDS       shortest interval, default 5
+ * POLL_MAX_SECONDS       longest interval, default 1800
+ * POLL_GROWTH_FACTOR     per-poll growth, default 1.25
+ */
+@Component
+public class PollIntervalCalculator {
+
+    private static final Logger logger = LoggerFactory.getLogger(PollIntervalCalculator.class);
+
+    private final int minSeconds;
+    private final int maxSeconds;
+    private final double growthFactor;
+    private final Clock clock;
+
+    @Autowired
+    public PollIntervalCalculator() {
+        this(getIntEnv("POLL_MIN_SECONDS", 5), getIntEnv("POLL_MAX_SECONDS", 1800),
+                getDoubleEnv("POLL_GROWTH_FACTOR", 1.25), Clock.systemUTC());
+    }
+
+    public PollIntervalCalculator(int minSeconds, int maxSeconds, double growthFactor, Clock clock) {
+        if (minSeconds < 1 || maxSeconds < minSeconds) {
+            throw new IllegalArgumentException("Poll interval requires 1 <= min <= max");
+        }
+        if (growthFactor < 1.0) {
+            throw new IllegalArgumentException("Poll growth factor must be at least 1");
+        }
+        this.minSeconds = minSeconds;
+        this.maxSeconds = maxSeconds;
+        this.growthFactor = growthFactor;
+        this.clock = clock;
+    }
+
+    /**
+     * Seconds until the next poll of the given state, from its CreatedAt/UpdatedAt.
+     */
+    public int nextPollSeconds(WorkflowState state) {
+        if (state == null) {
+            return minSeconds;
+        }
+        return nextPollSeconds(state.getCreatedAt(), state.getUpdatedAt());
+    }
+
+    /**
+     * Seconds until the next poll from stored CreatedAt/UpdatedAt timestamps.
+     */
+    public int nextPollSeconds(String createdAt, String updatedAt) {
+        return nextPollSeconds(parse(createdAt), parse(updatedAt), clock.instant());
+    }
+
+    /**
+     * Seconds until the next poll for a loan created and last changed at the given instants.
+     */
+    public int nextPollSeconds(Instant createdAt, Instant updatedAt, Instant now) {
+        Instant lastChange = updatedAt != null ? updatedAt : createdAt;
+        if (lastChange == null) {
+            return minSeconds;
+        }
+        long idleSeconds = Math.max(0, Duration.between(lastChange, now).getSeconds());
+        double next = minSeconds + (growthFactor - 1.0) * idleSeconds;
+        return (int) Math.max(minSeconds, Math.min(maxSeconds, Math.round(next)));
+    }
+
+    public int getMinSeconds() {
+        return minSeconds;
+    }
+
+    public int getMaxSeconds() {
+        return maxSeconds;
+    }
+
+    private static Instant parse(String timestamp) {
+        if (timestamp == null || timestamp.isEmpty()) {
+            return null;
+        }
+        try {
+            return Instant.parse(timestamp);
+        } catch (Exception e) {
+            logger.warn("Unparseable workflow timestamp: {}", timestamp);
+            return null;
+        }
+    }
+
+    private static int getIntEnv(String name, int defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static double getDoubleEnv(String name, double defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : Double.parseDouble(value);
+    }
+}
@@ -0,0 +1,184 @@
+package com.ldc.workflow.business;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ldc.workflow.types.AttributeDecision;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A loan status decision table compiled into a lookup by DecisionSummary mask.
+ *
+ * The table is JSON:
+ *
+ * <pre>
+ * {
+ *   "version": "1",
+ *   "rules": [
+ *     {"present": ["Repurchase"], "status": "Repurchase"},
+ *     {"present": ["Approved", "Rejected"], "status": "Partially Approved"},
+ *     {"present": ["Pending"], "absent": ["Approved", "Rejected"], "status": "Pending Review"}
+ *   ],
+ *   "default": "Unknown"
+ * }
+ * </pre>
+ *
+ * A rule matches when every "present" decision occurs on at least one attribute and
+ * no "absent" decision occurs on any; the first matching rule wins, and "default"
+ * applies when none does. Since a rule only looks at which decisions are present,
+ * every one of the 32 presence masks is resolved when the table is compiled and
+ * {@link #resolve(DecisionSummary)} is a single array load.
+ *
+ * The built-in table reproduces the original hard-coded priorities. Labels are
+ * configurable, but RouteLoanDecision (loan-decision.asl.json) and the reclass wait
+ * route on "Approved", "Rejected", "Repurchase" and "Reclass Approved", so a table
+ * that renames those must ship with matching definitions.
+ */
+public final class StatusDecisionTable {
+
+    public static final String DEFAULT_TABLE = """
+            {
+              "version": "builtin",
+              "rules": [
+                {"present": ["Repurchase"], "status": "Repurchase"},
+                {"present": ["Reclass"], "status": "Reclass Approved"},
+                {"present": ["Approved", "Rejected"], "status": "Partially Approved"},
+                {"present": ["Approved"], "status": "Approved"},
+                {"present": ["Rejected"], "status": "Rejected"}
+              ],
+              "default": "Unknown"
+            }
+            """;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int MASKS = 1 << AttributeDecision.values().length;
+    private static final StatusDecisionTable DEFAULTS = parse(DEFAULT_TABLE);
+
+    private final String version;
+    private final String defaultStatus;
+    private final String[] statusByMask;
+    private final List<Integer> unreachableRules;
+
+    private StatusDecisionTable(String version, String defaultStatus, String[] statusByMask,
+                                List<Integer> unreachableRules) {
+        this.version = version;
+        this.defaultStatus = defaultStatus;
+        this.statusByMask = statusByMask;
+        this.unreachableRules = unreachableRules;
+    }
+
+    public static StatusDecisionTable defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Parse and compile a table.
+     *
+     * @throws IllegalArgumentException when the JSON is malformed, a rule names an
+     *                                  unknown decision or lists one as both present
+     *                                  and absent, or a status is missing
+     */
+    public static StatusDecisionTable parse(String json) {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(json);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Decision table is not valid JSON: " + e.getMessage(), e);
+        }
+        String version = text(root.get("version"), "version");
+        String defaultStatus = root.hasNonNull("default") ? text(root.get("default"), "default") : "Unknown";
+        JsonNode rulesNode = root.path("rules");
+        if (!rulesNode.isArray() || rulesNode.isEmpty()) {
+            throw new IllegalArgumentException("Decision table " + version + " has no rules");
+        }
+
+        int ruleCount = rulesNode.size();
+        int[] present = new int[ruleCount];
+        int[] absent = new int[ruleCount];
+        String[] statuses = new String[ruleCount];
+        for (int r = 0; r < ruleCount; r++) {
+            JsonNode rule = rulesNode.get(r);
+            present[r] = mask(rule.path("present"), r);
+            absent[r] = mask(rule.path("absent"), r);
+            if ((present[r] & absent[r]) != 0) {
+                throw new IllegalArgumentException("Rule " + r + " requires a decision to be both present and absent");
+            }
+            statuses[r] = text(rule.get("status"), "rules[" + r + "].status");
+        }
+
+        String[] statusByMask = new String[MASKS];
+        boolean[] used = new boolean[ruleCount];
+        for (int mask = 0; mask < MASKS; mask++) {
+            statusByMask[mask] = defaultStatus;
+            for (int r = 0; r < ruleCount; r++) {
+                if ((mask & present[r]) == present[r] && (mask & absent[r]) == 0) {
+                    statusByMask[mask] = statuses[r];
+                    used[r] = true;
+                    break;
+                }
+            }
+        }
+        List<Integer> unreachable = new ArrayList<>();
+        for (int r = 0; r < ruleCount; r++) {
+            if (!used[r]) {
+                unreachable.add(r);
+            }
+        }
+        return new StatusDecisionTable(version, defaultStatus, statusByMask, List.copyOf(unreachable));
+    }
+
+    /**
+     * @return the status for a non-empty summary
+     */
+    public String resolve(DecisionSummary summary) {
+        return statusByMask[summary.getMask()];
+    }
+
+    /**
+     * @param mask a presence mask, 0-31 (see {@link AttributeDecision#bit()})
+     */
+    public String resolve(int mask) {
+        return statusByMask[mask];
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getDefaultStatus() {
+        return defaultStatus;
+    }
+
+    /**
+     * Indexes of rules shadowed by earlier ones; they can never match.
+     */
+    public List<Integer> getUnreachableRules() {
+        return unreachableRules;
+    }
+
+    private static int mask(JsonNode decisions, int rule) {
+        if (decisions.isMissingNode() || decisions.isNull()) {
+            return 0;
+        }
+        if (!decisions.isArray()) {
+            throw new IllegalArgumentException("Rule " + rule + " decisions must be a list");
+        }
+        int mask = 0;
+        for (JsonNode decision : decisions) {
+            AttributeDecision parsed = decision.isTextual() ? AttributeDecision.fromValue(decision.asText()) : null;
+            if (parsed == null) {
+                throw new IllegalArgumentException("Rule " + rule + " names an unknown decision: " + decision);
+            }
+            mask |= parsed.bit();
+        }
+        return mask;
+    }
+
+    private static String text(JsonNode node, String field) {
+        if (node == null || !node.isValueNode() || node.asText().isBlank()) {
+            throw new IllegalArgumentException("Decision table is missing " + field);
+        }
+        return node.asText();
+    }
+}
@@ -0,0 +1,138 @@
+package com.ldc.workflow.business;
+
+import com.ldc.workflow.service.ConfigurationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds the loan status decision table loaded from Parameter Store through
+ * ConfigurationService, compiled into a {@link StatusDecisionTable}.
+ *
+ * At most once per check interval a caller re-reads the parameter (normally a
+ * ConfigurationService cache hit). When its version differs from the active
+ * table's, the new table is compiled off to the side and swapped in with one
+ * reference write, so a lookup sees either the whole old table or the whole new
+ * one. A table that fails to parse is logged and the active table kept; until a
+ * table is loaded the built-in one, {@link StatusDecisionTable#DEFAULT_TABLE}, applies.
+ *
+ * Environment variables:
+ * STATUS_DECISION_TABLE_PARAMETER   parameter name, default /ldc-workflow/business_rules/loan_status_decision_table
+ * STATUS_DECISION_TABLE_CHECK_SECONDS  how often to look for a new version, default 30
+ */
+@Component
+public class StatusRuleEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatusRuleEngine.class);
+
+    static final String DEFAULT_PARAMETER = "/ldc-workflow/business_rules/loan_status_decision_table";
+    private static final long DEFAULT_CHECK_SECONDS = 30;
+
+    private final ConfigurationService configurationService;
+    private final String parameterName;
+    private final long checkIntervalNanos;
+    private final LongSupplier clock;
+    private final AtomicReference<StatusDecisionTable> current =
+            new AtomicReference<>(StatusDecisionTable.defaults());
+    private final AtomicBoolean checking = new AtomicBoolean();
+    private volatile long nextCheckNanos;
+    private volatile String lastSource;
+
+    @Autowired
+    public StatusRuleEngine(ConfigurationService configurationService) {
+        this(configurationService, getEnv("STATUS_DECISION_TABLE_PARAMETER", DEFAULT_PARAMETER),
+                TimeUnit.SECONDS.toNanos(Long.parseLong(getEnv("STATUS_DECISION_TABLE_CHECK_SECONDS",
+                        String.valueOf(DEFAULT_CHECK_SECONDS)))),
+                System::nanoTime);
+    }
+
+    /**
+     * @param configurationService null for an engine that only ever uses the built-in table
+     */
+    public StatusRuleEngine(ConfigurationService configurationService, String parameterName,
+                            long checkIntervalNanos, LongSupplier clock) {
+        this.configurationService = configurationService;
+        this.parameterName = parameterName;
+        this.checkIntervalNanos = checkIntervalNanos;
+        this.clock = clock;
+        this.nextCheckNanos = clock.getAsLong();
+    }
+
+    /**
+     * An engine fixed to the built-in table.
+     */
+    public static StatusRuleEngine builtIn() {
+        return new StatusRuleEngine(null, DEFAULT_PARAMETER, Long.MAX_VALUE, () -> 0L);
+    }
+
+    /**
+     * The active table, first picking up a new version if the check interval has passed.
+     */
+    public StatusDecisionTable table() {
+        if (configurationService != null && clock.getAsLong() - nextCheckNanos >= 0) {
+            checkForUpdate();
+        }
+        return current.get();
+    }
+
+    public String resolve(DecisionSummary summary) {
+        return table().resolve(summary);
+    }
+
+    /**
+     * Re-read the parameter now and swap in a new version if there is one; only
+     * one caller checks at a time, the others keep using the active table.
+     *
+     * @return true when a new table was installed
+     */
+    public boolean checkForUpdate() {
+        if (configurationService == null || !checking.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            nextCheckNanos = clock.getAsLong() + checkIntervalNanos;
+            String source = configurationService.getParameter(parameterName);
+            if (source.equals(lastSource)) {
+                return false;
+            }
+            lastSource = source;
+
+            StatusDecisionTable candidate = StatusDecisionTable.parse(source);
+            StatusDecisionTable active = current.get();
+            if (candidate.getVersion().equals(active.getVersion())) {
+                logger.warn("Decision table {} changed without a new version; keeping the active table",
+                        parameterName);
+                return false;
+            }
+            if (!candidate.getUnreachableRules().isEmpty()) {
+                logger.warn("Decision table version {} has rules that can never match: {}",
+                        candidate.getVersion(), candidate.getUnreachableRules());
+            }
+            current.set(candidate);
+            logger.info("Loan status decision table version {} replaced {}", candidate.getVersion(),
+                    active.getVersion());
+            return true;
+        } catch (IllegalArgumentException e) {
+            logger.error("Rejected decision table {}; keeping version {}: {}", parameterName,
+                    current.get().getVersion(), e.getMessage());
+            return false;
+        } catch (RuntimeException e) {
+            logger.warn("Unable to load decision table {}; keeping version {}: {}", parameterName,
+                    current.get().getVersion(), e.getMessage());
+            return false;
+        } finally {
+            checking.set(false);
+        }
+    }
+
+    private static String getEnv(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+}
@@ -0,0 +1,48 @@
+package com.ldc.workflow.config;
+
+import com.ldc.workflow.service.audit.AuditSink;
+import com.ldc.workflow.service.audit.DynamoDbAuditSink;
+import com.ldc.workflow.service.audit.JournalAuditSink;
+import com.ldc.workflow.service.audit.StructuredLogAuditSink;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Selects the audit sink from environment variables.
+ *
+ * AUDIT_SINK                      dynamodb (default) | log | journal
+ * AUDIT_TABLE_NAME / AUDIT_TABLE  audit table, required for dynamodb
+ * AUDIT_JOURNAL_PATH              journal file, default /tmp/ldc-audit/audit.journal
+ * AUDIT_JOURNAL_BATCH_SIZE        records per fsync, default 256
+ * AUDIT_JOURNAL_MAX_DELAY_MS      max wait to fill a batch, default 5
+ *
+ * "log" takes audit off the synchronous invocation path entirely in Lambda;
+ * "journal" does the same for long-running server deployments.
+ */
+@Configuration
+public class AuditSinkConfig {
+
+    @Bean
+    public AuditSink auditSink(DynamoDbClient dynamoDbClient) {
+        String sink = getEnv("AUDIT_SINK", "dynamodb").toLowerCase(Locale.ROOT);
+        return switch (sink) {
+            case "dynamodb" -> new DynamoDbAuditSink(dynamoDbClient, DynamoDbAuditSink.resolveTableName());
+            case "log" -> new StructuredLogAuditSink(System.out);
+            case "journal" -> new JournalAuditSink(
+                    Path.of(getEnv("AUDIT_JOURNAL_PATH", "/tmp/ldc-audit/audit.journal")),
+                    Integer.parseInt(getEnv("AUDIT_JOURNAL_BATCH_SIZE", "256")),
+                    Long.parseLong(getEnv("AUDIT_JOURNAL_MAX_DELAY_MS", "5")));
+            default -> throw new IllegalArgumentException("Unknown AUDIT_SINK: " + sink
+                    + ". Must be one of: dynamodb, log, journal");
+        };
+    }
+
+    private static String getEnv(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+}
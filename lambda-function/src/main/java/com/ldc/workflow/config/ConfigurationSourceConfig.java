@@ -0,0 +1,69 @@
+package com.ldc.workflow.config;
+
+import com.ldc.workflow.service.configuration.ConfigurationSource;
+import com.ldc.workflow.service.configuration.EnvironmentConfigurationSource;
+import com.ldc.workflow.service.configuration.FileConfigurationSource;
+import com.ldc.workflow.service.configuration.LambdaExtensionConfigurationSource;
+import com.ldc.workflow.service.configuration.LayeredConfigurationSource;
+import com.ldc.workflow.service.configuration.SsmConfigurationSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.services.ssm.SsmClient;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Builds the configuration source chain from environment variables.
+ *
+ * CONFIG_SOURCES  comma-separated layers in priority order, default "env,ssm".
+ *                 Layers: env, file, extension, ssm
+ * CONFIG_FILE     properties file for the "file" layer
+ *
+ * Typical chains:
+ * - Lambda with the Parameters and Secrets extension layer: env,extension,ssm
+ * - server mode or local runs: env,file
+ */
+@Configuration
+public class ConfigurationSourceConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConfigurationSourceConfig.class);
+
+    @Bean
+    public ConfigurationSource configurationSource(SsmClient ssmClient) {
+        String sources = System.getenv("CONFIG_SOURCES");
+        if (sources == null || sources.isEmpty()) {
+            sources = "env,ssm";
+        }
+
+        List<ConfigurationSource> layers = new ArrayList<>();
+        for (String source : sources.split(",")) {
+            String layer = source.trim().toLowerCase(Locale.ROOT);
+            switch (layer) {
+                case "env" -> layers.add(new EnvironmentConfigurationSource());
+                case "file" -> layers.add(new FileConfigurationSource(Path.of(requireEnv("CONFIG_FILE"))));
+                case "extension" -> layers.add(new LambdaExtensionConfigurationSource());
+                case "ssm" -> layers.add(new SsmConfigurationSource(ssmClient));
+                case "" -> { }
+                default -> throw new IllegalArgumentException("Unknown configuration source: " + layer
+                        + ". Must be one of: env, file, extension, ssm");
+            }
+        }
+
+        LayeredConfigurationSource chain = new LayeredConfigurationSource(layers);
+        logger.info("Configuration sources: {}", chain.name());
+        return chain;
+    }
+
+    private static String requireEnv(String name) {
+        String value = System.getenv(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException(name + " environment variable is required");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,77 @@
+package com.ldc.workflow.config;
+
+import com.ldc.workflow.repository.JdbcLoanAttributeSource;
+import com.ldc.workflow.repository.LoanAttributeSource;
+import com.ldc.workflow.repository.WorkflowStateAttributeSource;
+import com.ldc.workflow.repository.WorkflowStateRepository;
+import com.ldc.workflow.service.ConfigurationService;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Locale;
+
+/**
+ * Selects where loan attribute decisions are read from, from environment variables.
+ *
+ * LOAN_ATTRIBUTE_SOURCE                  dynamodb (default) | postgres
+ * LOAN_DB_JDBC_URL                       jdbc:postgresql://host:5432/db (the RDS Proxy endpoint), required for postgres
+ * LOAN_DB_USER                           database user
+ * LOAN_DB_PASSWORD_PARAMETER             SecureString parameter holding the password
+ * LOAN_DB_POOL_SIZE                      connections per instance, default 2
+ * LOAN_DB_CONNECTION_TIMEOUT_MS          wait for a pooled connection, default 3000
+ * LOAN_DB_MAX_LIFETIME_SECONDS           default 1500, below RDS Proxy's 1800 s idle client timeout
+ * LOAN_ATTRIBUTES_QUERY_TIMEOUT_SECONDS  default 5
+ * LOAN_ATTRIBUTES_BATCH_SIZE             loans per query in a batched read, default 500
+ *
+ * The pool is HikariCP. It connects on first use rather than at start-up, keeps no
+ * idle minimum, and checks a connection that sat idle (an instance frozen between
+ * invocations) before handing it out.
+ */
+@Configuration
+public class LoanAttributeSourceConfig {
+
+    @Bean
+    public LoanAttributeSource loanAttributeSource(WorkflowStateRepository workflowStateRepository,
+                                                   ConfigurationService configurationService) {
+        String source = getEnv("LOAN_ATTRIBUTE_SOURCE", "dynamodb").toLowerCase(Locale.ROOT);
+        return switch (source) {
+            case "dynamodb" -> new WorkflowStateAttributeSource(workflowStateRepository);
+            case "postgres" -> new JdbcLoanAttributeSource(dataSource(configurationService),
+                    Integer.parseInt(getEnv("LOAN_ATTRIBUTES_QUERY_TIMEOUT_SECONDS", "5")),
+                    Integer.parseInt(getEnv("LOAN_ATTRIBUTES_BATCH_SIZE", "500")));
+            default -> throw new IllegalArgumentException("Unknown LOAN_ATTRIBUTE_SOURCE: " + source
+                    + ". Must be one of: dynamodb, postgres");
+        };
+    }
+
+    private static HikariDataSource dataSource(ConfigurationService configurationService) {
+        String url = getEnv("LOAN_DB_JDBC_URL", "");
+        if (url.isEmpty()) {
+            throw new IllegalArgumentException("LOAN_DB_JDBC_URL environment variable is required");
+        }
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("loan-attributes");
+        config.setJdbcUrl(url);
+        config.setUsername(getEnv("LOAN_DB_USER", ""));
+        String passwordParameter = getEnv("LOAN_DB_PASSWORD_PARAMETER", "");
+        if (!passwordParameter.isEmpty()) {
+            config.setPassword(configurationService.getParameter(passwordParameter));
+        }
+        config.addDataSourceProperty("ApplicationName", "ldc-loan-review-lambda");
+        // Use server-side prepared statements from the first execution on a connection
+        config.addDataSourceProperty("prepareThreshold", "1");
+        config.setMaximumPoolSize(Integer.parseInt(getEnv("LOAN_DB_POOL_SIZE", "2")));
+        config.setMinimumIdle(0);
+        config.setInitializationFailTimeout(-1);
+        config.setConnectionTimeout(Long.parseLong(getEnv("LOAN_DB_CONNECTION_TIMEOUT_MS", "3000")));
+        config.setMaxLifetime(Long.parseLong(getEnv("LOAN_DB_MAX_LIFETIME_SECONDS", "1500")) * 1000);
+        return new HikariDataSource(config);
+    }
+
+    private static String getEnv(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+}
@@ -0,0 +1,51 @@
+package com.ldc.workflow.config;
+
+import com.ldc.workflow.service.notification.EmailSender;
+import com.ldc.workflow.service.notification.LogEmailSender;
+import com.ldc.workflow.service.notification.SesEmailSender;
+import com.ldc.workflow.service.notification.SmtpEmailSender;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Selects the notification email backend from environment variables.
+ *
+ * NOTIFICATION_SENDER         ses (default) | smtp | log
+ * AWS_REGION                  SES region, default us-east-1
+ * SES_ENDPOINT                SES endpoint override (VPC endpoint, local stub)
+ * SMTP_HOST / SMTP_PORT       relay for smtp, default localhost:25
+ * NOTIFICATION_TIMEOUT_MS     per-request (ses) or per-read (smtp) timeout, default 5000
+ */
+@Configuration
+public class NotificationSenderConfig {
+
+    @Bean
+    public EmailSender emailSender() {
+        String sender = getEnv("NOTIFICATION_SENDER", "ses").toLowerCase(Locale.ROOT);
+        int timeoutMillis = Integer.parseInt(getEnv("NOTIFICATION_TIMEOUT_MS", "5000"));
+        return switch (sender) {
+            case "ses" -> {
+                String region = getEnv("AWS_REGION", "us-east-1");
+                String endpoint = getEnv("SES_ENDPOINT", "");
+                yield new SesEmailSender(endpoint.isEmpty() ? SesEmailSender.defaultEndpoint(region)
+                        : URI.create(endpoint), region, DefaultCredentialsProvider.create(),
+                        Duration.ofMillis(timeoutMillis));
+            }
+            case "smtp" -> new SmtpEmailSender(getEnv("SMTP_HOST", "localhost"),
+                    Integer.parseInt(getEnv("SMTP_PORT", "25")), timeoutMillis);
+            case "log" -> new LogEmailSender(System.out);
+            default -> throw new IllegalArgumentException("Unknown NOTIFICATION_SENDER: " + sender
+                    + ". Must be one of: ses, smtp, log");
+        };
+    }
+
+    private static String getEnv(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+}
@@ -0,0 +1,444 @@
+package com.ldc.workflow.handlers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ldc.workflow.business.CompletionCriteriaChecker;
+import com.ldc.workflow.business.DecisionSummary;
+import com.ldc.workflow.repository.LoanAttributeSource;
+import com.ldc.workflow.repository.WorkflowStateRepository;
+import com.ldc.workflow.service.StepFunctionsService;
+import com.ldc.workflow.types.LoanAttribute;
+import com.ldc.workflow.types.WorkflowState;
+import com.ldc.workflow.types.WorkflowStateKey;
+import com.ldc.workflow.types.WorkflowStateReference;
+import com.ldc.workflow.util.TokenBucketRateLimiter;
+import com.ldc.workflow.validation.AttributeDecisionValidator;
+import com.ldc.workflow.validation.LoanNumberValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * API handler for applying loan and attribute decisions to many loans at once,
+ * then resuming each loan's Step Functions execution.
+ *
+ * Processing happens in phases so a bad item never leaves the batch half written:
+ * 1. every item is validated before anything is read or written;
+ * 2. current states are loaded with BatchGetItem and the changes saved with
+ *    WorkflowStateRepository.saveAllDecisions: version-conditioned updates in
+ *    TransactWriteItems batches, so a decision or task token written since the read
+ *    is never overwritten (that item is reported SAVE_FAILED and can be resent);
+ * 3. executions whose loan decision is now complete are resumed with SendTaskSuccess,
+ *    at most BULK_RESUME_CONCURRENCY calls in flight and paced by a token bucket
+ *    sized to the SendTaskSuccess quota. Incomplete loans are saved and keep waiting.
+ *    Completion is judged from the configured LoanAttributeSource, read once per request.
+ *    A retryable resume failure stores the task token again, so resending the item
+ *    resumes the execution; TaskTimedOut means the execution has already moved on.
+ *
+ * Input: JSON with items[] (requestNumber, loanNumber, taskToken, optional
+ * loanDecision and attributes); top-level loanDecision/attributes apply to every
+ * item that does not set its own. taskToken falls back to the stored token.
+ * Output: JSON with per-item results and counts by status
+ *
+ * Environment variables:
+ * BULK_UPDATE_MAX_ITEMS          items accepted per call, default 500
+ * BULK_RESUME_CONCURRENCY        SendTaskSuccess calls in flight, default 64
+ * BULK_RESUME_RATE_PER_SECOND    token refill rate, default 500
+ * BULK_RESUME_BURST              token bucket size, default 800
+ * (the rate defaults match the SendTaskSuccess quota in the larger regions;
+ * lower them when other callers share that quota)
+ */
+@Component("bulkLoanDecisionUpdateApiHandler")
+public class BulkLoanDecisionUpdateApiHandler implements Function<JsonNode, JsonNode> {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkLoanDecisionUpdateApiHandler.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Outcome of one item.
+     */
+    public enum ItemStatus {
+        RESUMED, PENDING_DECISIONS, INVALID, NOT_FOUND, NO_TASK_TOKEN, SAVE_FAILED, RESUME_FAILED
+    }
+
+    private final AttributeDecisionValidator attributeDecisionValidator;
+    private final LoanNumberValidator loanNumberValidator;
+    private final CompletionCriteriaChecker completionCriteriaChecker;
+    private final WorkflowStateRepository workflowStateRepository;
+    private final StepFunctionsService stepFunctionsService;
+    private final LoanAttributeSource attributeSource;
+    private final TokenBucketRateLimiter resumeRateLimiter;
+    private final int maxConcurrency;
+    private final int maxItems;
+    private final boolean compactOutput = WorkflowStateReference.isCompactOutputEnabled();
+
+    @Autowired
+    public BulkLoanDecisionUpdateApiHandler(AttributeDecisionValidator attributeDecisionValidator,
+            LoanNumberValidator loanNumberValidator,
+            CompletionCriteriaChecker completionCriteriaChecker,
+            WorkflowStateRepository workflowStateRepository,
+            StepFunctionsService stepFunctionsService,
+            LoanAttributeSource attributeSource) {
+        this(attributeDecisionValidator, loanNumberValidator, completionCriteriaChecker, workflowStateRepository,
+                stepFunctionsService, attributeSource,
+                new TokenBucketRateLimiter(getIntEnv("BULK_RESUME_RATE_PER_SECOND", 500),
+                        getIntEnv("BULK_RESUME_BURST", 800)),
+                getIntEnv("BULK_RESUME_CONCURRENCY", 64),
+                getIntEnv("BULK_UPDATE_MAX_ITEMS", 500));
+    }
+
+    public BulkLoanDecisionUpdateApiHandler(AttributeDecisionValidator attributeDecisionValidator,
+            LoanNumberValidator loanNumberValidator,
+            CompletionCriteriaChecker completionCriteriaChecker,
+            WorkflowStateRepository workflowStateRepository,
+            StepFunctionsService stepFunctionsService,
+            TokenBucketRateLimiter resumeRateLimiter,
+            int maxConcurrency,
+            int maxItems) {
+        this(attributeDecisionValidator, loanNumberValidator, completionCriteriaChecker, workflowStateRepository,
+                stepFunctionsService, null, resumeRateLimiter, maxConcurrency, maxItems);
+    }
+
+    /**
+     * @param attributeSource null, or one reading the workflow state, for the attributes on the state item
+     */
+    public BulkLoanDecisionUpdateApiHandler(AttributeDecisionValidator attributeDecisionValidator,
+            LoanNumberValidator loanNumberValidator,
+            CompletionCriteriaChecker completionCriteriaChecker,
+            WorkflowStateRepository workflowStateRepository,
+            StepFunctionsService stepFunctionsService,
+            LoanAttributeSource attributeSource,
+            TokenBucketRateLimiter resumeRateLimiter,
+            int maxConcurrency,
+            int maxItems) {
+        this.attributeDecisionValidator = attributeDecisionValidator;
+        this.loanNumberValidator = loanNumberValidator;
+        this.completionCriteriaChecker = completionCriteriaChecker;
+        this.workflowStateRepository = workflowStateRepository;
+        this.stepFunctionsService = stepFunctionsService;
+        this.attributeSource = attributeSource;
+        this.resumeRateLimiter = resumeRateLimiter;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.maxItems = maxItems;
+    }
+
+    @Override
+    public JsonNode apply(JsonNode input) {
+        try {
+            JsonNode itemsNode = input.get("items");
+            if (itemsNode == null || !itemsNode.isArray() || itemsNode.isEmpty()) {
+                return createErrorResponse("items must be a non-empty array");
+            }
+            if (itemsNode.size() > maxItems) {
+                return createErrorResponse("Too many items: " + itemsNode.size() + " (maximum " + maxItems + ")");
+            }
+            logger.info("Bulk loan decision update invoked for {} items", itemsNode.size());
+
+            // Phase 1: validate everything before touching storage
+            List<Item> items = parseAndValidate(itemsNode, input.get("loanDecision"), input.get("attributes"));
+
+            // Phase 2: load, merge and persist in batches
+            List<Item> valid = new ArrayList<>();
+            for (Item item : items) {
+                if (item.status == null) {
+                    valid.add(item);
+                }
+            }
+            List<Item> completed = persist(valid);
+
+            // Phase 3: resume completed executions concurrently within the quota
+            resume(completed);
+
+            return createResponse(items);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Bulk loan decision update interrupted", e);
+            return createErrorResponse("Interrupted: " + e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error in bulk loan decision update API handler", e);
+            return createErrorResponse("Internal error: " + e.getMessage());
+        }
+    }
+
+    private List<Item> parseAndValidate(JsonNode itemsNode, JsonNode defaultDecision, JsonNode defaultAttributes)
+            throws Exception {
+        List<LoanAttribute> sharedAttributes = readAttributes(defaultAttributes);
+        Set<WorkflowStateKey> seen = new HashSet<>();
+        List<Item> items = new ArrayList<>(itemsNode.size());
+
+        for (JsonNode node : itemsNode) {
+            Item item = new Item(text(node, "requestNumber"), text(node, "loanNumber"));
+            items.add(item);
+            item.taskToken = text(node, "taskToken");
+            item.loanDecision = node.has("loanDecision") ? text(node, "loanDecision") : textOrNull(defaultDecision);
+            try {
+                item.attributes = node.has("attributes") ? readAttributes(node.get("attributes")) : sharedAttributes;
+            } catch (Exception e) {
+                item.fail(ItemStatus.INVALID, "Malformed attributes: " + e.getMessage());
+                continue;
+            }
+
+            String error = validate(item);
+            if (error == null && !seen.add(item.key())) {
+                error = "Duplicate item for the same loan";
+            }
+            if (error != null) {
+                item.fail(ItemStatus.INVALID, error);
+            }
+        }
+        return items;
+    }
+
+    private String validate(Item item) {
+        if (item.requestNumber == null || item.requestNumber.isEmpty()) {
+            return "requestNumber is required";
+        }
+        if (!loanNumberValidator.isValid(item.loanNumber)) {
+            return "Invalid loanNumber: must match " + loanNumberValidator.getPattern();
+        }
+        if (item.loanDecision == null && item.attributes == null) {
+            return "Nothing to update: loanDecision or attributes is required";
+        }
+        if (item.attributes != null) {
+            for (LoanAttribute attribute : item.attributes) {
+                if (!attributeDecisionValidator.isValid(attribute.getAttributeDecision())) {
+                    return "Invalid attribute decision: " + attribute.getAttributeName();
+                }
+            }
+        }
+        return null;
+    }
+
+    private List<Item> persist(List<Item> valid) {
+        if (valid.isEmpty()) {
+            return valid;
+        }
+        List<WorkflowStateKey> keys = new ArrayList<>(valid.size());
+        for (Item item : valid) {
+            keys.add(item.key());
+        }
+        Map<WorkflowStateKey, WorkflowState> states = workflowStateRepository.findAll(keys);
+        Map<String, Map<String, DecisionSummary>> summaries = summarizeFromSource(keys);
+
+        Map<WorkflowStateKey, Item> toSave = new HashMap<>();
+        Map<WorkflowStateKey, DecisionSummary> previous = new HashMap<>();
+        List<WorkflowState> updated = new ArrayList<>();
+        for (Item item : valid) {
+            WorkflowState state = states.get(item.key());
+            if (state == null) {
+                item.fail(ItemStatus.NOT_FOUND, "Workflow state not found");
+                continue;
+            }
+            // The counters move by the difference from what was read
+            previous.put(item.key(), DecisionSummary.of(state.getAttributes()));
+            if (item.loanDecision != null && !item.loanDecision.isEmpty()) {
+                state.setLoanDecision(item.loanDecision);
+            }
+            if (item.attributes != null) {
+                state.setAttributes(item.attributes);
+            }
+            if (item.taskToken == null || item.taskToken.isEmpty()) {
+                item.taskToken = state.getTaskToken();
+            }
+
+            boolean complete = summaries == null
+                    ? completionCriteriaChecker.isLoanDecisionComplete(state.getLoanDecision(), state.getAttributes())
+                    : completionCriteriaChecker.isLoanDecisionComplete(state.getLoanDecision(),
+                            summaries.get(item.requestNumber).get(item.loanNumber));
+            if (!complete) {
+                item.status = ItemStatus.PENDING_DECISIONS;
+            } else if (item.taskToken == null || item.taskToken.isEmpty()) {
+                item.fail(ItemStatus.NO_TASK_TOKEN, "Saved, but no task token supplied or stored");
+            } else {
+                // A token is good for one callback
+                state.setTaskToken(null);
+            }
+            item.state = state;
+            toSave.put(item.key(), item);
+            updated.add(state);
+        }
+
+        for (WorkflowStateKey failed : workflowStateRepository.saveAllDecisions(updated, previous)) {
+            toSave.remove(failed).fail(ItemStatus.SAVE_FAILED,
+                    "Failed to save workflow state: changed since it was read, or the write failed");
+        }
+        List<Item> completed = new ArrayList<>();
+        for (Item item : toSave.values()) {
+            if (item.status == null) {
+                completed.add(item);
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * @return summaries by request and loan number, or null when the attributes are the ones on the state items
+     */
+    private Map<String, Map<String, DecisionSummary>> summarizeFromSource(List<WorkflowStateKey> keys) {
+        if (attributeSource == null || attributeSource.isWorkflowState()) {
+            return null;
+        }
+        Map<String, List<String>> loansByRequest = new LinkedHashMap<>();
+        for (WorkflowStateKey key : keys) {
+            loansByRequest.computeIfAbsent(key.getRequestNumber(), r -> new ArrayList<>()).add(key.getLoanNumber());
+        }
+        Map<String, Map<String, DecisionSummary>> summaries = new HashMap<>();
+        loansByRequest.forEach((requestNumber, loanNumbers) ->
+                summaries.put(requestNumber, attributeSource.summarizeAll(requestNumber, loanNumbers)));
+        return summaries;
+    }
+
+    private void resume(List<Item> completed) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(maxConcurrency);
+        List<CompletableFuture<Void>> calls = new ArrayList<>(completed.size());
+
+        for (Item item : completed) {
+            String output;
+            try {
+                output = objectMapper.writeValueAsString(
+                        compactOutput ? WorkflowStateReference.of(item.state) : item.state);
+            } catch (Exception e) {
+                item.fail(ItemStatus.RESUME_FAILED, "Unable to serialize state: " + e.getMessage());
+                continue;
+            }
+            resumeRateLimiter.acquire();
+            inFlight.acquire();
+            calls.add(stepFunctionsService.sendTaskSuccessAsync(item.taskToken, output)
+                    .handle((ignored, error) -> {
+                        inFlight.release();
+                        if (error != null) {
+                            Throwable cause = error.getCause() != null ? error.getCause() : error;
+                            item.fail(ItemStatus.RESUME_FAILED, cause.getMessage());
+                            item.resumeError = cause;
+                        } else {
+                            item.status = ItemStatus.RESUMED;
+                        }
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0])).join();
+
+        for (Item item : completed) {
+            if (item.resumeError != null) {
+                restoreTaskToken(item);
+            }
+        }
+    }
+
+    /**
+     * The saved state no longer carries the token; put it back unless the execution
+     * has stopped waiting on it.
+     */
+    private void restoreTaskToken(Item item) {
+        if (item.resumeError instanceof StepFunctionsService.StepFunctionsException stepFunctionsError
+                && !stepFunctionsError.isRetryable()) {
+            logger.warn("Execution for requestNumber: {}, loanNumber: {} no longer waiting: {}",
+                    item.requestNumber, item.loanNumber, item.resumeError.getMessage());
+            return;
+        }
+        try {
+            workflowStateRepository.saveTaskToken(item.requestNumber, item.loanNumber, item.taskToken);
+        } catch (Exception e) {
+            // The wait state's timeout still moves the execution on
+            logger.error("Unable to restore task token for requestNumber: {}, loanNumber: {}",
+                    item.requestNumber, item.loanNumber, e);
+        }
+    }
+
+    private static List<LoanAttribute> readAttributes(JsonNode node) throws Exception {
+        if (node == null || node.isNull()) {
+            return null;
+        }
+        return objectMapper.readValue(objectMapper.treeAsTokens(node),
+                objectMapper.getTypeFactory().constructCollectionType(List.class, LoanAttribute.class));
+    }
+
+    private static String text(JsonNode node, String field) {
+        return textOrNull(node.get(field));
+    }
+
+    private static String textOrNull(JsonNode node) {
+        return node == null || node.isNull() ? null : node.asText();
+    }
+
+    private JsonNode createResponse(List<Item> items) {
+        Map<ItemStatus, Integer> counts = new EnumMap<>(ItemStatus.class);
+        ArrayNode results = objectMapper.createArrayNode();
+        for (Item item : items) {
+            counts.merge(item.status, 1, Integer::sum);
+            ObjectNode result = results.addObject()
+                    .put("requestNumber", item.requestNumber)
+                    .put("loanNumber", item.loanNumber)
+                    .put("status", item.status.name());
+            if (item.error != null) {
+                result.put("error", item.error);
+            }
+        }
+
+        int resumed = counts.getOrDefault(ItemStatus.RESUMED, 0);
+        int pending = counts.getOrDefault(ItemStatus.PENDING_DECISIONS, 0);
+        ObjectNode response = objectMapper.createObjectNode()
+                .put("success", resumed + pending == items.size())
+                .put("total", items.size())
+                .put("resumed", resumed)
+                .put("pending", pending)
+                .put("failed", items.size() - resumed - pending);
+        ObjectNode countsNode = response.putObject("counts");
+        counts.forEach((status, count) -> countsNode.put(status.name(), count));
+        response.set("results", results);
+        logger.info("Bulk loan decision update finished: {}", counts);
+        return response;
+    }
+
+    private JsonNode createErrorResponse(String error) {
+        return objectMapper.createObjectNode()
+                .put("success", false)
+                .put("error", error);
+    }
+
+    private static int getIntEnv(String name, int defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static final class Item {
+        private final String requestNumber;
+        private final String loanNumber;
+        private String taskToken;
+        private String loanDecision;
+        private List<LoanAttribute> attributes;
+        private WorkflowState state;
+        private volatile ItemStatus status;
+        private volatile String error;
+        private volatile Throwable resumeError;
+
+        private Item(String requestNumber, String loanNumber) {
+            this.requestNumber = requestNumber;
+            this.loanNumber = loanNumber;
+        }
+
+        private WorkflowStateKey key() {
+            return new WorkflowStateKey(requestNumber, loanNumber);
+        }
+
+        private void fail(ItemStatus status, String error) {
+            this.error = error;
+            this.status = status;
+        }
+    }
+}
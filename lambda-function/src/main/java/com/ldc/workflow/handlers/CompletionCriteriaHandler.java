@@ -3,23 +3,34 @@ package com.ldc.workflow.handlers;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ldc.workflow.business.CompletionCriteriaChecker;
+import com.ldc.workflow.business.DecisionSummary;
+import com.ldc.workflow.business.PollIntervalCalculator;
 import com.ldc.workflow.repository.WorkflowStateRepository;
+import com.ldc.workflow.types.DecisionProgress;
 import com.ldc.workflow.types.LoanAttribute;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Function;
 
 /**
  * Lambda handler for completion criteria validation.
  * Checks if loan decision is complete (all attributes non-null/non-Pending and
  * loan decision non-null).
+ *
+ * Completion is decided from the decision counters stored on the item, so a poll
+ * does not read or parse the attribute list; the blocking reason then gives the
+ * number of incomplete attributes rather than their names. Items without counters
+ * are read in full.
  * 
  * Input: JSON with requestNumber, loanNumber, loanDecision, attributes
- * Output: JSON with completion status and blocking reasons if incomplete
+ * Output: JSON with completion status, blocking reasons if incomplete and
+ * nextPollSeconds, the back-off a polling state should wait before checking again
  */
 @Component("completionCriteriaHandler")
 public class CompletionCriteriaHandler implements Function<JsonNode, JsonNode> {
@@ -29,11 +40,19 @@ public class CompletionCriteriaHandler implements Function<JsonNode, JsonNode> {
 
     private final CompletionCriteriaChecker completionCriteriaChecker;
     private final WorkflowStateRepository workflowStateRepository;
+    private final PollIntervalCalculator pollIntervalCalculator;
 
     public CompletionCriteriaHandler(CompletionCriteriaChecker completionCriteriaChecker,
             WorkflowStateRepository workflowStateRepository) {
+        this(completionCriteriaChecker, workflowStateRepository, new PollIntervalCalculator());
+    }
+
+    @Autowired
+    public CompletionCriteriaHandler(CompletionCriteriaChecker completionCriteriaChecker,
+            WorkflowStateRepository workflowStateRepository, PollIntervalCalculator pollIntervalCalculator) {
         this.completionCriteriaChecker = completionCriteriaChecker;
         this.workflowStateRepository = workflowStateRepository;
+        this.pollIntervalCalculator = pollIntervalCalculator;
     }
 
     @Override
@@ -50,14 +69,34 @@ public class CompletionCriteriaHandler implements Function<JsonNode, JsonNode> {
             logger.debug("Checking completion criteria for requestNumber: {}, loanNumber: {}",
                     requestNumber, loanNumber);
 
-            // Fetch from DynamoDB
-            java.util.Optional<com.ldc.workflow.types.WorkflowState> stateOpt = workflowStateRepository
-                    .findByRequestNumberAndLoanNumber(requestNumber, loanNumber);
+            // Poll the stored counters first: a projected read of a few numbers, not the attribute list
+            Long minVersion = input.hasNonNull("version") ? input.get("version").asLong() : null;
+            Optional<DecisionProgress> progress = workflowStateRepository.findDecisionProgress(requestNumber,
+                    loanNumber, minVersion);
+            if (progress.isPresent() && progress.get().hasCounters()) {
+                DecisionSummary summary = DecisionSummary.fromCounters(progress.get());
+                String loanDecision = progress.get().getLoanDecision();
+                boolean isComplete = completionCriteriaChecker.isLoanDecisionComplete(loanDecision, summary);
+                logger.info("Loan decision completion status: {} for requestNumber: {} (from counters)",
+                        isComplete, requestNumber);
+                return createSuccessResponse(requestNumber, loanNumber, isComplete,
+                        isComplete ? null : completionCriteriaChecker.getIncompleteReason(loanDecision, summary),
+                        pollIntervalCalculator.nextPollSeconds(progress.get().getCreatedAt(),
+                                progress.get().getUpdatedAt()));
+            }
+
+            // No item, or one written before the counters existed: read the whole state.
+            // A claim-check version pins the read to at least that write
+            java.util.Optional<com.ldc.workflow.types.WorkflowState> stateOpt = input.hasNonNull("version")
+                    ? workflowStateRepository.findAtLeastVersion(requestNumber, loanNumber,
+                            input.get("version").asLong())
+                    : workflowStateRepository.findByRequestNumberAndLoanNumber(requestNumber, loanNumber);
 
             if (stateOpt.isEmpty()) {
                 logger.warn("Workflow state not found for completion check. Request: {}", requestNumber);
                 // If state not found, we can't be complete.
-                return createSuccessResponse(requestNumber, loanNumber, false, "Workflow state not found");
+                return createSuccessResponse(requestNumber, loanNumber, false, "Workflow state not found",
+                        pollIntervalCalculator.getMinSeconds());
             }
 
             com.ldc.workflow.types.WorkflowState state = stateOpt.get();
@@ -74,12 +113,13 @@ public class CompletionCriteriaHandler implements Function<JsonNode, JsonNode> {
             logger.info("Loan decision completion status: {} for requestNumber: {}",
                     isComplete, requestNumber);
 
+            int nextPollSeconds = pollIntervalCalculator.nextPollSeconds(state);
             if (isComplete) {
-                return createSuccessResponse(requestNumber, loanNumber, true, null);
+                return createSuccessResponse(requestNumber, loanNumber, true, null, nextPollSeconds);
             } else {
                 String reason = completionCriteriaChecker.getIncompleteReason(
                         loanDecision, attributes);
-                return createSuccessResponse(requestNumber, loanNumber, false, reason);
+                return createSuccessResponse(requestNumber, loanNumber, false, reason, nextPollSeconds);
             }
         } catch (Exception e) {
             logger.error("Error in completion criteria handler", e);
@@ -89,12 +129,13 @@ public class CompletionCriteriaHandler implements Function<JsonNode, JsonNode> {
     }
 
     private JsonNode createSuccessResponse(String requestNumber, String loanNumber,
-            boolean isComplete, String blockingReason) {
+            boolean isComplete, String blockingReason, int nextPollSeconds) {
         var response = objectMapper.createObjectNode()
                 .put("success", true)
                 .put("requestNumber", requestNumber)
                 .put("loanNumber", loanNumber)
-                .put("complete", isComplete);
+                .put("complete", isComplete)
+                .put("nextPollSeconds", nextPollSeconds);
 
         if (blockingReason != null) {
             response.put("blockingReasons", blockingReason);
@@ -0,0 +1,66 @@
+package com.ldc.workflow.handlers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ldc.workflow.repository.DecisionCounterVerifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+/**
+ * Lambda handler that checks the decision counters stored on workflow state items
+ * against their attributes and repairs drift. Meant for a scheduled run or an
+ * operator invocation; no state machine calls it.
+ *
+ * Input: JSON with optional requestNumber + loanNumber (one item; otherwise the
+ * whole table is scanned) and optional repair (default true)
+ * Output: JSON with the outcome for one item, or scanned/drifted/repaired/conflicts
+ * for a scan
+ */
+@Component("decisionCounterVerificationHandler")
+public class DecisionCounterVerificationHandler implements Function<JsonNode, JsonNode> {
+
+    private static final Logger logger = LoggerFactory.getLogger(DecisionCounterVerificationHandler.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final DecisionCounterVerifier decisionCounterVerifier;
+
+    public DecisionCounterVerificationHandler(DecisionCounterVerifier decisionCounterVerifier) {
+        this.decisionCounterVerifier = decisionCounterVerifier;
+    }
+
+    @Override
+    public JsonNode apply(JsonNode input) {
+        try {
+            logger.info("Decision counter verification handler invoked");
+            boolean repair = input.path("repair").asBoolean(true);
+
+            if (input.hasNonNull("requestNumber") && input.hasNonNull("loanNumber")) {
+                String requestNumber = input.get("requestNumber").asText();
+                String loanNumber = input.get("loanNumber").asText();
+                DecisionCounterVerifier.Outcome outcome =
+                        decisionCounterVerifier.verify(requestNumber, loanNumber, repair);
+                return objectMapper.createObjectNode()
+                        .put("success", true)
+                        .put("requestNumber", requestNumber)
+                        .put("loanNumber", loanNumber)
+                        .put("outcome", outcome.name());
+            }
+
+            DecisionCounterVerifier.Report report = decisionCounterVerifier.verifyAll(repair);
+            return objectMapper.createObjectNode()
+                    .put("success", true)
+                    .put("scanned", report.getScanned())
+                    .put("drifted", report.getDrifted())
+                    .put("repaired", report.getRepaired())
+                    .put("conflicts", report.getConflicts());
+        } catch (Exception e) {
+            logger.error("Error in decision counter verification handler", e);
+            return objectMapper.createObjectNode()
+                    .put("success", false)
+                    .put("error", "Internal error: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.ldc.workflow.handlers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ldc.workflow.repository.WorkflowStateRepository;
+import com.ldc.workflow.service.NotificationService;
+import com.ldc.workflow.types.WorkflowState;
+import com.ldc.workflow.types.WorkflowStateKey;
+import com.ldc.workflow.util.InvocationDeadline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Lambda handler for workflow email notifications (Requirement 6: an email is
+ * sent when a loan is decided as Repurchase).
+ *
+ * The notification is queued with NotificationService, which batches, sends and
+ * retries it in the background. A notification never fails the workflow: the
+ * handler reports success whether the email was sent, is still queued, or could
+ * not be sent (which is logged). In a Lambda invocation, which is frozen once it
+ * returns, the handler waits up to NOTIFICATION_FLUSH_MS (default 2000), bounded
+ * by the time left in the invocation, for the send to complete; in server mode
+ * it returns at once.
+ *
+ * Batch mode (applyBatch): a Distributed Map ItemBatcher payload queues all of
+ * its loans, reading their states with one batch read, and waits once for all.
+ *
+ * Input: JSON with requestNumber, loanNumber and optional notificationType
+ * (default repurchase)
+ * Output: JSON with success and notification: SENT, QUEUED, FAILED or SKIPPED
+ * (no workflow state)
+ */
+@Component("emailNotificationHandler")
+public class EmailNotificationHandler implements Function<JsonNode, JsonNode> {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailNotificationHandler.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String DEFAULT_TYPE = "repurchase";
+    private static final long RESPONSE_MARGIN_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final WorkflowStateRepository workflowStateRepository;
+    private final NotificationService notificationService;
+    private final long flushNanos;
+
+    @Autowired
+    public EmailNotificationHandler(WorkflowStateRepository workflowStateRepository,
+                                    NotificationService notificationService) {
+        this(workflowStateRepository, notificationService, TimeUnit.MILLISECONDS.toNanos(
+                Long.parseLong(getEnv("NOTIFICATION_FLUSH_MS", "2000"))));
+    }
+
+    public EmailNotificationHandler(WorkflowStateRepository workflowStateRepository,
+                                    NotificationService notificationService, long flushNanos) {
+        this.workflowStateRepository = workflowStateRepository;
+        this.notificationService = notificationService;
+        this.flushNanos = flushNanos;
+    }
+
+    @Override
+    public JsonNode apply(JsonNode input) {
+        String requestNumber = input.path("requestNumber").asText(null);
+        String loanNumber = input.path("loanNumber").asText(null);
+        String type = input.path("notificationType").asText(DEFAULT_TYPE);
+        try {
+            logger.info("Email notification handler invoked for {} notification", type);
+
+            Optional<WorkflowState> stateOpt = workflowStateRepository.findByRequestNumberAndLoanNumber(
+                    requestNumber, loanNumber);
+            if (stateOpt.isEmpty()) {
+                logger.warn("Workflow state not found for requestNumber: {}, loanNumber: {}; no notification sent",
+                        requestNumber, loanNumber);
+                return createResponse(requestNumber, loanNumber, type, "SKIPPED", "Workflow state not found");
+            }
+
+            CompletableFuture<Void> sent = notificationService.notify(type, stateOpt.get());
+            long waitNanos = waitNanos();
+            if (waitNanos > 0) {
+                notificationService.flush();
+                await(List.of(sent), waitNanos);
+            }
+            return createResponse(requestNumber, loanNumber, type, outcome(sent), error(sent));
+        } catch (Exception e) {
+            logger.error("Error queueing {} notification for loanNumber: {}", type, loanNumber, e);
+            return createResponse(requestNumber, loanNumber, type, "FAILED", e.getMessage());
+        }
+    }
+
+    /**
+     * Notify for every loan of an ItemBatcher payload: {"BatchInput": {...}, "Items":
+     * [{"requestNumber", "loanNumber"}, ...]}, with fields missing from an item
+     * taken from BatchInput.
+     */
+    public JsonNode applyBatch(JsonNode batch) {
+        JsonNode batchInput = batch.path("BatchInput");
+        JsonNode items = batch.path("Items");
+        String type = batchInput.path("notificationType").asText(DEFAULT_TYPE);
+        logger.info("Email notification batch invoked with {} items", items.size());
+
+        List<WorkflowStateKey> keys = new ArrayList<>(items.size());
+        for (JsonNode item : items) {
+            keys.add(new WorkflowStateKey(field(item, batchInput, "requestNumber"),
+                    field(item, batchInput, "loanNumber")));
+        }
+        ArrayNode results = objectMapper.createArrayNode();
+        Map<WorkflowStateKey, WorkflowState> states;
+        try {
+            states = workflowStateRepository.findAll(keys);
+        } catch (Exception e) {
+            logger.error("Error reading workflow states for notification batch", e);
+            for (WorkflowStateKey key : keys) {
+                results.add(createResponse(key.getRequestNumber(), key.getLoanNumber(), type, "FAILED",
+                        e.getMessage()));
+            }
+            return batchResponse(results, keys.size());
+        }
+
+        List<CompletableFuture<Void>> sends = new ArrayList<>(keys.size());
+        for (WorkflowStateKey key : keys) {
+            WorkflowState state = states.get(key);
+            sends.add(state == null ? null : notificationService.notify(type, state));
+        }
+        long waitNanos = waitNanos();
+        if (waitNanos > 0) {
+            notificationService.flush();
+            await(sends, waitNanos);
+        }
+
+        for (int i = 0; i < keys.size(); i++) {
+            WorkflowStateKey key = keys.get(i);
+            CompletableFuture<Void> sent = sends.get(i);
+            results.add(sent == null
+                    ? createResponse(key.getRequestNumber(), key.getLoanNumber(), type, "SKIPPED",
+                            "Workflow state not found")
+                    : createResponse(key.getRequestNumber(), key.getLoanNumber(), type, outcome(sent),
+                            error(sent)));
+        }
+        return batchResponse(results, keys.size());
+    }
+
+    /**
+     * How long to wait for sends: nothing in server mode, where the process keeps
+     * running, otherwise the flush budget within the invocation's remaining time.
+     */
+    private long waitNanos() {
+        long deadline = InvocationDeadline.deadlineNanos();
+        if (deadline == Long.MAX_VALUE) {
+            return 0;
+        }
+        return Math.min(flushNanos, deadline - RESPONSE_MARGIN_NANOS - System.nanoTime());
+    }
+
+    private static void await(List<CompletableFuture<Void>> sends, long waitNanos) {
+        CompletableFuture<?>[] pending = sends.stream().filter(f -> f != null).toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(pending).get(waitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Timed out or a send failed; each future is reported on its own
+        }
+    }
+
+    private static String outcome(CompletableFuture<Void> sent) {
+        if (!sent.isDone()) {
+            return "QUEUED";
+        }
+        return sent.isCompletedExceptionally() ? "FAILED" : "SENT";
+    }
+
+    private static String error(CompletableFuture<Void> sent) {
+        if (!sent.isCompletedExceptionally()) {
+            return null;
+        }
+        try {
+            sent.join();
+            return null;
+        } catch (Exception e) {
+            return e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+        }
+    }
+
+    private static String field(JsonNode item, JsonNode batchInput, String name) {
+        JsonNode value = item.hasNonNull(name) ? item.get(name) : batchInput.get(name);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private JsonNode batchResponse(ArrayNode results, int total) {
+        ObjectNode response = objectMapper.createObjectNode()
+                .put("success", true)
+                .put("total", total);
+        response.set("items", results);
+        return response;
+    }
+
+    private ObjectNode createResponse(String requestNumber, String loanNumber, String type, String outcome,
+                                      String error) {
+        ObjectNode response = objectMapper.createObjectNode()
+                .put("success", true)
+                .put("requestNumber", requestNumber)
+                .put("loanNumber", loanNumber)
+                .put("notificationType", type)
+                .put("notification", outcome);
+        if (error != null) {
+            response.put("error", error);
+        }
+        return response;
+    }
+
+    private static String getEnv(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+}
@@ -2,13 +2,20 @@ package com.ldc.workflow.handlers;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ldc.workflow.business.AttributePatch;
+import com.ldc.workflow.business.CompletionCriteriaChecker;
+import com.ldc.workflow.business.DecisionSummary;
+import com.ldc.workflow.repository.LoanAttributeSource;
+import com.ldc.workflow.repository.StaleWorkflowStateException;
 import com.ldc.workflow.repository.WorkflowStateRepository;
 import com.ldc.workflow.service.StepFunctionsService;
 import com.ldc.workflow.types.LoanAttribute;
 import com.ldc.workflow.types.WorkflowState;
+import com.ldc.workflow.types.WorkflowStateReference;
 import com.ldc.workflow.validation.AttributeDecisionValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -19,27 +26,88 @@ import java.util.function.Function;
  * API handler for updating loan decision and attribute decisions, then resuming
  * Step Functions.
  * Called when user updates loan or attribute decisions via API.
- * 
- * Input: JSON with requestNumber, executionId, loanDecision, attributes,
- * taskToken
- * Output: JSON with update status
+ *
+ * The execution is resumed only once the update makes the loan decision
+ * complete; earlier updates are saved and the execution keeps waiting. The
+ * task token comes from the request or, if absent, from the token stored by
+ * LoanDecisionWaitHandler. The stored token is removed only after the callback
+ * has been sent, and only if it is still the one that was read, so an update
+ * whose callback fails can be retried.
+ *
+ * Completion is judged from the same LoanAttributeSource LoanEvaluationHandler
+ * reads. With LOAN_ATTRIBUTE_SOURCE=postgres the attributes sent here are still
+ * saved on the state item, but only loan_attributes decides whether to resume.
+ *
+ * The change is written with WorkflowStateRepository.saveDecisions, which moves
+ * the stored decision counters in the same write; if another writer got in
+ * between the read and the write, the state is read again and the update
+ * re-applied, up to three times.
+ *
+ * Attributes are either replaced whole ("attributes") or patched by name
+ * ("attributeUpdates", see AttributePatch), so a single edit does not have to
+ * send every attribute of the loan. Only the decisions a patch changes are
+ * validated, and a patch that changes nothing is not written.
+ *
+ * Input: JSON with requestNumber, executionId, loanDecision, and either
+ * attributes or attributeUpdates, optional taskToken
+ * Output: JSON with update status and whether the workflow was resumed
  */
 @Component("loanDecisionUpdateApiHandler")
 public class LoanDecisionUpdateApiHandler implements Function<JsonNode, JsonNode> {
 
     private static final Logger logger = LoggerFactory.getLogger(LoanDecisionUpdateApiHandler.class);
     private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int MAX_SAVE_ATTEMPTS = 3;
 
     private final AttributeDecisionValidator attributeDecisionValidator;
+    private final CompletionCriteriaChecker completionCriteriaChecker;
     private final WorkflowStateRepository workflowStateRepository;
     private final StepFunctionsService stepFunctionsService;
+    private final LoanAttributeSource attributeSource;
+    private final boolean compactOutput;
 
     public LoanDecisionUpdateApiHandler(AttributeDecisionValidator attributeDecisionValidator,
+            CompletionCriteriaChecker completionCriteriaChecker,
             WorkflowStateRepository workflowStateRepository,
             StepFunctionsService stepFunctionsService) {
+        this(attributeDecisionValidator, completionCriteriaChecker, workflowStateRepository, stepFunctionsService,
+                (LoanAttributeSource) null);
+    }
+
+    /**
+     * @param attributeSource null, or one reading the workflow state, for the attributes on the state item
+     */
+    @Autowired
+    public LoanDecisionUpdateApiHandler(AttributeDecisionValidator attributeDecisionValidator,
+            CompletionCriteriaChecker completionCriteriaChecker,
+            WorkflowStateRepository workflowStateRepository,
+            StepFunctionsService stepFunctionsService,
+            LoanAttributeSource attributeSource) {
+        this(attributeDecisionValidator, completionCriteriaChecker, workflowStateRepository, stepFunctionsService,
+                attributeSource, WorkflowStateReference.isCompactOutputEnabled());
+    }
+
+    public LoanDecisionUpdateApiHandler(AttributeDecisionValidator attributeDecisionValidator,
+            CompletionCriteriaChecker completionCriteriaChecker,
+            WorkflowStateRepository workflowStateRepository,
+            StepFunctionsService stepFunctionsService,
+            boolean compactOutput) {
+        this(attributeDecisionValidator, completionCriteriaChecker, workflowStateRepository, stepFunctionsService,
+                null, compactOutput);
+    }
+
+    public LoanDecisionUpdateApiHandler(AttributeDecisionValidator attributeDecisionValidator,
+            CompletionCriteriaChecker completionCriteriaChecker,
+            WorkflowStateRepository workflowStateRepository,
+            StepFunctionsService stepFunctionsService,
+            LoanAttributeSource attributeSource,
+            boolean compactOutput) {
         this.attributeDecisionValidator = attributeDecisionValidator;
+        this.completionCriteriaChecker = completionCriteriaChecker;
         this.workflowStateRepository = workflowStateRepository;
         this.stepFunctionsService = stepFunctionsService;
+        this.attributeSource = attributeSource;
+        this.compactOutput = compactOutput;
     }
 
     @Override
@@ -51,55 +119,119 @@ public class LoanDecisionUpdateApiHandler implements Function<JsonNode, JsonNode
             String requestNumber = input.get("requestNumber").asText();
             String executionId = input.get("executionId").asText();
             String loanDecision = input.has("loanDecision") ? input.get("loanDecision").asText() : null;
-            String taskToken = input.get("taskToken").asText();
+            String taskToken = input.hasNonNull("taskToken") ? input.get("taskToken").asText() : null;
+            JsonNode attributesNode = input.hasNonNull("attributes") ? input.get("attributes") : null;
+            AttributePatch patch;
+            try {
+                patch = input.hasNonNull("attributeUpdates") ? AttributePatch.parse(input.get("attributeUpdates"))
+                        : null;
+            } catch (IllegalArgumentException e) {
+                return createErrorResponse(requestNumber, e.getMessage());
+            }
+            if (attributesNode != null && patch != null) {
+                return createErrorResponse(requestNumber, "Send either attributes or attributeUpdates, not both");
+            }
 
             logger.debug("Updating loan decision for requestNumber: {}, loanDecision: {}",
                     requestNumber, loanDecision);
 
-            // Retrieve workflow state from DynamoDB using executionId composite key
-            // Note: We use executionId to derive loanNumber for this lookup
-            Optional<WorkflowState> stateOpt = workflowStateRepository.findByRequestNumberAndLoanNumber(
-                    requestNumber, executionId); // Using executionId as temporary workaround - should extract
-                                                 // loanNumber from state
+            WorkflowState state;
+            String resumeToken;
+            for (int attempt = 1; ; attempt++) {
+                // Retrieve workflow state from DynamoDB using executionId composite key
+                // Note: We use executionId to derive loanNumber for this lookup
+                Optional<WorkflowState> stateOpt = workflowStateRepository.findByRequestNumberAndLoanNumber(
+                        requestNumber, executionId); // Using executionId as temporary workaround - should extract
+                                                     // loanNumber from state
 
-            if (stateOpt.isEmpty()) {
-                logger.warn("Workflow state not found for requestNumber: {}, executionId: {}",
-                        requestNumber, executionId);
-                return createErrorResponse(requestNumber, "Workflow state not found");
-            }
+                if (stateOpt.isEmpty()) {
+                    logger.warn("Workflow state not found for requestNumber: {}, executionId: {}",
+                            requestNumber, executionId);
+                    return createErrorResponse(requestNumber, "Workflow state not found");
+                }
 
-            WorkflowState state = stateOpt.get();
+                state = stateOpt.get();
+                DecisionSummary previous = DecisionSummary.of(state.getAttributes());
+                boolean changed = false;
 
-            // Update loan decision if provided
-            if (loanDecision != null && !loanDecision.isEmpty()) {
-                state.setLoanDecision(loanDecision);
-            }
+                // Update loan decision if provided
+                if (loanDecision != null && !loanDecision.isEmpty()) {
+                    changed = !loanDecision.equals(state.getLoanDecision());
+                    state.setLoanDecision(loanDecision);
+                }
 
-            // Update attribute decisions if provided
-            if (input.has("attributes") && !input.get("attributes").isNull()) {
-                List<LoanAttribute> updatedAttributes = objectMapper.readValue(
-                        objectMapper.writeValueAsString(input.get("attributes")),
-                        objectMapper.getTypeFactory().constructCollectionType(java.util.List.class,
-                                LoanAttribute.class));
-
-                // Validate all attribute decisions
-                for (LoanAttribute attr : updatedAttributes) {
-                    if (!attributeDecisionValidator.isValid(attr.getAttributeDecision())) {
-                        logger.warn("Invalid attribute decision: {}", attr.getAttributeDecision());
-                        return createErrorResponse(requestNumber,
-                                "Invalid attribute decision: " + attr.getAttributeName());
+                // Replace or patch attribute decisions if provided; validate what is written
+                List<LoanAttribute> written = null;
+                if (attributesNode != null) {
+                    written = objectMapper.readValue(objectMapper.treeAsTokens(attributesNode),
+                            objectMapper.getTypeFactory().constructCollectionType(List.class, LoanAttribute.class));
+                    state.setAttributes(written);
+                    changed = true;
+                } else if (patch != null) {
+                    AttributePatch.Merge merge = patch.mergeInto(state.getAttributes());
+                    written = merge.getChanged();
+                    if (!written.isEmpty()) {
+                        state.setAttributes(merge.getAttributes());
+                        changed = true;
+                    }
+                }
+                if (written != null) {
+                    for (LoanAttribute attr : written) {
+                        if (!attributeDecisionValidator.isValid(attr.getAttributeDecision())) {
+                            logger.warn("Invalid attribute decision: {}", attr.getAttributeDecision());
+                            return createErrorResponse(requestNumber,
+                                    "Invalid attribute decision: " + attr.getAttributeName());
+                        }
                     }
                 }
 
-                state.setAttributes(updatedAttributes);
-            }
+                resumeToken = taskToken != null && !taskToken.isEmpty() ? taskToken : state.getTaskToken();
+                if (!changed && patch != null) {
+                    // A repeated patch: nothing to write, but it may still complete the decision
+                    break;
+                }
 
-            // Save updated state
-            workflowStateRepository.save(state);
+                // Save the change; the counters move by the difference from what was read
+                try {
+                    workflowStateRepository.saveDecisions(state, previous);
+                    break;
+                } catch (StaleWorkflowStateException e) {
+                    if (attempt >= MAX_SAVE_ATTEMPTS) {
+                        throw e;
+                    }
+                    logger.info("Workflow state changed while updating requestNumber: {}; retrying", requestNumber);
+                }
+            }
             logger.info("Loan decision updated successfully for requestNumber: {}", requestNumber);
 
-            // Resume Step Functions execution
-            resumeStepFunctionsExecution(taskToken, state);
+            // Resume only when this update completes the decision; otherwise keep waiting
+            if (attributeSource == null || attributeSource.isWorkflowState()) {
+                if (!completionCriteriaChecker.isLoanDecisionComplete(state.getLoanDecision(),
+                        state.getAttributes())) {
+                    return createPendingResponse(requestNumber, loanDecision,
+                            completionCriteriaChecker.getIncompleteReason(state.getLoanDecision(),
+                                    state.getAttributes()));
+                }
+            } else {
+                DecisionSummary summary = attributeSource.summarize(requestNumber, state.getLoanNumber());
+                if (!completionCriteriaChecker.isLoanDecisionComplete(state.getLoanDecision(), summary)) {
+                    return createPendingResponse(requestNumber, loanDecision,
+                            completionCriteriaChecker.getIncompleteReason(state.getLoanDecision(), summary));
+                }
+            }
+            if (resumeToken == null) {
+                // The wait state's timeout re-checks completion, so the execution still moves on
+                logger.warn("Loan decision complete but no task token stored for requestNumber: {}",
+                        requestNumber);
+                return createPendingResponse(requestNumber, loanDecision, "No execution is waiting on this loan");
+            }
+
+            // Resume Step Functions execution; a failed send leaves the stored token for a retry
+            resumeStepFunctionsExecution(resumeToken, state);
+            if (state.getTaskToken() != null) {
+                // A token is good for one callback
+                clearTaskToken(state);
+            }
 
             return createSuccessResponse(requestNumber, loanDecision);
         } catch (Exception e) {
@@ -110,7 +242,9 @@ public class LoanDecisionUpdateApiHandler implements Function<JsonNode, JsonNode
 
     private void resumeStepFunctionsExecution(String taskToken, WorkflowState state) {
         try {
-            String output = objectMapper.writeValueAsString(state);
+            // Claim check: the execution reads details back from DynamoDB
+            String output = objectMapper.writeValueAsString(
+                    compactOutput ? WorkflowStateReference.of(state) : state);
             stepFunctionsService.sendTaskSuccess(taskToken, output);
             logger.info("Step Functions execution resumed successfully, taskToken: {}", taskToken);
         } catch (Exception e) {
@@ -119,14 +253,34 @@ public class LoanDecisionUpdateApiHandler implements Function<JsonNode, JsonNode
         }
     }
 
+    private void clearTaskToken(WorkflowState state) {
+        try {
+            workflowStateRepository.clearTaskToken(state.getRequestNumber(), state.getLoanNumber(),
+                    state.getTaskToken());
+        } catch (RuntimeException e) {
+            // The execution has been resumed; a later callback on the spent token is refused by Step Functions
+            logger.warn("Could not clear the task token for requestNumber: {}", state.getRequestNumber(), e);
+        }
+    }
+
     private JsonNode createSuccessResponse(String requestNumber, String loanDecision) {
         return objectMapper.createObjectNode()
                 .put("success", true)
                 .put("requestNumber", requestNumber)
                 .put("loanDecision", loanDecision)
+                .put("resumed", true)
                 .put("message", "Loan decision updated and workflow resumed successfully");
     }
 
+    private JsonNode createPendingResponse(String requestNumber, String loanDecision, String reason) {
+        return objectMapper.createObjectNode()
+                .put("success", true)
+                .put("requestNumber", requestNumber)
+                .put("loanDecision", loanDecision)
+                .put("resumed", false)
+                .put("message", "Loan decision updated; workflow not resumed: " + reason);
+    }
+
     private JsonNode createErrorResponse(String requestNumber, String error) {
         return objectMapper.createObjectNode()
                 .put("success", false)
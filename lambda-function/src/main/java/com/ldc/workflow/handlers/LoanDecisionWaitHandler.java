@@ -0,0 +1,133 @@
+package com.ldc.workflow.handlers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ldc.workflow.business.CompletionCriteriaChecker;
+import com.ldc.workflow.repository.LoanAttributeSource;
+import com.ldc.workflow.repository.WorkflowStateRepository;
+import com.ldc.workflow.service.StepFunctionsService;
+import com.ldc.workflow.types.WorkflowState;
+import com.ldc.workflow.types.WorkflowStateReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Lambda handler that parks an execution until the loan decision is complete.
+ * Invoked from the WaitForLoanDecision state with lambda:invoke.waitForTaskToken.
+ *
+ * Stores the task token on the workflow state so LoanDecisionUpdateApiHandler
+ * can resume the execution once the last decision arrives. If the decision is
+ * already complete when the wait starts, the execution is resumed immediately.
+ * Completion is judged from the same LoanAttributeSource LoanEvaluationHandler
+ * reads, so a resumed execution is never sent straight back to the wait.
+ *
+ * Input: JSON with requestNumber, loanNumber, taskToken
+ * Output: JSON with registration status (the execution itself waits for the token)
+ */
+@Component("loanDecisionWaitHandler")
+public class LoanDecisionWaitHandler implements Function<JsonNode, JsonNode> {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoanDecisionWaitHandler.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Error reported to Step Functions when the wait cannot be registered; retried by the ASL.
+     */
+    static final String WAIT_FAILED_ERROR = "LoanDecisionWaitFailed";
+
+    private final CompletionCriteriaChecker completionCriteriaChecker;
+    private final WorkflowStateRepository workflowStateRepository;
+    private final StepFunctionsService stepFunctionsService;
+    private final LoanAttributeSource attributeSource;
+
+    public LoanDecisionWaitHandler(CompletionCriteriaChecker completionCriteriaChecker,
+            WorkflowStateRepository workflowStateRepository,
+            StepFunctionsService stepFunctionsService) {
+        this(completionCriteriaChecker, workflowStateRepository, stepFunctionsService, null);
+    }
+
+    /**
+     * @param attributeSource null, or one reading the workflow state, for the attributes on the state item
+     */
+    @Autowired
+    public LoanDecisionWaitHandler(CompletionCriteriaChecker completionCriteriaChecker,
+            WorkflowStateRepository workflowStateRepository,
+            StepFunctionsService stepFunctionsService,
+            LoanAttributeSource attributeSource) {
+        this.completionCriteriaChecker = completionCriteriaChecker;
+        this.workflowStateRepository = workflowStateRepository;
+        this.stepFunctionsService = stepFunctionsService;
+        this.attributeSource = attributeSource;
+    }
+
+    @Override
+    public JsonNode apply(JsonNode input) {
+        String requestNumber = input.path("requestNumber").asText("unknown");
+        String loanNumber = input.path("loanNumber").asText("unknown");
+        String taskToken = input.path("taskToken").asText(null);
+        if (taskToken == null || taskToken.isEmpty()) {
+            return createErrorResponse(requestNumber, loanNumber, "Missing taskToken");
+        }
+
+        try {
+            logger.info("Loan Decision Wait handler invoked");
+
+            Optional<WorkflowState> stateOpt = workflowStateRepository.saveTaskToken(requestNumber, loanNumber,
+                    taskToken);
+            if (stateOpt.isEmpty()) {
+                stepFunctionsService.sendTaskFailure(taskToken, "WorkflowStateNotFound",
+                        "No workflow state for " + requestNumber + "/" + loanNumber);
+                return createErrorResponse(requestNumber, loanNumber, "Workflow state not found");
+            }
+
+            WorkflowState state = stateOpt.get();
+            boolean complete = isComplete(state);
+            if (complete) {
+                // Decisions landed before the wait started: nothing will call back, so resume now
+                logger.info("Loan decision already complete for requestNumber: {}, resuming", requestNumber);
+                stepFunctionsService.sendTaskSuccess(taskToken,
+                        objectMapper.writeValueAsString(WorkflowStateReference.of(state)));
+            }
+
+            return createSuccessResponse(requestNumber, loanNumber, complete);
+        } catch (Exception e) {
+            logger.error("Error in loan decision wait handler", e);
+            try {
+                stepFunctionsService.sendTaskFailure(taskToken, WAIT_FAILED_ERROR, e.getMessage());
+            } catch (Exception failure) {
+                // The state's TimeoutSeconds still bounds the wait
+                logger.error("Unable to report wait failure to Step Functions", failure);
+            }
+            return createErrorResponse(requestNumber, loanNumber, "Internal error: " + e.getMessage());
+        }
+    }
+
+    private boolean isComplete(WorkflowState state) {
+        if (attributeSource == null || attributeSource.isWorkflowState()) {
+            return completionCriteriaChecker.isLoanDecisionComplete(state.getLoanDecision(), state.getAttributes());
+        }
+        return completionCriteriaChecker.isLoanDecisionComplete(state.getLoanDecision(),
+                attributeSource.summarize(state.getRequestNumber(), state.getLoanNumber()));
+    }
+
+    private JsonNode createSuccessResponse(String requestNumber, String loanNumber, boolean complete) {
+        return objectMapper.createObjectNode()
+                .put("success", true)
+                .put("requestNumber", requestNumber)
+                .put("loanNumber", loanNumber)
+                .put("complete", complete);
+    }
+
+    private JsonNode createErrorResponse(String requestNumber, String loanNumber, String error) {
+        return objectMapper.createObjectNode()
+                .put("success", false)
+                .put("requestNumber", requestNumber)
+                .put("loanNumber", loanNumber)
+                .put("error", error);
+    }
+}
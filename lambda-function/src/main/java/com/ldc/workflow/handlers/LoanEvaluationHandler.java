@@ -0,0 +1,245 @@
+package com.ldc.workflow.handlers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ldc.workflow.business.CompletionCriteriaChecker;
+import com.ldc.workflow.business.DecisionSummary;
+import com.ldc.workflow.business.LoanStatusDeterminer;
+import com.ldc.workflow.repository.LoanAttributeSource;
+import com.ldc.workflow.repository.WorkflowStateRepository;
+import com.ldc.workflow.types.DecisionProgress;
+import com.ldc.workflow.types.LoanAttribute;
+import com.ldc.workflow.types.WorkflowState;
+import com.ldc.workflow.types.WorkflowStateKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Lambda handler that evaluates completion and loan status from a single read.
+ * Replaces the CheckCompletionCriteria + DetermineLoanStatus pair in the state
+ * machine: the workflow state is fetched once and the attribute list is used for
+ * both the completion criteria and the status rules. A loan whose stored decision
+ * counters show it complete is evaluated from those alone.
+ *
+ * When the attributes come from another LoanAttributeSource (LOAN_ATTRIBUTE_SOURCE=postgres)
+ * the state item is read only for its loan decision and timestamps, and the attributes
+ * only as a summary; the blocking reason then gives counts rather than names.
+ *
+ * Batch mode (applyBatch): a Distributed Map ItemBatcher payload, e.g. a bulk
+ * re-evaluation, reads its states with one batch read and the attribute summaries
+ * of each request with one batched source read, and reports each loan.
+ *
+ * Input: JSON with requestNumber, loanNumber and optional version
+ * Output: JSON with complete, blockingReason (when incomplete), status and
+ * attributeCount
+ */
+@Component("loanEvaluationHandler")
+public class LoanEvaluationHandler implements Function<JsonNode, JsonNode> {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoanEvaluationHandler.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final CompletionCriteriaChecker completionCriteriaChecker;
+    private final LoanStatusDeterminer loanStatusDeterminer;
+    private final WorkflowStateRepository workflowStateRepository;
+    private final LoanAttributeSource attributeSource;
+
+    public LoanEvaluationHandler(CompletionCriteriaChecker completionCriteriaChecker,
+            LoanStatusDeterminer loanStatusDeterminer, WorkflowStateRepository workflowStateRepository) {
+        this(completionCriteriaChecker, loanStatusDeterminer, workflowStateRepository, null);
+    }
+
+    /**
+     * @param attributeSource null, or one reading the workflow state, for the attributes on the state item
+     */
+    @Autowired
+    public LoanEvaluationHandler(CompletionCriteriaChecker completionCriteriaChecker,
+            LoanStatusDeterminer loanStatusDeterminer, WorkflowStateRepository workflowStateRepository,
+            LoanAttributeSource attributeSource) {
+        this.completionCriteriaChecker = completionCriteriaChecker;
+        this.loanStatusDeterminer = loanStatusDeterminer;
+        this.workflowStateRepository = workflowStateRepository;
+        this.attributeSource = attributeSource;
+    }
+
+    @Override
+    public JsonNode apply(JsonNode input) {
+        String requestNumber = input.path("requestNumber").asText("unknown");
+        String loanNumber = input.path("loanNumber").asText("unknown");
+        try {
+            logger.info("Loan evaluation handler invoked");
+
+            Long minVersion = input.hasNonNull("version") ? input.get("version").asLong() : null;
+            if (attributeSource != null && !attributeSource.isWorkflowState()) {
+                return evaluateFromSource(requestNumber, loanNumber, minVersion);
+            }
+
+            // Try the stored counters first; they settle a complete loan without the attribute list
+            Optional<DecisionProgress> progress = workflowStateRepository.findDecisionProgress(requestNumber,
+                    loanNumber, minVersion);
+            if (progress.isPresent() && progress.get().hasCounters()) {
+                DecisionSummary summary = DecisionSummary.fromCounters(progress.get());
+                if (completionCriteriaChecker.isLoanDecisionComplete(progress.get().getLoanDecision(), summary)) {
+                    String loanStatus = loanStatusDeterminer.determineStatus(summary);
+                    logger.info("Loan evaluated from counters: status={} for requestNumber: {}",
+                            loanStatus, requestNumber);
+                    return createEvaluatedResponse(requestNumber, loanNumber, true, loanStatus, summary.size());
+                }
+            }
+
+            // Incomplete (the reason names the attributes), missing, or written before the
+            // counters existed. A claim-check version pins the read to at least that write
+            Optional<WorkflowState> stateOpt = input.hasNonNull("version")
+                    ? workflowStateRepository.findAtLeastVersion(requestNumber, loanNumber,
+                            input.get("version").asLong())
+                    : workflowStateRepository.findByRequestNumberAndLoanNumber(requestNumber, loanNumber);
+
+            if (stateOpt.isEmpty()) {
+                logger.warn("Workflow state not found for loan evaluation. Request: {}", requestNumber);
+                return createErrorResponse(requestNumber, loanNumber, "Workflow state not found");
+            }
+
+            WorkflowState state = stateOpt.get();
+            List<LoanAttribute> attributes = state.getAttributes() != null ? state.getAttributes() : List.of();
+
+            DecisionSummary summary = DecisionSummary.of(attributes);
+            boolean isComplete = completionCriteriaChecker.isLoanDecisionComplete(state.getLoanDecision(), summary);
+            String loanStatus = loanStatusDeterminer.determineStatus(summary);
+            logger.info("Loan evaluated: complete={}, status={} for requestNumber: {}",
+                    isComplete, loanStatus, requestNumber);
+
+            ObjectNode response = createEvaluatedResponse(requestNumber, loanNumber, isComplete, loanStatus,
+                    attributes.size());
+            if (!isComplete) {
+                response.put("blockingReason",
+                        completionCriteriaChecker.getIncompleteReason(state.getLoanDecision(), attributes));
+            }
+            return response;
+        } catch (Exception e) {
+            logger.error("Error in loan evaluation handler", e);
+            return createErrorResponse(requestNumber, loanNumber, "Internal error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Evaluate every loan of an ItemBatcher payload. Items carry loanNumber and
+     * requestNumber, either of which may come from BatchInput instead; version is
+     * not applied.
+     */
+    public JsonNode applyBatch(JsonNode batch) {
+        JsonNode batchInput = batch.path("BatchInput");
+        JsonNode items = batch.path("Items");
+        logger.info("Loan evaluation batch invoked with {} items", items.size());
+
+        List<WorkflowStateKey> keys = new ArrayList<>(items.size());
+        Map<String, List<String>> loansByRequest = new LinkedHashMap<>();
+        for (JsonNode item : items) {
+            WorkflowStateKey key = new WorkflowStateKey(field(item, batchInput, "requestNumber"),
+                    field(item, batchInput, "loanNumber"));
+            keys.add(key);
+            loansByRequest.computeIfAbsent(key.getRequestNumber(), r -> new ArrayList<>()).add(key.getLoanNumber());
+        }
+        ArrayNode results = objectMapper.createArrayNode();
+        try {
+            Map<WorkflowStateKey, WorkflowState> states = workflowStateRepository.findAll(keys);
+            boolean fromSource = attributeSource != null && !attributeSource.isWorkflowState();
+            Map<String, Map<String, DecisionSummary>> summaries = new LinkedHashMap<>();
+            if (fromSource) {
+                loansByRequest.forEach((requestNumber, loanNumbers) ->
+                        summaries.put(requestNumber, attributeSource.summarizeAll(requestNumber, loanNumbers)));
+            }
+
+            for (WorkflowStateKey key : keys) {
+                WorkflowState state = states.get(key);
+                if (state == null) {
+                    results.add(createErrorResponse(key.getRequestNumber(), key.getLoanNumber(),
+                            "Workflow state not found"));
+                    continue;
+                }
+                List<LoanAttribute> attributes = state.getAttributes() != null ? state.getAttributes() : List.of();
+                DecisionSummary summary = fromSource
+                        ? summaries.get(key.getRequestNumber()).get(key.getLoanNumber())
+                        : DecisionSummary.of(attributes);
+                boolean isComplete = completionCriteriaChecker.isLoanDecisionComplete(state.getLoanDecision(),
+                        summary);
+                ObjectNode response = createEvaluatedResponse(key.getRequestNumber(), key.getLoanNumber(),
+                        isComplete, loanStatusDeterminer.determineStatus(summary), summary.size());
+                if (!isComplete) {
+                    response.put("blockingReason", fromSource
+                            ? completionCriteriaChecker.getIncompleteReason(state.getLoanDecision(), summary)
+                            : completionCriteriaChecker.getIncompleteReason(state.getLoanDecision(), attributes));
+                }
+                results.add(response);
+            }
+        } catch (Exception e) {
+            logger.error("Error in loan evaluation batch", e);
+            results.removeAll();
+            for (WorkflowStateKey key : keys) {
+                results.add(createErrorResponse(key.getRequestNumber(), key.getLoanNumber(),
+                        "Internal error: " + e.getMessage()));
+            }
+        }
+        ObjectNode response = objectMapper.createObjectNode()
+                .put("success", true)
+                .put("total", keys.size());
+        response.set("items", results);
+        return response;
+    }
+
+    private static String field(JsonNode item, JsonNode batchInput, String name) {
+        JsonNode value = item.hasNonNull(name) ? item.get(name) : batchInput.get(name);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private JsonNode evaluateFromSource(String requestNumber, String loanNumber, Long minVersion) {
+        Optional<DecisionProgress> progress = workflowStateRepository.findDecisionProgress(requestNumber,
+                loanNumber, minVersion);
+        if (progress.isEmpty()) {
+            logger.warn("Workflow state not found for loan evaluation. Request: {}", requestNumber);
+            return createErrorResponse(requestNumber, loanNumber, "Workflow state not found");
+        }
+        String loanDecision = progress.get().getLoanDecision();
+        DecisionSummary summary = attributeSource.summarize(requestNumber, loanNumber);
+        boolean isComplete = completionCriteriaChecker.isLoanDecisionComplete(loanDecision, summary);
+        String loanStatus = loanStatusDeterminer.determineStatus(summary);
+        logger.info("Loan evaluated from {}: complete={}, status={} for requestNumber: {}",
+                attributeSource.name(), isComplete, loanStatus, requestNumber);
+
+        ObjectNode response = createEvaluatedResponse(requestNumber, loanNumber, isComplete, loanStatus,
+                summary.size());
+        if (!isComplete) {
+            response.put("blockingReason", completionCriteriaChecker.getIncompleteReason(loanDecision, summary));
+        }
+        return response;
+    }
+
+    private ObjectNode createEvaluatedResponse(String requestNumber, String loanNumber, boolean isComplete,
+            String loanStatus, int attributeCount) {
+        return objectMapper.createObjectNode()
+                .put("success", true)
+                .put("requestNumber", requestNumber)
+                .put("loanNumber", loanNumber)
+                .put("complete", isComplete)
+                .put("status", loanStatus)
+                .put("attributeCount", attributeCount);
+    }
+
+    private JsonNode createErrorResponse(String requestNumber, String loanNumber, String error) {
+        return objectMapper.createObjectNode()
+                .put("success", false)
+                .put("requestNumber", requestNumber)
+                .put("loanNumber", loanNumber)
+                .put("error", error);
+    }
+}
@@ -2,6 +2,9 @@ package com.ldc.workflow.handlers;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ldc.workflow.util.InvocationDeadline;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,14 +22,32 @@ import java.util.function.Function;
  * 
  * Handler Types:
  * - reviewTypeValidation: Validates and stores review type
+ * - confirmClaimCheck: Confirms a bulk-started loan's claim check against the stored state
  * - attributeValidation: Validates attribute decisions
  * - completionCriteria: Checks if loan decision is complete
+ * - loanDecisionWait: Stores the task token of an execution waiting for decisions
+ * - reclassConfirmationWait: Stores the task token of an execution waiting for a reclass confirmation
  * - loanStatusDetermination: Determines final loan status
+ * - evaluateLoan: Checks completion and determines status from one read
  * - emailNotification: Sends email notifications
  * - vendPpaIntegration: Calls Vend PPA API
+ * - vendPpaEnqueue: Queues the final decision for Vend PPA in the outbox
+ * - vendPpaAckWait: Stores the task token of an execution waiting for Vend PPA to accept its loan
+ * - vendPpaOutboxSweep: Redelivers outbox rows whose lease has run out
  * - sqsHandler: Adds message to SQS queue
  * - auditTrail: Logs state transitions
  * - reclassTimerExpiration: Handles reclass timer expiration
+ * - verifyDecisionCounters: Recomputes stored decision counters and repairs drift
+ *
+ * Batch mode: a Distributed Map ItemBatcher payload ({"BatchInput": {...},
+ * "Items": [...]}) carries its handlerType in BatchInput and is handed to the
+ * handler's batch entry point in one invocation. reviewTypeValidation,
+ * evaluateLoan, emailNotification and vendPpaIntegration support batches.
+ *
+ * SQS events ({"Records": [...]}) from the reclass confirmation queue go to
+ * ReclassConfirmationHandler, which reports partial batch failures. DynamoDB
+ * stream events (eventSource aws:dynamodb) from the Vend PPA outbox go to
+ * VendPpaOutboxHandler.
  */
 @Component("loanReviewRouter")
 public class LoanReviewRouter implements Function<JsonNode, JsonNode> {
@@ -40,18 +61,68 @@ public class LoanReviewRouter implements Function<JsonNode, JsonNode> {
     @Autowired(required = false)
     private CompletionCriteriaHandler completionCriteriaHandler;
 
+    @Autowired(required = false)
+    private LoanDecisionWaitHandler loanDecisionWaitHandler;
+
+    @Autowired(required = false)
+    private ReclassConfirmationWaitHandler reclassConfirmationWaitHandler;
+
+    @Autowired(required = false)
+    private ReclassConfirmationHandler reclassConfirmationHandler;
+
     @Autowired(required = false)
     private LoanStatusDeterminationHandler loanStatusDeterminationHandler;
 
+    @Autowired(required = false)
+    private LoanEvaluationHandler loanEvaluationHandler;
+
+    @Autowired(required = false)
+    private EmailNotificationHandler emailNotificationHandler;
+
     @Autowired(required = false)
     private VendPpaIntegrationHandler vendPpaIntegrationHandler;
 
+    @Autowired(required = false)
+    private VendPpaEnqueueHandler vendPpaEnqueueHandler;
+
+    @Autowired(required = false)
+    private VendPpaAckWaitHandler vendPpaAckWaitHandler;
+
+    @Autowired(required = false)
+    private VendPpaOutboxHandler vendPpaOutboxHandler;
+
     @Autowired(required = false)
     private AuditTrailHandler auditTrailHandler;
 
+    @Autowired(required = false)
+    private DecisionCounterVerificationHandler decisionCounterVerificationHandler;
+
     @Override
     public JsonNode apply(JsonNode input) {
+        // Without the Lambda context, the invocation is taken to start here
+        boolean deadlineStarted = InvocationDeadline.beginIfAbsent();
         try {
+            return route(input);
+        } finally {
+            if (deadlineStarted) {
+                InvocationDeadline.clear();
+            }
+        }
+    }
+
+    private JsonNode route(JsonNode input) {
+        try {
+            if (input.has("Items") && input.get("Items").isArray()) {
+                return applyBatch(input);
+            }
+            if (input.has("Records") && input.get("Records").isArray()) {
+                if ("aws:dynamodb".equals(input.get("Records").path(0).path("eventSource").asText())) {
+                    return vendPpaOutboxHandler != null ? vendPpaOutboxHandler.apply(input)
+                            : createNotImplementedResponse("vendPpaOutbox");
+                }
+                return applySqsEvent(input);
+            }
+
             String handlerType = input.get("handlerType").asText();
             logger.info("Routing to handler: {}", handlerType);
 
@@ -59,21 +130,48 @@ public class LoanReviewRouter implements Function<JsonNode, JsonNode> {
                 case "reviewTypeValidation" ->
                     reviewTypeValidationHandler != null ? reviewTypeValidationHandler.apply(input)
                             : createNotImplementedResponse("reviewTypeValidation");
+                case "confirmClaimCheck" ->
+                    reviewTypeValidationHandler != null ? reviewTypeValidationHandler.confirmClaimCheck(input)
+                            : createNotImplementedResponse("confirmClaimCheck");
 
                 case "completionCriteria" ->
                     completionCriteriaHandler != null ? completionCriteriaHandler.apply(input)
                             : createNotImplementedResponse("completionCriteria");
+                case "loanDecisionWait" ->
+                    loanDecisionWaitHandler != null ? loanDecisionWaitHandler.apply(input)
+                            : createNotImplementedResponse("loanDecisionWait");
+                case "reclassConfirmationWait" ->
+                    reclassConfirmationWaitHandler != null ? reclassConfirmationWaitHandler.apply(input)
+                            : createNotImplementedResponse("reclassConfirmationWait");
                 case "loanStatusDetermination" ->
                     loanStatusDeterminationHandler != null ? loanStatusDeterminationHandler.apply(input)
                             : createNotImplementedResponse("loanStatusDetermination");
+                case "evaluateLoan" ->
+                    loanEvaluationHandler != null ? loanEvaluationHandler.apply(input)
+                            : createNotImplementedResponse("evaluateLoan");
 
+                case "emailNotification" ->
+                    emailNotificationHandler != null ? emailNotificationHandler.apply(input)
+                            : createNotImplementedResponse("emailNotification");
                 case "vendPpaIntegration" ->
                     vendPpaIntegrationHandler != null ? vendPpaIntegrationHandler.apply(input)
                             : createNotImplementedResponse("vendPpaIntegration");
+                case "vendPpaEnqueue" ->
+                    vendPpaEnqueueHandler != null ? vendPpaEnqueueHandler.apply(input)
+                            : createNotImplementedResponse("vendPpaEnqueue");
+                case "vendPpaAckWait" ->
+                    vendPpaAckWaitHandler != null ? vendPpaAckWaitHandler.apply(input)
+                            : createNotImplementedResponse("vendPpaAckWait");
+                case "vendPpaOutboxSweep" ->
+                    vendPpaOutboxHandler != null ? vendPpaOutboxHandler.apply(input)
+                            : createNotImplementedResponse("vendPpaOutboxSweep");
 
                 case "auditTrail" ->
                     auditTrailHandler != null ? auditTrailHandler.apply(input)
                             : createNotImplementedResponse("auditTrail");
+                case "verifyDecisionCounters" ->
+                    decisionCounterVerificationHandler != null ? decisionCounterVerificationHandler.apply(input)
+                            : createNotImplementedResponse("verifyDecisionCounters");
 
                 default -> {
                     logger.error("Unknown handler type: {}", handlerType);
@@ -86,6 +184,46 @@ public class LoanReviewRouter implements Function<JsonNode, JsonNode> {
         }
     }
 
+    private JsonNode applyBatch(JsonNode batch) {
+        String handlerType = batch.path("BatchInput").path("handlerType").asText(null);
+        logger.info("Routing batch of {} items to handler: {}", batch.get("Items").size(), handlerType);
+
+        if ("reviewTypeValidation".equals(handlerType)) {
+            return reviewTypeValidationHandler != null ? reviewTypeValidationHandler.applyBatch(batch)
+                    : createNotImplementedResponse("reviewTypeValidation");
+        }
+        if ("evaluateLoan".equals(handlerType)) {
+            return loanEvaluationHandler != null ? loanEvaluationHandler.applyBatch(batch)
+                    : createNotImplementedResponse("evaluateLoan");
+        }
+        if ("emailNotification".equals(handlerType)) {
+            return emailNotificationHandler != null ? emailNotificationHandler.applyBatch(batch)
+                    : createNotImplementedResponse("emailNotification");
+        }
+        if ("vendPpaIntegration".equals(handlerType)) {
+            return vendPpaIntegrationHandler != null ? vendPpaIntegrationHandler.applyBatch(batch)
+                    : createNotImplementedResponse("vendPpaIntegration");
+        }
+        logger.error("Batch mode not supported for handler type: {}", handlerType);
+        return createErrorResponse("Batch mode not supported for handler type: " + handlerType);
+    }
+
+    private JsonNode applySqsEvent(JsonNode event) {
+        logger.info("Routing SQS event with {} messages to reclass confirmation handler",
+                event.get("Records").size());
+        if (reclassConfirmationHandler != null) {
+            return reclassConfirmationHandler.apply(event);
+        }
+        // Report every message as failed so none is deleted from the queue
+        logger.error("No handler for SQS events, failing the batch");
+        ObjectNode response = objectMapper.createObjectNode();
+        ArrayNode failures = response.putArray("batchItemFailures");
+        for (JsonNode record : event.get("Records")) {
+            failures.addObject().put("itemIdentifier", record.path("messageId").asText());
+        }
+        return response;
+    }
+
     private JsonNode createSuccessResponse(String message) {
         return objectMapper.createObjectNode()
                 .put("success", true)
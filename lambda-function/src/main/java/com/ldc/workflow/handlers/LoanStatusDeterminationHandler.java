@@ -3,9 +3,11 @@ package com.ldc.workflow.handlers;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ldc.workflow.business.LoanStatusDeterminer;
+import com.ldc.workflow.business.PollIntervalCalculator;
 import com.ldc.workflow.types.LoanAttribute;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
@@ -17,7 +19,8 @@ import java.util.function.Function;
  * Determines the final loan status based on attribute decisions.
  * 
  * Input: JSON with requestNumber, loanNumber, attributes
- * Output: JSON with determined loan status
+ * Output: JSON with determined loan status and nextPollSeconds, the back-off
+ * the reclass confirmation loop waits before checking again
  */
 @Component("loanStatusDeterminationHandler")
 public class LoanStatusDeterminationHandler implements Function<JsonNode, JsonNode> {
@@ -27,11 +30,20 @@ public class LoanStatusDeterminationHandler implements Function<JsonNode, JsonNo
 
     private final LoanStatusDeterminer loanStatusDeterminer;
     private final com.ldc.workflow.repository.WorkflowStateRepository workflowStateRepository;
+    private final PollIntervalCalculator pollIntervalCalculator;
 
     public LoanStatusDeterminationHandler(LoanStatusDeterminer loanStatusDeterminer,
             com.ldc.workflow.repository.WorkflowStateRepository workflowStateRepository) {
+        this(loanStatusDeterminer, workflowStateRepository, new PollIntervalCalculator());
+    }
+
+    @Autowired
+    public LoanStatusDeterminationHandler(LoanStatusDeterminer loanStatusDeterminer,
+            com.ldc.workflow.repository.WorkflowStateRepository workflowStateRepository,
+            PollIntervalCalculator pollIntervalCalculator) {
         this.loanStatusDeterminer = loanStatusDeterminer;
         this.workflowStateRepository = workflowStateRepository;
+        this.pollIntervalCalculator = pollIntervalCalculator;
     }
 
     @Override
@@ -48,9 +60,11 @@ public class LoanStatusDeterminationHandler implements Function<JsonNode, JsonNo
             logger.debug("Determining loan status for requestNumber: {}, loanNumber: {}",
                     requestNumber, loanNumber);
 
-            // Fetch from DynamoDB
-            java.util.Optional<com.ldc.workflow.types.WorkflowState> stateOpt = workflowStateRepository
-                    .findByRequestNumberAndLoanNumber(requestNumber, loanNumber);
+            // Fetch from DynamoDB; a claim-check version pins the read to at least that write
+            java.util.Optional<com.ldc.workflow.types.WorkflowState> stateOpt = input.hasNonNull("version")
+                    ? workflowStateRepository.findAtLeastVersion(requestNumber, loanNumber,
+                            input.get("version").asLong())
+                    : workflowStateRepository.findByRequestNumberAndLoanNumber(requestNumber, loanNumber);
 
             if (stateOpt.isEmpty()) {
                 logger.warn("Workflow state not found for status determination");
@@ -69,7 +83,8 @@ public class LoanStatusDeterminationHandler implements Function<JsonNode, JsonNo
             logger.info("Loan status determined: {} for requestNumber: {}", loanStatus, requestNumber);
 
             // Return success response
-            return createSuccessResponse(requestNumber, loanNumber, loanStatus, attributes);
+            return createSuccessResponse(requestNumber, loanNumber, loanStatus, attributes,
+                    pollIntervalCalculator.nextPollSeconds(stateOpt.get()));
         } catch (Exception e) {
             logger.error("Error in loan status determination handler", e);
             return createErrorResponse("unknown", "unknown",
@@ -107,13 +122,14 @@ public class LoanStatusDeterminationHandler implements Function<JsonNode, JsonNo
     }
 
     private JsonNode createSuccessResponse(String requestNumber, String loanNumber,
-            String loanStatus, List<LoanAttribute> attributes) {
+            String loanStatus, List<LoanAttribute> attributes, int nextPollSeconds) {
         return objectMapper.createObjectNode()
                 .put("success", true)
                 .put("requestNumber", requestNumber)
                 .put("loanNumber", loanNumber)
                 .put("status", loanStatus)
-                .put("attributeCount", attributes.size());
+                .put("attributeCount", attributes.size())
+                .put("nextPollSeconds", nextPollSeconds);
     }
 
     private JsonNode createErrorResponse(String requestNumber, String loanNumber, String error) {
@@ -0,0 +1,255 @@
+package com.ldc.workflow.handlers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ldc.workflow.business.CompletionCriteriaChecker;
+import com.ldc.workflow.business.DecisionSummary;
+import com.ldc.workflow.business.LoanStatusDeterminer;
+import com.ldc.workflow.repository.StaleWorkflowStateException;
+import com.ldc.workflow.repository.WorkflowStateRepository;
+import com.ldc.workflow.service.StepFunctionsService;
+import com.ldc.workflow.types.LoanAttribute;
+import com.ldc.workflow.types.WorkflowState;
+import com.ldc.workflow.types.WorkflowStateReference;
+import com.ldc.workflow.validation.AttributeDecisionValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * SQS consumer for reclass confirmations.
+ *
+ * Each message body is JSON with requestNumber, loanNumber and attributes[]
+ * (attributeName, attributeDecision): the confirmed decisions for reclassified
+ * attributes, merged into the stored attributes by name. Once the loan no longer
+ * resolves to Reclass Approved, the execution parked in WaitForReclassConfirmation
+ * is resumed through the task token stored by ReclassConfirmationWaitHandler.
+ * Messages are idempotent, so a redelivered confirmation is harmless.
+ *
+ * The merge is written with WorkflowStateRepository.saveDecisions, conditioned on
+ * the version that was read; when the wait handler stores its token or a decision
+ * update lands in between, the state is read again and the merge re-applied, up to
+ * three times.
+ *
+ * Input: an SQS event ({"Records": [...]}); LoanReviewRouter sends SQS events here.
+ * Output: {"batchItemFailures": [{"itemIdentifier": messageId}]}, so only the failed
+ * messages go back to the queue (the event source mapping enables
+ * ReportBatchItemFailures). Once a message for a loan fails, later messages for
+ * that loan in the same batch are failed too, so redelivery cannot reorder them.
+ * A retryable resume failure restores the task token and fails the message;
+ * TaskTimedOut means the execution has already moved on and counts as done.
+ */
+@Component("reclassConfirmationHandler")
+public class ReclassConfirmationHandler implements Function<JsonNode, JsonNode> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReclassConfirmationHandler.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int MAX_SAVE_ATTEMPTS = 3;
+
+    private final AttributeDecisionValidator attributeDecisionValidator;
+    private final CompletionCriteriaChecker completionCriteriaChecker;
+    private final LoanStatusDeterminer loanStatusDeterminer;
+    private final WorkflowStateRepository workflowStateRepository;
+    private final StepFunctionsService stepFunctionsService;
+
+    public ReclassConfirmationHandler(AttributeDecisionValidator attributeDecisionValidator,
+            CompletionCriteriaChecker completionCriteriaChecker,
+            LoanStatusDeterminer loanStatusDeterminer,
+            WorkflowStateRepository workflowStateRepository,
+            StepFunctionsService stepFunctionsService) {
+        this.attributeDecisionValidator = attributeDecisionValidator;
+        this.completionCriteriaChecker = completionCriteriaChecker;
+        this.loanStatusDeterminer = loanStatusDeterminer;
+        this.workflowStateRepository = workflowStateRepository;
+        this.stepFunctionsService = stepFunctionsService;
+    }
+
+    @Override
+    public JsonNode apply(JsonNode input) {
+        JsonNode records = input.path("Records");
+        logger.info("Reclass Confirmation handler invoked with {} messages", records.size());
+
+        List<String> failures = new ArrayList<>();
+        Set<String> failedLoans = new HashSet<>();
+        List<Resume> resumes = new ArrayList<>();
+
+        for (JsonNode record : records) {
+            String messageId = record.path("messageId").asText();
+            String loanKey = null;
+            try {
+                JsonNode body = objectMapper.readTree(record.path("body").asText());
+                String requestNumber = body.path("requestNumber").asText(null);
+                String loanNumber = body.path("loanNumber").asText(null);
+                if (requestNumber == null || loanNumber == null) {
+                    throw new IllegalArgumentException("Missing requestNumber or loanNumber");
+                }
+                loanKey = requestNumber + "/" + loanNumber;
+                if (failedLoans.contains(loanKey)) {
+                    failures.add(messageId);
+                    continue;
+                }
+                Resume resume = applyConfirmation(requestNumber, loanNumber, body.path("attributes"));
+                if (resume != null) {
+                    resume.messageId = messageId;
+                    resume.loanKey = loanKey;
+                    resumes.add(resume);
+                }
+            } catch (Exception e) {
+                logger.warn("Reclass confirmation {} failed: {}", messageId, e.getMessage());
+                failures.add(messageId);
+                if (loanKey != null) {
+                    failedLoans.add(loanKey);
+                }
+            }
+        }
+
+        resume(resumes, failures);
+        logger.info("Reclass confirmations processed: {}, resumed: {}, failed: {}",
+                records.size(), resumes.size(), failures.size());
+        return createBatchResponse(failures);
+    }
+
+    /**
+     * Merge the confirmed decisions into the stored state.
+     *
+     * @return the execution to resume, or null when the loan is still pending or
+     * no execution is waiting on it
+     */
+    private Resume applyConfirmation(String requestNumber, String loanNumber, JsonNode attributesNode)
+            throws Exception {
+        if (!attributesNode.isArray() || attributesNode.isEmpty()) {
+            throw new IllegalArgumentException("Missing attributes");
+        }
+        List<LoanAttribute> confirmations = objectMapper.readValue(objectMapper.treeAsTokens(attributesNode),
+                objectMapper.getTypeFactory().constructCollectionType(List.class, LoanAttribute.class));
+        for (LoanAttribute attribute : confirmations) {
+            if (attribute.getAttributeName() == null
+                    || !attributeDecisionValidator.isValid(attribute.getAttributeDecision())) {
+                throw new IllegalArgumentException("Invalid attribute decision: " + attribute.getAttributeName());
+            }
+        }
+
+        WorkflowState state;
+        String taskToken;
+        for (int attempt = 1; ; attempt++) {
+            state = workflowStateRepository.findByRequestNumberAndLoanNumber(requestNumber, loanNumber)
+                    .orElseThrow(() -> new IllegalStateException("Workflow state not found"));
+            DecisionSummary previous = DecisionSummary.of(state.getAttributes());
+
+            Map<String, LoanAttribute> merged = new LinkedHashMap<>();
+            if (state.getAttributes() != null) {
+                for (LoanAttribute attribute : state.getAttributes()) {
+                    merged.put(attribute.getAttributeName(), attribute);
+                }
+            }
+            for (LoanAttribute attribute : confirmations) {
+                merged.put(attribute.getAttributeName(), attribute);
+            }
+            state.setAttributes(new ArrayList<>(merged.values()));
+
+            // Only a completed loan can be parked on the reclass wait; an earlier token
+            // belongs to the decision wait, which LoanDecisionUpdateApiHandler resumes
+            DecisionSummary summary = DecisionSummary.of(state.getAttributes());
+            boolean confirmed = completionCriteriaChecker.isLoanDecisionComplete(state.getLoanDecision(), summary)
+                    && !ReclassConfirmationWaitHandler.RECLASS_STATUS.equals(
+                            loanStatusDeterminer.determineStatus(summary));
+            taskToken = confirmed ? state.getTaskToken() : null;
+            if (taskToken != null) {
+                // A token is good for one callback
+                state.setTaskToken(null);
+            }
+
+            // Only the decisions and token are written, and only over the version that was read
+            try {
+                workflowStateRepository.saveDecisions(state, previous);
+                break;
+            } catch (StaleWorkflowStateException e) {
+                if (attempt >= MAX_SAVE_ATTEMPTS) {
+                    throw e;
+                }
+                logger.info("Workflow state changed while confirming reclass for {}/{}; retrying",
+                        requestNumber, loanNumber);
+            }
+        }
+
+        if (taskToken == null) {
+            // Still pending, or the wait has not started yet; the wait handler checks on entry
+            return null;
+        }
+        return new Resume(state, taskToken);
+    }
+
+    private void resume(List<Resume> resumes, List<String> failures) {
+        List<CompletableFuture<Void>> calls = new ArrayList<>(resumes.size());
+        for (Resume resume : resumes) {
+            String output;
+            try {
+                output = objectMapper.writeValueAsString(WorkflowStateReference.of(resume.state));
+            } catch (Exception e) {
+                resume.error = e;
+                continue;
+            }
+            calls.add(stepFunctionsService.sendTaskSuccessAsync(resume.taskToken, output)
+                    .handle((ignored, error) -> {
+                        resume.error = error;
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0])).join();
+
+        for (Resume resume : resumes) {
+            if (resume.error == null) {
+                continue;
+            }
+            Throwable cause = resume.error.getCause() != null ? resume.error.getCause() : resume.error;
+            if (cause instanceof StepFunctionsService.StepFunctionsException stepFunctionsError
+                    && !stepFunctionsError.isRetryable()) {
+                logger.warn("Execution for {} no longer waiting: {}", resume.loanKey, cause.getMessage());
+                continue;
+            }
+            logger.warn("Unable to resume execution for {}, message will be redelivered: {}",
+                    resume.loanKey, cause.getMessage());
+            try {
+                workflowStateRepository.saveTaskToken(resume.state.getRequestNumber(),
+                        resume.state.getLoanNumber(), resume.taskToken);
+            } catch (Exception e) {
+                // The wait state's timeout re-checks the reclass, so the execution still moves on
+                logger.error("Unable to restore task token for {}", resume.loanKey, e);
+            }
+            failures.add(resume.messageId);
+        }
+    }
+
+    private JsonNode createBatchResponse(List<String> failures) {
+        ObjectNode response = objectMapper.createObjectNode();
+        ArrayNode batchItemFailures = response.putArray("batchItemFailures");
+        for (String messageId : failures) {
+            batchItemFailures.addObject().put("itemIdentifier", messageId);
+        }
+        return response;
+    }
+
+    private static final class Resume {
+        final WorkflowState state;
+        final String taskToken;
+        String messageId;
+        String loanKey;
+        volatile Throwable error;
+
+        Resume(WorkflowState state, String taskToken) {
+            this.state = state;
+            this.taskToken = taskToken;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.ldc.workflow.handlers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ldc.workflow.business.LoanStatusDeterminer;
+import com.ldc.workflow.repository.WorkflowStateRepository;
+import com.ldc.workflow.service.StepFunctionsService;
+import com.ldc.workflow.types.WorkflowState;
+import com.ldc.workflow.types.WorkflowStateReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Lambda handler that parks an execution until its reclass is confirmed.
+ * Invoked from the WaitForReclassConfirmation state with lambda:invoke.waitForTaskToken.
+ *
+ * Stores the task token on the workflow state so ReclassConfirmationHandler can
+ * resume the execution when the confirmation message arrives. If the loan no
+ * longer resolves to Reclass Approved when the wait starts (the confirmation
+ * landed first), the execution is resumed immediately.
+ *
+ * Input: JSON with requestNumber, loanNumber, taskToken
+ * Output: JSON with registration status (the execution itself waits for the token)
+ */
+@Component("reclassConfirmationWaitHandler")
+public class ReclassConfirmationWaitHandler implements Function<JsonNode, JsonNode> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReclassConfirmationWaitHandler.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Error reported to Step Functions when the wait cannot be registered; retried by the ASL.
+     */
+    static final String WAIT_FAILED_ERROR = "ReclassConfirmationWaitFailed";
+    static final String RECLASS_STATUS = "Reclass Approved";
+
+    private final LoanStatusDeterminer loanStatusDeterminer;
+    private final WorkflowStateRepository workflowStateRepository;
+    private final StepFunctionsService stepFunctionsService;
+
+    public ReclassConfirmationWaitHandler(LoanStatusDeterminer loanStatusDeterminer,
+            WorkflowStateRepository workflowStateRepository,
+            StepFunctionsService stepFunctionsService) {
+        this.loanStatusDeterminer = loanStatusDeterminer;
+        this.workflowStateRepository = workflowStateRepository;
+        this.stepFunctionsService = stepFunctionsService;
+    }
+
+    @Override
+    public JsonNode apply(JsonNode input) {
+        String requestNumber = input.path("requestNumber").asText("unknown");
+        String loanNumber = input.path("loanNumber").asText("unknown");
+        String taskToken = input.path("taskToken").asText(null);
+        if (taskToken == null || taskToken.isEmpty()) {
+            return createErrorResponse(requestNumber, loanNumber, "Missing taskToken");
+        }
+
+        try {
+            logger.info("Reclass Confirmation Wait handler invoked");
+
+            Optional<WorkflowState> stateOpt = workflowStateRepository.saveTaskToken(requestNumber, loanNumber,
+                    taskToken);
+            if (stateOpt.isEmpty()) {
+                stepFunctionsService.sendTaskFailure(taskToken, "WorkflowStateNotFound",
+                        "No workflow state for " + requestNumber + "/" + loanNumber);
+                return createErrorResponse(requestNumber, loanNumber, "Workflow state not found");
+            }
+
+            WorkflowState state = stateOpt.get();
+            boolean confirmed = !RECLASS_STATUS.equals(loanStatusDeterminer.determineStatus(state.getAttributes()));
+            if (confirmed) {
+                // The confirmation landed before the wait started: nothing will call back, so resume now
+                logger.info("Reclass already confirmed for requestNumber: {}, resuming", requestNumber);
+                stepFunctionsService.sendTaskSuccess(taskToken,
+                        objectMapper.writeValueAsString(WorkflowStateReference.of(state)));
+            }
+
+            return createSuccessResponse(requestNumber, loanNumber, confirmed);
+        } catch (Exception e) {
+            logger.error("Error in reclass confirmation wait handler", e);
+            try {
+                stepFunctionsService.sendTaskFailure(taskToken, WAIT_FAILED_ERROR, e.getMessage());
+            } catch (Exception failure) {
+                // The state's TimeoutSeconds still bounds the wait
+                logger.error("Unable to report wait failure to Step Functions", failure);
+            }
+            return createErrorResponse(requestNumber, loanNumber, "Internal error: " + e.getMessage());
+        }
+    }
+
+    private JsonNode createSuccessResponse(String requestNumber, String loanNumber, boolean confirmed) {
+        return objectMapper.createObjectNode()
+                .put("success", true)
+                .put("requestNumber", requestNumber)
+                .put("loanNumber", loanNumber)
+                .put("confirmed", confirmed);
+    }
+
+    private JsonNode createErrorResponse(String requestNumber, String loanNumber, String error) {
+        return objectMapper.createObjectNode()
+                .put("success", false)
+                .put("requestNumber", requestNumber)
+                .put("loanNumber", loanNumber)
+                .put("error", error);
+    }
+}
@@ -5,9 +5,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ldc.workflow.repository.WorkflowStateRepository;
 import com.ldc.workflow.service.StepFunctionsService;
 import com.ldc.workflow.types.WorkflowState;
+import com.ldc.workflow.types.WorkflowStateReference;
 import com.ldc.workflow.validation.ReviewTypeValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.Optional;
@@ -29,13 +31,24 @@ public class ReviewTypeUpdateApiHandler implements Function<JsonNode, JsonNode>
     private final ReviewTypeValidator reviewTypeValidator;
     private final WorkflowStateRepository workflowStateRepository;
     private final StepFunctionsService stepFunctionsService;
+    private final boolean compactOutput;
 
+    @Autowired
     public ReviewTypeUpdateApiHandler(ReviewTypeValidator reviewTypeValidator,
             WorkflowStateRepository workflowStateRepository,
             StepFunctionsService stepFunctionsService) {
+        this(reviewTypeValidator, workflowStateRepository, stepFunctionsService,
+                WorkflowStateReference.isCompactOutputEnabled());
+    }
+
+    public ReviewTypeUpdateApiHandler(ReviewTypeValidator reviewTypeValidator,
+            WorkflowStateRepository workflowStateRepository,
+            StepFunctionsService stepFunctionsService,
+            boolean compactOutput) {
         this.reviewTypeValidator = reviewTypeValidator;
         this.workflowStateRepository = workflowStateRepository;
         this.stepFunctionsService = stepFunctionsService;
+        this.compactOutput = compactOutput;
     }
 
     @Override
@@ -91,7 +104,9 @@ public class ReviewTypeUpdateApiHandler implements Function<JsonNode, JsonNode>
 
     private void resumeStepFunctionsExecution(String taskToken, WorkflowState state) {
         try {
-            String output = objectMapper.writeValueAsString(state);
+            // Claim check: the execution reads details back from DynamoDB
+            String output = objectMapper.writeValueAsString(
+                    compactOutput ? WorkflowStateReference.of(state) : state);
             stepFunctionsService.sendTaskSuccess(taskToken, output);
             logger.info("Step Functions execution resumed successfully, taskToken: {}", taskToken);
         } catch (Exception e) {
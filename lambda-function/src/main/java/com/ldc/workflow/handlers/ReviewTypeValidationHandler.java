@@ -2,26 +2,41 @@ package com.ldc.workflow.handlers;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.ldc.workflow.repository.WorkflowStateRepository;
 import com.ldc.workflow.types.LoanPpaRequest;
 import com.ldc.workflow.types.StateTransition;
 import com.ldc.workflow.types.WorkflowState;
+import com.ldc.workflow.types.WorkflowStateKey;
+import com.ldc.workflow.types.WorkflowStateReference;
+import com.ldc.workflow.validation.JsonSchemaValidator;
+import com.ldc.workflow.validation.LoanPpaSchemas;
 import com.ldc.workflow.validation.ReviewTypeValidator;
+import com.ldc.workflow.validation.SchemaViolation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 
 /**
  * Lambda handler for review type validation.
  * Implements Requirements 9 & 10:
- * - Validates strict input schema (LoanPpaRequest)
+ * - Validates the input against schemas/loan-ppa-request.schema.json, compiled once
+ *   at startup, reporting every violation rather than the first
  * - Initializes State Transition History
  * - Maps external review types to internal values
+ *
+ * Returns a WorkflowStateReference (key, version, routing summary) unless
+ * WORKFLOW_OUTPUT_MODE=full, in which case the whole state tree is returned.
  */
 @Component("reviewTypeValidationHandler")
 public class ReviewTypeValidationHandler implements Function<JsonNode, JsonNode> {
@@ -31,11 +46,34 @@ public class ReviewTypeValidationHandler implements Function<JsonNode, JsonNode>
 
     private final ReviewTypeValidator reviewTypeValidator;
     private final WorkflowStateRepository workflowStateRepository;
+    private final JsonSchemaValidator requestValidator;
+    private final boolean compactOutput;
+
+    @Autowired
+    public ReviewTypeValidationHandler(ReviewTypeValidator reviewTypeValidator,
+            WorkflowStateRepository workflowStateRepository, LoanPpaSchemas loanPpaSchemas) {
+        this(reviewTypeValidator, workflowStateRepository, loanPpaSchemas,
+                WorkflowStateReference.isCompactOutputEnabled());
+    }
 
     public ReviewTypeValidationHandler(ReviewTypeValidator reviewTypeValidator,
             WorkflowStateRepository workflowStateRepository) {
+        this(reviewTypeValidator, workflowStateRepository, new LoanPpaSchemas(),
+                WorkflowStateReference.isCompactOutputEnabled());
+    }
+
+    public ReviewTypeValidationHandler(ReviewTypeValidator reviewTypeValidator,
+            WorkflowStateRepository workflowStateRepository, boolean compactOutput) {
+        this(reviewTypeValidator, workflowStateRepository, new LoanPpaSchemas(), compactOutput);
+    }
+
+    public ReviewTypeValidationHandler(ReviewTypeValidator reviewTypeValidator,
+            WorkflowStateRepository workflowStateRepository, LoanPpaSchemas loanPpaSchemas,
+            boolean compactOutput) {
         this.reviewTypeValidator = reviewTypeValidator;
         this.workflowStateRepository = workflowStateRepository;
+        this.requestValidator = loanPpaSchemas.getRequestValidator();
+        this.compactOutput = compactOutput;
     }
 
     @Override
@@ -43,95 +81,30 @@ public class ReviewTypeValidationHandler implements Function<JsonNode, JsonNode>
         try {
             logger.info("Review Type Validation handler invoked");
 
-            // Requirement 9: Deserialize and Validate Input
-            LoanPpaRequest request;
-            try {
-                request = objectMapper.treeToValue(input, LoanPpaRequest.class);
-            } catch (Exception e) {
-                logger.error("Invalid request schema", e);
-                return createErrorResponse("unknown", "Invalid request format: " + e.getMessage());
-            }
-
-            // Validate Required Fields
-            if (request.getRequestNumber() == null)
-                return createErrorResponse("unknown", "Missing RequestNumber");
-            if (request.getLoanNumber() == null)
-                return createErrorResponse(request.getRequestNumber(), "Missing LoanNumber");
-            if (request.getReviewType() == null)
-                return createErrorResponse(request.getRequestNumber(), "Missing ReviewType");
-
-            // Validate Loan Number Pattern (Req 9.4)
-            if (!request.getLoanNumber().matches("^[0-9]{10}$")) {
-                return createErrorResponse(request.getRequestNumber(), "Invalid LoanNumber format");
-            }
-
-            // Map External Review Type to Internal (Req 9.3)
-            String internalReviewType;
-            switch (request.getReviewType()) {
-                case "LDC":
-                    internalReviewType = "LDCReview";
-                    break;
-                case "Sec Policy":
-                    internalReviewType = "SecPolicyReview";
-                    break;
-                case "Conduit":
-                    internalReviewType = "ConduitReview";
-                    break;
-                default:
-                    // Also accept internal types if passed directly
-                    if (reviewTypeValidator.isValid(request.getReviewType())) {
-                        internalReviewType = request.getReviewType();
-                    } else {
-                        return createErrorResponse(request.getRequestNumber(),
-                                "Invalid ReviewType: " + request.getReviewType());
-                    }
+            // Requirement 9: Validate against the request schema, then deserialize
+            List<String> errors = validate(input);
+            if (!errors.isEmpty()) {
+                logger.warn("Request failed schema validation: {}", errors);
+                ObjectNode response = createErrorResponse(input.path("RequestNumber").asText("unknown"),
+                        String.join("; ", errors));
+                errors.forEach(response.putArray("violations")::add);
+                return response;
             }
+            LoanPpaRequest request = objectMapper.treeToValue(input, LoanPpaRequest.class);
 
-            String executionId = "ldc-loan-review-" + request.getRequestNumber();
-
-            // Requirement 10: Initialize State History
-            WorkflowState state = new WorkflowState();
-            state.setRequestNumber(request.getRequestNumber());
-            state.setLoanNumber(request.getLoanNumber());
-            state.setReviewType(internalReviewType);
-            state.setExecutionId(executionId);
-            state.setStatus("PENDING");
-            state.setWorkflowStateName("ValidateReviewType");
-            state.setCreatedAt(Instant.now().toString());
-
-            // Add Initial State Transition
-            StateTransition initialTransition = new StateTransition(
-                    "ValidateReviewType",
-                    request.getReviewStepUserId() != null ? request.getReviewStepUserId() : "System",
-                    Instant.now().toString(),
-                    Instant.now().toString());
-            state.addStateTransition(initialTransition);
-
-            // Copy attributes if present (Req 9.5 validation happens in validator/logic)
-            if (request.getAttributes() != null) {
-                // Convert LoanPpaRequest.Attribute to LoanAttribute internal type if needed,
-                // or just store raw for now. Assuming LoanAttribute is compatible or similar.
-                // For now, we will serialize/deserialize to handle the type mismatch if fields
-                // align
-                // But LoanAttribute uses lowercase 'attributeName' vs 'Name'.
-                // We need to map them.
-                List<com.ldc.workflow.types.LoanAttribute> internalAttributes = new ArrayList<>();
-                for (LoanPpaRequest.Attribute attr : request.getAttributes()) {
-                    com.ldc.workflow.types.LoanAttribute internalAttr = new com.ldc.workflow.types.LoanAttribute();
-                    internalAttr.setAttributeName(attr.getName());
-                    internalAttr.setAttributeDecision(attr.getDecision());
-                    internalAttributes.add(internalAttr);
-                }
-                state.setAttributes(internalAttributes);
-            }
+            WorkflowState state = newWorkflowState(request);
 
             // Save to DynamoDB
             workflowStateRepository.save(state);
             logger.info("Review type validated and stored successfully for RequestNumber: {}",
                     request.getRequestNumber());
 
-            // Return updated state structure (which includes history)
-            return objectMapper.valueToTree(state);
+            if (!compactOutput) {
+                // Return updated state structure (which includes history)
+                return objectMapper.valueToTree(state);
+            }
+            ObjectNode reference = objectMapper.valueToTree(WorkflowStateReference.of(state));
+            return reference.put("success", true);
 
         } catch (Exception e) {
             logger.error("Error in review type validation handler", e);
@@ -139,7 +112,196 @@ public class ReviewTypeValidationHandler implements Function<JsonNode, JsonNode>
         }
     }
 
-    private JsonNode createErrorResponse(String requestNumber, String error) {
+    /**
+     * Confirm the claim check a loan execution started by the bulk workflow begins
+     * with. Start input is caller-supplied, so a version in it proves nothing: the
+     * state must be stored at that version or later (strongly consistent read), which
+     * only validation writes. The reference returned is rebuilt from the stored item,
+     * not taken from the input.
+     *
+     * Input: requestNumber, loanNumber and version
+     */
+    public JsonNode confirmClaimCheck(JsonNode input) {
+        String requestNumber = input.path("requestNumber").asText(null);
+        String loanNumber = input.path("loanNumber").asText(null);
+        if (requestNumber == null || loanNumber == null || !input.path("version").isIntegralNumber()) {
+            return createErrorResponse(requestNumber != null ? requestNumber : "unknown",
+                    "requestNumber, loanNumber and a numeric version are required");
+        }
+        try {
+            Optional<WorkflowState> state = workflowStateRepository.findAtLeastVersion(requestNumber, loanNumber,
+                    input.get("version").asLong());
+            if (state.isEmpty()) {
+                logger.warn("No validated workflow state behind the claim check for RequestNumber: {}, "
+                        + "LoanNumber: {}", requestNumber, loanNumber);
+                return createErrorResponse(requestNumber, "No validated workflow state for the claim check");
+            }
+            ObjectNode reference = objectMapper.valueToTree(WorkflowStateReference.of(state.get()));
+            return reference.put("success", true);
+        } catch (IllegalStateException e) {
+            logger.warn("Claim check rejected: {}", e.getMessage());
+            return createErrorResponse(requestNumber, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error confirming claim check for RequestNumber: {}", requestNumber, e);
+            return createErrorResponse(requestNumber, "Internal error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Validate and persist a Distributed Map item batch in one invocation.
+     *
+     * Input is the ItemBatcher shape: BatchInput fields (e.g. RequestNumber) apply to
+     * every entry of Items that does not set them itself. Valid loans are written with
+     * BatchWriteItem; the response lists a state reference for each persisted loan and
+     * the loan number and error of each rejected one. Batch responses always carry
+     * references, since a batch of full states would not fit in a Step Functions payload.
+     */
+    public JsonNode applyBatch(JsonNode batch) {
+        JsonNode batchInput = batch.path("BatchInput");
+        JsonNode items = batch.path("Items");
+        String requestNumber = batchInput.path("RequestNumber").asText("unknown");
+        logger.info("Review Type Validation batch invoked with {} items for RequestNumber: {}",
+                items.size(), requestNumber);
+
+        ArrayNode rejected = objectMapper.createArrayNode();
+        List<WorkflowState> states = new ArrayList<>(items.size());
+        for (JsonNode item : items) {
+            ObjectNode merged = item.deepCopy();
+            batchInput.fields().forEachRemaining(field -> {
+                if (!merged.has(field.getKey())) {
+                    merged.set(field.getKey(), field.getValue());
+                }
+            });
+
+            String loanNumber = merged.path("LoanNumber").asText(null);
+            try {
+                List<String> errors = validate(merged);
+                if (!errors.isEmpty()) {
+                    addRejected(rejected, loanNumber, String.join("; ", errors));
+                } else {
+                    states.add(newWorkflowState(objectMapper.treeToValue(merged, LoanPpaRequest.class)));
+                }
+            } catch (Exception e) {
+                addRejected(rejected, loanNumber, "Invalid request format: " + e.getMessage());
+            }
+        }
+
+        Set<WorkflowStateKey> failed = new HashSet<>();
+        try {
+            failed.addAll(workflowStateRepository.saveAll(states));
+        } catch (Exception e) {
+            logger.error("Error batch saving workflow states for RequestNumber: {}", requestNumber, e);
+            states.forEach(state -> failed.add(WorkflowStateKey.of(state)));
+        }
+
+        ArrayNode accepted = objectMapper.createArrayNode();
+        for (WorkflowState state : states) {
+            if (failed.contains(WorkflowStateKey.of(state))) {
+                addRejected(rejected, state.getLoanNumber(), "Failed to persist workflow state");
+            } else {
+                accepted.add(objectMapper.<JsonNode>valueToTree(WorkflowStateReference.of(state)));
+            }
+        }
+        logger.info("Review type batch for RequestNumber: {} accepted {}, rejected {}",
+                requestNumber, accepted.size(), rejected.size());
+
+        ObjectNode response = objectMapper.createObjectNode()
+                .put("success", rejected.isEmpty())
+                .put("requestNumber", requestNumber)
+                .put("total", items.size())
+                .put("accepted", accepted.size());
+        response.set("items", accepted);
+        response.set("rejected", rejected);
+        return response;
+    }
+
+    /**
+     * @return every schema violation of the request, empty when it is valid
+     */
+    private List<String> validate(JsonNode request) {
+        JsonSchemaValidator.Result result = requestValidator.validate(request);
+        if (result.isValid()) {
+            return List.of();
+        }
+        List<String> errors = new ArrayList<>(result.getViolations().size() + 1);
+        for (SchemaViolation violation : result.getViolations()) {
+            // Internal review types are still accepted when passed directly (see toInternalReviewType)
+            if ("ReviewType".equals(violation.getPath()) && "enum".equals(violation.getKeyword())
+                    && reviewTypeValidator.isValid(request.path("ReviewType").asText())) {
+                continue;
+            }
+            errors.add(violation.getMessage());
+        }
+        int dropped = result.getViolationCount() - result.getViolations().size();
+        if (dropped > 0) {
+            errors.add("and " + dropped + " more");
+        }
+        return errors;
+    }
+
+    // Map External Review Type to Internal (Req 9.3)
+    private String toInternalReviewType(String reviewType) {
+        switch (reviewType) {
+            case "LDC":
+                return "LDCReview";
+            case "Sec Policy":
+                return "SecPolicyReview";
+            case "Conduit":
+                return "ConduitReview";
+            default:
+                // Also accept internal types if passed directly
+                return reviewTypeValidator.isValid(reviewType) ? reviewType : null;
+        }
+    }
+
+    private WorkflowState newWorkflowState(LoanPpaRequest request) {
+        String executionId = "ldc-loan-review-" + request.getRequestNumber();
+
+        // Requirement 10: Initialize State History
+        WorkflowState state = new WorkflowState();
+        state.setRequestNumber(request.getRequestNumber());
+        state.setLoanNumber(request.getLoanNumber());
+        state.setReviewType(toInternalReviewType(request.getReviewType()));
+        state.setExecutionId(executionId);
+        state.setStatus("PENDING");
+        state.setWorkflowStateName("ValidateReviewType");
+        state.setCreatedAt(Instant.now().toString());
+
+        // Add Initial State Transition
+        StateTransition initialTransition = new StateTransition(
+                "ValidateReviewType",
+                request.getReviewStepUserId() != null ? request.getReviewStepUserId() : "System",
+                Instant.now().toString(),
+                Instant.now().toString());
+        state.addStateTransition(initialTransition);
+
+        // Copy attributes if present (Req 9.5 validation happens in validator/logic)
+        if (request.getAttributes() != null) {
+            // Convert LoanPpaRequest.Attribute to LoanAttribute internal type if needed,
+            // or just store raw for now. Assuming LoanAttribute is compatible or similar.
+            // For now, we will serialize/deserialize to handle the type mismatch if fields
+            // align
+            // But LoanAttribute uses lowercase 'attributeName' vs 'Name'.
+            // We need to map them.
+            List<com.ldc.workflow.types.LoanAttribute> internalAttributes = new ArrayList<>();
+            for (LoanPpaRequest.Attribute attr : request.getAttributes()) {
+                com.ldc.workflow.types.LoanAttribute internalAttr = new com.ldc.workflow.types.LoanAttribute();
+                internalAttr.setAttributeName(attr.getName());
+                internalAttr.setAttributeDecision(attr.getDecision());
+                internalAttributes.add(internalAttr);
+            }
+            state.setAttributes(internalAttributes);
+        }
+        return state;
+    }
+
+    private static void addRejected(ArrayNode rejected, String loanNumber, String error) {
+        rejected.addObject()
+                .put("loanNumber", loanNumber)
+                .put("error", error);
+    }
+
+    private ObjectNode createErrorResponse(String requestNumber, String error) {
         return objectMapper.createObjectNode()
                 .put("success", false)
                 .put("requestNumber", requestNumber)
@@ -0,0 +1,110 @@
+package com.ldc.workflow.handlers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ldc.workflow.repository.VendPpaOutboxRepository;
+import com.ldc.workflow.service.StepFunctionsService;
+import com.ldc.workflow.service.VendPpaOutboxDispatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Lambda handler that parks an execution until Vend PPA has accepted its loan.
+ * Invoked from the WaitForVendPpaAck state with lambda:invoke.waitForTaskToken.
+ *
+ * Leaves the task token on the loan's outbox row, where VendPpaOutboxDispatcher
+ * finds it when the submission is acknowledged. If there is no row any more the
+ * submission was acknowledged before the wait started and the execution is resumed
+ * immediately; if the row has FAILED, the execution is failed with
+ * VendPpaIntegrationFailed.
+ *
+ * Input: JSON with requestNumber, loanNumber, taskToken
+ * Output: JSON with registration status (the execution itself waits for the token)
+ */
+@Component("vendPpaAckWaitHandler")
+public class VendPpaAckWaitHandler implements Function<JsonNode, JsonNode> {
+
+    private static final Logger logger = LoggerFactory.getLogger(VendPpaAckWaitHandler.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Error reported to Step Functions when the wait cannot be registered; retried by the ASL.
+     */
+    static final String WAIT_FAILED_ERROR = "VendPpaAckWaitFailed";
+
+    private final VendPpaOutboxRepository outboxRepository;
+    private final StepFunctionsService stepFunctionsService;
+
+    public VendPpaAckWaitHandler(VendPpaOutboxRepository outboxRepository,
+            StepFunctionsService stepFunctionsService) {
+        this.outboxRepository = outboxRepository;
+        this.stepFunctionsService = stepFunctionsService;
+    }
+
+    @Override
+    public JsonNode apply(JsonNode input) {
+        String requestNumber = input.path("requestNumber").asText("unknown");
+        String loanNumber = input.path("loanNumber").asText("unknown");
+        String taskToken = input.path("taskToken").asText(null);
+        if (taskToken == null || taskToken.isEmpty()) {
+            return createErrorResponse(requestNumber, loanNumber, "Missing taskToken");
+        }
+
+        try {
+            logger.info("Vend PPA Ack Wait handler invoked");
+
+            Optional<VendPpaOutboxRepository.Entry> entry = outboxRepository.attachTaskToken(requestNumber,
+                    loanNumber, taskToken);
+            String outcome;
+            if (entry.isEmpty()) {
+                // Acknowledged before the wait started: nothing will call back, so resume now
+                logger.info("Vend PPA submission already acknowledged for requestNumber: {}, resuming",
+                        requestNumber);
+                stepFunctionsService.sendTaskSuccess(taskToken, objectMapper.writeValueAsString(
+                        objectMapper.createObjectNode()
+                                .put("requestNumber", requestNumber)
+                                .put("loanNumber", loanNumber)));
+                outcome = "ACKNOWLEDGED";
+            } else if (VendPpaOutboxRepository.FAILED.equals(entry.get().getStatus())) {
+                logger.warn("Vend PPA submission failed for requestNumber: {}, loanNumber: {}",
+                        requestNumber, loanNumber);
+                stepFunctionsService.sendTaskFailure(taskToken, VendPpaOutboxDispatcher.FAILED_ERROR,
+                        "Vend PPA submission failed after " + entry.get().getAttempts() + " deliveries");
+                outcome = VendPpaOutboxRepository.FAILED;
+            } else {
+                outcome = VendPpaOutboxRepository.PENDING;
+            }
+
+            return createSuccessResponse(requestNumber, loanNumber, outcome);
+        } catch (Exception e) {
+            logger.error("Error in Vend PPA ack wait handler", e);
+            try {
+                stepFunctionsService.sendTaskFailure(taskToken, WAIT_FAILED_ERROR, e.getMessage());
+            } catch (Exception failure) {
+                // The state's TimeoutSeconds still bounds the wait
+                logger.error("Unable to report wait failure to Step Functions", failure);
+            }
+            return createErrorResponse(requestNumber, loanNumber, "Internal error: " + e.getMessage());
+        }
+    }
+
+    private JsonNode createSuccessResponse(String requestNumber, String loanNumber, String submission) {
+        return objectMapper.createObjectNode()
+                .put("success", true)
+                .put("requestNumber", requestNumber)
+                .put("loanNumber", loanNumber)
+                .put("submission", submission);
+    }
+
+    private JsonNode createErrorResponse(String requestNumber, String loanNumber, String error) {
+        return objectMapper.createObjectNode()
+                .put("success", false)
+                .put("requestNumber", requestNumber)
+                .put("loanNumber", loanNumber)
+                .put("error", error);
+    }
+}
@@ -0,0 +1,106 @@
+package com.ldc.workflow.handlers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ldc.workflow.repository.StaleWorkflowStateException;
+import com.ldc.workflow.repository.VendPpaOutboxRepository;
+import com.ldc.workflow.repository.WorkflowStateRepository;
+import com.ldc.workflow.types.WorkflowState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Lambda handler that queues a loan's final decision for Vend PPA.
+ * Invoked from the EnqueueVendPpa state in place of a synchronous call.
+ *
+ * The loan's status and its Vend PPA submission are written in one transaction
+ * (VendPpaOutboxRepository.enqueue); VendPpaOutboxDispatcher delivers it and
+ * resumes the execution, which waits in WaitForVendPpaAck. If another writer
+ * changed the state between the read and the write, the state is read again and
+ * the enqueue retried, up to three times. Queueing a loan that is already queued
+ * succeeds without writing anything.
+ *
+ * Input: JSON with requestNumber, loanNumber, loanStatus
+ * Output: JSON with success and whether the submission was queued by this call
+ */
+@Component("vendPpaEnqueueHandler")
+public class VendPpaEnqueueHandler implements Function<JsonNode, JsonNode> {
+
+    private static final Logger logger = LoggerFactory.getLogger(VendPpaEnqueueHandler.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int MAX_ENQUEUE_ATTEMPTS = 3;
+
+    private final WorkflowStateRepository workflowStateRepository;
+    private final VendPpaOutboxRepository outboxRepository;
+    private final LongSupplier clock;
+
+    @Autowired
+    public VendPpaEnqueueHandler(WorkflowStateRepository workflowStateRepository,
+            VendPpaOutboxRepository outboxRepository) {
+        this(workflowStateRepository, outboxRepository, System::currentTimeMillis);
+    }
+
+    public VendPpaEnqueueHandler(WorkflowStateRepository workflowStateRepository,
+            VendPpaOutboxRepository outboxRepository, LongSupplier clock) {
+        this.workflowStateRepository = workflowStateRepository;
+        this.outboxRepository = outboxRepository;
+        this.clock = clock;
+    }
+
+    @Override
+    public JsonNode apply(JsonNode input) {
+        String requestNumber = input.path("requestNumber").asText("unknown");
+        String loanNumber = input.path("loanNumber").asText("unknown");
+        String loanStatus = input.path("loanStatus").asText(null);
+        if (loanStatus == null || loanStatus.isEmpty()) {
+            return createErrorResponse(requestNumber, loanNumber, "Missing loanStatus");
+        }
+
+        try {
+            logger.info("Vend PPA Enqueue handler invoked");
+            for (int attempt = 1; ; attempt++) {
+                Optional<WorkflowState> stateOpt = workflowStateRepository.findByRequestNumberAndLoanNumber(
+                        requestNumber, loanNumber);
+                if (stateOpt.isEmpty()) {
+                    logger.warn("Workflow state not found for requestNumber: {}, loanNumber: {}",
+                            requestNumber, loanNumber);
+                    return createErrorResponse(requestNumber, loanNumber, "Workflow state not found");
+                }
+                try {
+                    boolean queued = outboxRepository.enqueue(stateOpt.get(), loanStatus, clock.getAsLong());
+                    return createSuccessResponse(requestNumber, loanNumber, queued);
+                } catch (StaleWorkflowStateException e) {
+                    if (attempt >= MAX_ENQUEUE_ATTEMPTS) {
+                        throw e;
+                    }
+                    logger.info("Workflow state changed while queueing requestNumber: {}; retrying", requestNumber);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error in Vend PPA enqueue handler", e);
+            return createErrorResponse(requestNumber, loanNumber, "Internal error: " + e.getMessage());
+        }
+    }
+
+    private JsonNode createSuccessResponse(String requestNumber, String loanNumber, boolean queued) {
+        return objectMapper.createObjectNode()
+                .put("success", true)
+                .put("requestNumber", requestNumber)
+                .put("loanNumber", loanNumber)
+                .put("queued", queued);
+    }
+
+    private JsonNode createErrorResponse(String requestNumber, String loanNumber, String error) {
+        return objectMapper.createObjectNode()
+                .put("success", false)
+                .put("requestNumber", requestNumber)
+                .put("loanNumber", loanNumber)
+                .put("error", error);
+    }
+}
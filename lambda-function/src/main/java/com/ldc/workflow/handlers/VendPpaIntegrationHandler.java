@@ -2,22 +2,45 @@ package com.ldc.workflow.handlers;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.ldc.workflow.repository.WorkflowStateRepository;
+import com.ldc.workflow.service.VendPpaBatcher;
+import com.ldc.workflow.service.VendPpaClient;
 import com.ldc.workflow.types.WorkflowState;
+import com.ldc.workflow.types.WorkflowStateKey;
+import com.ldc.workflow.util.InvocationDeadline;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 /**
  * Lambda handler for Vend PPA integration.
- * Calls Vend PPA API with loan decision.
- * 
+ * Submits the stored loan decision to the Vend PPA API through VendPpaBatcher,
+ * which sends it on its own or, with VEND_PPA_BATCH_SIZE above 1, in a
+ * multi-loan call together with other workflows' decisions (server mode).
+ *
+ * The call, retries included, has to finish before the invocation does: it is
+ * given the time left in the invocation less VEND_PPA_DEADLINE_MARGIN_MS
+ * (default 500), which is kept for writing the response.
+ *
+ * Batch mode (applyBatch): a Distributed Map ItemBatcher payload submits all of
+ * its loans in one invocation, reading their states with one batch read; each
+ * item gets its own result, and one loan failing does not fail the others.
+ *
  * Input: JSON with requestNumber, loanNumber, loanDecision, loanStatus,
  * executionId
- * Output: JSON with Vend PPA response or error
+ * Output: JSON with Vend PPA response or error; a failed call reports its
+ * errorType and whether it was retryable
  */
 @Component("vendPpaIntegrationHandler")
 public class VendPpaIntegrationHandler implements Function<JsonNode, JsonNode> {
@@ -26,9 +49,20 @@ public class VendPpaIntegrationHandler implements Function<JsonNode, JsonNode> {
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
     private final WorkflowStateRepository workflowStateRepository;
+    private final VendPpaBatcher vendPpaBatcher;
+    private final long deadlineMarginNanos;
 
-    public VendPpaIntegrationHandler(WorkflowStateRepository workflowStateRepository) {
+    @Autowired
+    public VendPpaIntegrationHandler(WorkflowStateRepository workflowStateRepository, VendPpaBatcher vendPpaBatcher) {
+        this(workflowStateRepository, vendPpaBatcher, TimeUnit.MILLISECONDS.toNanos(
+                Long.parseLong(getEnv("VEND_PPA_DEADLINE_MARGIN_MS", "500"))));
+    }
+
+    public VendPpaIntegrationHandler(WorkflowStateRepository workflowStateRepository, VendPpaBatcher vendPpaBatcher,
+                                     long deadlineMarginNanos) {
         this.workflowStateRepository = workflowStateRepository;
+        this.vendPpaBatcher = vendPpaBatcher;
+        this.deadlineMarginNanos = deadlineMarginNanos;
     }
 
     @Override
@@ -61,9 +95,15 @@ public class VendPpaIntegrationHandler implements Function<JsonNode, JsonNode> {
             String loanDecision = state.getLoanDecision() != null ? state.getLoanDecision() : "Unknown";
             logger.info("Retrieved loan decision from DynamoDB: {}", loanDecision);
 
-            // Call Vend PPA API (TBD: actual implementation)
-            // For now, using mock implementation
-            JsonNode vendPpaResponse = callVendPpaApi(state);
+            JsonNode vendPpaResponse;
+            try {
+                vendPpaResponse = callVendPpaApi(state, loanStatus);
+            } catch (VendPpaClient.VendPpaException e) {
+                logger.error("Vend PPA call failed for loanNumber: {}: {}", loanNumber, e.getMessage());
+                return createErrorResponse(requestNumber, loanNumber, e.getMessage())
+                        .put("errorType", e.getErrorType())
+                        .put("retryable", e.isRetryable());
+            }
 
             logger.info("Vend PPA call completed successfully for loanNumber: {}", loanNumber);
 
@@ -76,25 +116,86 @@ public class VendPpaIntegrationHandler implements Function<JsonNode, JsonNode> {
     }
 
     /**
-     * Mock implementation of Vend PPA API call.
-     * TBD: Replace with actual Vend PPA API contract
+     * Submit every loan of an ItemBatcher payload: {"BatchInput": {...}, "Items":
+     * [{"requestNumber", "loanNumber", "loanStatus"}, ...]}, with fields missing
+     * from an item taken from BatchInput.
      */
-    private JsonNode callVendPpaApi(WorkflowState state) {
+    public JsonNode applyBatch(JsonNode batch) {
+        JsonNode batchInput = batch.path("BatchInput");
+        JsonNode items = batch.path("Items");
+        logger.info("Vend PPA Integration batch invoked with {} items", items.size());
+
+        List<WorkflowStateKey> keys = new ArrayList<>(items.size());
+        for (JsonNode item : items) {
+            keys.add(new WorkflowStateKey(field(item, batchInput, "requestNumber"),
+                    field(item, batchInput, "loanNumber")));
+        }
+        Map<WorkflowStateKey, WorkflowState> states;
         try {
-            logger.debug("Calling Vend PPA API with loan state: requestNumber={}, loanNumber={}, decision={}",
-                    state.getRequestNumber(), state.getLoanNumber(), state.getLoanDecision());
-
-            // TBD: Implement actual Vend PPA API call
-            // For now, return mock response
-            return objectMapper.createObjectNode()
-                    .put("vendPpaId", "VEND-" + state.getRequestNumber())
-                    .put("status", "SUCCESS")
-                    .put("timestamp", System.currentTimeMillis())
-                    .put("message", "Mock Vend PPA response (TBD: actual implementation)");
+            states = workflowStateRepository.findAll(keys);
         } catch (Exception e) {
-            logger.error("Error calling Vend PPA API", e);
-            throw new RuntimeException("Vend PPA API call failed", e);
+            logger.error("Error reading workflow states for Vend PPA batch", e);
+            return objectMapper.createObjectNode()
+                    .put("success", false)
+                    .put("error", "Internal error: " + e.getMessage());
+        }
+
+        long deadline = deadline();
+        List<CompletableFuture<JsonNode>> calls = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            WorkflowState state = states.get(keys.get(i));
+            calls.add(state == null ? null : vendPpaBatcher.submitAsync(
+                    VendPpaClient.Submission.of(state, field(items.get(i), batchInput, "loanStatus")), deadline));
         }
+        vendPpaBatcher.flush();
+
+        ArrayNode results = objectMapper.createArrayNode();
+        int failed = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            WorkflowStateKey key = keys.get(i);
+            if (calls.get(i) == null) {
+                results.add(createErrorResponse(key.getRequestNumber(), key.getLoanNumber(),
+                        "Workflow state not found"));
+                failed++;
+                continue;
+            }
+            try {
+                results.add(createSuccessResponse(key.getRequestNumber(), key.getLoanNumber(),
+                        VendPpaBatcher.join(calls.get(i))));
+            } catch (VendPpaClient.VendPpaException e) {
+                results.add(createErrorResponse(key.getRequestNumber(), key.getLoanNumber(), e.getMessage())
+                        .put("errorType", e.getErrorType())
+                        .put("retryable", e.isRetryable()));
+                failed++;
+            }
+        }
+        logger.info("Vend PPA batch submitted {} loans, {} failed", keys.size() - failed, failed);
+
+        ObjectNode response = objectMapper.createObjectNode()
+                .put("success", failed == 0)
+                .put("total", keys.size())
+                .put("failed", failed);
+        response.set("items", results);
+        return response;
+    }
+
+    private static String field(JsonNode item, JsonNode batchInput, String name) {
+        JsonNode value = item.hasNonNull(name) ? item.get(name) : batchInput.get(name);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private JsonNode callVendPpaApi(WorkflowState state, String loanStatus) {
+        logger.debug("Calling Vend PPA API with loan state: requestNumber={}, loanNumber={}, decision={}",
+                state.getRequestNumber(), state.getLoanNumber(), state.getLoanDecision());
+        return vendPpaBatcher.submit(VendPpaClient.Submission.of(state, loanStatus), deadline());
+    }
+
+    private long deadline() {
+        long deadline = InvocationDeadline.deadlineNanos();
+        if (deadline != Long.MAX_VALUE) {
+            deadline -= deadlineMarginNanos;
+        }
+        return deadline;
     }
 
     private JsonNode createSuccessResponse(String requestNumber, String loanNumber, JsonNode vendPpaResponse) {
@@ -105,11 +206,16 @@ public class VendPpaIntegrationHandler implements Function<JsonNode, JsonNode> {
                 .set("vendPpaResponse", vendPpaResponse);
     }
 
-    private JsonNode createErrorResponse(String requestNumber, String loanNumber, String error) {
+    private ObjectNode createErrorResponse(String requestNumber, String loanNumber, String error) {
         return objectMapper.createObjectNode()
                 .put("success", false)
                 .put("requestNumber", requestNumber)
                 .put("loanNumber", loanNumber)
                 .put("error", error);
     }
+
+    private static String getEnv(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
 }
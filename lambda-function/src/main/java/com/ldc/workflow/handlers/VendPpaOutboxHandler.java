@@ -0,0 +1,94 @@
+package com.ldc.workflow.handlers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ldc.workflow.service.VendPpaOutboxDispatcher;
+import com.ldc.workflow.types.WorkflowStateKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Drives VendPpaOutboxDispatcher from the two ways outbox rows reach the Lambda.
+ *
+ * DynamoDB stream events ({"Records": [...]} with eventSource aws:dynamodb) from
+ * the outbox table carry the keys of new rows, which are delivered at once; the
+ * event source mapping only passes INSERT records, and any other record is
+ * skipped. A row the delivery could not settle stays due in the table, so no
+ * record is reported back as a batch item failure.
+ *
+ * The scheduled sweep ({"handlerType": "vendPpaOutboxSweep", optional "limit"})
+ * redelivers rows whose lease has run out: rows given back after a failed call,
+ * and rows whose stream delivery was lost. The limit defaults to
+ * VEND_PPA_OUTBOX_SWEEP_LIMIT (500).
+ *
+ * Output: the dispatch counts and an empty batchItemFailures list
+ */
+@Component("vendPpaOutboxHandler")
+public class VendPpaOutboxHandler implements Function<JsonNode, JsonNode> {
+
+    private static final Logger logger = LoggerFactory.getLogger(VendPpaOutboxHandler.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final VendPpaOutboxDispatcher dispatcher;
+    private final int sweepLimit;
+
+    public VendPpaOutboxHandler(VendPpaOutboxDispatcher dispatcher) {
+        this(dispatcher, Integer.parseInt(getEnv("VEND_PPA_OUTBOX_SWEEP_LIMIT", "500")));
+    }
+
+    public VendPpaOutboxHandler(VendPpaOutboxDispatcher dispatcher, int sweepLimit) {
+        this.dispatcher = dispatcher;
+        this.sweepLimit = sweepLimit;
+    }
+
+    @Override
+    public JsonNode apply(JsonNode input) {
+        try {
+            if (input.has("Records")) {
+                Set<WorkflowStateKey> keys = new LinkedHashSet<>();
+                for (JsonNode record : input.get("Records")) {
+                    if (!"INSERT".equals(record.path("eventName").asText())) {
+                        continue;
+                    }
+                    JsonNode key = record.path("dynamodb").path("Keys");
+                    keys.add(new WorkflowStateKey(key.path("RequestNumber").path("S").asText(),
+                            key.path("LoanNumber").path("S").asText()));
+                }
+                logger.info("Vend PPA outbox handler delivering {} new rows", keys.size());
+                return createResponse(dispatcher.dispatch(keys));
+            }
+            int limit = input.path("limit").asInt(sweepLimit);
+            logger.info("Vend PPA outbox sweep, limit {}", limit);
+            return createResponse(dispatcher.sweep(limit));
+        } catch (Exception e) {
+            logger.error("Error in Vend PPA outbox handler", e);
+            return objectMapper.createObjectNode()
+                    .put("success", false)
+                    .put("error", "Internal error: " + e.getMessage());
+        }
+    }
+
+    private JsonNode createResponse(VendPpaOutboxDispatcher.Result result) {
+        ObjectNode response = objectMapper.createObjectNode()
+                .put("success", true)
+                .put("claimed", result.getClaimed())
+                .put("acknowledged", result.getAcknowledged())
+                .put("released", result.getReleased())
+                .put("failed", result.getFailed())
+                .put("skipped", result.getSkipped())
+                .put("deferred", result.getDeferred());
+        response.putArray("batchItemFailures");
+        return response;
+    }
+
+    private static String getEnv(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+}
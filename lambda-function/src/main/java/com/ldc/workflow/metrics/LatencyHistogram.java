@@ -0,0 +1,120 @@
+package com.ldc.workflow.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear microsecond buckets.
+ *
+ * Each power of two is split into 8 sub-buckets, so reported percentiles are within
+ * 12.5% of the true value. Recording is a couple of atomic increments and never
+ * allocates, which makes it safe on hot paths and from many threads.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Covers up to 2^40 us (~12 days)
+    private static final int MAX_EXPONENT = 40;
+
+    private final String name;
+    private final AtomicLongArray buckets = new AtomicLongArray((MAX_EXPONENT + 1) * SUB_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public void recordNanos(long nanos) {
+        recordMicros(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    public void recordMicros(long micros) {
+        long value = Math.max(0, micros);
+        buckets.incrementAndGet(indexOf(value));
+        count.increment();
+        totalMicros.add(value);
+        maxMicros.accumulate(value);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getMeanMicros() {
+        long n = count.sum();
+        return n == 0 ? 0.0 : (double) totalMicros.sum() / n;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    /**
+     * Upper bound of the bucket holding the given percentile (0-100), in microseconds.
+     */
+    public long getPercentileMicros(double percentile) {
+        long n = count.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(n * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= Math.max(1, rank)) {
+                return Math.min(upperBoundOf(i), getMaxMicros());
+            }
+        }
+        return getMaxMicros();
+    }
+
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        totalMicros.reset();
+        maxMicros.reset();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    static int indexOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return (MAX_EXPONENT + 1) * SUB_BUCKETS - 1;
+        }
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = index % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + (subBucket + 1) * width - 1;
+    }
+
+    @Override
+    public String toString() {
+        return name + "{count=" + getCount()
+                + ", meanUs=" + Math.round(getMeanMicros())
+                + ", p50Us=" + getPercentileMicros(50)
+                + ", p90Us=" + getPercentileMicros(90)
+                + ", p99Us=" + getPercentileMicros(99)
+                + ", maxUs=" + getMaxMicros() + "}";
+    }
+}
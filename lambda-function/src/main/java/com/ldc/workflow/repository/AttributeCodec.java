@@ -0,0 +1,273 @@
+package com.ldc.workflow.repository;
+
+import com.ldc.workflow.business.DecisionSummary;
+import com.ldc.workflow.types.AttributeDecision;
+import com.ldc.workflow.types.LoanAttribute;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary form of a loan's attribute list, stored as the AttributeData item attribute
+ * in place of the Attributes JSON.
+ *
+ * Layout (varints are unsigned LEB128):
+ *
+ * <pre>
+ * format (1 byte) | dictionary version (varint) | attribute count (varint)
+ * then per attribute:
+ *   name reference (varint): 0 = literal, 1 = null, otherwise dictionary id + 2
+ *     a literal name follows as byte length (varint) + UTF-8
+ *   decision (1 byte): 0 = null, 1..5 = AttributeDecision ordinal + 1, 127 = literal
+ *     a literal decision follows as byte length (varint) + UTF-8
+ * </pre>
+ *
+ * A dictionary name costs one or two bytes and a known decision one, against the
+ * 55-70 bytes of JSON per attribute. Names and decisions outside the dictionary and
+ * the enum round-trip as text, so nothing stored is lost.
+ */
+public final class AttributeCodec {
+
+    static final byte FORMAT = 1;
+    static final int FIRST_NAME_ID = 2;
+    private static final int NAME_LITERAL = 0;
+    private static final int NAME_NULL = 1;
+    private static final int DECISION_NULL = 0;
+    private static final int DECISION_LITERAL = 127;
+    private static final AttributeDecision[] DECISIONS = AttributeDecision.values();
+
+    private AttributeCodec() {
+    }
+
+    public static byte[] encode(List<LoanAttribute> attributes, AttributeDictionary dictionary) {
+        Writer out = new Writer(8 + attributes.size() * 3);
+        out.writeByte(FORMAT);
+        out.writeVarint(dictionary.getVersion());
+        out.writeVarint(attributes.size());
+        for (LoanAttribute attribute : attributes) {
+            String name = attribute.getAttributeName();
+            int id = name == null ? -1 : dictionary.idOf(name);
+            if (name == null) {
+                out.writeVarint(NAME_NULL);
+            } else if (id >= 0) {
+                out.writeVarint(id + FIRST_NAME_ID);
+            } else {
+                out.writeVarint(NAME_LITERAL);
+                out.writeText(name);
+            }
+            String value = attribute.getAttributeDecision();
+            AttributeDecision decision = value == null ? null : AttributeDecision.fromValue(value);
+            if (value == null) {
+                out.writeByte(DECISION_NULL);
+            } else if (decision != null) {
+                out.writeByte(decision.ordinal() + 1);
+            } else {
+                out.writeByte(DECISION_LITERAL);
+                out.writeText(value);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode attributes; dictionary names and known decisions are shared instances,
+     * not new strings.
+     *
+     * @throws IllegalStateException    when the data refers to a name the dictionary
+     *                                  does not have (it was written with a newer version)
+     * @throws IllegalArgumentException when the data is malformed
+     */
+    public static List<LoanAttribute> decode(byte[] data, AttributeDictionary dictionary) {
+        Reader in = new Reader(data);
+        int version = in.readVarint();
+        int count = in.readVarint();
+        List<LoanAttribute> attributes = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                int reference = in.readVarint();
+                String name;
+                if (reference == NAME_LITERAL) {
+                    name = in.readText();
+                } else if (reference == NAME_NULL) {
+                    name = null;
+                } else if (reference - FIRST_NAME_ID < dictionary.size()) {
+                    name = dictionary.name(reference - FIRST_NAME_ID);
+                } else {
+                    throw new IllegalStateException("Attribute data written with dictionary version " + version
+                            + " refers to name " + (reference - FIRST_NAME_ID) + "; dictionary version "
+                            + dictionary.getVersion() + " has " + dictionary.size() + " names");
+                }
+                int code = in.readByte();
+                String decision;
+                if (code == DECISION_NULL) {
+                    decision = null;
+                } else if (code == DECISION_LITERAL) {
+                    decision = in.readText();
+                } else if (code <= DECISIONS.length) {
+                    decision = DECISIONS[code - 1].getValue();
+                } else {
+                    throw new IllegalArgumentException("Unknown decision code " + code);
+                }
+                attributes.add(new LoanAttribute(name, decision));
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated attribute data", e);
+        }
+        return attributes;
+    }
+
+    /**
+     * The dictionary version the data was written with.
+     */
+    public static int dictionaryVersion(byte[] data) {
+        return new Reader(data).readVarint();
+    }
+
+    /**
+     * Count the decisions without decoding a single name or decision string: the walk
+     * only skips over literals and allocates nothing per attribute. Needs no dictionary.
+     *
+     * @throws IllegalArgumentException when the data is malformed
+     */
+    public static DecisionSummary summarize(byte[] data) {
+        if (data.length == 0 || data[0] != FORMAT) {
+            throw new IllegalArgumentException("Unknown attribute data format");
+        }
+        int position = 1;
+        int pending = 0;
+        int approved = 0;
+        int rejected = 0;
+        int reclass = 0;
+        int repurchase = 0;
+        int unrecognized = 0;
+        try {
+            position = skipVarint(data, position);
+            long header = readVarint(data, position);
+            int count = (int) header;
+            position = (int) (header >>> 32);
+            for (int i = 0; i < count; i++) {
+                long reference = readVarint(data, position);
+                position = (int) (reference >>> 32);
+                if ((int) reference == NAME_LITERAL) {
+                    position = skipText(data, position);
+                }
+                int code = data[position++];
+                switch (code) {
+                    case DECISION_NULL, 1 -> pending++;
+                    case 2 -> approved++;
+                    case 3 -> rejected++;
+                    case 4 -> reclass++;
+                    case 5 -> repurchase++;
+                    case DECISION_LITERAL -> {
+                        unrecognized++;
+                        position = skipText(data, position);
+                    }
+                    default -> throw new IllegalArgumentException("Unknown decision code " + code);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated attribute data", e);
+        }
+        return DecisionSummary.fromCounts(pending, approved, rejected, reclass, repurchase, unrecognized);
+    }
+
+    /**
+     * @return the value in the low 32 bits and the position after it in the high 32 bits
+     */
+    private static long readVarint(byte[] data, int position) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data[position++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return ((long) position << 32) | (value & 0xFFFFFFFFL);
+            }
+        }
+    }
+
+    private static int skipVarint(byte[] data, int position) {
+        while (data[position++] < 0) {
+            // continuation bit set
+        }
+        return position;
+    }
+
+    private static int skipText(byte[] data, int position) {
+        long length = readVarint(data, position);
+        return (int) (length >>> 32) + (int) length;
+    }
+
+    private static final class Writer {
+        private byte[] buffer;
+        private int size;
+
+        private Writer(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        private void writeByte(int value) {
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        private void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte(value);
+        }
+
+        private void writeText(String text) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            if (size + bytes.length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + bytes.length));
+            }
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        private Reader(byte[] data) {
+            if (data.length == 0 || data[0] != FORMAT) {
+                throw new IllegalArgumentException("Unknown attribute data format");
+            }
+            this.data = data;
+            this.position = 1;
+        }
+
+        private int readByte() {
+            return data[position++] & 0xFF;
+        }
+
+        private int readVarint() {
+            try {
+                long result = AttributeCodec.readVarint(data, position);
+                position = (int) (result >>> 32);
+                return (int) result;
+            } catch (ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Truncated attribute data", e);
+            }
+        }
+
+        private String readText() {
+            int length = readVarint();
+            String text = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return text;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.ldc.workflow.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A versioned list of known attribute names; a name's id is its position.
+ *
+ * The dictionary is JSON:
+ *
+ * <pre>
+ * {
+ *   "version": 2,
+ *   "names": ["CreditScore", "Income", "Assets", "DebtToIncome"]
+ * }
+ * </pre>
+ *
+ * Stored attribute data refers to names by id, so a published dictionary is
+ * append-only: a new version keeps every name of the previous one at the same
+ * position and adds names at the end. Any later version can then decode what an
+ * earlier one encoded. Names outside the dictionary are still stored, as text.
+ */
+public final class AttributeDictionary {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final AttributeDictionary EMPTY = new AttributeDictionary(0, new String[0]);
+
+    /**
+     * Keeps every stored name reference to a varint of at most two bytes.
+     */
+    static final int MAX_NAMES = (1 << 14) - AttributeCodec.FIRST_NAME_ID;
+
+    private final int version;
+    private final String[] names;
+    private final Map<String, Integer> ids;
+
+    private AttributeDictionary(int version, String[] names) {
+        this.version = version;
+        this.names = names;
+        this.ids = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            ids.put(names[i], i);
+        }
+    }
+
+    /**
+     * Version 0, no names: every attribute name is stored as text.
+     */
+    public static AttributeDictionary empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @throws IllegalArgumentException when the JSON is malformed, the version is not a
+     *                                  positive integer, or a name is blank or repeated
+     */
+    public static AttributeDictionary parse(String json) {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(json);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Attribute dictionary is not valid JSON: " + e.getMessage(), e);
+        }
+        JsonNode version = root.path("version");
+        if (!version.canConvertToInt() || version.asInt() <= 0) {
+            throw new IllegalArgumentException("Attribute dictionary needs a positive integer version");
+        }
+        JsonNode list = root.path("names");
+        if (!list.isArray() || list.size() > MAX_NAMES) {
+            throw new IllegalArgumentException("Attribute dictionary needs a names array of at most "
+                    + MAX_NAMES + " entries");
+        }
+        String[] names = new String[list.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = list.get(i).asText("");
+            if (names[i].isBlank()) {
+                throw new IllegalArgumentException("Attribute dictionary name " + i + " is blank");
+            }
+        }
+        AttributeDictionary dictionary = new AttributeDictionary(version.asInt(), names);
+        if (dictionary.ids.size() != names.length) {
+            throw new IllegalArgumentException("Attribute dictionary version " + version.asInt()
+                    + " lists a name twice");
+        }
+        return dictionary;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * @return the name's id, or -1 when it is not in the dictionary
+     */
+    public int idOf(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * The dictionary's own instance of the name, shared by every decoded attribute.
+     */
+    public String name(int id) {
+        return names[id];
+    }
+
+    /**
+     * Whether this dictionary can replace {@code previous}: a higher version that
+     * keeps all of its names in place.
+     */
+    public boolean extendsDictionary(AttributeDictionary previous) {
+        if (version <= previous.version || names.length < previous.names.length) {
+            return false;
+        }
+        for (int i = 0; i < previous.names.length; i++) {
+            if (!names[i].equals(previous.names[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
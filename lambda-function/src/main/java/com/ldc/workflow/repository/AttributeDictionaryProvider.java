@@ -0,0 +1,149 @@
+package com.ldc.workflow.repository;
+
+import com.ldc.workflow.service.ConfigurationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds the attribute name dictionary loaded from Parameter Store through
+ * ConfigurationService, shared by every repository in the process.
+ *
+ * At most once per check interval a caller re-reads the parameter (normally a
+ * ConfigurationService cache hit) and a higher version is swapped in with one
+ * reference write. A version that drops, moves or renames a name of the active
+ * dictionary would misread stored data and is rejected, as is one that fails to
+ * parse; the active dictionary is kept. Until one is loaded the empty dictionary
+ * applies and names are stored as text.
+ *
+ * Environment variables:
+ * ATTRIBUTE_DICTIONARY_PARAMETER      parameter name, default /ldc-workflow/business_rules/attribute_dictionary
+ * ATTRIBUTE_DICTIONARY_CHECK_SECONDS  how often to look for a new version, default 300
+ */
+@Component
+public class AttributeDictionaryProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttributeDictionaryProvider.class);
+
+    static final String DEFAULT_PARAMETER = "/ldc-workflow/business_rules/attribute_dictionary";
+    private static final long DEFAULT_CHECK_SECONDS = 300;
+
+    private final ConfigurationService configurationService;
+    private final String parameterName;
+    private final long checkIntervalNanos;
+    private final LongSupplier clock;
+    private final AtomicReference<AttributeDictionary> current;
+    private final AtomicBoolean checking = new AtomicBoolean();
+    private volatile long nextCheckNanos;
+    private volatile String lastSource;
+
+    @Autowired
+    public AttributeDictionaryProvider(ConfigurationService configurationService) {
+        this(configurationService, getEnv("ATTRIBUTE_DICTIONARY_PARAMETER", DEFAULT_PARAMETER),
+                TimeUnit.SECONDS.toNanos(Long.parseLong(getEnv("ATTRIBUTE_DICTIONARY_CHECK_SECONDS",
+                        String.valueOf(DEFAULT_CHECK_SECONDS)))),
+                System::nanoTime);
+    }
+
+    /**
+     * @param configurationService null for a provider that only ever uses the empty dictionary
+     */
+    public AttributeDictionaryProvider(ConfigurationService configurationService, String parameterName,
+                                       long checkIntervalNanos, LongSupplier clock) {
+        this.configurationService = configurationService;
+        this.parameterName = parameterName;
+        this.checkIntervalNanos = checkIntervalNanos;
+        this.clock = clock;
+        this.current = new AtomicReference<>(AttributeDictionary.empty());
+        this.nextCheckNanos = clock.getAsLong();
+    }
+
+    /**
+     * A provider fixed to one dictionary.
+     */
+    public static AttributeDictionaryProvider of(AttributeDictionary dictionary) {
+        AttributeDictionaryProvider provider = new AttributeDictionaryProvider(null, DEFAULT_PARAMETER,
+                Long.MAX_VALUE, () -> 0L);
+        provider.current.set(dictionary);
+        return provider;
+    }
+
+    /**
+     * The active dictionary, first picking up a new version if the check interval has passed.
+     */
+    public AttributeDictionary current() {
+        if (configurationService != null && clock.getAsLong() - nextCheckNanos >= 0) {
+            checkForUpdate();
+        }
+        return current.get();
+    }
+
+    /**
+     * A dictionary able to decode data written with {@code version}: when another
+     * instance has already moved to a newer version, check for it now rather than
+     * waiting for the interval.
+     */
+    public AttributeDictionary atLeast(int version) {
+        AttributeDictionary dictionary = current();
+        if (dictionary.getVersion() < version && checkForUpdate()) {
+            dictionary = current.get();
+        }
+        return dictionary;
+    }
+
+    /**
+     * Re-read the parameter now and swap in a new version if there is one; only
+     * one caller checks at a time, the others keep using the active dictionary.
+     *
+     * @return true when a new dictionary was installed
+     */
+    public boolean checkForUpdate() {
+        if (configurationService == null || !checking.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            nextCheckNanos = clock.getAsLong() + checkIntervalNanos;
+            String source = configurationService.getParameter(parameterName);
+            if (source.equals(lastSource)) {
+                return false;
+            }
+            lastSource = source;
+
+            AttributeDictionary candidate = AttributeDictionary.parse(source);
+            AttributeDictionary active = current.get();
+            if (candidate.getVersion() == active.getVersion()) {
+                return false;
+            }
+            if (!candidate.extendsDictionary(active)) {
+                logger.error("Attribute dictionary version {} does not extend version {} (names may only be "
+                        + "appended); keeping the active dictionary", candidate.getVersion(), active.getVersion());
+                return false;
+            }
+            current.set(candidate);
+            logger.info("Attribute dictionary version {} ({} names) replaced version {}", candidate.getVersion(),
+                    candidate.size(), active.getVersion());
+            return true;
+        } catch (IllegalArgumentException e) {
+            logger.error("Rejected attribute dictionary {}; keeping version {}: {}", parameterName,
+                    current.get().getVersion(), e.getMessage());
+            return false;
+        } catch (RuntimeException e) {
+            logger.warn("Unable to load attribute dictionary {}; keeping version {}: {}", parameterName,
+                    current.get().getVersion(), e.getMessage());
+            return false;
+        } finally {
+            checking.set(false);
+        }
+    }
+
+    private static String getEnv(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+}
@@ -0,0 +1,217 @@
+package com.ldc.workflow.repository;
+
+import com.ldc.workflow.business.DecisionSummary;
+import com.ldc.workflow.types.AttributeDecision;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Recomputes the decision counters of workflow state items from their attribute
+ * list (AttributeData, or the Attributes JSON of older items) and repairs any that
+ * have drifted. Encoded attribute data is counted without decoding it.
+ *
+ * Counters can only drift through a write outside WorkflowStateRepository or a bug
+ * in one, and items written before the counters existed have none; both are found
+ * here. A repair sets the counters outright, conditioned on the item still being at
+ * the version that was checked, and leaves Version alone since the state itself
+ * does not change. An item updated in between is reported as a conflict and
+ * picked up by the next run.
+ */
+@Component
+public class DecisionCounterVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(DecisionCounterVerifier.class);
+    private static final AttributeDecision[] DECISIONS = AttributeDecision.values();
+    private static final String PROJECTION;
+    static {
+        StringBuilder projection = new StringBuilder("RequestNumber, LoanNumber, #attributes, ")
+                .append(WorkflowStateRepository.ATTRIBUTE_DATA).append(", Version, ")
+                .append(WorkflowStateRepository.TOTAL_COUNT);
+        for (AttributeDecision decision : DECISIONS) {
+            projection.append(", ").append(WorkflowStateRepository.countAttribute(decision));
+        }
+        PROJECTION = projection.toString();
+    }
+
+    public enum Outcome {
+        CONSISTENT, DRIFTED, REPAIRED, CONFLICT, MISSING
+    }
+
+    /**
+     * Tally of a table scan.
+     */
+    public static final class Report {
+        private int scanned;
+        private int drifted;
+        private int repaired;
+        private int conflicts;
+
+        public int getScanned() {
+            return scanned;
+        }
+
+        /**
+         * Items whose counters were wrong or missing, repaired or not.
+         */
+        public int getDrifted() {
+            return drifted;
+        }
+
+        public int getRepaired() {
+            return repaired;
+        }
+
+        public int getConflicts() {
+            return conflicts;
+        }
+    }
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+
+    @Autowired
+    public DecisionCounterVerifier(DynamoDbClient dynamoDbClient) {
+        this(dynamoDbClient, System.getenv("DYNAMODB_TABLE"));
+    }
+
+    public DecisionCounterVerifier(DynamoDbClient dynamoDbClient, String tableName) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+        if (this.tableName == null || this.tableName.isEmpty()) {
+            throw new IllegalArgumentException("DYNAMODB_TABLE environment variable is required");
+        }
+    }
+
+    /**
+     * Check one item with a strongly consistent read.
+     */
+    public Outcome verify(String requestNumber, String loanNumber, boolean repair) {
+        Map<String, AttributeValue> item = dynamoDbClient.getItem(GetItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of(
+                        "RequestNumber", AttributeValue.builder().s(requestNumber).build(),
+                        "LoanNumber", AttributeValue.builder().s(loanNumber).build()))
+                .projectionExpression(PROJECTION)
+                .expressionAttributeNames(Map.of("#attributes", "Attributes"))
+                .consistentRead(true)
+                .build()).item();
+        if (item == null || item.isEmpty()) {
+            return Outcome.MISSING;
+        }
+        return check(item, repair);
+    }
+
+    /**
+     * Check every item in the table, page by page.
+     */
+    public Report verifyAll(boolean repair) {
+        Report report = new Report();
+        Map<String, AttributeValue> startKey = null;
+        do {
+            ScanRequest.Builder request = ScanRequest.builder()
+                    .tableName(tableName)
+                    .projectionExpression(PROJECTION)
+                    .expressionAttributeNames(Map.of("#attributes", "Attributes"));
+            if (startKey != null) {
+                request.exclusiveStartKey(startKey);
+            }
+            ScanResponse response = dynamoDbClient.scan(request.build());
+            for (Map<String, AttributeValue> item : response.items()) {
+                report.scanned++;
+                switch (check(item, repair)) {
+                    case DRIFTED -> report.drifted++;
+                    case REPAIRED -> {
+                        report.drifted++;
+                        report.repaired++;
+                    }
+                    case CONFLICT -> {
+                        report.drifted++;
+                        report.conflicts++;
+                    }
+                    default -> {
+                    }
+                }
+            }
+            startKey = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()
+                    ? response.lastEvaluatedKey() : null;
+        } while (startKey != null);
+        logger.info("Verified decision counters of {} workflow states: {} drifted, {} repaired, {} conflicts",
+                report.scanned, report.drifted, report.repaired, report.conflicts);
+        return report;
+    }
+
+    private Outcome check(Map<String, AttributeValue> item, boolean repair) {
+        String requestNumber = item.get("RequestNumber").s();
+        String loanNumber = item.get("LoanNumber").s();
+        DecisionSummary actual;
+        try {
+            actual = WorkflowStateRepository.summarizeAttributes(item);
+        } catch (Exception e) {
+            logger.error("Unreadable attributes for requestNumber: {}, loanNumber: {}", requestNumber, loanNumber, e);
+            return Outcome.DRIFTED;
+        }
+        if (matches(item, actual)) {
+            return Outcome.CONSISTENT;
+        }
+        logger.warn("Decision counters drifted for requestNumber: {}, loanNumber: {}; attributes give {}",
+                requestNumber, loanNumber, actual);
+        if (!repair) {
+            return Outcome.DRIFTED;
+        }
+
+        Map<String, AttributeValue> values = new HashMap<>();
+        StringBuilder set = new StringBuilder("SET ");
+        for (Map.Entry<String, AttributeValue> counter : WorkflowStateRepository.counterValues(actual).entrySet()) {
+            String placeholder = ":" + counter.getKey();
+            if (!values.isEmpty()) {
+                set.append(", ");
+            }
+            set.append(counter.getKey()).append(" = ").append(placeholder);
+            values.put(placeholder, counter.getValue());
+        }
+        UpdateItemRequest.Builder request = UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("RequestNumber", item.get("RequestNumber"), "LoanNumber", item.get("LoanNumber")))
+                .updateExpression(set.toString());
+        if (item.containsKey("Version")) {
+            values.put(":version", item.get("Version"));
+            request.conditionExpression("Version = :version");
+        } else {
+            request.conditionExpression("attribute_not_exists(Version)");
+        }
+        try {
+            dynamoDbClient.updateItem(request.expressionAttributeValues(values).build());
+            return Outcome.REPAIRED;
+        } catch (ConditionalCheckFailedException e) {
+            logger.warn("Workflow state changed during counter repair, requestNumber: {}, loanNumber: {}",
+                    requestNumber, loanNumber);
+            return Outcome.CONFLICT;
+        }
+    }
+
+    private static boolean matches(Map<String, AttributeValue> item, DecisionSummary actual) {
+        AttributeValue total = item.get(WorkflowStateRepository.TOTAL_COUNT);
+        if (total == null || Integer.parseInt(total.n()) != actual.size()) {
+            return false;
+        }
+        int[] stored = WorkflowStateRepository.readCounts(item);
+        for (AttributeDecision decision : DECISIONS) {
+            if (stored[decision.ordinal()] != actual.count(decision)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
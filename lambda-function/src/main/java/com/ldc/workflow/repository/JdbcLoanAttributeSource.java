@@ -0,0 +1,168 @@
+package com.ldc.workflow.repository;
+
+import com.ldc.workflow.business.DecisionSummary;
+import com.ldc.workflow.types.LoanAttribute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Attributes from the PostgreSQL loan_attributes table, the system of record for
+ * attribute decisions:
+ *
+ * <pre>
+ * CREATE TABLE loan_attributes (
+ *     request_number     varchar(64)  NOT NULL,
+ *     loan_number        varchar(10)  NOT NULL,
+ *     attribute_name     varchar(128) NOT NULL,
+ *     attribute_decision varchar(16),
+ *     PRIMARY KEY (request_number, loan_number, attribute_name)
+ * );
+ * </pre>
+ *
+ * Both queries are a range scan of the primary key. summarize() is the fast path the
+ * polling evaluation uses: the server groups by decision, so at most six rows come
+ * back however many attributes the loan has, and each row is mapped straight to a
+ * decision count without building LoanAttribute objects. Statements are prepared
+ * with a fixed text, so the driver can keep them prepared on a pooled connection
+ * (pgjdbc does after prepareThreshold uses). Reads run in autocommit, where pgjdbc
+ * brings back the whole result in one round trip; no fetch size is set, as the
+ * driver would only use it inside a transaction and the results are small.
+ *
+ * summarizeAll() does the same for many loans of a request with one
+ * {@code loan_number = ANY(?)} query per batchSize loans, on one connection. The
+ * grouped rows stream into one accumulator per loan.
+ */
+public class JdbcLoanAttributeSource implements LoanAttributeSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcLoanAttributeSource.class);
+
+    static final String ATTRIBUTES_SQL = "SELECT attribute_name, attribute_decision FROM loan_attributes"
+            + " WHERE request_number = ? AND loan_number = ? ORDER BY attribute_name";
+    static final String SUMMARY_SQL = "SELECT attribute_decision, count(*) FROM loan_attributes"
+            + " WHERE request_number = ? AND loan_number = ? GROUP BY attribute_decision";
+    static final String BATCH_SUMMARY_SQL = "SELECT loan_number, attribute_decision, count(*) FROM loan_attributes"
+            + " WHERE request_number = ? AND loan_number = ANY(?) GROUP BY loan_number, attribute_decision";
+    static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final DataSource dataSource;
+    private final int queryTimeoutSeconds;
+    private final int batchSize;
+
+    public JdbcLoanAttributeSource(DataSource dataSource, int queryTimeoutSeconds) {
+        this(dataSource, queryTimeoutSeconds, DEFAULT_BATCH_SIZE);
+    }
+
+    public JdbcLoanAttributeSource(DataSource dataSource, int queryTimeoutSeconds, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1, got " + batchSize);
+        }
+        this.dataSource = dataSource;
+        this.queryTimeoutSeconds = queryTimeoutSeconds;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public List<LoanAttribute> findAttributes(String requestNumber, String loanNumber) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = prepare(connection, ATTRIBUTES_SQL, requestNumber, loanNumber);
+             ResultSet rows = statement.executeQuery()) {
+            List<LoanAttribute> attributes = new ArrayList<>();
+            while (rows.next()) {
+                attributes.add(new LoanAttribute(rows.getString(1), rows.getString(2)));
+            }
+            return attributes;
+        } catch (SQLException e) {
+            logger.error("Error reading loan attributes for requestNumber: {}, loanNumber: {}",
+                    requestNumber, loanNumber, e);
+            throw new RuntimeException("Failed to retrieve loan attributes", e);
+        }
+    }
+
+    @Override
+    public DecisionSummary summarize(String requestNumber, String loanNumber) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = prepare(connection, SUMMARY_SQL, requestNumber, loanNumber);
+             ResultSet rows = statement.executeQuery()) {
+            DecisionSummary.Accumulator accumulator = new DecisionSummary.Accumulator();
+            while (rows.next()) {
+                // A NULL decision is Pending, as on the workflow state item
+                accumulator.add(rows.getString(1), rows.getInt(2));
+            }
+            return accumulator.toSummary();
+        } catch (SQLException e) {
+            logger.error("Error summarizing loan attributes for requestNumber: {}, loanNumber: {}",
+                    requestNumber, loanNumber, e);
+            throw new RuntimeException("Failed to retrieve loan attributes", e);
+        }
+    }
+
+    @Override
+    public Map<String, DecisionSummary> summarizeAll(String requestNumber, Collection<String> loanNumbers) {
+        Map<String, DecisionSummary.Accumulator> accumulators = new LinkedHashMap<>();
+        for (String loanNumber : loanNumbers) {
+            accumulators.putIfAbsent(loanNumber, new DecisionSummary.Accumulator());
+        }
+        if (accumulators.isEmpty()) {
+            return Map.of();
+        }
+        String[] loans = accumulators.keySet().toArray(String[]::new);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(BATCH_SUMMARY_SQL)) {
+            statement.setQueryTimeout(queryTimeoutSeconds);
+            statement.setString(1, requestNumber);
+            for (int from = 0; from < loans.length; from += batchSize) {
+                String[] chunk = Arrays.copyOfRange(loans, from, Math.min(loans.length, from + batchSize));
+                Array array = connection.createArrayOf("varchar", chunk);
+                try {
+                    statement.setArray(2, array);
+                    try (ResultSet rows = statement.executeQuery()) {
+                        while (rows.next()) {
+                            accumulators.get(rows.getString(1)).add(rows.getString(2), rows.getInt(3));
+                        }
+                    }
+                } finally {
+                    array.free();
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error summarizing loan attributes for requestNumber: {}, {} loans",
+                    requestNumber, loans.length, e);
+            throw new RuntimeException("Failed to retrieve loan attributes", e);
+        }
+        Map<String, DecisionSummary> summaries = new LinkedHashMap<>(accumulators.size() * 2);
+        accumulators.forEach((loanNumber, accumulator) -> summaries.put(loanNumber, accumulator.toSummary()));
+        return summaries;
+    }
+
+    private PreparedStatement prepare(Connection connection, String sql, String requestNumber, String loanNumber)
+            throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        try {
+            statement.setQueryTimeout(queryTimeoutSeconds);
+            statement.setString(1, requestNumber);
+            statement.setString(2, loanNumber);
+            return statement;
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public String name() {
+        return "postgres";
+    }
+}
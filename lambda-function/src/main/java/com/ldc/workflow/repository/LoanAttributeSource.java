@@ -0,0 +1,51 @@
+package com.ldc.workflow.repository;
+
+import com.ldc.workflow.business.DecisionSummary;
+import com.ldc.workflow.types.LoanAttribute;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where a loan's attribute decisions are read from: the workflow state item
+ * (WorkflowStateAttributeSource) or the PostgreSQL loan_attributes table
+ * (JdbcLoanAttributeSource). Selected by LoanAttributeSourceConfig.
+ */
+public interface LoanAttributeSource {
+
+    /**
+     * @return the loan's attributes, empty when it has none
+     */
+    List<LoanAttribute> findAttributes(String requestNumber, String loanNumber);
+
+    /**
+     * Per-decision counts for the loan, without building the attribute list where
+     * the source allows it.
+     */
+    DecisionSummary summarize(String requestNumber, String loanNumber);
+
+    /**
+     * Summaries for many loans of one request, in as few reads as the source allows.
+     * Every requested loan is in the result, with an empty summary when it has no
+     * attributes.
+     */
+    default Map<String, DecisionSummary> summarizeAll(String requestNumber, Collection<String> loanNumbers) {
+        Map<String, DecisionSummary> summaries = new LinkedHashMap<>();
+        for (String loanNumber : loanNumbers) {
+            summaries.computeIfAbsent(loanNumber, loan -> summarize(requestNumber, loan));
+        }
+        return summaries;
+    }
+
+    /**
+     * @return true when the attributes are the ones on the workflow state item, so a
+     * state read already carries them and its decision counters describe them
+     */
+    default boolean isWorkflowState() {
+        return false;
+    }
+
+    String name();
+}
@@ -0,0 +1,15 @@
+package com.ldc.workflow.repository;
+
+/**
+ * A conditional write found the workflow state item changed since it was read.
+ * The caller should read the state again, re-apply its change and retry.
+ */
+public class StaleWorkflowStateException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public StaleWorkflowStateException(String requestNumber, String loanNumber, long readVersion) {
+        super("Workflow state " + requestNumber + "/" + loanNumber + " changed since version " + readVersion
+                + " was read");
+    }
+}
@@ -0,0 +1,399 @@
+package com.ldc.workflow.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ldc.workflow.service.VendPpaClient;
+import com.ldc.workflow.types.WorkflowState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Outbox of Vend PPA submissions, one row per loan in a table keyed like the
+ * workflow state table (RequestNumber + LoanNumber).
+ *
+ * A loan's final status and its submission are written together: one
+ * TransactWriteItems updates the state item (LoanStatus, VendPpaKey, Version) and
+ * puts the outbox row holding the exact payload and idempotency key to send. The
+ * state update is conditioned on the version that was read and on VendPpaKey being
+ * absent, so a loan is queued at most once whichever way the workflow is re-run.
+ *
+ * A row is PENDING until Vend PPA accepts it, when it is deleted, or FAILED once it
+ * has used up its delivery attempts. Delivery is at least once: a dispatcher claims
+ * a due row by moving its lease forward (LeaseUntil, epoch millis) and counting the
+ * attempt, conditioned on the lease having run out, so two dispatchers never hold
+ * the same row at once; a dispatcher that dies mid-call leaves the row to be claimed
+ * again when the lease ends. The acknowledgement is a delete conditioned on the
+ * idempotency key, and Vend PPA itself dedupes on that key, so a redelivered row
+ * that had in fact gone through records nothing twice.
+ *
+ * The execution waiting on the submission leaves its task token on the row; the
+ * delete returns the row as it was, so whoever acknowledges it sees the token
+ * whether it was attached before or after the claim.
+ *
+ * Environment variables:
+ * VEND_PPA_OUTBOX_TABLE   outbox table, default DYNAMODB_TABLE + "-outbox"
+ */
+@Repository
+public class VendPpaOutboxRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(VendPpaOutboxRepository.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    public static final String PENDING = "PENDING";
+    public static final String FAILED = "FAILED";
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String stateTableName;
+    private final String outboxTableName;
+
+    @Autowired
+    public VendPpaOutboxRepository(DynamoDbClient dynamoDbClient) {
+        this(dynamoDbClient, System.getenv("DYNAMODB_TABLE"), outboxTable(System.getenv("VEND_PPA_OUTBOX_TABLE"),
+                System.getenv("DYNAMODB_TABLE")));
+    }
+
+    public VendPpaOutboxRepository(DynamoDbClient dynamoDbClient, String stateTableName, String outboxTableName) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.stateTableName = stateTableName;
+        this.outboxTableName = outboxTableName;
+        if (this.stateTableName == null || this.stateTableName.isEmpty()) {
+            throw new IllegalArgumentException("DYNAMODB_TABLE environment variable is required");
+        }
+    }
+
+    private static String outboxTable(String configured, String stateTable) {
+        if (configured != null && !configured.isEmpty()) {
+            return configured;
+        }
+        return stateTable == null ? null : stateTable + "-outbox";
+    }
+
+    /**
+     * Record the loan's final status on its state and queue its submission, in one
+     * transaction. The submission is built from the state as read, so its
+     * idempotency key is the one a direct call at that version would have used.
+     *
+     * @return true when queued now, false when the loan had been queued before
+     * @throws StaleWorkflowStateException when the state changed since it was read;
+     *                                     re-read and try again
+     */
+    public boolean enqueue(WorkflowState state, String loanStatus, long nowMillis) {
+        VendPpaClient.Submission submission = VendPpaClient.Submission.of(state, loanStatus);
+        long readVersion = state.getVersion() != null ? state.getVersion() : 0;
+        String idempotencyKey = submission.getIdempotencyKey();
+        try {
+            Map<String, AttributeValue> stateValues = new HashMap<>();
+            stateValues.put(":loanStatus", s(loanStatus));
+            stateValues.put(":vendPpaKey", s(idempotencyKey));
+            stateValues.put(":updatedAt", s(Instant.ofEpochMilli(nowMillis).toString()));
+            stateValues.put(":version", n(readVersion));
+            stateValues.put(":one", n(1));
+
+            Map<String, AttributeValue> row = new HashMap<>(key(state.getRequestNumber(), state.getLoanNumber()));
+            row.put("IdempotencyKey", s(idempotencyKey));
+            row.put("Payload", s(objectMapper.writeValueAsString(submission)));
+            row.put("OutboxStatus", s(PENDING));
+            row.put("Attempts", n(0));
+            row.put("LeaseUntil", n(0));
+            row.put("EnqueuedAt", n(nowMillis));
+
+            dynamoDbClient.transactWriteItems(TransactWriteItemsRequest.builder()
+                    .transactItems(
+                            TransactWriteItem.builder().update(Update.builder()
+                                    .tableName(stateTableName)
+                                    .key(key(state.getRequestNumber(), state.getLoanNumber()))
+                                    .updateExpression("SET LoanStatus = :loanStatus, VendPpaKey = :vendPpaKey, "
+                                            + "UpdatedAt = :updatedAt ADD Version :one")
+                                    .conditionExpression("Version = :version AND attribute_not_exists(VendPpaKey)")
+                                    .expressionAttributeValues(stateValues)
+                                    .build()).build(),
+                            TransactWriteItem.builder().put(Put.builder()
+                                    .tableName(outboxTableName)
+                                    .item(row)
+                                    .conditionExpression("attribute_not_exists(IdempotencyKey)")
+                                    .build()).build())
+                    .build());
+        } catch (TransactionCanceledException e) {
+            List<CancellationReason> reasons = e.cancellationReasons();
+            boolean stateFailed = reasons.isEmpty() || !"None".equals(reasons.get(0).code());
+            if (stateFailed && !isQueued(state.getRequestNumber(), state.getLoanNumber())) {
+                throw new StaleWorkflowStateException(state.getRequestNumber(), state.getLoanNumber(), readVersion);
+            }
+            logger.info("Vend PPA submission already queued for requestNumber: {}, loanNumber: {}",
+                    state.getRequestNumber(), state.getLoanNumber());
+            return false;
+        } catch (Exception e) {
+            logger.error("Error queueing Vend PPA submission for requestNumber: {}", state.getRequestNumber(), e);
+            throw new RuntimeException("Failed to queue Vend PPA submission", e);
+        }
+        state.setVersion(readVersion + 1);
+        state.setLoanStatus(loanStatus);
+        logger.info("Queued Vend PPA submission for requestNumber: {}, loanNumber: {}",
+                state.getRequestNumber(), state.getLoanNumber());
+        return true;
+    }
+
+    private boolean isQueued(String requestNumber, String loanNumber) {
+        Map<String, AttributeValue> item = dynamoDbClient.getItem(GetItemRequest.builder()
+                .tableName(stateTableName)
+                .key(key(requestNumber, loanNumber))
+                .projectionExpression("VendPpaKey")
+                .consistentRead(true)
+                .build()).item();
+        return item != null && item.containsKey("VendPpaKey");
+    }
+
+    /**
+     * Claim a due PENDING row for one delivery attempt, leasing it until
+     * {@code leaseUntilMillis}.
+     *
+     * @return the claimed row, or empty when it is gone, failed, or leased to
+     *         another dispatcher
+     */
+    public Optional<Entry> claim(String requestNumber, String loanNumber, long nowMillis, long leaseUntilMillis) {
+        try {
+            return Optional.of(Entry.of(dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                    .tableName(outboxTableName)
+                    .key(key(requestNumber, loanNumber))
+                    .updateExpression("SET LeaseUntil = :lease ADD Attempts :one")
+                    .conditionExpression("OutboxStatus = :pending AND LeaseUntil <= :now")
+                    .expressionAttributeValues(Map.of(
+                            ":lease", n(leaseUntilMillis),
+                            ":one", n(1),
+                            ":pending", s(PENDING),
+                            ":now", n(nowMillis)))
+                    .returnValues(ReturnValue.ALL_NEW)
+                    .build()).attributes()));
+        } catch (ConditionalCheckFailedException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Delete a row Vend PPA has accepted.
+     *
+     * @return the row as it was, with any task token attached since the claim, or
+     *         empty when it was already acknowledged
+     */
+    public Optional<Entry> acknowledge(Entry entry) {
+        try {
+            Map<String, AttributeValue> old = dynamoDbClient.deleteItem(DeleteItemRequest.builder()
+                    .tableName(outboxTableName)
+                    .key(key(entry.getRequestNumber(), entry.getLoanNumber()))
+                    .conditionExpression("IdempotencyKey = :key")
+                    .expressionAttributeValues(Map.of(":key", s(entry.getIdempotencyKey())))
+                    .returnValues(ReturnValue.ALL_OLD)
+                    .build()).attributes();
+            return old == null || old.isEmpty() ? Optional.empty() : Optional.of(Entry.of(old));
+        } catch (ConditionalCheckFailedException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Give a claimed row back after a failed attempt; it is due again at
+     * {@code retryAtMillis}. Does nothing if the row was claimed again meanwhile.
+     */
+    public void release(Entry entry, long retryAtMillis, String error) {
+        try {
+            dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                    .tableName(outboxTableName)
+                    .key(key(entry.getRequestNumber(), entry.getLoanNumber()))
+                    .updateExpression("SET LeaseUntil = :retryAt, LastError = :error")
+                    .conditionExpression("Attempts = :attempts")
+                    .expressionAttributeValues(Map.of(
+                            ":retryAt", n(retryAtMillis),
+                            ":error", s(error),
+                            ":attempts", n(entry.getAttempts())))
+                    .build());
+        } catch (ConditionalCheckFailedException e) {
+            logger.info("Outbox row for loanNumber: {} was claimed again before release", entry.getLoanNumber());
+        }
+    }
+
+    /**
+     * Mark a claimed row FAILED so it is not delivered again.
+     *
+     * @return the row as marked, with its task token if one is attached, or empty
+     *         when the row was claimed again meanwhile
+     */
+    public Optional<Entry> fail(Entry entry, String error) {
+        try {
+            return Optional.of(Entry.of(dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                    .tableName(outboxTableName)
+                    .key(key(entry.getRequestNumber(), entry.getLoanNumber()))
+                    .updateExpression("SET OutboxStatus = :failed, LastError = :error")
+                    .conditionExpression("Attempts = :attempts")
+                    .expressionAttributeValues(Map.of(
+                            ":failed", s(FAILED),
+                            ":error", s(error),
+                            ":attempts", n(entry.getAttempts())))
+                    .returnValues(ReturnValue.ALL_NEW)
+                    .build()).attributes()));
+        } catch (ConditionalCheckFailedException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Leave the waiting execution's task token on the loan's row.
+     *
+     * @return the row with the token, or empty when there is no row: the
+     *         submission has been acknowledged already
+     */
+    public Optional<Entry> attachTaskToken(String requestNumber, String loanNumber, String taskToken) {
+        try {
+            return Optional.of(Entry.of(dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                    .tableName(outboxTableName)
+                    .key(key(requestNumber, loanNumber))
+                    .updateExpression("SET TaskToken = :taskToken")
+                    .conditionExpression("attribute_exists(IdempotencyKey)")
+                    .expressionAttributeValues(Map.of(":taskToken", s(taskToken)))
+                    .returnValues(ReturnValue.ALL_NEW)
+                    .build()).attributes()));
+        } catch (ConditionalCheckFailedException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * PENDING rows whose lease has run out, at most {@code limit}, for redelivery.
+     * Acknowledged rows are deleted, so the scan only reads rows still in flight.
+     */
+    public List<Entry> findDue(long nowMillis, int limit) {
+        List<Entry> due = new ArrayList<>();
+        Map<String, AttributeValue> startKey = null;
+        do {
+            ScanRequest.Builder request = ScanRequest.builder()
+                    .tableName(outboxTableName)
+                    .filterExpression("OutboxStatus = :pending AND LeaseUntil <= :now")
+                    .expressionAttributeValues(Map.of(":pending", s(PENDING), ":now", n(nowMillis)))
+                    .consistentRead(true);
+            if (startKey != null) {
+                request.exclusiveStartKey(startKey);
+            }
+            ScanResponse response = dynamoDbClient.scan(request.build());
+            for (Map<String, AttributeValue> item : response.items()) {
+                if (due.size() < limit) {
+                    due.add(Entry.of(item));
+                }
+            }
+            startKey = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()
+                    ? response.lastEvaluatedKey() : null;
+        } while (startKey != null && due.size() < limit);
+        return due;
+    }
+
+    public String getOutboxTableName() {
+        return outboxTableName;
+    }
+
+    private static Map<String, AttributeValue> key(String requestNumber, String loanNumber) {
+        return Map.of(
+                "RequestNumber", s(requestNumber),
+                "LoanNumber", s(loanNumber));
+    }
+
+    private static AttributeValue s(String value) {
+        return AttributeValue.builder().s(value).build();
+    }
+
+    private static AttributeValue n(long value) {
+        return AttributeValue.builder().n(Long.toString(value)).build();
+    }
+
+    /**
+     * One outbox row.
+     */
+    public static final class Entry {
+        private final String requestNumber;
+        private final String loanNumber;
+        private final String idempotencyKey;
+        private final String payload;
+        private final String status;
+        private final int attempts;
+        private final long enqueuedAtMillis;
+        private final String taskToken;
+
+        private Entry(String requestNumber, String loanNumber, String idempotencyKey, String payload, String status,
+                      int attempts, long enqueuedAtMillis, String taskToken) {
+            this.requestNumber = requestNumber;
+            this.loanNumber = loanNumber;
+            this.idempotencyKey = idempotencyKey;
+            this.payload = payload;
+            this.status = status;
+            this.attempts = attempts;
+            this.enqueuedAtMillis = enqueuedAtMillis;
+            this.taskToken = taskToken;
+        }
+
+        static Entry of(Map<String, AttributeValue> item) {
+            AttributeValue token = item.get("TaskToken");
+            return new Entry(item.get("RequestNumber").s(), item.get("LoanNumber").s(),
+                    item.get("IdempotencyKey").s(), item.get("Payload").s(), item.get("OutboxStatus").s(),
+                    Integer.parseInt(item.get("Attempts").n()), Long.parseLong(item.get("EnqueuedAt").n()),
+                    token == null ? null : token.s());
+        }
+
+        public String getRequestNumber() {
+            return requestNumber;
+        }
+
+        public String getLoanNumber() {
+            return loanNumber;
+        }
+
+        public String getIdempotencyKey() {
+            return idempotencyKey;
+        }
+
+        /**
+         * The request body for Vend PPA, as serialized when the row was queued.
+         */
+        public String getPayload() {
+            return payload;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        /**
+         * Delivery attempts claimed so far, this one included.
+         */
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public long getEnqueuedAtMillis() {
+            return enqueuedAtMillis;
+        }
+
+        public String getTaskToken() {
+            return taskToken;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.ldc.workflow.repository;
+
+import com.ldc.workflow.business.DecisionSummary;
+import com.ldc.workflow.types.DecisionProgress;
+import com.ldc.workflow.types.LoanAttribute;
+import com.ldc.workflow.types.WorkflowState;
+import com.ldc.workflow.types.WorkflowStateKey;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Attributes as stored on the workflow state item in DynamoDB. A summary comes
+ * from the stored decision counters when the item has them, otherwise from the
+ * attribute list.
+ */
+public class WorkflowStateAttributeSource implements LoanAttributeSource {
+
+    private final WorkflowStateRepository workflowStateRepository;
+
+    public WorkflowStateAttributeSource(WorkflowStateRepository workflowStateRepository) {
+        this.workflowStateRepository = workflowStateRepository;
+    }
+
+    @Override
+    public List<LoanAttribute> findAttributes(String requestNumber, String loanNumber) {
+        return workflowStateRepository.findByRequestNumberAndLoanNumber(requestNumber, loanNumber)
+                .map(WorkflowState::getAttributes)
+                .orElse(List.of());
+    }
+
+    @Override
+    public DecisionSummary summarize(String requestNumber, String loanNumber) {
+        Optional<DecisionProgress> progress = workflowStateRepository.findDecisionProgress(requestNumber,
+                loanNumber, null);
+        if (progress.isPresent() && progress.get().hasCounters()) {
+            return DecisionSummary.fromCounters(progress.get());
+        }
+        return DecisionSummary.of(findAttributes(requestNumber, loanNumber));
+    }
+
+    /**
+     * One batch read of the state items; their attribute lists are summarized.
+     */
+    @Override
+    public Map<String, DecisionSummary> summarizeAll(String requestNumber, Collection<String> loanNumbers) {
+        List<WorkflowStateKey> keys = new ArrayList<>();
+        for (String loanNumber : new LinkedHashSet<>(loanNumbers)) {
+            keys.add(new WorkflowStateKey(requestNumber, loanNumber));
+        }
+        Map<WorkflowStateKey, WorkflowState> states = workflowStateRepository.findAll(keys);
+        Map<String, DecisionSummary> summaries = new LinkedHashMap<>();
+        for (WorkflowStateKey key : keys) {
+            WorkflowState state = states.get(key);
+            summaries.put(key.getLoanNumber(), DecisionSummary.of(state != null ? state.getAttributes() : null));
+        }
+        return summaries;
+    }
+
+    @Override
+    public boolean isWorkflowState() {
+        return true;
+    }
+
+    @Override
+    public String name() {
+        return "dynamodb";
+    }
+}
@@ -1,21 +1,50 @@
 package com.ldc.workflow.repository;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ldc.workflow.business.DecisionSummary;
+import com.ldc.workflow.types.AttributeDecision;
+import com.ldc.workflow.types.DecisionProgress;
+import com.ldc.workflow.types.LoanAttribute;
 import com.ldc.workflow.types.WorkflowState;
+import com.ldc.workflow.types.WorkflowStateKey;
+import com.ldc.workflow.util.Backoff;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.core.SdkBytes;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.*;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 /**
  * Repository for persisting and retrieving workflow state from DynamoDB.
  * Handles all DynamoDB operations for the loan review workflow.
+ *
+ * Next to the Attributes list every item carries TotalCount and a count per
+ * attribute decision (PendingCount, ApprovedCount, ...). Full writes store them
+ * outright; decision updates adjust them with ADD in the same UpdateItem, so a
+ * completion poll can read the counters instead of the attribute list.
+ *
+ * The attribute list itself is stored as AttributeData, the binary form written by
+ * AttributeCodec against the shared AttributeDictionary. Items written before then
+ * carry an Attributes JSON string instead; both are read, and the next write of such
+ * an item replaces the JSON.
+ *
+ * Environment variables:
+ * DYNAMODB_TABLE             table name
+ * ATTRIBUTE_STORAGE_FORMAT   encoded (default) or json; json keeps writing the
+ *                            Attributes string, for a rollback to a build that
+ *                            cannot read AttributeData
  */
 @Repository
 public class WorkflowStateRepository {
@@ -23,12 +52,48 @@ public class WorkflowStateRepository {
     private static final Logger logger = LoggerFactory.getLogger(WorkflowStateRepository.class);
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
+    // DynamoDB limits: 100 keys per BatchGetItem, 25 requests per BatchWriteItem,
+    // 100 actions per TransactWriteItems
+    private static final int BATCH_GET_LIMIT = 100;
+    private static final int BATCH_WRITE_LIMIT = 25;
+    private static final int TRANSACT_WRITE_LIMIT = 100;
+    private static final int MAX_BATCH_ATTEMPTS = 6;
+
+    static final String ATTRIBUTES = "Attributes";
+    static final String ATTRIBUTE_DATA = "AttributeData";
+    static final String TOTAL_COUNT = "TotalCount";
+    private static final AttributeDecision[] DECISIONS = AttributeDecision.values();
+    private static final String[] COUNT_ATTRIBUTES = new String[DECISIONS.length];
+    static {
+        for (AttributeDecision decision : DECISIONS) {
+            COUNT_ATTRIBUTES[decision.ordinal()] = decision.getValue() + "Count";
+        }
+    }
+    private static final String PROGRESS_PROJECTION = "LoanDecision, Version, CreatedAt, UpdatedAt, "
+            + TOTAL_COUNT + ", " + String.join(", ", COUNT_ATTRIBUTES);
+
     private final DynamoDbClient dynamoDbClient;
     private final String tableName;
+    private final AttributeDictionaryProvider dictionaryProvider;
+    private final boolean encodeAttributes;
+    private final Backoff backoff = new Backoff(25, 1000);
+
+    @Autowired
+    public WorkflowStateRepository(DynamoDbClient dynamoDbClient, AttributeDictionaryProvider dictionaryProvider) {
+        this(dynamoDbClient, System.getenv("DYNAMODB_TABLE"), dictionaryProvider,
+                !"json".equalsIgnoreCase(System.getenv("ATTRIBUTE_STORAGE_FORMAT")));
+    }
+
+    public WorkflowStateRepository(DynamoDbClient dynamoDbClient, String tableName) {
+        this(dynamoDbClient, tableName, AttributeDictionaryProvider.of(AttributeDictionary.empty()), true);
+    }
 
-    public WorkflowStateRepository(DynamoDbClient dynamoDbClient) {
+    public WorkflowStateRepository(DynamoDbClient dynamoDbClient, String tableName,
+                                   AttributeDictionaryProvider dictionaryProvider, boolean encodeAttributes) {
         this.dynamoDbClient = dynamoDbClient;
-        this.tableName = System.getenv("DYNAMODB_TABLE");
+        this.tableName = tableName;
+        this.dictionaryProvider = dictionaryProvider;
+        this.encodeAttributes = encodeAttributes;
         if (this.tableName == null || this.tableName.isEmpty()) {
             throw new IllegalArgumentException("DYNAMODB_TABLE environment variable is required");
         }
@@ -39,57 +104,378 @@ public class WorkflowStateRepository {
      */
     public void save(WorkflowState state) {
         try {
-            // Set timestamps
-            if (state.getCreatedAt() == null) {
-                state.setCreatedAt(Instant.now().toString());
-            }
-            state.setUpdatedAt(Instant.now().toString());
+            // Put item in DynamoDB
+            PutItemRequest request = PutItemRequest.builder()
+                    .tableName(tableName)
+                    .item(toItem(state))
+                    .build();
 
-            // Convert state to DynamoDB item
-            Map<String, AttributeValue> item = new HashMap<>();
-            item.put("RequestNumber", AttributeValue.builder().s(state.getRequestNumber()).build());
-            item.put("ExecutionId", AttributeValue.builder().s(state.getExecutionId()).build());
-            item.put("LoanNumber", AttributeValue.builder().s(state.getLoanNumber()).build());
-            item.put("ReviewType", AttributeValue.builder().s(state.getReviewType()).build());
-            item.put("CreatedAt", AttributeValue.builder().s(state.getCreatedAt()).build());
-            item.put("UpdatedAt", AttributeValue.builder().s(state.getUpdatedAt()).build());
-            item.put("Status",
-                    AttributeValue.builder().s(state.getStatus() != null ? state.getStatus() : "PENDING").build());
+            dynamoDbClient.putItem(request);
+            logger.info("Saved workflow state for requestNumber: {}, executionId: {}",
+                    state.getRequestNumber(), state.getExecutionId());
+        } catch (Exception e) {
+            logger.error("Error saving workflow state for requestNumber: {}", state.getRequestNumber(), e);
+            throw new RuntimeException("Failed to save workflow state", e);
+        }
+    }
 
-            // Optional fields
-            if (state.getLoanDecision() != null) {
-                item.put("LoanDecision", AttributeValue.builder().s(state.getLoanDecision()).build());
+    /**
+     * Save a decision change: LoanDecision, Attributes and TaskToken (removed when
+     * null), with the attribute counters adjusted by ADD in the same UpdateItem.
+     * Status, LoanStatus and the other fields are not written.
+     *
+     * The deltas are taken against {@code previous}, the summary of the attributes as
+     * they were read, so the update only applies while the item is still at the
+     * version that was read. An item written before the counters existed is instead
+     * rewritten whole, which stores its counters outright.
+     *
+     * @throws StaleWorkflowStateException when the item changed since it was read;
+     *                                     re-read, re-apply and try again
+     */
+    public void saveDecisions(WorkflowState state, DecisionSummary previous) {
+        if (state.getVersion() == null) {
+            saveIfVersion(state, null);
+            return;
+        }
+        long readVersion = state.getVersion();
+        String updatedAt = Instant.now().toString();
+        try {
+            Update update = decisionUpdate(state, previous, updatedAt);
+            UpdateItemRequest.Builder request = UpdateItemRequest.builder()
+                    .tableName(tableName)
+                    .key(update.key())
+                    .updateExpression(update.updateExpression())
+                    .conditionExpression(update.conditionExpression())
+                    .expressionAttributeValues(update.expressionAttributeValues());
+            if (update.hasExpressionAttributeNames()) {
+                request.expressionAttributeNames(update.expressionAttributeNames());
             }
-            if (state.getLoanStatus() != null) {
-                item.put("LoanStatus", AttributeValue.builder().s(state.getLoanStatus()).build());
+            dynamoDbClient.updateItem(request.build());
+        } catch (ConditionalCheckFailedException e) {
+            if (!lacksCounters(state.getRequestNumber(), state.getLoanNumber(), readVersion)) {
+                throw new StaleWorkflowStateException(state.getRequestNumber(), state.getLoanNumber(), readVersion);
             }
-            if (state.getCurrentAssignedUsername() != null) {
-                item.put("CurrentAssignedUsername",
-                        AttributeValue.builder().s(state.getCurrentAssignedUsername()).build());
+            logger.info("Workflow state for requestNumber: {} predates decision counters; rewriting it",
+                    state.getRequestNumber());
+            saveIfVersion(state, readVersion);
+            return;
+        } catch (Exception e) {
+            logger.error("Error saving decisions for requestNumber: {}", state.getRequestNumber(), e);
+            throw new RuntimeException("Failed to save workflow state", e);
+        }
+        state.setVersion(readVersion + 1);
+        state.setUpdatedAt(updatedAt);
+        logger.info("Saved decisions for requestNumber: {}, executionId: {}",
+                state.getRequestNumber(), state.getExecutionId());
+    }
+
+    /**
+     * Save decision changes for many states with TransactWriteItems, 100 updates per
+     * request. Each update is the one saveDecisions makes, with its own version
+     * condition, so nothing written since the read is overwritten.
+     *
+     * When a transaction is cancelled, the states whose condition failed are saved
+     * one at a time through saveDecisions (which rewrites an item that predates the
+     * counters and rejects one that changed) and the rest are sent again; conflicts
+     * and throttling are retried with backoff.
+     *
+     * @param previous summary of each state's attributes as they were read, by key
+     * @return keys of the states that were not written: changed since they were read,
+     * or still failing after retries
+     */
+    public List<WorkflowStateKey> saveAllDecisions(Collection<WorkflowState> states,
+                                                   Map<WorkflowStateKey, DecisionSummary> previous) {
+        List<WorkflowStateKey> failed = new ArrayList<>();
+        List<WorkflowState> chunk = new ArrayList<>(TRANSACT_WRITE_LIMIT);
+        for (WorkflowState state : states) {
+            if (state.getVersion() == null) {
+                // Never versioned: saveDecisions writes it whole if it is still unversioned
+                saveDecisions(state, previous, failed);
+                continue;
             }
-            if (state.getTaskToken() != null) {
-                item.put("TaskToken", AttributeValue.builder().s(state.getTaskToken()).build());
+            chunk.add(state);
+            if (chunk.size() == TRANSACT_WRITE_LIMIT) {
+                transactDecisions(chunk, previous, failed);
+                chunk = new ArrayList<>(TRANSACT_WRITE_LIMIT);
             }
-            if (state.getAttributes() != null) {
-                String attributesJson = objectMapper.writeValueAsString(state.getAttributes());
-                item.put("Attributes", AttributeValue.builder().s(attributesJson).build());
+        }
+        if (!chunk.isEmpty()) {
+            transactDecisions(chunk, previous, failed);
+        }
+        logger.info("Saved decisions for {} workflow states ({} failed)", states.size() - failed.size(),
+                failed.size());
+        return failed;
+    }
+
+    private void transactDecisions(List<WorkflowState> chunk, Map<WorkflowStateKey, DecisionSummary> previous,
+                                   List<WorkflowStateKey> failed) {
+        List<WorkflowState> pending = chunk;
+        for (int attempt = 0; attempt < MAX_BATCH_ATTEMPTS && !pending.isEmpty(); attempt++) {
+            if (attempt > 0) {
+                sleep(backoff.delayMillis(attempt - 1));
             }
+            String updatedAt = Instant.now().toString();
+            try {
+                List<TransactWriteItem> actions = new ArrayList<>(pending.size());
+                for (WorkflowState state : pending) {
+                    actions.add(TransactWriteItem.builder()
+                            .update(decisionUpdate(state, previous.get(WorkflowStateKey.of(state)), updatedAt))
+                            .build());
+                }
+                dynamoDbClient.transactWriteItems(TransactWriteItemsRequest.builder()
+                        .transactItems(actions)
+                        .build());
+                for (WorkflowState state : pending) {
+                    state.setVersion(state.getVersion() + 1);
+                    state.setUpdatedAt(updatedAt);
+                }
+                return;
+            } catch (TransactionCanceledException e) {
+                List<CancellationReason> reasons = e.cancellationReasons();
+                List<WorkflowState> retry = new ArrayList<>(pending.size());
+                for (int i = 0; i < pending.size(); i++) {
+                    if (i < reasons.size() && "ConditionalCheckFailed".equals(reasons.get(i).code())) {
+                        saveDecisions(pending.get(i), previous, failed);
+                    } else {
+                        retry.add(pending.get(i));
+                    }
+                }
+                logger.warn("Decision transaction cancelled, {} of {} states to send again",
+                        retry.size(), pending.size());
+                pending = retry;
+            } catch (ProvisionedThroughputExceededException e) {
+                logger.warn("Decision transaction throttled, {} states pending", pending.size());
+            } catch (Exception e) {
+                logger.error("Error saving decisions for {} workflow states", pending.size(), e);
+                break;
+            }
+        }
+        for (WorkflowState state : pending) {
+            failed.add(WorkflowStateKey.of(state));
+        }
+    }
 
-            // Put item in DynamoDB
-            PutItemRequest request = PutItemRequest.builder()
-                    .tableName(tableName)
-                    .item(item)
-                    .build();
+    private void saveDecisions(WorkflowState state, Map<WorkflowStateKey, DecisionSummary> previous,
+                               List<WorkflowStateKey> failed) {
+        WorkflowStateKey key = WorkflowStateKey.of(state);
+        try {
+            saveDecisions(state, previous.get(key));
+        } catch (StaleWorkflowStateException e) {
+            logger.warn("Workflow state for requestNumber: {}, loanNumber: {} changed since it was read",
+                    state.getRequestNumber(), state.getLoanNumber());
+            failed.add(key);
+        } catch (RuntimeException e) {
+            failed.add(key);
+        }
+    }
 
-            dynamoDbClient.putItem(request);
-            logger.info("Saved workflow state for requestNumber: {}, executionId: {}",
-                    state.getRequestNumber(), state.getExecutionId());
+    /**
+     * The saveDecisions update: LoanDecision, Attributes and TaskToken (removed when
+     * null) set, counters moved by their deltas from {@code previous}, conditioned on
+     * the version that was read.
+     */
+    private Update decisionUpdate(WorkflowState state, DecisionSummary previous, String updatedAt) throws Exception {
+        DecisionSummary current = DecisionSummary.of(state.getAttributes());
+        StringBuilder set = new StringBuilder("SET UpdatedAt = :updatedAt");
+        StringBuilder add = new StringBuilder(" ADD Version :one");
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":updatedAt", AttributeValue.builder().s(updatedAt).build());
+        values.put(":one", AttributeValue.builder().n("1").build());
+        values.put(":version", AttributeValue.builder().n(Long.toString(state.getVersion())).build());
+        Map<String, String> names = new HashMap<>();
+        List<String> remove = new ArrayList<>(2);
+        if (state.getAttributes() != null) {
+            // The other form is dropped so an item never carries two attribute lists
+            names.put("#attributes", ATTRIBUTES);
+            names.put("#attributeData", ATTRIBUTE_DATA);
+            if (encodeAttributes) {
+                set.append(", #attributeData = :attributes");
+                remove.add("#attributes");
+            } else {
+                set.append(", #attributes = :attributes");
+                remove.add("#attributeData");
+            }
+            values.put(":attributes", attributesValue(state.getAttributes()));
+        }
+        if (state.getLoanDecision() != null) {
+            set.append(", LoanDecision = :loanDecision");
+            values.put(":loanDecision", AttributeValue.builder().s(state.getLoanDecision()).build());
+        }
+        if (state.getTaskToken() != null) {
+            set.append(", TaskToken = :taskToken");
+            values.put(":taskToken", AttributeValue.builder().s(state.getTaskToken()).build());
+        } else {
+            remove.add("TaskToken");
+        }
+        appendDelta(add, values, TOTAL_COUNT, ":dTotal", current.size() - previous.size());
+        for (AttributeDecision decision : DECISIONS) {
+            appendDelta(add, values, COUNT_ATTRIBUTES[decision.ordinal()], ":d" + decision.getValue(),
+                    current.count(decision) - previous.count(decision));
+        }
+
+        Update.Builder update = Update.builder()
+                .tableName(tableName)
+                .key(key(state.getRequestNumber(), state.getLoanNumber()))
+                .updateExpression(set + (remove.isEmpty() ? "" : " REMOVE " + String.join(", ", remove)) + add)
+                .conditionExpression("Version = :version AND attribute_exists(" + TOTAL_COUNT + ")")
+                .expressionAttributeValues(values);
+        if (!names.isEmpty()) {
+            update.expressionAttributeNames(names);
+        }
+        return update.build();
+    }
+
+    private static void appendDelta(StringBuilder add, Map<String, AttributeValue> values, String attribute,
+                                    String placeholder, int delta) {
+        if (delta != 0) {
+            add.append(", ").append(attribute).append(' ').append(placeholder);
+            values.put(placeholder, AttributeValue.builder().n(Integer.toString(delta)).build());
+        }
+    }
+
+    /**
+     * Whether the item is still at the given version and has no counters yet.
+     */
+    private boolean lacksCounters(String requestNumber, String loanNumber, long version) {
+        Map<String, AttributeValue> item = dynamoDbClient.getItem(GetItemRequest.builder()
+                .tableName(tableName)
+                .key(key(requestNumber, loanNumber))
+                .projectionExpression("Version, " + TOTAL_COUNT)
+                .consistentRead(true)
+                .build()).item();
+        return item != null && item.containsKey("Version") && !item.containsKey(TOTAL_COUNT)
+                && Long.parseLong(item.get("Version").n()) == version;
+    }
+
+    /**
+     * Put the whole state if the stored item is still at {@code expectedVersion}
+     * (null: the item has no version).
+     */
+    private void saveIfVersion(WorkflowState state, Long expectedVersion) {
+        try {
+            PutItemRequest.Builder request = PutItemRequest.builder()
+                    .tableName(tableName)
+                    .item(toItem(state));
+            if (expectedVersion == null) {
+                request.conditionExpression("attribute_not_exists(Version)");
+            } else {
+                request.conditionExpression("Version = :version")
+                        .expressionAttributeValues(Map.of(":version",
+                                AttributeValue.builder().n(Long.toString(expectedVersion)).build()));
+            }
+            dynamoDbClient.putItem(request.build());
+        } catch (ConditionalCheckFailedException e) {
+            throw new StaleWorkflowStateException(state.getRequestNumber(), state.getLoanNumber(),
+                    expectedVersion == null ? 0 : expectedVersion);
         } catch (Exception e) {
             logger.error("Error saving workflow state for requestNumber: {}", state.getRequestNumber(), e);
             throw new RuntimeException("Failed to save workflow state", e);
         }
     }
 
+    /**
+     * Save many workflow states with BatchWriteItem, 25 items per request.
+     * Unprocessed items are retried with backoff. The puts are unconditional, so
+     * this is for new states; changes to existing ones go through saveAllDecisions.
+     *
+     * @return keys of the states that could not be written
+     */
+    public List<WorkflowStateKey> saveAll(Collection<WorkflowState> states) {
+        List<WorkflowStateKey> failed = new ArrayList<>();
+        List<WriteRequest> chunk = new ArrayList<>(BATCH_WRITE_LIMIT);
+        for (WorkflowState state : states) {
+            try {
+                chunk.add(WriteRequest.builder()
+                        .putRequest(PutRequest.builder().item(toItem(state)).build())
+                        .build());
+            } catch (Exception e) {
+                logger.error("Error serializing workflow state for requestNumber: {}", state.getRequestNumber(), e);
+                failed.add(WorkflowStateKey.of(state));
+            }
+            if (chunk.size() == BATCH_WRITE_LIMIT) {
+                failed.addAll(writeChunk(chunk));
+                chunk = new ArrayList<>(BATCH_WRITE_LIMIT);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            failed.addAll(writeChunk(chunk));
+        }
+        logger.info("Batch saved {} workflow states ({} failed)", states.size() - failed.size(), failed.size());
+        return failed;
+    }
+
+    private List<WorkflowStateKey> writeChunk(List<WriteRequest> chunk) {
+        List<WriteRequest> pending = chunk;
+        for (int attempt = 0; attempt < MAX_BATCH_ATTEMPTS && !pending.isEmpty(); attempt++) {
+            if (attempt > 0) {
+                sleep(backoff.delayMillis(attempt - 1));
+            }
+            try {
+                BatchWriteItemResponse response = dynamoDbClient.batchWriteItem(BatchWriteItemRequest.builder()
+                        .requestItems(Map.of(tableName, pending))
+                        .build());
+                pending = response.unprocessedItems() == null
+                        ? List.of() : response.unprocessedItems().getOrDefault(tableName, List.of());
+            } catch (ProvisionedThroughputExceededException e) {
+                logger.warn("Batch write throttled, {} items pending", pending.size());
+            }
+        }
+
+        List<WorkflowStateKey> failed = new ArrayList<>();
+        for (WriteRequest request : pending) {
+            Map<String, AttributeValue> item = request.putRequest().item();
+            failed.add(new WorkflowStateKey(item.get("RequestNumber").s(), item.get("LoanNumber").s()));
+        }
+        return failed;
+    }
+
+    /**
+     * Retrieve many workflow states with BatchGetItem, 100 keys per request.
+     * Keys without an item are absent from the result.
+     */
+    public Map<WorkflowStateKey, WorkflowState> findAll(Collection<WorkflowStateKey> keys) {
+        Map<WorkflowStateKey, WorkflowState> found = new HashMap<>();
+        List<WorkflowStateKey> unique = new ArrayList<>(new LinkedHashSet<>(keys));
+        try {
+            for (int from = 0; from < unique.size(); from += BATCH_GET_LIMIT) {
+                List<Map<String, AttributeValue>> chunk = new ArrayList<>();
+                for (WorkflowStateKey key : unique.subList(from, Math.min(unique.size(), from + BATCH_GET_LIMIT))) {
+                    chunk.add(Map.of(
+                            "RequestNumber", AttributeValue.builder().s(key.getRequestNumber()).build(),
+                            "LoanNumber", AttributeValue.builder().s(key.getLoanNumber()).build()));
+                }
+                readChunk(chunk, found);
+            }
+            return found;
+        } catch (Exception e) {
+            logger.error("Error batch retrieving {} workflow states", unique.size(), e);
+            throw new RuntimeException("Failed to retrieve workflow states", e);
+        }
+    }
+
+    private void readChunk(List<Map<String, AttributeValue>> keys, Map<WorkflowStateKey, WorkflowState> found)
+            throws Exception {
+        List<Map<String, AttributeValue>> pending = keys;
+        for (int attempt = 0; !pending.isEmpty(); attempt++) {
+            if (attempt >= MAX_BATCH_ATTEMPTS) {
+                throw new IllegalStateException(pending.size() + " keys still unprocessed after batch retries");
+            }
+            if (attempt > 0) {
+                sleep(backoff.delayMillis(attempt - 1));
+            }
+            BatchGetItemResponse response = dynamoDbClient.batchGetItem(BatchGetItemRequest.builder()
+                    .requestItems(Map.of(tableName, KeysAndAttributes.builder().keys(pending).build()))
+                    .build());
+            for (Map<String, AttributeValue> item : response.responses().getOrDefault(tableName, List.of())) {
+                WorkflowState state = convertItemToWorkflowState(item);
+                found.put(WorkflowStateKey.of(state), state);
+            }
+            KeysAndAttributes unprocessed = response.unprocessedKeys() == null
+                    ? null : response.unprocessedKeys().get(tableName);
+            pending = unprocessed == null ? List.of() : unprocessed.keys();
+        }
+    }
+
     /**
      * Retrieve workflow state by requestNumber and loanNumber.
      */
@@ -121,6 +507,159 @@ public class WorkflowStateRepository {
         }
     }
 
+    /**
+     * Store the task token of the execution waiting on this loan.
+     * Only TaskToken, UpdatedAt and Version are written, so a decision update
+     * landing at the same time is not overwritten.
+     *
+     * @return the updated state, or empty if there is no state for the key
+     */
+    public Optional<WorkflowState> saveTaskToken(String requestNumber, String loanNumber, String taskToken) {
+        try {
+            UpdateItemResponse response = dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                    .tableName(tableName)
+                    .key(Map.of(
+                            "RequestNumber", AttributeValue.builder().s(requestNumber).build(),
+                            "LoanNumber", AttributeValue.builder().s(loanNumber).build()))
+                    .updateExpression("SET TaskToken = :taskToken, UpdatedAt = :updatedAt ADD Version :one")
+                    .conditionExpression("attribute_exists(RequestNumber)")
+                    .expressionAttributeValues(Map.of(
+                            ":taskToken", AttributeValue.builder().s(taskToken).build(),
+                            ":updatedAt", AttributeValue.builder().s(Instant.now().toString()).build(),
+                            ":one", AttributeValue.builder().n("1").build()))
+                    .returnValues(ReturnValue.ALL_NEW)
+                    .build());
+            logger.info("Saved task token for requestNumber: {}, loanNumber: {}", requestNumber, loanNumber);
+            return Optional.of(convertItemToWorkflowState(response.attributes()));
+        } catch (ConditionalCheckFailedException e) {
+            logger.warn("No workflow state to attach task token to, requestNumber: {}, loanNumber: {}",
+                    requestNumber, loanNumber);
+            return Optional.empty();
+        } catch (Exception e) {
+            logger.error("Error saving task token for requestNumber: {}, loanNumber: {}",
+                    requestNumber, loanNumber, e);
+            throw new RuntimeException("Failed to save task token", e);
+        }
+    }
+
+    /**
+     * Remove the stored task token once its callback has been sent, if it is
+     * still {@code taskToken}; a token stored since by a new wait is kept.
+     *
+     * @return whether the token was removed
+     */
+    public boolean clearTaskToken(String requestNumber, String loanNumber, String taskToken) {
+        try {
+            dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                    .tableName(tableName)
+                    .key(key(requestNumber, loanNumber))
+                    .updateExpression("SET UpdatedAt = :updatedAt REMOVE TaskToken ADD Version :one")
+                    .conditionExpression("TaskToken = :taskToken")
+                    .expressionAttributeValues(Map.of(
+                            ":taskToken", AttributeValue.builder().s(taskToken).build(),
+                            ":updatedAt", AttributeValue.builder().s(Instant.now().toString()).build(),
+                            ":one", AttributeValue.builder().n("1").build()))
+                    .build());
+            logger.info("Cleared task token for requestNumber: {}, loanNumber: {}", requestNumber, loanNumber);
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            logger.info("Task token for requestNumber: {}, loanNumber: {} already replaced or cleared",
+                    requestNumber, loanNumber);
+            return false;
+        } catch (Exception e) {
+            logger.error("Error clearing task token for requestNumber: {}, loanNumber: {}",
+                    requestNumber, loanNumber, e);
+            throw new RuntimeException("Failed to clear task token", e);
+        }
+    }
+
+    /**
+     * Retrieve a workflow state named by a claim-check reference.
+     * Uses a strongly consistent read and rejects an item older than the
+     * version the reference was issued for.
+     */
+    public Optional<WorkflowState> findAtLeastVersion(String requestNumber, String loanNumber, long minVersion) {
+        Optional<WorkflowState> stateOpt;
+        try {
+            GetItemResponse response = dynamoDbClient.getItem(GetItemRequest.builder()
+                    .tableName(tableName)
+                    .key(Map.of(
+                            "RequestNumber", AttributeValue.builder().s(requestNumber).build(),
+                            "LoanNumber", AttributeValue.builder().s(loanNumber).build()))
+                    .consistentRead(true)
+                    .build());
+            stateOpt = response.item() == null || response.item().isEmpty()
+                    ? Optional.empty() : Optional.of(convertItemToWorkflowState(response.item()));
+        } catch (Exception e) {
+            logger.error("Error retrieving workflow state for requestNumber: {}, loanNumber: {}",
+                    requestNumber, loanNumber, e);
+            throw new RuntimeException("Failed to retrieve workflow state", e);
+        }
+
+        if (stateOpt.isPresent()) {
+            long storedVersion = stateOpt.get().getVersion() != null ? stateOpt.get().getVersion() : 0;
+            if (storedVersion < minVersion) {
+                throw new IllegalStateException("Workflow state " + requestNumber + "/" + loanNumber
+                        + " is at version " + storedVersion + ", expected at least " + minVersion);
+            }
+        }
+        return stateOpt;
+    }
+
+    /**
+     * Read only the loan decision, version, timestamps and attribute counters of a
+     * workflow state, leaving the attribute list on the server. With a minVersion the
+     * read is strongly consistent and rejects an older item, as findAtLeastVersion does.
+     *
+     * The progress has no counters when the item predates them or they have drifted
+     * out of range (negative, or more decisions than attributes); DecisionCounterVerifier
+     * repairs both.
+     */
+    public Optional<DecisionProgress> findDecisionProgress(String requestNumber, String loanNumber, Long minVersion) {
+        Map<String, AttributeValue> item;
+        try {
+            item = dynamoDbClient.getItem(GetItemRequest.builder()
+                    .tableName(tableName)
+                    .key(key(requestNumber, loanNumber))
+                    .projectionExpression(PROGRESS_PROJECTION)
+                    .consistentRead(minVersion != null)
+                    .build()).item();
+        } catch (Exception e) {
+            logger.error("Error retrieving decision progress for requestNumber: {}, loanNumber: {}",
+                    requestNumber, loanNumber, e);
+            throw new RuntimeException("Failed to retrieve workflow state", e);
+        }
+        if (item == null || item.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Long version = item.containsKey("Version") ? Long.parseLong(item.get("Version").n()) : null;
+        if (minVersion != null && (version != null ? version : 0) < minVersion) {
+            throw new IllegalStateException("Workflow state " + requestNumber + "/" + loanNumber
+                    + " is at version " + version + ", expected at least " + minVersion);
+        }
+        int total = 0;
+        int[] counts = null;
+        if (item.containsKey(TOTAL_COUNT)) {
+            total = Integer.parseInt(item.get(TOTAL_COUNT).n());
+            counts = readCounts(item);
+            int decided = 0;
+            for (int count : counts) {
+                decided += count;
+            }
+            if (total < 0 || decided > total || Arrays.stream(counts).anyMatch(count -> count < 0)) {
+                logger.warn("Decision counters out of range for requestNumber: {}, loanNumber: {}; "
+                        + "falling back to the attributes", requestNumber, loanNumber);
+                counts = null;
+            }
+        }
+        return Optional.of(new DecisionProgress(
+                item.containsKey("LoanDecision") ? item.get("LoanDecision").s() : null, version,
+                item.containsKey("CreatedAt") ? item.get("CreatedAt").s() : null,
+                item.containsKey("UpdatedAt") ? item.get("UpdatedAt").s() : null,
+                total, counts));
+    }
+
     /**
      * Retrieve the most recent workflow state by loanNumber.
      */
@@ -152,6 +691,125 @@ public class WorkflowStateRepository {
         }
     }
 
+    /**
+     * Convert WorkflowState to a DynamoDB item, stamping CreatedAt/UpdatedAt.
+     */
+    private Map<String, AttributeValue> toItem(WorkflowState state) throws Exception {
+        // Set timestamps
+        if (state.getCreatedAt() == null) {
+            state.setCreatedAt(Instant.now().toString());
+        }
+        state.setUpdatedAt(Instant.now().toString());
+        state.setVersion(state.getVersion() != null ? state.getVersion() + 1 : 1L);
+
+        // Convert state to DynamoDB item
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("RequestNumber", AttributeValue.builder().s(state.getRequestNumber()).build());
+        item.put("ExecutionId", AttributeValue.builder().s(state.getExecutionId()).build());
+        item.put("LoanNumber", AttributeValue.builder().s(state.getLoanNumber()).build());
+        item.put("ReviewType", AttributeValue.builder().s(state.getReviewType()).build());
+        item.put("CreatedAt", AttributeValue.builder().s(state.getCreatedAt()).build());
+        item.put("UpdatedAt", AttributeValue.builder().s(state.getUpdatedAt()).build());
+        item.put("Status",
+                AttributeValue.builder().s(state.getStatus() != null ? state.getStatus() : "PENDING").build());
+        item.put("Version", AttributeValue.builder().n(Long.toString(state.getVersion())).build());
+
+        // Optional fields
+        if (state.getLoanDecision() != null) {
+            item.put("LoanDecision", AttributeValue.builder().s(state.getLoanDecision()).build());
+        }
+        if (state.getLoanStatus() != null) {
+            item.put("LoanStatus", AttributeValue.builder().s(state.getLoanStatus()).build());
+        }
+        if (state.getCurrentAssignedUsername() != null) {
+            item.put("CurrentAssignedUsername",
+                    AttributeValue.builder().s(state.getCurrentAssignedUsername()).build());
+        }
+        if (state.getTaskToken() != null) {
+            item.put("TaskToken", AttributeValue.builder().s(state.getTaskToken()).build());
+        }
+        if (state.getAttributes() != null) {
+            item.put(encodeAttributes ? ATTRIBUTE_DATA : ATTRIBUTES, attributesValue(state.getAttributes()));
+        }
+        item.putAll(counterValues(DecisionSummary.of(state.getAttributes())));
+        return item;
+    }
+
+    /**
+     * The counter attributes for a summary, as absolute values.
+     */
+    static Map<String, AttributeValue> counterValues(DecisionSummary summary) {
+        Map<String, AttributeValue> counters = new HashMap<>();
+        counters.put(TOTAL_COUNT, AttributeValue.builder().n(Integer.toString(summary.size())).build());
+        for (AttributeDecision decision : DECISIONS) {
+            counters.put(COUNT_ATTRIBUTES[decision.ordinal()],
+                    AttributeValue.builder().n(Integer.toString(summary.count(decision))).build());
+        }
+        return counters;
+    }
+
+    /**
+     * Stored per-decision counts indexed by AttributeDecision ordinal; a missing count is 0.
+     */
+    static int[] readCounts(Map<String, AttributeValue> item) {
+        int[] counts = new int[DECISIONS.length];
+        for (AttributeDecision decision : DECISIONS) {
+            AttributeValue value = item.get(COUNT_ATTRIBUTES[decision.ordinal()]);
+            counts[decision.ordinal()] = value == null ? 0 : Integer.parseInt(value.n());
+        }
+        return counts;
+    }
+
+    static String countAttribute(AttributeDecision decision) {
+        return COUNT_ATTRIBUTES[decision.ordinal()];
+    }
+
+    private AttributeValue attributesValue(List<LoanAttribute> attributes) throws Exception {
+        if (encodeAttributes) {
+            return AttributeValue.builder()
+                    .b(SdkBytes.fromByteArrayUnsafe(AttributeCodec.encode(attributes, dictionaryProvider.current())))
+                    .build();
+        }
+        return AttributeValue.builder().s(objectMapper.writeValueAsString(attributes)).build();
+    }
+
+    /**
+     * The attribute list of an item in either stored form, or null when it has none.
+     */
+    List<LoanAttribute> readAttributes(Map<String, AttributeValue> item) throws Exception {
+        AttributeValue data = item.get(ATTRIBUTE_DATA);
+        if (data != null) {
+            byte[] bytes = data.b().asByteArrayUnsafe();
+            return AttributeCodec.decode(bytes, dictionaryProvider.atLeast(AttributeCodec.dictionaryVersion(bytes)));
+        }
+        AttributeValue json = item.get(ATTRIBUTES);
+        return json == null ? null : readAttributes(json.s());
+    }
+
+    /**
+     * Summarize an item's attributes in either stored form; encoded data is counted
+     * without decoding it.
+     */
+    static DecisionSummary summarizeAttributes(Map<String, AttributeValue> item) throws Exception {
+        AttributeValue data = item.get(ATTRIBUTE_DATA);
+        if (data != null) {
+            return AttributeCodec.summarize(data.b().asByteArrayUnsafe());
+        }
+        AttributeValue json = item.get(ATTRIBUTES);
+        return DecisionSummary.of(json == null ? null : readAttributes(json.s()));
+    }
+
+    static List<LoanAttribute> readAttributes(String attributesJson) throws Exception {
+        return objectMapper.readValue(attributesJson,
+                objectMapper.getTypeFactory().constructCollectionType(List.class, LoanAttribute.class));
+    }
+
+    private static Map<String, AttributeValue> key(String requestNumber, String loanNumber) {
+        return Map.of(
+                "RequestNumber", AttributeValue.builder().s(requestNumber).build(),
+                "LoanNumber", AttributeValue.builder().s(loanNumber).build());
+    }
+
     /**
      * Convert DynamoDB item to WorkflowState object.
      */
@@ -165,6 +823,10 @@ public class WorkflowStateRepository {
         state.setUpdatedAt(item.get("UpdatedAt").s());
         state.setStatus(item.get("Status").s());
 
+        if (item.containsKey("Version") && item.get("Version") != null) {
+            state.setVersion(Long.parseLong(item.get("Version").n()));
+        }
+
         if (item.containsKey("LoanDecision") && item.get("LoanDecision") != null) {
             state.setLoanDecision(item.get("LoanDecision").s());
         }
@@ -177,13 +839,17 @@ public class WorkflowStateRepository {
         if (item.containsKey("TaskToken") && item.get("TaskToken") != null) {
             state.setTaskToken(item.get("TaskToken").s());
         }
-        if (item.containsKey("Attributes") && item.get("Attributes") != null) {
-            String attributesJson = item.get("Attributes").s();
-            state.setAttributes(objectMapper.readValue(attributesJson,
-                    objectMapper.getTypeFactory().constructCollectionType(java.util.List.class,
-                            com.ldc.workflow.types.LoanAttribute.class)));
-        }
+        state.setAttributes(readAttributes(item));
 
         return state;
     }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during batch retry", e);
+        }
+    }
 }
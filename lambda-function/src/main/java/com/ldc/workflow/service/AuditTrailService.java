@@ -1,69 +1,44 @@
 package com.ldc.workflow.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ldc.workflow.service.audit.AuditSink;
+import com.ldc.workflow.types.AuditRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
-import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
-import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.UUID;
 
 /**
- * Service for logging audit trail and state transitions to DynamoDB.
+ * Service for logging audit trail and state transitions.
  * Provides compliance and debugging capabilities.
+ *
+ * Delivery is delegated to the configured {@link AuditSink}; see
+ * {@link com.ldc.workflow.config.AuditSinkConfig} for how the sink is chosen.
  */
 @Service
 public class AuditTrailService {
 
     private static final Logger logger = LoggerFactory.getLogger(AuditTrailService.class);
-    private static final ObjectMapper objectMapper = new ObjectMapper();
 
-    private final DynamoDbClient dynamoDbClient;
-    private final String auditTableName;
+    private final AuditSink auditSink;
 
-    public AuditTrailService(DynamoDbClient dynamoDbClient) {
-        this.dynamoDbClient = dynamoDbClient;
-        this.auditTableName = System.getenv("AUDIT_TABLE_NAME");
-        if (this.auditTableName == null || this.auditTableName.isEmpty()) {
-            logger.warn("AUDIT_TABLE_NAME environment variable not set, audit logging will use main state table");
-        }
+    public AuditTrailService(AuditSink auditSink) {
+        this.auditSink = auditSink;
+        logger.info("Audit trail using '{}' sink", auditSink.name());
     }
 
     /**
-     * Log a state transition to DynamoDB.
+     * Log a state transition to the audit sink.
      */
     public void logStateTransition(String requestNumber, String loanNumber, String executionId,
                                    String stateChange, String details, String timestamp) {
         try {
-            String auditId = UUID.randomUUID().toString();
-            
-            Map<String, AttributeValue> item = new HashMap<>();
-            item.put("auditId", AttributeValue.builder().s(auditId).build());
-            item.put("requestNumber", AttributeValue.builder().s(requestNumber).build());
-            item.put("loanNumber", AttributeValue.builder().s(loanNumber).build());
-            item.put("executionId", AttributeValue.builder().s(executionId).build());
-            item.put("stateChange", AttributeValue.builder().s(stateChange).build());
-            item.put("timestamp", AttributeValue.builder().s(timestamp).build());
-            
-            if (details != null && !details.isEmpty()) {
-                item.put("details", AttributeValue.builder().s(details).build());
-            }
+            AuditRecord record = new AuditRecord(UUID.randomUUID().toString(), requestNumber, loanNumber,
+                    executionId, stateChange, details, timestamp);
 
-            // Use audit table if available, otherwise use main state table
-            String tableName = auditTableName != null ? auditTableName : System.getenv("DYNAMODB_TABLE");
-            
-            PutItemRequest request = PutItemRequest.builder()
-                    .tableName(tableName)
-                    .item(item)
-                    .build();
+            auditSink.write(record);
 
-            dynamoDbClient.putItem(request);
-            
-            logger.info("Audit trail logged: requestNumber={}, stateChange={}, timestamp={}", 
+            logger.info("Audit trail logged: requestNumber={}, stateChange={}, timestamp={}",
                     requestNumber, stateChange, timestamp);
         } catch (Exception e) {
             logger.error("Error logging audit trail for requestNumber: {}", requestNumber, e);
@@ -76,7 +51,7 @@ public class AuditTrailService {
      */
     public void logWorkflowCompletion(String requestNumber, String loanNumber, String executionId,
                                       String finalStatus, String timestamp) {
-        logStateTransition(requestNumber, loanNumber, executionId, 
+        logStateTransition(requestNumber, loanNumber, executionId,
                 "WorkflowCompleted", "finalStatus=" + finalStatus, timestamp);
     }
 
@@ -85,7 +60,7 @@ public class AuditTrailService {
      */
     public void logWorkflowError(String requestNumber, String loanNumber, String executionId,
                                  String errorMessage, String timestamp) {
-        logStateTransition(requestNumber, loanNumber, executionId, 
+        logStateTransition(requestNumber, loanNumber, executionId,
                 "WorkflowError", "error=" + errorMessage, timestamp);
     }
 }
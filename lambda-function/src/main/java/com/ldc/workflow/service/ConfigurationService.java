@@ -1,28 +1,112 @@
 package com.ldc.workflow.service;
 
+import com.ldc.workflow.service.configuration.ConfigurationSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.services.ssm.SsmClient;
-import software.amazon.awssdk.services.ssm.model.GetParameterRequest;
-import software.amazon.awssdk.services.ssm.model.GetParameterResponse;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
 
 /**
- * Service for retrieving configuration from AWS Systems Manager Parameter Store.
- * Caches parameters to reduce API calls.
+ * Service for retrieving configuration parameters.
+ *
+ * Values come from the configured {@link ConfigurationSource} chain (Parameter Store,
+ * the Parameters and Secrets Lambda extension, local file or environment overrides;
+ * see {@link com.ldc.workflow.config.ConfigurationSourceConfig}).
+ *
+ * Parameters are held in a concurrent cache with a per-entry TTL:
+ * - fresh entries (younger than the TTL) are served from memory;
+ * - stale entries (older than the TTL but younger than the max-stale window) are
+ *   served immediately while a single background refresh reloads them;
+ * - missing or expired entries are loaded synchronously, and concurrent callers
+ *   for the same name share one in-flight source lookup.
+ *
+ * On startup everything under the parameter prefix is prefetched in bulk (a paginated
+ * GetParametersByPath for SSM), so a cold start costs a handful of calls instead of
+ * one per parameter.
+ *
+ * Environment variables:
+ * PARAMETER_STORE_PREFIX           prefetch path, default /ldc-workflow
+ * PARAMETER_CACHE_TTL_SECONDS      freshness window, default 300
+ * PARAMETER_CACHE_MAX_STALE_SECONDS how long a stale value may still be served, default 3600
+ * PARAMETER_PREFETCH_ENABLED       default true
+ * VEND_PPA_ENDPOINT_PARAMETER      Vend PPA endpoint parameter, default /ldc-workflow/vend-ppa/endpoint
+ * EMAIL_TEMPLATE_PARAMETER_PATH    path of the email templates, default /ldc-workflow/email-templates/
+ * NOTIFICATION_PARAMETER_PATH      path of the notification recipients, default /ldc-workflow/notifications/
  */
 @Service
 public class ConfigurationService {
 
     private static final Logger logger = LoggerFactory.getLogger(ConfigurationService.class);
-    private final SsmClient ssmClient;
-    private final Map<String, String> parameterCache = new HashMap<>();
 
-    public ConfigurationService(SsmClient ssmClient) {
-        this.ssmClient = ssmClient;
+    static final String DEFAULT_PREFIX = "/ldc-workflow";
+    private static final String VEND_PPA_ENDPOINT_PARAMETER =
+            getEnv("VEND_PPA_ENDPOINT_PARAMETER", "/ldc-workflow/vend-ppa/endpoint");
+    private static final String EMAIL_TEMPLATE_PARAMETER_PATH =
+            getEnv("EMAIL_TEMPLATE_PARAMETER_PATH", "/ldc-workflow/email-templates/");
+    private static final String NOTIFICATION_PARAMETER_PATH =
+            getEnv("NOTIFICATION_PARAMETER_PATH", "/ldc-workflow/notifications/");
+    private static final long DEFAULT_TTL_SECONDS = 300;
+    private static final long DEFAULT_MAX_STALE_SECONDS = 3600;
+
+    private final ConfigurationSource configurationSource;
+    private final String prefix;
+    private final long ttlNanos;
+    private final long maxStaleNanos;
+    private final LongSupplier clock;
+    private final Map<String, CacheEntry> parameterCache = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService refreshExecutor;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    private final LongAdder sourceCalls = new LongAdder();
+    private final LongAdder sourceNanos = new LongAdder();
+    private volatile long prefetchNanos;
+    private volatile int prefetchedCount;
+
+    @Autowired
+    public ConfigurationService(ConfigurationSource configurationSource) {
+        this(configurationSource,
+                getEnv("PARAMETER_STORE_PREFIX", DEFAULT_PREFIX),
+                TimeUnit.SECONDS.toNanos(getLongEnv("PARAMETER_CACHE_TTL_SECONDS", DEFAULT_TTL_SECONDS)),
+                TimeUnit.SECONDS.toNanos(getLongEnv("PARAMETER_CACHE_MAX_STALE_SECONDS", DEFAULT_MAX_STALE_SECONDS)),
+                System::nanoTime);
+        if (Boolean.parseBoolean(getEnv("PARAMETER_PREFETCH_ENABLED", "true"))) {
+            prefetch();
+        }
+    }
+
+    /**
+     * Constructor with explicit cache settings; does not prefetch.
+     */
+    public ConfigurationService(ConfigurationSource configurationSource, String prefix, long ttlNanos,
+                                long maxStaleNanos, LongSupplier clock) {
+        if (maxStaleNanos < ttlNanos) {
+            throw new IllegalArgumentException("Max stale window must not be shorter than the TTL");
+        }
+        this.configurationSource = configurationSource;
+        this.prefix = prefix;
+        this.ttlNanos = ttlNanos;
+        this.maxStaleNanos = maxStaleNanos;
+        this.clock = clock;
+        this.refreshExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "parameter-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     /**
@@ -30,7 +114,7 @@ public class ConfigurationService {
      * Caches the result to avoid repeated API calls.
      */
     public String getEmailTemplate(String templateName) {
-        String parameterName = "/ldc-workflow/email-templates/" + templateName;
+        String parameterName = EMAIL_TEMPLATE_PARAMETER_PATH + templateName;
         return getParameter(parameterName);
     }
 
@@ -38,51 +122,85 @@ public class ConfigurationService {
      * Get notification email address from Parameter Store.
      */
     public String getNotificationEmail(String notificationType) {
-        String parameterName = "/ldc-workflow/notifications/" + notificationType + "-email";
+        String parameterName = NOTIFICATION_PARAMETER_PATH + notificationType + "-email";
         return getParameter(parameterName);
     }
 
     /**
-     * Get Vend PPA endpoint from Parameter Store.
+     * Get Vend PPA endpoint from Parameter Store (VEND_PPA_ENDPOINT_PARAMETER names the
+     * parameter, default /ldc-workflow/vend-ppa/endpoint).
      */
     public String getVendPpaEndpoint() {
-        return getParameter("/ldc-workflow/vend-ppa/endpoint");
+        return getParameter(VEND_PPA_ENDPOINT_PARAMETER);
     }
 
     /**
      * Get any parameter from Parameter Store with caching.
      */
     public String getParameter(String parameterName) {
-        try {
-            // Check cache first
-            if (parameterCache.containsKey(parameterName)) {
-                logger.debug("Retrieved parameter from cache: {}", parameterName);
-                return parameterCache.get(parameterName);
-            }
+        CacheEntry entry = parameterCache.get(parameterName);
+        long now = clock.getAsLong();
 
-            // Retrieve from Parameter Store
-            GetParameterRequest request = GetParameterRequest.builder()
-                    .name(parameterName)
-                    .withDecryption(true)
-                    .build();
+        if (entry != null) {
+            long age = now - entry.loadedAtNanos;
+            if (age < ttlNanos) {
+                hits.increment();
+                return entry.value;
+            }
+            if (age < maxStaleNanos) {
+                staleHits.increment();
+                refreshInBackground(parameterName);
+                return entry.value;
+            }
+        }
 
-            GetParameterResponse response = ssmClient.getParameter(request);
-            String value = response.parameter().value();
+        misses.increment();
+        try {
+            return loadSingleFlight(parameterName).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("Failed to retrieve configuration parameter: " + parameterName, cause);
+        }
+    }
 
-            // Cache the result
-            parameterCache.put(parameterName, value);
-            logger.debug("Retrieved parameter from Parameter Store: {}", parameterName);
+    /**
+     * Load every parameter under the configured prefix into the cache.
+     *
+     * @return the number of parameters loaded
+     */
+    public int prefetch() {
+        long start = System.nanoTime();
+        int count = 0;
+        String path = prefix.endsWith("/") ? prefix : prefix + "/";
+        try {
+            Map<String, String> parameters = configurationSource.getParametersByPath(path);
+            recordSourceCall(start);
 
-            return value;
-        } catch (Exception e) {
-            // Check if it's a ParameterNotFound error
-            if (e.getMessage() != null && e.getMessage().contains("ParameterNotFound")) {
-                logger.error("Parameter not found in Parameter Store: {}", parameterName);
-                throw new RuntimeException("Configuration parameter not found: " + parameterName, e);
+            long loadedAt = clock.getAsLong();
+            for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+                parameterCache.put(parameter.getKey(), new CacheEntry(parameter.getValue(), loadedAt));
+                count++;
             }
-            logger.error("Error retrieving parameter from Parameter Store: {}", parameterName, e);
-            throw new RuntimeException("Failed to retrieve configuration parameter: " + parameterName, e);
+        } catch (Exception e) {
+            // Prefetch is an optimisation; individual lookups still load on demand
+            logger.warn("Parameter prefetch under {} stopped after {} parameters", path, count, e);
         }
+
+        prefetchNanos = System.nanoTime() - start;
+        prefetchedCount = count;
+        logger.info("Prefetched {} parameters under {} in {} ms", count, path,
+                TimeUnit.NANOSECONDS.toMillis(prefetchNanos));
+        return count;
+    }
+
+    /**
+     * Drop a single parameter so the next lookup reloads it.
+     */
+    public void invalidate(String parameterName) {
+        parameterCache.remove(parameterName);
     }
 
     /**
@@ -92,4 +210,162 @@ public class ConfigurationService {
         parameterCache.clear();
         logger.debug("Parameter cache cleared");
     }
+
+    /**
+     * Snapshot of cache and source call metrics.
+     */
+    public CacheStats getStats() {
+        return new CacheStats(hits.sum(), staleHits.sum(), misses.sum(), refreshes.sum(),
+                refreshFailures.sum(), sourceCalls.sum(), sourceNanos.sum(), prefetchedCount, prefetchNanos,
+                parameterCache.size());
+    }
+
+    private void refreshInBackground(String parameterName) {
+        if (inFlight.containsKey(parameterName)) {
+            return;
+        }
+        CompletableFuture<String> future = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(parameterName, future) != null) {
+            return;
+        }
+        refreshes.increment();
+        try {
+            refreshExecutor.execute(() -> complete(parameterName, future, true));
+        } catch (RuntimeException e) {
+            inFlight.remove(parameterName, future);
+            future.completeExceptionally(e);
+        }
+    }
+
+    private CompletableFuture<String> loadSingleFlight(String parameterName) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(parameterName, future);
+        if (existing != null) {
+            return existing;
+        }
+        complete(parameterName, future, false);
+        return future;
+    }
+
+    private void complete(String parameterName, CompletableFuture<String> future, boolean background) {
+        try {
+            String value = fetchFromSource(parameterName);
+            parameterCache.put(parameterName, new CacheEntry(value, clock.getAsLong()));
+            future.complete(value);
+        } catch (RuntimeException e) {
+            if (background) {
+                refreshFailures.increment();
+                logger.warn("Background refresh failed for {}; serving cached value", parameterName, e);
+            }
+            future.completeExceptionally(e);
+        } finally {
+            inFlight.remove(parameterName, future);
+        }
+    }
+
+    private String fetchFromSource(String parameterName) {
+        long start = System.nanoTime();
+        String value;
+        try {
+            value = configurationSource.getParameter(parameterName);
+        } catch (Exception e) {
+            logger.error("Error retrieving parameter from {}: {}", configurationSource.name(), parameterName, e);
+            throw new RuntimeException("Failed to retrieve configuration parameter: " + parameterName, e);
+        } finally {
+            recordSourceCall(start);
+        }
+        if (value == null) {
+            logger.error("Parameter not found in {}: {}", configurationSource.name(), parameterName);
+            throw new RuntimeException("Configuration parameter not found: " + parameterName);
+        }
+        logger.debug("Retrieved parameter from {}: {}", configurationSource.name(), parameterName);
+        return value;
+    }
+
+    private void recordSourceCall(long startNanos) {
+        sourceCalls.increment();
+        sourceNanos.add(System.nanoTime() - startNanos);
+    }
+
+    private static String getEnv(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+
+    private static long getLongEnv(String name, long defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number of seconds: " + value, e);
+        }
+    }
+
+    private static final class CacheEntry {
+        private final String value;
+        private final long loadedAtNanos;
+
+        private CacheEntry(String value, long loadedAtNanos) {
+            this.value = value;
+            this.loadedAtNanos = loadedAtNanos;
+        }
+    }
+
+    /**
+     * Point-in-time cache metrics.
+     */
+    public static final class CacheStats {
+        private final long hits;
+        private final long staleHits;
+        private final long misses;
+        private final long refreshes;
+        private final long refreshFailures;
+        private final long sourceCalls;
+        private final long sourceNanos;
+        private final int prefetchedCount;
+        private final long prefetchNanos;
+        private final int size;
+
+        CacheStats(long hits, long staleHits, long misses, long refreshes, long refreshFailures,
+                   long sourceCalls, long sourceNanos, int prefetchedCount, long prefetchNanos, int size) {
+            this.hits = hits;
+            this.staleHits = staleHits;
+            this.misses = misses;
+            this.refreshes = refreshes;
+            this.refreshFailures = refreshFailures;
+            this.sourceCalls = sourceCalls;
+            this.sourceNanos = sourceNanos;
+            this.prefetchedCount = prefetchedCount;
+            this.prefetchNanos = prefetchNanos;
+            this.size = size;
+        }
+
+        public long getHits() { return hits; }
+        public long getStaleHits() { return staleHits; }
+        public long getMisses() { return misses; }
+        public long getRefreshes() { return refreshes; }
+        public long getRefreshFailures() { return refreshFailures; }
+        public long getSourceCalls() { return sourceCalls; }
+        public long getSourceMillis() { return TimeUnit.NANOSECONDS.toMillis(sourceNanos); }
+        public int getPrefetchedCount() { return prefetchedCount; }
+        public long getPrefetchMillis() { return TimeUnit.NANOSECONDS.toMillis(prefetchNanos); }
+        public int getSize() { return size; }
+
+        public double getHitRatio() {
+            long total = hits + staleHits + misses;
+            return total == 0 ? 0.0 : (double) (hits + staleHits) / total;
+        }
+
+        @Override
+        public String toString() {
+            return "CacheStats{hits=" + hits + ", staleHits=" + staleHits + ", misses=" + misses
+                    + ", refreshes=" + refreshes + ", refreshFailures=" + refreshFailures
+                    + ", sourceCalls=" + sourceCalls + ", sourceMillis=" + getSourceMillis()
+                    + ", prefetchedCount=" + prefetchedCount + ", prefetchMillis=" + getPrefetchMillis()
+                    + ", size=" + size + "}";
+        }
+    }
 }
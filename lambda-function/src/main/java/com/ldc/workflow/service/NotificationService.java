@@ -0,0 +1,385 @@
+package com.ldc.workflow.service;
+
+import com.ldc.workflow.metrics.LatencyHistogram;
+import com.ldc.workflow.service.notification.EmailMessage;
+import com.ldc.workflow.service.notification.EmailSendException;
+import com.ldc.workflow.service.notification.EmailSender;
+import com.ldc.workflow.service.notification.EmailTemplate;
+import com.ldc.workflow.service.notification.EmailTemplateCache;
+import com.ldc.workflow.types.LoanAttribute;
+import com.ldc.workflow.types.WorkflowState;
+import com.ldc.workflow.util.Backoff;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Sends workflow notification emails (Requirement 6: repurchase decisions)
+ * without holding up the workflow.
+ *
+ * {@link #notify(String, WorkflowState)} only captures the template values and
+ * queues them; it never blocks, and when the queue is full the notification is
+ * dropped and reported through the returned future. A collector thread takes up
+ * to NOTIFICATION_BATCH_SIZE notifications, waiting at most
+ * NOTIFICATION_BATCH_WINDOW_MS after the first, renders them with the compiled
+ * template for their type and hands the batch to the EmailSender on a small
+ * pool, NOTIFICATION_SEND_CONCURRENCY batches at a time. A message the backend
+ * reports as retryable is queued again after a jittered backoff, up to
+ * NOTIFICATION_MAX_ATTEMPTS attempts; any other failure is logged and the
+ * notification's future fails. Callers decide how long, if at all, to wait.
+ *
+ * Recipients come from the {type}-email parameter (a comma separated list) and
+ * templates from the {type} email template parameter, by default under
+ * /ldc-workflow/notifications/ and /ldc-workflow/email-templates/ (see
+ * ConfigurationService).
+ *
+ * Environment variables:
+ * SES_SENDER_EMAIL                     From address, default noreply@ldc.com
+ * NOTIFICATION_BATCH_SIZE              messages per send, default 25
+ * NOTIFICATION_BATCH_WINDOW_MS         longest wait for a batch to fill, default 50
+ * NOTIFICATION_SEND_CONCURRENCY        batches being sent at once, default 2
+ * NOTIFICATION_MAX_ATTEMPTS            attempts per message including the first, default 4
+ * NOTIFICATION_QUEUE_CAPACITY          queued notifications before new ones are dropped, default 10000
+ * NOTIFICATION_TEMPLATE_CHECK_SECONDS  how often to look for a new template version, default 60
+ */
+@Service
+public class NotificationService implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
+    private static final Object FLUSH = new Object();
+
+    private final EmailTemplateCache templates;
+    private final Function<String, String> recipientSource;
+    private final EmailSender sender;
+    private final String from;
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final int maxAttempts;
+    private final Semaphore sendSlots;
+    private final ExecutorService sendPool;
+    private final BlockingQueue<Object> queue;
+    private final Backoff backoff = new Backoff(100, 5000);
+    private final Thread collectorThread;
+    private volatile boolean running = true;
+
+    private final LatencyHistogram latency = new LatencyHistogram("notification");
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    @Autowired
+    public NotificationService(ConfigurationService configurationService, EmailSender sender) {
+        this(new EmailTemplateCache(configurationService::getEmailTemplate,
+                        TimeUnit.SECONDS.toNanos(getIntEnv("NOTIFICATION_TEMPLATE_CHECK_SECONDS", 60)),
+                        System::nanoTime),
+                configurationService::getNotificationEmail, sender,
+                getEnv("SES_SENDER_EMAIL", "noreply@ldc.com"),
+                getIntEnv("NOTIFICATION_BATCH_SIZE", 25), getIntEnv("NOTIFICATION_BATCH_WINDOW_MS", 50),
+                getIntEnv("NOTIFICATION_SEND_CONCURRENCY", 2), getIntEnv("NOTIFICATION_MAX_ATTEMPTS", 4),
+                getIntEnv("NOTIFICATION_QUEUE_CAPACITY", 10000));
+    }
+
+    /**
+     * @param recipientSource comma separated recipients by notification type; may throw when missing
+     */
+    public NotificationService(EmailTemplateCache templates, Function<String, String> recipientSource,
+                               EmailSender sender, String from, int maxBatchSize, long windowMillis,
+                               int sendConcurrency, int maxAttempts, int queueCapacity) {
+        this.templates = templates;
+        this.recipientSource = recipientSource;
+        this.sender = sender;
+        this.from = from;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, windowMillis));
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.sendSlots = new Semaphore(Math.max(1, sendConcurrency));
+        this.sendPool = Executors.newFixedThreadPool(Math.max(1, sendConcurrency), runnable -> {
+            Thread thread = new Thread(runnable, "notification-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.queue = new LinkedBlockingQueue<>(Math.max(1, queueCapacity));
+        this.collectorThread = new Thread(this::runCollector, "notification-collector");
+        this.collectorThread.setDaemon(true);
+        this.collectorThread.start();
+        logger.info("Notification service started (sender={}, batchSize={}, windowMillis={})", sender.name(),
+                this.maxBatchSize, windowMillis);
+    }
+
+    /**
+     * Queue a notification about a workflow. Returns at once; the future completes
+     * when the message has been accepted by the backend, or fails when it was
+     * dropped, could not be rendered or addressed, or ran out of attempts.
+     */
+    public CompletableFuture<Void> notify(String type, WorkflowState state) {
+        String key = type + "/" + state.getRequestNumber() + "/" + state.getLoanNumber();
+        Pending pending = new Pending(type, key, templateValues(state));
+        if (!running || !queue.offer(pending)) {
+            dropped.increment();
+            logger.error("Notification {} dropped: {}", key, running ? "queue is full" : "service is closed");
+            pending.result.completeExceptionally(new IllegalStateException("Notification queue is "
+                    + (running ? "full" : "closed")));
+        }
+        return pending.result;
+    }
+
+    /**
+     * Send what is queued now instead of waiting for the batch to fill.
+     */
+    public void flush() {
+        queue.offer(FLUSH);
+    }
+
+    static Map<String, String> templateValues(WorkflowState state) {
+        Map<String, String> values = new HashMap<>(16);
+        values.put("requestNumber", nullToEmpty(state.getRequestNumber()));
+        values.put("loanNumber", nullToEmpty(state.getLoanNumber()));
+        values.put("reviewType", nullToEmpty(state.getReviewType()));
+        values.put("loanDecision", nullToEmpty(state.getLoanDecision()));
+        values.put("loanStatus", nullToEmpty(state.getLoanStatus()));
+        values.put("decidedAt", nullToEmpty(state.getUpdatedAt()));
+        StringBuilder repurchase = new StringBuilder();
+        if (state.getAttributes() != null) {
+            for (LoanAttribute attribute : state.getAttributes()) {
+                if ("Repurchase".equals(attribute.getAttributeDecision())) {
+                    if (repurchase.length() > 0) {
+                        repurchase.append(", ");
+                    }
+                    repurchase.append(attribute.getAttributeName());
+                }
+            }
+        }
+        values.put("repurchaseAttributes", repurchase.toString());
+        return values;
+    }
+
+    private void runCollector() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Object first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (!(first instanceof Pending pending)) {
+                    continue;
+                }
+                batch.add(pending);
+                collectBatch(batch);
+                sendSlots.acquire();
+                List<Pending> toSend = new ArrayList<>(batch);
+                sendPool.execute(() -> {
+                    try {
+                        send(toSend);
+                    } finally {
+                        sendSlots.release();
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        for (Object left; (left = queue.poll()) != null; ) {
+            if (left instanceof Pending pending) {
+                fail(pending, new IllegalStateException("Notification service is closed"));
+            }
+        }
+    }
+
+    private void collectBatch(List<Pending> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            Object next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null || next == FLUSH) {
+                return;
+            }
+            batch.add((Pending) next);
+        }
+    }
+
+    private void send(List<Pending> batch) {
+        Map<EmailMessage, Pending> byMessage = new IdentityHashMap<>(batch.size() * 2);
+        List<EmailMessage> messages = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            try {
+                if (pending.message == null) {
+                    pending.message = render(pending);
+                }
+                byMessage.put(pending.message, pending);
+                messages.add(pending.message);
+            } catch (RuntimeException e) {
+                fail(pending, e);
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        batches.increment();
+        Map<EmailMessage, EmailSendException> failures;
+        try {
+            failures = sender.send(messages);
+        } catch (RuntimeException e) {
+            EmailSendException failure = new EmailSendException("SenderError", e.toString(), true, e);
+            failures = new IdentityHashMap<>();
+            for (EmailMessage message : messages) {
+                failures.put(message, failure);
+            }
+        }
+        for (EmailMessage message : messages) {
+            Pending pending = byMessage.get(message);
+            EmailSendException failure = failures.get(message);
+            if (failure == null) {
+                sent.increment();
+                latency.recordNanos(System.nanoTime() - pending.queuedAtNanos);
+                pending.result.complete(null);
+            } else {
+                retryOrFail(pending, failure);
+            }
+        }
+    }
+
+    private EmailMessage render(Pending pending) {
+        EmailTemplate template = templates.get(pending.type);
+        String recipients;
+        try {
+            recipients = recipientSource.apply(pending.type);
+        } catch (RuntimeException e) {
+            throw new EmailSendException("NoRecipients", "No recipients configured for " + pending.type
+                    + " notifications: " + e.getMessage(), false, e);
+        }
+        List<String> to = new ArrayList<>(2);
+        for (String recipient : recipients.split(",")) {
+            if (!recipient.isBlank()) {
+                to.add(recipient.trim());
+            }
+        }
+        if (to.isEmpty()) {
+            throw new EmailSendException("NoRecipients", "No recipients configured for " + pending.type
+                    + " notifications", false, null);
+        }
+        return new EmailMessage(pending.key, from, to, template.renderSubject(pending.values),
+                template.renderBody(pending.values));
+    }
+
+    private void retryOrFail(Pending pending, EmailSendException failure) {
+        if (failure.isRetryable() && running && pending.attempts + 1 < maxAttempts) {
+            long delay = backoff.delayMillis(pending.attempts);
+            pending.attempts++;
+            retried.increment();
+            logger.warn("Notification {} attempt {} failed ({}), retrying in {} ms", pending.key, pending.attempts,
+                    failure.getErrorType(), delay);
+            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> {
+                if (!queue.offer(pending)) {
+                    fail(pending, failure);
+                }
+            });
+            return;
+        }
+        fail(pending, failure);
+    }
+
+    private void fail(Pending pending, Exception failure) {
+        failed.increment();
+        logger.error("Notification {} not sent after {} attempt(s): {}", pending.key, pending.attempts + 1,
+                failure.getMessage());
+        pending.result.completeExceptionally(failure);
+    }
+
+    public String getSenderName() {
+        return sender.name();
+    }
+
+    /**
+     * Time from queueing to acceptance by the backend, retries included.
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getSentCount() {
+        return sent.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public long getRetriedCount() {
+        return retried.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public long getTemplateCompileCount() {
+        return templates.getCompileCount();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            collectorThread.join(TimeUnit.SECONDS.toMillis(5));
+            sendPool.shutdown();
+            sendPool.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sender.close();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private static String getEnv(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+
+    private static int getIntEnv(String name, int defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static final class Pending {
+        private final String type;
+        private final String key;
+        private final Map<String, String> values;
+        private final long queuedAtNanos = System.nanoTime();
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        private EmailMessage message;
+        private int attempts;
+
+        private Pending(String type, String key, Map<String, String> values) {
+            this.type = type;
+            this.key = key;
+            this.values = values;
+        }
+    }
+}
@@ -1,18 +1,50 @@
 package com.ldc.workflow.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ldc.workflow.metrics.LatencyHistogram;
+import com.ldc.workflow.util.Backoff;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.http.auth.aws.signer.AwsV4HttpSigner;
+import software.amazon.awssdk.http.auth.spi.signer.SignedRequest;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Service for interacting with AWS Step Functions API.
- * Uses HTTP client to call Step Functions SendTaskSuccess API.
+ *
+ * Calls the task-token APIs (SendTaskSuccess, SendTaskFailure, SendTaskHeartbeat)
+ * over a shared HTTP/2 client so connections stay open across invocations.
+ * Requests are SigV4-signed with the function's credentials. Throttling, 5xx and
+ * I/O errors are retried with full-jitter exponential backoff; errors about the
+ * token itself (TaskTimedOut, TaskDoesNotExist, InvalidToken) fail immediately.
+ *
+ * Environment variables:
+ * AWS_REGION                     signing region and default endpoint, default us-east-1
+ * STEP_FUNCTIONS_ENDPOINT        endpoint override (local stub, VPC endpoint)
+ * STEP_FUNCTIONS_MAX_ATTEMPTS    attempts per call including the first, default 4
+ * STEP_FUNCTIONS_TIMEOUT_MS      per-attempt request timeout, default 5000
  */
 @Service
 public class StepFunctionsService {
@@ -20,82 +52,265 @@ public class StepFunctionsService {
     private static final Logger logger = LoggerFactory.getLogger(StepFunctionsService.class);
     private static final ObjectMapper objectMapper = new ObjectMapper();
     private static final String STEP_FUNCTIONS_ENDPOINT = "https://states.%s.amazonaws.com/";
-    private static final String AWS_REGION = System.getenv("AWS_REGION");
+    private static final String SIGNING_NAME = "states";
+    private static final String CONTENT_TYPE = "application/x-amz-json-1.0";
+
+    private static final Set<String> RETRYABLE_ERRORS = Set.of(
+            "ThrottlingException", "Throttling", "TooManyRequestsException",
+            "RequestLimitExceeded", "ServiceUnavailable", "InternalFailure");
 
     private final HttpClient httpClient;
+    private final URI endpoint;
+    private final String region;
+    private final AwsCredentialsProvider credentialsProvider;
+    private final AwsV4HttpSigner signer = AwsV4HttpSigner.create();
+    private final int maxAttempts;
+    private final Duration requestTimeout;
+    private final Backoff backoff = new Backoff(50, 2000);
+
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder throttles = new LongAdder();
 
+    @Autowired
     public StepFunctionsService() {
-        this.httpClient = HttpClient.newHttpClient();
+        this(resolveEndpoint(), resolveRegion(), DefaultCredentialsProvider.create(),
+                getIntEnv("STEP_FUNCTIONS_MAX_ATTEMPTS", 4),
+                Duration.ofMillis(getIntEnv("STEP_FUNCTIONS_TIMEOUT_MS", 5000)));
+    }
+
+    public StepFunctionsService(URI endpoint, String region, AwsCredentialsProvider credentialsProvider,
+                                int maxAttempts, Duration requestTimeout) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(2))
+                .build();
+        this.endpoint = endpoint;
+        this.region = region;
+        this.credentialsProvider = credentialsProvider;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.requestTimeout = requestTimeout;
     }
 
     /**
      * Send task success to Step Functions to resume execution.
      */
     public void sendTaskSuccess(String taskToken, String output) {
-        try {
-            String region = AWS_REGION != null ? AWS_REGION : "us-east-1";
-            String endpoint = String.format(STEP_FUNCTIONS_ENDPOINT, region);
-
-            // Create request body
-            String requestBody = objectMapper.writeValueAsString(new SendTaskSuccessRequest(taskToken, output));
-
-            // Create HTTP request
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(endpoint))
-                    .header("Content-Type", "application/x-amz-json-1.0")
-                    .header("X-Amz-Target", "AWSStepFunctions.SendTaskSuccess")
-                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
-                    .build();
-
-            // Send request
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() != 200) {
-                logger.error("Step Functions SendTaskSuccess failed with status: {}, body: {}", 
-                        response.statusCode(), response.body());
-                throw new RuntimeException("Step Functions API call failed: " + response.statusCode());
-            }
-
-            logger.info("Task success sent to Step Functions");
-        } catch (Exception e) {
-            logger.error("Error sending task success to Step Functions", e);
-            throw new RuntimeException("Failed to send task success to Step Functions", e);
-        }
+        join(sendTaskSuccessAsync(taskToken, output), "success");
+        logger.info("Task success sent to Step Functions");
     }
 
     /**
      * Send task failure to Step Functions to fail execution.
      */
     public void sendTaskFailure(String taskToken, String error, String cause) {
+        join(sendTaskFailureAsync(taskToken, error, cause), "failure");
+        logger.info("Task failure sent to Step Functions");
+    }
+
+    /**
+     * Send a heartbeat for a task that is still being worked on.
+     */
+    public void sendTaskHeartbeat(String taskToken) {
+        join(sendTaskHeartbeatAsync(taskToken), "heartbeat");
+    }
+
+    public CompletableFuture<Void> sendTaskSuccessAsync(String taskToken, String output) {
+        return call("SendTaskSuccess", new SendTaskSuccessRequest(taskToken, output));
+    }
+
+    public CompletableFuture<Void> sendTaskFailureAsync(String taskToken, String error, String cause) {
+        return call("SendTaskFailure", new SendTaskFailureRequest(taskToken, error, cause));
+    }
+
+    public CompletableFuture<Void> sendTaskHeartbeatAsync(String taskToken) {
+        return call("SendTaskHeartbeat", new SendTaskHeartbeatRequest(taskToken));
+    }
+
+    /**
+     * Latency of successful and failed calls per operation, retries included.
+     */
+    public LatencyHistogram getLatency(String operation) {
+        return latencies.computeIfAbsent(operation, LatencyHistogram::new);
+    }
+
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    public long getThrottleCount() {
+        return throttles.sum();
+    }
+
+    private CompletableFuture<Void> call(String operation, Object body) {
+        byte[] payload;
         try {
-            String region = AWS_REGION != null ? AWS_REGION : "us-east-1";
-            String endpoint = String.format(STEP_FUNCTIONS_ENDPOINT, region);
-
-            // Create request body
-            String requestBody = objectMapper.writeValueAsString(
-                    new SendTaskFailureRequest(taskToken, error, cause));
-
-            // Create HTTP request
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(endpoint))
-                    .header("Content-Type", "application/x-amz-json-1.0")
-                    .header("X-Amz-Target", "AWSStepFunctions.SendTaskFailure")
-                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
-                    .build();
-
-            // Send request
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() != 200) {
-                logger.error("Step Functions SendTaskFailure failed with status: {}, body: {}", 
-                        response.statusCode(), response.body());
-                throw new RuntimeException("Step Functions API call failed: " + response.statusCode());
+            payload = objectMapper.writeValueAsBytes(body);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        long start = System.nanoTime();
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        attempt(operation, payload, 0, result);
+        return result.whenComplete((ignored, error) ->
+                getLatency(operation).recordNanos(System.nanoTime() - start));
+    }
+
+    private void attempt(String operation, byte[] payload, int attempt, CompletableFuture<Void> result) {
+        HttpRequest request;
+        try {
+            request = sign(operation, payload);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, error) -> {
+            StepFunctionsException failure;
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                failure = new StepFunctionsException(operation, 0, "IOError", cause.toString(), true, cause);
+            } else if (response.statusCode() == 200) {
+                result.complete(null);
+                return;
+            } else {
+                failure = toException(operation, response);
+            }
+
+            if (!failure.isRetryable() || attempt + 1 >= maxAttempts) {
+                logger.error("Step Functions {} failed after {} attempt(s): {}", operation, attempt + 1,
+                        failure.getMessage());
+                result.completeExceptionally(failure);
+                return;
             }
 
-            logger.info("Task failure sent to Step Functions");
+            long delay = backoff.delayMillis(attempt);
+            retries.increment();
+            logger.warn("Step Functions {} attempt {} failed ({}), retrying in {} ms", operation, attempt + 1,
+                    failure.getErrorType(), delay);
+            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS)
+                    .execute(() -> attempt(operation, payload, attempt + 1, result));
+        });
+    }
+
+    private HttpRequest sign(String operation, byte[] payload) {
+        SdkHttpRequest unsigned = SdkHttpRequest.builder()
+                .method(SdkHttpMethod.POST)
+                .uri(endpoint)
+                .putHeader("Content-Type", CONTENT_TYPE)
+                .putHeader("X-Amz-Target", "AWSStepFunctions." + operation)
+                .build();
+
+        SignedRequest signed = signer.sign(r -> r
+                .identity(credentialsProvider.resolveCredentials())
+                .request(unsigned)
+                .payload(() -> new ByteArrayInputStream(payload))
+                .putProperty(AwsV4HttpSigner.SERVICE_SIGNING_NAME, SIGNING_NAME)
+                .putProperty(AwsV4HttpSigner.REGION_NAME, region));
+
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+                .uri(endpoint)
+                .timeout(requestTimeout)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(payload));
+        for (Map.Entry<String, List<String>> header : signed.request().headers().entrySet()) {
+            // HttpClient sets Host itself from the URI, which is what was signed
+            if (!"Host".equalsIgnoreCase(header.getKey())) {
+                for (String value : header.getValue()) {
+                    request.header(header.getKey(), value);
+                }
+            }
+        }
+        return request.build();
+    }
+
+    private StepFunctionsException toException(String operation, HttpResponse<String> response) {
+        String errorType = "HTTP" + response.statusCode();
+        String message = response.body();
+        try {
+            JsonNode error = objectMapper.readTree(response.body());
+            if (error.hasNonNull("__type")) {
+                String type = error.get("__type").asText();
+                errorType = type.substring(type.lastIndexOf('#') + 1);
+            }
+            if (error.hasNonNull("message")) {
+                message = error.get("message").asText();
+            } else if (error.hasNonNull("Message")) {
+                message = error.get("Message").asText();
+            }
         } catch (Exception e) {
-            logger.error("Error sending task failure to Step Functions", e);
-            throw new RuntimeException("Failed to send task failure to Step Functions", e);
+            // Non-JSON body: keep the raw text
+        }
+
+        boolean throttled = response.statusCode() == 429 || errorType.contains("Throttl")
+                || errorType.equals("TooManyRequestsException") || errorType.equals("RequestLimitExceeded");
+        if (throttled) {
+            throttles.increment();
+        }
+        boolean retryable = throttled || response.statusCode() >= 500 || RETRYABLE_ERRORS.contains(errorType);
+        return new StepFunctionsException(operation, response.statusCode(), errorType, message, retryable, null);
+    }
+
+    private static void join(CompletableFuture<Void> future, String kind) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            logger.error("Error sending task {} to Step Functions", kind, e.getCause());
+            throw new RuntimeException("Failed to send task " + kind + " to Step Functions", e.getCause());
+        }
+    }
+
+    private static URI resolveEndpoint() {
+        String override = System.getenv("STEP_FUNCTIONS_ENDPOINT");
+        if (override != null && !override.isEmpty()) {
+            return URI.create(override);
+        }
+        return URI.create(String.format(STEP_FUNCTIONS_ENDPOINT, resolveRegion()));
+    }
+
+    private static String resolveRegion() {
+        String region = System.getenv("AWS_REGION");
+        return region != null ? region : "us-east-1";
+    }
+
+    private static int getIntEnv(String name, int defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : Integer.parseInt(value);
+    }
+
+    /**
+     * Error returned by the Step Functions API (or the transport) for one call.
+     */
+    public static class StepFunctionsException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private final String operation;
+        private final int statusCode;
+        private final String errorType;
+        private final boolean retryable;
+
+        public StepFunctionsException(String operation, int statusCode, String errorType, String message,
+                                      boolean retryable, Throwable cause) {
+            super(operation + " failed: " + errorType + (message != null ? " - " + message : ""), cause);
+            this.operation = operation;
+            this.statusCode = statusCode;
+            this.errorType = errorType;
+            this.retryable = retryable;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        public String getErrorType() {
+            return errorType;
+        }
+
+        public boolean isRetryable() {
+            return retryable;
         }
     }
 
@@ -126,4 +341,15 @@ public class StepFunctionsService {
             this.cause = cause;
         }
     }
+
+    /**
+     * Request body for SendTaskHeartbeat API.
+     */
+    public static class SendTaskHeartbeatRequest {
+        public String taskToken;
+
+        public SendTaskHeartbeatRequest(String taskToken) {
+            this.taskToken = taskToken;
+        }
+    }
 }
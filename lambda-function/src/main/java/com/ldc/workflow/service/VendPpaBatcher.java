@@ -0,0 +1,358 @@
+package com.ldc.workflow.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Groups Vend PPA submissions into multi-loan calls to the batch endpoint.
+ *
+ * Callers hand over one submission at a time and get a future for its own
+ * result. A single collector thread takes up to VEND_PPA_BATCH_SIZE queued
+ * submissions, waiting at most VEND_PPA_BATCH_WINDOW_MS after the first, and
+ * posts them with VendPpaClient.submitBatchAsync, with at most
+ * VEND_PPA_BATCH_MAX_IN_FLIGHT batches out at once. In server mode that groups
+ * the decisions of concurrent workflows; a Lambda invocation that has handed over
+ * all of its loans calls {@link #flush()} so the last batch goes out without
+ * waiting for the window.
+ *
+ * Results are matched back to submissions by idempotency key. An item the API
+ * rejects fails on its own with the status it was given. An item that fails with
+ * 408, 429 or 5xx, or is missing from the response, is queued for the next batch,
+ * up to VEND_PPA_MAX_ATTEMPTS attempts in all and within the client's retry
+ * budget. A batch that fails as a whole, after the client's own retries, fails
+ * each of its items. A key submitted twice in one batch is sent once.
+ *
+ * With VEND_PPA_BATCH_SIZE=1, the default, no thread is started and every
+ * submission is a single call; set it above 1 only against an API that accepts
+ * batches.
+ *
+ * Environment variables:
+ * VEND_PPA_BATCH_SIZE            submissions per call, default 1 (no batching)
+ * VEND_PPA_BATCH_WINDOW_MS       longest wait for a batch to fill, default 200
+ * VEND_PPA_BATCH_MAX_IN_FLIGHT   batch calls in flight, default 8
+ * VEND_PPA_MAX_ATTEMPTS          attempts per item including the first, default 3
+ */
+@Service
+public class VendPpaBatcher implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(VendPpaBatcher.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final Object FLUSH = new Object();
+
+    private final VendPpaClient client;
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final int maxItemAttempts;
+    private final Semaphore inFlight;
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    private final Thread collectorThread;
+    private volatile boolean running = true;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder items = new LongAdder();
+    private final LongAdder requeued = new LongAdder();
+    private final LongAdder itemFailures = new LongAdder();
+
+    @Autowired
+    public VendPpaBatcher(VendPpaClient client) {
+        this(client, getIntEnv("VEND_PPA_BATCH_SIZE", 1), getIntEnv("VEND_PPA_BATCH_WINDOW_MS", 200),
+                getIntEnv("VEND_PPA_BATCH_MAX_IN_FLIGHT", 8), getIntEnv("VEND_PPA_MAX_ATTEMPTS", 3));
+    }
+
+    public VendPpaBatcher(VendPpaClient client, int maxBatchSize, long windowMillis, int maxInFlight,
+                          int maxItemAttempts) {
+        this.client = client;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, windowMillis));
+        this.maxItemAttempts = Math.max(1, maxItemAttempts);
+        this.inFlight = new Semaphore(Math.max(1, maxInFlight));
+        if (this.maxBatchSize > 1) {
+            this.collectorThread = new Thread(this::runCollector, "vend-ppa-batcher");
+            this.collectorThread.setDaemon(true);
+            this.collectorThread.start();
+            logger.info("Vend PPA batching enabled (batchSize={}, windowMillis={}, maxInFlight={})",
+                    this.maxBatchSize, windowMillis, maxInFlight);
+        } else {
+            this.collectorThread = null;
+        }
+    }
+
+    public CompletableFuture<JsonNode> submitAsync(VendPpaClient.Submission submission, long deadlineNanos) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(submission);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return submitAsync(submission.getIdempotencyKey(), payload, deadlineNanos);
+    }
+
+    /**
+     * Queue a serialized submission for the next batch.
+     *
+     * @param deadlineNanos System.nanoTime() by which the submission must be over;
+     *                      a batch is given the earliest deadline of its items
+     */
+    public CompletableFuture<JsonNode> submitAsync(String idempotencyKey, byte[] payload, long deadlineNanos) {
+        if (collectorThread == null) {
+            return client.submitAsync(idempotencyKey, payload, deadlineNanos);
+        }
+        if (!running) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Vend PPA batcher is closed"));
+        }
+        Pending pending = new Pending(idempotencyKey, payload, deadlineNanos);
+        queue.add(pending);
+        return pending.result;
+    }
+
+    /**
+     * Submit and wait for the result. A submission with a deadline comes from a
+     * Lambda invocation, which has no other loans to wait for, so its batch is
+     * sent at once; without one (server mode) it waits for other workflows'
+     * submissions to fill the batch.
+     *
+     * @throws VendPpaClient.VendPpaException when the submission fails
+     */
+    public JsonNode submit(VendPpaClient.Submission submission, long deadlineNanos) {
+        CompletableFuture<JsonNode> result = submitAsync(submission, deadlineNanos);
+        if (deadlineNanos != Long.MAX_VALUE) {
+            flush();
+        }
+        return join(result);
+    }
+
+    /**
+     * Send what is queued now instead of waiting for the batch to fill.
+     */
+    public void flush() {
+        if (collectorThread != null) {
+            queue.add(FLUSH);
+        }
+    }
+
+    /**
+     * Wait for a submission's result, unwrapping the failure.
+     *
+     * @throws VendPpaClient.VendPpaException when the submission failed
+     */
+    public static JsonNode join(CompletableFuture<JsonNode> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof VendPpaClient.VendPpaException failure) {
+                throw failure;
+            }
+            throw new VendPpaClient.VendPpaException(0, "ClientError", String.valueOf(e.getCause()), false,
+                    e.getCause());
+        }
+    }
+
+    private void runCollector() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Object first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (!(first instanceof Pending pending)) {
+                    continue;
+                }
+                batch.add(pending);
+                collectBatch(batch);
+                inFlight.acquire();
+                send(new ArrayList<>(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        for (Object left; (left = queue.poll()) != null; ) {
+            if (left instanceof Pending pending) {
+                pending.result.completeExceptionally(new IllegalStateException("Vend PPA batcher is closed"));
+            }
+        }
+    }
+
+    private void collectBatch(List<Pending> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            Object next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null || next == FLUSH) {
+                return;
+            }
+            batch.add((Pending) next);
+        }
+    }
+
+    private void send(List<Pending> batch) {
+        Map<String, List<Pending>> byKey = new LinkedHashMap<>();
+        long deadline = Long.MAX_VALUE;
+        for (Pending pending : batch) {
+            byKey.computeIfAbsent(pending.idempotencyKey, key -> new ArrayList<>(1)).add(pending);
+            deadline = Math.min(deadline, pending.deadlineNanos);
+        }
+
+        byte[] body;
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(batch.size() * 512);
+            out.write("{\"Items\":[".getBytes(StandardCharsets.UTF_8));
+            StringBuilder keys = new StringBuilder();
+            boolean firstItem = true;
+            for (Map.Entry<String, List<Pending>> entry : byKey.entrySet()) {
+                if (!firstItem) {
+                    out.write(',');
+                }
+                firstItem = false;
+                out.write(("{\"IdempotencyKey\":" + objectMapper.writeValueAsString(entry.getKey())
+                        + ",\"Submission\":").getBytes(StandardCharsets.UTF_8));
+                out.write(entry.getValue().get(0).payload);
+                out.write('}');
+                keys.append(entry.getKey()).append('\n');
+            }
+            out.write("]}".getBytes(StandardCharsets.UTF_8));
+            body = out.toByteArray();
+
+            batches.increment();
+            items.add(byKey.size());
+            String batchKey = UUID.nameUUIDFromBytes(keys.toString().getBytes(StandardCharsets.UTF_8)).toString();
+            client.submitBatchAsync(batchKey, body, deadline).whenComplete((response, error) -> {
+                inFlight.release();
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    byKey.values().forEach(group -> group.forEach(p -> p.result.completeExceptionally(cause)));
+                    itemFailures.add(byKey.size());
+                } else {
+                    demultiplex(byKey, response);
+                }
+            });
+        } catch (Exception e) {
+            inFlight.release();
+            logger.error("Unable to send Vend PPA batch of {} submissions", batch.size(), e);
+            batch.forEach(pending -> pending.result.completeExceptionally(e));
+        }
+    }
+
+    private void demultiplex(Map<String, List<Pending>> byKey, JsonNode response) {
+        Map<String, JsonNode> results = new HashMap<>();
+        for (JsonNode result : response.path("Results")) {
+            results.put(result.path("IdempotencyKey").asText(), result);
+        }
+        for (Map.Entry<String, List<Pending>> entry : byKey.entrySet()) {
+            JsonNode result = results.get(entry.getKey());
+            VendPpaClient.VendPpaException failure;
+            if (result == null) {
+                failure = new VendPpaClient.VendPpaException(0, "MissingResult",
+                        "Batch response has no result for this submission", true, null);
+            } else {
+                int status = result.path("Status").asInt(0);
+                if (status / 100 == 2) {
+                    JsonNode body = result.has("Response") ? result.get("Response")
+                            : objectMapper.createObjectNode();
+                    entry.getValue().forEach(pending -> pending.result.complete(body));
+                    continue;
+                }
+                failure = VendPpaClient.toException(status, result.get("Error"), result.toString());
+            }
+            retryOrFail(entry.getValue(), failure);
+        }
+    }
+
+    private void retryOrFail(List<Pending> group, VendPpaClient.VendPpaException failure) {
+        Pending first = group.get(0);
+        long remaining = first.deadlineNanos == Long.MAX_VALUE ? Long.MAX_VALUE
+                : first.deadlineNanos - System.nanoTime();
+        if (failure.isRetryable() && running && first.attempts + 1 < maxItemAttempts
+                && remaining >= VendPpaClient.MIN_ATTEMPT_NANOS && client.getRetryBudget().tryRetry()) {
+            logger.warn("Vend PPA batch item {} failed ({}), queued for the next batch", first.idempotencyKey,
+                    failure.getErrorType());
+            requeued.increment();
+            for (Pending pending : group) {
+                pending.attempts++;
+                queue.add(pending);
+            }
+            return;
+        }
+        itemFailures.increment();
+        group.forEach(pending -> pending.result.completeExceptionally(failure));
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    /**
+     * Submissions sent in batches, retries included, each key counted once per batch.
+     */
+    public long getItemCount() {
+        return items.sum();
+    }
+
+    /**
+     * Items that failed in a batch and were queued for another.
+     */
+    public long getRequeuedCount() {
+        return requeued.sum();
+    }
+
+    public long getItemFailureCount() {
+        return itemFailures.sum();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (collectorThread != null) {
+            try {
+                collectorThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static int getIntEnv(String name, int defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static final class Pending {
+        private final String idempotencyKey;
+        private final byte[] payload;
+        private final long deadlineNanos;
+        private final CompletableFuture<JsonNode> result = new CompletableFuture<>();
+        private int attempts;
+
+        private Pending(String idempotencyKey, byte[] payload, long deadlineNanos) {
+            this.idempotencyKey = idempotencyKey;
+            this.payload = payload;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+}
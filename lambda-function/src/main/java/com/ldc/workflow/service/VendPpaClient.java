@@ -0,0 +1,470 @@
+package com.ldc.workflow.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ldc.workflow.metrics.LatencyHistogram;
+import com.ldc.workflow.types.LoanAttribute;
+import com.ldc.workflow.types.WorkflowState;
+import com.ldc.workflow.util.Backoff;
+import com.ldc.workflow.util.CircuitBreaker;
+import com.ldc.workflow.util.RetryBudget;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * HTTP client for the Vend PPA API.
+ *
+ * One HTTP/1.1 client is kept for the life of the container, so its pool of
+ * keep-alive connections is reused across invocations. Every attempt is bounded by the per-attempt
+ * timeout and by the caller's deadline, whichever comes first; a retry is not
+ * started when the backoff would leave too little time for it.
+ *
+ * Each submission carries an Idempotency-Key derived from (RequestNumber,
+ * LoanNumber, decision version), so a retry, or a re-run of the whole workflow
+ * step, cannot record a decision twice. That is what makes it safe to retry a
+ * POST: I/O errors, timeouts, 408, 429 and 5xx are retried with full-jitter
+ * backoff (honouring Retry-After), as long as the shared RetryBudget allows.
+ * Other 4xx responses fail at once.
+ *
+ * A CircuitBreaker watches the attempts; once the API has failed
+ * VEND_PPA_BREAKER_FAILURES times in a row, calls fail fast with CircuitOpen
+ * until a probe gets through.
+ *
+ * submitBatchAsync posts several submissions in one call to the batch endpoint
+ * (the configured endpoint + "/batch"), with the same timeouts, retries and
+ * breaker; a retried batch is safe because every item keeps its own key.
+ * VendPpaBatcher builds the batches and hands each item its own result.
+ *
+ * Environment variables:
+ * VEND_PPA_CONNECT_TIMEOUT_MS   connect timeout, default 1000
+ * VEND_PPA_TIMEOUT_MS           per-attempt request timeout, default 5000
+ * VEND_PPA_MAX_ATTEMPTS         attempts per call including the first, default 3
+ * VEND_PPA_RETRY_BUDGET_RATIO   retries allowed per call, on average, default 0.2
+ * VEND_PPA_BREAKER_FAILURES     consecutive failures that open the breaker, default 5
+ * VEND_PPA_BREAKER_OPEN_MS      how long the breaker stays open, default 10000
+ */
+@Service
+public class VendPpaClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(VendPpaClient.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String IDEMPOTENCY_HEADER = "Idempotency-Key";
+    private static final int RETRY_RESERVE = 10;
+
+    /**
+     * An attempt with less time than this left is not started.
+     */
+    static final long MIN_ATTEMPT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final HttpClient httpClient;
+    private final Supplier<String> endpoint;
+    private final Duration attemptTimeout;
+    private final int maxAttempts;
+    private final RetryBudget retryBudget;
+    private final CircuitBreaker circuitBreaker;
+    private final Backoff backoff = new Backoff(50, 1000);
+
+    private final LatencyHistogram callLatency = new LatencyHistogram("VendPpa.call");
+    private final LatencyHistogram attemptLatency = new LatencyHistogram("VendPpa.attempt");
+    private final LatencyHistogram batchLatency = new LatencyHistogram("VendPpa.batch");
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    private volatile String cachedEndpoint;
+    private volatile URI cachedUri;
+    private volatile URI cachedBatchUri;
+
+    @Autowired
+    public VendPpaClient(ConfigurationService configurationService) {
+        this(configurationService::getVendPpaEndpoint,
+                Duration.ofMillis(getIntEnv("VEND_PPA_CONNECT_TIMEOUT_MS", 1000)),
+                Duration.ofMillis(getIntEnv("VEND_PPA_TIMEOUT_MS", 5000)),
+                getIntEnv("VEND_PPA_MAX_ATTEMPTS", 3),
+                new RetryBudget(Double.parseDouble(getEnv("VEND_PPA_RETRY_BUDGET_RATIO", "0.2")), RETRY_RESERVE),
+                new CircuitBreaker(getIntEnv("VEND_PPA_BREAKER_FAILURES", 5),
+                        getIntEnv("VEND_PPA_BREAKER_OPEN_MS", 10_000)));
+    }
+
+    public VendPpaClient(Supplier<String> endpoint, Duration connectTimeout, Duration attemptTimeout,
+                         int maxAttempts, RetryBudget retryBudget, CircuitBreaker circuitBreaker) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .build();
+        this.endpoint = endpoint;
+        this.attemptTimeout = attemptTimeout;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBudget = retryBudget;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Submit a loan decision and wait for the response body.
+     *
+     * @param deadlineNanos System.nanoTime() by which the call must be over, or
+     *                      {@code Long.MAX_VALUE} for no deadline beyond the timeouts
+     * @throws VendPpaException when the call fails, fails fast, or runs out of time
+     */
+    public JsonNode submit(Submission submission, long deadlineNanos) {
+        try {
+            return submitAsync(submission, deadlineNanos).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof VendPpaException failure) {
+                throw failure;
+            }
+            throw new VendPpaException(0, "ClientError", String.valueOf(e.getCause()), false, e.getCause());
+        }
+    }
+
+    public CompletableFuture<JsonNode> submitAsync(Submission submission, long deadlineNanos) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(submission);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return submitAsync(submission.getIdempotencyKey(), payload, deadlineNanos);
+    }
+
+    /**
+     * Submit a payload serialized earlier, such as one stored in the outbox, under
+     * the idempotency key it was stored with.
+     */
+    public CompletableFuture<JsonNode> submitAsync(String idempotencyKey, byte[] payload, long deadlineNanos) {
+        long start = System.nanoTime();
+        retryBudget.onAttempt();
+        CompletableFuture<JsonNode> result = new CompletableFuture<>();
+        attempt(false, idempotencyKey, payload, 0, deadlineNanos, result);
+        return result.whenComplete((ignored, error) -> callLatency.recordNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Post a batch body, {"Items": [{"IdempotencyKey", "Submission"}, ...]}, to the
+     * batch endpoint. The response carries one entry per item under "Results";
+     * the call fails only when the batch as a whole does.
+     *
+     * @param batchKey key for the batch itself, derived from its items' keys
+     */
+    public CompletableFuture<JsonNode> submitBatchAsync(String batchKey, byte[] body, long deadlineNanos) {
+        long start = System.nanoTime();
+        retryBudget.onAttempt();
+        CompletableFuture<JsonNode> result = new CompletableFuture<>();
+        attempt(true, batchKey, body, 0, deadlineNanos, result);
+        return result.whenComplete((ignored, error) -> batchLatency.recordNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Idempotency key for one decision of one loan: the same inputs always give the
+     * same key, and a new decision version gives a new one.
+     */
+    public static String idempotencyKey(String requestNumber, String loanNumber, Long decisionVersion) {
+        String name = requestNumber + '\n' + loanNumber + '\n' + (decisionVersion != null ? decisionVersion : 0);
+        return UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    /**
+     * Latency of whole calls, retries and backoff included.
+     */
+    public LatencyHistogram getLatency() {
+        return callLatency;
+    }
+
+    /**
+     * Latency of whole batch calls, retries and backoff included.
+     */
+    public LatencyHistogram getBatchLatency() {
+        return batchLatency;
+    }
+
+    /**
+     * Latency of single HTTP attempts.
+     */
+    public LatencyHistogram getAttemptLatency() {
+        return attemptLatency;
+    }
+
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public RetryBudget getRetryBudget() {
+        return retryBudget;
+    }
+
+    private void attempt(boolean batch, String idempotencyKey, byte[] payload, int attempt, long deadlineNanos,
+                         CompletableFuture<JsonNode> result) {
+        long remaining = remainingNanos(deadlineNanos);
+        if (remaining < MIN_ATTEMPT_NANOS) {
+            result.completeExceptionally(new VendPpaException(0, "DeadlineExceeded",
+                    "No time left for attempt " + (attempt + 1), false, null));
+            return;
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            result.completeExceptionally(new VendPpaException(0, "CircuitOpen",
+                    "Vend PPA circuit breaker is open", false, null));
+            return;
+        }
+
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder()
+                    .uri(batch ? resolveBatchEndpoint() : resolveEndpoint())
+                    .timeout(Duration.ofNanos(Math.min(attemptTimeout.toNanos(), remaining)))
+                    .header("Content-Type", "application/json")
+                    .header(IDEMPOTENCY_HEADER, idempotencyKey)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(payload))
+                    .build();
+        } catch (RuntimeException e) {
+            circuitBreaker.onSuccess();
+            result.completeExceptionally(new VendPpaException(0, "InvalidEndpoint", e.getMessage(), false, e));
+            return;
+        }
+
+        long start = System.nanoTime();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).whenComplete((response, error) -> {
+            attemptLatency.recordNanos(System.nanoTime() - start);
+            VendPpaException failure;
+            long retryAfterMillis = 0;
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                boolean timedOut = cause instanceof HttpTimeoutException;
+                if (timedOut) {
+                    timeouts.increment();
+                }
+                failure = new VendPpaException(0, timedOut ? "Timeout" : "IOError", cause.toString(), true, cause);
+            } else if (response.statusCode() / 100 == 2) {
+                circuitBreaker.onSuccess();
+                complete(response, result);
+                return;
+            } else {
+                failure = toException(response);
+                retryAfterMillis = retryAfterMillis(response);
+            }
+
+            if (failure.isRetryable()) {
+                circuitBreaker.onFailure();
+            } else {
+                // The API answered; a rejected request says nothing about its health
+                circuitBreaker.onSuccess();
+            }
+
+            long delay = Math.max(backoff.delayMillis(attempt), retryAfterMillis);
+            boolean inTime = remainingNanos(deadlineNanos) - TimeUnit.MILLISECONDS.toNanos(delay)
+                    >= MIN_ATTEMPT_NANOS;
+            if (!failure.isRetryable() || attempt + 1 >= maxAttempts || !inTime || !retryBudget.tryRetry()) {
+                logger.error("Vend PPA call failed after {} attempt(s): {}", attempt + 1, failure.getMessage());
+                result.completeExceptionally(failure);
+                return;
+            }
+
+            retries.increment();
+            logger.warn("Vend PPA attempt {} failed ({}), retrying in {} ms", attempt + 1,
+                    failure.getErrorType(), delay);
+            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS)
+                    .execute(() -> attempt(batch, idempotencyKey, payload, attempt + 1, deadlineNanos, result));
+        });
+    }
+
+    private static long remainingNanos(long deadlineNanos) {
+        return deadlineNanos == Long.MAX_VALUE ? Long.MAX_VALUE : deadlineNanos - System.nanoTime();
+    }
+
+    private URI resolveEndpoint() {
+        String current = endpoint.get();
+        if (current == null || current.isEmpty()) {
+            throw new IllegalStateException("Vend PPA endpoint is not configured");
+        }
+        if (!current.equals(cachedEndpoint)) {
+            cachedUri = URI.create(current);
+            cachedBatchUri = URI.create(current.replaceAll("/+$", "") + "/batch");
+            cachedEndpoint = current;
+        }
+        return cachedUri;
+    }
+
+    private URI resolveBatchEndpoint() {
+        resolveEndpoint();
+        return cachedBatchUri;
+    }
+
+    private static void complete(HttpResponse<byte[]> response, CompletableFuture<JsonNode> result) {
+        try {
+            byte[] body = response.body();
+            result.complete(body.length == 0 ? objectMapper.createObjectNode() : objectMapper.readTree(body));
+        } catch (IOException e) {
+            result.completeExceptionally(new VendPpaException(response.statusCode(), "InvalidResponse",
+                    e.getMessage(), false, e));
+        }
+    }
+
+    private static VendPpaException toException(HttpResponse<byte[]> response) {
+        JsonNode error = null;
+        try {
+            error = objectMapper.readTree(response.body());
+        } catch (Exception e) {
+            // Non-JSON body: keep the raw text
+        }
+        return toException(response.statusCode(), error, new String(response.body(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The failure for a non-2xx status and its {"error", "message"} body, whether
+     * it answered a whole call or one item of a batch.
+     */
+    static VendPpaException toException(int status, JsonNode error, String rawMessage) {
+        String errorType = "HTTP" + status;
+        String message = rawMessage;
+        if (error != null && error.hasNonNull("error")) {
+            errorType = error.get("error").asText();
+        }
+        if (error != null && error.hasNonNull("message")) {
+            message = error.get("message").asText();
+        }
+        boolean retryable = status == 408 || status == 429 || status >= 500;
+        return new VendPpaException(status, errorType, message, retryable, null);
+    }
+
+    private static long retryAfterMillis(HttpResponse<byte[]> response) {
+        try {
+            return response.headers().firstValue("Retry-After")
+                    .map(seconds -> TimeUnit.SECONDS.toMillis(Long.parseLong(seconds.trim())))
+                    .orElse(0L);
+        } catch (NumberFormatException e) {
+            // An HTTP date: fall back to the backoff
+            return 0;
+        }
+    }
+
+    private static String getEnv(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+
+    private static int getIntEnv(String name, int defaultValue) {
+        return Integer.parseInt(getEnv(name, String.valueOf(defaultValue)));
+    }
+
+    /**
+     * A loan decision as sent to Vend PPA.
+     */
+    public static final class Submission {
+        @JsonProperty("RequestNumber")
+        private final String requestNumber;
+        @JsonProperty("LoanNumber")
+        private final String loanNumber;
+        @JsonProperty("DecisionVersion")
+        private final Long decisionVersion;
+        @JsonProperty("LoanDecision")
+        private final String loanDecision;
+        @JsonProperty("LoanStatus")
+        private final String loanStatus;
+        @JsonProperty("Attributes")
+        private final List<LoanAttribute> attributes;
+
+        public Submission(String requestNumber, String loanNumber, Long decisionVersion, String loanDecision,
+                          String loanStatus, List<LoanAttribute> attributes) {
+            this.requestNumber = requestNumber;
+            this.loanNumber = loanNumber;
+            this.decisionVersion = decisionVersion;
+            this.loanDecision = loanDecision;
+            this.loanStatus = loanStatus;
+            this.attributes = attributes;
+        }
+
+        /**
+         * The loan's decision as stored, at the state's current version.
+         */
+        public static Submission of(WorkflowState state, String loanStatus) {
+            return new Submission(state.getRequestNumber(), state.getLoanNumber(), state.getVersion(),
+                    state.getLoanDecision(), loanStatus, state.getAttributes());
+        }
+
+        public String getRequestNumber() {
+            return requestNumber;
+        }
+
+        public String getLoanNumber() {
+            return loanNumber;
+        }
+
+        public Long getDecisionVersion() {
+            return decisionVersion;
+        }
+
+        public String getLoanDecision() {
+            return loanDecision;
+        }
+
+        public String getLoanStatus() {
+            return loanStatus;
+        }
+
+        public List<LoanAttribute> getAttributes() {
+            return attributes;
+        }
+
+        @JsonIgnore
+        public String getIdempotencyKey() {
+            return idempotencyKey(requestNumber, loanNumber, decisionVersion);
+        }
+    }
+
+    /**
+     * A Vend PPA call that failed, was refused by the circuit breaker, or ran out of time.
+     */
+    public static class VendPpaException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private final int statusCode;
+        private final String errorType;
+        private final boolean retryable;
+
+        public VendPpaException(int statusCode, String errorType, String message, boolean retryable,
+                                Throwable cause) {
+            super("Vend PPA call failed: " + errorType + (message != null ? " - " + message : ""), cause);
+            this.statusCode = statusCode;
+            this.errorType = errorType;
+            this.retryable = retryable;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        public String getErrorType() {
+            return errorType;
+        }
+
+        public boolean isRetryable() {
+            return retryable;
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.ldc.workflow.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ldc.workflow.metrics.LatencyHistogram;
+import com.ldc.workflow.repository.VendPpaOutboxRepository;
+import com.ldc.workflow.types.WorkflowStateKey;
+import com.ldc.workflow.util.Backoff;
+import com.ldc.workflow.util.InvocationDeadline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Delivers queued Vend PPA submissions from the outbox and resumes the executions
+ * waiting on them.
+ *
+ * A batch of outbox keys (from the outbox table's stream, or from a sweep for rows
+ * whose lease ran out) is worked through with at most VEND_PPA_DISPATCH_CONCURRENCY
+ * calls in flight. Submissions go out through VendPpaBatcher, so with batching on
+ * each call carries up to VEND_PPA_BATCH_SIZE rows. Each row is claimed before its
+ * call, so a row delivered by the stream and picked up by a sweep at the same time
+ * is sent once. When Vend PPA accepts a submission the row is deleted and the
+ * execution waiting on it, if its token is on the row, is resumed. A failed call
+ * that can be retried, or that never went out because the circuit breaker was
+ * open or the invocation ran out of time, gives the row back with a backoff before
+ * it is due again; a call that cannot, or a row that has used up
+ * VEND_PPA_OUTBOX_MAX_DELIVERIES, is marked FAILED and its execution failed with
+ * VendPpaIntegrationFailed.
+ *
+ * dispatch returns once every call it started has settled, so the invocation does
+ * not end with calls in flight. Rows it has no time left for are not claimed and
+ * stay due for the next delivery.
+ *
+ * Environment variables:
+ * VEND_PPA_DISPATCH_CONCURRENCY    calls in flight per invocation, default 16
+ * VEND_PPA_OUTBOX_LEASE_MS         how long a claim holds a row, default 60000; must
+ *                                  cover a whole call, retries included
+ * VEND_PPA_OUTBOX_MAX_DELIVERIES   deliveries of a row before it is failed, default 8
+ * VEND_PPA_DEADLINE_MARGIN_MS      time kept back from the invocation, default 500
+ */
+@Service
+public class VendPpaOutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(VendPpaOutboxDispatcher.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Error the waiting execution is failed with when a submission is given up on.
+     */
+    public static final String FAILED_ERROR = "VendPpaIntegrationFailed";
+
+    /**
+     * Client errors raised before any request went out; final for one call, but a
+     * later delivery can still succeed.
+     */
+    private static final Set<String> NOT_SENT = Set.of("CircuitOpen", "DeadlineExceeded");
+
+    private final VendPpaOutboxRepository outboxRepository;
+    private final VendPpaBatcher vendPpaBatcher;
+    private final StepFunctionsService stepFunctionsService;
+    private final int concurrency;
+    private final long leaseMillis;
+    private final int maxDeliveries;
+    private final Backoff redeliveryBackoff;
+    private final long deadlineMarginNanos;
+    private final LongSupplier clock;
+
+    private final LatencyHistogram lag = new LatencyHistogram("VendPpaOutbox.lag");
+    private final LongAdder acknowledged = new LongAdder();
+    private final LongAdder redelivered = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+
+    @Autowired
+    public VendPpaOutboxDispatcher(VendPpaOutboxRepository outboxRepository, VendPpaBatcher vendPpaBatcher,
+                                   StepFunctionsService stepFunctionsService) {
+        this(outboxRepository, vendPpaBatcher, stepFunctionsService,
+                getIntEnv("VEND_PPA_DISPATCH_CONCURRENCY", 16),
+                getIntEnv("VEND_PPA_OUTBOX_LEASE_MS", 60_000),
+                getIntEnv("VEND_PPA_OUTBOX_MAX_DELIVERIES", 8),
+                new Backoff(1000, 300_000),
+                TimeUnit.MILLISECONDS.toNanos(getIntEnv("VEND_PPA_DEADLINE_MARGIN_MS", 500)),
+                System::currentTimeMillis);
+    }
+
+    public VendPpaOutboxDispatcher(VendPpaOutboxRepository outboxRepository, VendPpaBatcher vendPpaBatcher,
+                                   StepFunctionsService stepFunctionsService, int concurrency, long leaseMillis,
+                                   int maxDeliveries, Backoff redeliveryBackoff, long deadlineMarginNanos,
+                                   LongSupplier clock) {
+        if (concurrency <= 0 || leaseMillis <= 0 || maxDeliveries <= 0) {
+            throw new IllegalArgumentException("Outbox dispatch requires positive concurrency, lease and deliveries");
+        }
+        this.outboxRepository = outboxRepository;
+        this.vendPpaBatcher = vendPpaBatcher;
+        this.stepFunctionsService = stepFunctionsService;
+        this.concurrency = concurrency;
+        this.leaseMillis = leaseMillis;
+        this.maxDeliveries = maxDeliveries;
+        this.redeliveryBackoff = redeliveryBackoff;
+        this.deadlineMarginNanos = deadlineMarginNanos;
+        this.clock = clock;
+    }
+
+    /**
+     * Deliver the rows with these keys that are due, and wait for the calls to settle.
+     */
+    public Result dispatch(Collection<WorkflowStateKey> keys) {
+        Result result = new Result();
+        long deadline = InvocationDeadline.deadlineNanos();
+        if (deadline != Long.MAX_VALUE) {
+            deadline -= deadlineMarginNanos;
+        }
+        // One permit per row in flight: a call carries up to a batch of rows
+        Semaphore permits = new Semaphore(concurrency * vendPpaBatcher.getMaxBatchSize());
+        List<CompletableFuture<Void>> calls = new ArrayList<>(keys.size());
+        for (WorkflowStateKey key : keys) {
+            if (!permits.tryAcquire()) {
+                // Send the rows waiting for a batch to fill before waiting on them
+                vendPpaBatcher.flush();
+                permits.acquireUninterruptibly();
+            }
+            if (deadline - System.nanoTime() < VendPpaClient.MIN_ATTEMPT_NANOS) {
+                // Not claimed, so still due for the next delivery
+                permits.release();
+                result.deferred.increment();
+                continue;
+            }
+            Optional<VendPpaOutboxRepository.Entry> claimed;
+            try {
+                long now = clock.getAsLong();
+                claimed = outboxRepository.claim(key.getRequestNumber(), key.getLoanNumber(), now, now + leaseMillis);
+            } catch (Exception e) {
+                logger.error("Unable to claim outbox row for loanNumber: {}", key.getLoanNumber(), e);
+                permits.release();
+                result.deferred.increment();
+                continue;
+            }
+            if (claimed.isEmpty()) {
+                // Acknowledged, failed, or held by another dispatcher
+                permits.release();
+                result.skipped.increment();
+                continue;
+            }
+            VendPpaOutboxRepository.Entry entry = claimed.get();
+            result.claimed.increment();
+            calls.add(vendPpaBatcher.submitAsync(entry.getIdempotencyKey(),
+                            entry.getPayload().getBytes(StandardCharsets.UTF_8), deadline)
+                    .handle((response, error) -> settle(entry, response, error, result))
+                    .thenCompose(settled -> settled)
+                    .exceptionally(error -> {
+                        logger.error("Unable to settle outbox row for loanNumber: {}", entry.getLoanNumber(), error);
+                        return null;
+                    })
+                    .whenComplete((ignored, error) -> permits.release()));
+        }
+        vendPpaBatcher.flush();
+        CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0])).join();
+        return result;
+    }
+
+    /**
+     * Deliver up to {@code limit} rows whose lease has run out: rows the stream
+     * delivery missed, and rows given back after a failed call.
+     */
+    public Result sweep(int limit) {
+        List<WorkflowStateKey> keys = new ArrayList<>();
+        for (VendPpaOutboxRepository.Entry entry : outboxRepository.findDue(clock.getAsLong(), limit)) {
+            keys.add(new WorkflowStateKey(entry.getRequestNumber(), entry.getLoanNumber()));
+        }
+        return dispatch(keys);
+    }
+
+    private CompletableFuture<Void> settle(VendPpaOutboxRepository.Entry entry, JsonNode response, Throwable error,
+                                           Result result) {
+        if (error == null) {
+            Optional<VendPpaOutboxRepository.Entry> acked = outboxRepository.acknowledge(entry);
+            if (acked.isEmpty()) {
+                // Another delivery of the same row got there first
+                duplicates.increment();
+                return CompletableFuture.completedFuture(null);
+            }
+            lag.recordMicros((clock.getAsLong() - entry.getEnqueuedAtMillis()) * 1000);
+            acknowledged.increment();
+            result.acknowledged.increment();
+            if (entry.getAttempts() > 1) {
+                redelivered.increment();
+            }
+            String token = acked.get().getTaskToken();
+            return token == null ? CompletableFuture.completedFuture(null) : resume(entry, token, response);
+        }
+
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        boolean retryable = !(cause instanceof VendPpaClient.VendPpaException failure) || failure.isRetryable()
+                || NOT_SENT.contains(failure.getErrorType());
+        if (retryable && entry.getAttempts() < maxDeliveries) {
+            long retryAt = clock.getAsLong() + redeliveryBackoff.delayMillis(entry.getAttempts() - 1);
+            logger.warn("Vend PPA delivery {} of loanNumber: {} failed, due again in {} ms: {}",
+                    entry.getAttempts(), entry.getLoanNumber(), retryAt - clock.getAsLong(), cause.getMessage());
+            outboxRepository.release(entry, retryAt, String.valueOf(cause.getMessage()));
+            released.increment();
+            result.released.increment();
+            return CompletableFuture.completedFuture(null);
+        }
+
+        logger.error("Giving up on Vend PPA submission of loanNumber: {} after {} deliveries: {}",
+                entry.getLoanNumber(), entry.getAttempts(), cause.getMessage());
+        Optional<VendPpaOutboxRepository.Entry> marked = outboxRepository.fail(entry,
+                String.valueOf(cause.getMessage()));
+        failed.increment();
+        result.failed.increment();
+        String token = marked.map(VendPpaOutboxRepository.Entry::getTaskToken).orElse(null);
+        if (token == null) {
+            // The wait finds the row FAILED when it starts
+            return CompletableFuture.completedFuture(null);
+        }
+        return stepFunctionsService.sendTaskFailureAsync(token, FAILED_ERROR, cause.getMessage())
+                .exceptionally(failure -> {
+                    logger.warn("Unable to fail execution for loanNumber: {}: {}", entry.getLoanNumber(),
+                            failure.getMessage());
+                    return null;
+                });
+    }
+
+    private CompletableFuture<Void> resume(VendPpaOutboxRepository.Entry entry, String token, JsonNode response) {
+        String output;
+        try {
+            output = objectMapper.writeValueAsString(objectMapper.createObjectNode()
+                    .put("requestNumber", entry.getRequestNumber())
+                    .put("loanNumber", entry.getLoanNumber())
+                    .put("idempotencyKey", entry.getIdempotencyKey())
+                    .set("vendPpaResponse", response));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return stepFunctionsService.sendTaskSuccessAsync(token, output)
+                .exceptionally(failure -> {
+                    // A wait that timed out meanwhile starts again and finds the row gone
+                    logger.warn("Unable to resume execution for loanNumber: {}: {}", entry.getLoanNumber(),
+                            failure.getMessage());
+                    return null;
+                });
+    }
+
+    /**
+     * Time from queueing a submission to its acknowledgement.
+     */
+    public LatencyHistogram getLag() {
+        return lag;
+    }
+
+    public long getAcknowledgedCount() {
+        return acknowledged.sum();
+    }
+
+    /**
+     * Acknowledged submissions that took more than one delivery.
+     */
+    public long getRedeliveredCount() {
+        return redelivered.sum();
+    }
+
+    /**
+     * Failed deliveries given back to the outbox for another try.
+     */
+    public long getReleasedCount() {
+        return released.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * Deliveries whose row had already been acknowledged by another one.
+     */
+    public long getDuplicateCount() {
+        return duplicates.sum();
+    }
+
+    private static int getIntEnv(String name, int defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : Integer.parseInt(value);
+    }
+
+    /**
+     * What one dispatch did with its keys.
+     */
+    public static final class Result {
+        private final LongAdder claimed = new LongAdder();
+        private final LongAdder acknowledged = new LongAdder();
+        private final LongAdder released = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+        private final LongAdder deferred = new LongAdder();
+
+        public long getClaimed() {
+            return claimed.sum();
+        }
+
+        public long getAcknowledged() {
+            return acknowledged.sum();
+        }
+
+        /**
+         * Claimed rows whose call failed and that are due again later.
+         */
+        public long getReleased() {
+            return released.sum();
+        }
+
+        public long getFailed() {
+            return failed.sum();
+        }
+
+        /**
+         * Keys with no due row: already acknowledged, failed, or leased elsewhere.
+         */
+        public long getSkipped() {
+            return skipped.sum();
+        }
+
+        /**
+         * Keys left unclaimed for lack of time or a failed claim; still due.
+         */
+        public long getDeferred() {
+            return deferred.sum();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.ldc.workflow.service.audit;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ldc.workflow.types.AuditRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk loader that replays audit journal files or exported CloudWatch log files
+ * into the DynamoDB audit table.
+ *
+ * Each line is scanned for a JSON object; lines that are not audit records
+ * (other log output, CloudWatch export prefixes) are skipped. Records are written
+ * with BatchWriteItem, and because the audit item key is derived from the record
+ * itself, replaying the same file twice is idempotent.
+ *
+ * Usage: java -cp lambda-function-aws.jar com.ldc.workflow.service.audit.AuditReplayer file...
+ * (requires AUDIT_TABLE_NAME or AUDIT_TABLE)
+ */
+public class AuditReplayer {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditReplayer.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final int REPLAY_CHUNK_SIZE = 500;
+
+    private final AuditSink target;
+
+    public AuditReplayer(AuditSink target) {
+        this.target = target;
+    }
+
+    /**
+     * Replay every audit record found in the given file.
+     *
+     * @return the number of records written
+     */
+    public long replay(Path file) throws IOException {
+        long written = 0;
+        long skipped = 0;
+        List<AuditRecord> chunk = new ArrayList<>(REPLAY_CHUNK_SIZE);
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                AuditRecord record = parseLine(line);
+                if (record == null) {
+                    skipped++;
+                    continue;
+                }
+                chunk.add(record);
+                if (chunk.size() == REPLAY_CHUNK_SIZE) {
+                    target.writeBatch(chunk);
+                    written += chunk.size();
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            target.writeBatch(chunk);
+            written += chunk.size();
+        }
+        target.flush();
+
+        logger.info("Replayed {} audit records from {} ({} lines skipped)", written, file, skipped);
+        return written;
+    }
+
+    /**
+     * Parse one journal or log line; returns null when the line is not an audit record.
+     */
+    static AuditRecord parseLine(String line) {
+        int start = line.indexOf('{');
+        if (start < 0) {
+            return null;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(line.substring(start));
+            if (node == null || !node.isObject()) {
+                return null;
+            }
+            JsonNode logType = node.get(StructuredLogAuditSink.LOG_TYPE_FIELD);
+            if (logType != null && !StructuredLogAuditSink.LOG_TYPE_AUDIT.equals(logType.asText())) {
+                return null;
+            }
+            if (!node.hasNonNull("auditId") || !node.hasNonNull("requestNumber")
+                    || !node.hasNonNull("timestamp")) {
+                return null;
+            }
+            return objectMapper.treeToValue(node, AuditRecord.class);
+        } catch (Exception e) {
+            logger.debug("Skipping unparseable audit line: {}", line);
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: AuditReplayer <journal-or-log-file>...");
+            System.exit(2);
+        }
+        try (DynamoDbClient dynamoDbClient = DynamoDbClient.builder().build();
+                DynamoDbAuditSink sink = new DynamoDbAuditSink(dynamoDbClient,
+                        DynamoDbAuditSink.resolveTableName())) {
+            AuditReplayer replayer = new AuditReplayer(sink);
+            long total = 0;
+            for (String arg : args) {
+                total += replayer.replay(Path.of(arg));
+            }
+            logger.info("Replay complete: {} records written to {}", total, sink.getTableName());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.ldc.workflow.service.audit;
+
+import com.ldc.workflow.types.AuditRecord;
+
+import java.util.List;
+
+/**
+ * Destination for audit trail records.
+ *
+ * The active sink is selected by the AUDIT_SINK environment variable
+ * (see {@link com.ldc.workflow.config.AuditSinkConfig}):
+ * - dynamodb: synchronous PutItem into the audit table (default)
+ * - log: one JSON line per record on stdout, ingested by CloudWatch Logs
+ * - journal: local append-only file with batched fsync, for server mode
+ */
+public interface AuditSink extends AutoCloseable {
+
+    /**
+     * Deliver a single record. Implementations may buffer; call {@link #flush()}
+     * when the caller needs the record to be durable.
+     */
+    void write(AuditRecord record);
+
+    /**
+     * Deliver several records. Sinks with a native batch API override this.
+     */
+    default void writeBatch(List<AuditRecord> records) {
+        for (AuditRecord record : records) {
+            write(record);
+        }
+    }
+
+    /**
+     * Block until every record written so far has been delivered.
+     */
+    default void flush() {
+    }
+
+    /**
+     * Short name used in logs and configuration.
+     */
+    String name();
+
+    @Override
+    default void close() {
+    }
+}
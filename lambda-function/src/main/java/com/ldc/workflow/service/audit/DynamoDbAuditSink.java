@@ -0,0 +1,148 @@
+package com.ldc.workflow.service.audit;
+
+import com.ldc.workflow.types.AuditRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Audit sink that writes each record to the DynamoDB audit table.
+ *
+ * Items follow the audit table key schema: RequestNumber (PK) + AuditKey (SK),
+ * where AuditKey is "timestamp#auditId" so that records sort chronologically and
+ * replaying the same record overwrites rather than duplicates it.
+ */
+public class DynamoDbAuditSink implements AuditSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(DynamoDbAuditSink.class);
+    private static final int MAX_BATCH_SIZE = 25;
+    private static final int MAX_UNPROCESSED_RETRIES = 5;
+    private static final long RETENTION_DAYS = 30;
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+
+    public DynamoDbAuditSink(DynamoDbClient dynamoDbClient, String tableName) {
+        if (tableName == null || tableName.isEmpty()) {
+            throw new IllegalArgumentException("Audit table name is required for the dynamodb audit sink");
+        }
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+    }
+
+    /**
+     * Resolve the audit table from AUDIT_TABLE_NAME, falling back to AUDIT_TABLE
+     * (the variable Terraform sets). There is deliberately no fallback to the state table.
+     */
+    public static String resolveTableName() {
+        String tableName = System.getenv("AUDIT_TABLE_NAME");
+        if (tableName == null || tableName.isEmpty()) {
+            tableName = System.getenv("AUDIT_TABLE");
+        }
+        if (tableName == null || tableName.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "AUDIT_TABLE_NAME (or AUDIT_TABLE) environment variable is required for the dynamodb audit sink");
+        }
+        return tableName;
+    }
+
+    @Override
+    public void write(AuditRecord record) {
+        PutItemRequest request = PutItemRequest.builder()
+                .tableName(tableName)
+                .item(toItem(record))
+                .build();
+        dynamoDbClient.putItem(request);
+    }
+
+    /**
+     * Write records with BatchWriteItem in chunks of 25, retrying unprocessed items.
+     */
+    @Override
+    public void writeBatch(List<AuditRecord> records) {
+        for (int start = 0; start < records.size(); start += MAX_BATCH_SIZE) {
+            List<WriteRequest> writes = new ArrayList<>();
+            for (AuditRecord record : records.subList(start, Math.min(start + MAX_BATCH_SIZE, records.size()))) {
+                writes.add(WriteRequest.builder()
+                        .putRequest(PutRequest.builder().item(toItem(record)).build())
+                        .build());
+            }
+            writeChunk(writes);
+        }
+    }
+
+    private void writeChunk(List<WriteRequest> writes) {
+        Map<String, List<WriteRequest>> pending = Map.of(tableName, writes);
+        for (int attempt = 0; !pending.isEmpty(); attempt++) {
+            if (attempt > MAX_UNPROCESSED_RETRIES) {
+                throw new IllegalStateException("Audit batch write left "
+                        + pending.get(tableName).size() + " unprocessed items");
+            }
+            if (attempt > 0) {
+                sleepQuietly(50L << attempt);
+            }
+            BatchWriteItemResponse response = dynamoDbClient.batchWriteItem(
+                    BatchWriteItemRequest.builder().requestItems(pending).build());
+            pending = response.hasUnprocessedItems() ? response.unprocessedItems() : Map.of();
+        }
+    }
+
+    private Map<String, AttributeValue> toItem(AuditRecord record) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("RequestNumber", AttributeValue.builder().s(record.getRequestNumber()).build());
+        item.put("AuditKey", AttributeValue.builder()
+                .s(record.getTimestamp() + "#" + record.getAuditId()).build());
+        item.put("AuditId", AttributeValue.builder().s(record.getAuditId()).build());
+        item.put("LoanNumber", AttributeValue.builder().s(record.getLoanNumber()).build());
+        item.put("ExecutionId", AttributeValue.builder().s(record.getExecutionId()).build());
+        item.put("StateChange", AttributeValue.builder().s(record.getStateChange()).build());
+        item.put("Timestamp", AttributeValue.builder().s(record.getTimestamp()).build());
+        item.put("ExpirationTime", AttributeValue.builder().n(Long.toString(expirationEpochSeconds(record))).build());
+
+        if (record.getDetails() != null && !record.getDetails().isEmpty()) {
+            item.put("Details", AttributeValue.builder().s(record.getDetails()).build());
+        }
+        return item;
+    }
+
+    private long expirationEpochSeconds(AuditRecord record) {
+        Instant base;
+        try {
+            base = Instant.parse(record.getTimestamp());
+        } catch (Exception e) {
+            base = Instant.now();
+        }
+        return base.plus(RETENTION_DAYS, ChronoUnit.DAYS).getEpochSecond();
+    }
+
+    private void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while backing off audit batch write");
+        }
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    @Override
+    public String name() {
+        return "dynamodb";
+    }
+}
@@ -0,0 +1,201 @@
+package com.ldc.workflow.service.audit;
+
+import com.ldc.workflow.types.AuditRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Audit sink that appends JSON lines to a local journal file.
+ *
+ * Callers only enqueue; a single writer thread drains the queue and group-commits:
+ * it collects up to {@code batchSize} records (waiting at most {@code maxDelayMillis}
+ * after the first one), writes them with one channel write and issues a single fsync
+ * for the whole batch. {@link #flush()} blocks until everything enqueued before the
+ * call is on disk, and fails if any of those records could not be written.
+ * The journal can be loaded into DynamoDB with {@link AuditReplayer}.
+ */
+public class JournalAuditSink implements AuditSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(JournalAuditSink.class);
+    private static final byte[] NEWLINE = "\n".getBytes(StandardCharsets.UTF_8);
+
+    private final Path journalPath;
+    private final FileChannel channel;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final int batchSize;
+    private final long maxDelayMillis;
+    private final Thread writerThread;
+    private final Object sequenceLock = new Object();
+
+    private long enqueuedSequence;
+    private long processedSequence;
+    private long failedSequence;
+    private volatile boolean running = true;
+
+    public JournalAuditSink(Path journalPath, int batchSize, long maxDelayMillis) {
+        this.journalPath = journalPath;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxDelayMillis = Math.max(0, maxDelayMillis);
+        try {
+            if (journalPath.getParent() != null) {
+                Files.createDirectories(journalPath.getParent());
+            }
+            this.channel = FileChannel.open(journalPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open audit journal " + journalPath, e);
+        }
+        this.writerThread = new Thread(this::runWriter, "audit-journal-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+        logger.info("Audit journal opened at {} (batchSize={}, maxDelayMillis={})",
+                journalPath, this.batchSize, this.maxDelayMillis);
+    }
+
+    @Override
+    public void write(AuditRecord record) {
+        if (!running) {
+            throw new IllegalStateException("Audit journal is closed: " + journalPath);
+        }
+        byte[] line = StructuredLogAuditSink.toJsonLine(record).getBytes(StandardCharsets.UTF_8);
+        synchronized (sequenceLock) {
+            queue.add(new Entry(++enqueuedSequence, line));
+        }
+    }
+
+    @Override
+    public void flush() {
+        synchronized (sequenceLock) {
+            long target = enqueuedSequence;
+            while (processedSequence < target) {
+                if (!writerThread.isAlive()) {
+                    throw new IllegalStateException("Audit journal writer stopped before flush completed");
+                }
+                try {
+                    sequenceLock.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (failedSequence > 0 && failedSequence <= target) {
+                failedSequence = 0;
+                throw new IllegalStateException("Audit journal write failed for " + journalPath);
+            }
+        }
+    }
+
+    private void runWriter() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collectBatch(batch);
+                writeBatchToDisk(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (IOException e) {
+                logger.error("Failed to append {} audit records to journal {}", batch.size(), journalPath, e);
+                markProcessed(batch, true);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void collectBatch(List<Entry> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            Entry next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void writeBatchToDisk(List<Entry> batch) throws IOException {
+        int size = 0;
+        for (Entry entry : batch) {
+            size += entry.line.length + NEWLINE.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (Entry entry : batch) {
+            buffer.put(entry.line).put(NEWLINE);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        markProcessed(batch, false);
+    }
+
+    private void markProcessed(List<Entry> batch, boolean failed) {
+        synchronized (sequenceLock) {
+            processedSequence = batch.get(batch.size() - 1).sequence;
+            if (failed) {
+                failedSequence = processedSequence;
+            }
+            sequenceLock.notifyAll();
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Error closing audit journal {}", journalPath, e);
+        }
+    }
+
+    public Path getJournalPath() {
+        return journalPath;
+    }
+
+    @Override
+    public String name() {
+        return "journal";
+    }
+
+    private static final class Entry {
+        private final long sequence;
+        private final byte[] line;
+
+        private Entry(long sequence, byte[] line) {
+            this.sequence = sequence;
+            this.line = line;
+        }
+    }
+}
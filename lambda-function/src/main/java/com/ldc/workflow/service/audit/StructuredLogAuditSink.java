@@ -0,0 +1,59 @@
+package com.ldc.workflow.service.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ldc.workflow.types.AuditRecord;
+
+import java.io.PrintStream;
+
+/**
+ * Audit sink that prints one JSON object per line to stdout.
+ *
+ * Lambda forwards stdout to CloudWatch Logs, so this costs no extra network round trip
+ * on the invocation path. Lines carry "logType":"AUDIT" so they can be selected with a
+ * Logs Insights filter or a subscription filter, and replayed with {@link AuditReplayer}.
+ */
+public class StructuredLogAuditSink implements AuditSink {
+
+    static final String LOG_TYPE_FIELD = "logType";
+    static final String LOG_TYPE_AUDIT = "AUDIT";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final PrintStream out;
+
+    public StructuredLogAuditSink(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(AuditRecord record) {
+        String line = toJsonLine(record);
+        // PrintStream.println is synchronized, so concurrent records never interleave
+        out.println(line);
+    }
+
+    @Override
+    public void flush() {
+        out.flush();
+    }
+
+    /**
+     * Serialize a record into the shared JSON-lines format used by the log and journal sinks.
+     */
+    static String toJsonLine(AuditRecord record) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put(LOG_TYPE_FIELD, LOG_TYPE_AUDIT);
+        node.setAll((ObjectNode) objectMapper.valueToTree(record));
+        try {
+            return objectMapper.writeValueAsString(node);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to serialize audit record " + record, e);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "log";
+    }
+}
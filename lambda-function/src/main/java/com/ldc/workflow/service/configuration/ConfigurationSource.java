@@ -0,0 +1,39 @@
+package com.ldc.workflow.service.configuration;
+
+import java.util.Map;
+
+/**
+ * A backend that configuration parameters can be read from.
+ *
+ * Implementations:
+ * - {@link SsmConfigurationSource}: Parameter Store through the SSM API
+ * - {@link LambdaExtensionConfigurationSource}: the Parameters and Secrets Lambda extension on localhost
+ * - {@link FileConfigurationSource}: a local properties file
+ * - {@link EnvironmentConfigurationSource}: environment variable overrides
+ *
+ * Sources are combined with {@link LayeredConfigurationSource}; the cache in
+ * {@link com.ldc.workflow.service.ConfigurationService} sits on top of the chain.
+ */
+public interface ConfigurationSource {
+
+    /**
+     * Look up a single parameter by its full name (e.g. /ldc-workflow/vend-ppa/endpoint).
+     *
+     * @return the value, or null when this source does not define the parameter
+     * @throws RuntimeException when the source could not be reached
+     */
+    String getParameter(String parameterName);
+
+    /**
+     * Load every parameter under a path, keyed by full name.
+     * Sources that cannot enumerate parameters return an empty map.
+     */
+    default Map<String, String> getParametersByPath(String path) {
+        return Map.of();
+    }
+
+    /**
+     * Short name used in logs and CONFIG_SOURCES.
+     */
+    String name();
+}
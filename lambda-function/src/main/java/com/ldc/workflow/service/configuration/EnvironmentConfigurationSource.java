@@ -0,0 +1,58 @@
+package com.ldc.workflow.service.configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Serves parameters from environment variables, mainly to override single values
+ * for local runs and tests.
+ *
+ * A parameter name maps to a variable by upper-casing it and replacing every
+ * non-alphanumeric character with '_', dropping the leading separator:
+ * /ldc-workflow/vend-ppa/endpoint -> LDC_WORKFLOW_VEND_PPA_ENDPOINT
+ */
+public class EnvironmentConfigurationSource implements ConfigurationSource {
+
+    private final Map<String, String> environment;
+
+    public EnvironmentConfigurationSource() {
+        this(System.getenv());
+    }
+
+    public EnvironmentConfigurationSource(Map<String, String> environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public String getParameter(String parameterName) {
+        return environment.get(toVariableName(parameterName));
+    }
+
+    @Override
+    public Map<String, String> getParametersByPath(String path) {
+        // Variable names cannot be mapped back to parameter names unambiguously
+        return new HashMap<>();
+    }
+
+    static String toVariableName(String parameterName) {
+        StringBuilder variable = new StringBuilder(parameterName.length());
+        for (int i = 0; i < parameterName.length(); i++) {
+            char c = parameterName.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                variable.append(Character.toUpperCase(c));
+            } else if (variable.length() > 0 && variable.charAt(variable.length() - 1) != '_') {
+                variable.append('_');
+            }
+        }
+        int end = variable.length();
+        if (end > 0 && variable.charAt(end - 1) == '_') {
+            variable.setLength(end - 1);
+        }
+        return variable.toString();
+    }
+
+    @Override
+    public String name() {
+        return "env";
+    }
+}
@@ -0,0 +1,65 @@
+package com.ldc.workflow.service.configuration;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Serves parameters from a properties file keyed by full parameter name, e.g.
+ *
+ * /ldc-workflow/vend-ppa/endpoint=http://localhost:8089/ppa
+ *
+ * The file is read once at construction; used for server mode and tests.
+ */
+public class FileConfigurationSource implements ConfigurationSource {
+
+    private final Path file;
+    private final Map<String, String> parameters;
+
+    public FileConfigurationSource(Path file) {
+        this.file = file;
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read configuration file " + file, e);
+        }
+        Map<String, String> loaded = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            loaded.put(key, properties.getProperty(key));
+        }
+        this.parameters = Map.copyOf(loaded);
+    }
+
+    @Override
+    public String getParameter(String parameterName) {
+        return parameters.get(parameterName);
+    }
+
+    @Override
+    public Map<String, String> getParametersByPath(String path) {
+        String prefix = path.endsWith("/") ? path : path + "/";
+        Map<String, String> matches = new HashMap<>();
+        parameters.forEach((name, value) -> {
+            if (name.startsWith(prefix)) {
+                matches.put(name, value);
+            }
+        });
+        return matches;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+}
@@ -0,0 +1,95 @@
+package com.ldc.workflow.service.configuration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Reads parameters through the AWS Parameters and Secrets Lambda extension.
+ *
+ * The extension runs next to the function and keeps its own cache, so a lookup is a
+ * loopback HTTP call instead of a TLS round trip to SSM. Requests are authenticated
+ * with the function's session token as the extension requires.
+ *
+ * PARAMETERS_SECRETS_EXTENSION_HTTP_PORT  extension port, default 2773
+ */
+public class LambdaExtensionConfigurationSource implements ConfigurationSource {
+
+    static final int DEFAULT_PORT = 2773;
+    static final String TOKEN_HEADER = "X-Aws-Parameters-Secrets-Token";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(2);
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final String sessionToken;
+
+    public LambdaExtensionConfigurationSource() {
+        this(resolvePort(), System.getenv("AWS_SESSION_TOKEN"));
+    }
+
+    public LambdaExtensionConfigurationSource(int port, String sessionToken) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(500))
+                .build();
+        this.baseUrl = "http://localhost:" + port + "/systemsmanager/parameters/get?withDecryption=true&name=";
+        this.sessionToken = sessionToken;
+    }
+
+    @Override
+    public String getParameter(String parameterName) {
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + URLEncoder.encode(parameterName, StandardCharsets.UTF_8)))
+                .timeout(REQUEST_TIMEOUT)
+                .GET();
+        if (sessionToken != null) {
+            request.header(TOKEN_HEADER, sessionToken);
+        }
+
+        HttpResponse<String> response;
+        try {
+            response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Parameters extension unreachable at " + baseUrl, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calling the parameters extension", e);
+        }
+
+        String body = response.body();
+        if (response.statusCode() == 404 || (body != null && body.contains("ParameterNotFound"))) {
+            return null;
+        }
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Parameters extension returned status " + response.statusCode()
+                    + " for " + parameterName + ": " + body);
+        }
+        try {
+            JsonNode value = objectMapper.readTree(body).path("Parameter").get("Value");
+            return value == null || value.isNull() ? null : value.asText();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unreadable parameters extension response for " + parameterName, e);
+        }
+    }
+
+    private static int resolvePort() {
+        String port = System.getenv("PARAMETERS_SECRETS_EXTENSION_HTTP_PORT");
+        return port == null || port.isEmpty() ? DEFAULT_PORT : Integer.parseInt(port);
+    }
+
+    @Override
+    public String name() {
+        return "extension";
+    }
+}
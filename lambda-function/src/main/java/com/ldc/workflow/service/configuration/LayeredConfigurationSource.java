@@ -0,0 +1,76 @@
+package com.ldc.workflow.service.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Chains sources in priority order: the first layer that defines a parameter wins.
+ *
+ * A layer that fails (e.g. the Lambda extension is not installed) is logged and
+ * skipped; the lookup only fails when no layer answered and at least one failed,
+ * so an unreachable backend is never mistaken for a missing parameter.
+ */
+public class LayeredConfigurationSource implements ConfigurationSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(LayeredConfigurationSource.class);
+
+    private final List<ConfigurationSource> layers;
+
+    public LayeredConfigurationSource(List<ConfigurationSource> layers) {
+        if (layers.isEmpty()) {
+            throw new IllegalArgumentException("At least one configuration source is required");
+        }
+        this.layers = List.copyOf(layers);
+    }
+
+    @Override
+    public String getParameter(String parameterName) {
+        RuntimeException lastFailure = null;
+        for (ConfigurationSource layer : layers) {
+            try {
+                String value = layer.getParameter(parameterName);
+                if (value != null) {
+                    return value;
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Configuration source '{}' failed for {}: {}", layer.name(), parameterName,
+                        e.getMessage());
+                lastFailure = e;
+            }
+        }
+        if (lastFailure != null) {
+            throw lastFailure;
+        }
+        return null;
+    }
+
+    @Override
+    public Map<String, String> getParametersByPath(String path) {
+        Map<String, String> merged = new HashMap<>();
+        // Apply lowest priority first so higher layers overwrite
+        for (int i = layers.size() - 1; i >= 0; i--) {
+            ConfigurationSource layer = layers.get(i);
+            try {
+                merged.putAll(layer.getParametersByPath(path));
+            } catch (RuntimeException e) {
+                logger.warn("Configuration source '{}' could not list {}: {}", layer.name(), path,
+                        e.getMessage());
+            }
+        }
+        return merged;
+    }
+
+    public List<ConfigurationSource> getLayers() {
+        return layers;
+    }
+
+    @Override
+    public String name() {
+        return layers.stream().map(ConfigurationSource::name).collect(Collectors.joining(","));
+    }
+}
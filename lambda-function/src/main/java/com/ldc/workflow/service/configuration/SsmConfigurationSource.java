@@ -0,0 +1,66 @@
+package com.ldc.workflow.service.configuration;
+
+import software.amazon.awssdk.services.ssm.SsmClient;
+import software.amazon.awssdk.services.ssm.model.GetParameterRequest;
+import software.amazon.awssdk.services.ssm.model.GetParametersByPathRequest;
+import software.amazon.awssdk.services.ssm.model.GetParametersByPathResponse;
+import software.amazon.awssdk.services.ssm.model.Parameter;
+import software.amazon.awssdk.services.ssm.model.ParameterNotFoundException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads parameters from Parameter Store through the SSM API.
+ * SecureString values are decrypted.
+ */
+public class SsmConfigurationSource implements ConfigurationSource {
+
+    // GetParametersByPath returns at most 10 parameters per page
+    private static final int PAGE_SIZE = 10;
+
+    private final SsmClient ssmClient;
+
+    public SsmConfigurationSource(SsmClient ssmClient) {
+        this.ssmClient = ssmClient;
+    }
+
+    @Override
+    public String getParameter(String parameterName) {
+        try {
+            GetParameterRequest request = GetParameterRequest.builder()
+                    .name(parameterName)
+                    .withDecryption(true)
+                    .build();
+            return ssmClient.getParameter(request).parameter().value();
+        } catch (ParameterNotFoundException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public Map<String, String> getParametersByPath(String path) {
+        Map<String, String> parameters = new HashMap<>();
+        GetParametersByPathRequest request = GetParametersByPathRequest.builder()
+                .path(path)
+                .recursive(true)
+                .withDecryption(true)
+                .maxResults(PAGE_SIZE)
+                .build();
+        String nextToken;
+        do {
+            GetParametersByPathResponse response = ssmClient.getParametersByPath(request);
+            for (Parameter parameter : response.parameters()) {
+                parameters.put(parameter.name(), parameter.value());
+            }
+            nextToken = response.nextToken();
+            request = request.toBuilder().nextToken(nextToken).build();
+        } while (nextToken != null && !nextToken.isEmpty());
+        return parameters;
+    }
+
+    @Override
+    public String name() {
+        return "ssm";
+    }
+}
@@ -0,0 +1,47 @@
+package com.ldc.workflow.service.notification;
+
+import java.util.List;
+
+/**
+ * One rendered notification email, plain text.
+ */
+public final class EmailMessage {
+
+    private final String key;
+    private final String from;
+    private final List<String> to;
+    private final String subject;
+    private final String body;
+
+    /**
+     * @param key identifies the notification in logs and as the Message-ID,
+     *            e.g. repurchase/REQ-1/1000000001
+     */
+    public EmailMessage(String key, String from, List<String> to, String subject, String body) {
+        this.key = key;
+        this.from = from;
+        this.to = List.copyOf(to);
+        this.subject = subject;
+        this.body = body;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public List<String> getTo() {
+        return to;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getBody() {
+        return body;
+    }
+}
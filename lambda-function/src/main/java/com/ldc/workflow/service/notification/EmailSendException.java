@@ -0,0 +1,25 @@
+package com.ldc.workflow.service.notification;
+
+/**
+ * A message the email backend did not accept, and whether sending it again may work.
+ */
+public class EmailSendException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+    private final String errorType;
+    private final boolean retryable;
+
+    public EmailSendException(String errorType, String message, boolean retryable, Throwable cause) {
+        super(errorType + (message != null ? " - " + message : ""), cause);
+        this.errorType = errorType;
+        this.retryable = retryable;
+    }
+
+    public String getErrorType() {
+        return errorType;
+    }
+
+    public boolean isRetryable() {
+        return retryable;
+    }
+}
@@ -0,0 +1,33 @@
+package com.ldc.workflow.service.notification;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delivery backend for notification emails.
+ *
+ * The active sender is selected by the NOTIFICATION_SENDER environment variable
+ * (see {@link com.ldc.workflow.config.NotificationSenderConfig}):
+ * - ses: SES v2 SendEmail over HTTPS (default)
+ * - smtp: plain SMTP to a relay, or to the local stand-in in tests
+ * - log: one JSON line per message on stdout; nothing is sent
+ */
+public interface EmailSender extends AutoCloseable {
+
+    /**
+     * Send a batch of messages. A message that fails does not stop the others.
+     *
+     * @return the messages that were not accepted, with the reason; empty when
+     *         every message was accepted
+     */
+    Map<EmailMessage, EmailSendException> send(List<EmailMessage> messages);
+
+    /**
+     * Short name used in logs and configuration.
+     */
+    String name();
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,133 @@
+package com.ldc.workflow.service.notification;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A notification template compiled once from its Parameter Store source:
+ * <pre>
+ * {"version": 3,
+ *  "subject": "Repurchase decision for loan {{loanNumber}}",
+ *  "body": "Request {{requestNumber}} ..."}
+ * </pre>
+ * Each text is split into literal segments and placeholder names, so rendering
+ * is a single pass into a builder sized for the result, with no scanning or
+ * intermediate strings. A placeholder without a value renders as empty text.
+ */
+public final class EmailTemplate {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final int version;
+    private final Part subject;
+    private final Part body;
+
+    private EmailTemplate(int version, Part subject, Part body) {
+        this.version = version;
+        this.subject = subject;
+        this.body = body;
+    }
+
+    /**
+     * @throws IllegalArgumentException when the source is not a JSON object with
+     *         subject and body, or a placeholder is unclosed or empty
+     */
+    public static EmailTemplate compile(String source) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(source);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Email template is not valid JSON: " + e.getMessage(), e);
+        }
+        if (node == null || !node.isObject() || !node.path("subject").isTextual() || !node.path("body").isTextual()) {
+            throw new IllegalArgumentException("Email template must be an object with text subject and body");
+        }
+        return new EmailTemplate(node.path("version").asInt(0),
+                Part.compile(node.get("subject").asText()), Part.compile(node.get("body").asText()));
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String renderSubject(Map<String, String> values) {
+        return subject.render(values);
+    }
+
+    public String renderBody(Map<String, String> values) {
+        return body.render(values);
+    }
+
+    /**
+     * Placeholder names used by the subject and body, in order of appearance.
+     */
+    public List<String> placeholders() {
+        List<String> names = new ArrayList<>(List.of(subject.names));
+        names.addAll(List.of(body.names));
+        return names;
+    }
+
+    /**
+     * One text: literals[0] names[0] literals[1] ... names[n-1] literals[n].
+     */
+    private static final class Part {
+        private final String[] literals;
+        private final String[] names;
+        private final int literalLength;
+
+        private Part(String[] literals, String[] names) {
+            this.literals = literals;
+            this.names = names;
+            int length = 0;
+            for (String literal : literals) {
+                length += literal.length();
+            }
+            this.literalLength = length;
+        }
+
+        private static Part compile(String text) {
+            List<String> literals = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+            int start = 0;
+            int open;
+            while ((open = text.indexOf("{{", start)) >= 0) {
+                int close = text.indexOf("}}", open + 2);
+                if (close < 0) {
+                    throw new IllegalArgumentException("Unclosed placeholder at offset " + open);
+                }
+                String name = text.substring(open + 2, close).trim();
+                if (name.isEmpty() || name.contains("{")) {
+                    throw new IllegalArgumentException("Invalid placeholder at offset " + open);
+                }
+                literals.add(text.substring(start, open));
+                names.add(name);
+                start = close + 2;
+            }
+            literals.add(text.substring(start));
+            return new Part(literals.toArray(new String[0]), names.toArray(new String[0]));
+        }
+
+        private String render(Map<String, String> values) {
+            if (names.length == 0) {
+                return literals[0];
+            }
+            String[] resolved = new String[names.length];
+            int length = literalLength;
+            for (int i = 0; i < names.length; i++) {
+                String value = values.get(names[i]);
+                resolved[i] = value != null ? value : "";
+                length += resolved[i].length();
+            }
+            StringBuilder out = new StringBuilder(length);
+            out.append(literals[0]);
+            for (int i = 0; i < names.length; i++) {
+                out.append(resolved[i]).append(literals[i + 1]);
+            }
+            return out.toString();
+        }
+    }
+}
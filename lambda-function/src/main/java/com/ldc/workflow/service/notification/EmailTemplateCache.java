@@ -0,0 +1,132 @@
+package com.ldc.workflow.service.notification;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Compiled email templates per notification type.
+ *
+ * At most once per check interval a type's source is re-read (normally a
+ * ConfigurationService cache hit) and the template is recompiled only when the
+ * source text has changed, i.e. once per published version. A source that fails
+ * to load or compile keeps the active template; a type that has never loaded
+ * falls back to its built-in default so a missing parameter does not stop the
+ * notification.
+ */
+public class EmailTemplateCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailTemplateCache.class);
+
+    static final Map<String, String> DEFAULT_SOURCES = Map.of("repurchase", """
+            {"version": 0,
+             "subject": "Repurchase decision for loan {{loanNumber}}",
+             "body": "Loan {{loanNumber}} (request {{requestNumber}}, {{reviewType}}) has been decided: {{loanStatus}}.\\n\\nRepurchase attributes: {{repurchaseAttributes}}\\nDecided at: {{decidedAt}}\\n\\nThis message was sent automatically by the LDC loan review workflow."}
+            """);
+
+    private final Function<String, String> templateSource;
+    private final long checkIntervalNanos;
+    private final LongSupplier clock;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder compiles = new LongAdder();
+
+    /**
+     * @param templateSource template source by notification type, e.g.
+     *                       configurationService::getEmailTemplate; may throw when missing
+     */
+    public EmailTemplateCache(Function<String, String> templateSource, long checkIntervalNanos, LongSupplier clock) {
+        this.templateSource = templateSource;
+        this.checkIntervalNanos = checkIntervalNanos;
+        this.clock = clock;
+    }
+
+    /**
+     * The template for a notification type, first picking up a new version if the
+     * check interval has passed.
+     *
+     * @throws IllegalStateException when the type has no template and no default
+     */
+    public EmailTemplate get(String type) {
+        long now = clock.getAsLong();
+        Entry entry = entries.get(type);
+        if (entry != null && now - entry.nextCheckNanos < 0) {
+            return entry.template;
+        }
+        return entries.compute(type, (key, previous) -> {
+            if (previous != null && now - previous.nextCheckNanos < 0) {
+                return previous;
+            }
+            return load(key, previous, now);
+        }).template;
+    }
+
+    /**
+     * Number of times a template source was compiled.
+     */
+    public long getCompileCount() {
+        return compiles.sum();
+    }
+
+    private Entry load(String type, Entry previous, long now) {
+        long nextCheck = now + checkIntervalNanos;
+        String source;
+        try {
+            source = templateSource.apply(type);
+        } catch (RuntimeException e) {
+            if (previous != null) {
+                logger.warn("Unable to load email template {}; keeping version {}: {}", type,
+                        previous.template.getVersion(), e.getMessage());
+                return new Entry(previous.source, previous.template, nextCheck);
+            }
+            logger.warn("Unable to load email template {}; using the built-in default: {}", type, e.getMessage());
+            return compileDefault(type, nextCheck);
+        }
+
+        // Reference check first: an unchanged cached parameter is the same string
+        if (previous != null && (source == previous.source || source.equals(previous.source))) {
+            return new Entry(previous.source, previous.template, nextCheck);
+        }
+        try {
+            EmailTemplate template = EmailTemplate.compile(source);
+            compiles.increment();
+            logger.info("Compiled email template {} version {}", type, template.getVersion());
+            return new Entry(source, template, nextCheck);
+        } catch (IllegalArgumentException e) {
+            if (previous != null) {
+                logger.error("Rejected email template {}; keeping version {}: {}", type,
+                        previous.template.getVersion(), e.getMessage());
+                // Remember the rejected source so it is not recompiled on every check
+                return new Entry(source, previous.template, nextCheck);
+            }
+            logger.error("Rejected email template {}; using the built-in default: {}", type, e.getMessage());
+            return compileDefault(type, nextCheck);
+        }
+    }
+
+    private Entry compileDefault(String type, long nextCheck) {
+        String source = DEFAULT_SOURCES.get(type);
+        if (source == null) {
+            throw new IllegalStateException("No email template for notification type " + type);
+        }
+        compiles.increment();
+        // A null source makes the next successful load compile the real template
+        return new Entry(null, EmailTemplate.compile(source), nextCheck);
+    }
+
+    private static final class Entry {
+        private final String source;
+        private final EmailTemplate template;
+        private final long nextCheckNanos;
+
+        private Entry(String source, EmailTemplate template, long nextCheckNanos) {
+            this.source = source;
+            this.template = template;
+            this.nextCheckNanos = nextCheckNanos;
+        }
+    }
+}
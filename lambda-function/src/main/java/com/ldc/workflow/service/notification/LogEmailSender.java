@@ -0,0 +1,43 @@
+package com.ldc.workflow.service.notification;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Email sender that prints each message as one JSON line instead of sending it,
+ * with "logType":"NOTIFICATION", for environments without a mail backend.
+ */
+public class LogEmailSender implements EmailSender {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final PrintStream out;
+
+    public LogEmailSender(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public Map<EmailMessage, EmailSendException> send(List<EmailMessage> messages) {
+        for (EmailMessage message : messages) {
+            ObjectNode line = objectMapper.createObjectNode()
+                    .put("logType", "NOTIFICATION")
+                    .put("key", message.getKey())
+                    .put("from", message.getFrom())
+                    .put("subject", message.getSubject())
+                    .put("body", message.getBody());
+            message.getTo().forEach(line.putArray("to")::add);
+            out.println(line);
+        }
+        return Map.of();
+    }
+
+    @Override
+    public String name() {
+        return "log";
+    }
+}
@@ -0,0 +1,177 @@
+package com.ldc.workflow.service.notification;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.http.auth.aws.signer.AwsV4HttpSigner;
+import software.amazon.awssdk.http.auth.spi.signer.SignedRequest;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Email sender that calls the SES v2 SendEmail API over a shared HTTP/2 client,
+ * SigV4-signed with the function's credentials (the same approach as
+ * {@link com.ldc.workflow.service.StepFunctionsService}, so no SES SDK is needed).
+ *
+ * SES sends one message per call; the messages of a batch are sent concurrently
+ * over the same connection and the batch returns when all calls have completed.
+ * Throttling (429, TooManyRequests, LimitExceeded), 5xx and I/O errors are
+ * reported as retryable; everything else (unverified sender, rejected message)
+ * is permanent. Retries themselves are left to the caller.
+ */
+public class SesEmailSender implements EmailSender {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String SES_ENDPOINT = "https://email.%s.amazonaws.com";
+    private static final String SIGNING_NAME = "ses";
+
+    private final HttpClient httpClient;
+    private final URI sendEmailUri;
+    private final String region;
+    private final AwsCredentialsProvider credentialsProvider;
+    private final AwsV4HttpSigner signer = AwsV4HttpSigner.create();
+    private final Duration requestTimeout;
+
+    public SesEmailSender(URI endpoint, String region, AwsCredentialsProvider credentialsProvider,
+                          Duration requestTimeout) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(2))
+                .build();
+        String base = endpoint.toString();
+        this.sendEmailUri = URI.create((base.endsWith("/") ? base.substring(0, base.length() - 1) : base)
+                + "/v2/email/outbound-emails");
+        this.region = region;
+        this.credentialsProvider = credentialsProvider;
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * SES endpoint for a region, used when SES_ENDPOINT is not set.
+     */
+    public static URI defaultEndpoint(String region) {
+        return URI.create(String.format(SES_ENDPOINT, region));
+    }
+
+    @Override
+    public Map<EmailMessage, EmailSendException> send(List<EmailMessage> messages) {
+        List<CompletableFuture<EmailSendException>> calls = new ArrayList<>(messages.size());
+        for (EmailMessage message : messages) {
+            calls.add(sendOne(message));
+        }
+        Map<EmailMessage, EmailSendException> failures = new LinkedHashMap<>();
+        for (int i = 0; i < messages.size(); i++) {
+            EmailSendException failure = calls.get(i).join();
+            if (failure != null) {
+                failures.put(messages.get(i), failure);
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public String name() {
+        return "ses";
+    }
+
+    /**
+     * Completes with null when SES accepted the message, or with the failure;
+     * never completes exceptionally.
+     */
+    private CompletableFuture<EmailSendException> sendOne(EmailMessage message) {
+        HttpRequest request;
+        try {
+            request = sign(toRequestBody(message));
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(
+                    new EmailSendException("SigningError", e.toString(), false, e));
+        }
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error;
+                        return new EmailSendException("IOError", cause.toString(), true, cause);
+                    }
+                    return response.statusCode() == 200 ? null : toException(response);
+                });
+    }
+
+    static byte[] toRequestBody(EmailMessage message) throws Exception {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("FromEmailAddress", message.getFrom());
+        message.getTo().forEach(body.putObject("Destination").putArray("ToAddresses")::add);
+        ObjectNode simple = body.putObject("Content").putObject("Simple");
+        simple.putObject("Subject").put("Data", message.getSubject()).put("Charset", "UTF-8");
+        simple.putObject("Body").putObject("Text").put("Data", message.getBody()).put("Charset", "UTF-8");
+        return objectMapper.writeValueAsBytes(body);
+    }
+
+    private HttpRequest sign(byte[] payload) {
+        SdkHttpRequest unsigned = SdkHttpRequest.builder()
+                .method(SdkHttpMethod.POST)
+                .uri(sendEmailUri)
+                .putHeader("Content-Type", "application/json")
+                .build();
+
+        SignedRequest signed = signer.sign(r -> r
+                .identity(credentialsProvider.resolveCredentials())
+                .request(unsigned)
+                .payload(() -> new ByteArrayInputStream(payload))
+                .putProperty(AwsV4HttpSigner.SERVICE_SIGNING_NAME, SIGNING_NAME)
+                .putProperty(AwsV4HttpSigner.REGION_NAME, region));
+
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+                .uri(sendEmailUri)
+                .timeout(requestTimeout)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(payload));
+        for (Map.Entry<String, List<String>> header : signed.request().headers().entrySet()) {
+            // HttpClient sets Host itself from the URI, which is what was signed
+            if (!"Host".equalsIgnoreCase(header.getKey())) {
+                for (String value : header.getValue()) {
+                    request.header(header.getKey(), value);
+                }
+            }
+        }
+        return request.build();
+    }
+
+    private static EmailSendException toException(HttpResponse<String> response) {
+        String errorType = response.headers().firstValue("x-amzn-ErrorType")
+                .map(type -> type.split(":", 2)[0])
+                .orElse("HTTP" + response.statusCode());
+        String message = response.body();
+        try {
+            JsonNode error = objectMapper.readTree(response.body());
+            if (error.hasNonNull("__type")) {
+                String type = error.get("__type").asText();
+                errorType = type.substring(type.lastIndexOf('#') + 1);
+            }
+            if (error.hasNonNull("message")) {
+                message = error.get("message").asText();
+            } else if (error.hasNonNull("Message")) {
+                message = error.get("Message").asText();
+            }
+        } catch (Exception e) {
+            // Non-JSON body: keep the raw text
+        }
+
+        boolean retryable = response.statusCode() == 429 || response.statusCode() >= 500
+                || errorType.startsWith("TooManyRequests") || errorType.startsWith("LimitExceeded");
+        return new EmailSendException(errorType, message, retryable, null);
+    }
+}
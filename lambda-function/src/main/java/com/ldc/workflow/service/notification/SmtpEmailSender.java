@@ -0,0 +1,210 @@
+package com.ldc.workflow.service.notification;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Email sender that speaks plain SMTP (RFC 5321) to a relay: one connection per
+ * batch, with every message of the batch sent in that session. A message the
+ * relay refuses is reset with RSET and the session carries on with the next one;
+ * 4xx replies are retryable, 5xx replies are not. If the connection fails, the
+ * message being sent and the rest of the batch fail as retryable.
+ *
+ * There is no TLS or authentication: this is meant for a relay on a private
+ * network, or for the local SMTP stand-in used by tests.
+ */
+public class SmtpEmailSender implements EmailSender {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmtpEmailSender.class);
+    private static final String CRLF = "\r\n";
+
+    private final String host;
+    private final int port;
+    private final int timeoutMillis;
+    private final String heloName;
+
+    public SmtpEmailSender(String host, int port, int timeoutMillis) {
+        this.host = host;
+        this.port = port;
+        this.timeoutMillis = timeoutMillis;
+        this.heloName = "ldc-loan-review-workflow";
+    }
+
+    @Override
+    public Map<EmailMessage, EmailSendException> send(List<EmailMessage> messages) {
+        Map<EmailMessage, EmailSendException> failures = new LinkedHashMap<>();
+        if (messages.isEmpty()) {
+            return failures;
+        }
+        int next = 0;
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+            Session session = new Session(socket);
+            session.expect(220, "greeting");
+            session.command("EHLO " + heloName, 250);
+
+            for (; next < messages.size(); next++) {
+                EmailMessage message = messages.get(next);
+                try {
+                    session.sendMessage(message);
+                } catch (SmtpReplyException e) {
+                    failures.put(message, e.toSendException());
+                    session.command("RSET", 250);
+                }
+            }
+            session.command("QUIT", 221);
+        } catch (IOException e) {
+            logger.warn("SMTP session with {}:{} failed after {} of {} messages: {}", host, port, next,
+                    messages.size(), e.getMessage());
+            EmailSendException failure = e instanceof SmtpReplyException reply ? reply.toSendException()
+                    : new EmailSendException("IOError", e.toString(), true, e);
+            for (int i = next; i < messages.size(); i++) {
+                failures.putIfAbsent(messages.get(i), failure);
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public String name() {
+        return "smtp";
+    }
+
+    /**
+     * The message as sent after DATA: headers, blank line, body with CRLF line
+     * endings and leading dots doubled, and no terminating dot line.
+     */
+    static String toData(EmailMessage message, ZonedDateTime date) {
+        StringBuilder data = new StringBuilder(message.getBody().length() + 512);
+        data.append("From: ").append(headerValue(message.getFrom())).append(CRLF);
+        data.append("To: ").append(headerValue(String.join(", ", message.getTo()))).append(CRLF);
+        data.append("Subject: ").append(encodeHeader(headerValue(message.getSubject()))).append(CRLF);
+        data.append("Date: ").append(DateTimeFormatter.RFC_1123_DATE_TIME.format(date)).append(CRLF);
+        data.append("Message-ID: <").append(headerValue(message.getKey()).replace(' ', '-'))
+                .append("@ldc-loan-review-workflow>").append(CRLF);
+        data.append("MIME-Version: 1.0").append(CRLF);
+        data.append("Content-Type: text/plain; charset=UTF-8").append(CRLF);
+        data.append("Content-Transfer-Encoding: 8bit").append(CRLF);
+        data.append(CRLF);
+
+        String body = message.getBody();
+        int start = 0;
+        while (start <= body.length()) {
+            int end = body.indexOf('\n', start);
+            int lineEnd = end < 0 ? body.length() : end;
+            if (lineEnd > start && body.charAt(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            if (lineEnd > start && body.charAt(start) == '.') {
+                data.append('.');
+            }
+            data.append(body, start, lineEnd).append(CRLF);
+            if (end < 0) {
+                break;
+            }
+            start = end + 1;
+        }
+        return data.toString();
+    }
+
+    /**
+     * Header values must not carry line breaks, which would start new headers.
+     */
+    private static String headerValue(String value) {
+        return value == null ? "" : value.replace('\r', ' ').replace('\n', ' ');
+    }
+
+    private static String encodeHeader(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 126) {
+                return "=?UTF-8?B?" + Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8))
+                        + "?=";
+            }
+        }
+        return value;
+    }
+
+    private static final class Session {
+        private final BufferedReader in;
+        private final OutputStream out;
+
+        private Session(Socket socket) throws IOException {
+            this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            this.out = socket.getOutputStream();
+        }
+
+        private void sendMessage(EmailMessage message) throws IOException {
+            command("MAIL FROM:<" + headerValue(message.getFrom()) + ">", 250);
+            for (String recipient : message.getTo()) {
+                command("RCPT TO:<" + headerValue(recipient) + ">", 250);
+            }
+            command("DATA", 354);
+            write(toData(message, ZonedDateTime.now()) + "." + CRLF);
+            expect(250, "end of data");
+        }
+
+        private void command(String line, int expected) throws IOException {
+            write(line + CRLF);
+            expect(expected, line);
+        }
+
+        private void write(String text) throws IOException {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+
+        /**
+         * Read a reply, multi-line replies included, and check its code.
+         */
+        private void expect(int expected, String after) throws IOException {
+            String line;
+            StringBuilder reply = new StringBuilder();
+            do {
+                line = in.readLine();
+                if (line == null || line.length() < 3) {
+                    throw new IOException("SMTP connection closed after " + after);
+                }
+                reply.append(line).append(' ');
+            } while (line.length() > 3 && line.charAt(3) == '-');
+            int code;
+            try {
+                code = Integer.parseInt(line.substring(0, 3));
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed SMTP reply: " + line);
+            }
+            // 251 (user not local, will forward) accepts a recipient like 250
+            if (code != expected && !(expected == 250 && code == 251)) {
+                throw new SmtpReplyException(code, reply.toString().trim());
+            }
+        }
+    }
+
+    private static final class SmtpReplyException extends IOException {
+        private static final long serialVersionUID = 1L;
+        private final int code;
+
+        private SmtpReplyException(int code, String reply) {
+            super(reply);
+            this.code = code;
+        }
+
+        private EmailSendException toSendException() {
+            return new EmailSendException("SMTP" + code, getMessage(), code >= 400 && code < 500, null);
+        }
+    }
+}
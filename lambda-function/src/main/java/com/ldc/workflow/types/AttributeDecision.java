@@ -0,0 +1,50 @@
+package com.ldc.workflow.types;
+
+/**
+ * The decisions an attribute can carry, as stored in LoanAttribute.attributeDecision.
+ * Each constant owns one bit (1 << ordinal) of a DecisionSummary presence mask, so
+ * the order of the constants is part of that encoding.
+ */
+public enum AttributeDecision {
+    PENDING("Pending"),
+    APPROVED("Approved"),
+    REJECTED("Rejected"),
+    RECLASS("Reclass"),
+    REPURCHASE("Repurchase");
+
+    private final String value;
+
+    AttributeDecision(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * @return this decision's bit in a presence mask
+     */
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * Parse a stored decision. Null (an unset decision) is PENDING. Dispatches on the
+     * length first, so a value freshly read from JSON is compared against at most two
+     * candidates and never hashed.
+     *
+     * @return the decision, or null when the value is not a known decision
+     */
+    public static AttributeDecision fromValue(String value) {
+        if (value == null) {
+            return PENDING;
+        }
+        return switch (value.length()) {
+            case 7 -> "Pending".equals(value) ? PENDING : "Reclass".equals(value) ? RECLASS : null;
+            case 8 -> "Approved".equals(value) ? APPROVED : "Rejected".equals(value) ? REJECTED : null;
+            case 10 -> "Repurchase".equals(value) ? REPURCHASE : null;
+            default -> null;
+        };
+    }
+}
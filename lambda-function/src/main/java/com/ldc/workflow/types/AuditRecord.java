@@ -0,0 +1,111 @@
+package com.ldc.workflow.types;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A single audit trail entry describing a workflow state change.
+ * This is the unit handed to every audit sink and the line format of the audit journal.
+ */
+public class AuditRecord {
+
+    @JsonProperty("auditId")
+    private String auditId;
+
+    @JsonProperty("requestNumber")
+    private String requestNumber;
+
+    @JsonProperty("loanNumber")
+    private String loanNumber;
+
+    @JsonProperty("executionId")
+    private String executionId;
+
+    @JsonProperty("stateChange")
+    private String stateChange;
+
+    @JsonProperty("details")
+    private String details;
+
+    @JsonProperty("timestamp")
+    private String timestamp;
+
+    public AuditRecord() {
+    }
+
+    public AuditRecord(String auditId, String requestNumber, String loanNumber, String executionId,
+            String stateChange, String details, String timestamp) {
+        this.auditId = auditId;
+        this.requestNumber = requestNumber;
+        this.loanNumber = loanNumber;
+        this.executionId = executionId;
+        this.stateChange = stateChange;
+        this.details = details;
+        this.timestamp = timestamp;
+    }
+
+    public String getAuditId() {
+        return auditId;
+    }
+
+    public void setAuditId(String auditId) {
+        this.auditId = auditId;
+    }
+
+    public String getRequestNumber() {
+        return requestNumber;
+    }
+
+    public void setRequestNumber(String requestNumber) {
+        this.requestNumber = requestNumber;
+    }
+
+    public String getLoanNumber() {
+        return loanNumber;
+    }
+
+    public void setLoanNumber(String loanNumber) {
+        this.loanNumber = loanNumber;
+    }
+
+    public String getExecutionId() {
+        return executionId;
+    }
+
+    public void setExecutionId(String executionId) {
+        this.executionId = executionId;
+    }
+
+    public String getStateChange() {
+        return stateChange;
+    }
+
+    public void setStateChange(String stateChange) {
+        this.stateChange = stateChange;
+    }
+
+    public String getDetails() {
+        return details;
+    }
+
+    public void setDetails(String details) {
+        this.details = details;
+    }
+
+    public String getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(String timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "AuditRecord{" +
+                "auditId='" + auditId + '\'' +
+                ", requestNumber='" + requestNumber + '\'' +
+                ", stateChange='" + stateChange + '\'' +
+                ", timestamp='" + timestamp + '\'' +
+                '}';
+    }
+}
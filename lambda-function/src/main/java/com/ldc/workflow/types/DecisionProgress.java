@@ -0,0 +1,60 @@
+package com.ldc.workflow.types;
+
+/**
+ * The projected counter view of a workflow state item: loan decision, version,
+ * timestamps and the attribute counters (TotalCount, PendingCount and one count per
+ * decision) maintained next to the Attributes list.
+ *
+ * An item written before the counters existed has none; {@link #hasCounters()} is
+ * then false and the caller has to fall back to reading the attributes.
+ */
+public final class DecisionProgress {
+
+    private final String loanDecision;
+    private final Long version;
+    private final String createdAt;
+    private final String updatedAt;
+    private final int totalCount;
+    private final int[] counts;
+
+    /**
+     * @param counts count per AttributeDecision, indexed by ordinal, or null when the item has no counters
+     */
+    public DecisionProgress(String loanDecision, Long version, String createdAt, String updatedAt,
+                            int totalCount, int[] counts) {
+        this.loanDecision = loanDecision;
+        this.version = version;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.totalCount = totalCount;
+        this.counts = counts;
+    }
+
+    public boolean hasCounters() {
+        return counts != null;
+    }
+
+    public String getLoanDecision() {
+        return loanDecision;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public String getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public int getCount(AttributeDecision decision) {
+        return counts == null ? 0 : counts[decision.ordinal()];
+    }
+}
@@ -46,6 +46,9 @@ public class WorkflowState {
     @JsonProperty("status")
     private String status; // PENDING, COMPLETED, FAILED
 
+    @JsonProperty("version")
+    private Long version; // incremented on every save
+
     @JsonProperty("workflowStateName")
     private String workflowStateName;
 
@@ -159,6 +162,14 @@ public class WorkflowState {
         this.status = status;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getWorkflowStateName() {
         return workflowStateName;
     }
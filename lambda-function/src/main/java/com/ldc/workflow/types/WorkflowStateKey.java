@@ -0,0 +1,51 @@
+package com.ldc.workflow.types;
+
+import java.util.Objects;
+
+/**
+ * Primary key of a workflow state item (RequestNumber + LoanNumber).
+ */
+public final class WorkflowStateKey {
+
+    private final String requestNumber;
+    private final String loanNumber;
+
+    public WorkflowStateKey(String requestNumber, String loanNumber) {
+        this.requestNumber = requestNumber;
+        this.loanNumber = loanNumber;
+    }
+
+    public static WorkflowStateKey of(WorkflowState state) {
+        return new WorkflowStateKey(state.getRequestNumber(), state.getLoanNumber());
+    }
+
+    public String getRequestNumber() {
+        return requestNumber;
+    }
+
+    public String getLoanNumber() {
+        return loanNumber;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof WorkflowStateKey)) {
+            return false;
+        }
+        WorkflowStateKey that = (WorkflowStateKey) o;
+        return Objects.equals(requestNumber, that.requestNumber) && Objects.equals(loanNumber, that.loanNumber);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(requestNumber, loanNumber);
+    }
+
+    @Override
+    public String toString() {
+        return requestNumber + "/" + loanNumber;
+    }
+}
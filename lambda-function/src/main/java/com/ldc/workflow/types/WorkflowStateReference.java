@@ -0,0 +1,92 @@
+package com.ldc.workflow.types;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Claim-check reference to a persisted workflow state.
+ *
+ * Handlers return this instead of the full state tree so Step Functions payloads
+ * stay small and constant-size: the key and version identify the stored item,
+ * and the routing summary carries only what Choice states branch on. Anything
+ * else is read back from DynamoDB by the next handler.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WorkflowStateReference {
+
+    /**
+     * Set to "full" to return the whole WorkflowState as before.
+     */
+    public static final String OUTPUT_MODE_ENV = "WORKFLOW_OUTPUT_MODE";
+
+    @JsonProperty("requestNumber")
+    private String requestNumber;
+
+    @JsonProperty("loanNumber")
+    private String loanNumber;
+
+    @JsonProperty("version")
+    private Long version;
+
+    @JsonProperty("reviewType")
+    private String reviewType;
+
+    @JsonProperty("status")
+    private String status;
+
+    @JsonProperty("loanDecision")
+    private String loanDecision;
+
+    @JsonProperty("loanStatus")
+    private String loanStatus;
+
+    public WorkflowStateReference() {
+    }
+
+    public static WorkflowStateReference of(WorkflowState state) {
+        WorkflowStateReference reference = new WorkflowStateReference();
+        reference.requestNumber = state.getRequestNumber();
+        reference.loanNumber = state.getLoanNumber();
+        reference.version = state.getVersion();
+        reference.reviewType = state.getReviewType();
+        reference.status = state.getStatus();
+        reference.loanDecision = state.getLoanDecision();
+        reference.loanStatus = state.getLoanStatus();
+        return reference;
+    }
+
+    /**
+     * Whether handlers should emit references (the default) rather than full states.
+     */
+    public static boolean isCompactOutputEnabled() {
+        return !"full".equalsIgnoreCase(System.getenv(OUTPUT_MODE_ENV));
+    }
+
+    public String getRequestNumber() {
+        return requestNumber;
+    }
+
+    public String getLoanNumber() {
+        return loanNumber;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public String getReviewType() {
+        return reviewType;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getLoanDecision() {
+        return loanDecision;
+    }
+
+    public String getLoanStatus() {
+        return loanStatus;
+    }
+}
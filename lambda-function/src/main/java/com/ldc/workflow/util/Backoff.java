@@ -0,0 +1,37 @@
+package com.ldc.workflow.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with full jitter: the delay before retry n is drawn uniformly
+ * from [0, min(cap, base * 2^n)], which spreads synchronized retries from many
+ * callers instead of having them hit a throttled API in lock step.
+ */
+public class Backoff {
+
+    private final long baseMillis;
+    private final long capMillis;
+
+    public Backoff(long baseMillis, long capMillis) {
+        if (baseMillis <= 0 || capMillis < baseMillis) {
+            throw new IllegalArgumentException("Backoff requires 0 < base <= cap");
+        }
+        this.baseMillis = baseMillis;
+        this.capMillis = capMillis;
+    }
+
+    /**
+     * Delay before the given retry (0 for the first retry).
+     */
+    public long delayMillis(int retry) {
+        return ThreadLocalRandom.current().nextLong(ceilingMillis(retry) + 1);
+    }
+
+    /**
+     * Largest delay the given retry can draw.
+     */
+    public long ceilingMillis(int retry) {
+        int shift = Math.min(Math.max(retry, 0), 30);
+        return Math.min(capMillis, baseMillis << shift);
+    }
+}
@@ -0,0 +1,89 @@
+package com.ldc.workflow.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker for a downstream dependency.
+ *
+ * Closed, it lets every call through and counts consecutive failures; at
+ * {@code failureThreshold} it opens and rejects calls without trying them for
+ * {@code openNanos}. After that one probe call is let through (half-open): a
+ * success closes the breaker, a failure opens it for another period. Callers
+ * ask {@link #tryAcquire()} before a call and report the outcome with
+ * {@link #onSuccess()} or {@link #onFailure()}.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private boolean probeInFlight;
+    private long rejected;
+    private long opened;
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this(failureThreshold, TimeUnit.MILLISECONDS.toNanos(openMillis), System::nanoTime);
+    }
+
+    public CircuitBreaker(int failureThreshold, long openNanos, LongSupplier clock) {
+        if (failureThreshold < 1 || openNanos <= 0) {
+            throw new IllegalArgumentException("Circuit breaker requires a positive threshold and open period");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openNanos;
+        this.clock = clock;
+    }
+
+    /**
+     * Whether a call may go ahead now. A half-open breaker admits one probe at a time.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && clock.getAsLong() - openedAtNanos >= openNanos) {
+            state = State.HALF_OPEN;
+        }
+        if (state == State.CLOSED || (state == State.HALF_OPEN && !probeInFlight)) {
+            probeInFlight = state == State.HALF_OPEN;
+            return true;
+        }
+        rejected++;
+        return false;
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        state = State.CLOSED;
+    }
+
+    public synchronized void onFailure() {
+        probeInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAtNanos = clock.getAsLong();
+            opened++;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Calls refused while open or while a probe was in flight.
+     */
+    public synchronized long getRejectedCount() {
+        return rejected;
+    }
+
+    public synchronized long getOpenedCount() {
+        return opened;
+    }
+}
@@ -0,0 +1,58 @@
+package com.ldc.workflow.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time left in the current Lambda invocation, for calls that must finish
+ * before the function is cut off.
+ *
+ * LambdaHandler starts the deadline from the invocation context. Under the Spring
+ * Cloud Function adapter no context reaches the function, so LoanReviewRouter
+ * starts it from LAMBDA_TIMEOUT_SECONDS when the invocation is routed. With
+ * neither, there is no deadline and callers fall back to their own timeouts.
+ */
+public final class InvocationDeadline {
+
+    private static final ThreadLocal<Long> deadlineNanos = new ThreadLocal<>();
+    private static final long FUNCTION_TIMEOUT_MILLIS = parseTimeout(System.getenv("LAMBDA_TIMEOUT_SECONDS"));
+
+    private InvocationDeadline() {
+    }
+
+    /**
+     * Start the deadline for this thread's invocation.
+     */
+    public static void begin(long remainingMillis) {
+        deadlineNanos.set(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(remainingMillis));
+    }
+
+    /**
+     * Start the deadline from LAMBDA_TIMEOUT_SECONDS unless one is already running.
+     *
+     * @return whether this call started it, and so must {@link #clear()} it
+     */
+    public static boolean beginIfAbsent() {
+        if (deadlineNanos.get() != null || FUNCTION_TIMEOUT_MILLIS <= 0) {
+            return false;
+        }
+        begin(FUNCTION_TIMEOUT_MILLIS);
+        return true;
+    }
+
+    public static void clear() {
+        deadlineNanos.remove();
+    }
+
+    /**
+     * The System.nanoTime() value the invocation ends at, or {@code Long.MAX_VALUE}
+     * when no deadline is running.
+     */
+    public static long deadlineNanos() {
+        Long deadline = deadlineNanos.get();
+        return deadline != null ? deadline : Long.MAX_VALUE;
+    }
+
+    private static long parseTimeout(String seconds) {
+        return seconds == null || seconds.isEmpty() ? 0 : TimeUnit.SECONDS.toMillis(Long.parseLong(seconds));
+    }
+}
@@ -0,0 +1,53 @@
+package com.ldc.workflow.util;
+
+/**
+ * Caps retries at a fraction of calls, so that when a dependency degrades the
+ * retries do not multiply the load on it.
+ *
+ * Every first attempt deposits {@code ratio} of a token and every retry spends a
+ * whole one; the balance is capped at {@code maxTokens} and starts full, which
+ * lets a cold function retry a few calls before it has made any. With a ratio
+ * of 0.1, at most about one call in ten is retried once the reserve is gone.
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final double maxTokens;
+    private double tokens;
+    private long exhausted;
+
+    public RetryBudget(double ratio, int maxTokens) {
+        if (ratio < 0 || maxTokens < 0) {
+            throw new IllegalArgumentException("Retry budget requires a non-negative ratio and reserve");
+        }
+        this.ratio = ratio;
+        this.maxTokens = maxTokens;
+        this.tokens = maxTokens;
+    }
+
+    /**
+     * Record a first attempt.
+     */
+    public synchronized void onAttempt() {
+        tokens = Math.min(maxTokens, tokens + ratio);
+    }
+
+    /**
+     * Take a token for a retry, or refuse it when the budget is spent.
+     */
+    public synchronized boolean tryRetry() {
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        exhausted++;
+        return false;
+    }
+
+    /**
+     * Retries refused because the budget was spent.
+     */
+    public synchronized long getExhaustedCount() {
+        return exhausted;
+    }
+}
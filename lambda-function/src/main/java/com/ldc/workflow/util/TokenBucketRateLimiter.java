@@ -0,0 +1,67 @@
+package com.ldc.workflow.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket rate limiter.
+ *
+ * The bucket holds up to {@code burst} permits and refills continuously at
+ * {@code permitsPerSecond}, mirroring how AWS API quotas (bucket size plus refill
+ * rate) are defined. {@link #acquire()} reserves a permit under the lock and sleeps
+ * outside it, so waiting callers do not serialize on the monitor.
+ */
+public class TokenBucketRateLimiter {
+
+    private final double permitsPerNano;
+    private final double burst;
+    private double available;
+    private long lastRefillNanos;
+
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate limiter requires a positive rate and burst");
+        }
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.available = burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Take one permit, waiting for the bucket to refill if it is empty.
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Take one permit only if one is available right now.
+     */
+    public synchronized boolean tryAcquire() {
+        refill(System.nanoTime());
+        if (available >= 1) {
+            available -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Claim the next permit and return how long the caller must wait before using it.
+     * The balance may go negative, which queues later callers behind this one.
+     */
+    private synchronized long reserve() {
+        long now = System.nanoTime();
+        refill(now);
+        available -= 1;
+        return available >= 0 ? 0 : (long) Math.ceil(-available / permitsPerNano);
+    }
+
+    private void refill(long now) {
+        available = Math.min(burst, available + (now - lastRefillNanos) * permitsPerNano);
+        lastRefillNanos = now;
+    }
+}
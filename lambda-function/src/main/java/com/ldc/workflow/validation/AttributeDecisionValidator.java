@@ -1,5 +1,6 @@
 package com.ldc.workflow.validation;
 
+import com.ldc.workflow.types.AttributeDecision;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -7,6 +8,7 @@ import org.springframework.stereotype.Component;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Validator for attribute decision values.
@@ -16,13 +18,9 @@ import java.util.Set;
 public class AttributeDecisionValidator {
 
     private static final Logger logger = LoggerFactory.getLogger(AttributeDecisionValidator.class);
-    private static final Set<String> ALLOWED_DECISIONS = new HashSet<>(Arrays.asList(
-            "Approved",
-            "Rejected",
-            "Reclass",
-            "Repurchase",
-            "Pending"
-    ));
+    private static final Set<String> ALLOWED_DECISIONS = Arrays.stream(AttributeDecision.values())
+            .map(AttributeDecision::getValue)
+            .collect(Collectors.toCollection(HashSet::new));
 
     /**
      * Validate that the attribute decision is one of the allowed values.
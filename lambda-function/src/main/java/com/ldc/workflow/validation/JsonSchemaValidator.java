@@ -0,0 +1,477 @@
+package com.ldc.workflow.validation;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * A JSON Schema compiled once into a tree of checks that runs over a streaming
+ * token parse: the document is never materialized for validation, and every
+ * violation is collected in the one pass instead of stopping at the first.
+ *
+ * Compiles the draft-07 subset our contracts use: type (including type lists),
+ * properties, required, additionalProperties (true/false), items (one schema),
+ * string enum and pattern. format, title, description, $schema, $id, $comment,
+ * default and examples are annotations and ignored. Any other keyword fails
+ * compilation, so a schema cannot quietly demand more than is checked.
+ *
+ * Violation paths read like "Attributes[2].Decision"; messages follow the
+ * handlers' wording ("Missing LoanNumber", "Invalid LoanNumber format",
+ * "Invalid ReviewType: X"). At most maxViolations are kept, the rest only counted.
+ */
+public final class JsonSchemaValidator {
+
+    private static final ObjectMapper schemaMapper = new ObjectMapper()
+            .enable(JsonParser.Feature.STRICT_DUPLICATE_DETECTION)
+            .enable(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+    private static final JsonFactory jsonFactory = new JsonFactory();
+    private static final Set<String> ANNOTATIONS = Set.of("$schema", "$id", "$comment", "title", "description",
+            "format", "default", "examples");
+    public static final int DEFAULT_MAX_VIOLATIONS = 100;
+
+    private static final int T_OBJECT = 1;
+    private static final int T_ARRAY = 1 << 1;
+    private static final int T_STRING = 1 << 2;
+    private static final int T_INTEGER = 1 << 3;
+    private static final int T_NUMBER = 1 << 4;
+    private static final int T_BOOLEAN = 1 << 5;
+    private static final int T_NULL = 1 << 6;
+    private static final Map<String, Integer> TYPES = Map.of("object", T_OBJECT, "array", T_ARRAY,
+            "string", T_STRING, "integer", T_INTEGER, "number", T_NUMBER | T_INTEGER, "boolean", T_BOOLEAN,
+            "null", T_NULL);
+
+    private final Node root;
+    private final int maxViolations;
+
+    private JsonSchemaValidator(Node root, int maxViolations) {
+        this.root = root;
+        this.maxViolations = maxViolations;
+    }
+
+    /**
+     * @throws IllegalArgumentException when the schema is malformed or uses an unsupported keyword
+     */
+    public static JsonSchemaValidator compile(String schemaJson) {
+        JsonNode schema;
+        try {
+            schema = schemaMapper.readTree(schemaJson);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Schema is not valid JSON: " + e.getOriginalMessage(), e);
+        }
+        return new JsonSchemaValidator(compileNode(schema, "#"), DEFAULT_MAX_VIOLATIONS);
+    }
+
+    /**
+     * Compile a schema from the classpath.
+     */
+    public static JsonSchemaValidator fromResource(String resource) {
+        try (InputStream in = JsonSchemaValidator.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Schema resource not found: " + resource);
+            }
+            return compile(new String(in.readAllBytes(), java.nio.charset.StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read schema " + resource, e);
+        }
+    }
+
+    /**
+     * A validator that also accepts the given top-level properties with any value, for
+     * envelope fields (handlerType) that travel with the document but are not part of it.
+     */
+    public JsonSchemaValidator allowingRootProperties(Collection<String> names) {
+        Node copy = root.copy();
+        copy.properties = copy.properties == null ? new HashMap<>() : new HashMap<>(copy.properties);
+        for (String name : names) {
+            copy.properties.putIfAbsent(name, new Property(null, 0));
+        }
+        return new JsonSchemaValidator(copy, maxViolations);
+    }
+
+    public JsonSchemaValidator withMaxViolations(int maxViolations) {
+        return new JsonSchemaValidator(root, maxViolations);
+    }
+
+    public Result validate(JsonNode document) {
+        try (JsonParser parser = document.traverse()) {
+            return validate(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Validate raw JSON while it is tokenized; malformed JSON is reported as a
+     * "syntax" violation along with whatever was found before it.
+     */
+    public Result validate(byte[] json) {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            return validate(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Validate the next value of a parser, leaving it on that value's last token.
+     */
+    public Result validate(JsonParser parser) throws IOException {
+        Context context = new Context(parser, maxViolations);
+        try {
+            if (parser.currentToken() == null && parser.nextToken() == null) {
+                context.report("syntax", "", "Document is empty");
+            } else {
+                validate(root, context);
+            }
+        } catch (JsonProcessingException e) {
+            context.report("syntax", context.path(), "Malformed JSON: " + e.getOriginalMessage());
+        }
+        return new Result(context.violations, context.count);
+    }
+
+    private static void validate(Node node, Context context) throws IOException {
+        JsonParser parser = context.parser;
+        JsonToken token = parser.currentToken();
+        int actual = typeOf(token);
+        if (node.types != 0 && (node.types & actual) == 0 && !integralFloat(node, parser, token)) {
+            String path = context.path();
+            context.report("type", path, (path.isEmpty() ? "Document" : path) + " must be of type " + node.typeNames);
+            parser.skipChildren();
+            return;
+        }
+        if (token == JsonToken.START_OBJECT) {
+            validateObject(node, context);
+        } else if (token == JsonToken.START_ARRAY) {
+            validateArray(node, context);
+        } else if (node.enumValues != null || node.pattern != null) {
+            String text = parser.getText();
+            if (node.enumValues != null && (token != JsonToken.VALUE_STRING || !node.enumValues.contains(text))) {
+                context.report("enum", context.path(), "Invalid " + context.path() + ": " + text);
+            } else if (node.pattern != null && token == JsonToken.VALUE_STRING && !node.pattern.matcher(text).find()) {
+                context.report("pattern", context.path(), "Invalid " + context.path() + " format");
+            }
+        }
+    }
+
+    private static void validateObject(Node node, Context context) throws IOException {
+        JsonParser parser = context.parser;
+        long seen = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            Property property = node.properties == null ? null : node.properties.get(name);
+            if (property == null) {
+                if (!node.additionalProperties) {
+                    String path = context.childPath(name);
+                    context.report("additionalProperties", path, "Unexpected property " + path);
+                }
+                parser.skipChildren();
+                continue;
+            }
+            seen |= property.requiredBit;
+            if (property.schema == null) {
+                parser.skipChildren();
+            } else {
+                context.push(name);
+                validate(property.schema, context);
+                context.pop();
+            }
+        }
+        if ((seen & node.requiredMask) != node.requiredMask) {
+            for (String name : node.required) {
+                if ((seen & node.properties.get(name).requiredBit) == 0) {
+                    String path = context.childPath(name);
+                    context.report("required", path, "Missing " + path);
+                }
+            }
+        }
+    }
+
+    private static void validateArray(Node node, Context context) throws IOException {
+        JsonParser parser = context.parser;
+        int index = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (node.items == null) {
+                parser.skipChildren();
+            } else {
+                context.push(index);
+                validate(node.items, context);
+                context.pop();
+            }
+            index++;
+        }
+    }
+
+    private static int typeOf(JsonToken token) {
+        return switch (token) {
+            case START_OBJECT -> T_OBJECT;
+            case START_ARRAY -> T_ARRAY;
+            case VALUE_STRING -> T_STRING;
+            case VALUE_NUMBER_INT -> T_INTEGER;
+            case VALUE_NUMBER_FLOAT -> T_NUMBER;
+            case VALUE_TRUE, VALUE_FALSE -> T_BOOLEAN;
+            case VALUE_NULL -> T_NULL;
+            default -> 0;
+        };
+    }
+
+    /**
+     * draft-07 counts 1.0 as an integer.
+     */
+    private static boolean integralFloat(Node node, JsonParser parser, JsonToken token) throws IOException {
+        return token == JsonToken.VALUE_NUMBER_FLOAT && (node.types & T_INTEGER) != 0
+                && parser.getDecimalValue().stripTrailingZeros().scale() <= 0;
+    }
+
+    private static Node compileNode(JsonNode schema, String location) {
+        if (schema.isBoolean()) {
+            Node node = new Node();
+            if (!schema.asBoolean()) {
+                throw new IllegalArgumentException("Schema false at " + location + " is not supported");
+            }
+            return node;
+        }
+        if (!schema.isObject()) {
+            throw new IllegalArgumentException("Schema at " + location + " must be an object");
+        }
+        Node node = new Node();
+        for (Iterator<Map.Entry<String, JsonNode>> fields = schema.fields(); fields.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String keyword = field.getKey();
+            JsonNode value = field.getValue();
+            switch (keyword) {
+                case "type" -> compileType(node, value, location);
+                case "properties" -> {
+                    node.properties = new HashMap<>();
+                    value.fields().forEachRemaining(property -> node.properties.put(property.getKey(),
+                            new Property(compileNode(property.getValue(), location + "/properties/"
+                                    + property.getKey()), 0)));
+                }
+                case "additionalProperties" -> {
+                    if (!value.isBoolean()) {
+                        throw new IllegalArgumentException("Only boolean additionalProperties is supported at "
+                                + location);
+                    }
+                    node.additionalProperties = value.asBoolean();
+                }
+                case "items" -> node.items = compileNode(value, location + "/items");
+                case "enum" -> {
+                    node.enumValues = new HashSet<>();
+                    for (JsonNode option : value) {
+                        if (!option.isTextual()) {
+                            throw new IllegalArgumentException("Only string enums are supported at " + location);
+                        }
+                        node.enumValues.add(option.asText());
+                    }
+                }
+                case "pattern" -> node.pattern = Pattern.compile(value.asText());
+                case "required" -> {
+                    node.required = new ArrayList<>();
+                    value.forEach(name -> node.required.add(name.asText()));
+                }
+                default -> {
+                    if (!ANNOTATIONS.contains(keyword)) {
+                        throw new IllegalArgumentException("Unsupported schema keyword '" + keyword + "' at "
+                                + location);
+                    }
+                }
+            }
+        }
+        if (!node.required.isEmpty()) {
+            if (node.required.size() > Long.SIZE) {
+                throw new IllegalArgumentException("More than " + Long.SIZE + " required properties at " + location);
+            }
+            if (node.properties == null) {
+                node.properties = new HashMap<>();
+            }
+            for (int i = 0; i < node.required.size(); i++) {
+                String name = node.required.get(i);
+                long bit = 1L << i;
+                Property property = node.properties.get(name);
+                node.properties.put(name, new Property(property == null ? null : property.schema, bit));
+                node.requiredMask |= bit;
+            }
+        }
+        return node;
+    }
+
+    private static void compileType(Node node, JsonNode value, String location) {
+        List<String> names = new ArrayList<>();
+        if (value.isArray()) {
+            value.forEach(type -> names.add(type.asText()));
+        } else {
+            names.add(value.asText());
+        }
+        for (String name : names) {
+            Integer mask = TYPES.get(name);
+            if (mask == null) {
+                throw new IllegalArgumentException("Unknown type '" + name + "' at " + location);
+            }
+            node.types |= mask;
+        }
+        node.typeNames = String.join(" or ", names);
+    }
+
+    /**
+     * Outcome of one validation.
+     */
+    public static final class Result {
+        private final List<SchemaViolation> violations;
+        private final int count;
+
+        private Result(List<SchemaViolation> violations, int count) {
+            this.violations = Collections.unmodifiableList(violations);
+            this.count = count;
+        }
+
+        public boolean isValid() {
+            return count == 0;
+        }
+
+        /**
+         * The violations found, at most maxViolations of them.
+         */
+        public List<SchemaViolation> getViolations() {
+            return violations;
+        }
+
+        /**
+         * All violations found, including any not kept.
+         */
+        public int getViolationCount() {
+            return count;
+        }
+
+        /**
+         * The messages joined by "; ", noting any violations not kept.
+         */
+        public String getMessage() {
+            StringBuilder message = new StringBuilder();
+            for (SchemaViolation violation : violations) {
+                if (message.length() > 0) {
+                    message.append("; ");
+                }
+                message.append(violation.getMessage());
+            }
+            if (count > violations.size()) {
+                message.append("; and ").append(count - violations.size()).append(" more");
+            }
+            return message.toString();
+        }
+    }
+
+    private static final class Node {
+        private int types;
+        private String typeNames;
+        private Map<String, Property> properties;
+        private boolean additionalProperties = true;
+        private List<String> required = List.of();
+        private long requiredMask;
+        private Node items;
+        private Set<String> enumValues;
+        private Pattern pattern;
+
+        private Node copy() {
+            Node copy = new Node();
+            copy.types = types;
+            copy.typeNames = typeNames;
+            copy.properties = properties;
+            copy.additionalProperties = additionalProperties;
+            copy.required = required;
+            copy.requiredMask = requiredMask;
+            copy.items = items;
+            copy.enumValues = enumValues;
+            copy.pattern = pattern;
+            return copy;
+        }
+    }
+
+    private static final class Property {
+        private final Node schema;
+        private final long requiredBit;
+
+        private Property(Node schema, long requiredBit) {
+            this.schema = schema;
+            this.requiredBit = requiredBit;
+        }
+    }
+
+    /**
+     * Parser, current path and collected violations of one validation. The path is a
+     * stack of names and indexes, only turned into a string when something is reported.
+     */
+    private static final class Context {
+        private final JsonParser parser;
+        private final int maxViolations;
+        private final List<SchemaViolation> violations = new ArrayList<>();
+        private Object[] segments = new Object[8];
+        private int depth;
+        private int count;
+
+        private Context(JsonParser parser, int maxViolations) {
+            this.parser = parser;
+            this.maxViolations = maxViolations;
+        }
+
+        private void push(Object segment) {
+            if (depth == segments.length) {
+                segments = java.util.Arrays.copyOf(segments, depth * 2);
+            }
+            segments[depth++] = segment;
+        }
+
+        private void pop() {
+            depth--;
+        }
+
+        private String path() {
+            StringBuilder path = new StringBuilder();
+            for (int i = 0; i < depth; i++) {
+                append(path, segments[i]);
+            }
+            return path.toString();
+        }
+
+        private String childPath(String name) {
+            StringBuilder path = new StringBuilder(path());
+            append(path, name);
+            return path.toString();
+        }
+
+        private static void append(StringBuilder path, Object segment) {
+            if (segment instanceof Integer) {
+                path.append('[').append(segment).append(']');
+            } else {
+                if (path.length() > 0) {
+                    path.append('.');
+                }
+                path.append(segment);
+            }
+        }
+
+        private void report(String keyword, String path, String message) {
+            count++;
+            if (violations.size() < maxViolations) {
+                violations.add(new SchemaViolation(path, keyword, message));
+            }
+        }
+    }
+}
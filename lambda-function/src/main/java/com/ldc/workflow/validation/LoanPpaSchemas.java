@@ -0,0 +1,39 @@
+package com.ldc.workflow.validation;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * The Loan PPA request and workflow response schemas (schemas/ at the repository
+ * root, packaged under schemas/ on the classpath), compiled once at startup. A
+ * schema that does not compile fails the context rather than the first request.
+ */
+@Component
+public class LoanPpaSchemas {
+
+    public static final String REQUEST_SCHEMA = "schemas/loan-ppa-request.schema.json";
+    public static final String RESPONSE_SCHEMA = "schemas/loan-ppa-workflow-response.schema.json";
+
+    /**
+     * Router envelope fields that travel inside the request without being part of it.
+     */
+    private static final Set<String> ENVELOPE_PROPERTIES = Set.of("handlerType");
+
+    private final JsonSchemaValidator requestValidator;
+    private final JsonSchemaValidator responseValidator;
+
+    public LoanPpaSchemas() {
+        this.requestValidator = JsonSchemaValidator.fromResource(REQUEST_SCHEMA)
+                .allowingRootProperties(ENVELOPE_PROPERTIES);
+        this.responseValidator = JsonSchemaValidator.fromResource(RESPONSE_SCHEMA);
+    }
+
+    public JsonSchemaValidator getRequestValidator() {
+        return requestValidator;
+    }
+
+    public JsonSchemaValidator getResponseValidator() {
+        return responseValidator;
+    }
+}
@@ -0,0 +1,40 @@
+package com.ldc.workflow.validation;
+
+/**
+ * One place a JSON document breaks its schema.
+ */
+public final class SchemaViolation {
+
+    private final String path;
+    private final String keyword;
+    private final String message;
+
+    public SchemaViolation(String path, String keyword, String message) {
+        this.path = path;
+        this.keyword = keyword;
+        this.message = message;
+    }
+
+    /**
+     * Where the violation is, e.g. "Attributes[2].Decision"; empty for the document itself.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * The schema keyword that failed: type, required, enum, pattern, additionalProperties.
+     */
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return message;
+    }
+}
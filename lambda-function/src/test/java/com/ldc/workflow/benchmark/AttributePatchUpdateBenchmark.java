@@ -0,0 +1,108 @@
+package com.ldc.workflow.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ldc.workflow.business.CompletionCriteriaChecker;
+import com.ldc.workflow.handlers.LoanDecisionUpdateApiHandler;
+import com.ldc.workflow.repository.InMemoryDynamoDbClient;
+import com.ldc.workflow.repository.WorkflowStateRepository;
+import com.ldc.workflow.types.LoanAttribute;
+import com.ldc.workflow.types.WorkflowState;
+import com.ldc.workflow.validation.AttributeDecisionValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One attribute decision changed through LoanDecisionUpdateApiHandler: the whole
+ * attribute list sent as "attributes" against the one entry sent as
+ * "attributeUpdates". Each operation parses the request bytes, as the API does,
+ * and flips the decision so every call writes.
+ *
+ * The loan keeps one Pending attribute, so it never completes and nothing is
+ * resumed; DynamoDB is the in-memory stand-in with no added latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class AttributePatchUpdateBenchmark {
+
+    private static final String TABLE = "ldc-loan-review-state";
+    private static final String REQUEST_NUMBER = "REQ-BENCH";
+    private static final String LOAN_NUMBER = "1000000001";
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Param({"100", "1000"})
+    public int attributes;
+
+    private LoanDecisionUpdateApiHandler handler;
+    private final byte[][] fullRequests = new byte[2][];
+    private final byte[][] patchRequests = new byte[2][];
+    private int flip;
+
+    @Setup
+    public void setUp() throws Exception {
+        WorkflowStateRepository repository = new WorkflowStateRepository(new InMemoryDynamoDbClient(), TABLE);
+        handler = new LoanDecisionUpdateApiHandler(new AttributeDecisionValidator(),
+                new CompletionCriteriaChecker(), repository, null);
+
+        List<LoanAttribute> list = new ArrayList<>(attributes);
+        list.add(new LoanAttribute("Attribute0", "Pending"));
+        for (int i = 1; i < attributes; i++) {
+            list.add(new LoanAttribute("Attribute" + i, "Approved"));
+        }
+        WorkflowState state = new WorkflowState(REQUEST_NUMBER, LOAN_NUMBER, "LDCReview");
+        state.setAttributes(list);
+        repository.save(state);
+
+        String[] decisions = {"Rejected", "Approved"};
+        for (int i = 0; i < 2; i++) {
+            ObjectNode full = request();
+            ArrayNode all = full.putArray("attributes");
+            for (int j = 0; j < attributes; j++) {
+                all.addObject().put("attributeName", "Attribute" + j)
+                        .put("attributeDecision", j == 0 ? "Pending" : j == attributes / 2 ? decisions[i] : "Approved");
+            }
+            fullRequests[i] = objectMapper.writeValueAsBytes(full);
+
+            ObjectNode patch = request();
+            patch.putArray("attributeUpdates").addObject()
+                    .put("attributeName", "Attribute" + attributes / 2).put("attributeDecision", decisions[i]);
+            patchRequests[i] = objectMapper.writeValueAsBytes(patch);
+        }
+    }
+
+    private static ObjectNode request() {
+        // The handler looks the state up by executionId
+        return objectMapper.createObjectNode()
+                .put("requestNumber", REQUEST_NUMBER)
+                .put("executionId", LOAN_NUMBER);
+    }
+
+    @Benchmark
+    public JsonNode fullList() throws Exception {
+        return handler.apply(objectMapper.readTree(fullRequests[flip ^= 1]));
+    }
+
+    @Benchmark
+    public JsonNode patch() throws Exception {
+        return handler.apply(objectMapper.readTree(patchRequests[flip ^= 1]));
+    }
+}
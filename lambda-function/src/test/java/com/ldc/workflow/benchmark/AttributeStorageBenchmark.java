@@ -0,0 +1,86 @@
+package com.ldc.workflow.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ldc.workflow.business.DecisionSummary;
+import com.ldc.workflow.repository.AttributeCodec;
+import com.ldc.workflow.repository.AttributeDictionary;
+import com.ldc.workflow.types.LoanAttribute;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a stored attribute list for status evaluation: parsing the Attributes
+ * JSON against decoding AttributeData, and against summarizing AttributeData
+ * without decoding it. Every list ends in a DecisionSummary.
+ *
+ * Names come from a 200-entry dictionary, with one attribute in ten outside it
+ * (stored as text). Run with -prof gc to see the allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class AttributeStorageBenchmark {
+
+    private static final String[] DECISIONS = {"Approved", "Approved", "Rejected", "Pending", "Reclass"};
+    private static final int DICTIONARY_NAMES = 200;
+
+    @Param({"10", "100", "1000"})
+    public int attributes;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private AttributeDictionary dictionary;
+    private byte[] json;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws Exception {
+        StringBuilder names = new StringBuilder("{\"version\": 1, \"names\": [");
+        for (int i = 0; i < DICTIONARY_NAMES; i++) {
+            names.append(i == 0 ? "" : ", ").append("\"LoanAttribute").append(i).append('"');
+        }
+        dictionary = AttributeDictionary.parse(names.append("]}").toString());
+
+        Random random = new Random(42);
+        List<LoanAttribute> list = new ArrayList<>(attributes);
+        for (int i = 0; i < attributes; i++) {
+            String name = i % 10 == 9 ? "AdHocAttribute" + i : dictionary.name(random.nextInt(DICTIONARY_NAMES));
+            list.add(new LoanAttribute(name, DECISIONS[random.nextInt(DECISIONS.length)]));
+        }
+        json = objectMapper.writeValueAsBytes(list);
+        encoded = AttributeCodec.encode(list, dictionary);
+    }
+
+    @Benchmark
+    public DecisionSummary parseJson() throws Exception {
+        List<LoanAttribute> list = objectMapper.readValue(json,
+                objectMapper.getTypeFactory().constructCollectionType(List.class, LoanAttribute.class));
+        return DecisionSummary.of(list);
+    }
+
+    @Benchmark
+    public DecisionSummary decodeEncoded() {
+        return DecisionSummary.of(AttributeCodec.decode(encoded, dictionary));
+    }
+
+    @Benchmark
+    public DecisionSummary summarizeEncoded() {
+        return AttributeCodec.summarize(encoded);
+    }
+}
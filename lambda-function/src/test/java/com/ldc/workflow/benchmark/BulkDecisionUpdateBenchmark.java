@@ -0,0 +1,130 @@
+package com.ldc.workflow.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ldc.workflow.business.CompletionCriteriaChecker;
+import com.ldc.workflow.handlers.BulkLoanDecisionUpdateApiHandler;
+import com.ldc.workflow.handlers.LoanDecisionUpdateApiHandler;
+import com.ldc.workflow.repository.InMemoryDynamoDbClient;
+import com.ldc.workflow.repository.WorkflowStateRepository;
+import com.ldc.workflow.service.LocalStepFunctionsEndpoint;
+import com.ldc.workflow.service.StepFunctionsService;
+import com.ldc.workflow.types.LoanAttribute;
+import com.ldc.workflow.types.WorkflowState;
+import com.ldc.workflow.util.TokenBucketRateLimiter;
+import com.ldc.workflow.validation.AttributeDecisionValidator;
+import com.ldc.workflow.validation.LoanNumberValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to apply one decision to a whole request's loans: one call per loan through
+ * LoanDecisionUpdateApiHandler versus a single BulkLoanDecisionUpdateApiHandler call.
+ *
+ * DynamoDB and Step Functions are local stand-ins with a fixed per-call latency,
+ * so the difference is round trips saved by batching and overlapped by the
+ * bounded resume, not client overhead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class BulkDecisionUpdateBenchmark {
+
+    private static final String TABLE = "ldc-loan-review-state";
+    private static final String REQUEST_NUMBER = "REQ-BENCH";
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Param({"200"})
+    public int loans;
+
+    @Param({"2"})
+    public long serviceLatencyMillis;
+
+    private LocalStepFunctionsEndpoint stepFunctionsEndpoint;
+    private LoanDecisionUpdateApiHandler singleHandler;
+    private BulkLoanDecisionUpdateApiHandler bulkHandler;
+    private List<ObjectNode> singleRequests;
+    private ObjectNode bulkRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        InMemoryDynamoDbClient dynamoDbClient = new InMemoryDynamoDbClient().withLatencyMillis(serviceLatencyMillis);
+        WorkflowStateRepository repository = new WorkflowStateRepository(dynamoDbClient, TABLE);
+        stepFunctionsEndpoint = new LocalStepFunctionsEndpoint().withLatencyMillis(serviceLatencyMillis);
+        StepFunctionsService stepFunctionsService = new StepFunctionsService(stepFunctionsEndpoint.getEndpoint(),
+                "us-east-1", StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")),
+                4, Duration.ofSeconds(5));
+
+        singleHandler = new LoanDecisionUpdateApiHandler(new AttributeDecisionValidator(),
+                new CompletionCriteriaChecker(), repository, stepFunctionsService);
+        bulkHandler = new BulkLoanDecisionUpdateApiHandler(new AttributeDecisionValidator(),
+                new LoanNumberValidator(), new CompletionCriteriaChecker(), repository, stepFunctionsService,
+                new TokenBucketRateLimiter(5_000, 5_000), 64, 500);
+
+        singleRequests = new ArrayList<>();
+        bulkRequest = objectMapper.createObjectNode().put("loanDecision", "Approved");
+        ArrayNode items = bulkRequest.putArray("items");
+        for (int i = 0; i < loans; i++) {
+            String loanNumber = String.format("%010d", 1_000_000_000L + i);
+            WorkflowState state = new WorkflowState(REQUEST_NUMBER, loanNumber, "LDCReview");
+            state.setTaskToken("TOKEN-" + i);
+            state.setAttributes(List.of(new LoanAttribute("Income", "Approved")));
+            repository.save(state);
+
+            // The single-item handler looks the state up by executionId
+            singleRequests.add(objectMapper.createObjectNode()
+                    .put("requestNumber", REQUEST_NUMBER)
+                    .put("executionId", loanNumber)
+                    .put("loanDecision", "Approved")
+                    .put("taskToken", "TOKEN-" + i));
+            items.addObject()
+                    .put("requestNumber", REQUEST_NUMBER)
+                    .put("loanNumber", loanNumber)
+                    .put("taskToken", "TOKEN-" + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        stepFunctionsEndpoint.close();
+    }
+
+    @Benchmark
+    public int onePerLoan() {
+        int resumed = 0;
+        for (ObjectNode request : singleRequests) {
+            if (singleHandler.apply(request).get("success").asBoolean()) {
+                resumed++;
+            }
+        }
+        return resumed;
+    }
+
+    @Benchmark
+    public JsonNode bulk() {
+        return bulkHandler.apply(bulkRequest);
+    }
+}
@@ -0,0 +1,119 @@
+package com.ldc.workflow.benchmark;
+
+import com.ldc.workflow.service.ConfigurationService;
+import com.ldc.workflow.service.configuration.EnvironmentConfigurationSource;
+import com.ldc.workflow.service.configuration.FileConfigurationSource;
+import com.ldc.workflow.service.configuration.LambdaExtensionConfigurationSource;
+import com.ldc.workflow.service.configuration.LayeredConfigurationSource;
+import com.ldc.workflow.service.configuration.LocalParametersExtension;
+import com.ldc.workflow.service.configuration.LocalSsmEndpoint;
+import com.ldc.workflow.service.configuration.SsmConfigurationSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.ssm.SsmClient;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-lookup latency of each configuration provider, uncached, plus a cache hit
+ * through ConfigurationService for reference.
+ *
+ * The extension and SSM providers are measured against local stand-ins, so the
+ * numbers isolate client overhead (HTTP, signing, JSON) from network distance.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConfigurationSourceBenchmark {
+
+    private static final String PARAMETER = "/ldc-workflow/vend-ppa/endpoint";
+    private static final String VALUE = "https://ppa.example.com/api";
+
+    private LocalParametersExtension extension;
+    private LocalSsmEndpoint ssmEndpoint;
+    private SsmClient ssmClient;
+    private Path file;
+
+    private EnvironmentConfigurationSource environmentSource;
+    private FileConfigurationSource fileSource;
+    private LambdaExtensionConfigurationSource extensionSource;
+    private SsmConfigurationSource ssmSource;
+    private ConfigurationService cachedService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        extension = new LocalParametersExtension("token").put(PARAMETER, VALUE);
+        ssmEndpoint = new LocalSsmEndpoint().put(PARAMETER, VALUE);
+        file = Files.createTempFile("ldc-parameters", ".properties");
+        Files.writeString(file, PARAMETER + "=" + VALUE + "\n");
+
+        ssmClient = SsmClient.builder()
+                .endpointOverride(ssmEndpoint.getEndpoint())
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+                .build();
+
+        environmentSource = new EnvironmentConfigurationSource(Map.of("LDC_WORKFLOW_VEND_PPA_ENDPOINT", VALUE));
+        fileSource = new FileConfigurationSource(file);
+        extensionSource = new LambdaExtensionConfigurationSource(extension.getPort(), "token");
+        ssmSource = new SsmConfigurationSource(ssmClient);
+
+        cachedService = new ConfigurationService(
+                new LayeredConfigurationSource(List.of(environmentSource, extensionSource, ssmSource)),
+                "/ldc-workflow", TimeUnit.MINUTES.toNanos(5), TimeUnit.HOURS.toNanos(1), System::nanoTime);
+        cachedService.getVendPpaEndpoint();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        ssmClient.close();
+        extension.close();
+        ssmEndpoint.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public String environment() {
+        return environmentSource.getParameter(PARAMETER);
+    }
+
+    @Benchmark
+    public String file() {
+        return fileSource.getParameter(PARAMETER);
+    }
+
+    @Benchmark
+    public String lambdaExtension() {
+        return extensionSource.getParameter(PARAMETER);
+    }
+
+    @Benchmark
+    public String ssm() {
+        return ssmSource.getParameter(PARAMETER);
+    }
+
+    @Benchmark
+    public String cachedHit() {
+        return cachedService.getVendPpaEndpoint();
+    }
+}
@@ -0,0 +1,109 @@
+package com.ldc.workflow.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.ldc.workflow.business.CompletionCriteriaChecker;
+import com.ldc.workflow.business.DecisionSummary;
+import com.ldc.workflow.business.PollIntervalCalculator;
+import com.ldc.workflow.repository.InMemoryDynamoDbClient;
+import com.ldc.workflow.repository.WorkflowStateRepository;
+import com.ldc.workflow.types.DecisionProgress;
+import com.ldc.workflow.types.LoanAttribute;
+import com.ldc.workflow.types.WorkflowState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one completion poll as CompletionCriteriaHandler makes it, for loans with
+ * many attributes: reading the whole state and walking its attribute list, against
+ * the projected read of the stored decision counters.
+ *
+ * DynamoDB is the in-memory stand-in with no latency, so this is the client-side
+ * work only (mostly parsing the Attributes JSON); on a real table the full read
+ * also moves the whole item over the wire. Most polled loans still have pending
+ * attributes, so the incomplete reason is built on both paths. Logging is off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class DecisionCounterPollBenchmark {
+
+    private static final String TABLE = "ldc-loan-review-state";
+    private static final String REQUEST_NUMBER = "REQ-BENCH";
+    private static final String[] DECISIONS = {"Approved", "Approved", "Rejected", "Pending", "Pending"};
+    private static final int LOANS = 64;
+
+    @Param({"10", "100", "1000"})
+    public int attributes;
+
+    private final CompletionCriteriaChecker checker = new CompletionCriteriaChecker();
+    private final PollIntervalCalculator pollIntervalCalculator = new PollIntervalCalculator();
+    private WorkflowStateRepository repository;
+    private List<String> loanNumbers;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        for (Class<?> type : List.of(CompletionCriteriaChecker.class, WorkflowStateRepository.class)) {
+            ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(type)).setLevel(Level.OFF);
+        }
+        repository = new WorkflowStateRepository(new InMemoryDynamoDbClient(), TABLE);
+        Random random = new Random(42);
+        loanNumbers = new ArrayList<>(LOANS);
+        for (int l = 0; l < LOANS; l++) {
+            String loanNumber = String.valueOf(1000000000L + l);
+            WorkflowState state = new WorkflowState(REQUEST_NUMBER, loanNumber, "LDCReview");
+            state.setExecutionId("ldc-loan-review-" + REQUEST_NUMBER);
+            state.setLoanDecision("Approved");
+            List<LoanAttribute> list = new ArrayList<>(attributes);
+            for (int a = 0; a < attributes; a++) {
+                list.add(new LoanAttribute("attribute" + a, DECISIONS[random.nextInt(DECISIONS.length)]));
+            }
+            state.setAttributes(list);
+            repository.save(state);
+            loanNumbers.add(loanNumber);
+        }
+    }
+
+    @Benchmark
+    public void attributeListPoll(Blackhole blackhole) {
+        WorkflowState state = repository.findByRequestNumberAndLoanNumber(REQUEST_NUMBER, nextLoan()).get();
+        boolean complete = checker.isLoanDecisionComplete(state.getLoanDecision(), state.getAttributes());
+        blackhole.consume(complete);
+        blackhole.consume(complete ? null : checker.getIncompleteReason(state.getLoanDecision(), state.getAttributes()));
+        blackhole.consume(pollIntervalCalculator.nextPollSeconds(state));
+    }
+
+    @Benchmark
+    public void counterPoll(Blackhole blackhole) {
+        DecisionProgress progress = repository.findDecisionProgress(REQUEST_NUMBER, nextLoan(), null).get();
+        DecisionSummary summary = DecisionSummary.fromCounters(progress);
+        boolean complete = checker.isLoanDecisionComplete(progress.getLoanDecision(), summary);
+        blackhole.consume(complete);
+        blackhole.consume(complete ? null : checker.getIncompleteReason(progress.getLoanDecision(), summary));
+        blackhole.consume(pollIntervalCalculator.nextPollSeconds(progress.getCreatedAt(), progress.getUpdatedAt()));
+    }
+
+    private String nextLoan() {
+        next = (next + 1) & (LOANS - 1);
+        return loanNumbers.get(next);
+    }
+}
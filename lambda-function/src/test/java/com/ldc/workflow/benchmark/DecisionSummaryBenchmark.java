@@ -0,0 +1,154 @@
+package com.ldc.workflow.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.ldc.workflow.business.CompletionCriteriaChecker;
+import com.ldc.workflow.business.DecisionSummary;
+import com.ldc.workflow.business.LoanStatusDeterminer;
+import com.ldc.workflow.types.LoanAttribute;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of evaluating a loaded state (completion plus status, as LoanEvaluationHandler
+ * does) across attribute-list sizes: the per-check streams and String.equals chain
+ * the checker and determiner used to run, against one DecisionSummary pass shared by
+ * both. The lists hold a random mix of decisions so neither path can lean on branch
+ * prediction for a single shape; most states are complete, as they are by the time
+ * the decision is evaluated, and every decision is a fresh String as Jackson would
+ * produce, so equals() cannot short-circuit on identity. Checker and determiner
+ * logging is turned off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class DecisionSummaryBenchmark {
+
+    private static final String[] DECISIONS = {"Approved", "Approved", "Approved", "Approved", "Rejected",
+            "Reclass", "Repurchase"};
+    private static final String[] INCOMPLETE = {"Pending", null};
+    private static final int STATES = 1024;
+    private static final double INCOMPLETE_SHARE = 0.1;
+
+    @Param({"4", "16", "64"})
+    public int attributes;
+
+    private final CompletionCriteriaChecker checker = new CompletionCriteriaChecker();
+    private final LoanStatusDeterminer determiner = new LoanStatusDeterminer();
+    private List<List<LoanAttribute>> states;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        for (Class<?> type : List.of(CompletionCriteriaChecker.class, LoanStatusDeterminer.class)) {
+            ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(type)).setLevel(Level.OFF);
+        }
+        Random random = new Random(42);
+        states = new ArrayList<>(STATES);
+        for (int s = 0; s < STATES; s++) {
+            List<LoanAttribute> list = new ArrayList<>(attributes);
+            for (int a = 0; a < attributes; a++) {
+                list.add(new LoanAttribute("attribute" + a, fresh(DECISIONS[random.nextInt(DECISIONS.length)])));
+            }
+            if (random.nextDouble() < INCOMPLETE_SHARE) {
+                list.get(random.nextInt(attributes))
+                        .setAttributeDecision(fresh(INCOMPLETE[random.nextInt(INCOMPLETE.length)]));
+            }
+            states.add(list);
+        }
+    }
+
+    @Benchmark
+    public void perCheckPasses(Blackhole blackhole) {
+        List<LoanAttribute> state = nextState();
+        blackhole.consume(legacyIsComplete("Approved", state));
+        blackhole.consume(legacyDetermineStatus(state));
+    }
+
+    @Benchmark
+    public void sharedSummary(Blackhole blackhole) {
+        DecisionSummary summary = DecisionSummary.of(nextState());
+        blackhole.consume(checker.isLoanDecisionComplete("Approved", summary));
+        blackhole.consume(determiner.determineStatus(summary));
+    }
+
+    private static String fresh(String value) {
+        return value == null ? null : new String(value.toCharArray());
+    }
+
+    private List<LoanAttribute> nextState() {
+        next = (next + 1) & (STATES - 1);
+        return states.get(next);
+    }
+
+    /** CompletionCriteriaChecker.isLoanDecisionComplete before DecisionSummary, without logging. */
+    private static boolean legacyIsComplete(String loanDecision, List<LoanAttribute> attributes) {
+        if (loanDecision == null || loanDecision.trim().isEmpty()) {
+            return false;
+        }
+        if (attributes == null || attributes.isEmpty()) {
+            return false;
+        }
+        return attributes.stream()
+                .allMatch(attr -> {
+                    String decision = attr.getAttributeDecision();
+                    return decision != null && !"Pending".equals(decision);
+                });
+    }
+
+    /** LoanStatusDeterminer.determineStatus before DecisionSummary, without logging. */
+    private static String legacyDetermineStatus(List<LoanAttribute> attributes) {
+        if (attributes == null || attributes.isEmpty()) {
+            return "Unknown";
+        }
+        int approvedCount = 0;
+        int rejectedCount = 0;
+        int reclassCount = 0;
+        int repurchaseCount = 0;
+        for (LoanAttribute attr : attributes) {
+            String decision = attr.getAttributeDecision();
+            if (decision == null || "Pending".equals(decision)) {
+                continue;
+            } else if ("Approved".equals(decision)) {
+                approvedCount++;
+            } else if ("Rejected".equals(decision)) {
+                rejectedCount++;
+            } else if ("Reclass".equals(decision)) {
+                reclassCount++;
+            } else if ("Repurchase".equals(decision)) {
+                repurchaseCount++;
+            }
+        }
+        if (repurchaseCount > 0) {
+            return "Repurchase";
+        }
+        if (reclassCount > 0) {
+            return "Reclass Approved";
+        }
+        if (approvedCount > 0 && rejectedCount > 0) {
+            return "Partially Approved";
+        }
+        if (approvedCount > 0) {
+            return "Approved";
+        }
+        return rejectedCount > 0 ? "Rejected" : "Unknown";
+    }
+}
@@ -0,0 +1,98 @@
+package com.ldc.workflow.benchmark;
+
+import com.ldc.workflow.business.DecisionSummary;
+import com.ldc.workflow.repository.JdbcLoanAttributeSource;
+import com.ldc.workflow.repository.LocalLoanAttributesDatabase;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loans summarized per second when a request's loans are read together, as a bulk
+ * re-evaluation does, against LocalLoanAttributesDatabase:
+ *
+ * - batchedSummaries: summarizeAll(), one loan_number = ANY(?) query per batchSize loans
+ * - perLoanSummaries: summarize() for each loan over the same HikariCP pool
+ *
+ * Every invocation summarizes all LOANS loans, so the scores are loans per second.
+ * Connections come from a warm pool, so what separates the two is the number of
+ * round trips (roundTripMicros each) and the per-query work on both ends.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class LoanAttributeBatchBenchmark {
+
+    private static final String REQUEST_NUMBER = "REQ-BENCH";
+    private static final String[] DECISIONS = {"Approved", "Approved", "Rejected", "Pending", "Reclass", null};
+    private static final int LOANS = 1000;
+    private static final int ATTRIBUTES = 10;
+
+    @Param({"1", "10", "100", "500"})
+    public int batchSize;
+
+    @Param({"0", "200"})
+    public long roundTripMicros;
+
+    private HikariDataSource pool;
+    private JdbcLoanAttributeSource source;
+    private List<String> loanNumbers;
+
+    @Setup
+    public void setUp() {
+        LocalLoanAttributesDatabase database = new LocalLoanAttributesDatabase()
+                .withLatencyMicros(15_000, 200, roundTripMicros);
+        Random random = new Random(42);
+        loanNumbers = new ArrayList<>(LOANS);
+        for (int l = 0; l < LOANS; l++) {
+            String loanNumber = String.valueOf(1000000000L + l);
+            loanNumbers.add(loanNumber);
+            for (int a = 0; a < ATTRIBUTES; a++) {
+                database.put(REQUEST_NUMBER, loanNumber, "attribute" + a,
+                        DECISIONS[random.nextInt(DECISIONS.length)]);
+            }
+        }
+        pool = database.pool(2);
+        source = new JdbcLoanAttributeSource(pool, 5, batchSize);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOANS)
+    public Map<String, DecisionSummary> batchedSummaries() {
+        return source.summarizeAll(REQUEST_NUMBER, loanNumbers);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOANS)
+    public void perLoanSummaries(Blackhole blackhole) {
+        for (String loanNumber : loanNumbers) {
+            blackhole.consume(source.summarize(REQUEST_NUMBER, loanNumber));
+        }
+    }
+}
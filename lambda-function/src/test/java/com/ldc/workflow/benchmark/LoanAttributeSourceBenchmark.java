@@ -0,0 +1,108 @@
+package com.ldc.workflow.benchmark;
+
+import com.ldc.workflow.business.DecisionSummary;
+import com.ldc.workflow.repository.JdbcLoanAttributeSource;
+import com.ldc.workflow.repository.LocalLoanAttributesDatabase;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Attribute lookups per second from the loan_attributes table through
+ * JdbcLoanAttributeSource, against LocalLoanAttributesDatabase:
+ *
+ * - summaryLookup: the fast path over a connection from the HikariCP pool (grouped
+ *   rows mapped straight to decision counts)
+ * - attributeListLookup: every row read into LoanAttribute objects, then summarized
+ * - coldConnectionLookup: the fast path on a connection opened for the lookup, as
+ *   without a pool (or on every cold Lambda instance)
+ *
+ * The stand-in charges connectMicros per new connection (TCP, TLS and authentication
+ * through RDS Proxy; 15 ms here), 200 us to parse a statement the first time a
+ * connection sees it, and roundTripMicros per round trip, so the gap between the
+ * pooled and cold lookups is the connection cost. With no round-trip latency what
+ * is left is the work on both ends, the server's done in memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class LoanAttributeSourceBenchmark {
+
+    private static final String REQUEST_NUMBER = "REQ-BENCH";
+    private static final String[] DECISIONS = {"Approved", "Approved", "Rejected", "Pending", "Reclass", null};
+    private static final int LOANS = 64;
+    private static final long CONNECT_MICROS = 15_000;
+    private static final long PARSE_MICROS = 200;
+
+    @Param({"10", "100"})
+    public int attributes;
+
+    @Param({"0", "200"})
+    public long roundTripMicros;
+
+    private HikariDataSource pool;
+    private JdbcLoanAttributeSource source;
+    private JdbcLoanAttributeSource coldSource;
+    private String[] loanNumbers;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        LocalLoanAttributesDatabase database = new LocalLoanAttributesDatabase()
+                .withLatencyMicros(CONNECT_MICROS, PARSE_MICROS, roundTripMicros);
+        Random random = new Random(42);
+        loanNumbers = new String[LOANS];
+        for (int l = 0; l < LOANS; l++) {
+            loanNumbers[l] = String.valueOf(1000000000L + l);
+            for (int a = 0; a < attributes; a++) {
+                database.put(REQUEST_NUMBER, loanNumbers[l], "attribute" + a,
+                        DECISIONS[random.nextInt(DECISIONS.length)]);
+            }
+        }
+        pool = database.pool(2);
+        source = new JdbcLoanAttributeSource(pool, 5);
+        // No pool: every lookup opens and closes its own connection
+        coldSource = new JdbcLoanAttributeSource(database.dataSource(), 5);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Benchmark
+    public DecisionSummary summaryLookup() {
+        return source.summarize(REQUEST_NUMBER, nextLoan());
+    }
+
+    @Benchmark
+    public DecisionSummary attributeListLookup() {
+        return DecisionSummary.of(source.findAttributes(REQUEST_NUMBER, nextLoan()));
+    }
+
+    @Benchmark
+    public DecisionSummary coldConnectionLookup() {
+        return coldSource.summarize(REQUEST_NUMBER, nextLoan());
+    }
+
+    private String nextLoan() {
+        next = (next + 1) & (LOANS - 1);
+        return loanNumbers[next];
+    }
+}
@@ -0,0 +1,147 @@
+package com.ldc.workflow.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ldc.workflow.business.CompletionCriteriaChecker;
+import com.ldc.workflow.business.LoanStatusDeterminer;
+import com.ldc.workflow.handlers.ReclassConfirmationHandler;
+import com.ldc.workflow.repository.InMemoryDynamoDbClient;
+import com.ldc.workflow.repository.WorkflowStateRepository;
+import com.ldc.workflow.service.LocalStepFunctionsEndpoint;
+import com.ldc.workflow.service.StepFunctionsService;
+import com.ldc.workflow.types.LoanAttribute;
+import com.ldc.workflow.types.WorkflowState;
+import com.ldc.workflow.validation.AttributeDecisionValidator;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reclass confirmations per second for one Lambda container: ReclassConfirmationHandler
+ * consuming one SQS batch at a time, as a single event source mapping poller
+ * delivers them. Every message confirms a parked loan, so each one costs a state
+ * read, a state write and a SendTaskSuccess.
+ *
+ * DynamoDB and Step Functions are local stand-ins with a fixed per-call latency;
+ * the "messages" counter is the per-container rate. The task tokens for the next
+ * batch are re-armed outside the measured call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(1)
+@Fork(1)
+public class ReclassConfirmationBenchmark {
+
+    private static final String TABLE = "ldc-loan-review-state";
+    private static final String REQUEST_NUMBER = "REQ-BENCH";
+    private static final int LOANS = 1_000;
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Param({"1", "10"})
+    public int batchSize;
+
+    @Param({"2"})
+    public long serviceLatencyMillis;
+
+    private LocalStepFunctionsEndpoint stepFunctionsEndpoint;
+    private WorkflowStateRepository repository;
+    private ReclassConfirmationHandler handler;
+    private ObjectNode[] events;
+    private int next;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long messages;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            messages = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        InMemoryDynamoDbClient dynamoDbClient = new InMemoryDynamoDbClient().withLatencyMillis(serviceLatencyMillis);
+        repository = new WorkflowStateRepository(dynamoDbClient, TABLE);
+        stepFunctionsEndpoint = new LocalStepFunctionsEndpoint().withLatencyMillis(serviceLatencyMillis);
+        StepFunctionsService stepFunctionsService = new StepFunctionsService(stepFunctionsEndpoint.getEndpoint(),
+                "us-east-1", StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")),
+                batchSize, Duration.ofSeconds(5));
+        handler = new ReclassConfirmationHandler(new AttributeDecisionValidator(), new CompletionCriteriaChecker(),
+                new LoanStatusDeterminer(), repository, stepFunctionsService);
+
+        events = new ObjectNode[LOANS / batchSize];
+        for (int b = 0; b < events.length; b++) {
+            events[b] = objectMapper.createObjectNode();
+            ArrayNode records = events[b].putArray("Records");
+            for (int i = 0; i < batchSize; i++) {
+                String loanNumber = loanNumber(b * batchSize + i);
+                WorkflowState state = new WorkflowState(REQUEST_NUMBER, loanNumber, "LDCReview");
+                state.setLoanDecision("Approved");
+                state.setAttributes(List.of(new LoanAttribute("Income", "Reclass")));
+                repository.save(state);
+
+                ObjectNode body = objectMapper.createObjectNode()
+                        .put("requestNumber", REQUEST_NUMBER)
+                        .put("loanNumber", loanNumber);
+                body.putArray("attributes").addObject()
+                        .put("attributeName", "Income")
+                        .put("attributeDecision", "Approved");
+                records.addObject()
+                        .put("messageId", "m-" + loanNumber)
+                        .put("body", body.toString());
+            }
+        }
+    }
+
+    /**
+     * Park the loans of the next batch on the reclass wait again.
+     */
+    @Setup(Level.Invocation)
+    public void armNextBatch() {
+        next = (next + 1) % events.length;
+        for (int i = 0; i < batchSize; i++) {
+            repository.saveTaskToken(REQUEST_NUMBER, loanNumber(next * batchSize + i), "TOKEN-" + next + "-" + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        stepFunctionsEndpoint.close();
+    }
+
+    @Benchmark
+    public JsonNode batch(Counters counters) {
+        JsonNode response = handler.apply(events[next]);
+        counters.messages += batchSize - response.get("batchItemFailures").size();
+        return response;
+    }
+
+    private static String loanNumber(int i) {
+        return String.format("%010d", 1_000_000_000L + i);
+    }
+}
@@ -0,0 +1,91 @@
+package com.ldc.workflow.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ldc.workflow.types.LoanPpaRequest;
+import com.ldc.workflow.validation.JsonSchemaValidator;
+import com.ldc.workflow.validation.LoanPpaSchemas;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validations per second of a Loan PPA request with a large Attributes array.
+ *
+ * adHocChecks is what ReviewTypeValidationHandler did before the schema was compiled:
+ * bind the tree to LoanPpaRequest, null-check three fields and String.matches the loan
+ * number (which looks at none of the attributes). schemaTree runs the compiled request
+ * schema over the tree the handler receives; schemaBytes and parseThenSchema compare
+ * validating raw JSON while it is tokenized against building the tree first.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class SchemaValidationBenchmark {
+
+    private static final String[] DECISIONS = {"Approved", "Rejected", "Pending", "Reclass", "Repurchase"};
+
+    @Param({"10", "1000", "10000"})
+    public int attributes;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private JsonSchemaValidator validator;
+    private JsonNode tree;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() throws Exception {
+        validator = new LoanPpaSchemas().getRequestValidator();
+        ObjectNode request = objectMapper.createObjectNode()
+                .put("RequestNumber", "REQ-BENCH")
+                .put("LoanNumber", "1234567890")
+                .put("ReviewType", "LDC")
+                .put("LoanDecision", "Pending Review");
+        ArrayNode list = request.putArray("Attributes");
+        for (int i = 0; i < attributes; i++) {
+            list.addObject().put("Name", "attribute" + i).put("Decision", DECISIONS[i % DECISIONS.length]);
+        }
+        tree = request;
+        bytes = objectMapper.writeValueAsBytes(request);
+        if (!validator.validate(tree).isValid()) {
+            throw new IllegalStateException(validator.validate(tree).getMessage());
+        }
+    }
+
+    @Benchmark
+    public boolean adHocChecks() throws Exception {
+        LoanPpaRequest request = objectMapper.treeToValue(tree, LoanPpaRequest.class);
+        return request.getRequestNumber() != null && request.getLoanNumber() != null
+                && request.getReviewType() != null && request.getLoanNumber().matches("^[0-9]{10}$");
+    }
+
+    @Benchmark
+    public boolean schemaTree() {
+        return validator.validate(tree).isValid();
+    }
+
+    @Benchmark
+    public boolean schemaBytes() {
+        return validator.validate(bytes).isValid();
+    }
+
+    @Benchmark
+    public boolean parseThenSchema() throws Exception {
+        return validator.validate(objectMapper.readTree(bytes)).isValid();
+    }
+}
@@ -0,0 +1,114 @@
+package com.ldc.workflow.benchmark;
+
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.ldc.workflow.service.LocalVendPpaEndpoint;
+import com.ldc.workflow.service.VendPpaBatcher;
+import com.ldc.workflow.service.VendPpaClient;
+import com.ldc.workflow.types.LoanAttribute;
+import com.ldc.workflow.util.CircuitBreaker;
+import com.ldc.workflow.util.RetryBudget;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Vend PPA submissions from many concurrent workflows in server mode: each JMH
+ * thread is a workflow submitting one loan and waiting for its result, through
+ * VendPpaBatcher with batching off (one HTTP call per loan) or on (up to 50 loans
+ * per call, 200 ms window).
+ *
+ * The API is the local stub with a fixed per-call latency, a per-item cost and a
+ * limit on the calls it serves at once, so single calls queue behind each other
+ * once the workflows outnumber its workers. Throughput is loans per second, with
+ * the "httpCalls" counter as HTTP calls per second; SampleTime gives the
+ * per-submission p99 to set against the batch window.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(64)
+@Fork(1)
+public class VendPpaBatchingBenchmark {
+
+    @Param({"1", "50"})
+    public int batchSize;
+
+    @Param({"20"})
+    public long latencyMillis;
+
+    @Param({"200"})
+    public long itemMicros;
+
+    @Param({"8"})
+    public int workers;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private LocalVendPpaEndpoint endpoint;
+    private VendPpaBatcher batcher;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public double httpCalls;
+        private int callsAtStart;
+
+        @Setup(Level.Iteration)
+        public void start(VendPpaBatchingBenchmark benchmark) {
+            httpCalls = 0;
+            callsAtStart = benchmark.endpoint.getCallCount();
+        }
+
+        /**
+         * The stub counts calls for all threads; each thread reports its share.
+         */
+        @TearDown(Level.Iteration)
+        public void stop(VendPpaBatchingBenchmark benchmark, ThreadParams threadParams) {
+            httpCalls = (benchmark.endpoint.getCallCount() - callsAtStart) / (double) threadParams.getThreadCount();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME))
+                .setLevel(ch.qos.logback.classic.Level.OFF);
+        endpoint = new LocalVendPpaEndpoint(workers).withLatency(latencyMillis, 0).withItemMicros(itemMicros);
+        VendPpaClient client = new VendPpaClient(endpoint::getEndpoint, Duration.ofSeconds(1),
+                Duration.ofSeconds(10), 3, new RetryBudget(0.2, 10), new CircuitBreaker(50, 10_000));
+        batcher = new VendPpaBatcher(client, batchSize, 200, 8, 3);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        batcher.close();
+        endpoint.close();
+    }
+
+    @Benchmark
+    public JsonNode submit(Counters counters) {
+        long loan = sequence.incrementAndGet();
+        return batcher.submit(new VendPpaClient.Submission("REQ-BENCH", String.format("%010d", loan), 1L,
+                "Approved", "Approved", List.of(new LoanAttribute("Income", "Approved"))), Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,133 @@
+package com.ldc.workflow.business;
+
+import com.ldc.workflow.types.AttributeDecision;
+import com.ldc.workflow.types.LoanAttribute;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DecisionSummary
+ * Tests the one-pass counts and mask, and the checker and determiner rules built on them
+ */
+@DisplayName("DecisionSummary Tests")
+class DecisionSummaryTest {
+
+    private final CompletionCriteriaChecker checker = new CompletionCriteriaChecker();
+    private final LoanStatusDeterminer determiner = new LoanStatusDeterminer();
+
+    @Test
+    @DisplayName("Should count each decision and set its presence bit")
+    void testCountsAndMask() {
+        DecisionSummary summary = DecisionSummary.of(attributes("Approved", "Approved", "Rejected", null, "Pending"));
+
+        assertEquals(5, summary.size());
+        assertEquals(2, summary.count(AttributeDecision.APPROVED));
+        assertEquals(1, summary.count(AttributeDecision.REJECTED));
+        assertEquals(2, summary.count(AttributeDecision.PENDING));
+        assertEquals(AttributeDecision.PENDING.bit() | AttributeDecision.APPROVED.bit()
+                | AttributeDecision.REJECTED.bit(), summary.getMask());
+        assertFalse(summary.has(AttributeDecision.RECLASS));
+        assertFalse(summary.isComplete());
+    }
+
+    @Test
+    @DisplayName("Should count unknown values without treating them as pending")
+    void testUnrecognizedDecision() {
+        DecisionSummary summary = DecisionSummary.of(attributes("Approved", "Escalated"));
+
+        assertEquals(1, summary.getUnrecognized());
+        assertTrue(summary.isComplete());
+        assertFalse(summary.allMatch(AttributeDecision.APPROVED));
+        assertEquals("Approved", determiner.determineStatus(summary));
+    }
+
+    @Test
+    @DisplayName("Should accumulate grouped decision counts into the same summary as the list")
+    void testAccumulator() {
+        DecisionSummary summary = new DecisionSummary.Accumulator()
+                .add("Approved", 2)
+                .add("Rejected", 1)
+                .add(null, 1)
+                .add("Pending", 1)
+                .add("Escalated", 1)
+                .toSummary();
+
+        DecisionSummary fromList = DecisionSummary.of(
+                attributes("Approved", "Approved", "Rejected", null, "Pending", "Escalated"));
+        assertEquals(fromList.toString(), summary.toString());
+        assertEquals(fromList.getMask(), summary.getMask());
+        assertTrue(new DecisionSummary.Accumulator().toSummary().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should treat null and empty attribute lists as empty")
+    void testEmpty() {
+        assertTrue(DecisionSummary.of(null).isEmpty());
+        assertTrue(DecisionSummary.of(List.of()).isEmpty());
+        assertEquals(0, DecisionSummary.of(null).getMask());
+        assertEquals("Unknown", determiner.determineStatus(DecisionSummary.of(null)));
+        assertFalse(checker.isLoanDecisionComplete("Approved", DecisionSummary.of(null)));
+    }
+
+    @Test
+    @DisplayName("Should give the same status and completion as the list-based checks")
+    void testMatchesListBasedRules() {
+        String[] decisions = {null, "Pending", "Approved", "Rejected", "Reclass", "Repurchase"};
+        for (String first : decisions) {
+            for (String second : decisions) {
+                for (String third : decisions) {
+                    List<LoanAttribute> attributes = attributes(first, second, third);
+                    DecisionSummary summary = DecisionSummary.of(attributes);
+                    assertEquals(expectedStatus(attributes), determiner.determineStatus(summary));
+                    assertEquals(attributes.stream().allMatch(a -> a.getAttributeDecision() != null
+                                    && !"Pending".equals(a.getAttributeDecision())),
+                            checker.isLoanDecisionComplete("Approved", summary));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should answer the determiner helpers from the summary")
+    void testDeterminerHelpers() {
+        assertTrue(determiner.areAllApproved(attributes("Approved", "Approved")));
+        assertFalse(determiner.areAllApproved(attributes("Approved", null)));
+        assertTrue(determiner.areAllRejected(attributes("Rejected")));
+        assertTrue(determiner.hasApprovedAndRejected(attributes("Approved", "Rejected", "Pending")));
+        assertTrue(determiner.hasRepurchase(attributes("Approved", "Repurchase")));
+        assertTrue(determiner.hasReclass(attributes("Reclass")));
+        assertFalse(determiner.hasReclass(null));
+    }
+
+    private static String expectedStatus(List<LoanAttribute> attributes) {
+        List<String> values = attributes.stream().map(LoanAttribute::getAttributeDecision).toList();
+        if (values.contains("Repurchase")) {
+            return "Repurchase";
+        }
+        if (values.contains("Reclass")) {
+            return "Reclass Approved";
+        }
+        boolean approved = values.contains("Approved");
+        boolean rejected = values.contains("Rejected");
+        if (approved && rejected) {
+            return "Partially Approved";
+        }
+        if (approved) {
+            return "Approved";
+        }
+        return rejected ? "Rejected" : "Unknown";
+    }
+
+    private static List<LoanAttribute> attributes(String... decisions) {
+        List<LoanAttribute> attributes = new ArrayList<>();
+        for (int i = 0; i < decisions.length; i++) {
+            attributes.add(new LoanAttribute("attribute" + i, decisions[i]));
+        }
+        return attributes;
+    }
+}
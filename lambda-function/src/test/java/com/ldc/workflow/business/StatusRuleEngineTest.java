@@ -0,0 +1,155 @@
+package com.ldc.workflow.business;
+
+import com.ldc.workflow.service.ConfigurationService;
+import com.ldc.workflow.service.configuration.ConfigurationSource;
+import com.ldc.workflow.types.AttributeDecision;
+import com.ldc.workflow.types.LoanAttribute;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for StatusRuleEngine and StatusDecisionTable
+ * Tests table compilation, version-gated hot swap and rejection of bad tables
+ */
+@DisplayName("StatusRuleEngine Tests")
+class StatusRuleEngineTest {
+
+    private static final String PARAMETER = "/ldc-workflow/business_rules/loan_status_decision_table";
+    private static final long CHECK_NANOS = 30_000_000_000L;
+
+    private final Map<String, String> parameters = new ConcurrentHashMap<>();
+    private final AtomicLong now = new AtomicLong();
+    private StatusRuleEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        ConfigurationSource source = new ConfigurationSource() {
+            @Override
+            public String getParameter(String parameterName) {
+                return parameters.get(parameterName);
+            }
+
+            @Override
+            public String name() {
+                return "test";
+            }
+        };
+        ConfigurationService configurationService = new ConfigurationService(source, "/ldc-workflow", 0, 0,
+                now::get);
+        engine = new StatusRuleEngine(configurationService, PARAMETER, CHECK_NANOS, now::get);
+    }
+
+    @Test
+    @DisplayName("Should compile the built-in table to the original priorities")
+    void testBuiltInTable() {
+        StatusDecisionTable table = StatusDecisionTable.defaults();
+
+        assertEquals("Repurchase", table.resolve(mask(AttributeDecision.REPURCHASE, AttributeDecision.RECLASS)));
+        assertEquals("Reclass Approved", table.resolve(mask(AttributeDecision.RECLASS, AttributeDecision.APPROVED)));
+        assertEquals("Partially Approved", table.resolve(mask(AttributeDecision.APPROVED, AttributeDecision.REJECTED)));
+        assertEquals("Approved", table.resolve(mask(AttributeDecision.APPROVED, AttributeDecision.PENDING)));
+        assertEquals("Rejected", table.resolve(mask(AttributeDecision.REJECTED)));
+        assertEquals("Unknown", table.resolve(mask(AttributeDecision.PENDING)));
+        assertTrue(table.getUnreachableRules().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should use the built-in table until a table is published")
+    void testMissingParameterKeepsBuiltIn() {
+        assertEquals("builtin", engine.table().getVersion());
+        assertEquals("Reclass Approved", new LoanStatusDeterminer(engine)
+                .determineStatus(List.of(new LoanAttribute("Income", "Reclass"))));
+    }
+
+    @Test
+    @DisplayName("Should swap in a new version once the check interval has passed")
+    void testHotSwapOnNewVersion() {
+        parameters.put(PARAMETER, table("2", "Partially Processed"));
+        assertEquals("2", engine.table().getVersion());
+        LoanStatusDeterminer determiner = new LoanStatusDeterminer(engine);
+        List<LoanAttribute> mixed = List.of(new LoanAttribute("Income", "Approved"),
+                new LoanAttribute("Credit", "Rejected"));
+        assertEquals("Partially Processed", determiner.determineStatus(mixed));
+
+        parameters.put(PARAMETER, table("3", "Partially Approved"));
+        assertEquals("Partially Processed", determiner.determineStatus(mixed));
+
+        now.addAndGet(CHECK_NANOS);
+        assertEquals("Partially Approved", determiner.determineStatus(mixed));
+        assertEquals("3", engine.table().getVersion());
+    }
+
+    @Test
+    @DisplayName("Should ignore an edited table that keeps its version")
+    void testSameVersionIgnored() {
+        parameters.put(PARAMETER, table("2", "Partially Processed"));
+        engine.table();
+
+        parameters.put(PARAMETER, table("2", "Partially Approved"));
+        assertFalse(engine.checkForUpdate());
+        assertEquals("Partially Processed", engine.table().resolve(
+                mask(AttributeDecision.APPROVED, AttributeDecision.REJECTED)));
+    }
+
+    @Test
+    @DisplayName("Should keep the active table when a new one is invalid")
+    void testInvalidTableRejected() {
+        parameters.put(PARAMETER, table("2", "Partially Processed"));
+        engine.table();
+
+        parameters.put(PARAMETER, "{\"version\": \"3\", \"rules\": [{\"present\": [\"Maybe\"], \"status\": \"X\"}]}");
+        assertFalse(engine.checkForUpdate());
+        parameters.put(PARAMETER, "{\"version\": \"4\", \"rules\": [{\"present\": [\"Approved\"], "
+                + "\"absent\": [\"Approved\"], \"status\": \"X\"}]}");
+        assertFalse(engine.checkForUpdate());
+        parameters.put(PARAMETER, "not json");
+        assertFalse(engine.checkForUpdate());
+
+        assertEquals("2", engine.table().getVersion());
+    }
+
+    @Test
+    @DisplayName("Should support absent conditions and report shadowed rules")
+    void testAbsentConditionAndUnreachableRule() {
+        StatusDecisionTable table = StatusDecisionTable.parse("""
+                {"version": "5", "rules": [
+                  {"present": ["Pending"], "absent": ["Approved", "Rejected"], "status": "Pending Review"},
+                  {"present": ["Approved"], "status": "Approved"},
+                  {"present": ["Approved", "Rejected"], "status": "Never"}
+                ]}
+                """);
+
+        assertEquals("Pending Review", table.resolve(mask(AttributeDecision.PENDING, AttributeDecision.RECLASS)));
+        assertEquals("Approved", table.resolve(mask(AttributeDecision.PENDING, AttributeDecision.APPROVED)));
+        assertEquals("Unknown", table.resolve(mask(AttributeDecision.REJECTED)));
+        assertEquals(List.of(2), table.getUnreachableRules());
+    }
+
+    private static String table(String version, String mixedLabel) {
+        return """
+                {"version": "%s", "rules": [
+                  {"present": ["Repurchase"], "status": "Repurchase"},
+                  {"present": ["Reclass"], "status": "Reclass Approved"},
+                  {"present": ["Approved", "Rejected"], "status": "%s"},
+                  {"present": ["Approved"], "status": "Approved"},
+                  {"present": ["Rejected"], "status": "Rejected"}
+                ], "default": "Unknown"}
+                """.formatted(version, mixedLabel);
+    }
+
+    private static int mask(AttributeDecision... decisions) {
+        int mask = 0;
+        for (AttributeDecision decision : decisions) {
+            mask |= decision.bit();
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,321 @@
+package com.ldc.workflow.handlers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ldc.workflow.business.CompletionCriteriaChecker;
+import com.ldc.workflow.repository.InMemoryDynamoDbClient;
+import com.ldc.workflow.repository.JdbcLoanAttributeSource;
+import com.ldc.workflow.repository.LocalLoanAttributesDatabase;
+import com.ldc.workflow.repository.WorkflowStateRepository;
+import com.ldc.workflow.service.StepFunctionsService;
+import com.ldc.workflow.types.LoanAttribute;
+import com.ldc.workflow.types.WorkflowState;
+import com.ldc.workflow.types.WorkflowStateKey;
+import com.ldc.workflow.util.TokenBucketRateLimiter;
+import com.ldc.workflow.validation.AttributeDecisionValidator;
+import com.ldc.workflow.validation.LoanNumberValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for BulkLoanDecisionUpdateApiHandler
+ * Tests up-front validation, batched persistence and bounded resume
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BulkLoanDecisionUpdateApiHandler Tests")
+class BulkLoanDecisionUpdateApiHandlerTest {
+
+    private static final String TABLE = "ldc-loan-review-state";
+
+    private ObjectMapper objectMapper;
+    private InMemoryDynamoDbClient dynamoDbClient;
+    private WorkflowStateRepository workflowStateRepository;
+    private BulkLoanDecisionUpdateApiHandler handler;
+
+    @Mock
+    private StepFunctionsService stepFunctionsService;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper();
+        dynamoDbClient = new InMemoryDynamoDbClient();
+        workflowStateRepository = new WorkflowStateRepository(dynamoDbClient, TABLE);
+        handler = new BulkLoanDecisionUpdateApiHandler(new AttributeDecisionValidator(), new LoanNumberValidator(),
+                new CompletionCriteriaChecker(), workflowStateRepository, stepFunctionsService,
+                new TokenBucketRateLimiter(10_000, 10_000), 8, 500);
+    }
+
+    @Test
+    @DisplayName("Should update and resume every loan in the batch")
+    void testBulkUpdateResumesAll() {
+        for (int i = 0; i < 60; i++) {
+            seed("REQ-1", loanNumber(i), null);
+        }
+        when(stepFunctionsService.sendTaskSuccessAsync(anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        ObjectNode input = request("Approved");
+        for (int i = 0; i < 60; i++) {
+            addItem(input, "REQ-1", loanNumber(i), "TOKEN-" + i);
+        }
+        JsonNode result = handler.apply(input);
+
+        assertTrue(result.get("success").asBoolean());
+        assertEquals(60, result.get("resumed").asInt());
+        // 1 BatchGetItem + 1 TransactWriteItems for 60 items (plus the 60 seeding puts)
+        assertEquals(62, dynamoDbClient.getCallCount());
+        assertEquals("Approved", workflowStateRepository
+                .findByRequestNumberAndLoanNumber("REQ-1", loanNumber(59)).get().getLoanDecision());
+        verify(stepFunctionsService, times(60)).sendTaskSuccessAsync(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should reject invalid items without writing them and still process valid ones")
+    void testInvalidItemsAreIsolated() {
+        seed("REQ-1", loanNumber(1), null);
+        seed("REQ-1", loanNumber(2), null);
+        when(stepFunctionsService.sendTaskSuccessAsync(anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        ObjectNode input = request("Approved");
+        addItem(input, "REQ-1", loanNumber(1), "TOKEN-1");
+        addItem(input, "REQ-1", "12AB", "TOKEN-X");
+        ObjectNode badDecision = addItem(input, "REQ-1", loanNumber(2), "TOKEN-2");
+        badDecision.putArray("attributes").addObject()
+                .put("attributeName", "creditScore").put("attributeDecision", "Maybe");
+        addItem(input, "REQ-1", loanNumber(1), "TOKEN-1");
+
+        JsonNode result = handler.apply(input);
+
+        assertFalse(result.get("success").asBoolean());
+        assertEquals(1, result.get("resumed").asInt());
+        assertEquals(3, result.get("counts").get("INVALID").asInt());
+        assertTrue(result.get("results").get(3).get("error").asText().contains("Duplicate"));
+        assertNull(workflowStateRepository.findByRequestNumberAndLoanNumber("REQ-1", loanNumber(2))
+                .get().getLoanDecision());
+        verify(stepFunctionsService, times(1)).sendTaskSuccessAsync(eq("TOKEN-1"), anyString());
+    }
+
+    @Test
+    @DisplayName("Should fall back to the stored task token and report missing loans")
+    void testStoredTokenAndMissingLoan() {
+        seed("REQ-1", loanNumber(1), "STORED-TOKEN");
+        seed("REQ-1", loanNumber(2), null);
+        when(stepFunctionsService.sendTaskSuccessAsync(anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        ObjectNode input = request("Rejected");
+        addItem(input, "REQ-1", loanNumber(1), null);
+        addItem(input, "REQ-1", loanNumber(2), null);
+        addItem(input, "REQ-1", loanNumber(3), "TOKEN-3");
+
+        JsonNode results = handler.apply(input).get("results");
+
+        assertEquals("RESUMED", results.get(0).get("status").asText());
+        assertEquals("NO_TASK_TOKEN", results.get(1).get("status").asText());
+        assertEquals("NOT_FOUND", results.get(2).get("status").asText());
+        verify(stepFunctionsService).sendTaskSuccessAsync(eq("STORED-TOKEN"), anyString());
+    }
+
+    @Test
+    @DisplayName("Should save incomplete loans without resuming them")
+    void testIncompleteLoansStayWaiting() {
+        seed("REQ-1", loanNumber(1), "STORED-1");
+        seed("REQ-1", loanNumber(2), "STORED-2");
+        when(stepFunctionsService.sendTaskSuccessAsync(anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        ObjectNode input = request("Approved");
+        addItem(input, "REQ-1", loanNumber(1), null);
+        addItem(input, "REQ-1", loanNumber(2), null).putArray("attributes").addObject()
+                .put("attributeName", "Income").put("attributeDecision", "Pending");
+        JsonNode result = handler.apply(input);
+
+        assertTrue(result.get("success").asBoolean());
+        assertEquals(1, result.get("resumed").asInt());
+        assertEquals(1, result.get("pending").asInt());
+        assertEquals("PENDING_DECISIONS", result.get("results").get(1).get("status").asText());
+        verify(stepFunctionsService).sendTaskSuccessAsync(eq("STORED-1"), anyString());
+        // The consumed token is cleared; the waiting loan keeps its token for the final update
+        assertNull(workflowStateRepository.findByRequestNumberAndLoanNumber("REQ-1", loanNumber(1))
+                .get().getTaskToken());
+        assertEquals("STORED-2", workflowStateRepository.findByRequestNumberAndLoanNumber("REQ-1", loanNumber(2))
+                .get().getTaskToken());
+    }
+
+    @Test
+    @DisplayName("Should judge completion from the attribute source with one read per request")
+    void testCompletionFromAttributeSource() {
+        LocalLoanAttributesDatabase database = new LocalLoanAttributesDatabase();
+        database.put("REQ-1", loanNumber(1), "Income", "Approved");
+        database.put("REQ-1", loanNumber(2), "Income", "Pending");
+        handler = new BulkLoanDecisionUpdateApiHandler(new AttributeDecisionValidator(), new LoanNumberValidator(),
+                new CompletionCriteriaChecker(), workflowStateRepository, stepFunctionsService,
+                new JdbcLoanAttributeSource(database.dataSource(), 5),
+                new TokenBucketRateLimiter(10_000, 10_000), 8, 500);
+        // Both state items say Approved; only the table knows loan 2 is still pending
+        seed("REQ-1", loanNumber(1), "STORED-1");
+        seed("REQ-1", loanNumber(2), "STORED-2");
+        when(stepFunctionsService.sendTaskSuccessAsync(anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        ObjectNode input = request("Approved");
+        addItem(input, "REQ-1", loanNumber(1), null);
+        addItem(input, "REQ-1", loanNumber(2), null);
+        JsonNode result = handler.apply(input);
+
+        assertEquals(1, result.get("resumed").asInt());
+        assertEquals(1, result.get("pending").asInt());
+        assertEquals("PENDING_DECISIONS", result.get("results").get(1).get("status").asText());
+        verify(stepFunctionsService).sendTaskSuccessAsync(eq("STORED-1"), anyString());
+        assertEquals(1, database.getQueryCount());
+    }
+
+    @Test
+    @DisplayName("Should report resume failures per item")
+    void testResumeFailure() {
+        seed("REQ-1", loanNumber(1), null);
+        seed("REQ-1", loanNumber(2), null);
+        when(stepFunctionsService.sendTaskSuccessAsync(eq("TOKEN-1"), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(stepFunctionsService.sendTaskSuccessAsync(eq("TOKEN-2"), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("TaskTimedOut")));
+
+        ObjectNode input = request("Approved");
+        addItem(input, "REQ-1", loanNumber(1), "TOKEN-1");
+        addItem(input, "REQ-1", loanNumber(2), "TOKEN-2");
+        JsonNode result = handler.apply(input);
+
+        assertEquals(1, result.get("counts").get("RESUME_FAILED").asInt());
+        assertEquals("TaskTimedOut", result.get("results").get(1).get("error").asText());
+        // The failed resume keeps its token, so resending the item can resume the execution
+        assertNull(workflowStateRepository.findByRequestNumberAndLoanNumber("REQ-1", loanNumber(1))
+                .get().getTaskToken());
+        assertEquals("TOKEN-2", workflowStateRepository.findByRequestNumberAndLoanNumber("REQ-1", loanNumber(2))
+                .get().getTaskToken());
+    }
+
+    @Test
+    @DisplayName("Should not overwrite a state written between the bulk read and the bulk write")
+    void testConcurrentWriteIsNotOverwritten() {
+        seed("REQ-1", loanNumber(1), null);
+        seed("REQ-1", loanNumber(2), null);
+        WorkflowStateRepository racingRepository = new WorkflowStateRepository(dynamoDbClient, TABLE) {
+            @Override
+            public Map<WorkflowStateKey, WorkflowState> findAll(Collection<WorkflowStateKey> keys) {
+                Map<WorkflowStateKey, WorkflowState> states = super.findAll(keys);
+                // LoanDecisionWaitHandler stores its token after the bulk read
+                saveTaskToken("REQ-1", loanNumber(2), "WAIT-TOKEN");
+                return states;
+            }
+        };
+        handler = new BulkLoanDecisionUpdateApiHandler(new AttributeDecisionValidator(), new LoanNumberValidator(),
+                new CompletionCriteriaChecker(), racingRepository, stepFunctionsService,
+                new TokenBucketRateLimiter(10_000, 10_000), 8, 500);
+        when(stepFunctionsService.sendTaskSuccessAsync(anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        ObjectNode input = request("Approved");
+        addItem(input, "REQ-1", loanNumber(1), "TOKEN-1");
+        addItem(input, "REQ-1", loanNumber(2), "TOKEN-2");
+        JsonNode result = handler.apply(input);
+
+        assertEquals("RESUMED", result.get("results").get(0).get("status").asText());
+        assertEquals("SAVE_FAILED", result.get("results").get(1).get("status").asText());
+        WorkflowState raced = workflowStateRepository.findByRequestNumberAndLoanNumber("REQ-1", loanNumber(2)).get();
+        assertEquals("WAIT-TOKEN", raced.getTaskToken());
+        assertNull(raced.getLoanDecision());
+        assertEquals("Approved", workflowStateRepository.findByRequestNumberAndLoanNumber("REQ-1", loanNumber(1))
+                .get().getLoanDecision());
+        verify(stepFunctionsService, never()).sendTaskSuccessAsync(eq("TOKEN-2"), anyString());
+    }
+
+    @Test
+    @DisplayName("Should never exceed the configured number of in-flight resumes")
+    void testBoundedConcurrency() {
+        for (int i = 0; i < 100; i++) {
+            seed("REQ-1", loanNumber(i), null);
+        }
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(stepFunctionsService.sendTaskSuccessAsync(anyString(), anyString())).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            return CompletableFuture.runAsync(inFlight::decrementAndGet,
+                    CompletableFuture.delayedExecutor(2, TimeUnit.MILLISECONDS));
+        });
+
+        ObjectNode input = request("Approved");
+        for (int i = 0; i < 100; i++) {
+            addItem(input, "REQ-1", loanNumber(i), "TOKEN-" + i);
+        }
+        JsonNode result = handler.apply(input);
+
+        assertEquals(100, result.get("resumed").asInt());
+        assertTrue(maxInFlight.get() <= 8, "max in flight was " + maxInFlight.get());
+    }
+
+    @Test
+    @DisplayName("Should reject an empty or oversized batch")
+    void testBatchLimits() {
+        assertFalse(handler.apply(request("Approved")).get("success").asBoolean());
+
+        BulkLoanDecisionUpdateApiHandler small = new BulkLoanDecisionUpdateApiHandler(new AttributeDecisionValidator(),
+                new LoanNumberValidator(), new CompletionCriteriaChecker(), workflowStateRepository,
+                stepFunctionsService, new TokenBucketRateLimiter(10, 10), 8, 1);
+        ObjectNode input = request("Approved");
+        addItem(input, "REQ-1", loanNumber(1), "T1");
+        addItem(input, "REQ-1", loanNumber(2), "T2");
+        JsonNode result = small.apply(input);
+
+        assertFalse(result.get("success").asBoolean());
+        assertTrue(result.get("error").asText().contains("Too many items"));
+        verifyNoInteractions(stepFunctionsService);
+    }
+
+    private ObjectNode request(String loanDecision) {
+        ObjectNode input = objectMapper.createObjectNode();
+        input.put("loanDecision", loanDecision);
+        input.putArray("items");
+        return input;
+    }
+
+    private ObjectNode addItem(ObjectNode input, String requestNumber, String loanNumber, String taskToken) {
+        ObjectNode item = ((ArrayNode) input.get("items")).addObject()
+                .put("requestNumber", requestNumber)
+                .put("loanNumber", loanNumber);
+        if (taskToken != null) {
+            item.put("taskToken", taskToken);
+        }
+        return item;
+    }
+
+    private void seed(String requestNumber, String loanNumber, String taskToken) {
+        WorkflowState state = new WorkflowState(requestNumber, loanNumber, "LDCReview");
+        state.setExecutionId("ldc-loan-review-" + requestNumber + "-" + loanNumber);
+        state.setTaskToken(taskToken);
+        state.setAttributes(List.of(new LoanAttribute("Income", "Approved")));
+        workflowStateRepository.save(state);
+    }
+
+    private static String loanNumber(int i) {
+        return String.format("%010d", 1_000_000_000L + i);
+    }
+}
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.ldc.workflow.business.CompletionCriteriaChecker;
+import com.ldc.workflow.business.PollIntervalCalculator;
 import com.ldc.workflow.repository.WorkflowStateRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -12,6 +13,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -334,6 +339,43 @@ class CompletionCriteriaHandlerTest {
         assertFalse(result.get("complete").asBoolean());
     }
 
+    @Test
+    @DisplayName("Should back off the next poll the longer the loan has been idle")
+    void testNextPollSecondsGrowsWithIdleTime() {
+        Instant now = Instant.parse("2025-03-03T12:00:00Z");
+        handler = new CompletionCriteriaHandler(completionCriteriaChecker, workflowStateRepository,
+                new PollIntervalCalculator(5, 1800, 1.25, Clock.fixed(now, ZoneOffset.UTC)));
+
+        com.ldc.workflow.types.WorkflowState state = new com.ldc.workflow.types.WorkflowState();
+        state.setCreatedAt(now.minusSeconds(86400).toString());
+        state.setAttributes(List.of());
+        when(workflowStateRepository.findByRequestNumberAndLoanNumber(anyString(), anyString()))
+                .thenReturn(java.util.Optional.of(state));
+
+        // Just changed: poll again at the minimum interval
+        state.setUpdatedAt(now.toString());
+        assertEquals(5, handler.apply(createBaseInput()).get("nextPollSeconds").asInt());
+
+        // Idle for two minutes: 5 + 0.25 * 120
+        state.setUpdatedAt(now.minusSeconds(120).toString());
+        assertEquals(35, handler.apply(createBaseInput()).get("nextPollSeconds").asInt());
+
+        // Never updated since it was created a day ago: capped at the maximum
+        state.setUpdatedAt(null);
+        assertEquals(1800, handler.apply(createBaseInput()).get("nextPollSeconds").asInt());
+    }
+
+    @Test
+    @DisplayName("Should poll at the minimum interval when the state is not found")
+    void testNextPollSecondsWhenStateNotFound() {
+        mockWorkflowStateNotFound();
+
+        JsonNode result = handler.apply(createBaseInput());
+
+        assertFalse(result.get("complete").asBoolean());
+        assertEquals(5, result.get("nextPollSeconds").asInt());
+    }
+
     // Helper methods
     private ObjectNode createBaseInput() {
         ObjectNode input = objectMapper.createObjectNode();
@@ -0,0 +1,155 @@
+package com.ldc.workflow.handlers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ldc.workflow.repository.WorkflowStateRepository;
+import com.ldc.workflow.service.NotificationService;
+import com.ldc.workflow.types.WorkflowState;
+import com.ldc.workflow.types.WorkflowStateKey;
+import com.ldc.workflow.util.InvocationDeadline;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for EmailNotificationHandler
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("EmailNotificationHandler Tests")
+class EmailNotificationHandlerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private WorkflowStateRepository workflowStateRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    private EmailNotificationHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        handler = new EmailNotificationHandler(workflowStateRepository, notificationService,
+                TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @AfterEach
+    void tearDown() {
+        InvocationDeadline.clear();
+    }
+
+    private static WorkflowState state(String loanNumber) {
+        WorkflowState state = new WorkflowState();
+        state.setRequestNumber("REQ-1");
+        state.setLoanNumber(loanNumber);
+        state.setLoanStatus("Repurchase");
+        return state;
+    }
+
+    private ObjectNode input(String loanNumber) {
+        return objectMapper.createObjectNode()
+                .put("requestNumber", "REQ-1")
+                .put("loanNumber", loanNumber);
+    }
+
+    @Test
+    @DisplayName("Should queue the notification and return without waiting in server mode")
+    void testQueuesWithoutWaiting() {
+        when(workflowStateRepository.findByRequestNumberAndLoanNumber("REQ-1", "1000000001"))
+                .thenReturn(Optional.of(state("1000000001")));
+        when(notificationService.notify(eq("repurchase"), any())).thenReturn(new CompletableFuture<>());
+
+        JsonNode result = handler.apply(input("1000000001"));
+
+        assertTrue(result.get("success").asBoolean());
+        assertEquals("QUEUED", result.get("notification").asText());
+        assertEquals("repurchase", result.get("notificationType").asText());
+        verify(notificationService, never()).flush();
+    }
+
+    @Test
+    @DisplayName("Should wait for the send inside a Lambda invocation")
+    void testWaitsInLambda() {
+        InvocationDeadline.begin(10_000);
+        when(workflowStateRepository.findByRequestNumberAndLoanNumber("REQ-1", "1000000001"))
+                .thenReturn(Optional.of(state("1000000001")));
+        when(notificationService.notify(eq("repurchase"), any()))
+                .thenReturn(CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(20,
+                        TimeUnit.MILLISECONDS)));
+
+        JsonNode result = handler.apply(input("1000000001"));
+
+        assertEquals("SENT", result.get("notification").asText());
+        verify(notificationService).flush();
+    }
+
+    @Test
+    @DisplayName("Should report success even when the email could not be sent")
+    void testFailureDoesNotFailWorkflow() {
+        InvocationDeadline.begin(10_000);
+        when(workflowStateRepository.findByRequestNumberAndLoanNumber("REQ-1", "1000000001"))
+                .thenReturn(Optional.of(state("1000000001")));
+        when(notificationService.notify(eq("repurchase"), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Notification queue is full")));
+
+        JsonNode result = handler.apply(input("1000000001"));
+
+        assertTrue(result.get("success").asBoolean());
+        assertEquals("FAILED", result.get("notification").asText());
+        assertEquals("Notification queue is full", result.get("error").asText());
+    }
+
+    @Test
+    @DisplayName("Should skip loans without a workflow state")
+    void testSkipsMissingState() {
+        when(workflowStateRepository.findByRequestNumberAndLoanNumber("REQ-1", "1000000001"))
+                .thenReturn(Optional.empty());
+
+        JsonNode result = handler.apply(input("1000000001"));
+
+        assertTrue(result.get("success").asBoolean());
+        assertEquals("SKIPPED", result.get("notification").asText());
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    @DisplayName("Should read a batch with one batch read and report each loan")
+    void testBatch() {
+        InvocationDeadline.begin(10_000);
+        WorkflowStateKey found = new WorkflowStateKey("REQ-1", "1000000001");
+        when(workflowStateRepository.findAll(anyList())).thenReturn(Map.of(found, state("1000000001")));
+        when(notificationService.notify(eq("repurchase"), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        ObjectNode batch = objectMapper.createObjectNode();
+        batch.putObject("BatchInput").put("handlerType", "emailNotification").put("requestNumber", "REQ-1");
+        batch.putArray("Items").add(objectMapper.createObjectNode().put("loanNumber", "1000000001"))
+                .add(objectMapper.createObjectNode().put("loanNumber", "1000000002"));
+
+        JsonNode result = handler.applyBatch(batch);
+
+        assertTrue(result.get("success").asBoolean());
+        assertEquals(2, result.get("total").asInt());
+        assertEquals(List.of("SENT", "SKIPPED"), List.of(result.at("/items/0/notification").asText(),
+                result.at("/items/1/notification").asText()));
+        verify(workflowStateRepository).findAll(List.of(found, new WorkflowStateKey("REQ-1", "1000000002")));
+        verify(notificationService, times(1)).notify(eq("repurchase"), any());
+    }
+}
@@ -0,0 +1,176 @@
+package com.ldc.workflow.handlers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory stand-in for an SQS queue and the Lambda event source mapping that
+ * drains it, for running SQS consumers offline.
+ *
+ * Models what the consumers depend on: at-least-once delivery, a visibility
+ * timeout, ReportBatchItemFailures (only the reported messages stay on the queue;
+ * a consumer that throws keeps the whole batch), receive counts, and the redrive
+ * to a dead-letter list once a message has been received maxReceiveCount times.
+ * Time comes from the supplied clock so tests can step past the visibility timeout.
+ */
+public class InMemorySqsQueue {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String queueArn;
+    private final long visibilityTimeoutMillis;
+    private final int maxReceiveCount;
+    private final LongSupplier clockMillis;
+
+    private final Map<String, Message> messages = new LinkedHashMap<>();
+    private final List<String> deadLetters = new ArrayList<>();
+    private long deliveries;
+    private long deleted;
+
+    public InMemorySqsQueue(String queueArn, long visibilityTimeoutMillis, int maxReceiveCount,
+                            LongSupplier clockMillis) {
+        this.queueArn = queueArn;
+        this.visibilityTimeoutMillis = visibilityTimeoutMillis;
+        this.maxReceiveCount = maxReceiveCount;
+        this.clockMillis = clockMillis;
+    }
+
+    /**
+     * @return the message id
+     */
+    public synchronized String send(String body) {
+        String messageId = UUID.randomUUID().toString();
+        messages.put(messageId, new Message(messageId, body, clockMillis.getAsLong()));
+        return messageId;
+    }
+
+    /**
+     * Receive up to batchSize visible messages, hand them to the consumer as one SQS
+     * event and delete every message it did not report as a batch item failure.
+     *
+     * @return the number of messages delivered
+     */
+    public int pollOnce(Function<JsonNode, JsonNode> consumer, int batchSize) {
+        List<Message> batch = receive(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        ObjectNode event = objectMapper.createObjectNode();
+        ArrayNode records = event.putArray("Records");
+        for (Message message : batch) {
+            ObjectNode record = records.addObject()
+                    .put("messageId", message.messageId)
+                    .put("receiptHandle", message.messageId + "#" + message.receiveCount)
+                    .put("body", message.body)
+                    .put("eventSource", "aws:sqs")
+                    .put("eventSourceARN", queueArn);
+            record.putObject("attributes")
+                    .put("ApproximateReceiveCount", String.valueOf(message.receiveCount))
+                    .put("SentTimestamp", String.valueOf(message.sentMillis));
+        }
+
+        Set<String> failed = new HashSet<>();
+        try {
+            JsonNode response = consumer.apply(event);
+            for (JsonNode failure : response.path("batchItemFailures")) {
+                failed.add(failure.path("itemIdentifier").asText());
+            }
+        } catch (RuntimeException e) {
+            // The invocation failed: every message becomes visible again after the timeout
+            return batch.size();
+        }
+
+        synchronized (this) {
+            for (Message message : batch) {
+                if (!failed.contains(message.messageId) && messages.remove(message.messageId) != null) {
+                    deleted++;
+                }
+            }
+        }
+        return batch.size();
+    }
+
+    /**
+     * Poll until no message is visible.
+     *
+     * @return the number of messages delivered
+     */
+    public int drain(Function<JsonNode, JsonNode> consumer, int batchSize) {
+        int total = 0;
+        int delivered;
+        while ((delivered = pollOnce(consumer, batchSize)) > 0) {
+            total += delivered;
+        }
+        return total;
+    }
+
+    private synchronized List<Message> receive(int batchSize) {
+        long now = clockMillis.getAsLong();
+        List<Message> batch = new ArrayList<>(batchSize);
+        Iterator<Message> iterator = messages.values().iterator();
+        while (iterator.hasNext() && batch.size() < batchSize) {
+            Message message = iterator.next();
+            if (message.visibleAtMillis > now) {
+                continue;
+            }
+            if (message.receiveCount >= maxReceiveCount) {
+                iterator.remove();
+                deadLetters.add(message.body);
+                continue;
+            }
+            message.receiveCount++;
+            message.visibleAtMillis = now + visibilityTimeoutMillis;
+            deliveries++;
+            batch.add(message);
+        }
+        return batch;
+    }
+
+    /**
+     * Messages still on the queue, visible or in flight.
+     */
+    public synchronized int size() {
+        return messages.size();
+    }
+
+    public synchronized List<String> getDeadLetters() {
+        return new ArrayList<>(deadLetters);
+    }
+
+    public synchronized long getDeliveries() {
+        return deliveries;
+    }
+
+    public synchronized long getDeleted() {
+        return deleted;
+    }
+
+    private static final class Message {
+        final String messageId;
+        final String body;
+        final long sentMillis;
+        int receiveCount;
+        long visibleAtMillis;
+
+        Message(String messageId, String body, long sentMillis) {
+            this.messageId = messageId;
+            this.body = body;
+            this.sentMillis = sentMillis;
+            this.visibleAtMillis = sentMillis;
+        }
+    }
+}
@@ -4,6 +4,10 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ldc.workflow.business.CompletionCriteriaChecker;
+import com.ldc.workflow.business.DecisionSummary;
+import com.ldc.workflow.repository.LoanAttributeSource;
+import com.ldc.workflow.repository.StaleWorkflowStateException;
 import com.ldc.workflow.repository.WorkflowStateRepository;
 import com.ldc.workflow.service.StepFunctionsService;
 import com.ldc.workflow.types.LoanAttribute;
@@ -12,9 +16,12 @@ import com.ldc.workflow.validation.AttributeDecisionValidator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -36,16 +43,19 @@ public class LoanDecisionUpdateApiHandlerTest {
     @Mock
     private StepFunctionsService stepFunctionsService;
 
+    @Mock
+    private LoanAttributeSource attributeSource;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @BeforeEach
     void setUp() {
-        handler = new LoanDecisionUpdateApiHandler(attributeDecisionValidator, workflowStateRepository,
-                stepFunctionsService);
+        handler = new LoanDecisionUpdateApiHandler(attributeDecisionValidator, new CompletionCriteriaChecker(),
+                workflowStateRepository, stepFunctionsService);
 
         // Lenient stubs to prevent unnecessary stubbing errors
         lenient().when(attributeDecisionValidator.isValid(anyString())).thenReturn(true);
-        lenient().doNothing().when(workflowStateRepository).save(any(WorkflowState.class));
+        lenient().doNothing().when(workflowStateRepository).saveDecisions(any(WorkflowState.class), any());
         lenient().doNothing().when(stepFunctionsService).sendTaskSuccess(anyString(), anyString());
     }
 
@@ -62,6 +72,7 @@ public class LoanDecisionUpdateApiHandlerTest {
         WorkflowState state = new WorkflowState();
         state.setRequestNumber("REQ-123");
         state.setExecutionId("EXEC-123");
+        state.setAttributes(List.of(new LoanAttribute("Income", "Approved")));
         when(workflowStateRepository.findByRequestNumberAndLoanNumber("REQ-123", "EXEC-123"))
                 .thenReturn(Optional.of(state));
 
@@ -71,15 +82,184 @@ public class LoanDecisionUpdateApiHandlerTest {
         // Verify
         assertNotNull(result);
         assertTrue(result.get("success").asBoolean());
+        assertTrue(result.get("resumed").asBoolean());
         assertEquals("REQ-123", result.get("requestNumber").asText());
         assertEquals("APPROVED", result.get("loanDecision").asText());
 
         // Verify persistence and SF step
-        verify(workflowStateRepository).save(state);
+        verify(workflowStateRepository).saveDecisions(eq(state), any());
         assertEquals("APPROVED", state.getLoanDecision());
         verify(stepFunctionsService).sendTaskSuccess(eq("TOKEN-123"), anyString());
     }
 
+    @Test
+    void testIncompleteUpdateDoesNotResume() {
+        ObjectNode input = objectMapper.createObjectNode();
+        input.put("requestNumber", "REQ-123");
+        input.put("executionId", "EXEC-123");
+        input.put("loanDecision", "APPROVED");
+
+        WorkflowState state = new WorkflowState("REQ-123", "EXEC-123", "LDCReview");
+        state.setTaskToken("STORED-TOKEN");
+        state.setAttributes(List.of(new LoanAttribute("Income", "Approved"), new LoanAttribute("Asset", "Pending")));
+        when(workflowStateRepository.findByRequestNumberAndLoanNumber("REQ-123", "EXEC-123"))
+                .thenReturn(Optional.of(state));
+
+        JsonNode result = handler.apply(input);
+
+        assertTrue(result.get("success").asBoolean());
+        assertFalse(result.get("resumed").asBoolean());
+        assertTrue(result.get("message").asText().contains("Asset"));
+        verify(workflowStateRepository).saveDecisions(eq(state), any());
+        assertEquals("STORED-TOKEN", state.getTaskToken());
+        verify(stepFunctionsService, never()).sendTaskSuccess(anyString(), anyString());
+    }
+
+    @Test
+    void testCompletingUpdateResumesWithStoredToken() {
+        ObjectNode input = objectMapper.createObjectNode();
+        input.put("requestNumber", "REQ-123");
+        input.put("executionId", "EXEC-123");
+        input.putArray("attributes").addObject()
+                .put("attributeName", "Income").put("attributeDecision", "Approved");
+
+        WorkflowState state = new WorkflowState("REQ-123", "EXEC-123", "LDCReview");
+        state.setLoanDecision("APPROVED");
+        state.setTaskToken("STORED-TOKEN");
+        state.setAttributes(List.of(new LoanAttribute("Income", "Pending")));
+        when(workflowStateRepository.findByRequestNumberAndLoanNumber("REQ-123", "EXEC-123"))
+                .thenReturn(Optional.of(state));
+
+        JsonNode result = handler.apply(input);
+
+        assertTrue(result.get("resumed").asBoolean());
+        // The decision is saved with the token, which is cleared only once the callback is sent
+        InOrder order = inOrder(workflowStateRepository, stepFunctionsService);
+        order.verify(workflowStateRepository).saveDecisions(eq(state), any());
+        order.verify(stepFunctionsService).sendTaskSuccess(eq("STORED-TOKEN"), anyString());
+        order.verify(workflowStateRepository).clearTaskToken("REQ-123", "EXEC-123", "STORED-TOKEN");
+    }
+
+    @Test
+    void testCompletionFromAttributeSource() {
+        handler = new LoanDecisionUpdateApiHandler(attributeDecisionValidator, new CompletionCriteriaChecker(),
+                workflowStateRepository, stepFunctionsService, attributeSource);
+        ObjectNode input = objectMapper.createObjectNode();
+        input.put("requestNumber", "REQ-123");
+        input.put("executionId", "EXEC-123");
+        input.put("loanDecision", "APPROVED");
+
+        WorkflowState state = new WorkflowState("REQ-123", "EXEC-123", "LDCReview");
+        state.setTaskToken("STORED-TOKEN");
+        state.setAttributes(List.of(new LoanAttribute("Income", "Approved")));
+        when(workflowStateRepository.findByRequestNumberAndLoanNumber("REQ-123", "EXEC-123"))
+                .thenReturn(Optional.of(state));
+        when(attributeSource.summarize("REQ-123", "EXEC-123"))
+                .thenReturn(DecisionSummary.of(List.of(new LoanAttribute("Income", "Pending"))));
+
+        // The state item is complete, but the source still has a pending attribute
+        JsonNode result = handler.apply(input);
+
+        assertTrue(result.get("success").asBoolean());
+        assertFalse(result.get("resumed").asBoolean());
+        verify(stepFunctionsService, never()).sendTaskSuccess(anyString(), anyString());
+
+        when(attributeSource.summarize("REQ-123", "EXEC-123"))
+                .thenReturn(DecisionSummary.of(List.of(new LoanAttribute("Income", "Approved"))));
+
+        result = handler.apply(input);
+
+        assertTrue(result.get("resumed").asBoolean());
+        verify(stepFunctionsService).sendTaskSuccess(eq("STORED-TOKEN"), anyString());
+    }
+
+    @Test
+    void testFailedResumeKeepsStoredToken() {
+        ObjectNode input = objectMapper.createObjectNode();
+        input.put("requestNumber", "REQ-123");
+        input.put("executionId", "EXEC-123");
+        input.putArray("attributeUpdates").addObject()
+                .put("attributeName", "Income").put("attributeDecision", "Approved");
+
+        WorkflowState state = new WorkflowState("REQ-123", "EXEC-123", "LDCReview");
+        state.setLoanDecision("APPROVED");
+        state.setTaskToken("STORED-TOKEN");
+        state.setAttributes(List.of(new LoanAttribute("Income", "Pending")));
+        when(workflowStateRepository.findByRequestNumberAndLoanNumber("REQ-123", "EXEC-123"))
+                .thenReturn(Optional.of(state));
+        doThrow(new RuntimeException("Step Functions unavailable"))
+                .doNothing()
+                .when(stepFunctionsService).sendTaskSuccess(anyString(), anyString());
+
+        JsonNode result = handler.apply(input);
+
+        assertFalse(result.get("success").asBoolean());
+        verify(workflowStateRepository).saveDecisions(eq(state), any());
+        assertEquals("STORED-TOKEN", state.getTaskToken());
+        verify(workflowStateRepository, never()).clearTaskToken(anyString(), anyString(), anyString());
+
+        // The same update sent again finds the token and resumes the execution
+        result = handler.apply(input);
+
+        assertTrue(result.get("resumed").asBoolean());
+        verify(stepFunctionsService, times(2)).sendTaskSuccess(eq("STORED-TOKEN"), anyString());
+        verify(workflowStateRepository).clearTaskToken("REQ-123", "EXEC-123", "STORED-TOKEN");
+    }
+
+    @Test
+    void testConcurrentChangeIsReappliedToFreshState() {
+        ObjectNode input = objectMapper.createObjectNode();
+        input.put("requestNumber", "REQ-123");
+        input.put("executionId", "EXEC-123");
+        input.putArray("attributes").addObject()
+                .put("attributeName", "Income").put("attributeDecision", "Approved");
+
+        WorkflowState stale = new WorkflowState("REQ-123", "EXEC-123", "LDCReview");
+        stale.setLoanDecision("APPROVED");
+        stale.setAttributes(List.of(new LoanAttribute("Income", "Pending")));
+        WorkflowState fresh = new WorkflowState("REQ-123", "EXEC-123", "LDCReview");
+        fresh.setLoanDecision("APPROVED");
+        fresh.setTaskToken("STORED-TOKEN");
+        fresh.setAttributes(List.of(new LoanAttribute("Income", "Pending")));
+        when(workflowStateRepository.findByRequestNumberAndLoanNumber("REQ-123", "EXEC-123"))
+                .thenReturn(Optional.of(stale), Optional.of(fresh));
+        doThrow(new StaleWorkflowStateException("REQ-123", "EXEC-123", 1))
+                .when(workflowStateRepository).saveDecisions(eq(stale), any());
+
+        JsonNode result = handler.apply(input);
+
+        assertTrue(result.get("resumed").asBoolean());
+        verify(workflowStateRepository).saveDecisions(eq(fresh), any());
+        verify(stepFunctionsService).sendTaskSuccess(eq("STORED-TOKEN"), anyString());
+    }
+
+    @Test
+    void testTaskOutputIsStateReference() throws Exception {
+        ObjectNode input = objectMapper.createObjectNode();
+        input.put("requestNumber", "REQ-123");
+        input.put("executionId", "EXEC-123");
+        input.put("loanDecision", "APPROVED");
+        input.put("taskToken", "TOKEN-123");
+
+        WorkflowState state = new WorkflowState("REQ-123", "EXEC-123", "LDCReview");
+        state.setVersion(4L);
+        state.setAttributes(List.of(new LoanAttribute("creditScore", "Approved")));
+        when(workflowStateRepository.findByRequestNumberAndLoanNumber("REQ-123", "EXEC-123"))
+                .thenReturn(Optional.of(state));
+
+        new LoanDecisionUpdateApiHandler(attributeDecisionValidator, new CompletionCriteriaChecker(),
+                workflowStateRepository, stepFunctionsService, true).apply(input);
+
+        ArgumentCaptor<String> output = ArgumentCaptor.forClass(String.class);
+        verify(stepFunctionsService).sendTaskSuccess(eq("TOKEN-123"), output.capture());
+        JsonNode reference = objectMapper.readTree(output.getValue());
+        assertEquals("REQ-123", reference.get("requestNumber").asText());
+        assertEquals(4, reference.get("version").asInt());
+        assertEquals("APPROVED", reference.get("loanDecision").asText());
+        assertFalse(reference.has("attributes"));
+        assertFalse(reference.has("stateTransitionHistory"));
+    }
+
     @Test
     void testUpdateWithAttributes() {
         // Prepare input
@@ -126,7 +306,7 @@ public class LoanDecisionUpdateApiHandlerTest {
         // Verify
         assertFalse(result.get("success").asBoolean());
         assertEquals("Workflow state not found", result.get("error").asText());
-        verify(workflowStateRepository, never()).save(any());
+        verify(workflowStateRepository, never()).saveDecisions(any(), any());
         verify(stepFunctionsService, never()).sendTaskSuccess(anyString(), anyString());
     }
 
@@ -155,6 +335,73 @@ public class LoanDecisionUpdateApiHandlerTest {
         // Verify
         assertFalse(result.get("success").asBoolean());
         assertTrue(result.get("error").asText().contains("Invalid attribute decision"));
-        verify(workflowStateRepository, never()).save(any());
+        verify(workflowStateRepository, never()).saveDecisions(any(), any());
+    }
+
+    @Test
+    void testAttributeUpdatesPatchByName() {
+        ObjectNode input = objectMapper.createObjectNode();
+        input.put("requestNumber", "REQ-123");
+        input.put("executionId", "EXEC-123");
+        ArrayNode updates = input.putArray("attributeUpdates");
+        updates.addObject().put("attributeName", "Income").put("attributeDecision", "Approved");
+        updates.addObject().put("attributeName", "Assets").put("attributeDecision", "Pending");
+        updates.addObject().put("attributeName", "CreditScore").put("attributeDecision", "Approved");
+
+        WorkflowState state = new WorkflowState("REQ-123", "EXEC-123", "LDCReview");
+        state.setAttributes(List.of(new LoanAttribute("CreditScore", "Approved"),
+                new LoanAttribute("Income", "Pending")));
+        when(workflowStateRepository.findByRequestNumberAndLoanNumber("REQ-123", "EXEC-123"))
+                .thenReturn(Optional.of(state));
+
+        JsonNode result = handler.apply(input);
+
+        assertTrue(result.get("success").asBoolean());
+        assertEquals(3, state.getAttributes().size());
+        assertEquals("CreditScore", state.getAttributes().get(0).getAttributeName());
+        assertEquals("Approved", state.getAttributes().get(1).getAttributeDecision());
+        assertEquals("Assets", state.getAttributes().get(2).getAttributeName());
+        // The unchanged CreditScore decision is not validated again
+        verify(attributeDecisionValidator).isValid("Approved");
+        verify(attributeDecisionValidator).isValid("Pending");
+        verify(workflowStateRepository).saveDecisions(eq(state), any());
+    }
+
+    @Test
+    void testUnchangedAttributeUpdatesAreNotWritten() {
+        ObjectNode input = objectMapper.createObjectNode();
+        input.put("requestNumber", "REQ-123");
+        input.put("executionId", "EXEC-123");
+        input.putArray("attributeUpdates").addObject()
+                .put("attributeName", "Income").put("attributeDecision", "Pending");
+
+        WorkflowState state = new WorkflowState("REQ-123", "EXEC-123", "LDCReview");
+        state.setAttributes(List.of(new LoanAttribute("Income", "Pending")));
+        when(workflowStateRepository.findByRequestNumberAndLoanNumber("REQ-123", "EXEC-123"))
+                .thenReturn(Optional.of(state));
+
+        JsonNode result = handler.apply(input);
+
+        assertTrue(result.get("success").asBoolean());
+        assertFalse(result.get("resumed").asBoolean());
+        verify(attributeDecisionValidator, never()).isValid(anyString());
+        verify(workflowStateRepository, never()).saveDecisions(any(), any());
+    }
+
+    @Test
+    void testAttributesAndAttributeUpdatesTogetherRejected() {
+        ObjectNode input = objectMapper.createObjectNode();
+        input.put("requestNumber", "REQ-123");
+        input.put("executionId", "EXEC-123");
+        input.putArray("attributes").addObject()
+                .put("attributeName", "Income").put("attributeDecision", "Approved");
+        input.putArray("attributeUpdates").addObject()
+                .put("attributeName", "Income").put("attributeDecision", "Approved");
+
+        JsonNode result = handler.apply(input);
+
+        assertFalse(result.get("success").asBoolean());
+        assertEquals("Send either attributes or attributeUpdates, not both", result.get("error").asText());
+        verifyNoInteractions(workflowStateRepository);
     }
 }
@@ -0,0 +1,159 @@
+package com.ldc.workflow.handlers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ldc.workflow.business.CompletionCriteriaChecker;
+import com.ldc.workflow.business.DecisionSummary;
+import com.ldc.workflow.repository.LoanAttributeSource;
+import com.ldc.workflow.repository.WorkflowStateRepository;
+import com.ldc.workflow.service.StepFunctionsService;
+import com.ldc.workflow.types.LoanAttribute;
+import com.ldc.workflow.types.WorkflowState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for LoanDecisionWaitHandler
+ * Tests task token registration for the callback-driven decision wait
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LoanDecisionWaitHandler Tests")
+class LoanDecisionWaitHandlerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private WorkflowStateRepository workflowStateRepository;
+
+    @Mock
+    private StepFunctionsService stepFunctionsService;
+
+    @Mock
+    private LoanAttributeSource attributeSource;
+
+    private LoanDecisionWaitHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        handler = new LoanDecisionWaitHandler(new CompletionCriteriaChecker(), workflowStateRepository,
+                stepFunctionsService);
+    }
+
+    @Test
+    @DisplayName("Should store the task token and leave the execution waiting")
+    void testRegistersTokenForIncompleteLoan() {
+        when(workflowStateRepository.saveTaskToken("REQ-1", "1234567890", "TOKEN-1"))
+                .thenReturn(Optional.of(state(null, "Pending")));
+
+        JsonNode result = handler.apply(input("TOKEN-1"));
+
+        assertTrue(result.get("success").asBoolean());
+        assertFalse(result.get("complete").asBoolean());
+        verifyNoInteractions(stepFunctionsService);
+    }
+
+    @Test
+    @DisplayName("Should resume immediately when decisions arrived before the wait started")
+    void testResumesAlreadyCompleteLoan() {
+        when(workflowStateRepository.saveTaskToken("REQ-1", "1234567890", "TOKEN-1"))
+                .thenReturn(Optional.of(state("Approved", "Approved")));
+
+        JsonNode result = handler.apply(input("TOKEN-1"));
+
+        assertTrue(result.get("complete").asBoolean());
+        verify(stepFunctionsService).sendTaskSuccess(eq("TOKEN-1"), anyString());
+    }
+
+    @Test
+    @DisplayName("Should judge completion from the attribute source rather than the state item")
+    void testCompletionFromAttributeSource() {
+        handler = new LoanDecisionWaitHandler(new CompletionCriteriaChecker(), workflowStateRepository,
+                stepFunctionsService, attributeSource);
+        when(workflowStateRepository.saveTaskToken("REQ-1", "1234567890", "TOKEN-1"))
+                .thenReturn(Optional.of(state("Approved", "Approved")));
+        when(attributeSource.summarize("REQ-1", "1234567890"))
+                .thenReturn(DecisionSummary.of(List.of(new LoanAttribute("Income", "Pending"))));
+
+        JsonNode result = handler.apply(input("TOKEN-1"));
+
+        // The state item is complete, but the source is not: resuming now would loop back to the wait
+        assertFalse(result.get("complete").asBoolean());
+        verifyNoInteractions(stepFunctionsService);
+
+        when(workflowStateRepository.saveTaskToken("REQ-1", "1234567890", "TOKEN-2"))
+                .thenReturn(Optional.of(state("Approved", "Pending")));
+        when(attributeSource.summarize("REQ-1", "1234567890"))
+                .thenReturn(DecisionSummary.of(List.of(new LoanAttribute("Income", "Approved"))));
+
+        result = handler.apply(input("TOKEN-2"));
+
+        assertTrue(result.get("complete").asBoolean());
+        verify(stepFunctionsService).sendTaskSuccess(eq("TOKEN-2"), anyString());
+    }
+
+    @Test
+    @DisplayName("Should fail the task when there is no workflow state")
+    void testMissingStateFailsTask() {
+        when(workflowStateRepository.saveTaskToken("REQ-1", "1234567890", "TOKEN-1"))
+                .thenReturn(Optional.empty());
+
+        JsonNode result = handler.apply(input("TOKEN-1"));
+
+        assertFalse(result.get("success").asBoolean());
+        verify(stepFunctionsService).sendTaskFailure(eq("TOKEN-1"), eq("WorkflowStateNotFound"), anyString());
+    }
+
+    @Test
+    @DisplayName("Should report storage errors as a retryable task failure")
+    void testStorageErrorFailsTask() {
+        when(workflowStateRepository.saveTaskToken("REQ-1", "1234567890", "TOKEN-1"))
+                .thenThrow(new RuntimeException("Failed to save task token"));
+
+        JsonNode result = handler.apply(input("TOKEN-1"));
+
+        assertFalse(result.get("success").asBoolean());
+        verify(stepFunctionsService).sendTaskFailure(eq("TOKEN-1"), eq(LoanDecisionWaitHandler.WAIT_FAILED_ERROR),
+                anyString());
+    }
+
+    @Test
+    @DisplayName("Should reject input without a task token")
+    void testMissingToken() {
+        JsonNode result = handler.apply(input(null));
+
+        assertFalse(result.get("success").asBoolean());
+        verifyNoInteractions(workflowStateRepository, stepFunctionsService);
+    }
+
+    private ObjectNode input(String taskToken) {
+        ObjectNode input = objectMapper.createObjectNode()
+                .put("handlerType", "loanDecisionWait")
+                .put("requestNumber", "REQ-1")
+                .put("loanNumber", "1234567890");
+        if (taskToken != null) {
+            input.put("taskToken", taskToken);
+        }
+        return input;
+    }
+
+    private static WorkflowState state(String loanDecision, String attributeDecision) {
+        WorkflowState state = new WorkflowState("REQ-1", "1234567890", "LDCReview");
+        state.setLoanDecision(loanDecision);
+        state.setAttributes(List.of(new LoanAttribute("Income", attributeDecision)));
+        state.setVersion(2L);
+        return state;
+    }
+}
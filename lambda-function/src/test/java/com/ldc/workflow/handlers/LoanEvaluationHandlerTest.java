@@ -0,0 +1,201 @@
+package com.ldc.workflow.handlers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ldc.workflow.business.CompletionCriteriaChecker;
+import com.ldc.workflow.business.LoanStatusDeterminer;
+import com.ldc.workflow.repository.InMemoryDynamoDbClient;
+import com.ldc.workflow.repository.JdbcLoanAttributeSource;
+import com.ldc.workflow.repository.LocalLoanAttributesDatabase;
+import com.ldc.workflow.repository.WorkflowStateRepository;
+import com.ldc.workflow.types.LoanAttribute;
+import com.ldc.workflow.types.WorkflowState;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LoanEvaluationHandler
+ * Tests the combined completion and status evaluation
+ */
+@DisplayName("LoanEvaluationHandler Tests")
+class LoanEvaluationHandlerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private InMemoryDynamoDbClient dynamoDbClient;
+    private WorkflowStateRepository repository;
+    private LoanEvaluationHandler handler;
+    private HikariDataSource pool;
+
+    @BeforeEach
+    void setUp() {
+        dynamoDbClient = new InMemoryDynamoDbClient();
+        repository = new WorkflowStateRepository(dynamoDbClient, "ldc-loan-review-state");
+        handler = new LoanEvaluationHandler(new CompletionCriteriaChecker(), new LoanStatusDeterminer(), repository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should return completion and status from a single read")
+    void testCompleteLoanInOneRead() {
+        save("Approved", new LoanAttribute("Income", "Approved"), new LoanAttribute("Credit", "Rejected"));
+        int readsBefore = dynamoDbClient.getReadCount();
+
+        JsonNode result = handler.apply(input());
+
+        assertTrue(result.get("success").asBoolean());
+        assertTrue(result.get("complete").asBoolean());
+        assertEquals("Partially Approved", result.get("status").asText());
+        assertEquals(2, result.get("attributeCount").asInt());
+        assertFalse(result.has("blockingReason"));
+        assertFalse(result.has("nextPollSeconds"));
+        assertEquals(1, dynamoDbClient.getReadCount() - readsBefore);
+    }
+
+    @Test
+    @DisplayName("Should report the blocking reason while decisions are pending")
+    void testIncompleteLoanHasBlockingReason() {
+        save("Approved", new LoanAttribute("Income", "Approved"), new LoanAttribute("Credit", "Pending"));
+
+        JsonNode result = handler.apply(input());
+
+        assertFalse(result.get("complete").asBoolean());
+        assertTrue(result.get("blockingReason").asText().contains("Credit"));
+    }
+
+    @Test
+    @DisplayName("Should report reclass status so the confirmation loop can branch on it")
+    void testReclassStatus() {
+        save("Approved", new LoanAttribute("Income", "Reclass"));
+
+        JsonNode result = handler.apply(input());
+
+        assertTrue(result.get("complete").asBoolean());
+        assertEquals("Reclass Approved", result.get("status").asText());
+    }
+
+    @Test
+    @DisplayName("Should fail when the workflow state does not exist")
+    void testMissingState() {
+        JsonNode result = handler.apply(input());
+
+        assertFalse(result.get("success").asBoolean());
+        assertEquals("Workflow state not found", result.get("error").asText());
+    }
+
+    @Test
+    @DisplayName("Should evaluate from the loan_attributes table when attributes come from PostgreSQL")
+    void testEvaluatesFromAttributeSource() {
+        // The state item still says Pending; the table is the source of truth
+        save("Approved", new LoanAttribute("Income", "Pending"), new LoanAttribute("Credit", "Pending"));
+        LocalLoanAttributesDatabase database = new LocalLoanAttributesDatabase();
+        database.put("REQ-1", "1234567890", "Income", "Approved");
+        database.put("REQ-1", "1234567890", "Credit", "Repurchase");
+        database.put("REQ-1", "1234567890", "Title", null);
+        pool = database.pool(1);
+        handler = new LoanEvaluationHandler(new CompletionCriteriaChecker(), new LoanStatusDeterminer(), repository,
+                new JdbcLoanAttributeSource(pool, 5));
+
+        JsonNode result = handler.apply(input());
+
+        assertTrue(result.get("success").asBoolean());
+        assertFalse(result.get("complete").asBoolean());
+        assertEquals(3, result.get("attributeCount").asInt());
+        assertEquals("1 of 3 attributes are incomplete (Pending or null)", result.get("blockingReason").asText());
+
+        database.put("REQ-1", "1234567890", "Title", "Approved");
+        result = handler.apply(input());
+
+        assertTrue(result.get("complete").asBoolean());
+        assertEquals("Repurchase", result.get("status").asText());
+        assertEquals(1, database.getConnectionCount());
+    }
+
+    @Test
+    @DisplayName("Should evaluate a batch of loans from one batch read")
+    void testBatch() {
+        save("Approved", new LoanAttribute("Income", "Approved"), new LoanAttribute("Credit", "Approved"));
+        save("1234567891", "Approved", new LoanAttribute("Income", "Pending"));
+
+        JsonNode result = handler.applyBatch(batch("1234567890", "1234567891", "1234567899"));
+
+        assertTrue(result.get("success").asBoolean());
+        assertEquals(3, result.get("total").asInt());
+        JsonNode items = result.get("items");
+        assertTrue(items.get(0).get("complete").asBoolean());
+        assertEquals("Approved", items.get(0).get("status").asText());
+        assertFalse(items.get(1).get("complete").asBoolean());
+        assertTrue(items.get(1).has("blockingReason"));
+        assertFalse(items.get(2).get("success").asBoolean());
+    }
+
+    @Test
+    @DisplayName("Should summarize a batch of loans with one query against the attribute source")
+    void testBatchFromAttributeSource() {
+        save("Approved", new LoanAttribute("Income", "Pending"));
+        save("1234567891", "Approved", new LoanAttribute("Income", "Pending"));
+        LocalLoanAttributesDatabase database = new LocalLoanAttributesDatabase();
+        database.put("REQ-1", "1234567890", "Income", "Approved");
+        database.put("REQ-1", "1234567890", "Credit", "Rejected");
+        database.put("REQ-1", "1234567891", "Income", null);
+        pool = database.pool(1);
+        handler = new LoanEvaluationHandler(new CompletionCriteriaChecker(), new LoanStatusDeterminer(), repository,
+                new JdbcLoanAttributeSource(pool, 5));
+
+        JsonNode result = handler.applyBatch(batch("1234567890", "1234567891"));
+
+        JsonNode items = result.get("items");
+        assertTrue(items.get(0).get("complete").asBoolean());
+        assertEquals("Partially Approved", items.get(0).get("status").asText());
+        assertEquals(2, items.get(0).get("attributeCount").asInt());
+        assertFalse(items.get(1).get("complete").asBoolean());
+        assertEquals("1 of 1 attributes are incomplete (Pending or null)",
+                items.get(1).get("blockingReason").asText());
+        assertEquals(1, database.getQueryCount());
+    }
+
+    private void save(String loanDecision, LoanAttribute... attributes) {
+        save("1234567890", loanDecision, attributes);
+    }
+
+    private void save(String loanNumber, String loanDecision, LoanAttribute... attributes) {
+        WorkflowState state = new WorkflowState("REQ-1", loanNumber, "LDCReview");
+        state.setLoanDecision(loanDecision);
+        state.setAttributes(List.of(attributes));
+        repository.save(state);
+    }
+
+    private ObjectNode input() {
+        return objectMapper.createObjectNode()
+                .put("handlerType", "evaluateLoan")
+                .put("requestNumber", "REQ-1")
+                .put("loanNumber", "1234567890");
+    }
+
+    private ObjectNode batch(String... loanNumbers) {
+        ObjectNode batch = objectMapper.createObjectNode();
+        batch.putObject("BatchInput")
+                .put("handlerType", "evaluateLoan")
+                .put("requestNumber", "REQ-1");
+        ArrayNode items = batch.putArray("Items");
+        for (String loanNumber : loanNumbers) {
+            items.addObject().put("loanNumber", loanNumber);
+        }
+        return batch;
+    }
+}
@@ -2,6 +2,7 @@ package com.ldc.workflow.handlers;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -15,6 +16,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -36,12 +39,27 @@ class LoanReviewRouterTest {
     @Mock
     private LoanStatusDeterminationHandler loanStatusDeterminationHandler;
 
+    @Mock
+    private LoanEvaluationHandler loanEvaluationHandler;
+
+    @Mock
+    private EmailNotificationHandler emailNotificationHandler;
+
     @Mock
     private VendPpaIntegrationHandler vendPpaIntegrationHandler;
 
     @Mock
     private AuditTrailHandler auditTrailHandler;
 
+    @Mock
+    private ReclassConfirmationHandler reclassConfirmationHandler;
+
+    @Mock
+    private VendPpaEnqueueHandler vendPpaEnqueueHandler;
+
+    @Mock
+    private VendPpaOutboxHandler vendPpaOutboxHandler;
+
     @InjectMocks
     private LoanReviewRouter router;
 
@@ -107,6 +125,144 @@ class LoanReviewRouterTest {
         assertEquals("Approved", result.get("status").asText());
     }
 
+    @Test
+    @DisplayName("Should route to evaluateLoan handler")
+    void testRouteToEvaluateLoan() {
+        // Arrange
+        ObjectNode input = objectMapper.createObjectNode();
+        input.put("handlerType", "evaluateLoan");
+
+        ObjectNode mockResponse = objectMapper.createObjectNode();
+        mockResponse.put("complete", true);
+        mockResponse.put("status", "Approved");
+        when(loanEvaluationHandler.apply(any())).thenReturn(mockResponse);
+
+        // Act
+        JsonNode result = router.apply(input);
+
+        // Assert
+        assertTrue(result.get("complete").asBoolean());
+        assertEquals("Approved", result.get("status").asText());
+    }
+
+    @Test
+    @DisplayName("Should hand an ItemBatcher payload to the batch entry point")
+    void testRouteBatchToReviewTypeValidation() {
+        // Arrange
+        ObjectNode input = objectMapper.createObjectNode();
+        input.putObject("BatchInput").put("handlerType", "reviewTypeValidation");
+        input.putArray("Items").addObject().put("LoanNumber", "1000000001");
+
+        ObjectNode mockResponse = objectMapper.createObjectNode();
+        mockResponse.put("accepted", 1);
+        when(reviewTypeValidationHandler.applyBatch(any())).thenReturn(mockResponse);
+
+        // Act
+        JsonNode result = router.apply(input);
+
+        // Assert
+        assertEquals(1, result.get("accepted").asInt());
+    }
+
+    @Test
+    @DisplayName("Should hand a Vend PPA ItemBatcher payload to the batch entry point")
+    void testRouteBatchToVendPpaIntegration() {
+        // Arrange
+        ObjectNode input = objectMapper.createObjectNode();
+        input.putObject("BatchInput").put("handlerType", "vendPpaIntegration");
+        input.putArray("Items").addObject().put("loanNumber", "1000000001");
+
+        ObjectNode mockResponse = objectMapper.createObjectNode();
+        mockResponse.put("total", 1);
+        when(vendPpaIntegrationHandler.applyBatch(any())).thenReturn(mockResponse);
+
+        // Act
+        JsonNode result = router.apply(input);
+
+        // Assert
+        assertEquals(1, result.get("total").asInt());
+        verify(vendPpaIntegrationHandler, never()).apply(any());
+    }
+
+    @Test
+    @DisplayName("Should route claim check confirmation to the review type validation handler")
+    void testRouteToConfirmClaimCheck() {
+        // Arrange
+        ObjectNode input = objectMapper.createObjectNode();
+        input.put("handlerType", "confirmClaimCheck");
+        input.put("requestNumber", "REQ-001");
+        input.put("loanNumber", "1000000001");
+        input.put("version", 1);
+
+        ObjectNode mockResponse = objectMapper.createObjectNode();
+        mockResponse.put("success", true);
+        when(reviewTypeValidationHandler.confirmClaimCheck(any())).thenReturn(mockResponse);
+
+        // Act
+        JsonNode result = router.apply(input);
+
+        // Assert
+        assertTrue(result.get("success").asBoolean());
+        verify(reviewTypeValidationHandler, never()).apply(any());
+    }
+
+    @Test
+    @DisplayName("Should route batch input to the loan evaluation batch mode")
+    void testRouteBatchToEvaluateLoan() {
+        // Arrange
+        ObjectNode input = objectMapper.createObjectNode();
+        input.putObject("BatchInput").put("handlerType", "evaluateLoan").put("requestNumber", "REQ-001");
+        input.putArray("Items").addObject().put("loanNumber", "1000000001");
+
+        ObjectNode mockResponse = objectMapper.createObjectNode();
+        mockResponse.put("total", 1);
+        when(loanEvaluationHandler.applyBatch(any())).thenReturn(mockResponse);
+
+        // Act
+        JsonNode result = router.apply(input);
+
+        // Assert
+        assertEquals(1, result.get("total").asInt());
+        verify(loanEvaluationHandler, never()).apply(any());
+    }
+
+    @Test
+    @DisplayName("Should reject batches for handlers without a batch mode")
+    void testRejectUnsupportedBatch() {
+        // Arrange
+        ObjectNode input = objectMapper.createObjectNode();
+        input.putObject("BatchInput").put("handlerType", "auditTrail");
+        input.putArray("Items");
+
+        // Act
+        JsonNode result = router.apply(input);
+
+        // Assert
+        assertFalse(result.get("success").asBoolean());
+        assertTrue(result.get("error").asText().contains("Batch mode not supported"));
+    }
+
+    @Test
+    @DisplayName("Should route to emailNotification handler")
+    void testRouteToEmailNotification() {
+        // Arrange
+        ObjectNode input = objectMapper.createObjectNode();
+        input.put("handlerType", "emailNotification");
+        input.put("loanNumber", "1000000001");
+
+        ObjectNode mockResponse = objectMapper.createObjectNode();
+        mockResponse.put("success", true);
+        mockResponse.put("notification", "QUEUED");
+        when(emailNotificationHandler.apply(any())).thenReturn(mockResponse);
+
+        // Act
+        JsonNode result = router.apply(input);
+
+        // Assert
+        assertTrue(result.get("success").asBoolean());
+        assertEquals("QUEUED", result.get("notification").asText());
+    }
+
     @Test
     @DisplayName("Should route to vendPpaIntegration handler")
     void testRouteToVendPpaIntegration() {
@@ -125,6 +281,24 @@ class LoanReviewRouterTest {
         assertTrue(result.get("success").asBoolean());
     }
 
+    @Test
+    @DisplayName("Should route to vendPpaEnqueue handler")
+    void testRouteToVendPpaEnqueue() {
+        // Arrange
+        ObjectNode input = objectMapper.createObjectNode();
+        input.put("handlerType", "vendPpaEnqueue");
+
+        ObjectNode mockResponse = objectMapper.createObjectNode();
+        mockResponse.put("success", true);
+        when(vendPpaEnqueueHandler.apply(any())).thenReturn(mockResponse);
+
+        // Act
+        JsonNode result = router.apply(input);
+
+        // Assert
+        assertTrue(result.get("success").asBoolean());
+    }
+
     @Test
     @DisplayName("Should route to auditTrail handler")
     void testRouteToAuditTrail() {
@@ -249,4 +423,55 @@ class LoanReviewRouterTest {
         assertFalse(result.get("success").asBoolean());
         assertTrue(result.has("error"));
     }
+
+    @Test
+    @DisplayName("Should route SQS events to the reclass confirmation handler")
+    void testRouteSqsEvent() {
+        // Arrange
+        ObjectNode event = objectMapper.createObjectNode();
+        event.putArray("Records").addObject().put("messageId", "m-1").put("body", "{}");
+        JsonNode expected = objectMapper.createObjectNode().set("batchItemFailures", objectMapper.createArrayNode());
+        when(reclassConfirmationHandler.apply(event)).thenReturn(expected);
+
+        // Act
+        JsonNode result = router.apply(event);
+
+        // Assert
+        assertEquals(expected, result);
+        verify(reclassConfirmationHandler).apply(event);
+    }
+
+    @Test
+    @DisplayName("Should fail every message of an SQS event it cannot handle")
+    void testSqsEventWithoutHandler() {
+        // Arrange
+        ObjectNode event = objectMapper.createObjectNode();
+        ArrayNode records = event.putArray("Records");
+        records.addObject().put("messageId", "m-1").put("body", "{}");
+        records.addObject().put("messageId", "m-2").put("body", "{}");
+
+        // Act
+        JsonNode result = new LoanReviewRouter().apply(event);
+
+        // Assert
+        assertEquals(2, result.get("batchItemFailures").size());
+        assertEquals("m-2", result.get("batchItemFailures").get(1).get("itemIdentifier").asText());
+    }
+
+    @Test
+    @DisplayName("Should route DynamoDB stream events to the Vend PPA outbox handler")
+    void testRouteDynamoDbStreamEvent() {
+        // Arrange
+        ObjectNode event = objectMapper.createObjectNode();
+        event.putArray("Records").addObject().put("eventSource", "aws:dynamodb").put("eventName", "INSERT");
+        JsonNode expected = objectMapper.createObjectNode().set("batchItemFailures", objectMapper.createArrayNode());
+        when(vendPpaOutboxHandler.apply(event)).thenReturn(expected);
+
+        // Act
+        JsonNode result = router.apply(event);
+
+        // Assert
+        assertEquals(expected, result);
+        verify(vendPpaOutboxHandler).apply(event);
+    }
 }
@@ -0,0 +1,243 @@
+package com.ldc.workflow.handlers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ldc.workflow.business.CompletionCriteriaChecker;
+import com.ldc.workflow.business.LoanStatusDeterminer;
+import com.ldc.workflow.repository.InMemoryDynamoDbClient;
+import com.ldc.workflow.repository.WorkflowStateRepository;
+import com.ldc.workflow.service.StepFunctionsService;
+import com.ldc.workflow.types.LoanAttribute;
+import com.ldc.workflow.types.WorkflowState;
+import com.ldc.workflow.validation.AttributeDecisionValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ReclassConfirmationHandler
+ * Tests SQS batch processing, partial batch failures and redelivery through the queue stand-in
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ReclassConfirmationHandler Tests")
+class ReclassConfirmationHandlerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private StepFunctionsService stepFunctionsService;
+
+    private WorkflowStateRepository repository;
+    private ReclassConfirmationHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        repository = new WorkflowStateRepository(new InMemoryDynamoDbClient(), "ldc-loan-review-state");
+        handler = new ReclassConfirmationHandler(new AttributeDecisionValidator(), new CompletionCriteriaChecker(),
+                new LoanStatusDeterminer(), repository, stepFunctionsService);
+    }
+
+    @Test
+    @DisplayName("Should apply the confirmation and resume the execution through its stored token")
+    void testConfirmationResumesExecution() {
+        save("1234567890", "TOKEN-1");
+        when(stepFunctionsService.sendTaskSuccessAsync(eq("TOKEN-1"), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        JsonNode result = handler.apply(event(
+                record("m-1", confirmation("1234567890", "Approved", "Income", "Credit"))));
+
+        assertEquals(0, result.get("batchItemFailures").size());
+        WorkflowState state = repository.findByRequestNumberAndLoanNumber("REQ-1", "1234567890").orElseThrow();
+        assertNull(state.getTaskToken());
+        assertEquals("Approved", state.getAttributes().get(0).getAttributeDecision());
+        assertEquals("Approved", state.getAttributes().get(1).getAttributeDecision());
+    }
+
+    @Test
+    @DisplayName("Should re-apply a confirmation over a token stored after the read, and resume with it")
+    void testTokenStoredDuringConfirmation() {
+        AtomicInteger reads = new AtomicInteger();
+        WorkflowStateRepository racingRepository = new WorkflowStateRepository(new InMemoryDynamoDbClient(),
+                "ldc-loan-review-state") {
+            @Override
+            public Optional<WorkflowState> findByRequestNumberAndLoanNumber(String requestNumber, String loanNumber) {
+                Optional<WorkflowState> state = super.findByRequestNumberAndLoanNumber(requestNumber, loanNumber);
+                if (reads.incrementAndGet() == 1) {
+                    // ReclassConfirmationWaitHandler stores its token after the first read
+                    saveTaskToken(requestNumber, loanNumber, "TOKEN-1");
+                }
+                return state;
+            }
+        };
+        repository = racingRepository;
+        save("1234567890", null);
+        handler = new ReclassConfirmationHandler(new AttributeDecisionValidator(), new CompletionCriteriaChecker(),
+                new LoanStatusDeterminer(), racingRepository, stepFunctionsService);
+        when(stepFunctionsService.sendTaskSuccessAsync(eq("TOKEN-1"), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        JsonNode result = handler.apply(event(
+                record("m-1", confirmation("1234567890", "Approved", "Income", "Credit"))));
+
+        assertEquals(0, result.get("batchItemFailures").size());
+        assertEquals(2, reads.get());
+        verify(stepFunctionsService).sendTaskSuccessAsync(eq("TOKEN-1"), anyString());
+        assertNull(repository.findByRequestNumberAndLoanNumber("REQ-1", "1234567890").orElseThrow().getTaskToken());
+    }
+
+    @Test
+    @DisplayName("Should keep waiting while the loan still resolves to Reclass Approved")
+    void testPartialConfirmationKeepsWaiting() {
+        save("1234567890", "TOKEN-1");
+
+        JsonNode result = handler.apply(event(record("m-1", confirmation("1234567890", "Approved", "Credit"))));
+
+        assertEquals(0, result.get("batchItemFailures").size());
+        assertEquals("TOKEN-1", repository.findByRequestNumberAndLoanNumber("REQ-1", "1234567890")
+                .orElseThrow().getTaskToken());
+        verifyNoInteractions(stepFunctionsService);
+    }
+
+    @Test
+    @DisplayName("Should report only the messages that failed")
+    void testPartialBatchFailure() {
+        save("1234567890", null);
+
+        JsonNode result = handler.apply(event(
+                record("ok", confirmation("1234567890", "Approved", "Income", "Credit")),
+                record("malformed", "{not json"),
+                record("unknown-loan", confirmation("9999999999", "Approved", "Income", "Credit")),
+                record("bad-decision", confirmation("1234567890", "Maybe", "Income"))));
+
+        List<String> failed = failedIds(result);
+        assertEquals(List.of("malformed", "unknown-loan", "bad-decision"), failed);
+        verifyNoInteractions(stepFunctionsService);
+    }
+
+    @Test
+    @DisplayName("Should fail later messages for a loan once one of its messages fails")
+    void testFailedLoanKeepsOrder() {
+        save("1234567890", null);
+
+        JsonNode result = handler.apply(event(
+                record("first", confirmation("1234567890", "Maybe", "Income")),
+                record("second", confirmation("1234567890", "Approved", "Income", "Credit"))));
+
+        assertEquals(List.of("first", "second"), failedIds(result));
+        assertEquals("Reclass", repository.findByRequestNumberAndLoanNumber("REQ-1", "1234567890")
+                .orElseThrow().getAttributes().get(0).getAttributeDecision());
+    }
+
+    @Test
+    @DisplayName("Should restore the token and redeliver through the queue when the resume fails")
+    void testRedeliveryAfterResumeFailure() {
+        save("1234567890", "TOKEN-1");
+        when(stepFunctionsService.sendTaskSuccessAsync(eq("TOKEN-1"), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new StepFunctionsService.StepFunctionsException(
+                        "SendTaskSuccess", 400, "ThrottlingException", "Rate exceeded", true, null)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        AtomicLong now = new AtomicLong();
+        InMemorySqsQueue queue = new InMemorySqsQueue("arn:aws:sqs:us-east-1:000000000000:reclass", 30_000, 5,
+                now::get);
+        queue.send(confirmation("1234567890", "Approved", "Income", "Credit"));
+
+        queue.drain(handler, 10);
+        assertEquals(1, queue.size());
+        assertEquals("TOKEN-1", repository.findByRequestNumberAndLoanNumber("REQ-1", "1234567890")
+                .orElseThrow().getTaskToken());
+
+        now.addAndGet(30_000);
+        queue.drain(handler, 10);
+        assertEquals(0, queue.size());
+        assertEquals(2, queue.getDeliveries());
+        verify(stepFunctionsService, times(2)).sendTaskSuccessAsync(eq("TOKEN-1"), anyString());
+        assertNull(repository.findByRequestNumberAndLoanNumber("REQ-1", "1234567890").orElseThrow().getTaskToken());
+    }
+
+    @Test
+    @DisplayName("Should treat a timed-out token as done")
+    void testTimedOutTokenIsNotRetried() {
+        save("1234567890", "TOKEN-1");
+        when(stepFunctionsService.sendTaskSuccessAsync(eq("TOKEN-1"), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new StepFunctionsService.StepFunctionsException(
+                        "SendTaskSuccess", 400, "TaskTimedOut", "Task Timed Out", false, null)));
+
+        JsonNode result = handler.apply(event(
+                record("m-1", confirmation("1234567890", "Approved", "Income", "Credit"))));
+
+        assertEquals(0, result.get("batchItemFailures").size());
+    }
+
+    @Test
+    @DisplayName("Should move a message that keeps failing to the dead-letter queue")
+    void testDeadLetter() {
+        AtomicLong now = new AtomicLong();
+        InMemorySqsQueue queue = new InMemorySqsQueue("arn:aws:sqs:us-east-1:000000000000:reclass", 30_000, 3,
+                now::get);
+        queue.send(confirmation("9999999999", "Approved", "Income", "Credit"));
+
+        for (int i = 0; i < 4; i++) {
+            queue.drain(handler, 10);
+            now.addAndGet(30_000);
+        }
+
+        assertEquals(0, queue.size());
+        assertEquals(3, queue.getDeliveries());
+        assertEquals(1, queue.getDeadLetters().size());
+    }
+
+    private void save(String loanNumber, String taskToken) {
+        WorkflowState state = new WorkflowState("REQ-1", loanNumber, "LDCReview");
+        state.setLoanDecision("Approved");
+        state.setAttributes(List.of(new LoanAttribute("Income", "Reclass"), new LoanAttribute("Credit", "Reclass")));
+        state.setTaskToken(taskToken);
+        repository.save(state);
+    }
+
+    private String confirmation(String loanNumber, String decision, String... attributeNames) {
+        ObjectNode body = objectMapper.createObjectNode()
+                .put("requestNumber", "REQ-1")
+                .put("loanNumber", loanNumber);
+        ArrayNode attributes = body.putArray("attributes");
+        for (String attributeName : attributeNames) {
+            attributes.addObject()
+                    .put("attributeName", attributeName)
+                    .put("attributeDecision", decision);
+        }
+        return body.toString();
+    }
+
+    private ObjectNode record(String messageId, String body) {
+        return objectMapper.createObjectNode().put("messageId", messageId).put("body", body);
+    }
+
+    private JsonNode event(ObjectNode... records) {
+        ObjectNode event = objectMapper.createObjectNode();
+        ArrayNode array = event.putArray("Records");
+        for (ObjectNode record : records) {
+            array.add(record);
+        }
+        return event;
+    }
+
+    private static List<String> failedIds(JsonNode result) {
+        return result.get("batchItemFailures").findValuesAsText("itemIdentifier");
+    }
+}
@@ -0,0 +1,102 @@
+package com.ldc.workflow.handlers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ldc.workflow.business.LoanStatusDeterminer;
+import com.ldc.workflow.repository.WorkflowStateRepository;
+import com.ldc.workflow.service.StepFunctionsService;
+import com.ldc.workflow.types.LoanAttribute;
+import com.ldc.workflow.types.WorkflowState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ReclassConfirmationWaitHandler
+ * Tests task token registration for the callback-driven reclass confirmation wait
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ReclassConfirmationWaitHandler Tests")
+class ReclassConfirmationWaitHandlerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private WorkflowStateRepository workflowStateRepository;
+
+    @Mock
+    private StepFunctionsService stepFunctionsService;
+
+    private ReclassConfirmationWaitHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        handler = new ReclassConfirmationWaitHandler(new LoanStatusDeterminer(), workflowStateRepository,
+                stepFunctionsService);
+    }
+
+    @Test
+    @DisplayName("Should store the task token while the reclass is unconfirmed")
+    void testRegistersTokenForReclass() {
+        when(workflowStateRepository.saveTaskToken("REQ-1", "1234567890", "TOKEN-1"))
+                .thenReturn(Optional.of(state("Reclass")));
+
+        JsonNode result = handler.apply(input());
+
+        assertTrue(result.get("success").asBoolean());
+        assertFalse(result.get("confirmed").asBoolean());
+        verifyNoInteractions(stepFunctionsService);
+    }
+
+    @Test
+    @DisplayName("Should resume immediately when the confirmation arrived before the wait started")
+    void testResumesAlreadyConfirmedLoan() {
+        when(workflowStateRepository.saveTaskToken("REQ-1", "1234567890", "TOKEN-1"))
+                .thenReturn(Optional.of(state("Approved")));
+
+        JsonNode result = handler.apply(input());
+
+        assertTrue(result.get("confirmed").asBoolean());
+        verify(stepFunctionsService).sendTaskSuccess(eq("TOKEN-1"), anyString());
+    }
+
+    @Test
+    @DisplayName("Should fail the task when there is no workflow state")
+    void testMissingStateFailsTask() {
+        when(workflowStateRepository.saveTaskToken("REQ-1", "1234567890", "TOKEN-1"))
+                .thenReturn(Optional.empty());
+
+        JsonNode result = handler.apply(input());
+
+        assertFalse(result.get("success").asBoolean());
+        verify(stepFunctionsService).sendTaskFailure(eq("TOKEN-1"), eq("WorkflowStateNotFound"), anyString());
+    }
+
+    private ObjectNode input() {
+        return objectMapper.createObjectNode()
+                .put("handlerType", "reclassConfirmationWait")
+                .put("requestNumber", "REQ-1")
+                .put("loanNumber", "1234567890")
+                .put("taskToken", "TOKEN-1");
+    }
+
+    private static WorkflowState state(String attributeDecision) {
+        WorkflowState state = new WorkflowState("REQ-1", "1234567890", "LDCReview");
+        state.setLoanDecision("Approved");
+        state.setAttributes(List.of(new LoanAttribute("Income", attributeDecision)));
+        state.setVersion(2L);
+        return state;
+    }
+}
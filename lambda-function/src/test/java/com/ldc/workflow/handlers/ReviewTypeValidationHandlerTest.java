@@ -279,4 +279,95 @@ class ReviewTypeValidationHandlerTest {
         // Assert
         assertFalse(result.get("success").asBoolean());
     }
+
+    @Test
+    @DisplayName("Should validate and persist a whole item batch with one saveAll")
+    void testBatchValidatesAndPersists() {
+        ObjectNode batch = objectMapper.createObjectNode();
+        batch.putObject("BatchInput")
+                .put("handlerType", "reviewTypeValidation")
+                .put("RequestNumber", "REQ-BULK");
+        var items = batch.putArray("Items");
+        items.addObject().put("LoanNumber", "1000000001").put("ReviewType", "LDC");
+        items.addObject().put("LoanNumber", "1000000002").put("ReviewType", "Conduit");
+        items.addObject().put("LoanNumber", "BAD").put("ReviewType", "LDC");
+        items.addObject().put("LoanNumber", "1000000004").put("ReviewType", "Unknown");
+
+        org.mockito.ArgumentCaptor<java.util.Collection<com.ldc.workflow.types.WorkflowState>> saved =
+                org.mockito.ArgumentCaptor.forClass(java.util.Collection.class);
+        when(workflowStateRepository.saveAll(saved.capture())).thenReturn(List.of());
+
+        JsonNode result = handler.applyBatch(batch);
+
+        assertFalse(result.get("success").asBoolean());
+        assertEquals(4, result.get("total").asInt());
+        assertEquals(2, result.get("accepted").asInt());
+        assertEquals("1000000001", result.get("items").get(0).get("loanNumber").asText());
+        assertEquals("REQ-BULK", result.get("items").get(0).get("requestNumber").asText());
+        assertEquals("ConduitReview", result.get("items").get(1).get("reviewType").asText());
+        assertEquals(2, result.get("rejected").size());
+        assertEquals("Invalid LoanNumber format", result.get("rejected").get(0).get("error").asText());
+        assertEquals("Invalid ReviewType: Unknown", result.get("rejected").get(1).get("error").asText());
+        assertEquals(2, saved.getValue().size());
+        org.mockito.Mockito.verify(workflowStateRepository, org.mockito.Mockito.never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should report batch items whose write was not processed")
+    void testBatchReportsUnprocessedWrites() {
+        ObjectNode batch = objectMapper.createObjectNode();
+        batch.putObject("BatchInput").put("RequestNumber", "REQ-BULK");
+        var items = batch.putArray("Items");
+        items.addObject().put("LoanNumber", "1000000001").put("ReviewType", "LDC");
+        items.addObject().put("LoanNumber", "1000000002").put("ReviewType", "LDC");
+
+        when(workflowStateRepository.saveAll(any()))
+                .thenReturn(List.of(new com.ldc.workflow.types.WorkflowStateKey("REQ-BULK", "1000000002")));
+
+        JsonNode result = handler.applyBatch(batch);
+
+        assertEquals(1, result.get("accepted").asInt());
+        assertEquals("1000000002", result.get("rejected").get(0).get("loanNumber").asText());
+        assertEquals("Failed to persist workflow state", result.get("rejected").get(0).get("error").asText());
+    }
+
+    @Test
+    @DisplayName("Should confirm a claim check from the stored state, not the input")
+    void testConfirmClaimCheck() {
+        com.ldc.workflow.types.WorkflowState stored =
+                new com.ldc.workflow.types.WorkflowState("REQ-BULK", "1000000001", "LDCReview");
+        stored.setVersion(2L);
+        when(workflowStateRepository.findAtLeastVersion("REQ-BULK", "1000000001", 1L))
+                .thenReturn(java.util.Optional.of(stored));
+        ObjectNode input = objectMapper.createObjectNode()
+                .put("requestNumber", "REQ-BULK")
+                .put("loanNumber", "1000000001")
+                .put("version", 1)
+                .put("reviewType", "ConduitReview");
+
+        JsonNode result = handler.confirmClaimCheck(input);
+
+        assertTrue(result.get("success").asBoolean());
+        assertEquals(2, result.get("version").asLong());
+        assertEquals("LDCReview", result.get("reviewType").asText());
+    }
+
+    @Test
+    @DisplayName("Should reject a claim check with no stored state at that version")
+    void testRejectForgedClaimCheck() {
+        when(workflowStateRepository.findAtLeastVersion("REQ-NEW", "1000000001", 1L))
+                .thenReturn(java.util.Optional.empty());
+        when(workflowStateRepository.findAtLeastVersion("REQ-OLD", "1000000001", 5L))
+                .thenThrow(new IllegalStateException("Workflow state REQ-OLD/1000000001 is at version 1"));
+
+        assertFalse(handler.confirmClaimCheck(objectMapper.createObjectNode()
+                .put("requestNumber", "REQ-NEW").put("loanNumber", "1000000001").put("version", 1))
+                .get("success").asBoolean());
+        assertFalse(handler.confirmClaimCheck(objectMapper.createObjectNode()
+                .put("requestNumber", "REQ-OLD").put("loanNumber", "1000000001").put("version", 5))
+                .get("success").asBoolean());
+        assertFalse(handler.confirmClaimCheck(objectMapper.createObjectNode()
+                .put("requestNumber", "REQ-OLD").put("loanNumber", "1000000001").put("version", "1"))
+                .get("success").asBoolean());
+    }
 }
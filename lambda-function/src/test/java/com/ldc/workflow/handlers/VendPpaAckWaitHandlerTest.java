@@ -0,0 +1,128 @@
+package com.ldc.workflow.handlers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ldc.workflow.repository.InMemoryDynamoDbClient;
+import com.ldc.workflow.repository.VendPpaOutboxRepository;
+import com.ldc.workflow.repository.WorkflowStateRepository;
+import com.ldc.workflow.service.StepFunctionsService;
+import com.ldc.workflow.service.VendPpaOutboxDispatcher;
+import com.ldc.workflow.types.WorkflowState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for VendPpaAckWaitHandler
+ * Tests task token registration for the wait on the Vend PPA outbox
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("VendPpaAckWaitHandler Tests")
+class VendPpaAckWaitHandlerTest {
+
+    private static final String TABLE = "ldc-loan-review-state";
+    private static final String OUTBOX = TABLE + "-outbox";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private StepFunctionsService stepFunctionsService;
+
+    private InMemoryDynamoDbClient dynamoDbClient;
+    private VendPpaOutboxRepository outboxRepository;
+    private VendPpaAckWaitHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        dynamoDbClient = new InMemoryDynamoDbClient();
+        outboxRepository = new VendPpaOutboxRepository(dynamoDbClient, TABLE, OUTBOX);
+        handler = new VendPpaAckWaitHandler(outboxRepository, stepFunctionsService);
+    }
+
+    @Test
+    @DisplayName("Should store the task token while the submission is pending")
+    void testRegistersTokenForPendingSubmission() {
+        enqueue();
+
+        JsonNode result = handler.apply(input("TOKEN-1"));
+
+        assertTrue(result.get("success").asBoolean());
+        assertEquals(VendPpaOutboxRepository.PENDING, result.get("submission").asText());
+        assertEquals("TOKEN-1", dynamoDbClient.get(OUTBOX, "REQ-1", "1234567890").get("TaskToken").s());
+        verifyNoInteractions(stepFunctionsService);
+    }
+
+    @Test
+    @DisplayName("Should resume immediately when the submission was acknowledged before the wait started")
+    void testResumesAcknowledgedSubmission() {
+        JsonNode result = handler.apply(input("TOKEN-1"));
+
+        assertEquals("ACKNOWLEDGED", result.get("submission").asText());
+        assertEquals(0, dynamoDbClient.size(OUTBOX));
+        verify(stepFunctionsService).sendTaskSuccess(eq("TOKEN-1"), anyString());
+    }
+
+    @Test
+    @DisplayName("Should fail the task when the submission has failed")
+    void testFailsFailedSubmission() {
+        enqueue();
+        VendPpaOutboxRepository.Entry claimed = outboxRepository.claim("REQ-1", "1234567890", 0, 60_000).get();
+        outboxRepository.fail(claimed, "HTTP 400");
+
+        JsonNode result = handler.apply(input("TOKEN-1"));
+
+        assertEquals(VendPpaOutboxRepository.FAILED, result.get("submission").asText());
+        verify(stepFunctionsService).sendTaskFailure(eq("TOKEN-1"), eq(VendPpaOutboxDispatcher.FAILED_ERROR),
+                anyString());
+    }
+
+    @Test
+    @DisplayName("Should report storage errors as a retryable task failure")
+    void testStorageErrorFailsTask() {
+        VendPpaOutboxRepository failing = mock(VendPpaOutboxRepository.class);
+        when(failing.attachTaskToken("REQ-1", "1234567890", "TOKEN-1"))
+                .thenThrow(new RuntimeException("Throttled"));
+
+        JsonNode result = new VendPpaAckWaitHandler(failing, stepFunctionsService).apply(input("TOKEN-1"));
+
+        assertFalse(result.get("success").asBoolean());
+        verify(stepFunctionsService).sendTaskFailure(eq("TOKEN-1"), eq(VendPpaAckWaitHandler.WAIT_FAILED_ERROR),
+                anyString());
+    }
+
+    @Test
+    @DisplayName("Should reject input without a task token")
+    void testMissingToken() {
+        JsonNode result = handler.apply(input(null));
+
+        assertFalse(result.get("success").asBoolean());
+        verifyNoInteractions(stepFunctionsService);
+    }
+
+    private void enqueue() {
+        WorkflowState state = new WorkflowState("REQ-1", "1234567890", "LDCReview");
+        state.setLoanDecision("Approved");
+        new WorkflowStateRepository(dynamoDbClient, TABLE).save(state);
+        outboxRepository.enqueue(state, "Approved", 0);
+    }
+
+    private ObjectNode input(String taskToken) {
+        ObjectNode input = objectMapper.createObjectNode()
+                .put("handlerType", "vendPpaAckWait")
+                .put("requestNumber", "REQ-1")
+                .put("loanNumber", "1234567890");
+        if (taskToken != null) {
+            input.put("taskToken", taskToken);
+        }
+        return input;
+    }
+}
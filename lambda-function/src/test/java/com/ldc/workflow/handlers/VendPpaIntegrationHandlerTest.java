@@ -4,17 +4,28 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.ldc.workflow.repository.WorkflowStateRepository;
+import com.ldc.workflow.service.VendPpaBatcher;
+import com.ldc.workflow.service.VendPpaClient;
 import com.ldc.workflow.types.WorkflowState;
+import com.ldc.workflow.types.WorkflowStateKey;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,11 +36,14 @@ public class VendPpaIntegrationHandlerTest {
     @Mock
     private WorkflowStateRepository workflowStateRepository;
 
+    @Mock
+    private VendPpaBatcher vendPpaBatcher;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @BeforeEach
     void setUp() {
-        handler = new VendPpaIntegrationHandler(workflowStateRepository);
+        handler = new VendPpaIntegrationHandler(workflowStateRepository, vendPpaBatcher, 0);
     }
 
     @Test
@@ -47,6 +61,8 @@ public class VendPpaIntegrationHandlerTest {
 
         when(workflowStateRepository.findByRequestNumberAndLoanNumber("REQ-123", "EXEC-123"))
                 .thenReturn(Optional.of(state));
+        when(vendPpaBatcher.submit(any(VendPpaClient.Submission.class), anyLong()))
+                .thenReturn(objectMapper.createObjectNode().put("status", "SUCCESS"));
 
         JsonNode result = handler.apply(input);
 
@@ -55,6 +71,32 @@ public class VendPpaIntegrationHandlerTest {
         assertEquals("SUCCESS", result.get("vendPpaResponse").get("status").asText());
     }
 
+    @Test
+    void testPpaCallFailure() {
+        ObjectNode input = objectMapper.createObjectNode();
+        input.put("requestNumber", "REQ-123");
+        input.put("loanNumber", "LOAN-123");
+        input.put("loanStatus", "Approved");
+
+        WorkflowState state = new WorkflowState("REQ-123", "LOAN-123", "LDCReview");
+        state.setVersion(7L);
+        state.setLoanDecision("Approved");
+        when(workflowStateRepository.findByRequestNumberAndLoanNumber("REQ-123", "LOAN-123"))
+                .thenReturn(Optional.of(state));
+        when(vendPpaBatcher.submit(any(VendPpaClient.Submission.class), anyLong()))
+                .thenThrow(new VendPpaClient.VendPpaException(0, "CircuitOpen", "open", false, null));
+
+        JsonNode result = handler.apply(input);
+
+        assertFalse(result.get("success").asBoolean());
+        assertEquals("CircuitOpen", result.get("errorType").asText());
+        assertFalse(result.get("retryable").asBoolean());
+        ArgumentCaptor<VendPpaClient.Submission> submission = ArgumentCaptor.forClass(VendPpaClient.Submission.class);
+        verify(vendPpaBatcher).submit(submission.capture(), eq(Long.MAX_VALUE));
+        assertEquals(7L, submission.getValue().getDecisionVersion());
+        assertEquals("Approved", submission.getValue().getLoanStatus());
+    }
+
     @Test
     void testStateNotFound() {
         ObjectNode input = objectMapper.createObjectNode();
@@ -71,4 +113,42 @@ public class VendPpaIntegrationHandlerTest {
         assertFalse(result.get("success").asBoolean());
         assertEquals("Workflow state not found", result.get("error").asText());
     }
+
+    @Test
+    void testBatchReportsEachLoan() {
+        ObjectNode batch = objectMapper.createObjectNode();
+        batch.putObject("BatchInput").put("requestNumber", "REQ-123").put("loanStatus", "Approved");
+        batch.putArray("Items")
+                .add(objectMapper.createObjectNode().put("loanNumber", "LOAN-1"))
+                .add(objectMapper.createObjectNode().put("loanNumber", "LOAN-2"))
+                .add(objectMapper.createObjectNode().put("loanNumber", "LOAN-3"));
+
+        WorkflowState first = new WorkflowState("REQ-123", "LOAN-1", "LDCReview");
+        WorkflowState second = new WorkflowState("REQ-123", "LOAN-2", "LDCReview");
+        when(workflowStateRepository.findAll(anyList())).thenReturn(Map.of(
+                new WorkflowStateKey("REQ-123", "LOAN-1"), first,
+                new WorkflowStateKey("REQ-123", "LOAN-2"), second));
+        when(vendPpaBatcher.submitAsync(any(VendPpaClient.Submission.class), anyLong())).thenAnswer(call -> {
+            VendPpaClient.Submission submission = call.getArgument(0);
+            return "LOAN-1".equals(submission.getLoanNumber())
+                    ? CompletableFuture.completedFuture(objectMapper.createObjectNode().put("status", "SUCCESS"))
+                    : CompletableFuture.failedFuture(
+                            new VendPpaClient.VendPpaException(422, "HTTP422", "rejected", false, null));
+        });
+
+        JsonNode result = handler.applyBatch(batch);
+
+        assertFalse(result.get("success").asBoolean());
+        assertEquals(3, result.get("total").asInt());
+        assertEquals(2, result.get("failed").asInt());
+        JsonNode items = result.get("items");
+        assertTrue(items.get(0).get("success").asBoolean());
+        assertEquals("SUCCESS", items.get(0).get("vendPpaResponse").get("status").asText());
+        assertEquals("HTTP422", items.get(1).get("errorType").asText());
+        assertEquals("Workflow state not found", items.get(2).get("error").asText());
+        verify(workflowStateRepository).findAll(List.of(new WorkflowStateKey("REQ-123", "LOAN-1"),
+                new WorkflowStateKey("REQ-123", "LOAN-2"), new WorkflowStateKey("REQ-123", "LOAN-3")));
+        verify(vendPpaBatcher, times(2)).submitAsync(any(VendPpaClient.Submission.class), eq(Long.MAX_VALUE));
+        verify(vendPpaBatcher).flush();
+    }
 }
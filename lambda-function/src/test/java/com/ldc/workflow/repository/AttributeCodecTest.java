@@ -0,0 +1,124 @@
+package com.ldc.workflow.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ldc.workflow.business.DecisionSummary;
+import com.ldc.workflow.service.ConfigurationService;
+import com.ldc.workflow.service.configuration.ConfigurationSource;
+import com.ldc.workflow.types.AttributeDecision;
+import com.ldc.workflow.types.LoanAttribute;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AttributeCodec, AttributeDictionary and AttributeDictionaryProvider
+ * Tests the binary round trip, text fallbacks, the dictionary-free summary and the
+ * append-only dictionary swap
+ */
+@DisplayName("AttributeCodec Tests")
+class AttributeCodecTest {
+
+    private static final AttributeDictionary V1 = AttributeDictionary.parse(
+            "{\"version\": 1, \"names\": [\"CreditScore\", \"Income\", \"Assets\"]}");
+    private static final AttributeDictionary V2 = AttributeDictionary.parse(
+            "{\"version\": 2, \"names\": [\"CreditScore\", \"Income\", \"Assets\", \"DebtToIncome\"]}");
+
+    @Test
+    @DisplayName("Should round-trip known and unknown names and decisions, including nulls")
+    void testRoundTrip() {
+        List<LoanAttribute> attributes = List.of(
+                new LoanAttribute("CreditScore", "Approved"),
+                new LoanAttribute("Income", null),
+                new LoanAttribute("Appraisal", "Repurchase"),
+                new LoanAttribute(null, "Escalated"),
+                new LoanAttribute("Títle", "Pending"));
+
+        List<LoanAttribute> decoded = AttributeCodec.decode(AttributeCodec.encode(attributes, V1), V1);
+
+        assertEquals(attributes.toString(), decoded.toString());
+        assertSame(V1.name(0), decoded.get(0).getAttributeName());
+        assertSame(AttributeDecision.APPROVED.getValue(), decoded.get(0).getAttributeDecision());
+    }
+
+    @Test
+    @DisplayName("Should summarize encoded data exactly as the decoded list")
+    void testSummarize() {
+        String[] decisions = {"Approved", "Rejected", null, "Pending", "Reclass", "Repurchase", "Maybe"};
+        List<LoanAttribute> attributes = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            attributes.add(new LoanAttribute(i % 3 == 0 ? "attribute" + i : V1.name(i % 3),
+                    decisions[i % decisions.length]));
+        }
+
+        DecisionSummary summary = AttributeCodec.summarize(AttributeCodec.encode(attributes, V1));
+
+        assertEquals(DecisionSummary.of(attributes).toString(), summary.toString());
+        assertEquals(71, summary.getUnrecognized());
+    }
+
+    @Test
+    @DisplayName("Should store dictionary names in a fraction of the JSON size")
+    void testCompactness() throws Exception {
+        List<LoanAttribute> attributes = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            attributes.add(new LoanAttribute(V2.name(i % V2.size()), "Approved"));
+        }
+
+        int encoded = AttributeCodec.encode(attributes, V2).length;
+        int json = new ObjectMapper().writeValueAsBytes(attributes).length;
+
+        assertEquals(3 + 100 * 2, encoded);
+        assertTrue(encoded * 10 < json, encoded + " bytes against " + json);
+    }
+
+    @Test
+    @DisplayName("Should decode older data with a newer dictionary and refuse newer data with an older one")
+    void testVersioning() {
+        byte[] older = AttributeCodec.encode(List.of(new LoanAttribute("Assets", "Pending")), V1);
+        byte[] newer = AttributeCodec.encode(List.of(new LoanAttribute("DebtToIncome", "Pending")), V2);
+
+        assertEquals("Assets", AttributeCodec.decode(older, V2).get(0).getAttributeName());
+        assertEquals(2, AttributeCodec.dictionaryVersion(newer));
+        assertThrows(IllegalStateException.class, () -> AttributeCodec.decode(newer, V1));
+        assertEquals(1, AttributeCodec.summarize(newer).count(AttributeDecision.PENDING));
+        assertThrows(IllegalArgumentException.class,
+                () -> AttributeCodec.decode(Arrays.copyOf(newer, newer.length - 1), V2));
+    }
+
+    @Test
+    @DisplayName("Should only swap in dictionaries that append to the active one")
+    void testProviderAcceptsAppendOnly() {
+        Map<String, String> parameters = new ConcurrentHashMap<>();
+        ConfigurationSource source = new ConfigurationSource() {
+            @Override
+            public String getParameter(String parameterName) {
+                return parameters.get(parameterName);
+            }
+
+            @Override
+            public String name() {
+                return "test";
+            }
+        };
+        String parameter = AttributeDictionaryProvider.DEFAULT_PARAMETER;
+        AttributeDictionaryProvider provider = new AttributeDictionaryProvider(
+                new ConfigurationService(source, "/ldc-workflow", 0, 0, () -> 0L), parameter, 0, () -> 0L);
+
+        parameters.put(parameter, "{\"version\": 1, \"names\": [\"CreditScore\", \"Income\"]}");
+        assertEquals(1, provider.current().getVersion());
+        parameters.put(parameter, "{\"version\": 2, \"names\": [\"Income\", \"CreditScore\", \"Assets\"]}");
+        assertEquals(1, provider.current().getVersion());
+        parameters.put(parameter, "{\"version\": 3, \"names\": [\"CreditScore\", \"Income\", \"Assets\"]}");
+        assertEquals(3, provider.atLeast(3).getVersion());
+        assertEquals(2, provider.current().idOf("Assets"));
+        assertThrows(IllegalArgumentException.class,
+                () -> AttributeDictionary.parse("{\"version\": 4, \"names\": [\"Income\", \"Income\"]}"));
+    }
+}
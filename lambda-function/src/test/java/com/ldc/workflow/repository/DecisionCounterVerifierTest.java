@@ -0,0 +1,92 @@
+package com.ldc.workflow.repository;
+
+import com.ldc.workflow.types.AttributeDecision;
+import com.ldc.workflow.types.LoanAttribute;
+import com.ldc.workflow.types.WorkflowState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for DecisionCounterVerifier against the in-memory DynamoDB client.
+ */
+@DisplayName("DecisionCounterVerifier Tests")
+class DecisionCounterVerifierTest {
+
+    private static final String TABLE = "ldc-loan-review-state";
+
+    private InMemoryDynamoDbClient dynamoDbClient;
+    private WorkflowStateRepository repository;
+    private DecisionCounterVerifier verifier;
+
+    @BeforeEach
+    void setUp() {
+        dynamoDbClient = new InMemoryDynamoDbClient();
+        repository = new WorkflowStateRepository(dynamoDbClient, TABLE);
+        verifier = new DecisionCounterVerifier(dynamoDbClient, TABLE);
+    }
+
+    @Test
+    @DisplayName("Should find nothing to repair in states written by the repository")
+    void testConsistentStates() {
+        for (int i = 0; i < 250; i++) {
+            save(String.valueOf(1000000000L + i), "Approved", "Pending");
+        }
+
+        DecisionCounterVerifier.Report report = verifier.verifyAll(true);
+
+        assertEquals(250, report.getScanned());
+        assertEquals(0, report.getDrifted());
+    }
+
+    @Test
+    @DisplayName("Should repair drifted and missing counters without bumping the version")
+    void testRepairsDrift() {
+        save("1000000001", "Approved", "Pending");
+        save("1000000002", "Rejected", "Reclass");
+        save("1000000003", "Approved");
+        dynamoDbClient.get(TABLE, "REQ-1", "1000000001").put("PendingCount", AttributeValue.builder().n("0").build());
+        dynamoDbClient.get(TABLE, "REQ-1", "1000000002").keySet().removeIf(name -> name.endsWith("Count"));
+
+        DecisionCounterVerifier.Report report = verifier.verifyAll(true);
+
+        assertEquals(3, report.getScanned());
+        assertEquals(2, report.getDrifted());
+        assertEquals(2, report.getRepaired());
+        assertEquals(1, repository.findDecisionProgress("REQ-1", "1000000001", null).get()
+                .getCount(AttributeDecision.PENDING));
+        assertEquals(1, repository.findDecisionProgress("REQ-1", "1000000002", null).get()
+                .getCount(AttributeDecision.RECLASS));
+        assertEquals("1", dynamoDbClient.get(TABLE, "REQ-1", "1000000002").get("Version").n());
+        assertEquals(0, verifier.verifyAll(true).getDrifted());
+    }
+
+    @Test
+    @DisplayName("Should only report drift when repair is off")
+    void testReportOnly() {
+        save("1000000001", "Approved", "Pending");
+        dynamoDbClient.get(TABLE, "REQ-1", "1000000001").put("TotalCount", AttributeValue.builder().n("5").build());
+
+        assertEquals(DecisionCounterVerifier.Outcome.DRIFTED, verifier.verify("REQ-1", "1000000001", false));
+        assertEquals("5", dynamoDbClient.get(TABLE, "REQ-1", "1000000001").get("TotalCount").n());
+        assertEquals(DecisionCounterVerifier.Outcome.REPAIRED, verifier.verify("REQ-1", "1000000001", true));
+        assertEquals(DecisionCounterVerifier.Outcome.CONSISTENT, verifier.verify("REQ-1", "1000000001", true));
+        assertEquals(DecisionCounterVerifier.Outcome.MISSING, verifier.verify("REQ-1", "1000000009", true));
+    }
+
+    private void save(String loanNumber, String... decisions) {
+        WorkflowState state = new WorkflowState("REQ-1", loanNumber, "LDCReview");
+        state.setExecutionId("ldc-loan-review-REQ-1");
+        LoanAttribute[] attributes = new LoanAttribute[decisions.length];
+        for (int i = 0; i < decisions.length; i++) {
+            attributes[i] = new LoanAttribute("attribute" + i, decisions[i]);
+        }
+        state.setAttributes(List.of(attributes));
+        repository.save(state);
+    }
+}
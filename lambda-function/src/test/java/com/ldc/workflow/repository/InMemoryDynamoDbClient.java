@@ -0,0 +1,509 @@
+package com.ldc.workflow.repository;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * In-memory DynamoDbClient for tests and benchmarks.
+ *
+ * Tables are keyed by RequestNumber + LoanNumber like the workflow state table.
+ * An optional per-call latency approximates a network round trip, and batch
+ * writes can be told to leave items unprocessed to exercise retry paths.
+ * UpdateItem understands the SET / ADD / REMOVE clauses; PutItem, UpdateItem,
+ * DeleteItem and TransactWriteItems evaluate conditions made of attribute_exists,
+ * attribute_not_exists and "Name = :value", "Name < :value" or "Name <= :value"
+ * terms joined by AND, and Scan applies the same terms as a FilterExpression.
+ * GetItem and Scan apply a ProjectionExpression, and #name placeholders are
+ * resolved throughout. Insert listeners see every item that a write creates,
+ * standing in for a stream with an INSERT-only filter.
+ */
+public class InMemoryDynamoDbClient implements DynamoDbClient {
+
+    private final Map<String, Map<String, Map<String, AttributeValue>>> tables = new ConcurrentHashMap<>();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger reads = new AtomicInteger();
+    private final AtomicInteger writes = new AtomicInteger();
+    private final AtomicInteger unprocessedBatchWrites = new AtomicInteger();
+    private final Map<String, List<Consumer<Map<String, AttributeValue>>>> insertListeners =
+            new ConcurrentHashMap<>();
+    private volatile long latencyMillis;
+
+    public InMemoryDynamoDbClient withLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+        return this;
+    }
+
+    /**
+     * Make the next n BatchWriteItem calls leave their last item unprocessed.
+     */
+    public void leaveUnprocessedOnNextBatchWrites(int n) {
+        unprocessedBatchWrites.set(n);
+    }
+
+    /**
+     * Call the listener with a copy of each item created in the table, after the
+     * write that created it.
+     */
+    public void onInsert(String tableName, Consumer<Map<String, AttributeValue>> listener) {
+        insertListeners.computeIfAbsent(tableName, name -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    public int getCallCount() {
+        return calls.get();
+    }
+
+    /**
+     * Items read, counting each item of a batch.
+     */
+    public int getReadCount() {
+        return reads.get();
+    }
+
+    /**
+     * Items written, counting each item of a batch.
+     */
+    public int getWriteCount() {
+        return writes.get();
+    }
+
+    public Map<String, AttributeValue> get(String tableName, String requestNumber, String loanNumber) {
+        return table(tableName).get(requestNumber + "#" + loanNumber);
+    }
+
+    public int size(String tableName) {
+        return table(tableName).size();
+    }
+
+    @Override
+    public GetItemResponse getItem(GetItemRequest request) {
+        roundTrip();
+        reads.incrementAndGet();
+        Map<String, AttributeValue> item = table(request.tableName()).get(keyOf(request.key()));
+        return GetItemResponse.builder()
+                .item(item == null ? null
+                        : project(item, request.projectionExpression(), request.expressionAttributeNames()))
+                .build();
+    }
+
+    @Override
+    public PutItemResponse putItem(PutItemRequest request) {
+        roundTrip();
+        writes.incrementAndGet();
+        Map<String, Map<String, AttributeValue>> table = table(request.tableName());
+        String key = keyOf(request.item());
+        boolean inserted;
+        synchronized (table) {
+            check(table.get(key), request.conditionExpression(), request.expressionAttributeNames(),
+                    request.expressionAttributeValues());
+            inserted = table.put(key, new HashMap<>(request.item())) == null;
+        }
+        if (inserted) {
+            inserted(request.tableName(), request.item());
+        }
+        return PutItemResponse.builder().build();
+    }
+
+    @Override
+    public UpdateItemResponse updateItem(UpdateItemRequest request) {
+        roundTrip();
+        writes.incrementAndGet();
+        Map<String, Map<String, AttributeValue>> table = table(request.tableName());
+        String key = keyOf(request.key());
+        Map<String, AttributeValue> item;
+        boolean inserted;
+        synchronized (table) {
+            Map<String, AttributeValue> current = table.get(key);
+            check(current, request.conditionExpression(), request.expressionAttributeNames(),
+                    request.expressionAttributeValues());
+            item = current == null ? new HashMap<>(request.key()) : new HashMap<>(current);
+            applyUpdate(item, request.updateExpression(), request.expressionAttributeNames(),
+                    request.expressionAttributeValues());
+            table.put(key, item);
+            inserted = current == null;
+        }
+        if (inserted) {
+            inserted(request.tableName(), item);
+        }
+        return UpdateItemResponse.builder().attributes(new HashMap<>(item)).build();
+    }
+
+    /**
+     * DeleteItem; with ReturnValues ALL_OLD the deleted item is returned.
+     */
+    @Override
+    public DeleteItemResponse deleteItem(DeleteItemRequest request) {
+        roundTrip();
+        writes.incrementAndGet();
+        Map<String, Map<String, AttributeValue>> table = table(request.tableName());
+        String key = keyOf(request.key());
+        synchronized (table) {
+            check(table.get(key), request.conditionExpression(), request.expressionAttributeNames(),
+                    request.expressionAttributeValues());
+            Map<String, AttributeValue> old = table.remove(key);
+            DeleteItemResponse.Builder response = DeleteItemResponse.builder();
+            if (old != null && request.returnValues() == ReturnValue.ALL_OLD) {
+                response.attributes(new HashMap<>(old));
+            }
+            return response.build();
+        }
+    }
+
+    /**
+     * TransactWriteItems: every condition is checked before anything is written, with
+     * the tables involved locked in name order. When a condition fails nothing is
+     * written and the cancellation reasons name the failing action.
+     */
+    @Override
+    public TransactWriteItemsResponse transactWriteItems(TransactWriteItemsRequest request) {
+        roundTrip();
+        if (request.transactItems().size() > 100) {
+            throw new IllegalArgumentException("Too many items in the TransactWriteItems call");
+        }
+        TreeSet<String> tableNames = new TreeSet<>();
+        for (TransactWriteItem action : request.transactItems()) {
+            tableNames.add(tableOf(action));
+        }
+        List<Map.Entry<String, Map<String, AttributeValue>>> created = new ArrayList<>();
+        transact(new ArrayList<>(tableNames), 0, request.transactItems(), created);
+        for (Map.Entry<String, Map<String, AttributeValue>> insert : created) {
+            inserted(insert.getKey(), insert.getValue());
+        }
+        return TransactWriteItemsResponse.builder().build();
+    }
+
+    private void transact(List<String> tableNames, int locked, List<TransactWriteItem> actions,
+                          List<Map.Entry<String, Map<String, AttributeValue>>> created) {
+        if (locked < tableNames.size()) {
+            Map<String, Map<String, AttributeValue>> table = table(tableNames.get(locked));
+            synchronized (table) {
+                transact(tableNames, locked + 1, actions, created);
+            }
+            return;
+        }
+        List<CancellationReason> reasons = new ArrayList<>();
+        boolean cancelled = false;
+        for (TransactWriteItem action : actions) {
+            try {
+                if (action.put() != null) {
+                    check(table(action.put().tableName()).get(keyOf(action.put().item())),
+                            action.put().conditionExpression(), action.put().expressionAttributeNames(),
+                            action.put().expressionAttributeValues());
+                } else if (action.update() != null) {
+                    check(table(action.update().tableName()).get(keyOf(action.update().key())),
+                            action.update().conditionExpression(), action.update().expressionAttributeNames(),
+                            action.update().expressionAttributeValues());
+                } else if (action.delete() != null) {
+                    check(table(action.delete().tableName()).get(keyOf(action.delete().key())),
+                            action.delete().conditionExpression(), action.delete().expressionAttributeNames(),
+                            action.delete().expressionAttributeValues());
+                } else {
+                    check(table(action.conditionCheck().tableName()).get(keyOf(action.conditionCheck().key())),
+                            action.conditionCheck().conditionExpression(),
+                            action.conditionCheck().expressionAttributeNames(),
+                            action.conditionCheck().expressionAttributeValues());
+                }
+                reasons.add(CancellationReason.builder().code("None").build());
+            } catch (ConditionalCheckFailedException e) {
+                cancelled = true;
+                reasons.add(CancellationReason.builder().code("ConditionalCheckFailed")
+                        .message("The conditional request failed").build());
+            }
+        }
+        if (cancelled) {
+            throw TransactionCanceledException.builder()
+                    .message("Transaction cancelled, please refer cancellation reasons for specific reasons")
+                    .cancellationReasons(reasons)
+                    .build();
+        }
+        for (TransactWriteItem action : actions) {
+            writes.incrementAndGet();
+            if (action.put() != null) {
+                Map<String, AttributeValue> item = new HashMap<>(action.put().item());
+                if (table(action.put().tableName()).put(keyOf(item), item) == null) {
+                    created.add(Map.entry(action.put().tableName(), item));
+                }
+            } else if (action.update() != null) {
+                Map<String, Map<String, AttributeValue>> table = table(action.update().tableName());
+                String key = keyOf(action.update().key());
+                Map<String, AttributeValue> current = table.get(key);
+                Map<String, AttributeValue> item = current == null ? new HashMap<>(action.update().key())
+                        : new HashMap<>(current);
+                applyUpdate(item, action.update().updateExpression(), action.update().expressionAttributeNames(),
+                        action.update().expressionAttributeValues());
+                table.put(key, item);
+                if (current == null) {
+                    created.add(Map.entry(action.update().tableName(), item));
+                }
+            } else if (action.delete() != null) {
+                table(action.delete().tableName()).remove(keyOf(action.delete().key()));
+            }
+        }
+    }
+
+    private static String tableOf(TransactWriteItem action) {
+        if (action.put() != null) {
+            return action.put().tableName();
+        }
+        if (action.update() != null) {
+            return action.update().tableName();
+        }
+        if (action.delete() != null) {
+            return action.delete().tableName();
+        }
+        return action.conditionCheck().tableName();
+    }
+
+    private void inserted(String tableName, Map<String, AttributeValue> item) {
+        List<Consumer<Map<String, AttributeValue>>> listeners = insertListeners.get(tableName);
+        if (listeners != null) {
+            for (Consumer<Map<String, AttributeValue>> listener : listeners) {
+                listener.accept(new HashMap<>(item));
+            }
+        }
+    }
+
+    /**
+     * Scan in key order, a page of up to limit (default 100) items at a time; as in
+     * DynamoDB the limit counts items read, before the FilterExpression.
+     */
+    @Override
+    public ScanResponse scan(ScanRequest request) {
+        roundTrip();
+        Map<String, Map<String, AttributeValue>> table = table(request.tableName());
+        List<String> keys = new ArrayList<>(table.keySet());
+        keys.sort(Comparator.naturalOrder());
+        String after = request.hasExclusiveStartKey() ? keyOf(request.exclusiveStartKey()) : null;
+        int limit = request.limit() != null ? request.limit() : 100;
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        Map<String, AttributeValue> lastKey = null;
+        int scanned = 0;
+        for (String key : keys) {
+            if (after != null && key.compareTo(after) <= 0) {
+                continue;
+            }
+            Map<String, AttributeValue> item = table.get(key);
+            if (item == null) {
+                continue;
+            }
+            reads.incrementAndGet();
+            scanned++;
+            if (matches(item, request.filterExpression(), request.expressionAttributeNames(),
+                    request.expressionAttributeValues())) {
+                items.add(project(item, request.projectionExpression(), request.expressionAttributeNames()));
+            }
+            if (scanned == limit) {
+                lastKey = Map.of("RequestNumber", item.get("RequestNumber"), "LoanNumber", item.get("LoanNumber"));
+                break;
+            }
+        }
+        ScanResponse.Builder response = ScanResponse.builder().items(items).count(items.size());
+        if (lastKey != null) {
+            response.lastEvaluatedKey(lastKey);
+        }
+        return response.build();
+    }
+
+    private static Map<String, AttributeValue> project(Map<String, AttributeValue> item, String projection,
+                                                       Map<String, String> names) {
+        if (projection == null || projection.isBlank()) {
+            return new HashMap<>(item);
+        }
+        Map<String, AttributeValue> projected = new HashMap<>();
+        for (String name : projection.split(",")) {
+            String attribute = resolve(name.trim(), names);
+            if (item.containsKey(attribute)) {
+                projected.put(attribute, item.get(attribute));
+            }
+        }
+        return projected;
+    }
+
+    private static boolean matches(Map<String, AttributeValue> item, String filter, Map<String, String> names,
+                                   Map<String, AttributeValue> values) {
+        try {
+            check(item, filter, names, values);
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    private static void check(Map<String, AttributeValue> current, String condition, Map<String, String> names,
+                              Map<String, AttributeValue> values) {
+        if (condition == null || condition.isBlank()) {
+            return;
+        }
+        for (String term : condition.split("\\s+AND\\s+")) {
+            term = term.trim();
+            boolean holds;
+            if (term.startsWith("attribute_exists(")) {
+                holds = current != null && current.containsKey(resolve(argument(term), names));
+            } else if (term.startsWith("attribute_not_exists(")) {
+                holds = current == null || !current.containsKey(resolve(argument(term), names));
+            } else if (term.contains("<")) {
+                boolean inclusive = term.contains("<=");
+                String[] operands = term.split("\\s*<=?\\s*");
+                if (operands.length != 2) {
+                    throw new IllegalArgumentException("Unsupported condition: " + term);
+                }
+                AttributeValue stored = current == null ? null : current.get(resolve(operands[0], names));
+                if (stored == null || stored.n() == null) {
+                    holds = false;
+                } else {
+                    int comparison = Long.compare(Long.parseLong(stored.n()), Long.parseLong(values.get(operands[1]).n()));
+                    holds = inclusive ? comparison <= 0 : comparison < 0;
+                }
+            } else {
+                String[] operands = term.split("\\s*=\\s*");
+                if (operands.length != 2) {
+                    throw new IllegalArgumentException("Unsupported condition: " + term);
+                }
+                holds = current != null && values.get(operands[1]).equals(current.get(resolve(operands[0], names)));
+            }
+            if (!holds) {
+                throw ConditionalCheckFailedException.builder().message("The conditional request failed").build();
+            }
+        }
+    }
+
+    private static String argument(String term) {
+        return term.substring(term.indexOf('(') + 1, term.lastIndexOf(')')).trim();
+    }
+
+    private static String resolve(String name, Map<String, String> names) {
+        return name.startsWith("#") && names != null ? names.get(name) : name;
+    }
+
+    private static void applyUpdate(Map<String, AttributeValue> item, String expression, Map<String, String> names,
+                                    Map<String, AttributeValue> values) {
+        for (String token : expression.trim().split("\\s+(?=(SET|ADD|REMOVE)\\s)")) {
+            String[] parts = token.trim().split("\\s+", 2);
+            String clause = parts[0];
+            for (String action : parts[1].split(",")) {
+                String[] operands = action.trim().split("\\s*=\\s*|\\s+");
+                String attribute = resolve(operands[0], names);
+                switch (clause) {
+                    case "SET" -> item.put(attribute, values.get(operands[1]));
+                    case "REMOVE" -> item.remove(attribute);
+                    case "ADD" -> {
+                        AttributeValue existing = item.get(attribute);
+                        long base = existing == null ? 0 : Long.parseLong(existing.n());
+                        long delta = Long.parseLong(values.get(operands[1]).n());
+                        item.put(attribute, AttributeValue.builder().n(Long.toString(base + delta)).build());
+                    }
+                    default -> throw new IllegalArgumentException("Unsupported update clause: " + clause);
+                }
+            }
+        }
+    }
+
+    @Override
+    public BatchGetItemResponse batchGetItem(BatchGetItemRequest request) {
+        roundTrip();
+        Map<String, List<Map<String, AttributeValue>>> responses = new HashMap<>();
+        for (Map.Entry<String, KeysAndAttributes> entry : request.requestItems().entrySet()) {
+            if (entry.getValue().keys().size() > 100) {
+                throw new IllegalArgumentException("Too many items requested for the BatchGetItem call");
+            }
+            List<Map<String, AttributeValue>> items = new ArrayList<>();
+            for (Map<String, AttributeValue> key : entry.getValue().keys()) {
+                reads.incrementAndGet();
+                Map<String, AttributeValue> item = table(entry.getKey()).get(keyOf(key));
+                if (item != null) {
+                    items.add(new HashMap<>(item));
+                }
+            }
+            responses.put(entry.getKey(), items);
+        }
+        return BatchGetItemResponse.builder().responses(responses).build();
+    }
+
+    @Override
+    public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+        roundTrip();
+        boolean leaveOne = unprocessedBatchWrites.getAndUpdate(n -> Math.max(0, n - 1)) > 0;
+        Map<String, List<WriteRequest>> unprocessed = new HashMap<>();
+        for (Map.Entry<String, List<WriteRequest>> entry : request.requestItems().entrySet()) {
+            List<WriteRequest> writes = entry.getValue();
+            if (writes.size() > 25) {
+                throw new IllegalArgumentException("Too many items requested for the BatchWriteItem call");
+            }
+            int processed = leaveOne ? writes.size() - 1 : writes.size();
+            for (int i = 0; i < processed; i++) {
+                WriteRequest write = writes.get(i);
+                this.writes.incrementAndGet();
+                if (write.putRequest() != null) {
+                    table(entry.getKey()).put(keyOf(write.putRequest().item()), new HashMap<>(write.putRequest().item()));
+                } else if (write.deleteRequest() != null) {
+                    table(entry.getKey()).remove(keyOf(write.deleteRequest().key()));
+                }
+            }
+            if (processed < writes.size()) {
+                unprocessed.put(entry.getKey(), new ArrayList<>(writes.subList(processed, writes.size())));
+            }
+        }
+        return BatchWriteItemResponse.builder().unprocessedItems(unprocessed).build();
+    }
+
+    private Map<String, Map<String, AttributeValue>> table(String tableName) {
+        return tables.computeIfAbsent(tableName, name -> new ConcurrentHashMap<>());
+    }
+
+    private static String keyOf(Map<String, AttributeValue> item) {
+        return item.get("RequestNumber").s() + "#" + item.get("LoanNumber").s();
+    }
+
+    private void roundTrip() {
+        calls.incrementAndGet();
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public String serviceName() {
+        return "dynamodb";
+    }
+
+    @Override
+    public void close() {
+    }
+}
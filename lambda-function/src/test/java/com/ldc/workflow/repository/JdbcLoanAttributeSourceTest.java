@@ -0,0 +1,145 @@
+package com.ldc.workflow.repository;
+
+import com.ldc.workflow.business.DecisionSummary;
+import com.ldc.workflow.types.AttributeDecision;
+import com.ldc.workflow.types.LoanAttribute;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for JdbcLoanAttributeSource against the local loan_attributes stand-in,
+ * through a HikariCP pool
+ */
+@DisplayName("JdbcLoanAttributeSource Tests")
+class JdbcLoanAttributeSourceTest {
+
+    private LocalLoanAttributesDatabase database;
+    private HikariDataSource pool;
+    private JdbcLoanAttributeSource source;
+
+    @BeforeEach
+    void setUp() {
+        database = new LocalLoanAttributesDatabase();
+        pool = database.pool(2);
+        source = new JdbcLoanAttributeSource(pool, 5);
+        database.put("REQ-1", "1000000001", "Income", "Approved");
+        database.put("REQ-1", "1000000001", "Credit", "Rejected");
+        database.put("REQ-1", "1000000001", "Assets", "Approved");
+        database.put("REQ-1", "1000000001", "Title", null);
+        database.put("REQ-1", "1000000001", "Appraisal", "Waived");
+        database.put("REQ-1", "1000000002", "Income", "Approved");
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    @DisplayName("Should read a loan's attributes and nothing of other loans")
+    void testFindAttributes() {
+        List<LoanAttribute> attributes = source.findAttributes("REQ-1", "1000000001");
+
+        assertEquals(List.of("Appraisal", "Assets", "Credit", "Income", "Title"),
+                attributes.stream().map(LoanAttribute::getAttributeName).toList());
+        assertNull(attributes.get(4).getAttributeDecision());
+        assertTrue(source.findAttributes("REQ-1", "1000000009").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should summarize from grouped rows exactly as from the attribute list")
+    void testSummarizeMatchesAttributeList() {
+        DecisionSummary summary = source.summarize("REQ-1", "1000000001");
+
+        assertEquals(2, summary.count(AttributeDecision.APPROVED));
+        assertEquals(1, summary.count(AttributeDecision.REJECTED));
+        assertEquals(1, summary.count(AttributeDecision.PENDING));
+        assertEquals(1, summary.getUnrecognized());
+        assertEquals(5, summary.size());
+        DecisionSummary fromList = DecisionSummary.of(source.findAttributes("REQ-1", "1000000001"));
+        assertEquals(fromList.toString(), summary.toString());
+        assertEquals(fromList.getMask(), summary.getMask());
+
+        assertTrue(source.summarize("REQ-1", "1000000009").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should reuse one connection and parse each statement once on it")
+    void testReusesPreparedStatements() {
+        for (int i = 0; i < 50; i++) {
+            source.summarize("REQ-1", "1000000001");
+            source.summarize("REQ-1", "1000000002");
+        }
+
+        assertEquals(1, database.getConnectionCount());
+        assertEquals(1, database.getParseCount());
+        assertEquals(100, database.getQueryCount());
+    }
+
+    @Test
+    @DisplayName("Should read a loan's attributes with one query in autocommit")
+    void testOneQueryPerRead() throws SQLException {
+        long before = database.getQueryCount();
+        source.findAttributes("REQ-1", "1000000001");
+        source.summarize("REQ-1", "1000000001");
+
+        assertEquals(2, database.getQueryCount() - before);
+        try (Connection connection = pool.getConnection()) {
+            assertTrue(connection.getAutoCommit());
+        }
+    }
+
+    @Test
+    @DisplayName("Should summarize many loans with one query, as per loan")
+    void testSummarizeAll() {
+        Map<String, DecisionSummary> summaries = source.summarizeAll("REQ-1",
+                List.of("1000000002", "1000000001", "1000000009", "1000000001"));
+
+        assertEquals(List.of("1000000002", "1000000001", "1000000009"), List.copyOf(summaries.keySet()));
+        assertEquals(source.summarize("REQ-1", "1000000001").toString(), summaries.get("1000000001").toString());
+        assertEquals(source.summarize("REQ-1", "1000000002").toString(), summaries.get("1000000002").toString());
+        assertTrue(summaries.get("1000000009").isEmpty());
+        assertTrue(source.summarizeAll("REQ-1", List.of()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should query in chunks of the batch size on one connection and statement")
+    void testSummarizeAllChunks() {
+        JdbcLoanAttributeSource batched = new JdbcLoanAttributeSource(pool, 5, 2);
+        List<String> loans = List.of("1000000001", "1000000002", "1000000003", "1000000004", "1000000005");
+
+        Map<String, DecisionSummary> summaries = batched.summarizeAll("REQ-1", loans);
+
+        assertEquals(5, summaries.size());
+        assertEquals(5, summaries.get("1000000001").size());
+        assertEquals(1, summaries.get("1000000002").size());
+        assertEquals(3, database.getQueryCount());
+        assertEquals(1, database.getParseCount());
+        assertEquals(1, database.getConnectionCount());
+        assertThrows(IllegalArgumentException.class, () -> new JdbcLoanAttributeSource(pool, 5, 0));
+    }
+
+    @Test
+    @DisplayName("Should report a failed read and recover on a new connection")
+    void testConnectionFailure() {
+        source.summarize("REQ-1", "1000000001");
+        database.breakConnections();
+
+        RuntimeException failure = assertThrows(RuntimeException.class,
+                () -> source.summarize("REQ-1", "1000000001"));
+        assertEquals("Failed to retrieve loan attributes", failure.getMessage());
+
+        assertEquals(5, source.summarize("REQ-1", "1000000001").size());
+        assertEquals(2, database.getConnectionCount());
+    }
+}
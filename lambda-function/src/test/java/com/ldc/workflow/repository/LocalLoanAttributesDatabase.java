@@ -0,0 +1,357 @@
+package com.ldc.workflow.repository;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Containerless stand-in for the PostgreSQL loan_attributes table, for tests and
+ * benchmarks. connect() hands out JDBC connections that answer the statements
+ * JdbcLoanAttributeSource prepares, from an in-memory copy of the table;
+ * dataSource() opens one per getConnection(), and pool() puts a HikariCP pool, set
+ * up as LoanAttributeSourceConfig does, in front of it.
+ *
+ * Only the JDBC calls those statements and the pool make are implemented (the
+ * batched summary's ANY(?) takes a createArrayOf array); any other SQL text is
+ * rejected. Latency is injected where a real server spends it: connectMicros for
+ * a new connection (TCP, TLS, authentication and session start-up through the
+ * proxy), parseMicros the first time a connection prepares a statement text, and
+ * roundTripMicros for each round trip: a query, whose whole result comes back at
+ * once as pgjdbc reads it in autocommit, or an isValid check. breakConnections()
+ * makes every open connection fail as a dropped proxy client would.
+ */
+public class LocalLoanAttributesDatabase {
+
+    private final Map<String, TreeMap<String, String>> rows = new ConcurrentHashMap<>();
+    private final Set<Connection> open = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong parses = new AtomicLong();
+    private volatile long connectMicros;
+    private volatile long parseMicros;
+    private volatile long roundTripMicros;
+
+    public LocalLoanAttributesDatabase withLatencyMicros(long connectMicros, long parseMicros, long roundTripMicros) {
+        this.connectMicros = connectMicros;
+        this.parseMicros = parseMicros;
+        this.roundTripMicros = roundTripMicros;
+        return this;
+    }
+
+    /**
+     * Insert or replace one row.
+     */
+    public void put(String requestNumber, String loanNumber, String attributeName, String attributeDecision) {
+        rows.computeIfAbsent(key(requestNumber, loanNumber), k -> new TreeMap<>())
+                .put(attributeName, attributeDecision);
+    }
+
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    public long getQueryCount() {
+        return queries.get();
+    }
+
+    public long getParseCount() {
+        return parses.get();
+    }
+
+    /**
+     * Fail every connection opened so far, as if the proxy had dropped them.
+     */
+    public void breakConnections() {
+        for (Connection connection : open) {
+            ((Session) Proxy.getInvocationHandler(connection)).broken = true;
+        }
+    }
+
+    /**
+     * A DataSource opening a new connection for every getConnection().
+     */
+    public DataSource dataSource() {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+                new Class<?>[] {DataSource.class}, (dataSource, method, args) -> switch (method.getName()) {
+                    case "getConnection" -> connect();
+                    case "getLoginTimeout" -> 0;
+                    case "setLoginTimeout" -> null;
+                    case "hashCode" -> System.identityHashCode(dataSource);
+                    case "equals" -> dataSource == args[0];
+                    case "toString" -> "LocalLoanAttributesDatabase DataSource";
+                    default -> throw new SQLFeatureNotSupportedException(method.getName());
+                });
+    }
+
+    /**
+     * A HikariCP pool of at most maximumPoolSize connections over dataSource().
+     */
+    public HikariDataSource pool(int maximumPoolSize) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("local-loan-attributes");
+        config.setDataSource(dataSource());
+        config.setMaximumPoolSize(maximumPoolSize);
+        config.setMinimumIdle(0);
+        config.setInitializationFailTimeout(-1);
+        config.setConnectionTimeout(3000);
+        return new HikariDataSource(config);
+    }
+
+    public Connection connect() throws SQLException {
+        pause(connectMicros);
+        connections.incrementAndGet();
+        Session session = new Session();
+        Connection connection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, session);
+        open.add(connection);
+        return connection;
+    }
+
+    private static String key(String requestNumber, String loanNumber) {
+        return requestNumber + '\u0000' + loanNumber;
+    }
+
+    private List<Object[]> execute(String sql, Map<Integer, Object> parameters) throws SQLException {
+        List<Object[]> result = new ArrayList<>();
+        String requestNumber = (String) parameters.get(1);
+        if (JdbcLoanAttributeSource.ATTRIBUTES_SQL.equals(sql)) {
+            loan(requestNumber, (String) parameters.get(2))
+                    .forEach((name, decision) -> result.add(new Object[] {name, decision}));
+        } else if (JdbcLoanAttributeSource.SUMMARY_SQL.equals(sql)) {
+            group(loan(requestNumber, (String) parameters.get(2)))
+                    .forEach((decision, count) -> result.add(new Object[] {decision, count}));
+        } else if (JdbcLoanAttributeSource.BATCH_SUMMARY_SQL.equals(sql)) {
+            for (Object loanNumber : (Object[]) ((Array) parameters.get(2)).getArray()) {
+                group(loan(requestNumber, (String) loanNumber))
+                        .forEach((decision, count) -> result.add(new Object[] {loanNumber, decision, count}));
+            }
+        } else {
+            throw new SQLFeatureNotSupportedException("Statement not supported by the stand-in: " + sql);
+        }
+        return result;
+    }
+
+    private TreeMap<String, String> loan(String requestNumber, String loanNumber) {
+        return rows.getOrDefault(key(requestNumber, loanNumber), new TreeMap<>());
+    }
+
+    private static Map<String, Integer> group(TreeMap<String, String> loan) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        loan.values().forEach(decision -> counts.merge(decision, 1, Integer::sum));
+        return counts;
+    }
+
+    private static void pause(long micros) {
+        if (micros <= 0) {
+            return;
+        }
+        // Sleep for the bulk and spin the last millisecond, so sub-millisecond round trips stay accurate
+        long until = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(micros);
+        long remaining;
+        while ((remaining = until - System.nanoTime()) > 0) {
+            if (remaining > TimeUnit.MILLISECONDS.toNanos(1)) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(remaining - TimeUnit.MILLISECONDS.toNanos(1));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private SQLException connectionFailure() {
+        return new SQLException("An I/O error occurred while sending to the backend", "08006");
+    }
+
+    /**
+     * One server session: the statement texts it has parsed and whether it is still up.
+     */
+    private final class Session implements InvocationHandler {
+        private final Set<String> parsed = new HashSet<>();
+        private volatile boolean closed;
+        private volatile boolean broken;
+        private boolean autoCommit = true;
+        private boolean readOnly;
+        private int isolation = Connection.TRANSACTION_READ_COMMITTED;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "prepareStatement" -> {
+                    if (closed || broken) {
+                        throw connectionFailure();
+                    }
+                    String sql = (String) args[0];
+                    if (parsed.add(sql)) {
+                        parses.incrementAndGet();
+                        pause(parseMicros);
+                    }
+                    Statement statement = new Statement(this, sql);
+                    return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                            new Class<?>[] {PreparedStatement.class}, statement);
+                }
+                case "createArrayOf" -> {
+                    Object[] elements = ((Object[]) args[1]).clone();
+                    return Proxy.newProxyInstance(Array.class.getClassLoader(), new Class<?>[] {Array.class},
+                            (array, arrayMethod, arrayArgs) -> switch (arrayMethod.getName()) {
+                                case "getArray" -> elements;
+                                case "free" -> null;
+                                case "hashCode" -> System.identityHashCode(array);
+                                case "equals" -> array == arrayArgs[0];
+                                default -> throw new SQLFeatureNotSupportedException(arrayMethod.getName());
+                            });
+                }
+                case "isValid" -> {
+                    if (closed || broken) {
+                        return false;
+                    }
+                    pause(roundTripMicros);
+                    return true;
+                }
+                case "getAutoCommit" -> {
+                    return autoCommit;
+                }
+                case "setAutoCommit" -> {
+                    autoCommit = (Boolean) args[0];
+                    return null;
+                }
+                case "isReadOnly" -> {
+                    return readOnly;
+                }
+                case "setReadOnly" -> {
+                    readOnly = (Boolean) args[0];
+                    return null;
+                }
+                case "getTransactionIsolation" -> {
+                    return isolation;
+                }
+                case "setTransactionIsolation" -> {
+                    isolation = (Integer) args[0];
+                    return null;
+                }
+                case "getWarnings", "clearWarnings" -> {
+                    return null;
+                }
+                case "close" -> {
+                    closed = true;
+                    open.remove(proxy);
+                    return null;
+                }
+                case "isClosed" -> {
+                    return closed;
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "toString" -> {
+                    return "LocalLoanAttributesDatabase@" + Integer.toHexString(System.identityHashCode(proxy));
+                }
+                default -> throw new SQLFeatureNotSupportedException(method.getName());
+            }
+        }
+    }
+
+    private final class Statement implements InvocationHandler {
+        private final Session session;
+        private final String sql;
+        private final Map<Integer, Object> parameters = new TreeMap<>();
+
+        private Statement(Session session, String sql) {
+            this.session = session;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "setString", "setArray" -> {
+                    parameters.put((Integer) args[0], args[1]);
+                    return null;
+                }
+                case "setQueryTimeout", "close" -> {
+                    return null;
+                }
+                case "executeQuery" -> {
+                    if (session.closed || session.broken) {
+                        throw connectionFailure();
+                    }
+                    List<Object[]> result = execute(sql, parameters);
+                    queries.incrementAndGet();
+                    pause(roundTripMicros);
+                    return Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                            new Class<?>[] {ResultSet.class}, new Rows(result));
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                default -> throw new SQLFeatureNotSupportedException(method.getName());
+            }
+        }
+    }
+
+    private static final class Rows implements InvocationHandler {
+        private final List<Object[]> rows;
+        private int position = -1;
+
+        private Rows(List<Object[]> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next" -> {
+                    return ++position < rows.size();
+                }
+                case "getString" -> {
+                    Object value = rows.get(position)[(Integer) args[0] - 1];
+                    return value == null ? null : value.toString();
+                }
+                case "getInt" -> {
+                    Object value = rows.get(position)[(Integer) args[0] - 1];
+                    return value == null ? 0 : ((Number) value).intValue();
+                }
+                case "close" -> {
+                    return null;
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                default -> throw new SQLFeatureNotSupportedException(method.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.ldc.workflow.repository;
+
+import com.ldc.workflow.service.VendPpaClient;
+import com.ldc.workflow.types.LoanAttribute;
+import com.ldc.workflow.types.WorkflowState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for VendPpaOutboxRepository: the transactional enqueue, leased claims and
+ * acknowledgement, run against the in-memory DynamoDB client.
+ */
+@DisplayName("VendPpaOutboxRepository Tests")
+class VendPpaOutboxRepositoryTest {
+
+    private static final String TABLE = "ldc-loan-review-state";
+    private static final String OUTBOX = TABLE + "-outbox";
+
+    private InMemoryDynamoDbClient dynamoDbClient;
+    private WorkflowStateRepository stateRepository;
+    private VendPpaOutboxRepository outbox;
+
+    @BeforeEach
+    void setUp() {
+        dynamoDbClient = new InMemoryDynamoDbClient();
+        stateRepository = new WorkflowStateRepository(dynamoDbClient, TABLE);
+        outbox = new VendPpaOutboxRepository(dynamoDbClient, TABLE, OUTBOX);
+    }
+
+    @Test
+    @DisplayName("Should write the final status and the outbox row together")
+    void testEnqueueWritesStatusAndRow() {
+        WorkflowState state = savedState("1000000001");
+
+        assertTrue(outbox.enqueue(state, "Approved", 1_000));
+
+        Map<String, AttributeValue> stored = dynamoDbClient.get(TABLE, "REQ-1", "1000000001");
+        String key = VendPpaClient.idempotencyKey("REQ-1", "1000000001", 1L);
+        assertEquals("Approved", stored.get("LoanStatus").s());
+        assertEquals(key, stored.get("VendPpaKey").s());
+        assertEquals("2", stored.get("Version").n());
+        assertEquals(2L, state.getVersion());
+
+        Map<String, AttributeValue> row = dynamoDbClient.get(OUTBOX, "REQ-1", "1000000001");
+        assertEquals(key, row.get("IdempotencyKey").s());
+        assertEquals(VendPpaOutboxRepository.PENDING, row.get("OutboxStatus").s());
+        assertEquals("0", row.get("Attempts").n());
+        assertEquals("1000", row.get("EnqueuedAt").n());
+        assertTrue(row.get("Payload").s().contains("\"LoanStatus\":\"Approved\""));
+    }
+
+    @Test
+    @DisplayName("Should write nothing when the state changed since it was read")
+    void testEnqueueStaleStateWritesNothing() {
+        WorkflowState state = savedState("1000000001");
+        WorkflowState concurrent = stateRepository.findByRequestNumberAndLoanNumber("REQ-1", "1000000001").get();
+        stateRepository.save(concurrent);
+
+        assertThrows(StaleWorkflowStateException.class, () -> outbox.enqueue(state, "Approved", 1_000));
+
+        assertFalse(dynamoDbClient.get(TABLE, "REQ-1", "1000000001").containsKey("LoanStatus"));
+        assertEquals(0, dynamoDbClient.size(OUTBOX));
+    }
+
+    @Test
+    @DisplayName("Should queue a loan once however often the enqueue is repeated")
+    void testEnqueueIsIdempotent() {
+        WorkflowState state = savedState("1000000001");
+        assertTrue(outbox.enqueue(state, "Approved", 1_000));
+
+        WorkflowState reread = stateRepository.findByRequestNumberAndLoanNumber("REQ-1", "1000000001").get();
+        assertFalse(outbox.enqueue(reread, "Approved", 2_000));
+        // A re-run that still holds the state as first read
+        WorkflowState stale = new WorkflowState("REQ-1", "1000000001", "LDCReview");
+        stale.setVersion(1L);
+        assertFalse(outbox.enqueue(stale, "Approved", 3_000));
+
+        assertEquals(1, dynamoDbClient.size(OUTBOX));
+        assertEquals("1000", dynamoDbClient.get(OUTBOX, "REQ-1", "1000000001").get("EnqueuedAt").n());
+    }
+
+    @Test
+    @DisplayName("Should lease a claimed row until the lease runs out")
+    void testClaimLeasesRow() {
+        outbox.enqueue(savedState("1000000001"), "Approved", 1_000);
+
+        VendPpaOutboxRepository.Entry first = outbox.claim("REQ-1", "1000000001", 1_000, 61_000).get();
+        assertEquals(1, first.getAttempts());
+        assertTrue(outbox.claim("REQ-1", "1000000001", 30_000, 90_000).isEmpty());
+        assertTrue(outbox.findDue(30_000, 10).isEmpty());
+
+        assertEquals(1, outbox.findDue(61_000, 10).size());
+        VendPpaOutboxRepository.Entry second = outbox.claim("REQ-1", "1000000001", 61_000, 121_000).get();
+        assertEquals(2, second.getAttempts());
+        assertTrue(outbox.claim("REQ-1", "1000000002", 61_000, 121_000).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should give a released row back only to the claim that holds it")
+    void testReleaseAndFail() {
+        outbox.enqueue(savedState("1000000001"), "Approved", 1_000);
+        VendPpaOutboxRepository.Entry first = outbox.claim("REQ-1", "1000000001", 1_000, 61_000).get();
+        outbox.release(first, 5_000, "HTTP 503");
+
+        VendPpaOutboxRepository.Entry second = outbox.claim("REQ-1", "1000000001", 5_000, 65_000).get();
+        outbox.release(first, 5_000, "late release");
+        assertTrue(outbox.fail(first, "late failure").isEmpty());
+        assertEquals("65000", dynamoDbClient.get(OUTBOX, "REQ-1", "1000000001").get("LeaseUntil").n());
+
+        outbox.attachTaskToken("REQ-1", "1000000001", "TOKEN-1");
+        VendPpaOutboxRepository.Entry failed = outbox.fail(second, "HTTP 400").get();
+        assertEquals(VendPpaOutboxRepository.FAILED, failed.getStatus());
+        assertEquals("TOKEN-1", failed.getTaskToken());
+        assertTrue(outbox.findDue(Long.MAX_VALUE, 10).isEmpty());
+        assertTrue(outbox.claim("REQ-1", "1000000001", Long.MAX_VALUE, Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should hand the task token to the acknowledgement and acknowledge once")
+    void testAcknowledgeReturnsTaskToken() {
+        outbox.enqueue(savedState("1000000001"), "Approved", 1_000);
+        VendPpaOutboxRepository.Entry claimed = outbox.claim("REQ-1", "1000000001", 1_000, 61_000).get();
+        assertNull(claimed.getTaskToken());
+
+        // The wait starts while the call is in flight
+        assertTrue(outbox.attachTaskToken("REQ-1", "1000000001", "TOKEN-1").isPresent());
+
+        assertEquals("TOKEN-1", outbox.acknowledge(claimed).get().getTaskToken());
+        assertTrue(outbox.acknowledge(claimed).isEmpty());
+        assertEquals(0, dynamoDbClient.size(OUTBOX));
+        assertTrue(outbox.attachTaskToken("REQ-1", "1000000001", "TOKEN-2").isEmpty());
+        assertEquals(0, dynamoDbClient.size(OUTBOX));
+    }
+
+    @Test
+    @DisplayName("Should page through the outbox for due rows up to the limit")
+    void testFindDueHonoursLimit() {
+        for (int i = 0; i < 30; i++) {
+            outbox.enqueue(savedState(String.valueOf(1000000000L + i)), "Approved", 1_000);
+        }
+        outbox.claim("REQ-1", "1000000000", 1_000, 61_000);
+
+        assertEquals(29, outbox.findDue(2_000, 100).size());
+        assertEquals(10, outbox.findDue(2_000, 10).size());
+    }
+
+    private WorkflowState savedState(String loanNumber) {
+        WorkflowState state = new WorkflowState("REQ-1", loanNumber, "LDCReview");
+        state.setExecutionId("ldc-loan-review-REQ-1");
+        state.setLoanDecision("Approved");
+        state.setAttributes(List.of(new LoanAttribute("Income", "Approved")));
+        stateRepository.save(state);
+        return state;
+    }
+}
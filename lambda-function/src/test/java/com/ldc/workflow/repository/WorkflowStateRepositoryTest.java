@@ -0,0 +1,254 @@
+package com.ldc.workflow.repository;
+
+import com.ldc.workflow.business.DecisionSummary;
+import com.ldc.workflow.types.AttributeDecision;
+import com.ldc.workflow.types.DecisionProgress;
+import com.ldc.workflow.types.LoanAttribute;
+import com.ldc.workflow.types.WorkflowState;
+import com.ldc.workflow.types.WorkflowStateKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for WorkflowStateRepository batch access, state versioning and decision
+ * counters, run against the in-memory DynamoDB client.
+ */
+@DisplayName("WorkflowStateRepository Tests")
+class WorkflowStateRepositoryTest {
+
+    private static final String TABLE = "ldc-loan-review-state";
+
+    private InMemoryDynamoDbClient dynamoDbClient;
+    private WorkflowStateRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        dynamoDbClient = new InMemoryDynamoDbClient();
+        repository = new WorkflowStateRepository(dynamoDbClient, TABLE);
+    }
+
+    @Test
+    @DisplayName("Should increment the version on every save")
+    void testVersionIncrements() {
+        WorkflowState state = state("REQ-1", "1000000001");
+        repository.save(state);
+        repository.save(state);
+
+        assertEquals(2L, state.getVersion());
+        assertEquals("2", dynamoDbClient.get(TABLE, "REQ-1", "1000000001").get("Version").n());
+        assertEquals(2L, repository.findByRequestNumberAndLoanNumber("REQ-1", "1000000001").get().getVersion());
+    }
+
+    @Test
+    @DisplayName("Should reject a stored state older than the referenced version")
+    void testFindAtLeastVersion() {
+        repository.save(state("REQ-1", "1000000001"));
+
+        assertTrue(repository.findAtLeastVersion("REQ-1", "1000000001", 1).isPresent());
+        assertTrue(repository.findAtLeastVersion("REQ-1", "1000000002", 1).isEmpty());
+        assertThrows(IllegalStateException.class,
+                () -> repository.findAtLeastVersion("REQ-1", "1000000001", 2));
+    }
+
+    @Test
+    @DisplayName("Should store a task token without overwriting the rest of the state")
+    void testSaveTaskToken() {
+        WorkflowState state = state("REQ-1", "1000000001");
+        state.setLoanDecision("Approved");
+        repository.save(state);
+
+        WorkflowState updated = repository.saveTaskToken("REQ-1", "1000000001", "TOKEN-1").get();
+
+        assertEquals("TOKEN-1", updated.getTaskToken());
+        assertEquals("Approved", updated.getLoanDecision());
+        assertEquals(2L, updated.getVersion());
+        assertTrue(repository.saveTaskToken("REQ-1", "1000000002", "TOKEN-2").isEmpty());
+        assertNull(dynamoDbClient.get(TABLE, "REQ-1", "1000000002"));
+    }
+
+    @Test
+    @DisplayName("Should clear the task token only while it is the one named")
+    void testClearTaskToken() {
+        repository.save(state("REQ-1", "1000000001"));
+        repository.saveTaskToken("REQ-1", "1000000001", "TOKEN-2");
+
+        assertFalse(repository.clearTaskToken("REQ-1", "1000000001", "TOKEN-1"));
+        assertEquals("TOKEN-2",
+                repository.findByRequestNumberAndLoanNumber("REQ-1", "1000000001").get().getTaskToken());
+
+        assertTrue(repository.clearTaskToken("REQ-1", "1000000001", "TOKEN-2"));
+        WorkflowState cleared = repository.findByRequestNumberAndLoanNumber("REQ-1", "1000000001").get();
+        assertNull(cleared.getTaskToken());
+        assertEquals(3L, cleared.getVersion());
+        assertFalse(repository.clearTaskToken("REQ-1", "1000000002", "TOKEN-2"));
+    }
+
+    @Test
+    @DisplayName("Should batch write in chunks of 25 and retry unprocessed items")
+    void testSaveAllRetriesUnprocessed() {
+        List<WorkflowState> states = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            states.add(state("REQ-1", String.valueOf(1000000000L + i)));
+        }
+        dynamoDbClient.leaveUnprocessedOnNextBatchWrites(2);
+
+        List<WorkflowStateKey> failed = repository.saveAll(states);
+
+        assertTrue(failed.isEmpty());
+        assertEquals(60, dynamoDbClient.size(TABLE));
+        // 3 chunks, two of which needed a second call for their unprocessed item
+        assertEquals(5, dynamoDbClient.getCallCount());
+    }
+
+    @Test
+    @DisplayName("Should batch read existing states and omit missing keys")
+    void testFindAll() {
+        List<WorkflowStateKey> keys = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            String loanNumber = String.valueOf(1000000000L + i);
+            if (i % 2 == 0) {
+                repository.save(state("REQ-1", loanNumber));
+            }
+            keys.add(new WorkflowStateKey("REQ-1", loanNumber));
+        }
+
+        Map<WorkflowStateKey, WorkflowState> found = repository.findAll(keys);
+
+        assertEquals(75, found.size());
+        assertEquals("LDCReview", found.get(new WorkflowStateKey("REQ-1", "1000000148")).getReviewType());
+        assertFalse(found.containsKey(new WorkflowStateKey("REQ-1", "1000000149")));
+    }
+
+    @Test
+    @DisplayName("Should move the decision counters with the attributes in one conditional update")
+    void testSaveDecisionsAdjustsCounters() {
+        WorkflowState state = state("REQ-1", "1000000001");
+        state.setAttributes(List.of(new LoanAttribute("Income", "Pending"), new LoanAttribute("Credit", "Pending")));
+        repository.save(state);
+        assertEquals("2", dynamoDbClient.get(TABLE, "REQ-1", "1000000001").get("PendingCount").n());
+
+        DecisionSummary previous = DecisionSummary.of(state.getAttributes());
+        state.setLoanDecision("Approved");
+        state.setAttributes(List.of(new LoanAttribute("Income", "Approved"), new LoanAttribute("Credit", "Pending"),
+                new LoanAttribute("Asset", "Rejected")));
+        int writesBefore = dynamoDbClient.getWriteCount();
+        repository.saveDecisions(state, previous);
+
+        assertEquals(writesBefore + 1, dynamoDbClient.getWriteCount());
+        assertEquals(2L, state.getVersion());
+        DecisionProgress progress = repository.findDecisionProgress("REQ-1", "1000000001", 2L).get();
+        assertTrue(progress.hasCounters());
+        assertEquals("Approved", progress.getLoanDecision());
+        assertEquals(3, progress.getTotalCount());
+        assertEquals(1, progress.getCount(AttributeDecision.PENDING));
+        assertEquals(1, progress.getCount(AttributeDecision.APPROVED));
+        assertEquals(1, progress.getCount(AttributeDecision.REJECTED));
+        assertEquals(3, repository.findByRequestNumberAndLoanNumber("REQ-1", "1000000001").get()
+                .getAttributes().size());
+    }
+
+    @Test
+    @DisplayName("Should refuse a decision update against a state that changed since it was read")
+    void testSaveDecisionsRejectsStaleState() {
+        WorkflowState state = state("REQ-1", "1000000001");
+        state.setAttributes(List.of(new LoanAttribute("Income", "Pending")));
+        repository.save(state);
+        repository.saveTaskToken("REQ-1", "1000000001", "TOKEN-1");
+
+        DecisionSummary previous = DecisionSummary.of(state.getAttributes());
+        state.setAttributes(List.of(new LoanAttribute("Income", "Approved")));
+        assertThrows(StaleWorkflowStateException.class, () -> repository.saveDecisions(state, previous));
+        assertEquals("1", dynamoDbClient.get(TABLE, "REQ-1", "1000000001").get("PendingCount").n());
+    }
+
+    @Test
+    @DisplayName("Should save many decision updates in transactions and report only the stale states")
+    void testSaveAllDecisions() {
+        List<WorkflowState> states = new ArrayList<>();
+        Map<WorkflowStateKey, DecisionSummary> previous = new HashMap<>();
+        for (int i = 0; i < 120; i++) {
+            WorkflowState state = state("REQ-1", String.valueOf(1000000000L + i));
+            state.setAttributes(List.of(new LoanAttribute("Income", "Pending")));
+            repository.save(state);
+            previous.put(WorkflowStateKey.of(state), DecisionSummary.of(state.getAttributes()));
+            state.setLoanDecision("Approved");
+            state.setAttributes(List.of(new LoanAttribute("Income", "Approved")));
+            states.add(state);
+        }
+        // Written by another caller after the read
+        repository.saveTaskToken("REQ-1", "1000000007", "TOKEN-7");
+        int callsBefore = dynamoDbClient.getCallCount();
+
+        List<WorkflowStateKey> failed = repository.saveAllDecisions(states, previous);
+
+        assertEquals(List.of(new WorkflowStateKey("REQ-1", "1000000007")), failed);
+        // Chunk 1 cancelled, its stale state tried alone (update + check read), then resent; chunk 2 once
+        assertEquals(5, dynamoDbClient.getCallCount() - callsBefore);
+        assertEquals("TOKEN-7", dynamoDbClient.get(TABLE, "REQ-1", "1000000007").get("TaskToken").s());
+        assertEquals("1", dynamoDbClient.get(TABLE, "REQ-1", "1000000007").get("PendingCount").n());
+        DecisionProgress progress = repository.findDecisionProgress("REQ-1", "1000000119", 2L).get();
+        assertEquals("Approved", progress.getLoanDecision());
+        assertEquals(1, progress.getCount(AttributeDecision.APPROVED));
+        assertEquals(0, progress.getCount(AttributeDecision.PENDING));
+        assertEquals(2L, states.get(0).getVersion());
+    }
+
+    @Test
+    @DisplayName("Should rewrite a state stored before the counters existed")
+    void testSaveDecisionsBackfillsLegacyState() {
+        WorkflowState state = state("REQ-1", "1000000001");
+        state.setAttributes(List.of(new LoanAttribute("Income", "Pending"), new LoanAttribute("Credit", "Pending")));
+        repository.save(state);
+        dynamoDbClient.get(TABLE, "REQ-1", "1000000001").keySet().removeIf(name -> name.endsWith("Count"));
+        assertFalse(repository.findDecisionProgress("REQ-1", "1000000001", null).get().hasCounters());
+
+        DecisionSummary previous = DecisionSummary.of(state.getAttributes());
+        state.setAttributes(List.of(new LoanAttribute("Income", "Approved"), new LoanAttribute("Credit", "Pending")));
+        repository.saveDecisions(state, previous);
+
+        DecisionProgress progress = repository.findDecisionProgress("REQ-1", "1000000001", null).get();
+        assertEquals(2, progress.getTotalCount());
+        assertEquals(1, progress.getCount(AttributeDecision.PENDING));
+        assertEquals(1, progress.getCount(AttributeDecision.APPROVED));
+        assertEquals(2L, progress.getVersion());
+    }
+
+    @Test
+    @DisplayName("Should read Attributes JSON and replace it with encoded data on the next decision update")
+    void testMigratesAttributesJson() {
+        AttributeDictionaryProvider dictionary = AttributeDictionaryProvider.of(
+                AttributeDictionary.parse("{\"version\": 1, \"names\": [\"Income\", \"Credit\"]}"));
+        WorkflowStateRepository jsonRepository = new WorkflowStateRepository(dynamoDbClient, TABLE, dictionary, false);
+        repository = new WorkflowStateRepository(dynamoDbClient, TABLE, dictionary, true);
+        WorkflowState state = state("REQ-1", "1000000001");
+        state.setAttributes(List.of(new LoanAttribute("Income", "Pending"), new LoanAttribute("Credit", "Pending")));
+        jsonRepository.save(state);
+        assertTrue(dynamoDbClient.get(TABLE, "REQ-1", "1000000001").containsKey("Attributes"));
+
+        WorkflowState read = repository.findByRequestNumberAndLoanNumber("REQ-1", "1000000001").get();
+        DecisionSummary previous = DecisionSummary.of(read.getAttributes());
+        read.setAttributes(List.of(new LoanAttribute("Income", "Approved"), new LoanAttribute("Credit", "Pending")));
+        repository.saveDecisions(read, previous);
+
+        Map<String, software.amazon.awssdk.services.dynamodb.model.AttributeValue> item =
+                dynamoDbClient.get(TABLE, "REQ-1", "1000000001");
+        assertFalse(item.containsKey("Attributes"));
+        assertEquals(7, item.get("AttributeData").b().asByteArray().length);
+        assertEquals("Approved", jsonRepository.findByRequestNumberAndLoanNumber("REQ-1", "1000000001").get()
+                .getAttributes().get(0).getAttributeDecision());
+    }
+
+    private static WorkflowState state(String requestNumber, String loanNumber) {
+        WorkflowState state = new WorkflowState(requestNumber, loanNumber, "LDCReview");
+        state.setExecutionId("ldc-loan-review-" + requestNumber);
+        return state;
+    }
+}
@@ -0,0 +1,197 @@
+package com.ldc.workflow.service;
+
+import com.ldc.workflow.service.configuration.EnvironmentConfigurationSource;
+import com.ldc.workflow.service.configuration.SsmConfigurationSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.ssm.SsmClient;
+import software.amazon.awssdk.services.ssm.model.GetParameterRequest;
+import software.amazon.awssdk.services.ssm.model.GetParameterResponse;
+import software.amazon.awssdk.services.ssm.model.GetParametersByPathRequest;
+import software.amazon.awssdk.services.ssm.model.GetParametersByPathResponse;
+import software.amazon.awssdk.services.ssm.model.Parameter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the ConfigurationService parameter cache
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ConfigurationService Tests")
+class ConfigurationServiceTest {
+
+    private static final long TTL = TimeUnit.SECONDS.toNanos(300);
+    private static final long MAX_STALE = TimeUnit.SECONDS.toNanos(3600);
+
+    @Mock
+    private SsmClient ssmClient;
+
+    private AtomicLong now;
+    private ConfigurationService configurationService;
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong(0);
+        configurationService = new ConfigurationService(new SsmConfigurationSource(ssmClient), "/ldc-workflow", TTL, MAX_STALE, now::get);
+    }
+
+    @Test
+    @DisplayName("Should prefetch every page under the prefix and serve lookups from memory")
+    void testPrefetchPaginates() {
+        when(ssmClient.getParametersByPath(any(GetParametersByPathRequest.class))).thenAnswer(invocation -> {
+            GetParametersByPathRequest request = invocation.getArgument(0);
+            assertEquals("/ldc-workflow/", request.path());
+            assertTrue(request.recursive());
+            if (request.nextToken() == null) {
+                return GetParametersByPathResponse.builder().parameters(parameters(0, 10)).nextToken("page-2").build();
+            }
+            return GetParametersByPathResponse.builder().parameters(parameters(10, 17)).build();
+        });
+
+        assertEquals(17, configurationService.prefetch());
+
+        assertEquals("value-3", configurationService.getParameter("/ldc-workflow/p3"));
+        assertEquals("value-16", configurationService.getParameter("/ldc-workflow/p16"));
+        verify(ssmClient, times(2)).getParametersByPath(any(GetParametersByPathRequest.class));
+        verify(ssmClient, never()).getParameter(any(GetParameterRequest.class));
+
+        ConfigurationService.CacheStats stats = configurationService.getStats();
+        assertEquals(2, stats.getHits());
+        assertEquals(0, stats.getMisses());
+        assertEquals(17, stats.getPrefetchedCount());
+    }
+
+    @Test
+    @DisplayName("Should keep working when prefetch fails")
+    void testPrefetchFailureIsNotFatal() {
+        when(ssmClient.getParametersByPath(any(GetParametersByPathRequest.class)))
+                .thenThrow(new RuntimeException("AccessDenied"));
+        when(ssmClient.getParameter(any(GetParameterRequest.class))).thenReturn(response("on-demand"));
+
+        assertEquals(0, configurationService.prefetch());
+        assertEquals("on-demand", configurationService.getParameter("/ldc-workflow/vend-ppa/endpoint"));
+    }
+
+    @Test
+    @DisplayName("Should serve a stale value while refreshing it in the background")
+    void testStaleWhileRevalidate() throws Exception {
+        CountDownLatch refreshed = new CountDownLatch(1);
+        when(ssmClient.getParameter(any(GetParameterRequest.class)))
+                .thenReturn(response("https://old"))
+                .thenAnswer(invocation -> {
+                    refreshed.countDown();
+                    return response("https://new");
+                });
+
+        assertEquals("https://old", configurationService.getVendPpaEndpoint());
+
+        now.addAndGet(TTL + 1);
+        assertEquals("https://old", configurationService.getVendPpaEndpoint());
+        assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+
+        // The refreshed value replaces the stale one once the background load lands
+        String value = null;
+        for (int i = 0; i < 50 && !"https://new".equals(value); i++) {
+            value = configurationService.getVendPpaEndpoint();
+            Thread.sleep(10);
+        }
+        assertEquals("https://new", value);
+        assertTrue(configurationService.getStats().getStaleHits() >= 1);
+        assertEquals(1, configurationService.getStats().getRefreshes());
+    }
+
+    @Test
+    @DisplayName("Should reload synchronously once the max stale window has passed")
+    void testExpiredEntryLoadsSynchronously() {
+        when(ssmClient.getParameter(any(GetParameterRequest.class)))
+                .thenReturn(response("v1"))
+                .thenReturn(response("v2"));
+
+        assertEquals("v1", configurationService.getParameter("/ldc-workflow/x"));
+        now.addAndGet(MAX_STALE + 1);
+        assertEquals("v2", configurationService.getParameter("/ldc-workflow/x"));
+        assertEquals(2, configurationService.getStats().getMisses());
+    }
+
+    @Test
+    @DisplayName("Should issue a single SSM call for concurrent misses on the same parameter")
+    void testSingleFlight() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(ssmClient.getParameter(any(GetParameterRequest.class))).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return response("shared");
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(pool.submit(() -> configurationService.getParameter("/ldc-workflow/hot")));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("shared", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        verify(ssmClient, times(1)).getParameter(any(GetParameterRequest.class));
+    }
+
+    @Test
+    @DisplayName("Should not cache a missing parameter")
+    void testParameterNotFound() {
+        Map<String, String> environment = new HashMap<>();
+        ConfigurationService service = new ConfigurationService(new EnvironmentConfigurationSource(environment),
+                "/ldc-workflow", TTL, MAX_STALE, now::get);
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> service.getParameter("/ldc-workflow/missing"));
+        assertTrue(e.getMessage().contains("not found"));
+
+        environment.put("LDC_WORKFLOW_MISSING", "created");
+        assertEquals("created", service.getParameter("/ldc-workflow/missing"));
+    }
+
+    @Test
+    @DisplayName("Should report source failures separately from missing parameters")
+    void testSourceFailure() {
+        when(ssmClient.getParameter(any(GetParameterRequest.class)))
+                .thenThrow(new RuntimeException("ThrottlingException"));
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> configurationService.getParameter("/ldc-workflow/x"));
+        assertTrue(e.getMessage().startsWith("Failed to retrieve"));
+    }
+
+    private static List<Parameter> parameters(int from, int to) {
+        List<Parameter> parameters = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            parameters.add(Parameter.builder().name("/ldc-workflow/p" + i).value("value-" + i).build());
+        }
+        return parameters;
+    }
+
+    private static GetParameterResponse response(String value) {
+        return GetParameterResponse.builder().parameter(Parameter.builder().value(value).build()).build();
+    }
+}
@@ -0,0 +1,122 @@
+package com.ldc.workflow.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+/**
+ * Local stand-in for the Step Functions JSON API.
+ *
+ * Records every request (target, body, Authorization header) and answers from a
+ * queue of scripted responses, falling back to 200 "{}" when the queue is empty.
+ */
+public class LocalStepFunctionsEndpoint implements AutoCloseable {
+
+    static {
+        // Without TCP_NODELAY the JDK server's split header/body writes hit delayed ACKs
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final Queue<Response> scripted = new ConcurrentLinkedQueue<>();
+    private final List<Request> requests = new CopyOnWriteArrayList<>();
+    private volatile long latencyMillis;
+
+    public LocalStepFunctionsEndpoint() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(Executors.newCachedThreadPool());
+        this.server.start();
+    }
+
+    public URI getEndpoint() {
+        return URI.create("http://localhost:" + server.getAddress().getPort() + "/");
+    }
+
+    /**
+     * Queue an error response such as 400 ThrottlingException.
+     */
+    public LocalStepFunctionsEndpoint enqueueError(int status, String errorType) {
+        scripted.add(new Response(status, "{\"__type\":\"com.amazonaws.swf.service.v2.model#" + errorType
+                + "\",\"message\":\"" + errorType + "\"}"));
+        return this;
+    }
+
+    /**
+     * Delay every response, to model the service round trip.
+     */
+    public LocalStepFunctionsEndpoint withLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+        return this;
+    }
+
+    public List<Request> getRequests() {
+        return requests;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        requests.add(new Request(exchange.getRequestHeaders().getFirst("X-Amz-Target"),
+                exchange.getRequestHeaders().getFirst("Authorization"), body));
+
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        Response response = scripted.poll();
+        if (response == null) {
+            response = new Response(200, "{}");
+        }
+        byte[] bytes = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/x-amz-json-1.0");
+        exchange.sendResponseHeaders(response.status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    public static final class Request {
+        public final String target;
+        public final String authorization;
+        public final String body;
+
+        Request(String target, String authorization, String body) {
+            this.target = target;
+            this.authorization = authorization;
+            this.body = body;
+        }
+    }
+
+    private static final class Response {
+        private final int status;
+        private final String body;
+
+        private Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.ldc.workflow.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the Vend PPA API, with latency and failure injection.
+ *
+ * Records every submission (idempotency key and body). A submission is
+ * accepted once per idempotency key; a repeat gets the first response back with
+ * Idempotent-Replayed: true, as the real API promises. Failures come from a queue
+ * of scripted responses first, then from the random failure rate.
+ *
+ * POSTs to the endpoint + "/batch" carry {"Items": [{"IdempotencyKey",
+ * "Submission"}, ...]} and are answered with one {"IdempotencyKey", "Status",
+ * "Response" or "Error"} per item under "Results". A scripted fault answers the
+ * whole call; scripted item statuses and the random failure rate apply to each
+ * item on its own, and each item adds {@code itemMicros} of service time.
+ */
+public class LocalVendPpaEndpoint implements AutoCloseable {
+
+    static {
+        // Without TCP_NODELAY the JDK server's split header/body writes hit delayed ACKs
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Queue<Fault> scripted = new ConcurrentLinkedQueue<>();
+    private final Queue<Integer> scriptedItems = new ConcurrentLinkedQueue<>();
+    private final List<Request> requests = new CopyOnWriteArrayList<>();
+    private final Map<String, String> accepted = new ConcurrentHashMap<>();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private volatile long latencyMillis;
+    private volatile long jitterMillis;
+    private volatile double failureRate;
+    private volatile int failureStatus = 503;
+    private volatile double slowRate;
+    private volatile long slowMillis;
+    private volatile long itemMicros;
+
+    public LocalVendPpaEndpoint() throws IOException {
+        this(0);
+    }
+
+    /**
+     * Serve at most {@code workers} calls at a time, as an API with a concurrency
+     * limit would; the rest wait their turn. 0 is unlimited.
+     */
+    public LocalVendPpaEndpoint(int workers) throws IOException {
+        this.executor = workers > 0 ? Executors.newFixedThreadPool(workers) : Executors.newCachedThreadPool();
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    public String getEndpoint() {
+        return "http://localhost:" + server.getAddress().getPort() + "/v1/loans";
+    }
+
+    /**
+     * Delay every response by {@code latencyMillis} plus up to {@code jitterMillis}.
+     */
+    public LocalVendPpaEndpoint withLatency(long latencyMillis, long jitterMillis) {
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        return this;
+    }
+
+    /**
+     * Add this much service time per item of a batch call.
+     */
+    public LocalVendPpaEndpoint withItemMicros(long itemMicros) {
+        this.itemMicros = itemMicros;
+        return this;
+    }
+
+    /**
+     * Answer this fraction of requests, at random, with the given status.
+     */
+    public LocalVendPpaEndpoint withFailureRate(double failureRate, int status) {
+        this.failureRate = failureRate;
+        this.failureStatus = status;
+        return this;
+    }
+
+    /**
+     * Hold this fraction of requests, at random, an extra {@code slowMillis}.
+     */
+    public LocalVendPpaEndpoint withSlowRate(double slowRate, long slowMillis) {
+        this.slowRate = slowRate;
+        this.slowMillis = slowMillis;
+        return this;
+    }
+
+    /**
+     * Answer the next request with this status instead of accepting it.
+     */
+    public LocalVendPpaEndpoint enqueueStatus(int status) {
+        scripted.add(new Fault(status, 0));
+        return this;
+    }
+
+    /**
+     * Hold the next request this long before accepting it, to force a client timeout.
+     */
+    public LocalVendPpaEndpoint enqueueDelay(long millis) {
+        scripted.add(new Fault(200, millis));
+        return this;
+    }
+
+    /**
+     * Answer the next item of a batch call with this status instead of accepting it.
+     */
+    public LocalVendPpaEndpoint enqueueItemStatus(int status) {
+        scriptedItems.add(status);
+        return this;
+    }
+
+    public List<Request> getRequests() {
+        return requests;
+    }
+
+    /**
+     * Submissions accepted, one per idempotency key.
+     */
+    public int getAcceptedCount() {
+        return accepted.size();
+    }
+
+    /**
+     * HTTP calls received, single or batch.
+     */
+    public int getCallCount() {
+        return calls.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        calls.incrementAndGet();
+        String body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        boolean batch = exchange.getRequestURI().getPath().endsWith("/batch");
+        JsonNode items = batch ? objectMapper.readTree(body).path("Items") : null;
+        String key = exchange.getRequestHeaders().getFirst("Idempotency-Key");
+        if (!batch) {
+            requests.add(new Request(key, body));
+        }
+
+        Fault fault = scripted.poll();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delay = latencyMillis + (jitterMillis > 0 ? random.nextLong(jitterMillis + 1) : 0)
+                + (slowRate > 0 && random.nextDouble() < slowRate ? slowMillis : 0)
+                + (batch ? items.size() * itemMicros / 1000 : 0);
+        sleep(delay + (fault != null ? fault.delayMillis : 0));
+        if (batch && (fault == null || fault.status == 200)) {
+            respond(exchange, 200, handleBatch(items, random).toString());
+            return;
+        }
+
+        int status = fault != null ? fault.status
+                : failureRate > 0 && random.nextDouble() < failureRate ? failureStatus : 200;
+        String response;
+        if (status != 200) {
+            response = "{\"error\":\"HTTP" + status + "\",\"message\":\"Injected failure\"}";
+        } else if (key == null || key.isEmpty()) {
+            status = 400;
+            response = "{\"error\":\"MissingIdempotencyKey\",\"message\":\"Idempotency-Key header is required\"}";
+        } else {
+            String created = "{\"vendPpaId\":\"VEND-" + key.substring(0, 8) + "\",\"status\":\"SUCCESS\","
+                    + "\"idempotencyKey\":\"" + key + "\"}";
+            String previous = accepted.putIfAbsent(key, created);
+            response = previous != null ? previous : created;
+            if (previous != null) {
+                exchange.getResponseHeaders().add("Idempotent-Replayed", "true");
+            }
+        }
+
+        respond(exchange, status, response);
+    }
+
+    private ObjectNode handleBatch(JsonNode items, ThreadLocalRandom random) {
+        ObjectNode response = objectMapper.createObjectNode();
+        ArrayNode results = response.putArray("Results");
+        for (JsonNode item : items) {
+            String key = item.path("IdempotencyKey").asText();
+            requests.add(new Request(key, item.path("Submission").toString()));
+            ObjectNode result = results.addObject().put("IdempotencyKey", key);
+            Integer scriptedStatus = scriptedItems.poll();
+            int status = scriptedStatus != null ? scriptedStatus
+                    : failureRate > 0 && random.nextDouble() < failureRate ? failureStatus : 200;
+            if (status != 200) {
+                result.put("Status", status).putObject("Error")
+                        .put("error", "HTTP" + status)
+                        .put("message", "Injected failure");
+                continue;
+            }
+            ObjectNode created = objectMapper.createObjectNode()
+                    .put("vendPpaId", "VEND-" + key.substring(0, 8))
+                    .put("status", "SUCCESS")
+                    .put("idempotencyKey", key);
+            String previous = accepted.putIfAbsent(key, created.toString());
+            result.put("Status", 200).put("Replayed", previous != null).set("Response", created);
+        }
+        return response;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String response) throws IOException {
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        } catch (IOException e) {
+            // The client gave up on this request
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis > 0) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public static final class Request {
+        public final String idempotencyKey;
+        public final String body;
+
+        Request(String idempotencyKey, String body) {
+            this.idempotencyKey = idempotencyKey;
+            this.body = body;
+        }
+    }
+
+    private static final class Fault {
+        private final int status;
+        private final long delayMillis;
+
+        private Fault(int status, long delayMillis) {
+            this.status = status;
+            this.delayMillis = delayMillis;
+        }
+    }
+}
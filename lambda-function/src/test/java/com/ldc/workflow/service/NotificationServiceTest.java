@@ -0,0 +1,166 @@
+package com.ldc.workflow.service;
+
+import com.ldc.workflow.service.notification.EmailTemplateCache;
+import com.ldc.workflow.service.notification.LocalSmtpServer;
+import com.ldc.workflow.service.notification.SmtpEmailSender;
+import com.ldc.workflow.types.LoanAttribute;
+import com.ldc.workflow.types.WorkflowState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for NotificationService against the local SMTP stand-in
+ */
+@DisplayName("NotificationService Tests")
+class NotificationServiceTest {
+
+    private static final String TEMPLATE = "{\"version\": 1, \"subject\": \"Repurchase: {{loanNumber}}\", "
+            + "\"body\": \"{{requestNumber}} {{loanStatus}} [{{repurchaseAttributes}}]\"}";
+
+    private LocalSmtpServer smtp;
+    private NotificationService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        smtp = new LocalSmtpServer();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (service != null) {
+            service.close();
+        }
+        smtp.close();
+    }
+
+    private NotificationService service(Function<String, String> recipients, int batchSize, long windowMillis,
+                                        int maxAttempts, int queueCapacity) {
+        EmailTemplateCache templates = new EmailTemplateCache(type -> TEMPLATE, Long.MAX_VALUE, System::nanoTime);
+        return new NotificationService(templates, recipients,
+                new SmtpEmailSender(smtp.getHost(), smtp.getPort(), 2000), "noreply@ldc.com",
+                batchSize, windowMillis, 2, maxAttempts, queueCapacity);
+    }
+
+    private static WorkflowState repurchase(int i) {
+        WorkflowState state = new WorkflowState();
+        state.setRequestNumber("REQ-1");
+        state.setLoanNumber(String.valueOf(1000000000L + i));
+        state.setReviewType("LDCReview");
+        state.setLoanStatus("Repurchase");
+        state.setAttributes(List.of(new LoanAttribute("Income", "Repurchase"),
+                new LoanAttribute("Assets", "Approved"), new LoanAttribute("Title", "Repurchase")));
+        return state;
+    }
+
+    @Test
+    @DisplayName("Should render the template and send to every configured recipient")
+    void testSendsRenderedMessage() {
+        service = service(type -> "repurchase@ldc.com, audit@ldc.com", 10, 10, 3, 100);
+
+        service.notify("repurchase", repurchase(1)).join();
+
+        LocalSmtpServer.Received received = smtp.getMessages().get(0);
+        assertEquals(List.of("repurchase@ldc.com", "audit@ldc.com"), received.getTo());
+        assertEquals("Repurchase: 1000000001", received.getSubject());
+        assertEquals("REQ-1 Repurchase [Income, Title]\r\n", received.getBody());
+        assertEquals(1, service.getSentCount());
+        assertEquals(1, service.getTemplateCompileCount());
+    }
+
+    @Test
+    @DisplayName("Should retry a message the relay defers and fail one it rejects")
+    void testRetriesAndPermanentFailures() {
+        service = service(type -> "repurchase@ldc.com", 10, 10, 3, 100);
+        smtp.enqueueDataReply(451, 451);
+
+        service.notify("repurchase", repurchase(1)).join();
+        assertEquals(2, service.getRetriedCount());
+
+        smtp.enqueueDataReply(554);
+        CompletableFuture<Void> rejected = service.notify("repurchase", repurchase(2));
+        CompletionException failure = assertThrows(CompletionException.class, rejected::join);
+        assertTrue(failure.getCause().getMessage().contains("SMTP554"));
+
+        smtp.enqueueDataReply(451, 451, 451);
+        assertThrows(CompletionException.class, () -> service.notify("repurchase", repurchase(3)).join());
+        assertEquals(2, service.getFailedCount());
+        assertEquals(1, service.getSentCount());
+    }
+
+    @Test
+    @DisplayName("Should fail the notification, not the caller, when no recipients are configured")
+    void testMissingRecipients() {
+        service = service(type -> {
+            throw new IllegalStateException("Parameter not found");
+        }, 10, 10, 3, 100);
+
+        CompletableFuture<Void> result = service.notify("repurchase", repurchase(1));
+
+        CompletionException failure = assertThrows(CompletionException.class, result::join);
+        assertTrue(failure.getCause().getMessage().startsWith("NoRecipients"));
+        assertEquals(0, smtp.getSessionCount());
+    }
+
+    @Test
+    @DisplayName("Should drop notifications when the queue is full instead of blocking")
+    void testDropsWhenQueueIsFull() throws Exception {
+        smtp.withMessageMicros(20_000);
+        service = service(type -> "repurchase@ldc.com", 1, 0, 1, 2);
+
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            results.add(service.notify("repurchase", repurchase(i)));
+        }
+
+        assertTrue(service.getDroppedCount() > 0);
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).exceptionally(e -> null)
+                .get(10, TimeUnit.SECONDS);
+        assertEquals(50, service.getSentCount() + service.getDroppedCount());
+    }
+
+    @Test
+    @DisplayName("Should absorb a burst of repurchase decisions without blocking and send it in batches")
+    void testBurstThroughput() throws Exception {
+        int notifications = 2000;
+        smtp.withMessageMicros(200);
+        service = service(type -> "repurchase@ldc.com", 50, 20, 4, 10_000);
+
+        long start = System.nanoTime();
+        long slowestEnqueue = 0;
+        List<CompletableFuture<Void>> results = new ArrayList<>(notifications);
+        for (int i = 0; i < notifications; i++) {
+            long before = System.nanoTime();
+            results.add(service.notify("repurchase", repurchase(i)));
+            slowestEnqueue = Math.max(slowestEnqueue, System.nanoTime() - before);
+        }
+        long enqueued = System.nanoTime() - start;
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - start;
+
+        double perSecond = notifications / (elapsed / 1e9);
+        System.out.printf("Burst of %d repurchase notifications: enqueued in %.1f ms (slowest %.2f ms), "
+                        + "delivered in %.0f ms (%.0f msgs/s) over %d SMTP sessions, p99 %.1f ms%n",
+                notifications, enqueued / 1e6, slowestEnqueue / 1e6, elapsed / 1e6, perSecond,
+                smtp.getSessionCount(), service.getLatency().getPercentileMicros(99) / 1000.0);
+
+        assertEquals(notifications, smtp.getMessages().size());
+        assertEquals(notifications, service.getSentCount());
+        assertEquals(0, service.getDroppedCount());
+        // Enqueueing never waits for a send: the whole burst is queued well before it is delivered
+        assertTrue(enqueued < elapsed / 2, "enqueue took " + enqueued / 1e6 + " ms");
+        assertTrue(smtp.getSessionCount() <= notifications / 10,
+                "expected batched sessions, got " + smtp.getSessionCount());
+        assertEquals(1, service.getTemplateCompileCount());
+    }
+}
@@ -0,0 +1,109 @@
+package com.ldc.workflow.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for StepFunctionsService against a local Step Functions stub
+ */
+@DisplayName("StepFunctionsService Tests")
+class StepFunctionsServiceTest {
+
+    private LocalStepFunctionsEndpoint endpoint;
+    private StepFunctionsService stepFunctionsService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        endpoint = new LocalStepFunctionsEndpoint();
+        stepFunctionsService = new StepFunctionsService(endpoint.getEndpoint(), "us-east-1",
+                StaticCredentialsProvider.create(AwsBasicCredentials.create("AKIDEXAMPLE", "secret")),
+                4, Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        endpoint.close();
+    }
+
+    @Test
+    @DisplayName("Should send a SigV4-signed SendTaskSuccess request")
+    void testSendTaskSuccessIsSigned() {
+        stepFunctionsService.sendTaskSuccess("TOKEN-123", "{\"status\":\"Approved\"}");
+
+        assertEquals(1, endpoint.getRequests().size());
+        LocalStepFunctionsEndpoint.Request request = endpoint.getRequests().get(0);
+        assertEquals("AWSStepFunctions.SendTaskSuccess", request.target);
+        assertTrue(request.authorization.startsWith("AWS4-HMAC-SHA256 Credential=AKIDEXAMPLE/"));
+        assertTrue(request.authorization.contains("/us-east-1/states/aws4_request"));
+        assertTrue(request.body.contains("\"taskToken\":\"TOKEN-123\""));
+        assertEquals(1, stepFunctionsService.getLatency("SendTaskSuccess").getCount());
+    }
+
+    @Test
+    @DisplayName("Should retry throttled calls and then succeed")
+    void testRetriesThrottling() throws Exception {
+        endpoint.enqueueError(400, "ThrottlingException").enqueueError(503, "ServiceUnavailable");
+
+        stepFunctionsService.sendTaskHeartbeatAsync("TOKEN-1").get(10, TimeUnit.SECONDS);
+
+        assertEquals(3, endpoint.getRequests().size());
+        assertEquals("AWSStepFunctions.SendTaskHeartbeat", endpoint.getRequests().get(2).target);
+        assertEquals(2, stepFunctionsService.getRetryCount());
+        assertEquals(1, stepFunctionsService.getThrottleCount());
+    }
+
+    @Test
+    @DisplayName("Should not retry when the task token is no longer valid")
+    void testDoesNotRetryTaskTimedOut() {
+        endpoint.enqueueError(400, "TaskTimedOut");
+
+        CompletableFuture<Void> future = stepFunctionsService.sendTaskFailureAsync("TOKEN-1", "Error", "cause");
+
+        CompletionException e = assertThrows(CompletionException.class, future::join);
+        StepFunctionsService.StepFunctionsException cause =
+                assertInstanceOf(StepFunctionsService.StepFunctionsException.class, e.getCause());
+        assertEquals("TaskTimedOut", cause.getErrorType());
+        assertFalse(cause.isRetryable());
+        assertEquals(1, endpoint.getRequests().size());
+    }
+
+    @Test
+    @DisplayName("Should give up after the maximum number of attempts")
+    void testGivesUpAfterMaxAttempts() {
+        for (int i = 0; i < 4; i++) {
+            endpoint.enqueueError(400, "ThrottlingException");
+        }
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> stepFunctionsService.sendTaskSuccess("TOKEN-1", "{}"));
+        assertInstanceOf(StepFunctionsService.StepFunctionsException.class, e.getCause());
+        assertEquals(4, endpoint.getRequests().size());
+    }
+
+    @Test
+    @DisplayName("Should run many calls concurrently over the shared client")
+    void testConcurrentAsyncCalls() {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            futures.add(stepFunctionsService.sendTaskSuccessAsync("TOKEN-" + i, "{}"));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        assertEquals(200, endpoint.getRequests().size());
+        assertEquals(200, stepFunctionsService.getLatency("SendTaskSuccess").getCount());
+        assertTrue(stepFunctionsService.getLatency("SendTaskSuccess").getPercentileMicros(99) > 0);
+    }
+}
@@ -0,0 +1,175 @@
+package com.ldc.workflow.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.ldc.workflow.types.LoanAttribute;
+import com.ldc.workflow.util.CircuitBreaker;
+import com.ldc.workflow.util.RetryBudget;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for VendPpaBatcher against the local Vend PPA stub
+ */
+@DisplayName("VendPpaBatcher Tests")
+class VendPpaBatcherTest {
+
+    private LocalVendPpaEndpoint endpoint;
+    private VendPpaClient client;
+    private VendPpaBatcher batcher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        endpoint = new LocalVendPpaEndpoint();
+        client = new VendPpaClient(endpoint::getEndpoint, Duration.ofSeconds(1), Duration.ofSeconds(5), 3,
+                new RetryBudget(0.1, 10), new CircuitBreaker(5, 10_000));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) {
+            batcher.close();
+        }
+        endpoint.close();
+    }
+
+    private static VendPpaClient.Submission submission(int i) {
+        return new VendPpaClient.Submission("REQ-1", String.valueOf(1000000000L + i), 1L, "Approved", "Approved",
+                List.of(new LoanAttribute("Income", "Approved")));
+    }
+
+    private List<CompletableFuture<JsonNode>> submitAll(int loans) {
+        List<CompletableFuture<JsonNode>> results = new ArrayList<>();
+        for (int i = 0; i < loans; i++) {
+            results.add(batcher.submitAsync(submission(i), Long.MAX_VALUE));
+        }
+        return results;
+    }
+
+    @Test
+    @DisplayName("Should send a full batch in one call and hand each loan its own response")
+    void testFullBatchIsOneCall() {
+        batcher = new VendPpaBatcher(client, 5, 60_000, 4, 3);
+
+        List<CompletableFuture<JsonNode>> results = submitAll(10);
+
+        for (int i = 0; i < 10; i++) {
+            JsonNode response = VendPpaBatcher.join(results.get(i));
+            assertEquals(submission(i).getIdempotencyKey(), response.get("idempotencyKey").asText());
+        }
+        assertEquals(2, endpoint.getCallCount());
+        assertEquals(2, batcher.getBatchCount());
+        assertEquals(10, endpoint.getAcceptedCount());
+        assertEquals(2, client.getBatchLatency().getCount());
+    }
+
+    @Test
+    @DisplayName("Should send a partial batch when the window closes")
+    void testWindowSendsPartialBatch() {
+        batcher = new VendPpaBatcher(client, 50, 20, 4, 3);
+
+        long start = System.nanoTime();
+        List<CompletableFuture<JsonNode>> results = submitAll(3);
+        results.forEach(VendPpaBatcher::join);
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertEquals(1, endpoint.getCallCount());
+        assertEquals(3, batcher.getItemCount());
+    }
+
+    @Test
+    @DisplayName("Should send at once on flush instead of waiting for the window")
+    void testFlushSendsAtOnce() {
+        batcher = new VendPpaBatcher(client, 50, 60_000, 4, 3);
+
+        List<CompletableFuture<JsonNode>> results = submitAll(3);
+        batcher.flush();
+
+        results.forEach(result -> assertNotNull(result.orTimeout(5, TimeUnit.SECONDS).join()));
+        assertEquals(1, endpoint.getCallCount());
+    }
+
+    @Test
+    @DisplayName("Should fail only the rejected loan of a batch")
+    void testRejectedItemFailsAlone() {
+        batcher = new VendPpaBatcher(client, 3, 60_000, 4, 3);
+        endpoint.enqueueItemStatus(200).enqueueItemStatus(422);
+
+        List<CompletableFuture<JsonNode>> results = submitAll(3);
+
+        assertNotNull(VendPpaBatcher.join(results.get(0)));
+        VendPpaClient.VendPpaException failure = assertThrows(VendPpaClient.VendPpaException.class,
+                () -> VendPpaBatcher.join(results.get(1)));
+        assertEquals(422, failure.getStatusCode());
+        assertFalse(failure.isRetryable());
+        assertNotNull(VendPpaBatcher.join(results.get(2)));
+        assertEquals(1, endpoint.getCallCount());
+        assertEquals(1, batcher.getItemFailureCount());
+    }
+
+    @Test
+    @DisplayName("Should put a loan that failed with a retryable status into a later batch")
+    void testRetryableItemIsRequeued() {
+        batcher = new VendPpaBatcher(client, 2, 20, 4, 3);
+        endpoint.enqueueItemStatus(503);
+
+        List<CompletableFuture<JsonNode>> results = submitAll(2);
+
+        results.forEach(VendPpaBatcher::join);
+        assertEquals(2, endpoint.getCallCount());
+        assertEquals(1, batcher.getRequeuedCount());
+        assertEquals(3, endpoint.getRequests().size());
+        assertEquals(2, endpoint.getAcceptedCount());
+    }
+
+    @Test
+    @DisplayName("Should fail every loan of a batch the API rejected as a whole")
+    void testRejectedCallFailsEveryItem() {
+        batcher = new VendPpaBatcher(client, 2, 60_000, 4, 3);
+        endpoint.enqueueStatus(400);
+
+        List<CompletableFuture<JsonNode>> results = submitAll(2);
+
+        for (CompletableFuture<JsonNode> result : results) {
+            assertEquals(400, assertThrows(VendPpaClient.VendPpaException.class,
+                    () -> VendPpaBatcher.join(result)).getStatusCode());
+        }
+        assertEquals(0, endpoint.getAcceptedCount());
+    }
+
+    @Test
+    @DisplayName("Should send a loan submitted twice in one batch once")
+    void testDuplicateKeySentOnce() {
+        batcher = new VendPpaBatcher(client, 3, 20, 4, 3);
+
+        CompletableFuture<JsonNode> first = batcher.submitAsync(submission(1), Long.MAX_VALUE);
+        CompletableFuture<JsonNode> second = batcher.submitAsync(submission(1), Long.MAX_VALUE);
+        batcher.flush();
+
+        assertEquals(VendPpaBatcher.join(first), VendPpaBatcher.join(second));
+        assertEquals(1, endpoint.getRequests().size());
+        assertEquals(1, batcher.getItemCount());
+    }
+
+    @Test
+    @DisplayName("Should call the single-loan endpoint when batching is off")
+    void testBatchSizeOneCallsDirectly() {
+        batcher = new VendPpaBatcher(client, 1, 200, 4, 3);
+
+        JsonNode response = batcher.submit(submission(1), Long.MAX_VALUE);
+
+        assertEquals("SUCCESS", response.get("status").asText());
+        assertEquals(1, client.getLatency().getCount());
+        assertEquals(0, client.getBatchLatency().getCount());
+        assertEquals(0, batcher.getBatchCount());
+    }
+}
@@ -0,0 +1,175 @@
+package com.ldc.workflow.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.ldc.workflow.types.LoanAttribute;
+import com.ldc.workflow.util.CircuitBreaker;
+import com.ldc.workflow.util.RetryBudget;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for VendPpaClient against the local Vend PPA stub
+ */
+@DisplayName("VendPpaClient Tests")
+class VendPpaClientTest {
+
+    private static final VendPpaClient.Submission SUBMISSION = new VendPpaClient.Submission("REQ-1", "1000000001",
+            3L, "Approved", "Approved", List.of(new LoanAttribute("Income", "Approved")));
+
+    private LocalVendPpaEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        endpoint = new LocalVendPpaEndpoint();
+    }
+
+    @AfterEach
+    void tearDown() {
+        endpoint.close();
+    }
+
+    private VendPpaClient client(Duration attemptTimeout, RetryBudget budget, CircuitBreaker breaker) {
+        return new VendPpaClient(endpoint::getEndpoint, Duration.ofSeconds(1), attemptTimeout, 3, budget, breaker);
+    }
+
+    private VendPpaClient client() {
+        return client(Duration.ofSeconds(5), new RetryBudget(0.1, 10), new CircuitBreaker(5, 10_000));
+    }
+
+    @Test
+    @DisplayName("Should send the submission with its idempotency key")
+    void testSubmitSendsIdempotencyKey() {
+        VendPpaClient client = client();
+
+        JsonNode response = client.submit(SUBMISSION, Long.MAX_VALUE);
+
+        assertEquals("SUCCESS", response.get("status").asText());
+        assertEquals(1, endpoint.getRequests().size());
+        LocalVendPpaEndpoint.Request request = endpoint.getRequests().get(0);
+        assertEquals(VendPpaClient.idempotencyKey("REQ-1", "1000000001", 3L), request.idempotencyKey);
+        assertTrue(request.body.contains("\"RequestNumber\":\"REQ-1\""));
+        assertTrue(request.body.contains("\"DecisionVersion\":3"));
+        assertEquals(1, client.getLatency().getCount());
+    }
+
+    @Test
+    @DisplayName("Should derive a stable key that changes with the decision version")
+    void testIdempotencyKey() {
+        String key = VendPpaClient.idempotencyKey("REQ-1", "1000000001", 3L);
+
+        assertEquals(key, VendPpaClient.idempotencyKey("REQ-1", "1000000001", 3L));
+        assertNotEquals(key, VendPpaClient.idempotencyKey("REQ-1", "1000000001", 4L));
+        assertNotEquals(key, VendPpaClient.idempotencyKey("REQ-1", "1000000002", 3L));
+    }
+
+    @Test
+    @DisplayName("Should retry a 503 with the same key and record the decision once")
+    void testRetriesServerErrors() {
+        endpoint.enqueueStatus(503).enqueueStatus(502);
+        VendPpaClient client = client();
+
+        client.submit(SUBMISSION, Long.MAX_VALUE);
+        client.submit(SUBMISSION, Long.MAX_VALUE);
+
+        assertEquals(4, endpoint.getRequests().size());
+        assertEquals(1, endpoint.getRequests().stream().map(r -> r.idempotencyKey).distinct().count());
+        assertEquals(1, endpoint.getAcceptedCount());
+        assertEquals(2, client.getRetryCount());
+        assertEquals(2, client.getLatency().getCount());
+        assertEquals(4, client.getAttemptLatency().getCount());
+    }
+
+    @Test
+    @DisplayName("Should not retry a rejected request")
+    void testDoesNotRetryClientErrors() {
+        endpoint.enqueueStatus(422);
+        VendPpaClient client = client();
+
+        VendPpaClient.VendPpaException e = assertThrows(VendPpaClient.VendPpaException.class,
+                () -> client.submit(SUBMISSION, Long.MAX_VALUE));
+
+        assertEquals(422, e.getStatusCode());
+        assertFalse(e.isRetryable());
+        assertEquals(1, endpoint.getRequests().size());
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitBreaker().getState());
+    }
+
+    @Test
+    @DisplayName("Should time out a slow attempt and retry it")
+    void testRetriesTimeouts() {
+        endpoint.enqueueDelay(2_000);
+        VendPpaClient client = client(Duration.ofMillis(200), new RetryBudget(0.1, 10),
+                new CircuitBreaker(5, 10_000));
+
+        JsonNode response = client.submit(SUBMISSION, Long.MAX_VALUE);
+
+        assertEquals("SUCCESS", response.get("status").asText());
+        assertEquals(1, client.getTimeoutCount());
+        assertEquals(1, client.getRetryCount());
+    }
+
+    @Test
+    @DisplayName("Should give up when the deadline leaves no time to retry")
+    void testStopsAtDeadline() {
+        endpoint.withLatency(1_000, 0);
+        VendPpaClient client = client();
+        long start = System.nanoTime();
+
+        VendPpaClient.VendPpaException e = assertThrows(VendPpaClient.VendPpaException.class,
+                () -> client.submit(SUBMISSION, start + TimeUnit.MILLISECONDS.toNanos(300)));
+
+        assertEquals("Timeout", e.getErrorType());
+        assertEquals(1, endpoint.getRequests().size());
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(900));
+    }
+
+    @Test
+    @DisplayName("Should fail fast while the circuit breaker is open, then close it on a good probe")
+    void testCircuitBreaker() {
+        AtomicLong clock = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker(2, TimeUnit.SECONDS.toNanos(10), clock::get);
+        VendPpaClient client = client(Duration.ofSeconds(5), new RetryBudget(0, 0), breaker);
+        endpoint.enqueueStatus(503).enqueueStatus(503);
+
+        assertThrows(VendPpaClient.VendPpaException.class, () -> client.submit(SUBMISSION, Long.MAX_VALUE));
+        assertThrows(VendPpaClient.VendPpaException.class, () -> client.submit(SUBMISSION, Long.MAX_VALUE));
+        VendPpaClient.VendPpaException open = assertThrows(VendPpaClient.VendPpaException.class,
+                () -> client.submit(SUBMISSION, Long.MAX_VALUE));
+
+        assertEquals("CircuitOpen", open.getErrorType());
+        assertEquals(2, endpoint.getRequests().size());
+        assertEquals(1, breaker.getRejectedCount());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        client.submit(SUBMISSION, Long.MAX_VALUE);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(3, endpoint.getRequests().size());
+    }
+
+    @Test
+    @DisplayName("Should stop retrying once the retry budget is spent")
+    void testRetryBudget() {
+        RetryBudget budget = new RetryBudget(0, 1);
+        VendPpaClient client = client(Duration.ofSeconds(5), budget, new CircuitBreaker(10, 10_000));
+        endpoint.enqueueStatus(503);
+        client.submit(SUBMISSION, Long.MAX_VALUE);
+
+        endpoint.enqueueStatus(503);
+        VendPpaClient.VendPpaException e = assertThrows(VendPpaClient.VendPpaException.class,
+                () -> client.submit(SUBMISSION, Long.MAX_VALUE));
+
+        assertEquals(503, e.getStatusCode());
+        assertEquals(1, budget.getExhaustedCount());
+        assertEquals(3, endpoint.getRequests().size());
+    }
+}
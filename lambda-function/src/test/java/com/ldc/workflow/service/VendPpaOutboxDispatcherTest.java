@@ -0,0 +1,220 @@
+package com.ldc.workflow.service;
+
+import com.ldc.workflow.repository.InMemoryDynamoDbClient;
+import com.ldc.workflow.repository.VendPpaOutboxRepository;
+import com.ldc.workflow.repository.WorkflowStateRepository;
+import com.ldc.workflow.types.LoanAttribute;
+import com.ldc.workflow.types.WorkflowState;
+import com.ldc.workflow.types.WorkflowStateKey;
+import com.ldc.workflow.util.Backoff;
+import com.ldc.workflow.util.CircuitBreaker;
+import com.ldc.workflow.util.RetryBudget;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for VendPpaOutboxDispatcher against the local Vend PPA stub and the
+ * in-memory DynamoDB client.
+ */
+@DisplayName("VendPpaOutboxDispatcher Tests")
+class VendPpaOutboxDispatcherTest {
+
+    private static final String TABLE = "ldc-loan-review-state";
+    private static final String OUTBOX = TABLE + "-outbox";
+
+    private LocalVendPpaEndpoint endpoint;
+    private InMemoryDynamoDbClient dynamoDbClient;
+    private WorkflowStateRepository stateRepository;
+    private VendPpaOutboxRepository outbox;
+    private StepFunctionsService stepFunctionsService;
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        endpoint = new LocalVendPpaEndpoint();
+        dynamoDbClient = new InMemoryDynamoDbClient();
+        stateRepository = new WorkflowStateRepository(dynamoDbClient, TABLE);
+        outbox = new VendPpaOutboxRepository(dynamoDbClient, TABLE, OUTBOX);
+        stepFunctionsService = mock(StepFunctionsService.class);
+        when(stepFunctionsService.sendTaskSuccessAsync(anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(stepFunctionsService.sendTaskFailureAsync(anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        endpoint.close();
+    }
+
+    private VendPpaOutboxDispatcher dispatcher(int concurrency, int maxDeliveries) {
+        return dispatcher(concurrency, maxDeliveries, new CircuitBreaker(1000, 10_000));
+    }
+
+    private VendPpaOutboxDispatcher dispatcher(int concurrency, int maxDeliveries, CircuitBreaker breaker) {
+        // One HTTP attempt per delivery, so every retry goes through the outbox
+        VendPpaClient client = new VendPpaClient(endpoint::getEndpoint, Duration.ofSeconds(1),
+                Duration.ofSeconds(5), 1, new RetryBudget(0.1, 10), breaker);
+        return new VendPpaOutboxDispatcher(outbox, new VendPpaBatcher(client, 1, 0, 1, 1), stepFunctionsService,
+                concurrency, 60_000, maxDeliveries, new Backoff(1000, 300_000), 0, clock::get);
+    }
+
+    @Test
+    @DisplayName("Should deliver a queued loan, delete its row and resume the waiting execution")
+    void testDispatchAcknowledgesAndResumes() {
+        List<WorkflowStateKey> keys = enqueue(1);
+        outbox.attachTaskToken("REQ-1", keys.get(0).getLoanNumber(), "TOKEN-1");
+        VendPpaOutboxDispatcher dispatcher = dispatcher(4, 8);
+        clock.addAndGet(250);
+
+        VendPpaOutboxDispatcher.Result result = dispatcher.dispatch(keys);
+
+        assertEquals(1, result.getClaimed());
+        assertEquals(1, result.getAcknowledged());
+        assertEquals(1, endpoint.getAcceptedCount());
+        assertEquals(0, dynamoDbClient.size(OUTBOX));
+        assertEquals(1, dispatcher.getLag().getCount());
+        assertEquals(250_000, dispatcher.getLag().getMeanMicros(), 1);
+        verify(stepFunctionsService).sendTaskSuccessAsync(eq("TOKEN-1"), contains("\"status\":\"SUCCESS\""));
+
+        // The stream delivers the same key again: nothing is left to send
+        VendPpaOutboxDispatcher.Result again = dispatcher.dispatch(keys);
+        assertEquals(1, again.getSkipped());
+        assertEquals(1, endpoint.getRequests().size());
+    }
+
+    @Test
+    @DisplayName("Should give a failed delivery back and redeliver it from a sweep")
+    void testRetryableFailureIsRedelivered() {
+        List<WorkflowStateKey> keys = enqueue(1);
+        endpoint.enqueueStatus(503);
+        VendPpaOutboxDispatcher dispatcher = dispatcher(4, 8);
+
+        VendPpaOutboxDispatcher.Result first = dispatcher.dispatch(keys);
+        assertEquals(1, first.getReleased());
+        assertEquals(1, dynamoDbClient.size(OUTBOX));
+        assertEquals(0, dispatcher.sweep(100).getClaimed());
+
+        clock.addAndGet(2_000);
+        VendPpaOutboxDispatcher.Result sweep = dispatcher.sweep(100);
+
+        assertEquals(1, sweep.getAcknowledged());
+        assertEquals(1, dispatcher.getRedeliveredCount());
+        assertEquals(2, endpoint.getRequests().size());
+        assertEquals(1, endpoint.getAcceptedCount());
+        assertEquals(0, dynamoDbClient.size(OUTBOX));
+    }
+
+    @Test
+    @DisplayName("Should fail the row and the waiting execution when the call cannot succeed")
+    void testNonRetryableFailureFailsExecution() {
+        List<WorkflowStateKey> keys = enqueue(1);
+        outbox.attachTaskToken("REQ-1", keys.get(0).getLoanNumber(), "TOKEN-1");
+        endpoint.enqueueStatus(400);
+        VendPpaOutboxDispatcher dispatcher = dispatcher(4, 8);
+
+        VendPpaOutboxDispatcher.Result result = dispatcher.dispatch(keys);
+
+        assertEquals(1, result.getFailed());
+        assertEquals(VendPpaOutboxRepository.FAILED,
+                dynamoDbClient.get(OUTBOX, "REQ-1", keys.get(0).getLoanNumber()).get("OutboxStatus").s());
+        verify(stepFunctionsService).sendTaskFailureAsync(eq("TOKEN-1"),
+                eq(VendPpaOutboxDispatcher.FAILED_ERROR), anyString());
+        verify(stepFunctionsService, never()).sendTaskSuccessAsync(anyString(), anyString());
+        clock.addAndGet(3_600_000);
+        assertEquals(0, dispatcher.sweep(100).getClaimed());
+    }
+
+    @Test
+    @DisplayName("Should keep rows the open circuit breaker did not let out for a later delivery")
+    void testCircuitOpenIsRedelivered() {
+        List<WorkflowStateKey> keys = enqueue(2);
+        endpoint.enqueueStatus(503);
+        VendPpaOutboxDispatcher dispatcher = dispatcher(1, 8, new CircuitBreaker(1, 60_000));
+
+        VendPpaOutboxDispatcher.Result result = dispatcher.dispatch(keys);
+
+        assertEquals(2, result.getReleased());
+        assertEquals(0, result.getFailed());
+        assertEquals(1, endpoint.getRequests().size());
+        assertEquals(2, outbox.findDue(Long.MAX_VALUE, 10).size());
+    }
+
+    @Test
+    @DisplayName("Should stop redelivering after the maximum number of deliveries")
+    void testMaxDeliveries() {
+        List<WorkflowStateKey> keys = enqueue(1);
+        endpoint.withFailureRate(1.0, 503);
+        VendPpaOutboxDispatcher dispatcher = dispatcher(4, 3);
+
+        dispatcher.dispatch(keys);
+        for (int i = 0; i < 5; i++) {
+            clock.addAndGet(600_000);
+            dispatcher.sweep(100);
+        }
+
+        assertEquals(3, endpoint.getRequests().size());
+        assertEquals(2, dispatcher.getReleasedCount());
+        assertEquals(1, dispatcher.getFailedCount());
+        assertEquals(VendPpaOutboxRepository.FAILED,
+                dynamoDbClient.get(OUTBOX, "REQ-1", keys.get(0).getLoanNumber()).get("OutboxStatus").s());
+    }
+
+    @Test
+    @DisplayName("Should send each loan once when the stream and a sweep deliver it together")
+    void testConcurrentDispatchersSendOnce() throws Exception {
+        List<WorkflowStateKey> keys = enqueue(40);
+        endpoint.withLatency(5, 5);
+        VendPpaOutboxDispatcher stream = dispatcher(8, 8);
+        VendPpaOutboxDispatcher sweep = dispatcher(8, 8);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<VendPpaOutboxDispatcher.Result> a = executor.submit(() -> stream.dispatch(keys));
+            Future<VendPpaOutboxDispatcher.Result> b = executor.submit(() -> sweep.sweep(100));
+            VendPpaOutboxDispatcher.Result first = a.get();
+            VendPpaOutboxDispatcher.Result second = b.get();
+
+            assertEquals(40, first.getClaimed() + second.getClaimed());
+            assertEquals(40, first.getAcknowledged() + second.getAcknowledged());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(40, endpoint.getRequests().size());
+        assertEquals(40, new HashSet<>(endpoint.getRequests().stream().map(r -> r.idempotencyKey).toList()).size());
+        assertEquals(0, dynamoDbClient.size(OUTBOX));
+    }
+
+    private List<WorkflowStateKey> enqueue(int loans) {
+        List<WorkflowStateKey> keys = new ArrayList<>();
+        for (int i = 0; i < loans; i++) {
+            WorkflowState state = new WorkflowState("REQ-1", String.valueOf(1000000000L + i), "LDCReview");
+            state.setLoanDecision("Approved");
+            state.setAttributes(List.of(new LoanAttribute("Income", "Approved")));
+            stateRepository.save(state);
+            outbox.enqueue(state, "Approved", clock.get());
+            keys.add(new WorkflowStateKey(state.getRequestNumber(), state.getLoanNumber()));
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,137 @@
+package com.ldc.workflow.service.audit;
+
+import com.ldc.workflow.types.AuditRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the journal and structured-log audit sinks and the replayer.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Audit sink Tests")
+class JournalAuditSinkTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private DynamoDbClient dynamoDbClient;
+
+    @Test
+    @DisplayName("Should make concurrently written records durable on flush")
+    void testConcurrentWritesAreDurableAfterFlush() throws Exception {
+        Path journal = tempDir.resolve("audit.journal");
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try (JournalAuditSink sink = new JournalAuditSink(journal, 64, 2)) {
+            for (int i = 0; i < 1000; i++) {
+                int n = i;
+                pool.submit(() -> sink.write(record("REQ-" + n)));
+            }
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+            sink.flush();
+
+            List<String> lines = Files.readAllLines(journal, StandardCharsets.UTF_8);
+            assertEquals(1000, lines.size());
+            assertTrue(lines.stream().allMatch(line -> line.startsWith("{\"logType\":\"AUDIT\"")));
+        }
+    }
+
+    @Test
+    @DisplayName("Should append to an existing journal instead of truncating it")
+    void testReopenAppends() throws Exception {
+        Path journal = tempDir.resolve("nested/audit.journal");
+        try (JournalAuditSink sink = new JournalAuditSink(journal, 10, 0)) {
+            sink.write(record("REQ-1"));
+            sink.flush();
+        }
+        try (JournalAuditSink sink = new JournalAuditSink(journal, 10, 0)) {
+            sink.write(record("REQ-2"));
+            sink.flush();
+        }
+
+        assertEquals(2, Files.readAllLines(journal).size());
+    }
+
+    @Test
+    @DisplayName("Should write one JSON line per record to the log stream")
+    void testStructuredLogSink() {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        StructuredLogAuditSink sink = new StructuredLogAuditSink(new PrintStream(buffer, true, StandardCharsets.UTF_8));
+
+        sink.write(record("REQ-LOG"));
+
+        String output = buffer.toString(StandardCharsets.UTF_8).trim();
+        assertTrue(output.contains("\"logType\":\"AUDIT\""));
+        assertTrue(output.contains("\"requestNumber\":\"REQ-LOG\""));
+        assertFalse(output.contains("\n"));
+    }
+
+    @Test
+    @DisplayName("Should replay journal and CloudWatch log lines into the audit table in batches of 25")
+    void testReplayIntoDynamoDb() throws Exception {
+        Path journal = tempDir.resolve("audit.journal");
+        try (JournalAuditSink sink = new JournalAuditSink(journal, 100, 0)) {
+            for (int i = 0; i < 30; i++) {
+                sink.write(record("REQ-" + i));
+            }
+            sink.flush();
+        }
+        // Lines exported from CloudWatch carry a timestamp prefix; unrelated log lines are skipped
+        Path export = tempDir.resolve("cloudwatch.log");
+        Files.write(export, List.of(
+                "2024-01-01T00:00:00.000Z " + StructuredLogAuditSink.toJsonLine(record("REQ-CW")),
+                "2024-01-01T00:00:00.000Z Lambda handler invoked with input: {\"handlerType\":\"auditTrail\"}",
+                "START RequestId: abc"));
+
+        when(dynamoDbClient.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenReturn(BatchWriteItemResponse.builder().build());
+
+        AuditReplayer replayer = new AuditReplayer(new DynamoDbAuditSink(dynamoDbClient, "audit-table"));
+
+        assertEquals(30, replayer.replay(journal));
+        assertEquals(1, replayer.replay(export));
+
+        ArgumentCaptor<BatchWriteItemRequest> captor = ArgumentCaptor.forClass(BatchWriteItemRequest.class);
+        verify(dynamoDbClient, times(3)).batchWriteItem(captor.capture());
+        List<WriteRequest> firstBatch = captor.getAllValues().get(0).requestItems().get("audit-table");
+        assertEquals(25, firstBatch.size());
+        assertTrue(firstBatch.get(0).putRequest().item().get("AuditKey").s().startsWith("2024-01-01T00:00:00Z#"));
+    }
+
+    @Test
+    @DisplayName("Should refuse to build the DynamoDB sink without an audit table")
+    void testDynamoDbSinkRequiresTable() {
+        assertThrows(IllegalArgumentException.class, () -> new DynamoDbAuditSink(dynamoDbClient, ""));
+    }
+
+    private AuditRecord record(String requestNumber) {
+        return new AuditRecord(java.util.UUID.randomUUID().toString(), requestNumber, "1234567890",
+                "ldc-loan-review-" + requestNumber, "WorkflowCompleted", "finalStatus=Approved",
+                "2024-01-01T00:00:00Z");
+    }
+}
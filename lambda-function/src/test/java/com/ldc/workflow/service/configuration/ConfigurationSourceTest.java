@@ -0,0 +1,103 @@
+package com.ldc.workflow.service.configuration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the configuration source providers and the layered chain
+ */
+@DisplayName("ConfigurationSource Tests")
+class ConfigurationSourceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should read parameters through the Lambda extension with the session token")
+    void testLambdaExtensionSource() throws Exception {
+        try (LocalParametersExtension extension = new LocalParametersExtension("session-token")) {
+            extension.put("/ldc-workflow/vend-ppa/endpoint", "https://ppa.example.com/api");
+
+            LambdaExtensionConfigurationSource source =
+                    new LambdaExtensionConfigurationSource(extension.getPort(), "session-token");
+
+            assertEquals("https://ppa.example.com/api", source.getParameter("/ldc-workflow/vend-ppa/endpoint"));
+            assertNull(source.getParameter("/ldc-workflow/missing"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should fail when the extension rejects the session token")
+    void testLambdaExtensionRejectsToken() throws Exception {
+        try (LocalParametersExtension extension = new LocalParametersExtension("session-token")) {
+            LambdaExtensionConfigurationSource source =
+                    new LambdaExtensionConfigurationSource(extension.getPort(), "wrong-token");
+
+            assertThrows(IllegalStateException.class, () -> source.getParameter("/ldc-workflow/x"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should map parameter names to environment variable names")
+    void testEnvironmentSource() {
+        assertEquals("LDC_WORKFLOW_VEND_PPA_ENDPOINT",
+                EnvironmentConfigurationSource.toVariableName("/ldc-workflow/vend-ppa/endpoint"));
+
+        EnvironmentConfigurationSource source = new EnvironmentConfigurationSource(
+                Map.of("LDC_WORKFLOW_NOTIFICATIONS_REPURCHASE_EMAIL", "ops@ldc.com"));
+        assertEquals("ops@ldc.com", source.getParameter("/ldc-workflow/notifications/repurchase-email"));
+        assertNull(source.getParameter("/ldc-workflow/other"));
+    }
+
+    @Test
+    @DisplayName("Should list file parameters by path")
+    void testFileSource() throws Exception {
+        Path file = tempDir.resolve("parameters.properties");
+        Files.writeString(file, String.join("\n",
+                "/ldc-workflow/vend-ppa/endpoint=http://localhost:8089/ppa",
+                "/ldc-workflow/email-templates/repurchase=Loan {loanNumber} repurchased",
+                "/other-app/key=value"));
+
+        FileConfigurationSource source = new FileConfigurationSource(file);
+
+        assertEquals("http://localhost:8089/ppa", source.getParameter("/ldc-workflow/vend-ppa/endpoint"));
+        assertEquals(2, source.getParametersByPath("/ldc-workflow").size());
+    }
+
+    @Test
+    @DisplayName("Should resolve from the highest layer and skip failing layers")
+    void testLayeredSource() throws Exception {
+        Path file = tempDir.resolve("parameters.properties");
+        Files.writeString(file, "/ldc-workflow/a=file-a\n/ldc-workflow/b=file-b\n");
+
+        // Nothing listens on this port, like a function without the extension layer
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+
+        LayeredConfigurationSource chain = new LayeredConfigurationSource(List.of(
+                new EnvironmentConfigurationSource(Map.of("LDC_WORKFLOW_A", "env-a")),
+                new LambdaExtensionConfigurationSource(closedPort, "token"),
+                new FileConfigurationSource(file)));
+
+        assertEquals("env-a", chain.getParameter("/ldc-workflow/a"));
+        assertEquals("file-b", chain.getParameter("/ldc-workflow/b"));
+        assertEquals(Map.of("/ldc-workflow/a", "file-a", "/ldc-workflow/b", "file-b"),
+                chain.getParametersByPath("/ldc-workflow/"));
+        assertEquals("env,extension,file", chain.name());
+
+        // Not defined anywhere, and one layer was unreachable: surface the failure
+        assertThrows(UncheckedIOException.class, () -> chain.getParameter("/ldc-workflow/c"));
+    }
+}
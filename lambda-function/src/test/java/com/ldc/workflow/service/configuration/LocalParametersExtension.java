@@ -0,0 +1,110 @@
+package com.ldc.workflow.service.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the Parameters and Secrets Lambda extension.
+ *
+ * Serves GET /systemsmanager/parameters/get?name=...&withDecryption=true from an
+ * in-memory map, enforces the session token header and answers unknown names the
+ * way the extension does (400 with a ParameterNotFound body).
+ */
+public class LocalParametersExtension implements AutoCloseable {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    static {
+        // Without TCP_NODELAY the JDK server's split header/body writes hit delayed ACKs (~40 ms per call)
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final String sessionToken;
+    private final Map<String, String> parameters = new ConcurrentHashMap<>();
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    public LocalParametersExtension(String sessionToken) throws IOException {
+        this.sessionToken = sessionToken;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext("/systemsmanager/parameters/get", this::handle);
+        this.server.setExecutor(Executors.newFixedThreadPool(4));
+        this.server.start();
+    }
+
+    public LocalParametersExtension put(String name, String value) {
+        parameters.put(name, value);
+        return this;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        String token = exchange.getRequestHeaders().getFirst(LambdaExtensionConfigurationSource.TOKEN_HEADER);
+        if (sessionToken != null && !sessionToken.equals(token)) {
+            respond(exchange, 401, "{\"message\":\"not authorized\"}");
+            return;
+        }
+
+        String name = queryParameter(exchange.getRequestURI().getRawQuery(), "name");
+        String value = name == null ? null : parameters.get(name);
+        if (value == null) {
+            respond(exchange, 400, "{\"__type\":\"ParameterNotFound\",\"message\":\"" + name + "\"}");
+            return;
+        }
+
+        ObjectNode body = objectMapper.createObjectNode();
+        ObjectNode parameter = body.putObject("Parameter");
+        parameter.put("Name", name);
+        parameter.put("Value", value);
+        parameter.put("Version", 1);
+        parameter.put("Type", "String");
+        respond(exchange, 200, objectMapper.writeValueAsString(body));
+    }
+
+    private static String queryParameter(String query, String key) {
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(key)) {
+                return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,91 @@
+package com.ldc.workflow.service.configuration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+/**
+ * Local endpoint speaking the subset of the SSM JSON protocol used by
+ * {@link SsmConfigurationSource} (AmazonSSM.GetParameter), for pointing a real
+ * SsmClient at via endpointOverride in benchmarks.
+ */
+public class LocalSsmEndpoint implements AutoCloseable {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    static {
+        // Without TCP_NODELAY the JDK server's split header/body writes hit delayed ACKs (~40 ms per call)
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final Map<String, String> parameters = new ConcurrentHashMap<>();
+
+    public LocalSsmEndpoint() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(Executors.newFixedThreadPool(4));
+        this.server.start();
+    }
+
+    public LocalSsmEndpoint put(String name, String value) {
+        parameters.put(name, value);
+        return this;
+    }
+
+    public URI getEndpoint() {
+        return URI.create("http://localhost:" + server.getAddress().getPort());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        JsonNode request;
+        try (InputStream in = exchange.getRequestBody()) {
+            request = objectMapper.readTree(in);
+        }
+        String target = exchange.getRequestHeaders().getFirst("X-Amz-Target");
+        if (!"AmazonSSM.GetParameter".equals(target)) {
+            respond(exchange, 400, "{\"__type\":\"UnknownOperationException\"}");
+            return;
+        }
+
+        String name = request.path("Name").asText();
+        String value = parameters.get(name);
+        if (value == null) {
+            respond(exchange, 400, "{\"__type\":\"ParameterNotFound\",\"message\":\"" + name + "\"}");
+            return;
+        }
+        ObjectNode body = objectMapper.createObjectNode();
+        ObjectNode parameter = body.putObject("Parameter");
+        parameter.put("Name", name);
+        parameter.put("Value", value);
+        parameter.put("Version", 1);
+        parameter.put("Type", "String");
+        respond(exchange, 200, objectMapper.writeValueAsString(body));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/x-amz-json-1.1");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
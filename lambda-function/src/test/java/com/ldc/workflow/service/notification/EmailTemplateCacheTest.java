@@ -0,0 +1,102 @@
+package com.ldc.workflow.service.notification;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for EmailTemplateCache
+ */
+@DisplayName("EmailTemplateCache Tests")
+class EmailTemplateCacheTest {
+
+    private static final long CHECK_NANOS = 60_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicReference<String> source = new AtomicReference<>(template(1, "v1 {{loanNumber}}"));
+    private final AtomicInteger reads = new AtomicInteger();
+
+    private EmailTemplateCache cache() {
+        return new EmailTemplateCache(type -> {
+            reads.incrementAndGet();
+            String value = source.get();
+            if (value == null) {
+                throw new IllegalStateException("Parameter not found");
+            }
+            return value;
+        }, CHECK_NANOS, clock::get);
+    }
+
+    private static String template(int version, String subject) {
+        return "{\"version\": " + version + ", \"subject\": \"" + subject + "\", \"body\": \"body\"}";
+    }
+
+    @Test
+    @DisplayName("Should compile once and re-read the source only once per check interval")
+    void testCompilesOncePerVersion() {
+        EmailTemplateCache cache = cache();
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(1, cache.get("repurchase").getVersion());
+        }
+        assertEquals(1, reads.get());
+
+        clock.addAndGet(CHECK_NANOS);
+        // Same text, new string instance: no recompile
+        source.set(new String(source.get()));
+        cache.get("repurchase");
+        assertEquals(2, reads.get());
+        assertEquals(1, cache.getCompileCount());
+
+        clock.addAndGet(CHECK_NANOS);
+        source.set(template(2, "v2 {{loanNumber}}"));
+        EmailTemplate updated = cache.get("repurchase");
+        assertEquals(2, updated.getVersion());
+        assertEquals("v2 7", updated.renderSubject(Map.of("loanNumber", "7")));
+        assertEquals(2, cache.getCompileCount());
+    }
+
+    @Test
+    @DisplayName("Should keep the active template when a new version is invalid or missing")
+    void testKeepsActiveTemplate() {
+        EmailTemplateCache cache = cache();
+        cache.get("repurchase");
+
+        clock.addAndGet(CHECK_NANOS);
+        source.set(template(2, "broken {{loanNumber"));
+        assertEquals(1, cache.get("repurchase").getVersion());
+
+        clock.addAndGet(CHECK_NANOS);
+        // The rejected text is not compiled again
+        assertEquals(1, cache.get("repurchase").getVersion());
+        assertEquals(1, cache.getCompileCount());
+
+        clock.addAndGet(CHECK_NANOS);
+        source.set(null);
+        assertEquals(1, cache.get("repurchase").getVersion());
+    }
+
+    @Test
+    @DisplayName("Should fall back to the built-in template until the parameter exists")
+    void testFallsBackToDefault() {
+        source.set(null);
+        EmailTemplateCache cache = cache();
+
+        EmailTemplate fallback = cache.get("repurchase");
+        assertEquals(0, fallback.getVersion());
+        assertEquals("Repurchase decision for loan 5", fallback.renderSubject(Map.of("loanNumber", "5")));
+
+        clock.addAndGet(CHECK_NANOS);
+        source.set(template(4, "configured"));
+        assertEquals(4, cache.get("repurchase").getVersion());
+
+        source.set(null);
+        assertThrows(IllegalStateException.class, () -> cache.get("unknown-type"));
+    }
+}
@@ -0,0 +1,73 @@
+package com.ldc.workflow.service.notification;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for EmailTemplate
+ */
+@DisplayName("EmailTemplate Tests")
+class EmailTemplateTest {
+
+    private static final String SOURCE = """
+            {"version": 3,
+             "subject": "Repurchase decision for loan {{loanNumber}}",
+             "body": "Request {{ requestNumber }}: {{loanStatus}} ({{repurchaseAttributes}})"}
+            """;
+
+    @Test
+    @DisplayName("Should render subject and body from the values")
+    void testRender() {
+        EmailTemplate template = EmailTemplate.compile(SOURCE);
+
+        Map<String, String> values = Map.of("loanNumber", "1000000001", "requestNumber", "REQ-1",
+                "loanStatus", "Repurchase", "repurchaseAttributes", "Income, Assets");
+
+        assertEquals(3, template.getVersion());
+        assertEquals("Repurchase decision for loan 1000000001", template.renderSubject(values));
+        assertEquals("Request REQ-1: Repurchase (Income, Assets)", template.renderBody(values));
+        assertEquals(List.of("loanNumber", "requestNumber", "loanStatus", "repurchaseAttributes"),
+                template.placeholders());
+    }
+
+    @Test
+    @DisplayName("Should render a missing value as empty text and leave lone braces alone")
+    void testMissingValueAndLiteralBraces() {
+        EmailTemplate template = EmailTemplate.compile(
+                "{\"subject\": \"{ok} {{loanNumber}}\", \"body\": \"no placeholders }}\"}");
+
+        assertEquals("{ok} ", template.renderSubject(Map.of()));
+        assertEquals("no placeholders }}", template.renderBody(Map.of("loanNumber", "1")));
+        assertEquals(0, template.getVersion());
+    }
+
+    @Test
+    @DisplayName("Should reject unclosed and empty placeholders and malformed sources")
+    void testRejectsInvalidTemplates() {
+        assertThrows(IllegalArgumentException.class,
+                () -> EmailTemplate.compile("{\"subject\": \"{{loanNumber\", \"body\": \"\"}"));
+        assertThrows(IllegalArgumentException.class,
+                () -> EmailTemplate.compile("{\"subject\": \"{{ }}\", \"body\": \"\"}"));
+        assertThrows(IllegalArgumentException.class,
+                () -> EmailTemplate.compile("{\"subject\": \"only a subject\"}"));
+        assertThrows(IllegalArgumentException.class, () -> EmailTemplate.compile("not json"));
+    }
+
+    @Test
+    @DisplayName("Should compile the built-in repurchase template")
+    void testDefaultRepurchaseTemplate() {
+        EmailTemplate template = EmailTemplate.compile(EmailTemplateCache.DEFAULT_SOURCES.get("repurchase"));
+
+        String body = template.renderBody(Map.of("loanNumber", "1000000001", "loanStatus", "Repurchase"));
+
+        assertEquals("Repurchase decision for loan 1000000001",
+                template.renderSubject(Map.of("loanNumber", "1000000001")));
+        assertTrue(body.startsWith("Loan 1000000001 "), body);
+        assertTrue(body.contains("has been decided: Repurchase.\n"), body);
+    }
+}
@@ -0,0 +1,228 @@
+package com.ldc.workflow.service.notification;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local SMTP stand-in for notification tests: accepts sessions on a loopback
+ * port and records every message delivered (envelope and DATA, with dot-stuffing
+ * undone).
+ *
+ * Replies to end-of-DATA come from a queue of scripted codes first (e.g. 451 to
+ * make one message retryable, 550 to reject it), then 250. Each message adds
+ * {@code messageMicros} of service time, as a real relay would.
+ */
+public class LocalSmtpServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "local-smtp");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Queue<Integer> scriptedDataReplies = new ConcurrentLinkedQueue<>();
+    private final List<Received> messages = new CopyOnWriteArrayList<>();
+    private final AtomicInteger sessions = new AtomicInteger();
+    private volatile long messageMicros;
+    private volatile boolean running = true;
+
+    public LocalSmtpServer() throws IOException {
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        executor.execute(this::acceptLoop);
+    }
+
+    public String getHost() {
+        return serverSocket.getInetAddress().getHostAddress();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Answer the next messages' end of DATA with these codes, in order.
+     */
+    public LocalSmtpServer enqueueDataReply(int... codes) {
+        for (int code : codes) {
+            scriptedDataReplies.add(code);
+        }
+        return this;
+    }
+
+    public LocalSmtpServer withMessageMicros(long micros) {
+        this.messageMicros = micros;
+        return this;
+    }
+
+    public List<Received> getMessages() {
+        return messages;
+    }
+
+    public int getSessionCount() {
+        return sessions.get();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                executor.execute(() -> serve(socket));
+            } catch (IOException e) {
+                // Closed
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        sessions.incrementAndGet();
+        try (socket) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.UTF_8));
+            OutputStream out = socket.getOutputStream();
+            reply(out, "220 localhost ESMTP local-smtp");
+            String from = null;
+            List<String> to = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO", "HELO" -> reply(out, "250-localhost\r\n250 8BITMIME");
+                    case "MAIL" -> {
+                        from = address(line);
+                        to.clear();
+                        reply(out, "250 OK");
+                    }
+                    case "RCPT" -> {
+                        to.add(address(line));
+                        reply(out, "250 OK");
+                    }
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        StringBuilder data = new StringBuilder();
+                        String dataLine;
+                        while ((dataLine = in.readLine()) != null && !dataLine.equals(".")) {
+                            data.append(dataLine.startsWith(".") ? dataLine.substring(1) : dataLine).append("\r\n");
+                        }
+                        pause();
+                        Integer scripted = scriptedDataReplies.poll();
+                        int code = scripted != null ? scripted : 250;
+                        if (code == 250) {
+                            messages.add(new Received(from, List.copyOf(to), data.toString()));
+                            reply(out, "250 OK queued");
+                        } else {
+                            reply(out, code + " scripted failure");
+                        }
+                    }
+                    case "RSET" -> {
+                        from = null;
+                        to.clear();
+                        reply(out, "250 OK");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            // Client went away
+        }
+    }
+
+    private void pause() {
+        long micros = messageMicros;
+        if (micros > 0) {
+            long until = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(micros);
+            while (System.nanoTime() < until) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(Math.max(0, until - System.nanoTime()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static String address(String line) {
+        int open = line.indexOf('<');
+        int close = line.indexOf('>', open + 1);
+        return open >= 0 && close > open ? line.substring(open + 1, close) : "";
+    }
+
+    private static void reply(OutputStream out, String text) throws IOException {
+        out.write((text + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * One delivered message: envelope sender, recipients and the DATA text.
+     */
+    public static final class Received {
+        private final String from;
+        private final List<String> to;
+        private final String data;
+
+        Received(String from, List<String> to, String data) {
+            this.from = from;
+            this.to = to;
+            this.data = data;
+        }
+
+        public String getFrom() {
+            return from;
+        }
+
+        public List<String> getTo() {
+            return to;
+        }
+
+        public String getData() {
+            return data;
+        }
+
+        public String getSubject() {
+            for (String line : data.split("\r\n")) {
+                if (line.startsWith("Subject: ")) {
+                    return line.substring("Subject: ".length());
+                }
+                if (line.isEmpty()) {
+                    break;
+                }
+            }
+            return null;
+        }
+
+        public String getBody() {
+            int start = data.indexOf("\r\n\r\n");
+            return start < 0 ? "" : data.substring(start + 4);
+        }
+    }
+}
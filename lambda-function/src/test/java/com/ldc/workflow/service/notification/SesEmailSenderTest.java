@@ -0,0 +1,118 @@
+package com.ldc.workflow.service.notification;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SesEmailSender against a local SES v2 stub
+ */
+@DisplayName("SesEmailSender Tests")
+class SesEmailSenderTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private HttpServer server;
+    private final List<String> paths = new CopyOnWriteArrayList<>();
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+    private final List<JsonNode> bodies = new CopyOnWriteArrayList<>();
+    private final Queue<int[]> scripted = new ConcurrentLinkedQueue<>();
+    private SesEmailSender sender;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+        sender = new SesEmailSender(URI.create("http://localhost:" + server.getAddress().getPort()), "us-east-1",
+                StaticCredentialsProvider.create(AwsBasicCredentials.create("AKIDEXAMPLE", "secret")),
+                Duration.ofSeconds(2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        paths.add(exchange.getRequestURI().getPath());
+        authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+        JsonNode body = objectMapper.readTree(exchange.getRequestBody().readAllBytes());
+        bodies.add(body);
+        int[] fault = scripted.poll();
+        byte[] response;
+        int status;
+        if (fault == null) {
+            status = 200;
+            response = "{\"MessageId\":\"m-1\"}".getBytes(StandardCharsets.UTF_8);
+        } else {
+            status = fault[0];
+            String type = status == 429 ? "TooManyRequestsException" : "MessageRejected";
+            exchange.getResponseHeaders().add("x-amzn-ErrorType", type + ":http://internal.amazon.com/");
+            response = ("{\"message\":\"scripted " + status + "\"}").getBytes(StandardCharsets.UTF_8);
+        }
+        exchange.sendResponseHeaders(status, response.length);
+        exchange.getResponseBody().write(response);
+        exchange.close();
+    }
+
+    private static EmailMessage message(int i) {
+        return new EmailMessage("repurchase/REQ-1/" + i, "noreply@ldc.com", List.of("repurchase@ldc.com"),
+                "Subject " + i, "Body " + i);
+    }
+
+    @Test
+    @DisplayName("Should send each message as a signed SendEmail call")
+    void testSendsSignedRequests() {
+        Map<EmailMessage, EmailSendException> failures = sender.send(List.of(message(0), message(1), message(2)));
+
+        assertTrue(failures.isEmpty());
+        assertEquals(3, bodies.size());
+        assertTrue(paths.stream().allMatch("/v2/email/outbound-emails"::equals));
+        assertTrue(authorizations.get(0).startsWith("AWS4-HMAC-SHA256 Credential=AKIDEXAMPLE/"));
+        assertTrue(authorizations.get(0).contains("/us-east-1/ses/aws4_request"));
+
+        JsonNode body = bodies.stream().filter(b -> b.at("/Content/Simple/Subject/Data").asText()
+                .equals("Subject 1")).findFirst().orElseThrow();
+        assertEquals("noreply@ldc.com", body.get("FromEmailAddress").asText());
+        assertEquals("repurchase@ldc.com", body.at("/Destination/ToAddresses/0").asText());
+        assertEquals("Body 1", body.at("/Content/Simple/Body/Text/Data").asText());
+    }
+
+    @Test
+    @DisplayName("Should report throttling as retryable and a rejected message as permanent")
+    void testClassifiesFailures() {
+        scripted.add(new int[] {429});
+        EmailMessage throttled = message(0);
+        Map<EmailMessage, EmailSendException> failures = sender.send(List.of(throttled));
+        assertEquals("TooManyRequestsException", failures.get(throttled).getErrorType());
+        assertTrue(failures.get(throttled).isRetryable());
+
+        scripted.add(new int[] {400});
+        EmailMessage rejected = message(1);
+        failures = sender.send(List.of(rejected));
+        assertEquals("MessageRejected", failures.get(rejected).getErrorType());
+        assertFalse(failures.get(rejected).isRetryable());
+        assertTrue(failures.get(rejected).getMessage().contains("scripted 400"));
+    }
+}
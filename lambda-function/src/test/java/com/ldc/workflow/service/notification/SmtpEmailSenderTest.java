@@ -0,0 +1,114 @@
+package com.ldc.workflow.service.notification;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.ServerSocket;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SmtpEmailSender against the local SMTP stand-in
+ */
+@DisplayName("SmtpEmailSender Tests")
+class SmtpEmailSenderTest {
+
+    private LocalSmtpServer server;
+    private SmtpEmailSender sender;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new LocalSmtpServer();
+        sender = new SmtpEmailSender(server.getHost(), server.getPort(), 2000);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.close();
+    }
+
+    private static EmailMessage message(int i) {
+        return new EmailMessage("repurchase/REQ-1/" + (1000000000L + i), "noreply@ldc.com",
+                List.of("repurchase@ldc.com", "audit@ldc.com"), "Repurchase decision for loan " + i,
+                "Loan " + i + " has been decided.");
+    }
+
+    @Test
+    @DisplayName("Should deliver a whole batch in one session")
+    void testBatchInOneSession() {
+        List<EmailMessage> batch = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            batch.add(message(i));
+        }
+
+        Map<EmailMessage, EmailSendException> failures = sender.send(batch);
+
+        assertTrue(failures.isEmpty());
+        assertEquals(1, server.getSessionCount());
+        assertEquals(10, server.getMessages().size());
+        LocalSmtpServer.Received first = server.getMessages().get(0);
+        assertEquals("noreply@ldc.com", first.getFrom());
+        assertEquals(List.of("repurchase@ldc.com", "audit@ldc.com"), first.getTo());
+        assertEquals("Repurchase decision for loan 0", first.getSubject());
+        assertTrue(first.getData().contains("Message-ID: <repurchase/REQ-1/1000000000@ldc-loan-review-workflow>"));
+    }
+
+    @Test
+    @DisplayName("Should report 4xx as retryable and 5xx as permanent and carry on with the batch")
+    void testPerMessageFailures() {
+        server.enqueueDataReply(451, 550);
+        List<EmailMessage> batch = List.of(message(0), message(1), message(2));
+
+        Map<EmailMessage, EmailSendException> failures = sender.send(batch);
+
+        assertEquals(2, failures.size());
+        assertTrue(failures.get(batch.get(0)).isRetryable());
+        assertEquals("SMTP451", failures.get(batch.get(0)).getErrorType());
+        assertFalse(failures.get(batch.get(1)).isRetryable());
+        assertEquals(1, server.getMessages().size());
+        assertEquals("Repurchase decision for loan 2", server.getMessages().get(0).getSubject());
+        assertEquals(1, server.getSessionCount());
+    }
+
+    @Test
+    @DisplayName("Should fail every message as retryable when the relay is unreachable")
+    void testConnectionFailure() throws Exception {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        SmtpEmailSender unreachable = new SmtpEmailSender("localhost", closedPort, 500);
+        List<EmailMessage> batch = List.of(message(0), message(1));
+
+        Map<EmailMessage, EmailSendException> failures = unreachable.send(batch);
+
+        assertEquals(2, failures.size());
+        failures.values().forEach(failure -> assertTrue(failure.isRetryable()));
+        assertEquals("IOError", failures.get(batch.get(1)).getErrorType());
+    }
+
+    @Test
+    @DisplayName("Should dot-stuff the body, normalize line endings and keep headers on one line")
+    void testMessageFormat() {
+        EmailMessage message = new EmailMessage("repurchase/REQ-1/1", "noreply@ldc.com", List.of("a@ldc.com"),
+                "Décision\r\nBcc: someone@example.com", "first\n.hidden\r\nlast");
+
+        String data = SmtpEmailSender.toData(message,
+                ZonedDateTime.of(2026, 1, 2, 3, 4, 5, 0, ZoneOffset.UTC));
+
+        assertTrue(data.contains("Subject: =?UTF-8?B?"), data);
+        assertFalse(data.contains("\r\nBcc:"), data);
+        assertTrue(data.contains("Date: Fri, 2 Jan 2026 03:04:05 GMT\r\n"), data);
+        assertTrue(data.endsWith("\r\n\r\nfirst\r\n..hidden\r\nlast\r\n"), data);
+
+        assertTrue(sender.send(List.of(message)).isEmpty());
+        assertEquals("first\r\n.hidden\r\nlast\r\n", server.getMessages().get(0).getBody());
+    }
+}
@@ -0,0 +1,209 @@
+package com.ldc.workflow.simulation;
+
+import ch.qos.logback.classic.Level;
+import com.ldc.workflow.business.PollIntervalCalculator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares a fixed 5-second status poll with the adaptive nextPollSeconds back-off
+ * over a large backlog of loans waiting on people.
+ *
+ * Loans arrive uniformly over the first working week. Each one receives an update
+ * per attribute and then the loan decision; the gaps are log-normal in working
+ * time (09:00-17:00, Monday to Friday), so a loan finished late on Friday is not
+ * touched again until Monday. Every loan polls from arrival until the poll that
+ * observes its last change; the adaptive run asks the real PollIntervalCalculator
+ * for each interval on a virtual clock, with UpdatedAt moving as the updates land.
+ * Reported per mode: Lambda invocations, state transitions, the delay between the
+ * last change and the poll that sees it, and an estimated cost.
+ *
+ * Run: mvn -Psimulation -pl lambda-function test-compile exec:exec -Dsimulation=AdaptivePollingSimulation
+ * Options (-Dsimulation.args="..."): loans=50000 attributes=4 medianGapMinutes=90
+ * sigma=1.2 min=5 max=1800 growth=1.25 seed=42
+ */
+public class AdaptivePollingSimulation {
+
+    private static final long FIXED_POLL_SECONDS = 5;
+    private static final long DAY = 86_400;
+    private static final long OPEN = 9 * 3600;
+    private static final long CLOSE = 17 * 3600;
+    // Monday 2025-03-03T00:00:00Z
+    private static final long START = LocalDateTime.of(2025, 3, 3, 0, 0).toEpochSecond(ZoneOffset.UTC);
+
+    // us-east-1 list prices; Wait + Task + Choice per poll
+    private static final double PRICE_PER_TRANSITION = 0.000025;
+    private static final double PRICE_PER_LAMBDA_REQUEST = 0.20 / 1_000_000;
+    private static final double PRICE_PER_GB_SECOND = 0.0000166667;
+    private static final double LAMBDA_GB = 0.5;
+    private static final double LAMBDA_BILLED_SECONDS = 0.05;
+    private static final double PRICE_PER_READ = 0.25 / 1_000_000;
+    private static final int TRANSITIONS_PER_POLL = 3;
+
+    private final int loans;
+    private final int attributes;
+    private final double medianGapSeconds;
+    private final double sigma;
+    private final PollIntervalCalculator calculator;
+    private final long seed;
+
+    AdaptivePollingSimulation(Map<String, String> options) {
+        this.loans = Integer.parseInt(options.getOrDefault("loans", "50000"));
+        this.attributes = Integer.parseInt(options.getOrDefault("attributes", "4"));
+        this.medianGapSeconds = Double.parseDouble(options.getOrDefault("medianGapMinutes", "90")) * 60;
+        this.sigma = Double.parseDouble(options.getOrDefault("sigma", "1.2"));
+        this.calculator = new PollIntervalCalculator(
+                Integer.parseInt(options.getOrDefault("min", "5")),
+                Integer.parseInt(options.getOrDefault("max", "1800")),
+                Double.parseDouble(options.getOrDefault("growth", "1.25")),
+                Clock.systemUTC());
+        this.seed = Long.parseLong(options.getOrDefault("seed", "42"));
+    }
+
+    public static void main(String[] args) {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.ERROR);
+
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            for (String option : arg.trim().split("\\s+")) {
+                String[] pair = option.split("=", 2);
+                if (pair.length == 2) {
+                    options.put(pair[0], pair[1]);
+                }
+            }
+        }
+
+        AdaptivePollingSimulation simulation = new AdaptivePollingSimulation(options);
+        System.out.printf("Adaptive polling simulation: %d loans, %d attributes, median gap %.0f working min "
+                        + "(sigma %.1f), interval %d-%d s%n%n",
+                simulation.loans, simulation.attributes, simulation.medianGapSeconds / 60, simulation.sigma,
+                simulation.calculator.getMinSeconds(), simulation.calculator.getMaxSeconds());
+
+        long wallStart = System.nanoTime();
+        Result[] results = simulation.run();
+        double wallSeconds = (System.nanoTime() - wallStart) / 1e9;
+        Result fixed = results[0];
+        Result adaptive = results[1];
+
+        System.out.printf("%-34s %18s %18s%n", "", "fixed (5 s)", "adaptive");
+        row("Lambda invocations", fixed.polls, adaptive.polls);
+        row("State transitions", fixed.polls * TRANSITIONS_PER_POLL, adaptive.polls * TRANSITIONS_PER_POLL);
+        row("DynamoDB item reads", fixed.polls, adaptive.polls);
+        System.out.printf("%-34s %18.1f %18.1f%n", "Polls per loan", (double) fixed.polls / simulation.loans,
+                (double) adaptive.polls / simulation.loans);
+        System.out.printf("%-34s %18s %18s%n", "Observe delay p50 / p99 / max (s)",
+                fixed.delaySummary(), adaptive.delaySummary());
+        System.out.printf("%-34s %18.2f %18.2f%n", "Estimated cost per 1,000 loans ($)",
+                fixed.cost() * 1000 / simulation.loans, adaptive.cost() * 1000 / simulation.loans);
+        System.out.printf("%nInvocation reduction: %.1f%% (%.1fx fewer); mean wait %.1f h; simulated in %.1f s%n",
+                100.0 * (fixed.polls - adaptive.polls) / fixed.polls, (double) fixed.polls / adaptive.polls,
+                fixed.totalWaitSeconds / 3600.0 / simulation.loans, wallSeconds);
+    }
+
+    private static void row(String label, long fixed, long adaptive) {
+        System.out.printf("%-34s %18d %18d%n", label, fixed, adaptive);
+    }
+
+    Result[] run() {
+        Random random = new Random(seed);
+        Result fixed = new Result(loans);
+        Result adaptive = new Result(loans);
+        long[] changes = new long[attributes + 1];
+
+        for (int loan = 0; loan < loans; loan++) {
+            long arrival = addWorkingSeconds(START, (long) (random.nextDouble() * 5 * (CLOSE - OPEN)));
+            long t = arrival;
+            for (int step = 0; step < changes.length; step++) {
+                double gap = medianGapSeconds * Math.exp(sigma * random.nextGaussian());
+                t = addWorkingSeconds(t, Math.max(1, Math.round(gap)));
+                changes[step] = t;
+            }
+            long completedAt = changes[changes.length - 1];
+            fixed.totalWaitSeconds += completedAt - arrival;
+            adaptive.totalWaitSeconds += completedAt - arrival;
+
+            // Fixed interval: one poll every 5 s from arrival until one lands at or after completion
+            long fixedPolls = (completedAt - arrival + FIXED_POLL_SECONDS - 1) / FIXED_POLL_SECONDS;
+            fixed.polls += fixedPolls;
+            fixed.delays[loan] = arrival + fixedPolls * FIXED_POLL_SECONDS - completedAt;
+
+            // Adaptive: each poll reads the state and waits nextPollSeconds before the next one
+            Instant createdAt = Instant.ofEpochSecond(arrival);
+            long now = arrival;
+            int applied = 0;
+            while (true) {
+                now += calculator.nextPollSeconds(createdAt,
+                        applied == 0 ? null : Instant.ofEpochSecond(changes[applied - 1]), Instant.ofEpochSecond(now));
+                adaptive.polls++;
+                while (applied < changes.length && changes[applied] <= now) {
+                    applied++;
+                }
+                if (applied == changes.length) {
+                    adaptive.delays[loan] = now - completedAt;
+                    break;
+                }
+            }
+        }
+        Arrays.sort(fixed.delays);
+        Arrays.sort(adaptive.delays);
+        return new Result[] { fixed, adaptive };
+    }
+
+    /**
+     * Adds working seconds to an epoch time, skipping nights and weekends.
+     */
+    static long addWorkingSeconds(long epochSeconds, long workingSeconds) {
+        long t = epochSeconds;
+        long remaining = workingSeconds;
+        while (true) {
+            long dayStart = Math.floorDiv(t, DAY) * DAY;
+            DayOfWeek day = LocalDateTime.ofEpochSecond(dayStart, 0, ZoneOffset.UTC).getDayOfWeek();
+            if (day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY || t >= dayStart + CLOSE) {
+                t = dayStart + DAY + OPEN;
+                continue;
+            }
+            if (t < dayStart + OPEN) {
+                t = dayStart + OPEN;
+            }
+            long available = dayStart + CLOSE - t;
+            if (remaining <= available) {
+                return t + remaining;
+            }
+            remaining -= available;
+            t = dayStart + DAY + OPEN;
+        }
+    }
+
+    static final class Result {
+        private long polls;
+        private long totalWaitSeconds;
+        private final long[] delays;
+
+        Result(int loans) {
+            this.delays = new long[loans];
+        }
+
+        long delayPercentile(double percentile) {
+            return delays[(int) Math.min(delays.length - 1, Math.ceil(percentile / 100 * delays.length) - 1)];
+        }
+
+        String delaySummary() {
+            return delayPercentile(50) + " / " + delayPercentile(99) + " / " + delays[delays.length - 1];
+        }
+
+        double cost() {
+            return polls * (TRANSITIONS_PER_POLL * PRICE_PER_TRANSITION + PRICE_PER_LAMBDA_REQUEST
+                    + LAMBDA_GB * LAMBDA_BILLED_SECONDS * PRICE_PER_GB_SECOND + PRICE_PER_READ);
+        }
+    }
+}
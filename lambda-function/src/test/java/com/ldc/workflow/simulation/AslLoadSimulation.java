@@ -0,0 +1,215 @@
+package com.ldc.workflow.simulation;
+
+import ch.qos.logback.classic.Level;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ldc.workflow.metrics.LatencyHistogram;
+import com.ldc.workflow.simulation.asl.AslInterpreter;
+import com.ldc.workflow.simulation.asl.LocalLoanReviewStack;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the real state machine definitions end to end on the embedded ASL
+ * interpreter, with the real handlers behind LoanReviewRouter.
+ *
+ * Each loan receives one update per attribute and then the loan decision, with
+ * exponential gaps; a share of loans gets a Reclass decision that is confirmed
+ * later through the reclass confirmation queue, resuming the callback wait. Loans start either one execution
+ * each (mode=single) or through the bulk Distributed Map (mode=bulk). Waits and
+ * human gaps cost nothing on the virtual clock, so the wall time is the cost of
+ * interpreting the states and running the handlers.
+ *
+ * Reported: executions by machine and status, wall-clock throughput, state
+ * transitions, per-state entries / wall latency / virtual dwell, Lambda
+ * invocations by handlerType and DynamoDB item reads/writes.
+ *
+ * Run: mvn -Psimulation -pl lambda-function test-compile exec:exec -Dsimulation=AslLoadSimulation
+ * Options (-Dsimulation.args="..."): loans=5000 mode=single attributes=4 meanGapMinutes=60
+ * reclassShare=0.1 reclassConfirmHours=24 workers=8 seed=42
+ */
+public class AslLoadSimulation {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String REQUEST_NUMBER = "REQ-SIM";
+
+    private final int loans;
+    private final String mode;
+    private final int attributes;
+    private final double meanGapSeconds;
+    private final double reclassShare;
+    private final double reclassConfirmSeconds;
+    private final int workers;
+    private final long seed;
+
+    AslLoadSimulation(Map<String, String> options) {
+        this.loans = Integer.parseInt(options.getOrDefault("loans", "5000"));
+        this.mode = options.getOrDefault("mode", "single");
+        this.attributes = Integer.parseInt(options.getOrDefault("attributes", "4"));
+        this.meanGapSeconds = Double.parseDouble(options.getOrDefault("meanGapMinutes", "60")) * 60;
+        this.reclassShare = Double.parseDouble(options.getOrDefault("reclassShare", "0.1"));
+        this.reclassConfirmSeconds = Double.parseDouble(options.getOrDefault("reclassConfirmHours", "24")) * 3600;
+        this.workers = Integer.parseInt(options.getOrDefault("workers", "8"));
+        this.seed = Long.parseLong(options.getOrDefault("seed", "42"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.ERROR);
+
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            for (String option : arg.trim().split("\\s+")) {
+                String[] pair = option.split("=", 2);
+                if (pair.length == 2) {
+                    options.put(pair[0], pair[1]);
+                }
+            }
+        }
+        new AslLoadSimulation(options).run();
+    }
+
+    void run() throws Exception {
+        System.out.printf("ASL load simulation: %d loans (%s), %d attributes, mean gap %.0f min, "
+                        + "reclass share %.0f%%, %d workers%n%n", loans, mode, attributes, meanGapSeconds / 60,
+                reclassShare * 100, workers);
+
+        try (LocalLoanReviewStack stack = new LocalLoanReviewStack(Path.of("../terraform/modules/step-functions"),
+                workers, Map.of())) {
+            AslInterpreter interpreter = stack.getInterpreter();
+            LongAdder failedUpdates = new LongAdder();
+            Random random = new Random(seed);
+
+            ArrayNode bulkLoans = objectMapper.createArrayNode();
+            for (int i = 0; i < loans; i++) {
+                String loanNumber = loanNumber(i);
+                ArrayNode initial = objectMapper.createArrayNode();
+                for (int a = 0; a < attributes; a++) {
+                    initial.addObject().put("Name", "attribute" + a).put("Decision", "Pending");
+                }
+                if (mode.equals("bulk")) {
+                    ObjectNode item = bulkLoans.addObject()
+                            .put("LoanNumber", loanNumber)
+                            .put("ReviewType", "LDC");
+                    item.set("Attributes", initial);
+                } else {
+                    ObjectNode input = objectMapper.createObjectNode()
+                            .put("requestNumber", REQUEST_NUMBER)
+                            .put("loanNumber", loanNumber)
+                            .put("reviewType", "LDC")
+                            .put("currentAssignedUsername", "reviewer");
+                    input.set("attributes", initial);
+                    interpreter.startExecution(stack.getLoanReviewArn(),
+                            "ldc-loan-review-" + REQUEST_NUMBER + "-" + loanNumber, input);
+                }
+
+                boolean reclass = random.nextDouble() < reclassShare;
+                String[] decided = new String[attributes];
+                Arrays.fill(decided, "Pending");
+                long t = 0;
+                for (int step = 0; step <= attributes; step++) {
+                    t += gap(random, meanGapSeconds);
+                    final int attribute = step;
+                    interpreter.schedule(t * 1000, () -> {
+                        if (attribute < attributes) {
+                            decided[attribute] = reclass && attribute == 0 ? "Reclass" : "Approved";
+                            update(stack, loanNumber, decided, null, failedUpdates);
+                        } else {
+                            update(stack, loanNumber, null, "Approved", failedUpdates);
+                        }
+                    });
+                }
+                if (reclass) {
+                    t += gap(random, reclassConfirmSeconds);
+                    interpreter.schedule(t * 1000, () -> confirmReclass(stack, loanNumber));
+                }
+            }
+            if (mode.equals("bulk")) {
+                ObjectNode input = objectMapper.createObjectNode().put("requestNumber", REQUEST_NUMBER);
+                input.set("loans", bulkLoans);
+                interpreter.startExecution(stack.getBulkArn(), "bulk-" + REQUEST_NUMBER, input);
+            }
+
+            long wallStart = System.nanoTime();
+            interpreter.run();
+            double wallSeconds = (System.nanoTime() - wallStart) / 1e9;
+
+            Map<String, int[]> byMachine = new TreeMap<>();
+            for (AslInterpreter.Execution execution : interpreter.getExecutions()) {
+                String machine = execution.getStateMachineArn().substring(AslInterpreter.ARN_PREFIX.length());
+                byMachine.computeIfAbsent(machine, k -> new int[3])[execution.getStatus().ordinal()]++;
+            }
+            System.out.printf("%-40s %9s %9s %9s%n", "executions", "running", "succeeded", "failed");
+            byMachine.forEach((machine, counts) ->
+                    System.out.printf("%-40s %9d %9d %9d%n", machine, counts[0], counts[1], counts[2]));
+            System.out.println();
+
+            long transitions = interpreter.getTransitions();
+            long lambdaCalls = interpreter.getLambdaInvocations().values().stream().mapToLong(Long::longValue).sum();
+            LatencyHistogram duration = interpreter.getExecutionDuration("ldc-loan-review-workflow");
+            System.out.printf("Wall time                          %10.2f s%n", wallSeconds);
+            System.out.printf("Virtual time covered               %10.1f h%n", interpreter.now() / 3_600_000.0);
+            System.out.printf("Loan executions per wall second    %10.0f%n", loans / wallSeconds);
+            System.out.printf("State transitions                  %10d (%.0f/s)%n", transitions, transitions / wallSeconds);
+            System.out.printf("Lambda invocations                 %10d (%.0f/s)%n", lambdaCalls, lambdaCalls / wallSeconds);
+            System.out.printf("Loan execution p50 / p99 (virtual) %10.1f / %.1f h%n",
+                    duration.getPercentileMicros(50) / 3.6e9, duration.getPercentileMicros(99) / 3.6e9);
+            System.out.printf("DynamoDB item reads / writes       %10d / %d%n",
+                    stack.getDynamoDbClient().getReadCount(), stack.getDynamoDbClient().getWriteCount());
+            System.out.printf("Audit records                      %10d%n", stack.getAuditRecords());
+            System.out.printf("Failed decision updates            %10d%n", failedUpdates.sum());
+            System.out.printf("Reclass confirmations / dead-lettered %8d / %d%n",
+                    stack.getReclassQueue().getDeleted(), stack.getReclassQueue().getDeadLetters().size());
+            System.out.printf("Unresolved task tokens             %10d%n%n", interpreter.getPendingTaskTokens());
+            interpreter.report(System.out);
+        }
+    }
+
+    private void update(LocalLoanReviewStack stack, String loanNumber, String[] decided, String loanDecision,
+                        LongAdder failedUpdates) {
+        ObjectNode input = objectMapper.createObjectNode()
+                .put("requestNumber", REQUEST_NUMBER)
+                // The update API looks the state up by executionId
+                .put("executionId", loanNumber);
+        if (decided != null) {
+            ArrayNode array = input.putArray("attributes");
+            for (int a = 0; a < decided.length; a++) {
+                array.addObject().put("attributeName", "attribute" + a).put("attributeDecision", decided[a]);
+            }
+        }
+        if (loanDecision != null) {
+            input.put("loanDecision", loanDecision);
+        }
+        JsonNode response = stack.updateDecision(input);
+        if (!response.path("success").asBoolean(true) && response.has("error")) {
+            failedUpdates.increment();
+        }
+    }
+
+    private void confirmReclass(LocalLoanReviewStack stack, String loanNumber) {
+        ObjectNode message = objectMapper.createObjectNode()
+                .put("requestNumber", REQUEST_NUMBER)
+                .put("loanNumber", loanNumber);
+        message.putArray("attributes").addObject()
+                .put("attributeName", "attribute0")
+                .put("attributeDecision", "Approved");
+        stack.confirmReclass(message);
+    }
+
+    private static long gap(Random random, double meanSeconds) {
+        return Math.max(1, Math.round(-meanSeconds * Math.log(1 - random.nextDouble())));
+    }
+
+    private static String loanNumber(int i) {
+        return String.format("%010d", 1_000_000_000L + i);
+    }
+}
@@ -0,0 +1,313 @@
+package com.ldc.workflow.simulation;
+
+import ch.qos.logback.classic.Level;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ldc.workflow.business.CompletionCriteriaChecker;
+import com.ldc.workflow.handlers.CompletionCriteriaHandler;
+import com.ldc.workflow.handlers.LoanDecisionUpdateApiHandler;
+import com.ldc.workflow.handlers.LoanDecisionWaitHandler;
+import com.ldc.workflow.repository.InMemoryDynamoDbClient;
+import com.ldc.workflow.repository.WorkflowStateRepository;
+import com.ldc.workflow.service.LocalStepFunctionsEndpoint;
+import com.ldc.workflow.service.StepFunctionsService;
+import com.ldc.workflow.types.LoanAttribute;
+import com.ldc.workflow.types.WorkflowState;
+import com.ldc.workflow.validation.AttributeDecisionValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Compares the 5-second polling loop with the callback-driven decision wait.
+ *
+ * Both modes replay the same human workload (each loan receives one update per
+ * attribute and then the loan decision, with exponential gaps) against the real
+ * handlers, an in-memory DynamoDB and a local Step Functions endpoint, on a
+ * virtual clock. Reported per mode: Step Functions-driven Lambda invocations,
+ * state transitions, DynamoDB item reads/writes, SendTaskSuccess calls, the delay
+ * between the last decision and the execution moving on, and an estimated cost.
+ *
+ * Run: mvn -Psimulation -pl lambda-function test-compile exec:exec -Dsimulation=DecisionWaitSimulation
+ * Options (-Dsimulation.args="..."): loans=200 attributes=4 meanGapMinutes=60
+ * timeoutHours=24 seed=42
+ */
+public class DecisionWaitSimulation {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String TABLE = "ldc-loan-review-state";
+    private static final String REQUEST_NUMBER = "REQ-SIM";
+    private static final long POLL_SECONDS = 5;
+
+    // us-east-1 list prices
+    private static final double PRICE_PER_TRANSITION = 0.000025;
+    private static final double PRICE_PER_LAMBDA_REQUEST = 0.20 / 1_000_000;
+    private static final double PRICE_PER_GB_SECOND = 0.0000166667;
+    private static final double LAMBDA_GB = 0.5;
+    private static final double LAMBDA_BILLED_SECONDS = 0.05;
+    private static final double PRICE_PER_READ = 0.25 / 1_000_000;
+    private static final double PRICE_PER_WRITE = 1.25 / 1_000_000;
+
+    enum Mode { POLLING, CALLBACK }
+
+    private final int loans;
+    private final int attributes;
+    private final double meanGapSeconds;
+    private final long timeoutSeconds;
+    private final long seed;
+
+    DecisionWaitSimulation(Map<String, String> options) {
+        this.loans = Integer.parseInt(options.getOrDefault("loans", "200"));
+        this.attributes = Integer.parseInt(options.getOrDefault("attributes", "4"));
+        this.meanGapSeconds = Double.parseDouble(options.getOrDefault("meanGapMinutes", "60")) * 60;
+        this.timeoutSeconds = Long.parseLong(options.getOrDefault("timeoutHours", "24")) * 3600;
+        this.seed = Long.parseLong(options.getOrDefault("seed", "42"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.ERROR);
+
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            for (String option : arg.trim().split("\\s+")) {
+                String[] pair = option.split("=", 2);
+                if (pair.length == 2) {
+                    options.put(pair[0], pair[1]);
+                }
+            }
+        }
+
+        DecisionWaitSimulation simulation = new DecisionWaitSimulation(options);
+        System.out.printf("Decision wait simulation: %d loans, %d attributes, mean gap %.0f min, timeout %d h%n%n",
+                simulation.loans, simulation.attributes, simulation.meanGapSeconds / 60,
+                simulation.timeoutSeconds / 3600);
+        Result polling = simulation.run(Mode.POLLING);
+        Result callback = simulation.run(Mode.CALLBACK);
+
+        System.out.printf("%-34s %16s %16s%n", "", "polling (5 s)", "callback");
+        row("Lambda invocations (workflow)", polling.lambdaInvocations, callback.lambdaInvocations);
+        row("State transitions (wait phase)", polling.transitions, callback.transitions);
+        row("DynamoDB item reads", polling.reads, callback.reads);
+        row("DynamoDB item writes", polling.writes, callback.writes);
+        row("SendTaskSuccess calls", polling.sendTaskSuccess, callback.sendTaskSuccess);
+        System.out.printf("%-34s %16s %16s%n", "Resume delay p50 / p99 (s)",
+                polling.delayPercentile(50) + " / " + polling.delayPercentile(99),
+                callback.delayPercentile(50) + " / " + callback.delayPercentile(99));
+        System.out.printf("%-34s %16.4f %16.4f%n", "Estimated cost per 1,000 loans ($)",
+                polling.cost() * 1000 / simulation.loans, callback.cost() * 1000 / simulation.loans);
+        System.out.printf("%-34s %16.0f %16.0f%n", "Handler calls per wall second",
+                polling.handlerCalls / polling.wallSeconds, callback.handlerCalls / callback.wallSeconds);
+    }
+
+    private static void row(String label, long polling, long callback) {
+        System.out.printf("%-34s %16d %16d%n", label, polling, callback);
+    }
+
+    Result run(Mode mode) throws Exception {
+        InMemoryDynamoDbClient dynamoDbClient = new InMemoryDynamoDbClient();
+        WorkflowStateRepository repository = new WorkflowStateRepository(dynamoDbClient, TABLE);
+        CompletionCriteriaChecker checker = new CompletionCriteriaChecker();
+        Result result = new Result();
+
+        try (LocalStepFunctionsEndpoint endpoint = new LocalStepFunctionsEndpoint()) {
+            StepFunctionsService stepFunctionsService = new StepFunctionsService(endpoint.getEndpoint(), "us-east-1",
+                    StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")),
+                    2, Duration.ofSeconds(5));
+            CompletionCriteriaHandler completionHandler = new CompletionCriteriaHandler(checker, repository);
+            LoanDecisionWaitHandler waitHandler = new LoanDecisionWaitHandler(checker, repository,
+                    stepFunctionsService);
+            LoanDecisionUpdateApiHandler updateHandler = new LoanDecisionUpdateApiHandler(
+                    new AttributeDecisionValidator(), checker, repository, stepFunctionsService);
+
+            PriorityQueue<Event> events = new PriorityQueue<>();
+            long[] completedAt = new long[loans];
+            long[] resumedAt = new long[loans];
+            int[] waitGeneration = new int[loans];
+            Arrays.fill(resumedAt, -1);
+
+            Random random = new Random(seed);
+            List<List<LoanAttribute>> decided = new ArrayList<>();
+            for (int i = 0; i < loans; i++) {
+                WorkflowState state = new WorkflowState(REQUEST_NUMBER, loanNumber(i), "LDCReview");
+                state.setExecutionId("ldc-loan-review-" + REQUEST_NUMBER);
+                List<LoanAttribute> pending = new ArrayList<>();
+                for (int a = 0; a < attributes; a++) {
+                    pending.add(new LoanAttribute("attribute" + a, "Pending"));
+                }
+                state.setAttributes(pending);
+                repository.save(state);
+                decided.add(pending);
+
+                long t = 0;
+                for (int step = 0; step <= attributes; step++) {
+                    t += Math.max(1, Math.round(-meanGapSeconds * Math.log(1 - random.nextDouble())));
+                    events.add(new Event(t, EventType.UPDATE, i, step));
+                }
+                completedAt[i] = t;
+
+                if (mode == Mode.POLLING) {
+                    events.add(new Event(POLL_SECONDS, EventType.POLL, i, 0));
+                } else {
+                    events.add(new Event(0, EventType.REGISTER, i, 0));
+                }
+            }
+            int baselineReads = dynamoDbClient.getReadCount();
+            int baselineWrites = dynamoDbClient.getWriteCount();
+
+            long wallStart = System.nanoTime();
+            while (!events.isEmpty()) {
+                Event event = events.poll();
+                int loan = event.loan;
+                switch (event.type) {
+                    case UPDATE -> {
+                        ObjectNode input = objectMapper.createObjectNode()
+                                .put("requestNumber", REQUEST_NUMBER)
+                                // The update API looks the state up by executionId
+                                .put("executionId", loanNumber(loan));
+                        if (event.step < attributes) {
+                            decided.get(loan).set(event.step, new LoanAttribute("attribute" + event.step, "Approved"));
+                            ArrayNode array = input.putArray("attributes");
+                            for (LoanAttribute attribute : decided.get(loan)) {
+                                array.addObject().put("attributeName", attribute.getAttributeName())
+                                        .put("attributeDecision", attribute.getAttributeDecision());
+                            }
+                        } else {
+                            input.put("loanDecision", "Approved");
+                        }
+                        JsonNode response = updateHandler.apply(input);
+                        result.handlerCalls++;
+                        if (response.path("resumed").asBoolean() && resumedAt[loan] < 0) {
+                            resumedAt[loan] = event.time;
+                        }
+                    }
+                    case POLL -> {
+                        if (resumedAt[loan] >= 0) {
+                            continue;
+                        }
+                        // Wait + CheckCompletionCriteria + IsLoanDecisionComplete
+                        result.transitions += 3;
+                        result.lambdaInvocations++;
+                        result.handlerCalls++;
+                        JsonNode response = completionHandler.apply(key(loan));
+                        if (response.path("complete").asBoolean()) {
+                            resumedAt[loan] = event.time;
+                        } else {
+                            events.add(new Event(event.time + POLL_SECONDS, EventType.POLL, loan, 0));
+                        }
+                    }
+                    case REGISTER -> {
+                        // WaitForLoanDecision task
+                        result.transitions += 1;
+                        result.lambdaInvocations++;
+                        result.handlerCalls++;
+                        int generation = ++waitGeneration[loan];
+                        JsonNode response = waitHandler.apply(key(loan)
+                                .put("taskToken", "TOKEN-" + loan + "-" + generation));
+                        if (response.path("complete").asBoolean()) {
+                            resumedAt[loan] = event.time;
+                        } else {
+                            events.add(new Event(event.time + timeoutSeconds, EventType.TIMEOUT, loan, generation));
+                        }
+                    }
+                    case TIMEOUT -> {
+                        if (resumedAt[loan] >= 0 || event.step != waitGeneration[loan]) {
+                            continue;
+                        }
+                        // EvaluateLoan + RouteLoanDecision after States.Timeout
+                        result.transitions += 2;
+                        result.lambdaInvocations++;
+                        result.handlerCalls++;
+                        if (completionHandler.apply(key(loan)).path("complete").asBoolean()) {
+                            resumedAt[loan] = event.time;
+                        } else {
+                            events.add(new Event(event.time, EventType.REGISTER, loan, 0));
+                        }
+                    }
+                }
+            }
+            result.wallSeconds = (System.nanoTime() - wallStart) / 1e9;
+
+            result.reads = dynamoDbClient.getReadCount() - baselineReads;
+            result.writes = dynamoDbClient.getWriteCount() - baselineWrites;
+            result.sendTaskSuccess = endpoint.getRequests().stream()
+                    .filter(request -> request.target.endsWith("SendTaskSuccess")).count();
+            result.delays = new long[loans];
+            for (int i = 0; i < loans; i++) {
+                result.delays[i] = resumedAt[i] < 0 ? Long.MAX_VALUE : resumedAt[i] - completedAt[i];
+            }
+            Arrays.sort(result.delays);
+        }
+        return result;
+    }
+
+    private static ObjectNode key(int loan) {
+        return objectMapper.createObjectNode()
+                .put("requestNumber", REQUEST_NUMBER)
+                .put("loanNumber", loanNumber(loan));
+    }
+
+    private static String loanNumber(int loan) {
+        return String.format("%010d", 1_000_000_000L + loan);
+    }
+
+    enum EventType { UPDATE, POLL, REGISTER, TIMEOUT }
+
+    private static final class Event implements Comparable<Event> {
+        private static long sequence;
+
+        private final long time;
+        private final long order = sequence++;
+        private final EventType type;
+        private final int loan;
+        private final int step;
+
+        private Event(long time, EventType type, int loan, int step) {
+            this.time = time;
+            this.type = type;
+            this.loan = loan;
+            this.step = step;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            int byTime = Long.compare(time, other.time);
+            return byTime != 0 ? byTime : Long.compare(order, other.order);
+        }
+    }
+
+    static final class Result {
+        private long lambdaInvocations;
+        private long transitions;
+        private long reads;
+        private long writes;
+        private long sendTaskSuccess;
+        private long handlerCalls;
+        private double wallSeconds;
+        private long[] delays;
+
+        String delayPercentile(double percentile) {
+            long value = delays[(int) Math.min(delays.length - 1, Math.ceil(percentile / 100 * delays.length) - 1)];
+            return value == Long.MAX_VALUE ? "never" : Long.toString(value);
+        }
+
+        double cost() {
+            return transitions * PRICE_PER_TRANSITION
+                    + lambdaInvocations
+                            * (PRICE_PER_LAMBDA_REQUEST + LAMBDA_GB * LAMBDA_BILLED_SECONDS * PRICE_PER_GB_SECOND)
+                    + reads * PRICE_PER_READ
+                    + writes * PRICE_PER_WRITE;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.ldc.workflow.simulation;
+
+import ch.qos.logback.classic.Level;
+import com.ldc.workflow.metrics.LatencyHistogram;
+import com.ldc.workflow.service.LocalVendPpaEndpoint;
+import com.ldc.workflow.service.VendPpaClient;
+import com.ldc.workflow.types.LoanAttribute;
+import com.ldc.workflow.util.CircuitBreaker;
+import com.ldc.workflow.util.RetryBudget;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Vend PPA submissions through VendPpaClient against the local stub under injected
+ * latency and failures, in wall-clock time.
+ *
+ * Each scenario starts on a warmed-up client. Scenarios: healthy (latency only), errors (a share of 503s), slow (a share of
+ * responses held past the attempt timeout) and outage (every call a 503). Each
+ * call gets the deadline a Lambda invocation would give it. Reported per scenario:
+ * outcomes by error type, call and attempt latency percentiles, retries, timeouts,
+ * circuit breaker and retry budget refusals, and submissions the stub accepted,
+ * which must never exceed one per loan.
+ *
+ * Run: mvn -Psimulation -pl lambda-function test-compile exec:exec -Dsimulation=VendPpaFailureSimulation
+ * Options (-Dsimulation.args="..."): calls=1000 concurrency=16 latencyMillis=20
+ * attemptTimeoutMillis=500 deadlineMillis=3000 errorRate=0.2 slowRate=0.05
+ */
+public class VendPpaFailureSimulation {
+
+    private final int calls;
+    private final int concurrency;
+    private final long latencyMillis;
+    private final long attemptTimeoutMillis;
+    private final long deadlineMillis;
+    private final double errorRate;
+    private final double slowRate;
+
+    VendPpaFailureSimulation(Map<String, String> options) {
+        this.calls = Integer.parseInt(options.getOrDefault("calls", "1000"));
+        this.concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+        this.latencyMillis = Long.parseLong(options.getOrDefault("latencyMillis", "20"));
+        this.attemptTimeoutMillis = Long.parseLong(options.getOrDefault("attemptTimeoutMillis", "500"));
+        this.deadlineMillis = Long.parseLong(options.getOrDefault("deadlineMillis", "3000"));
+        this.errorRate = Double.parseDouble(options.getOrDefault("errorRate", "0.2"));
+        this.slowRate = Double.parseDouble(options.getOrDefault("slowRate", "0.05"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.OFF);
+
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            for (String option : arg.trim().split("\\s+")) {
+                String[] pair = option.split("=", 2);
+                if (pair.length == 2) {
+                    options.put(pair[0], pair[1]);
+                }
+            }
+        }
+
+        VendPpaFailureSimulation simulation = new VendPpaFailureSimulation(options);
+        System.out.printf("Vend PPA failure simulation: %d calls, %d concurrent, latency %d-%d ms, "
+                        + "attempt timeout %d ms, deadline %d ms%n%n",
+                simulation.calls, simulation.concurrency, simulation.latencyMillis, simulation.latencyMillis * 2,
+                simulation.attemptTimeoutMillis, simulation.deadlineMillis);
+
+        simulation.run("healthy", endpoint -> { });
+        simulation.run("errors (" + Math.round(simulation.errorRate * 100) + "% 503)",
+                endpoint -> endpoint.withFailureRate(simulation.errorRate, 503));
+        simulation.run("slow (" + Math.round(simulation.slowRate * 100) + "% held 2 s)",
+                endpoint -> endpoint.withSlowRate(simulation.slowRate, 2_000));
+        simulation.run("outage (100% 503)", endpoint -> endpoint.withFailureRate(1.0, 503));
+    }
+
+    private void run(String scenario, Consumer<LocalVendPpaEndpoint> faults) throws Exception {
+        try (LocalVendPpaEndpoint endpoint = new LocalVendPpaEndpoint()) {
+            endpoint.withLatency(latencyMillis, latencyMillis);
+            VendPpaClient client = new VendPpaClient(endpoint::getEndpoint, Duration.ofSeconds(1),
+                    Duration.ofMillis(attemptTimeoutMillis), 3, new RetryBudget(0.2, 10),
+                    new CircuitBreaker(5, 1_000));
+
+            // Warm the connection pool and the JIT before the faults go in
+            ExecutorService warmup = Executors.newFixedThreadPool(concurrency);
+            for (int i = 0; i < concurrency * 8; i++) {
+                VendPpaClient.Submission submission = submission("REQ-WARMUP", i);
+                warmup.execute(() -> client.submit(submission, Long.MAX_VALUE));
+            }
+            warmup.shutdown();
+            warmup.awaitTermination(1, TimeUnit.MINUTES);
+            client.getLatency().reset();
+            client.getAttemptLatency().reset();
+            int warmupRequests = endpoint.getRequests().size();
+            int warmupAccepted = endpoint.getAcceptedCount();
+            faults.accept(endpoint);
+
+            Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+            ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+            long start = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                VendPpaClient.Submission submission = submission("REQ-SIM", i);
+                executor.execute(() -> {
+                    String outcome = "success";
+                    try {
+                        client.submit(submission,
+                                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis));
+                    } catch (VendPpaClient.VendPpaException e) {
+                        outcome = e.getErrorType();
+                    }
+                    outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.MINUTES);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.println(scenario);
+            Map<String, Long> sorted = new TreeMap<>();
+            outcomes.forEach((outcome, count) -> sorted.put(outcome, count.sum()));
+            System.out.printf("  %-28s %s%n", "Outcomes", sorted);
+            System.out.printf("  %-28s %.0f%n", "Calls per second", calls / seconds);
+            latency("Call latency (ms)", client.getLatency());
+            latency("Attempt latency (ms)", client.getAttemptLatency());
+            System.out.printf("  %-28s %d retries, %d timeouts%n", "Retries", client.getRetryCount(),
+                    client.getTimeoutCount());
+            System.out.printf("  %-28s %d breaker opens, %d fail-fast, %d retries refused by budget%n",
+                    "Protection", client.getCircuitBreaker().getOpenedCount(),
+                    client.getCircuitBreaker().getRejectedCount(), client.getRetryBudget().getExhaustedCount());
+            System.out.printf("  %-28s %d requests, %d accepted (%d loans succeeded)%n%n", "Stub",
+                    endpoint.getRequests().size() - warmupRequests, endpoint.getAcceptedCount() - warmupAccepted,
+                    sorted.getOrDefault("success", 0L));
+        }
+    }
+
+    private static VendPpaClient.Submission submission(String requestNumber, int loan) {
+        return new VendPpaClient.Submission(requestNumber, String.format("%010d", 1_000_000_000L + loan), 1L,
+                "Approved", "Approved", List.of(new LoanAttribute("Income", "Approved")));
+    }
+
+    private static void latency(String label, LatencyHistogram histogram) {
+        System.out.printf("  %-28s p50 %.1f  p90 %.1f  p99 %.1f  max %.1f%n", label,
+                histogram.getPercentileMicros(50) / 1000.0, histogram.getPercentileMicros(90) / 1000.0,
+                histogram.getPercentileMicros(99) / 1000.0, histogram.getMaxMicros() / 1000.0);
+    }
+}
@@ -0,0 +1,237 @@
+package com.ldc.workflow.simulation;
+
+import ch.qos.logback.classic.Level;
+import com.ldc.workflow.metrics.LatencyHistogram;
+import com.ldc.workflow.repository.InMemoryDynamoDbClient;
+import com.ldc.workflow.repository.VendPpaOutboxRepository;
+import com.ldc.workflow.repository.WorkflowStateRepository;
+import com.ldc.workflow.service.LocalVendPpaEndpoint;
+import com.ldc.workflow.service.StepFunctionsService;
+import com.ldc.workflow.service.VendPpaBatcher;
+import com.ldc.workflow.service.VendPpaClient;
+import com.ldc.workflow.service.VendPpaOutboxDispatcher;
+import com.ldc.workflow.types.LoanAttribute;
+import com.ldc.workflow.types.WorkflowState;
+import com.ldc.workflow.types.WorkflowStateKey;
+import com.ldc.workflow.util.Backoff;
+import com.ldc.workflow.util.CircuitBreaker;
+import com.ldc.workflow.util.RetryBudget;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Vend PPA submissions through the outbox, in wall-clock time: loans are queued
+ * with VendPpaOutboxRepository.enqueue at a fixed rate, and VendPpaOutboxDispatcher
+ * delivers them to the local stub.
+ *
+ * The outbox table's stream is emulated on the in-memory DynamoDB client: each new
+ * row's key goes onto a queue that {@code shards} pollers drain in batches of up to
+ * {@code batchSize}, as the event source mapping would, and a sweeper calls
+ * dispatcher.sweep every {@code sweepMillis}. StepFunctionsService is not called:
+ * no execution waits on these rows.
+ *
+ * Scenarios: healthy at several dispatch concurrencies, errors (a share of 503s,
+ * redelivered by the sweep after a backoff), lost stream records (a share of
+ * inserts never reach a poller, so only the sweep delivers them) and an outage
+ * that ends part way through. Reported per scenario: acknowledgements per second,
+ * lag from enqueue to acknowledgement, deliveries, redeliveries, duplicate
+ * deliveries and submissions the stub accepted, which must be exactly one per loan.
+ *
+ * Run: mvn -Psimulation -pl lambda-function test-compile exec:exec -Dsimulation=VendPpaOutboxSimulation
+ * Options (-Dsimulation.args="..."): loans=5000 rate=1000 latencyMillis=20 concurrency=16
+ * batchSize=100 shards=2 sweepMillis=500 errorRate=0.2 lostRate=0.1 ddbLatencyMillis=1
+ */
+public class VendPpaOutboxSimulation {
+
+    private static final String TABLE = "ldc-loan-review-state";
+    private static final String OUTBOX = TABLE + "-outbox";
+
+    private final int loans;
+    private final int rate;
+    private final long latencyMillis;
+    private final int concurrency;
+    private final int batchSize;
+    private final int shards;
+    private final long sweepMillis;
+    private final double errorRate;
+    private final double lostRate;
+    private final long ddbLatencyMillis;
+
+    VendPpaOutboxSimulation(Map<String, String> options) {
+        this.loans = Integer.parseInt(options.getOrDefault("loans", "5000"));
+        this.rate = Integer.parseInt(options.getOrDefault("rate", "1000"));
+        this.latencyMillis = Long.parseLong(options.getOrDefault("latencyMillis", "20"));
+        this.concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+        this.batchSize = Integer.parseInt(options.getOrDefault("batchSize", "100"));
+        this.shards = Integer.parseInt(options.getOrDefault("shards", "2"));
+        this.sweepMillis = Long.parseLong(options.getOrDefault("sweepMillis", "500"));
+        this.errorRate = Double.parseDouble(options.getOrDefault("errorRate", "0.2"));
+        this.lostRate = Double.parseDouble(options.getOrDefault("lostRate", "0.1"));
+        this.ddbLatencyMillis = Long.parseLong(options.getOrDefault("ddbLatencyMillis", "1"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.OFF);
+
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            for (String option : arg.trim().split("\\s+")) {
+                String[] pair = option.split("=", 2);
+                if (pair.length == 2) {
+                    options.put(pair[0], pair[1]);
+                }
+            }
+        }
+
+        VendPpaOutboxSimulation simulation = new VendPpaOutboxSimulation(options);
+        System.out.printf("Vend PPA outbox simulation: %d loans queued at %d/s, stub latency %d-%d ms, "
+                        + "%d stream shards x batches of %d, sweep every %d ms, DynamoDB latency %d ms%n%n",
+                simulation.loans, simulation.rate, simulation.latencyMillis, simulation.latencyMillis * 2,
+                simulation.shards, simulation.batchSize, simulation.sweepMillis, simulation.ddbLatencyMillis);
+
+        for (int concurrency : new int[] {1, 4, simulation.concurrency, simulation.concurrency * 4}) {
+            simulation.run("healthy, concurrency " + concurrency, concurrency, 0, endpoint -> { });
+        }
+        simulation.run("errors (" + Math.round(simulation.errorRate * 100) + "% 503)", simulation.concurrency, 0,
+                endpoint -> endpoint.withFailureRate(simulation.errorRate, 503));
+        simulation.run("lost stream records (" + Math.round(simulation.lostRate * 100) + "%)",
+                simulation.concurrency, simulation.lostRate, endpoint -> { });
+        simulation.run("outage (100% 503 for the first 2 s)", simulation.concurrency, 0, endpoint -> {
+            endpoint.withFailureRate(1.0, 503);
+            Thread recovery = new Thread(() -> {
+                sleep(2_000);
+                endpoint.withFailureRate(0, 503);
+            });
+            recovery.setDaemon(true);
+            recovery.start();
+        });
+    }
+
+    private void run(String scenario, int dispatchConcurrency, double lostRecords,
+                     Consumer<LocalVendPpaEndpoint> faults) throws Exception {
+        try (LocalVendPpaEndpoint endpoint = new LocalVendPpaEndpoint()) {
+            endpoint.withLatency(latencyMillis, latencyMillis);
+            InMemoryDynamoDbClient dynamoDbClient = new InMemoryDynamoDbClient().withLatencyMillis(ddbLatencyMillis);
+            WorkflowStateRepository stateRepository = new WorkflowStateRepository(dynamoDbClient, TABLE);
+            VendPpaOutboxRepository outbox = new VendPpaOutboxRepository(dynamoDbClient, TABLE, OUTBOX);
+            VendPpaClient client = new VendPpaClient(endpoint::getEndpoint, Duration.ofSeconds(1),
+                    Duration.ofMillis(500), 3, new RetryBudget(0.2, 10), new CircuitBreaker(5, 1_000));
+            // Redelivery backoff scaled down from seconds to tens of milliseconds
+            VendPpaOutboxDispatcher dispatcher = new VendPpaOutboxDispatcher(outbox,
+                    new VendPpaBatcher(client, 1, 0, 1, 1), new StepFunctionsService(), dispatchConcurrency, 5_000,
+                    100, new Backoff(50, 1_000), 0, System::currentTimeMillis);
+
+            // The stream: every new outbox row, minus the records that are lost
+            BlockingQueue<WorkflowStateKey> stream = new LinkedBlockingQueue<>();
+            dynamoDbClient.onInsert(OUTBOX, item -> {
+                if (lostRecords == 0 || ThreadLocalRandom.current().nextDouble() >= lostRecords) {
+                    stream.add(new WorkflowStateKey(item.get("RequestNumber").s(), item.get("LoanNumber").s()));
+                }
+            });
+            List<WorkflowState> states = new ArrayList<>(loans);
+            for (int i = 0; i < loans; i++) {
+                WorkflowState state = new WorkflowState("REQ-SIM", String.format("%010d", 1_000_000_000L + i),
+                        "LDCReview");
+                state.setExecutionId("ldc-loan-review-REQ-SIM");
+                state.setVersion(1L);
+                state.setLoanDecision("Approved");
+                state.setAttributes(List.of(new LoanAttribute("Income", "Approved")));
+                states.add(state);
+            }
+            stateRepository.saveAll(states);
+            faults.accept(endpoint);
+
+            AtomicBoolean running = new AtomicBoolean(true);
+            ExecutorService workers = Executors.newFixedThreadPool(shards + 1);
+            for (int shard = 0; shard < shards; shard++) {
+                workers.execute(() -> {
+                    List<WorkflowStateKey> batch = new ArrayList<>(batchSize);
+                    while (running.get()) {
+                        WorkflowStateKey first = poll(stream);
+                        if (first == null) {
+                            continue;
+                        }
+                        batch.add(first);
+                        stream.drainTo(batch, batchSize - 1);
+                        dispatcher.dispatch(batch);
+                        batch.clear();
+                    }
+                });
+            }
+            workers.execute(() -> {
+                while (running.get()) {
+                    sleep(sweepMillis);
+                    dispatcher.sweep(500);
+                }
+            });
+
+            long start = System.nanoTime();
+            for (int i = 0; i < loans; i++) {
+                if (rate > 0) {
+                    long due = start + TimeUnit.SECONDS.toNanos(i) / rate;
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                }
+                outbox.enqueue(states.get(i), "Approved", System.currentTimeMillis());
+            }
+            long enqueued = System.nanoTime();
+            while (dispatcher.getAcknowledgedCount() + dispatcher.getFailedCount() < loans
+                    && System.nanoTime() - start < TimeUnit.MINUTES.toNanos(5)) {
+                sleep(5);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            running.set(false);
+            workers.shutdown();
+            workers.awaitTermination(1, TimeUnit.MINUTES);
+
+            long deliveries = endpoint.getRequests().size();
+            System.out.println(scenario);
+            System.out.printf("  %-28s %d acknowledged, %d failed, %d left in the outbox%n", "Loans",
+                    dispatcher.getAcknowledgedCount(), dispatcher.getFailedCount(), dynamoDbClient.size(OUTBOX));
+            System.out.printf("  %-28s %.0f (queued at %.0f/s)%n", "Acknowledgements per second",
+                    dispatcher.getAcknowledgedCount() / seconds, loans / ((enqueued - start) / 1e9));
+            LatencyHistogram lag = dispatcher.getLag();
+            System.out.printf("  %-28s p50 %.1f  p95 %.1f  p99 %.1f  max %.1f%n", "Lag (ms)",
+                    lag.getPercentileMicros(50) / 1000.0, lag.getPercentileMicros(95) / 1000.0,
+                    lag.getPercentileMicros(99) / 1000.0, lag.getMaxMicros() / 1000.0);
+            System.out.printf("  %-28s %d HTTP requests, %d client retries, %d outbox redeliveries "
+                            + "(%d loans)%n", "Deliveries", deliveries, client.getRetryCount(),
+                    dispatcher.getReleasedCount(), dispatcher.getRedeliveredCount());
+            System.out.printf("  %-28s %d duplicate acknowledgements, %d accepted by the stub (%d loans)%n%n",
+                    "Dedupe", dispatcher.getDuplicateCount(), endpoint.getAcceptedCount(), loans);
+        }
+    }
+
+    private static WorkflowStateKey poll(BlockingQueue<WorkflowStateKey> stream) {
+        try {
+            return stream.poll(10, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
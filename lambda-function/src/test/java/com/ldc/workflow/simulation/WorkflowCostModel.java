@@ -0,0 +1,183 @@
+package com.ldc.workflow.simulation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cost and latency model for the loan review state machines: one Standard
+ * workflow for the whole flow, against the Standard parent that keeps only the
+ * human waits and starts the machine-only segments as synchronous Express
+ * children.
+ *
+ * Each scenario is a path of state names. Split paths are checked against the
+ * definitions in terraform/modules/step-functions (every hop must be a Next,
+ * Default, Choice or Catch edge) so the model fails loudly if the ASL moves.
+ * Per loan, the model takes one straight-through pass plus the expected number
+ * of decision-wait timeouts and reclass re-checks, and reports Standard
+ * transitions, Express requests, estimated cost and machine-segment latency.
+ *
+ * Run: mvn -Psimulation -pl lambda-function test-compile exec:exec -Dsimulation=WorkflowCostModel
+ * Options (-Dsimulation.args="..."): loans=1000000 timeoutsPerLoan=0.3 reclassShare=0.1
+ * recheckPerReclass=2 standardHopMs=40 expressHopMs=5 syncStartMs=120 lambdaMs=60
+ * definitions=../terraform/modules/step-functions
+ */
+public class WorkflowCostModel {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    // us-east-1 list prices
+    private static final double PRICE_PER_TRANSITION = 0.000025;
+    private static final double PRICE_PER_EXPRESS_REQUEST = 1.00 / 1_000_000;
+    private static final double PRICE_PER_EXPRESS_GB_SECOND = 0.00001667;
+    private static final double EXPRESS_GB = 0.0625;
+
+    /** The single Standard definition before the split (after evaluateLoan was introduced). */
+    private static final List<String> MONOLITH_STRAIGHT_THROUGH = List.of("ValidateReviewType",
+            "CheckReviewTypeValid", "CompactExecutionState", "WaitForLoanDecision", "EvaluateLoan",
+            "RouteLoanDecision", "CallVendPpa", "CheckVendPpaSuccess", "LogAuditTrail", "WorkflowComplete");
+    private static final List<String> MONOLITH_TIMEOUT_LOOP = List.of("EvaluateLoan", "RouteLoanDecision",
+            "WaitForLoanDecision");
+    private static final List<String> MONOLITH_RECLASS_LOOP = List.of("PauseForReclassConfirmation",
+            "CheckReclassStatus", "IsReclassConfirmed");
+    private static final int MONOLITH_LAMBDA_HOPS = 4;
+
+    private static final List<String> PARENT_STRAIGHT_THROUGH = List.of("IsPrevalidated", "ValidateReviewType",
+            "WaitForLoanDecision", "ProcessLoanDecision", "RouteDecisionOutcome", "WaitForVendPpaAck",
+            "RouteCompletionNotification", "LogWorkflowCompleted", "WorkflowComplete");
+    private static final List<String> PARENT_TIMEOUT_LOOP = List.of("ProcessLoanDecision",
+            "RouteDecisionOutcome", "WaitForLoanDecision");
+    private static final List<String> PARENT_RECLASS_LOOP = List.of("WaitForReclassConfirmation",
+            "CheckReclassStatus", "RouteDecisionOutcome");
+    private static final List<String> VALIDATION_PATH = List.of("ValidateReviewType", "CheckReviewTypeValid",
+            "CompactExecutionState");
+    private static final List<String> DECISION_SUBMIT_PATH = List.of("EvaluateLoan", "RouteLoanDecision",
+            "EnqueueVendPpa", "CheckVendPpaQueued", "ReturnSubmitted");
+    private static final List<String> DECISION_RETURN_PATH = List.of("EvaluateLoan", "RouteLoanDecision",
+            "ReturnIncomplete");
+
+    private final Map<String, String> options;
+
+    WorkflowCostModel(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            for (String option : arg.trim().split("\\s+")) {
+                String[] pair = option.split("=", 2);
+                if (pair.length == 2) {
+                    options.put(pair[0], pair[1]);
+                }
+            }
+        }
+        new WorkflowCostModel(options).report();
+    }
+
+    void report() throws Exception {
+        long loans = Long.parseLong(options.getOrDefault("loans", "1000000"));
+        double timeouts = number("timeoutsPerLoan", 0.3);
+        double reclassShare = number("reclassShare", 0.1);
+        double rechecks = number("recheckPerReclass", 2);
+        double standardHopMs = number("standardHopMs", 40);
+        double expressHopMs = number("expressHopMs", 5);
+        double syncStartMs = number("syncStartMs", 120);
+        double lambdaMs = number("lambdaMs", 60);
+        Path definitions = Path.of(options.getOrDefault("definitions", "../terraform/modules/step-functions"));
+
+        verify(definitions.resolve("definition.asl.json"), PARENT_STRAIGHT_THROUGH, PARENT_TIMEOUT_LOOP,
+                PARENT_RECLASS_LOOP);
+        verify(definitions.resolve("validation.asl.json"), VALIDATION_PATH);
+        verify(definitions.resolve("loan-decision.asl.json"), DECISION_SUBMIT_PATH, DECISION_RETURN_PATH);
+
+        double reclassLoops = reclassShare * rechecks;
+
+        // Standard transitions per loan
+        double monolithTransitions = MONOLITH_STRAIGHT_THROUGH.size() + timeouts * MONOLITH_TIMEOUT_LOOP.size()
+                + reclassLoops * MONOLITH_RECLASS_LOOP.size();
+        double parentTransitions = PARENT_STRAIGHT_THROUGH.size() + timeouts * PARENT_TIMEOUT_LOOP.size()
+                + reclassLoops * PARENT_RECLASS_LOOP.size();
+
+        // Express executions and their billed duration per loan
+        double expressRequests = 2 + timeouts + reclassLoops;
+        double validationMs = VALIDATION_PATH.size() * expressHopMs + lambdaMs;
+        double submitMs = DECISION_SUBMIT_PATH.size() * expressHopMs + 2 * lambdaMs;
+        double returnMs = DECISION_RETURN_PATH.size() * expressHopMs + lambdaMs;
+        double expressSeconds = (validationMs + submitMs + (timeouts + reclassLoops) * returnMs) / 1000;
+        double expressBilledSeconds = Math.max(expressSeconds, 0.1 * expressRequests);
+
+        double monolithCost = monolithTransitions * PRICE_PER_TRANSITION;
+        double splitCost = parentTransitions * PRICE_PER_TRANSITION + expressRequests * PRICE_PER_EXPRESS_REQUEST
+                + expressBilledSeconds * EXPRESS_GB * PRICE_PER_EXPRESS_GB_SECOND;
+
+        // Machine-segment latency (validation plus the final evaluate-and-submit pass)
+        double monolithLatencyMs = (MONOLITH_STRAIGHT_THROUGH.size() - 1) * standardHopMs
+                + MONOLITH_LAMBDA_HOPS * lambdaMs;
+        // The split path audits from the parent; the Vend PPA delivery itself is off the path
+        double splitLatencyMs = (PARENT_STRAIGHT_THROUGH.size() - 1) * standardHopMs + 2 * syncStartMs
+                + validationMs + submitMs + lambdaMs;
+
+        System.out.printf("Workflow cost model: %,d loans, %.2f timeouts/loan, %.0f%% reclass x %.1f re-checks%n%n",
+                loans, timeouts, reclassShare * 100, rechecks);
+        System.out.printf("%-40s %16s %16s%n", "", "monolith", "parent+express");
+        System.out.printf("%-40s %16.2f %16.2f%n", "Standard transitions per loan", monolithTransitions,
+                parentTransitions);
+        System.out.printf("%-40s %16.2f %16.2f%n", "Express executions per loan", 0.0, expressRequests);
+        System.out.printf("%-40s %16.2f %16.2f%n", "Express billed seconds per loan", 0.0, expressBilledSeconds);
+        System.out.printf("%-40s %16.2f %16.2f%n", "Cost per " + String.format("%,d", loans) + " loans ($)",
+                monolithCost * loans, splitCost * loans);
+        System.out.printf("%-40s %16.0f %16.0f%n", "Machine-segment latency per loan (ms)", monolithLatencyMs,
+                splitLatencyMs);
+        System.out.printf("%nStraight-through path: %d -> %d Standard transitions; cost %.1f%% lower, "
+                        + "latency %+.0f ms%n", MONOLITH_STRAIGHT_THROUGH.size(), PARENT_STRAIGHT_THROUGH.size(),
+                100 * (monolithCost - splitCost) / monolithCost, splitLatencyMs - monolithLatencyMs);
+    }
+
+    private double number(String name, double defaultValue) {
+        return Double.parseDouble(options.getOrDefault(name, Double.toString(defaultValue)));
+    }
+
+    @SafeVarargs
+    private static void verify(Path file, List<String>... paths) throws Exception {
+        String text = Files.readString(file).replaceAll("\\$\\{[a-z_]+}", "0");
+        JsonNode states = objectMapper.readTree(text).get("States");
+        for (List<String> path : paths) {
+            for (int i = 0; i < path.size(); i++) {
+                JsonNode state = states.get(path.get(i));
+                if (state == null) {
+                    throw new IllegalStateException(file.getFileName() + " has no state " + path.get(i));
+                }
+                if (i + 1 < path.size() && !edges(state).contains(path.get(i + 1))) {
+                    throw new IllegalStateException(file.getFileName() + ": no edge " + path.get(i)
+                            + " -> " + path.get(i + 1));
+                }
+            }
+        }
+    }
+
+    private static Set<String> edges(JsonNode state) {
+        Set<String> edges = new HashSet<>();
+        List<JsonNode> sources = new ArrayList<>();
+        sources.add(state);
+        state.path("Choices").forEach(sources::add);
+        state.path("Catch").forEach(sources::add);
+        for (JsonNode source : sources) {
+            if (source.hasNonNull("Next")) {
+                edges.add(source.get("Next").asText());
+            }
+        }
+        if (state.hasNonNull("Default")) {
+            edges.add(state.get("Default").asText());
+        }
+        return edges;
+    }
+}
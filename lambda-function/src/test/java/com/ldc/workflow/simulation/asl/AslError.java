@@ -0,0 +1,25 @@
+package com.ldc.workflow.simulation.asl;
+
+/**
+ * A named Step Functions error (e.g. States.Timeout, Lambda.Unknown) raised
+ * while interpreting a state; matched against Retry and Catch ErrorEquals.
+ */
+public class AslError extends RuntimeException {
+
+    private final String error;
+    private final String errorCause;
+
+    public AslError(String error, String errorCause) {
+        super(error + ": " + errorCause);
+        this.error = error;
+        this.errorCause = errorCause;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public String getErrorCause() {
+        return errorCause;
+    }
+}
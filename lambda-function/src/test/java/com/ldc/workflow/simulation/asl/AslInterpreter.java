@@ -0,0 +1,833 @@
+package com.ldc.workflow.simulation.asl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ldc.workflow.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * In-process interpreter for the subset of Amazon States Language used by the
+ * loan review state machines (terraform/modules/step-functions/*.asl.json).
+ *
+ * Supported: Pass, Task, Choice, Wait, Succeed, Fail and Map (inline and
+ * distributed, with ItemBatcher); InputPath, Parameters, ResultSelector,
+ * ResultPath, OutputPath, Retry and Catch. Task resources:
+ *  - arn:aws:states:::lambda:invoke and lambda:invoke.waitForTaskToken, routed to a
+ *    single Lambda function (LoanReviewRouter in the simulations)
+ *  - arn:aws:states:::states:startExecution, .sync and .sync:2 for nested machines
+ *
+ * Time is virtual: events sit in a priority queue and the clock jumps to the next
+ * event once every in-flight step has finished, so a 30-minute Wait costs nothing.
+ * Steps run on a fixed worker pool, which is what lets thousands of executions
+ * progress concurrently without a thread each.
+ *
+ * Metrics: per-state wall latency (time spent interpreting the state, including
+ * the Lambda call), per-state virtual dwell for Wait/callback/sync states, state
+ * entries, transitions and Lambda invocations by handlerType.
+ */
+public class AslInterpreter implements AutoCloseable {
+
+    public static final String ARN_PREFIX = "arn:aws:states:local:000000000000:stateMachine:";
+
+    private static final String LAMBDA_INVOKE = "arn:aws:states:::lambda:invoke";
+    private static final String LAMBDA_INVOKE_CALLBACK = "arn:aws:states:::lambda:invoke.waitForTaskToken";
+    private static final String START_EXECUTION = "arn:aws:states:::states:startExecution";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    public enum Status { RUNNING, SUCCEEDED, FAILED }
+
+    private final Function<JsonNode, JsonNode> lambda;
+    private final ExecutorService workers;
+    private final Random random = new Random(7);
+
+    private final Map<String, JsonNode> machines = new ConcurrentHashMap<>();
+    private final Map<String, Execution> executions = new ConcurrentHashMap<>();
+    private final Map<String, PendingTask> tokens = new ConcurrentHashMap<>();
+
+    // Virtual clock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Event> queue = new PriorityQueue<>();
+    private volatile long nowMillis;
+    private long sequence;
+    private int inFlight;
+    private volatile Throwable uncaught;
+
+    // Metrics
+    private final Map<String, LatencyHistogram> stateLatency = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> stateDwell = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> stateEntries = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> lambdaInvocations = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> executionDuration = new ConcurrentHashMap<>();
+    private final LongAdder transitions = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    public AslInterpreter(Function<JsonNode, JsonNode> lambda, int workerThreads) {
+        this.lambda = lambda;
+        this.workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "asl-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Register a state machine from an .asl.json file, substituting Terraform
+     * ${var} placeholders first. Returns the machine's ARN.
+     */
+    public String loadStateMachine(String name, Path definition, Map<String, String> variables) throws IOException {
+        String text = Files.readString(definition);
+        for (Map.Entry<String, String> variable : variables.entrySet()) {
+            text = text.replace("${" + variable.getKey() + "}", variable.getValue());
+        }
+        return registerStateMachine(name, objectMapper.readTree(text));
+    }
+
+    public String registerStateMachine(String name, JsonNode definition) {
+        String arn = ARN_PREFIX + name;
+        machines.put(arn, definition);
+        return arn;
+    }
+
+    /**
+     * Start an execution. Names are unique per state machine: restarting with the
+     * same input returns the existing execution, a different input fails with
+     * StepFunctions.ExecutionAlreadyExistsException.
+     */
+    public Execution startExecution(String stateMachineArn, String name, JsonNode input) {
+        return startExecution(stateMachineArn, name, input, null);
+    }
+
+    private Execution startExecution(String stateMachineArn, String name, JsonNode input,
+                                     Consumer<Execution> onComplete) {
+        JsonNode definition = machines.get(stateMachineArn);
+        if (definition == null) {
+            throw new AslError("StepFunctions.StateMachineDoesNotExistException", stateMachineArn);
+        }
+        String executionName = name != null ? name : UUID.randomUUID().toString();
+        String executionArn = stateMachineArn.replace(":stateMachine:", ":execution:") + ":" + executionName;
+        Execution execution = new Execution(executionArn, executionName, stateMachineArn, definition,
+                input, nowMillis, false, onComplete);
+        Execution existing = executions.putIfAbsent(executionArn, execution);
+        if (existing != null) {
+            if (existing.input.equals(input)) {
+                return existing;
+            }
+            throw new AslError("StepFunctions.ExecutionAlreadyExistsException", executionArn);
+        }
+        begin(execution);
+        return execution;
+    }
+
+    private Execution startIteration(Execution parent, JsonNode processor, String name, JsonNode input,
+                                     Consumer<Execution> onComplete) {
+        Execution iteration = new Execution(parent.arn + "/" + name, name, parent.stateMachineArn, processor,
+                input, nowMillis, true, onComplete);
+        begin(iteration);
+        return iteration;
+    }
+
+    private void begin(Execution execution) {
+        enter(execution, execution.definition.path("StartAt").asText(), execution.input);
+    }
+
+    /**
+     * Complete a waitForTaskToken task. Returns false when the token is unknown
+     * (already completed or timed out), which Step Functions reports as TaskTimedOut.
+     */
+    public boolean sendTaskSuccess(String token, JsonNode output) {
+        PendingTask task = tokens.remove(token);
+        if (task == null) {
+            return false;
+        }
+        schedule(nowMillis, () -> {
+            task.recordDwell();
+            succeed(task.run, output);
+        });
+        return true;
+    }
+
+    public boolean sendTaskFailure(String token, String error, String cause) {
+        PendingTask task = tokens.remove(token);
+        if (task == null) {
+            return false;
+        }
+        schedule(nowMillis, () -> {
+            task.recordDwell();
+            fail(task.run, new AslError(error, cause));
+        });
+        return true;
+    }
+
+    /**
+     * Run an action at a virtual time (milliseconds since the interpreter started).
+     */
+    public void schedule(long atMillis, Runnable action) {
+        lock.lock();
+        try {
+            queue.add(new Event(Math.max(atMillis, nowMillis), sequence++, action));
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long now() {
+        return nowMillis;
+    }
+
+    /**
+     * Drain the event queue, advancing the virtual clock whenever nothing is in
+     * flight. Returns when no executions have anything left to do.
+     */
+    public void run() {
+        lock.lock();
+        try {
+            while (true) {
+                while (!queue.isEmpty() && queue.peek().atMillis <= nowMillis) {
+                    Event event = queue.poll();
+                    inFlight++;
+                    workers.execute(() -> dispatch(event));
+                }
+                if (inFlight > 0) {
+                    changed.awaitUninterruptibly();
+                    continue;
+                }
+                if (queue.isEmpty()) {
+                    break;
+                }
+                nowMillis = queue.peek().atMillis;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (uncaught != null) {
+            throw new IllegalStateException("Interpreter step failed", uncaught);
+        }
+    }
+
+    private void dispatch(Event event) {
+        try {
+            event.action.run();
+        } catch (Throwable t) {
+            if (uncaught == null) {
+                uncaught = t;
+            }
+        } finally {
+            lock.lock();
+            try {
+                inFlight--;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- states
+
+    private void enter(Execution execution, String stateName, JsonNode input) {
+        JsonNode state = execution.definition.path("States").get(stateName);
+        if (state == null) {
+            throw new AslError("States.Runtime", "Unknown state " + stateName);
+        }
+        transitions.increment();
+        String key = key(execution, stateName);
+        stateEntries.computeIfAbsent(key, k -> new LongAdder()).increment();
+        StateRun run = new StateRun(execution, stateName, state, key, input, nowMillis);
+        schedule(nowMillis, () -> execute(run));
+    }
+
+    private void execute(StateRun run) {
+        long start = System.nanoTime();
+        try {
+            switch (run.state.path("Type").asText()) {
+                case "Pass":
+                    JsonNode result = run.state.has("Parameters") ? parameters(run)
+                            : run.state.has("Result") ? run.state.get("Result") : effectiveInput(run);
+                    advance(run, output(run, result));
+                    break;
+                case "Task":
+                    task(run);
+                    break;
+                case "Choice":
+                    choice(run);
+                    break;
+                case "Wait":
+                    long waitMillis = run.state.has("SecondsPath")
+                            ? (long) (JsonPaths.read(run.input, run.state.get("SecondsPath").asText()).asDouble() * 1000)
+                            : run.state.path("Seconds").asLong() * 1000;
+                    schedule(nowMillis + waitMillis, () -> {
+                        dwell(run);
+                        advance(run, outputPath(run, run.input));
+                    });
+                    break;
+                case "Succeed":
+                    finish(run.execution, Status.SUCCEEDED, outputPath(run, run.input), null, null);
+                    break;
+                case "Fail":
+                    finish(run.execution, Status.FAILED, null,
+                            run.state.path("Error").asText("States.Fail"), run.state.path("Cause").asText(""));
+                    break;
+                case "Map":
+                    map(run);
+                    break;
+                default:
+                    throw new AslError("States.Runtime", "Unsupported state type " + run.state.path("Type").asText());
+            }
+        } catch (AslError e) {
+            fail(run, e);
+        } finally {
+            stateLatency.computeIfAbsent(run.key, LatencyHistogram::new).recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    private void task(StateRun run) {
+        String resource = run.state.path("Resource").asText();
+        if (resource.equals(LAMBDA_INVOKE)) {
+            JsonNode parameters = parameters(run);
+            ObjectNode result = JsonNodeFactory.instance.objectNode();
+            result.put("StatusCode", 200);
+            result.set("Payload", invoke(parameters.has("Payload") ? parameters.get("Payload") : parameters));
+            succeed(run, result);
+        } else if (resource.equals(LAMBDA_INVOKE_CALLBACK)) {
+            run.token = UUID.randomUUID().toString();
+            JsonNode parameters = parameters(run);
+            PendingTask pending = new PendingTask(run);
+            // Register before invoking: the handler may call back before it returns
+            tokens.put(run.token, pending);
+            try {
+                invoke(parameters.has("Payload") ? parameters.get("Payload") : parameters);
+            } catch (AslError e) {
+                tokens.remove(run.token);
+                throw e;
+            }
+            if (run.state.has("TimeoutSeconds")) {
+                String token = run.token;
+                schedule(nowMillis + run.state.get("TimeoutSeconds").asLong() * 1000, () -> {
+                    if (tokens.remove(token) != null) {
+                        pending.recordDwell();
+                        fail(run, new AslError("States.Timeout", "Task timed out"));
+                    }
+                });
+            }
+        } else if (resource.startsWith(START_EXECUTION + ".sync")) {
+            boolean stringOutput = !resource.endsWith(":2");
+            JsonNode parameters = parameters(run);
+            startExecution(parameters.path("StateMachineArn").asText(),
+                    parameters.hasNonNull("Name") ? parameters.get("Name").asText() : null,
+                    parameters.path("Input"),
+                    child -> schedule(nowMillis, () -> {
+                        dwell(run);
+                        if (child.status == Status.SUCCEEDED) {
+                            ObjectNode result = JsonNodeFactory.instance.objectNode();
+                            result.put("ExecutionArn", child.arn);
+                            result.put("Status", "SUCCEEDED");
+                            result.set("Output", stringOutput
+                                    ? JsonNodeFactory.instance.textNode(child.output.toString()) : child.output);
+                            succeed(run, result);
+                        } else {
+                            fail(run, new AslError("States.TaskFailed", child.error + ": " + child.cause));
+                        }
+                    }));
+        } else if (resource.equals(START_EXECUTION)) {
+            JsonNode parameters = parameters(run);
+            Execution child = startExecution(parameters.path("StateMachineArn").asText(),
+                    parameters.hasNonNull("Name") ? parameters.get("Name").asText() : null,
+                    parameters.path("Input"));
+            ObjectNode result = JsonNodeFactory.instance.objectNode();
+            result.put("ExecutionArn", child.arn);
+            result.put("StartDate", child.startMillis);
+            succeed(run, result);
+        } else {
+            throw new AslError("States.Runtime", "Unsupported resource " + resource);
+        }
+    }
+
+    private JsonNode invoke(JsonNode payload) {
+        String handlerType = payload.path("handlerType").asText(payload.path("BatchInput").path("handlerType").asText("unknown"));
+        lambdaInvocations.computeIfAbsent(handlerType, k -> new LongAdder()).increment();
+        try {
+            return lambda.apply(payload);
+        } catch (RuntimeException e) {
+            throw new AslError("Lambda.Unknown", String.valueOf(e.getMessage()));
+        }
+    }
+
+    private void choice(StateRun run) {
+        for (JsonNode rule : run.state.path("Choices")) {
+            if (ChoiceRules.matches(rule, run.input)) {
+                enter(run.execution, rule.get("Next").asText(), outputPath(run, run.input));
+                return;
+            }
+        }
+        if (!run.state.has("Default")) {
+            throw new AslError("States.NoChoiceMatched", "No choice matched in " + run.name);
+        }
+        enter(run.execution, run.state.get("Default").asText(), outputPath(run, run.input));
+    }
+
+    private void map(StateRun run) {
+        JsonNode input = effectiveInput(run);
+        JsonNode items = JsonPaths.read(input, run.state.path("ItemsPath").asText("$"));
+        if (!items.isArray()) {
+            throw new AslError("States.Runtime", "ItemsPath did not select an array in " + run.name);
+        }
+        List<JsonNode> work = new ArrayList<>();
+        JsonNode batcher = run.state.get("ItemBatcher");
+        if (batcher != null) {
+            int batchSize = batcher.path("MaxItemsPerBatch").asInt(Integer.MAX_VALUE);
+            JsonNode batchInput = batcher.has("BatchInput")
+                    ? JsonPaths.resolve(batcher.get("BatchInput"), input, context(run)) : null;
+            for (int from = 0; from < items.size(); from += batchSize) {
+                ObjectNode batch = JsonNodeFactory.instance.objectNode();
+                if (batchInput != null) {
+                    batch.set("BatchInput", batchInput);
+                }
+                ArrayNode batchItems = batch.putArray("Items");
+                for (int i = from; i < Math.min(items.size(), from + batchSize); i++) {
+                    batchItems.add(items.get(i));
+                }
+                work.add(batch);
+            }
+        } else {
+            items.forEach(work::add);
+        }
+
+        JsonNode processor = run.state.has("ItemProcessor") ? run.state.get("ItemProcessor") : run.state.get("Iterator");
+        boolean distributed = "DISTRIBUTED".equals(processor.path("ProcessorConfig").path("Mode").asText());
+        int maxConcurrency = run.state.path("MaxConcurrency").asInt(0);
+        double toleratedPercentage = run.state.path("ToleratedFailurePercentage").asDouble(0);
+        new MapRun(run, processor, work, maxConcurrency <= 0 ? work.size() : maxConcurrency,
+                distributed, toleratedPercentage).start();
+    }
+
+    /**
+     * Tracks the iterations of one Map state and completes it when all have finished.
+     */
+    private final class MapRun {
+        private final StateRun run;
+        private final JsonNode processor;
+        private final List<JsonNode> work;
+        private final int maxConcurrency;
+        private final boolean distributed;
+        private final double toleratedPercentage;
+        private final JsonNode[] results;
+        private int started;
+        private int finished;
+        private int failed;
+        private Execution firstFailure;
+
+        MapRun(StateRun run, JsonNode processor, List<JsonNode> work, int maxConcurrency,
+               boolean distributed, double toleratedPercentage) {
+            this.run = run;
+            this.processor = processor;
+            this.work = work;
+            this.maxConcurrency = maxConcurrency;
+            this.distributed = distributed;
+            this.toleratedPercentage = toleratedPercentage;
+            this.results = new JsonNode[work.size()];
+        }
+
+        void start() {
+            if (work.isEmpty()) {
+                succeed(run, JsonNodeFactory.instance.arrayNode());
+                return;
+            }
+            List<Integer> launch = new ArrayList<>();
+            synchronized (this) {
+                while (started < Math.min(maxConcurrency, work.size())) {
+                    launch.add(started++);
+                }
+            }
+            launch.forEach(this::launch);
+        }
+
+        private void launch(int index) {
+            startIteration(run.execution, processor, run.name + "[" + index + "]", work.get(index),
+                    iteration -> completed(index, iteration));
+        }
+
+        private void completed(int index, Execution iteration) {
+            Integer next = null;
+            boolean done;
+            synchronized (this) {
+                finished++;
+                if (iteration.status == Status.SUCCEEDED) {
+                    results[index] = iteration.output;
+                } else {
+                    failed++;
+                    if (firstFailure == null) {
+                        firstFailure = iteration;
+                    }
+                }
+                if (started < work.size()) {
+                    next = started++;
+                }
+                done = finished == work.size();
+            }
+            if (next != null) {
+                launch(next);
+            }
+            if (done) {
+                schedule(nowMillis, this::complete);
+            }
+        }
+
+        private void complete() {
+            dwell(run);
+            if (failed > 0 && (!distributed || failed * 100.0 / work.size() > toleratedPercentage)) {
+                fail(run, distributed
+                        ? new AslError("States.ExceedToleratedFailureThreshold", failed + " of " + work.size() + " iterations failed")
+                        : new AslError(firstFailure.error, firstFailure.cause));
+                return;
+            }
+            ArrayNode output = JsonNodeFactory.instance.arrayNode();
+            for (JsonNode result : results) {
+                output.add(result == null ? JsonNodeFactory.instance.nullNode() : result);
+            }
+            succeed(run, output);
+        }
+    }
+
+    // -------------------------------------------------------- data flow
+
+    private JsonNode effectiveInput(StateRun run) {
+        JsonNode inputPath = run.state.get("InputPath");
+        if (inputPath == null) {
+            return run.input;
+        }
+        return inputPath.isNull() ? JsonNodeFactory.instance.objectNode() : JsonPaths.read(run.input, inputPath.asText());
+    }
+
+    private JsonNode parameters(StateRun run) {
+        JsonNode input = effectiveInput(run);
+        return run.state.has("Parameters") ? JsonPaths.resolve(run.state.get("Parameters"), input, context(run)) : input;
+    }
+
+    private JsonNode output(StateRun run, JsonNode result) {
+        JsonNode selected = run.state.has("ResultSelector")
+                ? JsonPaths.resolve(run.state.get("ResultSelector"), result, context(run)) : result;
+        return outputPath(run, JsonPaths.write(run.input, run.state.get("ResultPath"), selected));
+    }
+
+    private JsonNode outputPath(StateRun run, JsonNode value) {
+        JsonNode outputPath = run.state.get("OutputPath");
+        if (outputPath == null) {
+            return value;
+        }
+        return outputPath.isNull() ? JsonNodeFactory.instance.objectNode() : JsonPaths.read(value, outputPath.asText());
+    }
+
+    private JsonNode context(StateRun run) {
+        ObjectNode context = JsonNodeFactory.instance.objectNode();
+        ObjectNode execution = context.putObject("Execution");
+        execution.put("Id", run.execution.arn);
+        execution.put("Name", run.execution.name);
+        execution.put("StartTime", Instant.ofEpochMilli(run.execution.startMillis).toString());
+        execution.set("Input", run.execution.input);
+        ObjectNode stateMachine = context.putObject("StateMachine");
+        stateMachine.put("Id", run.execution.stateMachineArn);
+        ObjectNode state = context.putObject("State");
+        state.put("Name", run.name);
+        state.put("EnteredTime", Instant.ofEpochMilli(run.enteredMillis).toString());
+        if (run.token != null) {
+            context.putObject("Task").put("Token", run.token);
+        }
+        return context;
+    }
+
+    // ---------------------------------------------------- completion
+
+    private void succeed(StateRun run, JsonNode result) {
+        try {
+            advance(run, output(run, result));
+        } catch (AslError e) {
+            fail(run, e);
+        }
+    }
+
+    private void advance(StateRun run, JsonNode output) {
+        if (run.state.path("End").asBoolean(false)) {
+            finish(run.execution, Status.SUCCEEDED, output, null, null);
+        } else {
+            enter(run.execution, run.state.path("Next").asText(), output);
+        }
+    }
+
+    private void fail(StateRun run, AslError error) {
+        JsonNode retriers = run.state.path("Retry");
+        for (int i = 0; i < retriers.size(); i++) {
+            JsonNode retrier = retriers.get(i);
+            if (!matches(retrier.path("ErrorEquals"), error.getError())) {
+                continue;
+            }
+            int attempt = run.attempts.merge(i, 1, Integer::sum);
+            if (attempt <= retrier.path("MaxAttempts").asInt(3)) {
+                double delay = retrier.path("IntervalSeconds").asDouble(1)
+                        * Math.pow(retrier.path("BackoffRate").asDouble(2.0), attempt - 1);
+                if (retrier.has("MaxDelaySeconds")) {
+                    delay = Math.min(delay, retrier.get("MaxDelaySeconds").asDouble());
+                }
+                if ("FULL".equals(retrier.path("JitterStrategy").asText())) {
+                    synchronized (random) {
+                        delay *= random.nextDouble();
+                    }
+                }
+                retries.increment();
+                schedule(nowMillis + (long) (delay * 1000), () -> execute(run));
+                return;
+            }
+            break;
+        }
+        for (JsonNode catcher : run.state.path("Catch")) {
+            if (matches(catcher.path("ErrorEquals"), error.getError())) {
+                ObjectNode errorOutput = JsonNodeFactory.instance.objectNode();
+                errorOutput.put("Error", error.getError());
+                errorOutput.put("Cause", error.getErrorCause());
+                enter(run.execution, catcher.get("Next").asText(),
+                        JsonPaths.write(run.input, catcher.get("ResultPath"), errorOutput));
+                return;
+            }
+        }
+        finish(run.execution, Status.FAILED, null, error.getError(), error.getErrorCause());
+    }
+
+    private static boolean matches(JsonNode errorEquals, String error) {
+        for (JsonNode candidate : errorEquals) {
+            String name = candidate.asText();
+            if (name.equals(error) || name.equals("States.ALL")
+                    || (name.equals("States.TaskFailed") && !error.equals("States.Timeout"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void finish(Execution execution, Status status, JsonNode output, String error, String cause) {
+        execution.output = output;
+        execution.error = error;
+        execution.cause = cause;
+        execution.stopMillis = nowMillis;
+        execution.status = status;
+        if (!execution.iteration) {
+            executionDuration.computeIfAbsent(machineName(execution.stateMachineArn), LatencyHistogram::new)
+                    .recordMicros((execution.stopMillis - execution.startMillis) * 1000);
+        }
+        if (execution.onComplete != null) {
+            execution.onComplete.accept(execution);
+        }
+    }
+
+    private void dwell(StateRun run) {
+        stateDwell.computeIfAbsent(run.key, LatencyHistogram::new)
+                .recordMicros((nowMillis - run.enteredMillis) * 1000);
+    }
+
+    private static String key(Execution execution, String stateName) {
+        return machineName(execution.stateMachineArn) + "." + stateName;
+    }
+
+    private static String machineName(String stateMachineArn) {
+        return stateMachineArn.substring(stateMachineArn.lastIndexOf(':') + 1);
+    }
+
+    // ---------------------------------------------------------- metrics
+
+    public List<Execution> getExecutions() {
+        return new ArrayList<>(executions.values());
+    }
+
+    public Execution getExecution(String executionArn) {
+        return executions.get(executionArn);
+    }
+
+    public long getTransitions() {
+        return transitions.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    public long getStateEntries(String stateKey) {
+        LongAdder entries = stateEntries.get(stateKey);
+        return entries == null ? 0 : entries.sum();
+    }
+
+    public Map<String, Long> getLambdaInvocations() {
+        Map<String, Long> counts = new TreeMap<>();
+        lambdaInvocations.forEach((handlerType, count) -> counts.put(handlerType, count.sum()));
+        return counts;
+    }
+
+    public LatencyHistogram getExecutionDuration(String machineName) {
+        return executionDuration.get(machineName);
+    }
+
+    public int getPendingTaskTokens() {
+        return tokens.size();
+    }
+
+    /**
+     * Print per-state entries, wall latency and virtual dwell, then Lambda invocations.
+     */
+    public void report(PrintStream out) {
+        out.printf("%-60s %9s %9s %9s %9s %11s %11s%n", "state", "entries",
+                "p50 us", "p99 us", "max us", "dwell p50 s", "dwell p99 s");
+        for (String key : new TreeMap<>(stateEntries).keySet()) {
+            LatencyHistogram latency = stateLatency.get(key);
+            LatencyHistogram dwell = stateDwell.get(key);
+            out.printf("%-60s %9d %9d %9d %9d %11s %11s%n", key, stateEntries.get(key).sum(),
+                    latency == null ? 0 : latency.getPercentileMicros(50),
+                    latency == null ? 0 : latency.getPercentileMicros(99),
+                    latency == null ? 0 : latency.getMaxMicros(),
+                    dwell == null ? "-" : String.valueOf(dwell.getPercentileMicros(50) / 1_000_000),
+                    dwell == null ? "-" : String.valueOf(dwell.getPercentileMicros(99) / 1_000_000));
+        }
+        out.println();
+        out.printf("%-32s %12s%n", "lambda handlerType", "invocations");
+        getLambdaInvocations().forEach((handlerType, count) -> out.printf("%-32s %12d%n", handlerType, count));
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    // ------------------------------------------------------------ types
+
+    /**
+     * One execution of a state machine, or one Map iteration.
+     */
+    public static final class Execution {
+        private final String arn;
+        private final String name;
+        private final String stateMachineArn;
+        private final JsonNode definition;
+        private final JsonNode input;
+        private final long startMillis;
+        private final boolean iteration;
+        private final Consumer<Execution> onComplete;
+        private volatile Status status = Status.RUNNING;
+        private volatile JsonNode output;
+        private volatile String error;
+        private volatile String cause;
+        private volatile long stopMillis;
+
+        Execution(String arn, String name, String stateMachineArn, JsonNode definition, JsonNode input,
+                  long startMillis, boolean iteration, Consumer<Execution> onComplete) {
+            this.arn = arn;
+            this.name = name;
+            this.stateMachineArn = stateMachineArn;
+            this.definition = definition;
+            this.input = input;
+            this.startMillis = startMillis;
+            this.iteration = iteration;
+            this.onComplete = onComplete;
+        }
+
+        public String getArn() {
+            return arn;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getStateMachineArn() {
+            return stateMachineArn;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public JsonNode getOutput() {
+            return output;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public String getCause() {
+            return cause;
+        }
+
+        public long getStartMillis() {
+            return startMillis;
+        }
+
+        public long getStopMillis() {
+            return stopMillis;
+        }
+    }
+
+    /**
+     * One entry into a state; carries the retry counters and task token across re-runs.
+     */
+    private static final class StateRun {
+        final Execution execution;
+        final String name;
+        final JsonNode state;
+        final String key;
+        final JsonNode input;
+        final long enteredMillis;
+        final Map<Integer, Integer> attempts = new ConcurrentHashMap<>();
+        volatile String token;
+
+        StateRun(Execution execution, String name, JsonNode state, String key, JsonNode input, long enteredMillis) {
+            this.execution = execution;
+            this.name = name;
+            this.state = state;
+            this.key = key;
+            this.input = input;
+            this.enteredMillis = enteredMillis;
+        }
+    }
+
+    private final class PendingTask {
+        final StateRun run;
+
+        PendingTask(StateRun run) {
+            this.run = run;
+        }
+
+        void recordDwell() {
+            dwell(run);
+        }
+    }
+
+    private record Event(long atMillis, long sequence, Runnable action) implements Comparable<Event> {
+        @Override
+        public int compareTo(Event other) {
+            int byTime = Long.compare(atMillis, other.atMillis);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.ldc.workflow.simulation.asl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ldc.workflow.repository.JdbcLoanAttributeSource;
+import com.ldc.workflow.repository.LocalLoanAttributesDatabase;
+import com.ldc.workflow.service.notification.LocalSmtpServer;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the embedded ASL interpreter, including the real loan review
+ * definitions run against the real handlers
+ */
+@DisplayName("AslInterpreter Tests")
+class AslInterpreterTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final Path MODULE = Path.of("../terraform/modules/step-functions");
+
+    @Test
+    @DisplayName("Should advance the virtual clock through waits and retry before catching")
+    void testWaitRetryAndCatch() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        try (AslInterpreter interpreter = new AslInterpreter(input -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("boom");
+        }, 2)) {
+            String arn = interpreter.registerStateMachine("retry", objectMapper.readTree("""
+                    {"StartAt": "Hold", "States": {
+                      "Hold": {"Type": "Wait", "SecondsPath": "$.delay", "Next": "Call"},
+                      "Call": {"Type": "Task", "Resource": "arn:aws:states:::lambda:invoke",
+                        "Parameters": {"Payload": {"handlerType": "test", "id.$": "$.id"}},
+                        "Retry": [{"ErrorEquals": ["Lambda.Unknown"], "IntervalSeconds": 10, "MaxAttempts": 2, "BackoffRate": 2}],
+                        "Catch": [{"ErrorEquals": ["States.ALL"], "ResultPath": "$.error", "Next": "Done"}],
+                        "End": true},
+                      "Done": {"Type": "Succeed"}}}
+                    """));
+            AslInterpreter.Execution execution = interpreter.startExecution(arn, "one",
+                    objectMapper.readTree("{\"id\": \"a\", \"delay\": 3600}"));
+            interpreter.run();
+
+            assertEquals(AslInterpreter.Status.SUCCEEDED, execution.getStatus());
+            assertEquals("Lambda.Unknown", execution.getOutput().path("error").path("Error").asText());
+            assertEquals(3, calls.get());
+            assertEquals(2, interpreter.getRetries());
+            // 3600 s wait, then retries after 10 s and 20 s
+            assertEquals(3_630_000, interpreter.now());
+        }
+    }
+
+    @Test
+    @DisplayName("Should time out a callback task that is never completed")
+    void testCallbackTimeout() throws Exception {
+        try (AslInterpreter interpreter = new AslInterpreter(input -> objectMapper.createObjectNode(), 2)) {
+            String arn = interpreter.registerStateMachine("callback", objectMapper.readTree("""
+                    {"StartAt": "Park", "States": {
+                      "Park": {"Type": "Task", "Resource": "arn:aws:states:::lambda:invoke.waitForTaskToken",
+                        "Parameters": {"Payload": {"handlerType": "wait", "taskToken.$": "$$.Task.Token"}},
+                        "TimeoutSeconds": 60, "ResultPath": null,
+                        "Catch": [{"ErrorEquals": ["States.Timeout"], "ResultPath": null, "Next": "TimedOut"}],
+                        "End": true},
+                      "TimedOut": {"Type": "Fail", "Error": "Expired", "Cause": "no callback"}}}
+                    """));
+            AslInterpreter.Execution execution = interpreter.startExecution(arn, "one", objectMapper.createObjectNode());
+            interpreter.run();
+
+            assertEquals(AslInterpreter.Status.FAILED, execution.getStatus());
+            assertEquals("Expired", execution.getError());
+            assertEquals(60_000, interpreter.now());
+            assertEquals(0, interpreter.getPendingTaskTokens());
+        }
+    }
+
+    @Test
+    @DisplayName("Should run a loan through the real definitions to Vend PPA")
+    void testLoanReviewEndToEnd() throws Exception {
+        try (LocalLoanReviewStack stack = new LocalLoanReviewStack(MODULE, 2, Map.of())) {
+            AslInterpreter interpreter = stack.getInterpreter();
+            ObjectNode input = objectMapper.createObjectNode()
+                    .put("requestNumber", "REQ-1")
+                    .put("loanNumber", "1234567890")
+                    .put("reviewType", "LDC")
+                    .put("currentAssignedUsername", "reviewer");
+            input.putArray("attributes").addObject().put("Name", "income").put("Decision", "Pending");
+            AslInterpreter.Execution execution = interpreter.startExecution(stack.getLoanReviewArn(), "loan-1", input);
+
+            interpreter.schedule(3_600_000, () -> stack.updateDecision(update("REQ-1", "1234567890", "Approved")));
+            interpreter.run();
+
+            assertEquals(AslInterpreter.Status.SUCCEEDED, execution.getStatus(), execution.getCause());
+            assertEquals(3_600_000, execution.getStopMillis());
+            Map<String, Long> invocations = interpreter.getLambdaInvocations();
+            assertEquals(1L, invocations.get("reviewTypeValidation"));
+            assertEquals(1L, invocations.get("vendPpaEnqueue"));
+            assertEquals(1L, invocations.get("vendPpaAckWait"));
+            assertNull(invocations.get("emailNotification"));
+            assertEquals(1, interpreter.getStateEntries("ldc-loan-review-workflow.WaitForLoanDecision"));
+            assertEquals(1, stack.getAuditRecords());
+            // Delivered from the outbox once, and the row is gone
+            assertEquals(1, stack.getVendPpaEndpoint().getAcceptedCount());
+            assertEquals(1, stack.getOutboxDispatcher().getAcknowledgedCount());
+            assertEquals(0, stack.getDynamoDbClient().size(LocalLoanReviewStack.OUTBOX_TABLE));
+        }
+    }
+
+    @Test
+    @DisplayName("Should wait on the loan_attributes table when attributes come from PostgreSQL")
+    void testLoanReviewFromAttributeSource() throws Exception {
+        LocalLoanAttributesDatabase database = new LocalLoanAttributesDatabase();
+        database.put("REQ-1", "1234567890", "income", "Pending");
+        try (HikariDataSource pool = database.pool(1);
+                LocalLoanReviewStack stack = new LocalLoanReviewStack(MODULE, 2, Map.of(),
+                        new JdbcLoanAttributeSource(pool, 5))) {
+            AslInterpreter interpreter = stack.getInterpreter();
+            ObjectNode input = objectMapper.createObjectNode()
+                    .put("requestNumber", "REQ-1")
+                    .put("loanNumber", "1234567890")
+                    .put("reviewType", "LDC")
+                    .put("currentAssignedUsername", "reviewer");
+            input.putArray("attributes").addObject().put("Name", "income").put("Decision", "Pending");
+            AslInterpreter.Execution execution = interpreter.startExecution(stack.getLoanReviewArn(), "loan-1", input);
+
+            // The state item says complete but the table does not: the execution keeps waiting
+            JsonNode[] early = new JsonNode[1];
+            interpreter.schedule(60_000, () -> early[0] = stack.updateDecision(update("REQ-1", "1234567890",
+                    "Approved")));
+            interpreter.schedule(120_000, () -> {
+                database.put("REQ-1", "1234567890", "income", "Approved");
+                stack.updateDecision(objectMapper.createObjectNode()
+                        .put("requestNumber", "REQ-1")
+                        .put("executionId", "1234567890")
+                        .put("loanDecision", "Approved"));
+            });
+            interpreter.run();
+
+            assertTrue(early[0].get("success").asBoolean());
+            assertFalse(early[0].get("resumed").asBoolean());
+            assertEquals(AslInterpreter.Status.SUCCEEDED, execution.getStatus(), execution.getCause());
+            assertEquals(120_000, execution.getStopMillis());
+            assertEquals(1L, interpreter.getLambdaInvocations().get("evaluateLoan"));
+            assertEquals(1, interpreter.getStateEntries("ldc-loan-review-workflow.WaitForLoanDecision"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should send the repurchase email when a loan is decided as Repurchase")
+    void testRepurchaseNotification() throws Exception {
+        try (LocalLoanReviewStack stack = new LocalLoanReviewStack(MODULE, 2, Map.of())) {
+            AslInterpreter interpreter = stack.getInterpreter();
+            ObjectNode input = objectMapper.createObjectNode()
+                    .put("requestNumber", "REQ-1")
+                    .put("loanNumber", "1234567890")
+                    .put("reviewType", "LDC")
+                    .put("currentAssignedUsername", "reviewer");
+            input.putArray("attributes").addObject().put("Name", "income").put("Decision", "Pending");
+            AslInterpreter.Execution execution = interpreter.startExecution(stack.getLoanReviewArn(), "loan-1", input);
+
+            interpreter.schedule(60_000, () -> stack.updateDecision(update("REQ-1", "1234567890", "Repurchase")));
+            interpreter.run();
+
+            assertEquals(AslInterpreter.Status.SUCCEEDED, execution.getStatus(), execution.getCause());
+            assertEquals(1L, interpreter.getLambdaInvocations().get("emailNotification"));
+            assertEquals(1, stack.getAuditRecords());
+            // Sent in the background after the workflow has moved on
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (stack.getSmtpServer().getMessages().isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            LocalSmtpServer.Received email = stack.getSmtpServer().getMessages().get(0);
+            assertEquals("Repurchase decision for loan 1234567890", email.getSubject());
+            assertEquals(List.of("repurchase-review@ldc.com"), email.getTo());
+            assertTrue(email.getBody().contains("Repurchase attributes: income"), email.getBody());
+        }
+    }
+
+    @Test
+    @DisplayName("Should start prevalidated loan executions from the bulk workflow")
+    void testBulkFanOut() throws Exception {
+        try (LocalLoanReviewStack stack = new LocalLoanReviewStack(MODULE, 2, Map.of("bulk_batch_size", "2"))) {
+            AslInterpreter interpreter = stack.getInterpreter();
+            ObjectNode input = objectMapper.createObjectNode().put("requestNumber", "REQ-2");
+            ArrayNode loans = input.putArray("loans");
+            for (int i = 0; i < 3; i++) {
+                ObjectNode loan = loans.addObject().put("LoanNumber", "200000000" + i).put("ReviewType", "LDC");
+                loan.putArray("Attributes").addObject().put("Name", "income").put("Decision", "Pending");
+                String loanNumber = "200000000" + i;
+                interpreter.schedule(60_000, () -> stack.updateDecision(update("REQ-2", loanNumber, "Approved")));
+            }
+            AslInterpreter.Execution bulk = interpreter.startExecution(stack.getBulkArn(), "bulk", input);
+            interpreter.run();
+
+            assertEquals(AslInterpreter.Status.SUCCEEDED, bulk.getStatus(), bulk.getCause());
+            long completed = interpreter.getExecutions().stream()
+                    .filter(e -> e.getStateMachineArn().equals(stack.getLoanReviewArn()))
+                    .filter(e -> e.getStatus() == AslInterpreter.Status.SUCCEEDED)
+                    .count();
+            assertEquals(3, completed);
+            // Two item batches persist the three loans; each child confirms its claim check
+            assertEquals(2L, interpreter.getLambdaInvocations().get("reviewTypeValidation"));
+            assertEquals(3L, interpreter.getLambdaInvocations().get("confirmClaimCheck"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should not let a direct start skip validation by claiming a version")
+    void testForgedClaimCheckIsRejected() throws Exception {
+        try (LocalLoanReviewStack stack = new LocalLoanReviewStack(MODULE, 2, Map.of())) {
+            AslInterpreter interpreter = stack.getInterpreter();
+            ObjectNode input = objectMapper.createObjectNode()
+                    .put("requestNumber", "REQ-3")
+                    .put("loanNumber", "3000000000")
+                    .put("reviewType", "NotAReviewType")
+                    .put("version", 1);
+            AslInterpreter.Execution execution = interpreter.startExecution(stack.getLoanReviewArn(), "forged", input);
+            interpreter.run();
+
+            assertEquals(AslInterpreter.Status.FAILED, execution.getStatus());
+            assertEquals("InvalidClaimCheck", execution.getError());
+            assertEquals(0, interpreter.getStateEntries("ldc-loan-review-workflow.WaitForLoanDecision"));
+        }
+    }
+
+    private static JsonNode update(String requestNumber, String loanNumber, String decision) {
+        ObjectNode input = objectMapper.createObjectNode()
+                .put("requestNumber", requestNumber)
+                .put("executionId", loanNumber)
+                .put("loanDecision", decision);
+        input.putArray("attributes").addObject().put("attributeName", "income").put("attributeDecision", decision);
+        return input;
+    }
+}
@@ -0,0 +1,94 @@
+package com.ldc.workflow.simulation.asl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Evaluates Choice state rules: And/Or/Not, the String/Numeric/Boolean
+ * comparisons (and their *Path forms), IsPresent, IsNull and the type tests.
+ */
+final class ChoiceRules {
+
+    private ChoiceRules() {
+    }
+
+    static boolean matches(JsonNode rule, JsonNode input) {
+        if (rule.has("And")) {
+            for (JsonNode nested : rule.get("And")) {
+                if (!matches(nested, input)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (rule.has("Or")) {
+            for (JsonNode nested : rule.get("Or")) {
+                if (matches(nested, input)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (rule.has("Not")) {
+            return !matches(rule.get("Not"), input);
+        }
+
+        String variable = rule.path("Variable").asText();
+        JsonNode value = JsonPaths.find(input, variable);
+        Iterator<Map.Entry<String, JsonNode>> fields = rule.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String operator = field.getKey();
+            if (operator.equals("Variable") || operator.equals("Next") || operator.equals("Comment")) {
+                continue;
+            }
+            if (operator.equals("IsPresent")) {
+                return (value != null) == field.getValue().asBoolean();
+            }
+            if (value == null) {
+                throw new AslError("States.Runtime", "Invalid path '" + variable + "': no value in input");
+            }
+            JsonNode operand = field.getValue();
+            if (operator.endsWith("Path") && !operator.equals("IsPath")) {
+                operand = JsonPaths.read(input, operand.asText());
+                operator = operator.substring(0, operator.length() - 4);
+            }
+            return compare(operator, value, operand);
+        }
+        throw new AslError("States.Runtime", "Choice rule without a comparison: " + rule);
+    }
+
+    private static boolean compare(String operator, JsonNode value, JsonNode operand) {
+        switch (operator) {
+            case "IsNull":
+                return value.isNull() == operand.asBoolean();
+            case "IsString":
+                return value.isTextual() == operand.asBoolean();
+            case "IsNumeric":
+                return value.isNumber() == operand.asBoolean();
+            case "IsBoolean":
+                return value.isBoolean() == operand.asBoolean();
+            case "StringEquals":
+                return value.isTextual() && value.asText().equals(operand.asText());
+            case "StringMatches":
+                return value.isTextual() && value.asText().matches(
+                        ("\\Q" + operand.asText() + "\\E").replace("*", "\\E.*\\Q"));
+            case "BooleanEquals":
+                return value.isBoolean() && value.asBoolean() == operand.asBoolean();
+            case "NumericEquals":
+                return value.isNumber() && value.asDouble() == operand.asDouble();
+            case "NumericLessThan":
+                return value.isNumber() && value.asDouble() < operand.asDouble();
+            case "NumericGreaterThan":
+                return value.isNumber() && value.asDouble() > operand.asDouble();
+            case "NumericLessThanEquals":
+                return value.isNumber() && value.asDouble() <= operand.asDouble();
+            case "NumericGreaterThanEquals":
+                return value.isNumber() && value.asDouble() >= operand.asDouble();
+            default:
+                throw new AslError("States.Runtime", "Unsupported choice operator: " + operator);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.ldc.workflow.simulation.asl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ldc.workflow.service.StepFunctionsService;
+import software.amazon.awssdk.auth.credentials.AnonymousCredentialsProvider;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * StepFunctionsService that delivers task-token callbacks straight to an
+ * {@link AslInterpreter} instead of the Step Functions API. An unknown token
+ * fails with TaskTimedOut, as the service does for a completed or expired task.
+ */
+public class InterpreterStepFunctionsService extends StepFunctionsService {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AslInterpreter interpreter;
+
+    public InterpreterStepFunctionsService(AslInterpreter interpreter) {
+        super(URI.create("http://localhost:0"), "us-east-1", AnonymousCredentialsProvider.create(), 1,
+                Duration.ofSeconds(1));
+        this.interpreter = interpreter;
+    }
+
+    @Override
+    public CompletableFuture<Void> sendTaskSuccessAsync(String taskToken, String output) {
+        try {
+            return complete("SendTaskSuccess", interpreter.sendTaskSuccess(taskToken, objectMapper.readTree(output)));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> sendTaskFailureAsync(String taskToken, String error, String cause) {
+        return complete("SendTaskFailure", interpreter.sendTaskFailure(taskToken, error, cause));
+    }
+
+    @Override
+    public CompletableFuture<Void> sendTaskHeartbeatAsync(String taskToken) {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private static CompletableFuture<Void> complete(String operation, boolean delivered) {
+        return delivered ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.failedFuture(new StepFunctionsException(operation, 400, "TaskTimedOut",
+                        "Task Timed Out", false, null));
+    }
+}
@@ -0,0 +1,227 @@
+package com.ldc.workflow.simulation.asl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reference paths, Parameters templates and the intrinsic functions used by the
+ * loan review definitions.
+ *
+ * Paths are the ASL reference-path subset: $, $.a.b, $.a[0].b, and $$. for the
+ * context object. Intrinsics: States.Format, States.JsonToString, States.StringToJson.
+ */
+final class JsonPaths {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final Map<String, List<Object>> parsed = new ConcurrentHashMap<>();
+
+    private JsonPaths() {
+    }
+
+    /**
+     * Value at the path, or null when any segment is missing.
+     */
+    static JsonNode find(JsonNode root, String path) {
+        JsonNode node = root;
+        for (Object segment : segments(path)) {
+            if (node == null) {
+                return null;
+            }
+            node = segment instanceof Integer index ? (node.isArray() ? node.get(index) : null)
+                    : (node.isObject() ? node.get((String) segment) : null);
+        }
+        return node;
+    }
+
+    /**
+     * Value at the path; a missing value is a States.Runtime error, as in Step Functions.
+     */
+    static JsonNode read(JsonNode root, String path) {
+        JsonNode value = find(root, path);
+        if (value == null) {
+            throw new AslError("States.Runtime", "Invalid path '" + path + "': no value in input");
+        }
+        return value;
+    }
+
+    /**
+     * Apply a ResultPath: absent means $ (replace), JSON null discards the result.
+     */
+    static JsonNode write(JsonNode input, JsonNode resultPath, JsonNode result) {
+        if (resultPath != null && resultPath.isNull()) {
+            return input;
+        }
+        String path = resultPath == null ? "$" : resultPath.asText();
+        List<Object> segments = segments(path);
+        if (segments.isEmpty()) {
+            return result;
+        }
+        ObjectNode root = input != null && input.isObject() ? ((ObjectNode) input).deepCopy()
+                : JsonNodeFactory.instance.objectNode();
+        ObjectNode node = root;
+        for (int i = 0; i < segments.size() - 1; i++) {
+            String name = String.valueOf(segments.get(i));
+            JsonNode child = node.get(name);
+            if (child == null || !child.isObject()) {
+                child = node.putObject(name);
+            }
+            node = (ObjectNode) child;
+        }
+        node.set(String.valueOf(segments.get(segments.size() - 1)), result);
+        return root;
+    }
+
+    /**
+     * Resolve a Parameters / ResultSelector / ItemSelector template.
+     */
+    static JsonNode resolve(JsonNode template, JsonNode input, JsonNode context) {
+        if (template.isObject()) {
+            ObjectNode resolved = JsonNodeFactory.instance.objectNode();
+            Iterator<Map.Entry<String, JsonNode>> fields = template.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                String name = field.getKey();
+                if (name.endsWith(".$")) {
+                    resolved.set(name.substring(0, name.length() - 2),
+                            evaluate(field.getValue().asText(), input, context));
+                } else {
+                    resolved.set(name, resolve(field.getValue(), input, context));
+                }
+            }
+            return resolved;
+        }
+        if (template.isArray()) {
+            ArrayNode resolved = JsonNodeFactory.instance.arrayNode();
+            template.forEach(element -> resolved.add(resolve(element, input, context)));
+            return resolved;
+        }
+        return template;
+    }
+
+    static JsonNode evaluate(String expression, JsonNode input, JsonNode context) {
+        if (expression.startsWith("$$")) {
+            return read(context, expression.substring(1));
+        }
+        if (expression.startsWith("$")) {
+            return read(input, expression);
+        }
+        if (expression.startsWith("States.")) {
+            return intrinsic(expression, input, context);
+        }
+        throw new AslError("States.Runtime", "Unsupported expression: " + expression);
+    }
+
+    private static JsonNode intrinsic(String expression, JsonNode input, JsonNode context) {
+        int open = expression.indexOf('(');
+        if (open < 0 || !expression.endsWith(")")) {
+            throw new AslError("States.Runtime", "Malformed intrinsic: " + expression);
+        }
+        String function = expression.substring(0, open);
+        List<JsonNode> args = new ArrayList<>();
+        for (String arg : splitArguments(expression.substring(open + 1, expression.length() - 1))) {
+            args.add(argument(arg, input, context));
+        }
+        switch (function) {
+            case "States.Format": {
+                String template = args.get(0).asText();
+                StringBuilder out = new StringBuilder();
+                int next = 1;
+                for (int i = 0; i < template.length(); i++) {
+                    if (template.startsWith("{}", i) && next < args.size()) {
+                        JsonNode value = args.get(next++);
+                        out.append(value.isTextual() ? value.asText() : value.toString());
+                        i++;
+                    } else {
+                        out.append(template.charAt(i));
+                    }
+                }
+                return JsonNodeFactory.instance.textNode(out.toString());
+            }
+            case "States.JsonToString":
+                return JsonNodeFactory.instance.textNode(args.get(0).toString());
+            case "States.StringToJson":
+                try {
+                    return objectMapper.readTree(args.get(0).asText());
+                } catch (Exception e) {
+                    throw new AslError("States.Runtime", "Invalid JSON in States.StringToJson");
+                }
+            default:
+                throw new AslError("States.Runtime", "Unsupported intrinsic: " + function);
+        }
+    }
+
+    private static JsonNode argument(String arg, JsonNode input, JsonNode context) {
+        if (arg.startsWith("'")) {
+            return JsonNodeFactory.instance.textNode(arg.substring(1, arg.length() - 1)
+                    .replace("\\'", "'").replace("\\{", "{").replace("\\}", "}"));
+        }
+        if (arg.startsWith("$")) {
+            return evaluate(arg, input, context);
+        }
+        try {
+            return objectMapper.readTree(arg);
+        } catch (Exception e) {
+            throw new AslError("States.Runtime", "Invalid intrinsic argument: " + arg);
+        }
+    }
+
+    private static List<String> splitArguments(String text) {
+        List<String> args = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                current.append(c).append(text.charAt(++i));
+            } else if (c == '\'') {
+                quoted = !quoted;
+                current.append(c);
+            } else if (c == ',' && !quoted) {
+                args.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (current.length() > 0) {
+            args.add(current.toString().trim());
+        }
+        return args;
+    }
+
+    private static List<Object> segments(String path) {
+        return parsed.computeIfAbsent(path, JsonPaths::parse);
+    }
+
+    private static List<Object> parse(String path) {
+        if (!path.startsWith("$")) {
+            throw new AslError("States.Runtime", "Invalid reference path: " + path);
+        }
+        List<Object> segments = new ArrayList<>();
+        for (String part : path.substring(1).split("\\.")) {
+            if (part.isEmpty()) {
+                continue;
+            }
+            int bracket = part.indexOf('[');
+            String name = bracket < 0 ? part : part.substring(0, bracket);
+            if (!name.isEmpty()) {
+                segments.add(name);
+            }
+            while (bracket >= 0) {
+                int close = part.indexOf(']', bracket);
+                segments.add(Integer.parseInt(part.substring(bracket + 1, close)));
+                bracket = part.indexOf('[', close);
+            }
+        }
+        return segments;
+    }
+}
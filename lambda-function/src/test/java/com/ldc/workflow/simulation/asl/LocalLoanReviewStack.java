@@ -0,0 +1,339 @@
+package com.ldc.workflow.simulation.asl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ldc.workflow.business.CompletionCriteriaChecker;
+import com.ldc.workflow.business.LoanStatusDeterminer;
+import com.ldc.workflow.handlers.AuditTrailHandler;
+import com.ldc.workflow.handlers.EmailNotificationHandler;
+import com.ldc.workflow.handlers.InMemorySqsQueue;
+import com.ldc.workflow.handlers.LoanDecisionUpdateApiHandler;
+import com.ldc.workflow.handlers.LoanDecisionWaitHandler;
+import com.ldc.workflow.handlers.LoanEvaluationHandler;
+import com.ldc.workflow.handlers.LoanReviewRouter;
+import com.ldc.workflow.handlers.ReclassConfirmationHandler;
+import com.ldc.workflow.handlers.ReclassConfirmationWaitHandler;
+import com.ldc.workflow.handlers.ReviewTypeValidationHandler;
+import com.ldc.workflow.handlers.VendPpaAckWaitHandler;
+import com.ldc.workflow.handlers.VendPpaEnqueueHandler;
+import com.ldc.workflow.handlers.VendPpaIntegrationHandler;
+import com.ldc.workflow.handlers.VendPpaOutboxHandler;
+import com.ldc.workflow.repository.InMemoryDynamoDbClient;
+import com.ldc.workflow.repository.LoanAttributeSource;
+import com.ldc.workflow.repository.VendPpaOutboxRepository;
+import com.ldc.workflow.repository.WorkflowStateRepository;
+import com.ldc.workflow.service.AuditTrailService;
+import com.ldc.workflow.service.LocalVendPpaEndpoint;
+import com.ldc.workflow.service.NotificationService;
+import com.ldc.workflow.service.VendPpaBatcher;
+import com.ldc.workflow.service.VendPpaClient;
+import com.ldc.workflow.service.VendPpaOutboxDispatcher;
+import com.ldc.workflow.service.audit.AuditSink;
+import com.ldc.workflow.service.notification.EmailTemplateCache;
+import com.ldc.workflow.service.notification.LocalSmtpServer;
+import com.ldc.workflow.service.notification.SmtpEmailSender;
+import com.ldc.workflow.types.AuditRecord;
+import com.ldc.workflow.util.Backoff;
+import com.ldc.workflow.util.CircuitBreaker;
+import com.ldc.workflow.util.RetryBudget;
+import com.ldc.workflow.validation.AttributeDecisionValidator;
+import com.ldc.workflow.validation.ReviewTypeValidator;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * The loan review state machines from terraform/modules/step-functions running on
+ * an {@link AslInterpreter}, with the real handlers behind LoanReviewRouter, an
+ * in-memory DynamoDB table and task-token callbacks wired back into the interpreter.
+ * Reclass confirmations go through an {@link InMemorySqsQueue} drained into the
+ * router on the interpreter's clock, as the SQS event source mapping would.
+ * Vend PPA submissions are queued in an in-memory outbox table; the keys of new
+ * rows are delivered to the router as DynamoDB stream batches, and a sweep runs
+ * every minute of virtual time while rows are outstanding, as the stream mapping
+ * and the sweep schedule would. The dispatcher posts them over HTTP to a
+ * {@link LocalVendPpaEndpoint}. Repurchase notifications are sent over SMTP to a
+ * {@link LocalSmtpServer}.
+ */
+public class LocalLoanReviewStack implements AutoCloseable {
+
+    public static final String TABLE = "ldc-loan-review-state";
+    public static final String OUTBOX_TABLE = TABLE + "-outbox";
+    public static final String LAMBDA_FUNCTION_NAME = "ldc-loan-review-lambda";
+    public static final String RECLASS_QUEUE_ARN =
+            "arn:aws:sqs:local:000000000000:ldc-loan-review-reclass-confirmation";
+    private static final int RECLASS_BATCH_SIZE = 10;
+    private static final int OUTBOX_BATCH_SIZE = 100;
+    private static final long OUTBOX_SWEEP_MILLIS = 60_000;
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final InMemoryDynamoDbClient dynamoDbClient = new InMemoryDynamoDbClient();
+    private final WorkflowStateRepository repository = new WorkflowStateRepository(dynamoDbClient, TABLE);
+    private final LongAdder auditRecords = new LongAdder();
+    private final LocalVendPpaEndpoint vendPpaEndpoint = new LocalVendPpaEndpoint();
+    private final LocalSmtpServer smtpServer = new LocalSmtpServer();
+    private final NotificationService notificationService;
+    private final AslInterpreter interpreter;
+    private final LoanReviewRouter router = new LoanReviewRouter();
+    private final LoanDecisionUpdateApiHandler updateHandler;
+    private final InMemorySqsQueue reclassQueue;
+    private final VendPpaOutboxRepository outboxRepository;
+    private final VendPpaOutboxDispatcher outboxDispatcher;
+    private final List<Map<String, String>> outboxStream = new ArrayList<>();
+    private boolean sweepScheduled;
+    private final String loanReviewArn;
+    private final String bulkArn;
+
+    /**
+     * @param moduleDirectory terraform/modules/step-functions
+     * @param workers         interpreter worker threads
+     * @param variables       overrides for the Terraform template variables
+     */
+    public LocalLoanReviewStack(Path moduleDirectory, int workers, Map<String, String> variables) throws IOException {
+        this(moduleDirectory, workers, variables, null);
+    }
+
+    /**
+     * @param attributeSource where the decision wait, the update API and the evaluation read
+     *                        attributes from; null for the workflow state item
+     */
+    public LocalLoanReviewStack(Path moduleDirectory, int workers, Map<String, String> variables,
+            LoanAttributeSource attributeSource) throws IOException {
+        this.interpreter = new AslInterpreter(router, workers);
+        InterpreterStepFunctionsService stepFunctionsService = new InterpreterStepFunctionsService(interpreter);
+
+        // State timestamps are wall-clock, so on the virtual clock the poll backoff
+        // sees idle time measured from the start of the run
+        Instant epoch = Instant.now();
+        Clock virtualClock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return epoch.plusMillis(interpreter.now());
+            }
+        };
+        CompletionCriteriaChecker checker = new CompletionCriteriaChecker();
+        LoanStatusDeterminer statusDeterminer = new LoanStatusDeterminer();
+
+        ReflectionTestUtils.setField(router, "reviewTypeValidationHandler",
+                new ReviewTypeValidationHandler(new ReviewTypeValidator(), repository, true));
+        ReflectionTestUtils.setField(router, "loanDecisionWaitHandler",
+                new LoanDecisionWaitHandler(checker, repository, stepFunctionsService, attributeSource));
+        ReflectionTestUtils.setField(router, "loanEvaluationHandler",
+                new LoanEvaluationHandler(checker, statusDeterminer, repository, attributeSource));
+        ReflectionTestUtils.setField(router, "reclassConfirmationWaitHandler",
+                new ReclassConfirmationWaitHandler(statusDeterminer, repository, stepFunctionsService));
+        ReflectionTestUtils.setField(router, "reclassConfirmationHandler",
+                new ReclassConfirmationHandler(new AttributeDecisionValidator(), checker, statusDeterminer,
+                        repository, stepFunctionsService));
+        VendPpaClient vendPpaClient = new VendPpaClient(vendPpaEndpoint::getEndpoint, Duration.ofSeconds(1),
+                Duration.ofSeconds(5), 3, new RetryBudget(0.2, 10), new CircuitBreaker(5, 10_000));
+        VendPpaBatcher vendPpaBatcher = new VendPpaBatcher(vendPpaClient, 1, 0, 1, 3);
+        ReflectionTestUtils.setField(router, "vendPpaIntegrationHandler",
+                new VendPpaIntegrationHandler(repository, vendPpaBatcher, 0));
+        LongSupplier epochMillis = virtualClock::millis;
+        this.outboxRepository = new VendPpaOutboxRepository(dynamoDbClient, TABLE, OUTBOX_TABLE);
+        this.outboxDispatcher = new VendPpaOutboxDispatcher(outboxRepository, vendPpaBatcher, stepFunctionsService,
+                16, 60_000, 8, new Backoff(1000, 300_000), 0, epochMillis);
+        ReflectionTestUtils.setField(router, "vendPpaEnqueueHandler",
+                new VendPpaEnqueueHandler(repository, outboxRepository, epochMillis));
+        ReflectionTestUtils.setField(router, "vendPpaAckWaitHandler",
+                new VendPpaAckWaitHandler(outboxRepository, stepFunctionsService));
+        ReflectionTestUtils.setField(router, "vendPpaOutboxHandler", new VendPpaOutboxHandler(outboxDispatcher));
+        dynamoDbClient.onInsert(OUTBOX_TABLE, item -> streamInsert(item.get("RequestNumber").s(),
+                item.get("LoanNumber").s()));
+        // No template parameter: the built-in repurchase template applies
+        EmailTemplateCache templates = new EmailTemplateCache(type -> {
+            throw new IllegalStateException("Parameter not found");
+        }, Long.MAX_VALUE, System::nanoTime);
+        this.notificationService = new NotificationService(templates, type -> "repurchase-review@ldc.com",
+                new SmtpEmailSender(smtpServer.getHost(), smtpServer.getPort(), 2000), "noreply@ldc.com",
+                25, 50, 2, 4, 10_000);
+        ReflectionTestUtils.setField(router, "emailNotificationHandler",
+                new EmailNotificationHandler(repository, notificationService, 0));
+        ReflectionTestUtils.setField(router, "auditTrailHandler",
+                new AuditTrailHandler(new AuditTrailService(new CountingAuditSink(auditRecords))));
+        this.updateHandler = new LoanDecisionUpdateApiHandler(new AttributeDecisionValidator(), checker, repository,
+                stepFunctionsService, attributeSource);
+        this.reclassQueue = new InMemorySqsQueue(RECLASS_QUEUE_ARN, 30_000, 5, interpreter::now);
+
+        Map<String, String> values = new HashMap<>();
+        values.put("lambda_function_name", LAMBDA_FUNCTION_NAME);
+        values.put("decision_wait_timeout_seconds", "86400");
+        values.put("reclass_timer_seconds", "172800");
+        values.put("vend_ppa_ack_timeout_seconds", "3600");
+        values.put("bulk_max_concurrency", "20");
+        values.put("bulk_batch_size", "100");
+        values.put("bulk_tolerated_failure_percentage", "0");
+        values.put("loan_start_concurrency", "10");
+        values.putAll(variables);
+
+        values.put("validation_state_machine_arn", interpreter.loadStateMachine("ldc-loan-review-workflow-validation",
+                moduleDirectory.resolve("validation.asl.json"), values));
+        values.put("loan_decision_state_machine_arn", interpreter.loadStateMachine(
+                "ldc-loan-review-workflow-loan-decision", moduleDirectory.resolve("loan-decision.asl.json"), values));
+        this.loanReviewArn = interpreter.loadStateMachine("ldc-loan-review-workflow",
+                moduleDirectory.resolve("definition.asl.json"), values);
+        values.put("loan_review_state_machine_arn", loanReviewArn);
+        this.bulkArn = interpreter.loadStateMachine("ldc-loan-review-workflow-bulk",
+                moduleDirectory.resolve("bulk.asl.json"), values);
+    }
+
+    public LocalVendPpaEndpoint getVendPpaEndpoint() {
+        return vendPpaEndpoint;
+    }
+
+    public LocalSmtpServer getSmtpServer() {
+        return smtpServer;
+    }
+
+    /**
+     * Apply a human decision update through LoanDecisionUpdateApiHandler.
+     */
+    public JsonNode updateDecision(JsonNode input) {
+        return updateHandler.apply(input);
+    }
+
+    /**
+     * Publish a reclass confirmation ({requestNumber, loanNumber, attributes}) and
+     * deliver the queue to the router in SQS batches.
+     */
+    public void confirmReclass(JsonNode message) {
+        reclassQueue.send(message.toString());
+        reclassQueue.drain(router, RECLASS_BATCH_SIZE);
+    }
+
+    /**
+     * Stream record for a new outbox row, delivered on the interpreter's clock.
+     */
+    private void streamInsert(String requestNumber, String loanNumber) {
+        synchronized (outboxStream) {
+            outboxStream.add(Map.of("RequestNumber", requestNumber, "LoanNumber", loanNumber));
+            if (outboxStream.size() == 1) {
+                interpreter.schedule(interpreter.now(), this::deliverOutboxStream);
+            }
+        }
+    }
+
+    private void deliverOutboxStream() {
+        List<Map<String, String>> keys;
+        synchronized (outboxStream) {
+            keys = new ArrayList<>(outboxStream);
+            outboxStream.clear();
+        }
+        for (int i = 0; i < keys.size(); i += OUTBOX_BATCH_SIZE) {
+            ObjectNode event = objectMapper.createObjectNode();
+            ArrayNode records = event.putArray("Records");
+            for (Map<String, String> key : keys.subList(i, Math.min(keys.size(), i + OUTBOX_BATCH_SIZE))) {
+                ObjectNode keyNode = records.addObject()
+                        .put("eventSource", "aws:dynamodb")
+                        .put("eventName", "INSERT")
+                        .putObject("dynamodb").putObject("Keys");
+                keyNode.putObject("RequestNumber").put("S", key.get("RequestNumber"));
+                keyNode.putObject("LoanNumber").put("S", key.get("LoanNumber"));
+            }
+            router.apply(event);
+        }
+        scheduleSweep();
+    }
+
+    /**
+     * Sweep once a minute while any row is still pending, so the run can end.
+     */
+    private void scheduleSweep() {
+        synchronized (outboxStream) {
+            if (sweepScheduled || outboxRepository.findDue(Long.MAX_VALUE, 1).isEmpty()) {
+                return;
+            }
+            sweepScheduled = true;
+        }
+        interpreter.schedule(interpreter.now() + OUTBOX_SWEEP_MILLIS, () -> {
+            synchronized (outboxStream) {
+                sweepScheduled = false;
+            }
+            router.apply(objectMapper.createObjectNode().put("handlerType", "vendPpaOutboxSweep"));
+            scheduleSweep();
+        });
+    }
+
+    public VendPpaOutboxDispatcher getOutboxDispatcher() {
+        return outboxDispatcher;
+    }
+
+    public InMemorySqsQueue getReclassQueue() {
+        return reclassQueue;
+    }
+
+    public AslInterpreter getInterpreter() {
+        return interpreter;
+    }
+
+    public WorkflowStateRepository getRepository() {
+        return repository;
+    }
+
+    public InMemoryDynamoDbClient getDynamoDbClient() {
+        return dynamoDbClient;
+    }
+
+    public String getLoanReviewArn() {
+        return loanReviewArn;
+    }
+
+    public String getBulkArn() {
+        return bulkArn;
+    }
+
+    public long getAuditRecords() {
+        return auditRecords.sum();
+    }
+
+    @Override
+    public void close() {
+        interpreter.close();
+        vendPpaEndpoint.close();
+        notificationService.close();
+        smtpServer.close();
+    }
+
+    private static final class CountingAuditSink implements AuditSink {
+        private final LongAdder records;
+
+        CountingAuditSink(LongAdder records) {
+            this.records = records;
+        }
+
+        @Override
+        public void write(AuditRecord record) {
+            records.increment();
+        }
+
+        @Override
+        public String name() {
+            return "counting";
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.ldc.workflow.validation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for JsonSchemaValidator
+ * Tests the compiled Loan PPA schemas and the compiler's handling of unsupported schemas
+ */
+@DisplayName("JsonSchemaValidator Tests")
+class JsonSchemaValidatorTest {
+
+    private static final LoanPpaSchemas schemas = new LoanPpaSchemas();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Should accept a valid request from a tree and from bytes")
+    void testValidRequest() throws Exception {
+        ObjectNode request = request("1234567890", "Sec Policy");
+        request.put("handlerType", "reviewTypeValidation");
+        request.putObject("SelectionCriteria").put("TaskNumber", 7).put("ReviewStep", "LDC Review");
+
+        assertTrue(schemas.getRequestValidator().validate(request).isValid());
+        assertTrue(schemas.getRequestValidator().validate(objectMapper.writeValueAsBytes(request)).isValid());
+    }
+
+    @Test
+    @DisplayName("Should collect every violation in one pass")
+    void testCollectsAllViolations() {
+        ObjectNode request = objectMapper.createObjectNode()
+                .put("LoanNumber", "12345")
+                .put("ReviewType", "Unknown")
+                .put("TaskNumber", "seven")
+                .put("Extra", true);
+        ArrayNode attributes = request.putArray("Attributes");
+        attributes.addObject().put("Name", "a").put("Decision", "Approved");
+        attributes.addObject().put("Name", "b").put("Decision", "Maybe");
+        attributes.addObject().put("Decision", "Pending");
+
+        JsonSchemaValidator.Result result = schemas.getRequestValidator().validate(request);
+
+        assertEquals(List.of(
+                "Invalid LoanNumber format",
+                "Invalid ReviewType: Unknown",
+                "TaskNumber must be of type integer",
+                "Unexpected property Extra",
+                "Invalid Attributes[1].Decision: Maybe",
+                "Missing Attributes[2].Name",
+                "Missing RequestNumber"),
+                result.getViolations().stream().map(SchemaViolation::getMessage).collect(Collectors.toList()));
+        assertEquals("Attributes[1].Decision", result.getViolations().get(4).getPath());
+    }
+
+    @Test
+    @DisplayName("Should keep at most maxViolations and count the rest")
+    void testViolationCap() {
+        ObjectNode request = request("1234567890", "LDC");
+        ArrayNode attributes = request.putArray("Attributes");
+        for (int i = 0; i < 250; i++) {
+            attributes.addObject().put("Name", "attribute" + i).put("Decision", "Maybe");
+        }
+
+        JsonSchemaValidator.Result result = schemas.getRequestValidator().withMaxViolations(10).validate(request);
+
+        assertEquals(10, result.getViolations().size());
+        assertEquals(250, result.getViolationCount());
+        assertTrue(result.getMessage().endsWith("; and 240 more"));
+    }
+
+    @Test
+    @DisplayName("Should report malformed JSON found while streaming")
+    void testMalformedJson() {
+        byte[] json = "{\"RequestNumber\": 1, \"LoanNumber\": ".getBytes(StandardCharsets.UTF_8);
+
+        JsonSchemaValidator.Result result = schemas.getRequestValidator().validate(json);
+
+        assertEquals("RequestNumber must be of type string", result.getViolations().get(0).getMessage());
+        assertEquals("syntax", result.getViolations().get(1).getKeyword());
+    }
+
+    @Test
+    @DisplayName("Should treat integral floats as integers and compile the response schema")
+    void testIntegralFloatAndResponseSchema() throws Exception {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.putArray("workflows").addObject().put("TaskNumber", 3.0).put("LoanNumber", "1234567890");
+
+        assertTrue(schemas.getResponseValidator().validate(response).isValid());
+        response.withArray("workflows").addObject().put("TaskNumber", 3.5);
+        assertEquals("workflows[1].TaskNumber must be of type integer",
+                schemas.getResponseValidator().validate(response).getMessage());
+    }
+
+    @Test
+    @DisplayName("Should refuse schemas it cannot enforce")
+    void testRejectsUnsupportedSchemas() {
+        assertThrows(IllegalArgumentException.class,
+                () -> JsonSchemaValidator.compile("{\"type\": \"string\", \"minLength\": 3}"));
+        assertThrows(IllegalArgumentException.class,
+                () -> JsonSchemaValidator.compile("{\"type\": \"array\", \"type\": \"object\"}"));
+        assertThrows(IllegalArgumentException.class,
+                () -> JsonSchemaValidator.compile("{\"enum\": [1, 2]}"));
+    }
+
+    private ObjectNode request(String loanNumber, String reviewType) {
+        return objectMapper.createObjectNode()
+                .put("RequestNumber", "REQ-1")
+                .put("LoanNumber", loanNumber)
+                .put("ReviewType", reviewType);
+    }
+}
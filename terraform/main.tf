@@ -38,6 +38,8 @@ module "iam" {
 
   environment        = var.environment
   dynamodb_table_arn = module.dynamodb.table_arn
+  reclass_queue_arn  = module.sqs.queue_arn
+  ses_sender_email   = var.ses_sender_email
 }
 
 # Lambda Function
@@ -59,12 +61,62 @@ module "lambda" {
   environment_variables = {
     DYNAMODB_TABLE                   = module.dynamodb.workflow_state_table_name
     AUDIT_TABLE                      = module.dynamodb.audit_trail_table_name
+    AUDIT_SINK                       = var.audit_sink
     PARAMETER_STORE_PREFIX           = "/ldc-workflow"
+    PARAMETER_CACHE_TTL_SECONDS      = var.parameter_cache_ttl_seconds
+    WORKFLOW_OUTPUT_MODE             = var.workflow_output_mode
+    POLL_MIN_SECONDS                 = var.poll_min_seconds
+    POLL_MAX_SECONDS                 = var.poll_max_seconds
+    STATUS_DECISION_TABLE_PARAMETER  = module.parameter_store.loan_status_decision_table_parameter_name
+    ATTRIBUTE_DICTIONARY_PARAMETER   = module.parameter_store.attribute_dictionary_parameter_name
+    VEND_PPA_ENDPOINT_PARAMETER      = module.parameter_store.vend_ppa_api_endpoint_parameter_name
+    VEND_PPA_TIMEOUT_MS              = var.api_endpoints.vend_ppa_timeout_seconds * 1000
+    VEND_PPA_MAX_ATTEMPTS            = var.api_endpoints.vend_ppa_retry_attempts + 1
+    LAMBDA_TIMEOUT_SECONDS           = var.lambda_timeout
+    VEND_PPA_OUTBOX_TABLE            = module.dynamodb.vend_ppa_outbox_table_name
+    VEND_PPA_DISPATCH_CONCURRENCY    = var.vend_ppa_dispatch_concurrency
+    VEND_PPA_BATCH_SIZE              = var.vend_ppa_batch_size
+    VEND_PPA_BATCH_WINDOW_MS         = var.vend_ppa_batch_window_ms
+    VEND_PPA_OUTBOX_LEASE_MS         = (var.api_endpoints.vend_ppa_timeout_seconds * (var.api_endpoints.vend_ppa_retry_attempts + 1) + 10) * 1000
+    NOTIFICATION_SENDER              = var.notification_sender
+    SES_SENDER_EMAIL                 = var.ses_sender_email
+    EMAIL_TEMPLATE_PARAMETER_PATH    = module.parameter_store.email_template_parameter_path
+    NOTIFICATION_PARAMETER_PATH      = module.parameter_store.notification_email_parameter_path
+    LOAN_ATTRIBUTE_SOURCE            = var.loan_attribute_source
+    LOAN_DB_JDBC_URL                 = var.loan_db_jdbc_url
+    LOAN_DB_USER                     = var.loan_db_user
+    LOAN_DB_PASSWORD_PARAMETER       = var.loan_db_password_parameter
+    SQS_QUEUE_URL                    = module.sqs.queue_url
     SPRING_CLOUD_FUNCTION_DEFINITION = "loanReviewRouter"
     MAIN_CLASS                       = "com.ldc.workflow.LambdaApplication"
   }
 }
 
+# Reclass confirmation queue, consumed by the workflow Lambda
+module "sqs" {
+  source = "./modules/sqs"
+
+  queue_name           = var.reclass_queue_name
+  environment          = var.environment
+  lambda_function_name = module.lambda.function_name
+  lambda_timeout       = var.lambda_timeout
+  batch_size           = var.reclass_queue_batch_size
+  maximum_concurrency  = var.reclass_queue_max_concurrency
+}
+
+# Vend PPA outbox delivery: stream of new rows plus the redelivery sweep
+module "vend_ppa_outbox" {
+  source = "./modules/vend-ppa-outbox"
+
+  environment            = var.environment
+  lambda_function_name   = module.lambda.function_name
+  lambda_function_arn    = module.lambda.function_arn
+  outbox_stream_arn      = module.dynamodb.vend_ppa_outbox_stream_arn
+  batch_size             = var.vend_ppa_outbox_batch_size
+  parallelization_factor = var.vend_ppa_outbox_parallelization
+  sweep_schedule         = var.vend_ppa_outbox_sweep_schedule
+}
+
 # Step Functions State Machine
 module "step_functions" {
   source = "./modules/step-functions"
@@ -77,7 +129,11 @@ module "step_functions" {
   lambda_functions_ready = module.lambda.function_arn
   lambda_function_name   = var.lambda_function_name
 
-  reclass_timer_seconds = var.reclass_timer_seconds
+  reclass_timer_seconds         = var.reclass_timer_seconds
+  decision_wait_timeout_seconds = var.decision_wait_timeout_seconds
+  vend_ppa_ack_timeout_seconds  = var.vend_ppa_ack_timeout_seconds
+  bulk_max_concurrency          = var.bulk_max_concurrency
+  bulk_batch_size               = var.bulk_batch_size
 }
 
 # CloudWatch Logs
@@ -109,11 +165,17 @@ module "parameter_store" {
   api_endpoints = var.api_endpoints
 
   # Business Rules
-  business_rules = var.business_rules
+  business_rules             = var.business_rules
+  loan_status_decision_table = var.loan_status_decision_table
+  attribute_dictionary       = var.attribute_dictionary
 
   # Feature Flags
   feature_flags = var.feature_flags
 
+  # Notifications
+  email_templates     = var.email_templates
+  notification_emails = var.notification_emails
+
   # Logging
   logging = var.logging
 }
@@ -97,6 +97,51 @@ resource "aws_dynamodb_table" "audit_trail" {
   }
 }
 
+# DynamoDB Table for the Vend PPA outbox
+# Composite key: RequestNumber (PK) + LoanNumber (SK), one row per queued submission.
+# Rows are deleted once Vend PPA accepts them; the stream carries new rows' keys to the dispatcher.
+resource "aws_dynamodb_table" "vend_ppa_outbox" {
+  name             = "${var.table_name}-outbox"
+  billing_mode     = var.billing_mode
+  hash_key         = "RequestNumber"
+  range_key        = "LoanNumber"
+  stream_enabled   = true
+  stream_view_type = "KEYS_ONLY"
+
+  # Attributes
+  attribute {
+    name = "RequestNumber"
+    type = "S"
+  }
+
+  attribute {
+    name = "LoanNumber"
+    type = "S"
+  }
+
+  # Provisioned capacity (if not using on-demand)
+  read_capacity  = var.billing_mode == "PROVISIONED" ? var.read_capacity : null
+  write_capacity = var.billing_mode == "PROVISIONED" ? var.write_capacity : null
+
+  # Point-in-time recovery
+  point_in_time_recovery {
+    enabled = var.point_in_time_recovery_enabled
+  }
+
+  # Encryption at rest
+  server_side_encryption {
+    enabled     = true
+    kms_key_arn = null # Use AWS managed key
+  }
+
+  # Tags
+  tags = {
+    Name        = "${var.table_name}-outbox"
+    Environment = var.environment
+    Purpose     = "Vend PPA Outbox"
+  }
+}
+
 # Outputs
 output "workflow_state_table_name" {
   value       = aws_dynamodb_table.workflow_state.name
@@ -118,6 +163,16 @@ output "audit_trail_table_arn" {
   description = "Audit trail DynamoDB table ARN"
 }
 
+output "vend_ppa_outbox_table_name" {
+  value       = aws_dynamodb_table.vend_ppa_outbox.name
+  description = "Vend PPA outbox DynamoDB table name"
+}
+
+output "vend_ppa_outbox_stream_arn" {
+  value       = aws_dynamodb_table.vend_ppa_outbox.stream_arn
+  description = "Vend PPA outbox DynamoDB stream ARN"
+}
+
 output "table_arn" {
   value       = aws_dynamodb_table.workflow_state.arn
   description = "Primary DynamoDB table ARN (for backward compatibility)"
@@ -36,7 +36,7 @@ resource "aws_iam_role_policy_attachment" "lambda_basic_execution" {
   policy_arn = "arn:aws:iam::aws:policy/service-role/AWSLambdaBasicExecutionRole"
 }
 
-# DynamoDB access policy for WorkflowState and AuditTrail tables
+# DynamoDB access policy for WorkflowState, AuditTrail and Vend PPA outbox tables
 resource "aws_iam_role_policy" "dynamodb_access" {
   name = "dynamodb-access"
   role = aws_iam_role.lambda_role.id
@@ -49,19 +49,44 @@ resource "aws_iam_role_policy" "dynamodb_access" {
         Action = [
           "dynamodb:GetItem",
           "dynamodb:PutItem",
+          "dynamodb:BatchWriteItem",
           "dynamodb:UpdateItem",
+          "dynamodb:DeleteItem",
           "dynamodb:Query",
           "dynamodb:Scan"
         ]
         Resource = [
           var.dynamodb_table_arn,
-          "${var.dynamodb_table_arn}-audit"
+          "${var.dynamodb_table_arn}-audit",
+          "${var.dynamodb_table_arn}-outbox"
         ]
       }
     ]
   })
 }
 
+# Vend PPA outbox stream read through the Lambda event source mapping
+resource "aws_iam_role_policy" "vend_ppa_outbox_stream" {
+  name = "vend-ppa-outbox-stream"
+  role = aws_iam_role.lambda_role.id
+
+  policy = jsonencode({
+    Version = "2012-10-17"
+    Statement = [
+      {
+        Effect = "Allow"
+        Action = [
+          "dynamodb:DescribeStream",
+          "dynamodb:GetRecords",
+          "dynamodb:GetShardIterator",
+          "dynamodb:ListStreams"
+        ]
+        Resource = "${var.dynamodb_table_arn}-outbox/stream/*"
+      }
+    ]
+  })
+}
+
 # Parameter Store access policy for configuration
 resource "aws_iam_role_policy" "parameter_store_access" {
   name = "parameter-store-access"
@@ -83,6 +108,71 @@ resource "aws_iam_role_policy" "parameter_store_access" {
   })
 }
 
+# Step Functions task token callbacks (resume/fail/heartbeat waiting executions)
+resource "aws_iam_role_policy" "step_functions_task_tokens" {
+  name = "step-functions-task-tokens"
+  role = aws_iam_role.lambda_role.id
+
+  policy = jsonencode({
+    Version = "2012-10-17"
+    Statement = [
+      {
+        Effect = "Allow"
+        Action = [
+          "states:SendTaskSuccess",
+          "states:SendTaskFailure",
+          "states:SendTaskHeartbeat"
+        ]
+        Resource = "*"
+      }
+    ]
+  })
+}
+
+# Repurchase notification emails, only from the configured sender
+resource "aws_iam_role_policy" "ses_send_email" {
+  name = "ses-send-email"
+  role = aws_iam_role.lambda_role.id
+
+  policy = jsonencode({
+    Version = "2012-10-17"
+    Statement = [
+      {
+        Effect   = "Allow"
+        Action   = "ses:SendEmail"
+        Resource = "arn:aws:ses:*:*:identity/*"
+        Condition = {
+          StringEquals = {
+            "ses:FromAddress" = var.ses_sender_email
+          }
+        }
+      }
+    ]
+  })
+}
+
+# Reclass confirmation queue consumed through the Lambda event source mapping
+resource "aws_iam_role_policy" "reclass_confirmation_queue" {
+  name = "reclass-confirmation-queue"
+  role = aws_iam_role.lambda_role.id
+
+  policy = jsonencode({
+    Version = "2012-10-17"
+    Statement = [
+      {
+        Effect = "Allow"
+        Action = [
+          "sqs:ReceiveMessage",
+          "sqs:DeleteMessage",
+          "sqs:ChangeMessageVisibility",
+          "sqs:GetQueueAttributes"
+        ]
+        Resource = var.reclass_queue_arn
+      }
+    ]
+  })
+}
+
 # IAM Role for Step Functions
 resource "aws_iam_role" "step_functions_role" {
   name = "ldc-loan-review-step-functions-role-${var.environment}"
@@ -149,6 +239,37 @@ resource "aws_iam_role_policy" "step_functions_dynamodb" {
   })
 }
 
+# Step Functions nested workflow policy (synchronous Express segments)
+resource "aws_iam_role_policy" "step_functions_nested_executions" {
+  name = "step-functions-nested-executions"
+  role = aws_iam_role.step_functions_role.id
+
+  policy = jsonencode({
+    Version = "2012-10-17"
+    Statement = [
+      {
+        Effect = "Allow"
+        Action = [
+          "states:StartExecution",
+          "states:StartSyncExecution",
+          "states:DescribeExecution",
+          "states:StopExecution"
+        ]
+        Resource = "*"
+      },
+      {
+        Effect = "Allow"
+        Action = [
+          "events:PutTargets",
+          "events:PutRule",
+          "events:DescribeRule"
+        ]
+        Resource = "arn:aws:events:*:*:rule/StepFunctionsGetEventsForStepFunctionsExecutionRule"
+      }
+    ]
+  })
+}
+
 # Step Functions CloudWatch Logs policy
 resource "aws_iam_role_policy" "step_functions_logs" {
   name = "step-functions-logs"
@@ -160,6 +281,11 @@ resource "aws_iam_role_policy" "step_functions_logs" {
       {
         Effect = "Allow"
         Action = [
+          "logs:CreateLogDelivery",
+          "logs:GetLogDelivery",
+          "logs:UpdateLogDelivery",
+          "logs:DeleteLogDelivery",
+          "logs:ListLogDeliveries",
           "logs:CreateLogDeliveryOptions",
           "logs:GetLogDeliveryOptions",
           "logs:UpdateLogDeliveryOptions",
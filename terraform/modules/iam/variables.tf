@@ -7,3 +7,13 @@ variable "dynamodb_table_arn" {
   description = "DynamoDB table ARN"
   type        = string
 }
+
+variable "reclass_queue_arn" {
+  description = "Reclass confirmation SQS queue ARN"
+  type        = string
+}
+
+variable "ses_sender_email" {
+  description = "Address notification emails are sent from"
+  type        = string
+}
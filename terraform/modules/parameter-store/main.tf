@@ -133,6 +133,28 @@ resource "aws_ssm_parameter" "debt_ratio_threshold" {
   }
 }
 
+resource "aws_ssm_parameter" "loan_status_decision_table" {
+  name        = "/${var.parameter_store_prefix}/${var.environment}/business_rules/loan_status_decision_table"
+  description = "JSON decision table mapping present attribute decisions to a loan status; bump version to roll out"
+  type        = "String"
+  value       = var.loan_status_decision_table
+  tags = {
+    Category    = "BusinessRules"
+    Environment = var.environment
+  }
+}
+
+resource "aws_ssm_parameter" "attribute_dictionary" {
+  name        = "/${var.parameter_store_prefix}/${var.environment}/business_rules/attribute_dictionary"
+  description = "JSON list of known attribute names stored by id; append names and bump version, never reorder"
+  type        = "String"
+  value       = var.attribute_dictionary
+  tags = {
+    Category    = "BusinessRules"
+    Environment = var.environment
+  }
+}
+
 # Feature Flags
 resource "aws_ssm_parameter" "enable_vend_ppa_integration" {
   name        = "/${var.parameter_store_prefix}/${var.environment}/feature_flags/enable_vend_ppa_integration"
@@ -156,6 +178,33 @@ resource "aws_ssm_parameter" "enable_email_notifications" {
   }
 }
 
+# Notifications
+resource "aws_ssm_parameter" "email_template" {
+  for_each = var.email_templates
+
+  name        = "/${var.parameter_store_prefix}/${var.environment}/email-templates/${each.key}"
+  description = "Email template for ${each.key} notifications"
+  type        = "String"
+  value       = jsonencode(each.value)
+  tags = {
+    Category    = "Notifications"
+    Environment = var.environment
+  }
+}
+
+resource "aws_ssm_parameter" "notification_email" {
+  for_each = var.notification_emails
+
+  name        = "/${var.parameter_store_prefix}/${var.environment}/notifications/${each.key}-email"
+  description = "Recipients of ${each.key} notifications"
+  type        = "String"
+  value       = each.value
+  tags = {
+    Category    = "Notifications"
+    Environment = var.environment
+  }
+}
+
 resource "aws_ssm_parameter" "enable_audit_logging" {
   name        = "/${var.parameter_store_prefix}/${var.environment}/feature_flags/enable_audit_logging"
   description = "Enable/disable detailed audit logging"
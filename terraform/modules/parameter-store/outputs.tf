@@ -58,6 +58,27 @@ output "debt_ratio_threshold_parameter_name" {
   description = "Parameter Store name for debt ratio threshold"
 }
 
+output "loan_status_decision_table_parameter_name" {
+  value       = aws_ssm_parameter.loan_status_decision_table.name
+  description = "Parameter Store name for the loan status decision table"
+}
+
+output "attribute_dictionary_parameter_name" {
+  value       = aws_ssm_parameter.attribute_dictionary.name
+  description = "Parameter Store name for the attribute name dictionary"
+}
+
+# Notification Parameters
+output "email_template_parameter_path" {
+  value       = "/${var.parameter_store_prefix}/${var.environment}/email-templates/"
+  description = "Parameter Store path of the email templates, one parameter per notification type"
+}
+
+output "notification_email_parameter_path" {
+  value       = "/${var.parameter_store_prefix}/${var.environment}/notifications/"
+  description = "Parameter Store path of the notification recipients ({type}-email)"
+}
+
 # Feature Flags Parameters
 output "enable_vend_ppa_integration_parameter_name" {
   value       = aws_ssm_parameter.enable_vend_ppa_integration.name
@@ -72,6 +72,35 @@ variable "business_rules" {
   }
 }
 
+variable "loan_status_decision_table" {
+  description = "Loan status decision table (JSON: version, rules of present/absent decisions and status, default). The Lambda swaps tables when the version changes."
+  type        = string
+  default     = <<-EOT
+    {
+      "version": "1",
+      "rules": [
+        {"present": ["Repurchase"], "status": "Repurchase"},
+        {"present": ["Reclass"], "status": "Reclass Approved"},
+        {"present": ["Approved", "Rejected"], "status": "Partially Approved"},
+        {"present": ["Approved"], "status": "Approved"},
+        {"present": ["Rejected"], "status": "Rejected"}
+      ],
+      "default": "Unknown"
+    }
+  EOT
+}
+
+variable "attribute_dictionary" {
+  description = "Attribute name dictionary (JSON: version, names). Stored attribute data refers to names by position, so only append."
+  type        = string
+  default     = <<-EOT
+    {
+      "version": 1,
+      "names": ["CreditScore", "Income", "Assets", "Credit", "Asset"]
+    }
+  EOT
+}
+
 # Feature Flags
 variable "feature_flags" {
   description = "Feature flags for enabling/disabling functionality"
@@ -89,6 +118,22 @@ variable "feature_flags" {
   }
 }
 
+# Notifications
+variable "email_templates" {
+  description = "Email templates (subject, body) by notification type"
+  type = map(object({
+    subject = string
+    body    = string
+  }))
+  default = {}
+}
+
+variable "notification_emails" {
+  description = "Comma separated recipients by notification type"
+  type        = map(string)
+  default     = {}
+}
+
 # Monitoring & Logging
 variable "logging" {
   description = "Logging and monitoring configuration"
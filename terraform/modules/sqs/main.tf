@@ -0,0 +1,68 @@
+terraform {
+  required_providers {
+    aws = {
+      source  = "hashicorp/aws"
+      version = "~> 5.0"
+    }
+  }
+}
+
+# Reclass confirmations that could not be applied after max_receive_count deliveries
+resource "aws_sqs_queue" "reclass_confirmation_dlq" {
+  name                      = "${var.queue_name}-dlq"
+  message_retention_seconds = 1209600 # 14 days
+
+  tags = {
+    Name        = "${var.queue_name}-dlq"
+    Environment = var.environment
+  }
+}
+
+# Reclass confirmations, consumed by ReclassConfirmationHandler
+resource "aws_sqs_queue" "reclass_confirmation" {
+  name = var.queue_name
+
+  # Six times the function timeout, so a batch being retried inside Lambda is not redelivered
+  visibility_timeout_seconds = var.lambda_timeout * 6
+  message_retention_seconds  = var.message_retention_seconds
+  receive_wait_time_seconds  = 20
+
+  redrive_policy = jsonencode({
+    deadLetterTargetArn = aws_sqs_queue.reclass_confirmation_dlq.arn
+    maxReceiveCount     = var.max_receive_count
+  })
+
+  tags = {
+    Name        = var.queue_name
+    Environment = var.environment
+  }
+}
+
+# Deliver confirmations to the workflow Lambda; only the failed messages of a batch are retried
+resource "aws_lambda_event_source_mapping" "reclass_confirmation" {
+  event_source_arn                   = aws_sqs_queue.reclass_confirmation.arn
+  function_name                      = var.lambda_function_name
+  batch_size                         = var.batch_size
+  maximum_batching_window_in_seconds = var.maximum_batching_window_seconds
+  function_response_types            = ["ReportBatchItemFailures"]
+
+  scaling_config {
+    maximum_concurrency = var.maximum_concurrency
+  }
+}
+
+# Outputs
+output "queue_arn" {
+  value       = aws_sqs_queue.reclass_confirmation.arn
+  description = "Reclass confirmation queue ARN"
+}
+
+output "queue_url" {
+  value       = aws_sqs_queue.reclass_confirmation.url
+  description = "Reclass confirmation queue URL"
+}
+
+output "dlq_arn" {
+  value       = aws_sqs_queue.reclass_confirmation_dlq.arn
+  description = "Reclass confirmation dead-letter queue ARN"
+}
@@ -0,0 +1,59 @@
+variable "queue_name" {
+  description = "Name of the reclass confirmation queue"
+  type        = string
+}
+
+variable "environment" {
+  description = "Environment name"
+  type        = string
+}
+
+variable "lambda_function_name" {
+  description = "Lambda function that consumes the queue"
+  type        = string
+}
+
+variable "lambda_timeout" {
+  description = "Timeout of the consuming function in seconds (sets the visibility timeout)"
+  type        = number
+}
+
+variable "message_retention_seconds" {
+  description = "How long an unconsumed confirmation is kept"
+  type        = number
+  default     = 345600 # 4 days
+}
+
+variable "max_receive_count" {
+  description = "Deliveries before a confirmation is moved to the dead-letter queue"
+  type        = number
+  default     = 5
+}
+
+variable "batch_size" {
+  description = "Messages per Lambda invocation"
+  type        = number
+  default     = 10
+
+  validation {
+    condition     = var.batch_size >= 1 && var.batch_size <= 10000
+    error_message = "Batch size must be between 1 and 10000."
+  }
+}
+
+variable "maximum_batching_window_seconds" {
+  description = "How long the event source mapping waits to fill a batch"
+  type        = number
+  default     = 1
+}
+
+variable "maximum_concurrency" {
+  description = "Concurrent invocations the queue may drive (2-1000)"
+  type        = number
+  default     = 10
+
+  validation {
+    condition     = var.maximum_concurrency >= 2 && var.maximum_concurrency <= 1000
+    error_message = "Maximum concurrency must be between 2 and 1000."
+  }
+}
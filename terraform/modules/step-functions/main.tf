@@ -7,12 +7,91 @@ terraform {
   }
 }
 
-# Read the Step Functions definition
+# Read the Step Functions definitions. The Standard workflow owns the human
+# waits; the machine-only segments run as Express workflows it starts synchronously.
 locals {
+  validation_definition = templatefile("${path.module}/validation.asl.json", {
+    lambda_function_name = var.lambda_function_name
+  })
+
+  loan_decision_definition = templatefile("${path.module}/loan-decision.asl.json", {
+    lambda_function_name = var.lambda_function_name
+  })
+
   state_machine_definition = templatefile("${path.module}/definition.asl.json", {
-    reclass_timer_seconds = var.reclass_timer_seconds
-    lambda_function_name  = var.lambda_function_name
+    reclass_timer_seconds           = var.reclass_timer_seconds
+    decision_wait_timeout_seconds   = var.decision_wait_timeout_seconds
+    vend_ppa_ack_timeout_seconds    = var.vend_ppa_ack_timeout_seconds
+    lambda_function_name            = var.lambda_function_name
+    validation_state_machine_arn    = aws_sfn_state_machine.validation.arn
+    loan_decision_state_machine_arn = aws_sfn_state_machine.loan_decision.arn
   })
+
+  bulk_definition = templatefile("${path.module}/bulk.asl.json", {
+    lambda_function_name              = var.lambda_function_name
+    loan_review_state_machine_arn     = aws_sfn_state_machine.loan_review_workflow.arn
+    bulk_max_concurrency              = var.bulk_max_concurrency
+    bulk_batch_size                   = var.bulk_batch_size
+    bulk_tolerated_failure_percentage = var.bulk_tolerated_failure_percentage
+    loan_start_concurrency            = var.loan_start_concurrency
+  })
+}
+
+# Express segments log to CloudWatch; they keep no execution history otherwise
+resource "aws_cloudwatch_log_group" "express_segments" {
+  name              = "/aws/vendedlogs/states/${var.state_machine_name}-segments"
+  retention_in_days = var.log_retention_days
+
+  tags = {
+    Name        = "${var.state_machine_name}-segments"
+    Environment = var.environment
+  }
+}
+
+# Express child: review type validation
+resource "aws_sfn_state_machine" "validation" {
+  name       = "${var.state_machine_name}-validation"
+  role_arn   = var.state_machine_role_arn
+  definition = local.validation_definition
+  type       = "EXPRESS"
+
+  logging_configuration {
+    log_destination        = "${aws_cloudwatch_log_group.express_segments.arn}:*"
+    include_execution_data = false
+    level                  = var.express_log_level
+  }
+
+  tags = {
+    Name        = "${var.state_machine_name}-validation"
+    Environment = var.environment
+  }
+
+  depends_on = [
+    var.lambda_functions_ready
+  ]
+}
+
+# Express child: loan evaluation and queueing for Vend PPA
+resource "aws_sfn_state_machine" "loan_decision" {
+  name       = "${var.state_machine_name}-loan-decision"
+  role_arn   = var.state_machine_role_arn
+  definition = local.loan_decision_definition
+  type       = "EXPRESS"
+
+  logging_configuration {
+    log_destination        = "${aws_cloudwatch_log_group.express_segments.arn}:*"
+    include_execution_data = false
+    level                  = var.express_log_level
+  }
+
+  tags = {
+    Name        = "${var.state_machine_name}-loan-decision"
+    Environment = var.environment
+  }
+
+  depends_on = [
+    var.lambda_functions_ready
+  ]
 }
 
 # Step Functions State Machine
@@ -20,6 +99,7 @@ resource "aws_sfn_state_machine" "loan_review_workflow" {
   name       = var.state_machine_name
   role_arn   = var.state_machine_role_arn
   definition = local.state_machine_definition
+  type       = "STANDARD"
 
   tags = {
     Name        = var.state_machine_name
@@ -31,6 +111,23 @@ resource "aws_sfn_state_machine" "loan_review_workflow" {
   ]
 }
 
+# Bulk request fan-out: Distributed Map over the loans of one RequestNumber
+resource "aws_sfn_state_machine" "bulk_review" {
+  name       = "${var.state_machine_name}-bulk"
+  role_arn   = var.state_machine_role_arn
+  definition = local.bulk_definition
+  type       = "STANDARD"
+
+  tags = {
+    Name        = "${var.state_machine_name}-bulk"
+    Environment = var.environment
+  }
+
+  depends_on = [
+    var.lambda_functions_ready
+  ]
+}
+
 # Outputs
 output "state_machine_arn" {
   value       = aws_sfn_state_machine.loan_review_workflow.arn
@@ -42,4 +139,17 @@ output "state_machine_name" {
   description = "Name of the Step Functions state machine"
 }
 
+output "validation_state_machine_arn" {
+  value       = aws_sfn_state_machine.validation.arn
+  description = "ARN of the Express review type validation workflow"
+}
+
+output "loan_decision_state_machine_arn" {
+  value       = aws_sfn_state_machine.loan_decision.arn
+  description = "ARN of the Express loan decision workflow"
+}
 
+output "bulk_state_machine_arn" {
+  value       = aws_sfn_state_machine.bulk_review.arn
+  description = "ARN of the bulk request Distributed Map workflow"
+}
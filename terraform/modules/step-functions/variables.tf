@@ -28,12 +28,54 @@ variable "lambda_functions_ready" {
 }
 
 variable "reclass_timer_seconds" {
-  description = "Duration to wait before checking reclass confirmation (in seconds)"
+  description = "Longest the workflow waits for a reclass confirmation message before re-checking the status itself (in seconds)"
   type        = number
   default     = 172800 # 48 hours
 }
 
+variable "decision_wait_timeout_seconds" {
+  description = "Longest a loan waits for a decision callback before completion is re-checked (in seconds)"
+  type        = number
+  default     = 86400 # 24 hours
+}
+
+variable "vend_ppa_ack_timeout_seconds" {
+  description = "How long a loan waits for Vend PPA to accept its queued submission before the wait is registered again (in seconds)"
+  type        = number
+  default     = 3600 # 1 hour
+}
+
 variable "lambda_function_name" {
   description = "Name of the Lambda function to invoke"
   type        = string
 }
+
+variable "express_log_level" {
+  description = "CloudWatch log level for the Express segment workflows (ALL, ERROR, FATAL or OFF)"
+  type        = string
+  default     = "ERROR"
+}
+
+variable "bulk_max_concurrency" {
+  description = "Distributed Map child executions (loan batches) running at once per bulk request"
+  type        = number
+  default     = 20
+}
+
+variable "bulk_batch_size" {
+  description = "Loans validated and persisted per Lambda invocation in the bulk workflow"
+  type        = number
+  default     = 100
+}
+
+variable "bulk_tolerated_failure_percentage" {
+  description = "Percentage of failed loan batches a bulk request tolerates before it fails"
+  type        = number
+  default     = 0
+}
+
+variable "loan_start_concurrency" {
+  description = "Per-loan review executions each loan batch starts concurrently"
+  type        = number
+  default     = 10
+}
@@ -0,0 +1,54 @@
+terraform {
+  required_providers {
+    aws = {
+      source  = "hashicorp/aws"
+      version = "~> 5.0"
+    }
+  }
+}
+
+# Deliver new outbox rows to the workflow Lambda as soon as they are written.
+# Only INSERT records pass; claims and retries modify rows and must not re-trigger delivery.
+resource "aws_lambda_event_source_mapping" "vend_ppa_outbox" {
+  event_source_arn                   = var.outbox_stream_arn
+  function_name                      = var.lambda_function_name
+  starting_position                  = "LATEST"
+  batch_size                         = var.batch_size
+  maximum_batching_window_in_seconds = var.maximum_batching_window_seconds
+  parallelization_factor             = var.parallelization_factor
+  function_response_types            = ["ReportBatchItemFailures"]
+
+  filter_criteria {
+    filter {
+      pattern = jsonencode({
+        eventName = ["INSERT"]
+      })
+    }
+  }
+}
+
+# Redeliver rows whose lease has run out: failed calls given back, and stream deliveries that were lost
+resource "aws_cloudwatch_event_rule" "vend_ppa_outbox_sweep" {
+  name                = "${var.lambda_function_name}-vend-ppa-outbox-sweep"
+  description         = "Redeliver Vend PPA outbox rows whose lease has run out"
+  schedule_expression = var.sweep_schedule
+
+  tags = {
+    Name        = "${var.lambda_function_name}-vend-ppa-outbox-sweep"
+    Environment = var.environment
+  }
+}
+
+resource "aws_cloudwatch_event_target" "vend_ppa_outbox_sweep" {
+  rule  = aws_cloudwatch_event_rule.vend_ppa_outbox_sweep.name
+  arn   = var.lambda_function_arn
+  input = jsonencode({ handlerType = "vendPpaOutboxSweep" })
+}
+
+resource "aws_lambda_permission" "vend_ppa_outbox_sweep" {
+  statement_id  = "AllowVendPpaOutboxSweep"
+  action        = "lambda:InvokeFunction"
+  function_name = var.lambda_function_name
+  principal     = "events.amazonaws.com"
+  source_arn    = aws_cloudwatch_event_rule.vend_ppa_outbox_sweep.arn
+}
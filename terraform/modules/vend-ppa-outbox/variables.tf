@@ -0,0 +1,43 @@
+variable "environment" {
+  description = "Environment name"
+  type        = string
+}
+
+variable "lambda_function_name" {
+  description = "Lambda function that dispatches the outbox"
+  type        = string
+}
+
+variable "lambda_function_arn" {
+  description = "ARN of the dispatching function, the target of the sweep schedule"
+  type        = string
+}
+
+variable "outbox_stream_arn" {
+  description = "Stream of the Vend PPA outbox table"
+  type        = string
+}
+
+variable "batch_size" {
+  description = "New outbox rows per Lambda invocation"
+  type        = number
+  default     = 100
+}
+
+variable "maximum_batching_window_seconds" {
+  description = "How long the stream mapping gathers rows before invoking"
+  type        = number
+  default     = 0
+}
+
+variable "parallelization_factor" {
+  description = "Concurrent invocations per stream shard"
+  type        = number
+  default     = 2
+}
+
+variable "sweep_schedule" {
+  description = "EventBridge schedule expression of the redelivery sweep"
+  type        = string
+  default     = "rate(1 minute)"
+}
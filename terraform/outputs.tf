@@ -23,6 +23,21 @@ output "step_functions_state_machine_name" {
   value       = module.step_functions.state_machine_name
 }
 
+output "step_functions_validation_state_machine_arn" {
+  description = "ARN of the Express review type validation workflow"
+  value       = module.step_functions.validation_state_machine_arn
+}
+
+output "step_functions_loan_decision_state_machine_arn" {
+  description = "ARN of the Express loan decision workflow"
+  value       = module.step_functions.loan_decision_state_machine_arn
+}
+
+output "step_functions_bulk_state_machine_arn" {
+  description = "ARN of the bulk request Distributed Map workflow"
+  value       = module.step_functions.bulk_state_machine_arn
+}
+
 output "dynamodb_workflow_state_table_name" {
   description = "Name of the DynamoDB WorkflowState table"
   value       = module.dynamodb.workflow_state_table_name
@@ -57,3 +72,13 @@ output "parameter_store_prefix" {
   description = "Parameter Store prefix for all configuration parameters"
   value       = var.parameter_store_prefix
 }
+
+output "reclass_confirmation_queue_url" {
+  description = "URL of the queue that reclass confirmations are published to"
+  value       = module.sqs.queue_url
+}
+
+output "reclass_confirmation_dlq_arn" {
+  description = "ARN of the dead-letter queue for reclass confirmations that could not be applied"
+  value       = module.sqs.dlq_arn
+}
@@ -78,6 +78,44 @@ variable "lambda_function_code_path" {
   default     = "../lambda-function/target/lambda-function-1.0.0-aws.jar"
 }
 
+variable "audit_sink" {
+  description = "Audit trail sink used by the Lambda (dynamodb, log or journal)"
+  type        = string
+  default     = "dynamodb"
+  validation {
+    condition     = contains(["dynamodb", "log", "journal"], var.audit_sink)
+    error_message = "Audit sink must be dynamodb, log or journal."
+  }
+}
+
+variable "parameter_cache_ttl_seconds" {
+  description = "Seconds a Parameter Store value is served from the Lambda cache before it is refreshed"
+  type        = number
+  default     = 300
+}
+
+variable "workflow_output_mode" {
+  description = "Handler output: compact returns a state reference, full returns the whole workflow state"
+  type        = string
+  default     = "compact"
+  validation {
+    condition     = contains(["compact", "full"], var.workflow_output_mode)
+    error_message = "Workflow output mode must be compact or full."
+  }
+}
+
+variable "poll_min_seconds" {
+  description = "Shortest interval between status polls for a loan that just changed"
+  type        = number
+  default     = 5
+}
+
+variable "poll_max_seconds" {
+  description = "Longest interval between status polls for an idle loan"
+  type        = number
+  default     = 1800
+}
+
 # Step Functions Configuration
 variable "step_functions_state_machine_name" {
   description = "Step Functions state machine name"
@@ -135,6 +173,35 @@ variable "business_rules" {
   }
 }
 
+variable "loan_status_decision_table" {
+  description = "Loan status decision table (JSON: version, rules of present/absent decisions and status, default). The Lambda swaps tables when the version changes; keep the status labels the step functions route on."
+  type        = string
+  default     = <<-EOT
+    {
+      "version": "1",
+      "rules": [
+        {"present": ["Repurchase"], "status": "Repurchase"},
+        {"present": ["Reclass"], "status": "Reclass Approved"},
+        {"present": ["Approved", "Rejected"], "status": "Partially Approved"},
+        {"present": ["Approved"], "status": "Approved"},
+        {"present": ["Rejected"], "status": "Rejected"}
+      ],
+      "default": "Unknown"
+    }
+  EOT
+}
+
+variable "attribute_dictionary" {
+  description = "Attribute name dictionary (JSON: version, names). Stored attribute data refers to names by position: append names and bump the version, never remove or reorder."
+  type        = string
+  default     = <<-EOT
+    {
+      "version": 1,
+      "names": ["CreditScore", "Income", "Assets", "Credit", "Asset"]
+    }
+  EOT
+}
+
 # Feature Flags
 variable "feature_flags" {
   description = "Feature flags for enabling/disabling functionality"
@@ -175,11 +242,152 @@ variable "parameter_store_prefix" {
 
 # Timing Configuration
 variable "reclass_timer_seconds" {
-  description = "Duration to wait before checking reclass confirmation (in seconds)"
+  description = "Longest the workflow waits for a reclass confirmation message before re-checking the status itself (in seconds)"
   type        = number
   default     = 172800 # 48 hours
 }
 
+variable "decision_wait_timeout_seconds" {
+  description = "Longest a loan waits for a decision callback before completion is re-checked (in seconds)"
+  type        = number
+  default     = 86400 # 24 hours
+}
+
+variable "bulk_max_concurrency" {
+  description = "Loan batches processed at once per bulk request (bounds DynamoDB write and StartExecution rates)"
+  type        = number
+  default     = 20
+}
+
+variable "bulk_batch_size" {
+  description = "Loans validated and persisted per Lambda invocation in the bulk workflow"
+  type        = number
+  default     = 100
+}
+
+# Reclass Confirmation Queue
+variable "reclass_queue_name" {
+  description = "SQS queue that delivers reclass confirmations to the workflow"
+  type        = string
+  default     = "ldc-loan-review-reclass-confirmation"
+}
+
+variable "reclass_queue_batch_size" {
+  description = "Reclass confirmations per Lambda invocation"
+  type        = number
+  default     = 10
+}
+
+variable "reclass_queue_max_concurrency" {
+  description = "Concurrent Lambda invocations the reclass queue may drive"
+  type        = number
+  default     = 10
+}
+
+# Vend PPA Outbox
+variable "vend_ppa_ack_timeout_seconds" {
+  description = "How long a loan waits for Vend PPA to accept its queued submission before the wait is registered again (in seconds)"
+  type        = number
+  default     = 3600 # 1 hour
+}
+
+variable "vend_ppa_outbox_batch_size" {
+  description = "New outbox rows per Lambda invocation from the outbox stream"
+  type        = number
+  default     = 100
+}
+
+variable "vend_ppa_outbox_parallelization" {
+  description = "Concurrent invocations per outbox stream shard"
+  type        = number
+  default     = 2
+}
+
+variable "vend_ppa_dispatch_concurrency" {
+  description = "Vend PPA calls in flight per dispatching invocation"
+  type        = number
+  default     = 16
+}
+
+variable "vend_ppa_batch_size" {
+  description = "Vend PPA submissions per call to the batch endpoint (1 sends each loan on its own)"
+  type        = number
+  default     = 1
+}
+
+variable "vend_ppa_batch_window_ms" {
+  description = "Longest a Vend PPA submission waits for its batch to fill"
+  type        = number
+  default     = 200
+}
+
+variable "notification_sender" {
+  description = "Notification email backend: ses, smtp or log (JSON lines in CloudWatch Logs, nothing sent)"
+  type        = string
+  default     = "ses"
+
+  validation {
+    condition     = contains(["ses", "smtp", "log"], var.notification_sender)
+    error_message = "notification_sender must be ses, smtp or log."
+  }
+}
+
+variable "ses_sender_email" {
+  description = "Verified SES identity notification emails are sent from"
+  type        = string
+  default     = "noreply@ldc.com"
+}
+
+variable "email_templates" {
+  description = "Email templates by notification type; {{name}} placeholders are filled from the loan (loanNumber, requestNumber, reviewType, loanStatus, repurchaseAttributes, decidedAt). Types without one use the built-in template."
+  type = map(object({
+    subject = string
+    body    = string
+  }))
+  default = {}
+}
+
+variable "notification_emails" {
+  description = "Comma separated recipients by notification type, e.g. repurchase"
+  type        = map(string)
+  default     = {}
+}
+
+variable "loan_attribute_source" {
+  description = "Where attribute decisions are read from: dynamodb (the workflow state item) or postgres (the loan_attributes table; needs a Lambda that can reach the database)"
+  type        = string
+  default     = "dynamodb"
+
+  validation {
+    condition     = contains(["dynamodb", "postgres"], var.loan_attribute_source)
+    error_message = "loan_attribute_source must be dynamodb or postgres."
+  }
+}
+
+variable "loan_db_jdbc_url" {
+  description = "JDBC URL of the loan database, normally its RDS Proxy endpoint, e.g. jdbc:postgresql://proxy:5432/ldc"
+  type        = string
+  default     = ""
+}
+
+variable "loan_db_user" {
+  description = "Loan database user"
+  type        = string
+  default     = ""
+}
+
+variable "loan_db_password_parameter" {
+  description = "SecureString parameter under /ldc-workflow/ holding the loan database password"
+  type        = string
+  default     = ""
+}
+
+variable "vend_ppa_outbox_sweep_schedule" {
+  description = "Schedule of the sweep that redelivers outbox rows whose lease has run out"
+  type        = string
+  default     = "rate(1 minute)"
+}
+
 variable "review_type_assignment_timeout_seconds" {
   description = "Timeout for review type assignment stage (in seconds)"
   type        = number